@@ -1,6 +1,12 @@
 package ca.pfv.spmf.algorithmmanager;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLDecoder;
@@ -8,7 +14,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -30,67 +38,144 @@ import java.util.jar.JarFile;
  */
 /**
  * This class is used to load the list of all available algorithms available in SPMF.
+ * <br/><br/>
+ * 
+ * The name, category and class of each algorithm are read from an index (the file "AlgorithmIndex.txt"
+ * in this package), and the description of an algorithm (a DescriptionOfAlgorithm object) is only
+ * created the first time that it is requested. Thus, running an algorithm from the command line does not
+ * require to load all the descriptions. The index is created by MainGenerateAlgorithmIndex, by looking for
+ * the descriptions in the package "ca.pfv.spmf.algorithmmanager.descriptions". If the index is missing or
+ * is not up to date (an algorithm is not found), the descriptions are found by looking in that package instead.
  * 
  * @see DescriptionOfAlgorithm
+ * @see MainGenerateAlgorithmIndex
  * @author Philippe Fournier-Viger 2016
  */
 
 public class AlgorithmManager {
 	
-	/** List of algorithms available in SPMF */
-	List<DescriptionOfAlgorithm> algorithms;
+	/** The package containing the descriptions of algorithms */
+	static final String DESCRIPTIONS_PACKAGE = "ca.pfv.spmf.algorithmmanager.descriptions.";
+	
+	/** The name of the index of algorithms (a file in this package) */
+	static final String INDEX_FILE_NAME = "AlgorithmIndex.txt";
+	
+	/** List of algorithms available in SPMF, sorted by categories and names */
+	List<AlgorithmEntry> algorithms;
+	
+	/** The algorithms by name */
+	Map<String, AlgorithmEntry> algorithmsByName;
+	
+	/** true if the list of algorithms was read from the index, false if it was obtained by looking in the package */
+	boolean loadedFromIndex;
 	
 	/** the only instance of this class (singleton) **/
-	static AlgorithmManager instance = null;
+	static volatile AlgorithmManager instance = null;
 	
 	/**
-	 * Default Constructor
+	 * Constructor
+	 * @param useIndex if true, the list of algorithms is read from the index if there is one
 	 * @throws Exception 
 	 */
-	private AlgorithmManager() throws Exception {
-		// Load all algorithms in the package "ca.pfv.spmf.algorithms.description."
-		algorithms = getDescriptionOfAlgorithmsInPackage("ca.pfv.spmf.algorithmmanager.descriptions.");
+	private AlgorithmManager(boolean useIndex) throws Exception {
+		// Read the list of algorithms from the index
+		List<AlgorithmEntry> entries = useIndex ? readIndex() : null;
+		if(entries != null){
+			setAlgorithms(entries);
+			loadedFromIndex = true;
+		}else{
+			// if there is no index, load all algorithms in the package "ca.pfv.spmf.algorithms.description."
+			loadAlgorithmsInPackage();
+		}
 
 		// Then we should load algorithms from Jar files in the same folder if required
 		//....
-		
-		// Then, we will sort the list of algorithms by categories.
-		Collections.sort(algorithms, new Comparator<DescriptionOfAlgorithm>(){
+	}
+	
+	/**
+	 * Create an AlgorithmManager that does not use the index (the descriptions are found by looking in the package).
+	 * This is used to create the index and to compare the two ways of loading the algorithms.
+	 * @return the AlgorithmManager
+	 * @throws Exception if an error occurs while looking for the descriptions of algorithms 
+	 */
+	static AlgorithmManager createWithoutIndex() throws Exception {
+		return new AlgorithmManager(false);
+	}
+	
+	/**
+	 * Load the descriptions of all algorithms in the package "ca.pfv.spmf.algorithms.description."
+	 * @throws Exception if an error occurs while looking for the descriptions of algorithms 
+	 */
+	private void loadAlgorithmsInPackage() throws Exception {
+		List<AlgorithmEntry> entries = new ArrayList<AlgorithmEntry>();
+		for(DescriptionOfAlgorithm description : getDescriptionOfAlgorithmsInPackage(DESCRIPTIONS_PACKAGE)){
+			AlgorithmEntry entry = new AlgorithmEntry(description.getAlgorithmCategory(), description.getName(),
+					description.getClass().getName());
+			entry.description = description;
+			entries.add(entry);
+		}
+		setAlgorithms(entries);
+		loadedFromIndex = false;
+	}
+	
+	/**
+	 * Set the list of algorithms. The algorithms are sorted by categories and names.
+	 * @param entries the algorithms
+	 */
+	private void setAlgorithms(List<AlgorithmEntry> entries) {
+		// We will sort the list of algorithms by categories.
+		Collections.sort(entries, new Comparator<AlgorithmEntry>(){
 			@Override
-			public int compare(DescriptionOfAlgorithm description1, DescriptionOfAlgorithm description2) {
+			public int compare(AlgorithmEntry description1, AlgorithmEntry description2) {
 				// if different category, we sort by categories,
-				if(description1.getAlgorithmCategory().equals(description2.getAlgorithmCategory()) == false){
+				if(description1.category.equals(description2.category) == false){
 					//-----------------------------------------------------
 					// The following lines make sure that the category of algorithm "DATASET TOOLS"
 					// is always the last one in the list.
-					if("DATASET TOOLS".equals(description1.getAlgorithmCategory())){
+					if("DATASET TOOLS".equals(description1.category)){
 						return 1;
 					}
-					if("DATASET TOOLS".equals(description2.getAlgorithmCategory())){
+					if("DATASET TOOLS".equals(description2.category)){
 						return -1;
 					}
 					//-----------------------------------------------------
-					return description1.getAlgorithmCategory().compareTo(description2.getAlgorithmCategory());
+					return description1.category.compareTo(description2.category);
 				}
 				// otherwise we sort by name
-				return description1.getName().compareTo(description2.getName());
+				return description1.name.compareTo(description2.name);
 			}});
+		
+		// if two algorithms have the same name, the first one is used
+		Map<String, AlgorithmEntry> entriesByName = new HashMap<String, AlgorithmEntry>();
+		for(AlgorithmEntry entry : entries){
+			if(entriesByName.containsKey(entry.name) == false){
+				entriesByName.put(entry.name, entry);
+			}
+		}
+		algorithms = entries;
+		algorithmsByName = entriesByName;
 	}
 	
-	//
-	
 	/**
-	 * Obtain the only instance of this class (singleton design pattern)
+	 * Obtain the only instance of this class (singleton design pattern).
+	 * This method can be called by several threads at the same time.
 	 * @return An instance of AlgorithManager
 	 * @throws Exception if error occurs while initializing the instance
 	 */
 	public static AlgorithmManager getInstance() throws Exception{
+		AlgorithmManager result = instance;
 		// if the instance is not created yet
-		if(instance == null){
-			// we create it
-			instance = new AlgorithmManager();
+		if(result == null){
+			synchronized (AlgorithmManager.class) {
+				result = instance;
+				if(result == null){
+					// we create it
+					result = new AlgorithmManager(true);
+					instance = result;
+				}
+			}
 		}
-		return instance;
+		return result;
 	}
 	
 	/**
@@ -98,7 +183,7 @@ public class AlgorithmManager {
 	 * followed by the list of algorithms in the first category. Then, it is followed by the second category and so on...
 	 * @return the list of algorithms as String
 	 */
-	public List<String> getListOfAlgorithmsAsString() {
+	public synchronized List<String> getListOfAlgorithmsAsString() {
 		// Create the list of String objects
 		List<String> listOfNames = new ArrayList<String>();
 		
@@ -106,22 +191,72 @@ public class AlgorithmManager {
 		String previousCategory = null;
 		
 		// for each algorithm
-		for(DescriptionOfAlgorithm algorithm : algorithms){
+		for(AlgorithmEntry algorithm : algorithms){
 			// if this algorithm belong to a new category, we will add the category name to the list of algorithms
-			if(algorithm.getAlgorithmCategory().equals(previousCategory) == false){
-				listOfNames.add(" --- " + algorithm.getAlgorithmCategory() + " --- ");
+			if(algorithm.category.equals(previousCategory) == false){
+				listOfNames.add(" --- " + algorithm.category + " --- ");
 				// remember the category
-				previousCategory = algorithm.getAlgorithmCategory();
+				previousCategory = algorithm.category;
 			}
 			// Then add the algorithm name
-			listOfNames.add(algorithm.getName());
+			listOfNames.add(algorithm.name);
 			
 		}
 		// Return the list
 		return listOfNames;
 	}
 
+	/**
+	 * Read the index of algorithms
+	 * @return the algorithms in the index, or null if there is no index
+	 * @throws Exception if an error occurs while reading the index
+	 */
+	private static List<AlgorithmEntry> readIndex() throws Exception {
+		InputStream stream = AlgorithmManager.class.getResourceAsStream(INDEX_FILE_NAME);
+		if(stream == null){
+			return null;
+		}
+		List<AlgorithmEntry> entries = new ArrayList<AlgorithmEntry>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+		try {
+			String line;
+			while((line = reader.readLine()) != null){
+				// each line is: category, name and class name, separated by tabs
+				// (lines starting with # are comments)
+				if(line.isEmpty() || line.charAt(0) == '#'){
+					continue;
+				}
+				String[] columns = line.split("\t");
+				if(columns.length != 3){
+					throw new IllegalStateException("Invalid line in the index of algorithms: " + line);
+				}
+				entries.add(new AlgorithmEntry(columns[0], columns[1], DESCRIPTIONS_PACKAGE + columns[2]));
+			}
+		} finally {
+			reader.close();
+		}
+		return entries;
+	}
 	
+	/**
+	 * Write the index of the algorithms of this AlgorithmManager
+	 * @param path the path of the index file
+	 * @throws Exception if an error occurs while writing the file
+	 */
+	synchronized void writeIndex(String path) throws Exception {
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(path), "UTF-8"));
+		try {
+			writer.print("# Index of the algorithms of SPMF (category, name and class of the description of each algorithm)\n");
+			writer.print("# This file is created by MainGenerateAlgorithmIndex. Do not modify it.\n");
+			for(AlgorithmEntry entry : algorithms){
+				String className = entry.className.substring(DESCRIPTIONS_PACKAGE.length());
+				writer.print(entry.category + "\t" + entry.name + "\t" + className + "\n");
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
 	/**
 	 * Get the description of all algorithms in a given package name, from a jar or not
 	 *  Code was inspired from Stack Overflow:
@@ -165,9 +300,9 @@ public class AlgorithmManager {
 //					System.out.println("PACKAGE NAME : " + packageName);
 //					System.out.println("PACKAGE URL : " + packageURL);
 //					System.out.println("ORIGINAL PACKAGE NAME : " + originalPackageName);
-					Class theClass = Class.forName(originalPackageName + entryName);
+					Class<?> theClass = Class.forName(originalPackageName + entryName);
 					if(theClass.getSuperclass() == DescriptionOfAlgorithm.class){
-						DescriptionOfAlgorithm instance = (DescriptionOfAlgorithm) theClass.newInstance();
+						DescriptionOfAlgorithm instance = (DescriptionOfAlgorithm) theClass.getDeclaredConstructor().newInstance();
 						classes.add(instance);
 					}
 				}
@@ -187,9 +322,9 @@ public class AlgorithmManager {
 				if (entryName.endsWith(".class")) {
 					entryName = entryName.substring(0, entryName.lastIndexOf('.'));
 					// Get the class
-					Class theClass = Class.forName(originalPackageName + entryName);
+					Class<?> theClass = Class.forName(originalPackageName + entryName);
 					if(theClass.getSuperclass().equals(DescriptionOfAlgorithm.class)){
-						DescriptionOfAlgorithm instance = (DescriptionOfAlgorithm) theClass.newInstance();
+						DescriptionOfAlgorithm instance = (DescriptionOfAlgorithm) theClass.getDeclaredConstructor().newInstance();
 						classes.add(instance);
 					}
 				}
@@ -203,17 +338,63 @@ public class AlgorithmManager {
 	 * @param algorithm the name of the algorithm
 	 * @return the description of the algorithm (a DescriptionOfAlgorithm object), or null if not found
 	 */
-	public DescriptionOfAlgorithm getDescriptionOfAlgorithm(String nameOfAlgorithm) {
-		for(DescriptionOfAlgorithm algorithm : algorithms){
-			// if this algorithm belong to a new category, we will add the category name to the list of algorithms
-			if(algorithm.getName().equals(nameOfAlgorithm)){
-				return algorithm;
+	public synchronized DescriptionOfAlgorithm getDescriptionOfAlgorithm(String nameOfAlgorithm) {
+		AlgorithmEntry algorithm = algorithmsByName.get(nameOfAlgorithm);
+		// if the algorithm is not in the index, the index may not be up to date,
+		// so we look for the algorithm in the package
+		if(algorithm == null && loadedFromIndex && nameOfAlgorithm != null){
+			reloadAlgorithmsInPackage();
+			algorithm = algorithmsByName.get(nameOfAlgorithm);
+		}
+		if(algorithm == null){
+			return null;
+		}
+		// if the description of this algorithm was not created yet, we create it
+		if(algorithm.description == null){
+			try {
+				algorithm.description = (DescriptionOfAlgorithm) Class.forName(algorithm.className).getDeclaredConstructor().newInstance();
+			} catch (Exception e) {
+				// the index is not up to date
+				reloadAlgorithmsInPackage();
+				algorithm = algorithmsByName.get(nameOfAlgorithm);
+				return algorithm == null ? null : algorithm.description;
 			}
 		}
-		return null;
+		return algorithm.description;
+	}
+	
+	/**
+	 * Load the descriptions of all algorithms by looking in the package, if they were read from the index
+	 */
+	private void reloadAlgorithmsInPackage() {
+		if(loadedFromIndex){
+			try {
+				loadAlgorithmsInPackage();
+			} catch (Exception e) {
+				throw new IllegalStateException("Error while looking for the descriptions of algorithms", e);
+			}
+		}
+	}
+	
+	/**
+	 * The category, name and class of an algorithm, and its description (if it was created)
+	 */
+	static class AlgorithmEntry {
+		/** the category of the algorithm */
+		final String category;
+		/** the name of the algorithm */
+		final String name;
+		/** the name of the class of its description */
+		final String className;
+		/** the description of the algorithm, or null if it was not created yet */
+		DescriptionOfAlgorithm description;
+		
+		AlgorithmEntry(String category, String name, String className) {
+			this.category = category;
+			this.name = name;
+			this.className = className;
+		}
 	}
-
-
 	
 	
 //	main222(null);
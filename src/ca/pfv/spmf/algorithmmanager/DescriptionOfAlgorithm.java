@@ -2,6 +2,8 @@ package ca.pfv.spmf.algorithmmanager;
 
 import java.io.IOException;
 
+import ca.pfv.spmf.tools.MiningContext;
+
 /* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
  * 
  * This file is part of the SPMF DATA MINING SOFTWARE
@@ -55,6 +57,35 @@ public abstract class DescriptionOfAlgorithm {
 	 */
 	public abstract void runAlgorithm(String[] parameters, String inputFile,
 			String outputFile) throws Exception;
+
+	/**
+	 * Run the algorithm with a context that lets another thread stop it and follow its progress.
+	 * While the algorithm runs, the context is the context of the current thread (see
+	 * MiningContext.getCurrent()), which is used by the algorithms that support it
+	 * (see isCancellationSupported()). The other algorithms ignore it.
+	 * 
+	 * @param parameters
+	 *            the parameters of the algorithm
+	 * @param inputFile
+	 *            the input file for the algorithm
+	 * @param outputFile
+	 *            the output file for the algorithm
+	 * @param context
+	 *            the context
+	 * @throws Exception
+	 *             exception if an error occurs, or MiningCancelledException if the
+	 *             algorithm was stopped because the context was cancelled
+	 */
+	public void runAlgorithm(String[] parameters, String inputFile,
+			String outputFile, MiningContext context) throws Exception {
+		MiningContext previousContext = MiningContext.getCurrent();
+		MiningContext.setCurrent(context);
+		try {
+			runAlgorithm(parameters, inputFile, outputFile);
+		} finally {
+			MiningContext.setCurrent(previousContext);
+		}
+	}
 	
 	/**
 	 * Get a description of the algorithm's parameters
@@ -79,6 +110,26 @@ public abstract class DescriptionOfAlgorithm {
 	 * @return a list of file types (Strings) or null if the algorithm does not output a file.
 	 */
 	public abstract String[] getOutputFileTypes();
+
+	/**
+	 * Check if this algorithm can read an input file in the binary format of SPMF
+	 * (see ca.pfv.spmf.input.SPMFBinaryDataset). If not, a binary input file is converted
+	 * to a temporary file in SPMF format before running the algorithm.
+	 * @return true if the binary format is supported. Otherwise, false.
+	 */
+	public boolean isBinaryInputSupported() {
+		return false;
+	}
+
+	/**
+	 * Check if this algorithm regularly checks its MiningContext, so that it can be stopped
+	 * (see ca.pfv.spmf.tools.MiningContext) and can report its progress. If not, the algorithm
+	 * runs until it terminates even if its context is cancelled.
+	 * @return true if the algorithm can be stopped. Otherwise, false.
+	 */
+	public boolean isCancellationSupported() {
+		return false;
+	}
 	
 
 	/**
@@ -0,0 +1,44 @@
+package ca.pfv.spmf.algorithmmanager;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ * 
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ * 
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+/**
+ * This class creates the index of algorithms used by the AlgorithmManager (the file "AlgorithmIndex.txt").
+ * It must be run each time that a description of algorithm is added to the package
+ * "ca.pfv.spmf.algorithmmanager.descriptions" or that the name or category of an algorithm is changed.
+ * 
+ * @see AlgorithmManager
+ * @author Philippe Fournier-Viger
+ */
+
+public class MainGenerateAlgorithmIndex {
+
+	public static void main(String[] args) throws Exception {
+		// the path of the index (by default, the file in the source folder of this package)
+		String path = "src/ca/pfv/spmf/algorithmmanager/" + AlgorithmManager.INDEX_FILE_NAME;
+		if(args.length > 0){
+			path = args[0];
+		}
+		
+		// Look for the descriptions of algorithms and write the index
+		AlgorithmManager algoManager = AlgorithmManager.createWithoutIndex();
+		algoManager.writeIndex(path);
+		
+		System.out.println("The index of " + algoManager.algorithms.size() + " algorithms was written to " + path);
+	}
+}
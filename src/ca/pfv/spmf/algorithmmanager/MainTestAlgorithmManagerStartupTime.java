@@ -0,0 +1,110 @@
+package ca.pfv.spmf.algorithmmanager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.util.Arrays;
+
+import ca.pfv.spmf.gui.CommandProcessor;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+ * 
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ * 
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+/**
+ * This class measures the time for running an algorithm from the command line
+ * (CommandProcessor.runAlgorithm()) in a new Java virtual machine, when the AlgorithmManager
+ * reads the index of algorithms and when it looks for all the descriptions of algorithms in their package.
+ * 
+ * @see AlgorithmManager
+ * @author Philippe Fournier-Viger
+ */
+
+public class MainTestAlgorithmManagerStartupTime {
+
+	public static void main(String[] args) throws Exception {
+		// if this is a new virtual machine started by this program, run the algorithm once
+		if(args.length > 0){
+			runOnce("scan".equals(args[0]));
+			return;
+		}
+		
+		// Otherwise, start many virtual machines to run the algorithm with each way of loading the algorithms
+		int runCount = 10;
+		for(String mode : new String[]{"index", "scan"}){
+			long[] managerTimes = new long[runCount];
+			long[] totalTimes = new long[runCount];
+			for(int i = 0; i < runCount; i++){
+				ProcessBuilder builder = new ProcessBuilder(
+						new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath(),
+						"-cp", System.getProperty("java.class.path"),
+						MainTestAlgorithmManagerStartupTime.class.getName(), mode);
+				builder.redirectErrorStream(true);
+				Process process = builder.start();
+				BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+				String line;
+				String lastLine = null;
+				while((line = reader.readLine()) != null){
+					lastLine = line;
+				}
+				reader.close();
+				process.waitFor();
+				// the last line is: time to create the AlgorithmManager and total time (microseconds)
+				if(lastLine == null || lastLine.startsWith("TIME ") == false){
+					throw new IllegalStateException("The algorithm could not be run: " + lastLine);
+				}
+				String[] times = lastLine.split(" ");
+				managerTimes[i] = Long.parseLong(times[1]);
+				totalTimes[i] = Long.parseLong(times[2]);
+			}
+			Arrays.sort(managerTimes);
+			Arrays.sort(totalTimes);
+			System.out.println("Loading the algorithms by " + ("scan".equals(mode) ? "looking in the package" : "reading the index") + ":");
+			System.out.println("  AlgorithmManager creation (median): " + managerTimes[runCount / 2] / 1000.0 + " ms");
+			System.out.println("  CommandProcessor.runAlgorithm (median): " + totalTimes[runCount / 2] / 1000.0 + " ms");
+		}
+	}
+	
+	/**
+	 * Run the Apriori algorithm with CommandProcessor.runAlgorithm() and print the time
+	 * @param scan if true, the AlgorithmManager will look for the descriptions in their package
+	 *  rather than reading the index
+	 */
+	private static void runOnce(boolean scan) throws Exception {
+		String input = fileToPath("contextPasquier99.txt");
+		String output = File.createTempFile("spmf", ".txt").getPath();
+		
+		long start = System.nanoTime();
+		if(scan){
+			AlgorithmManager.instance = AlgorithmManager.createWithoutIndex();
+		}else{
+			AlgorithmManager.getInstance();
+		}
+		long managerTime = System.nanoTime() - start;
+		CommandProcessor.runAlgorithm("Apriori", input, output, new String[]{"40%"});
+		long totalTime = System.nanoTime() - start;
+		
+		new File(output).delete();
+		System.out.println("TIME " + managerTime / 1000 + " " + totalTime / 1000);
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = CommandProcessor.class.getResource("/ca/pfv/spmf/test/" + filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
@@ -63,6 +63,10 @@ public class DescriptionAlgoApriori extends DescriptionOfAlgorithm {
 			algorithm.setMaximumPatternLength(getParamAsInteger(parameters[1]));
 		}
 		
+		if (parameters.length >=3 && "".equals(parameters[2]) == false) {
+			algorithm.setThreadCount(getParamAsInteger(parameters[2]));
+		}
+		
 		algorithm.runAlgorithm(minsup, inputFile, outputFile);
 		algorithm.printStats();
 	}
@@ -70,9 +74,10 @@ public class DescriptionAlgoApriori extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[2];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.4 or 40%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("Max pattern length", "(e.g. 2 items)", Integer.class, true);
+		parameters[2] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -90,5 +95,10 @@ public class DescriptionAlgoApriori extends DescriptionOfAlgorithm {
 	public String[] getOutputFileTypes() {
 		return new String[]{"Patterns", "Frequent patterns", "Frequent itemsets"};
 	}
+
+	@Override
+	public boolean isBinaryInputSupported() {
+		return true;
+	}
 	
 }
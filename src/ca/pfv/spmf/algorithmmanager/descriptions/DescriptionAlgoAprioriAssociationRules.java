@@ -67,6 +67,9 @@ public class DescriptionAlgoAprioriAssociationRules extends DescriptionOfAlgorit
 		// STEP 2: Generating all rules from the set of frequent itemsets
 		// (based on Agrawal & Srikant, 94)
 		ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94 algoAgrawal = new ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94();
+		if (parameters.length >=3 && "".equals(parameters[2]) == false) {
+			algoAgrawal.setThreadCount(getParamAsInteger(parameters[2]));
+		}
 		algoAgrawal.runAlgorithm(patterns, outputFile, databaseSize,
 				minconf);
 		algoAgrawal.printStats();
@@ -75,9 +78,10 @@ public class DescriptionAlgoAprioriAssociationRules extends DescriptionOfAlgorit
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[2];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.5 or 50%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("Minconf (%)", "(e.g. 0.6 or 60%)", Double.class, false);
+		parameters[2] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -57,6 +57,10 @@ public class DescriptionAlgoAprioriClose extends DescriptionOfAlgorithm {
 		double minsup = getParamAsDouble(parameters[0]);
 
 		AlgoAprioriClose apriori = new AlgoAprioriClose();
+		if (parameters.length >=2 && "".equals(parameters[1]) == false) {
+			apriori.setThreadCount(getParamAsInteger(parameters[1]));
+		}
+		
 		apriori.runAlgorithm(minsup, inputFile, outputFile);
 		apriori.printStats();
 	}
@@ -64,8 +68,9 @@ public class DescriptionAlgoAprioriClose extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[1];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[2];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.4 or 40%)", Double.class, false);
+		parameters[1] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -58,6 +58,10 @@ public class DescriptionAlgoAprioriInverse extends DescriptionOfAlgorithm {
 		double maxsup = getParamAsDouble(parameters[1]);
 
 		AlgoAprioriInverse apriori = new AlgoAprioriInverse();
+		if (parameters.length >=3 && "".equals(parameters[2]) == false) {
+			apriori.setThreadCount(getParamAsInteger(parameters[2]));
+		}
+		
 		apriori.runAlgorithm(minsup, maxsup, inputFile, outputFile);
 		apriori.printStats();
 	}
@@ -65,9 +69,10 @@ public class DescriptionAlgoAprioriInverse extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[2];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.1 or 10%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("Maxsup (%)", "(e.g. 0.6 or 60%)", Double.class, false);
+		parameters[2] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
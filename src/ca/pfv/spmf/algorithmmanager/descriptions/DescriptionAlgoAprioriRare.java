@@ -57,6 +57,10 @@ public class DescriptionAlgoAprioriRare extends DescriptionOfAlgorithm {
 		double minsup = getParamAsDouble(parameters[0]);
 
 		AlgoAprioriRare apriori2 = new AlgoAprioriRare();
+		if (parameters.length >=2 && "".equals(parameters[1]) == false) {
+			apriori2.setThreadCount(getParamAsInteger(parameters[1]));
+		}
+		
 		// apply the algorithm
 		apriori2.runAlgorithm(minsup, inputFile, outputFile);
 		apriori2.printStats();
@@ -65,8 +69,9 @@ public class DescriptionAlgoAprioriRare extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[1];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[2];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.6 or 60%)", Double.class, false);
+		parameters[1] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -68,8 +68,20 @@ public class DescriptionAlgoBisectingKMeans extends DescriptionOfAlgorithm {
 			separator = " ";
 		}
 		
+		int threadCount = 1;
+		if (parameters.length > 4 && "".equals(parameters[4]) == false) {
+			threadCount = getParamAsInteger(parameters[4]);
+		}
+		
+		boolean useKMeansPlusPlus = false;
+		if (parameters.length > 5 && "".equals(parameters[5]) == false) {
+			useKMeansPlusPlus = getParamAsBoolean(parameters[5]);
+		}
+		
 		// Apply the algorithm
 		AlgoBisectingKMeans algo = new AlgoBisectingKMeans();
+		algo.setThreadCount(threadCount);
+		algo.setUseKMeansPlusPlus(useKMeansPlusPlus);
 		algo.runAlgorithm(inputFile, k, distanceFunction, iter, separator);
 		algo.printStatistics();
 		algo.saveToFile(outputFile);
@@ -78,11 +90,13 @@ public class DescriptionAlgoBisectingKMeans extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[6];
 		parameters[0] = new DescriptionOfParameter("k", "(e.g. 3)", Integer.class, false);
 		parameters[1] = new DescriptionOfParameter("Distance function", "(e.g. euclidian, cosine...)", String.class, false);
 		parameters[2] = new DescriptionOfParameter("Iter", "(e.g. 10)", Integer.class, false);
 		parameters[3] = new DescriptionOfParameter("separator", "(default: ' ')", String.class, true);
+		parameters[4] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
+		parameters[5] = new DescriptionOfParameter("Use k-means++?", "(default: false)", Boolean.class, true);
 
 		return parameters;
 	}
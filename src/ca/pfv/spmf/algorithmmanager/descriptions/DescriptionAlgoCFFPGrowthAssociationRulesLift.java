@@ -77,6 +77,9 @@ public class DescriptionAlgoCFFPGrowthAssociationRulesLift extends DescriptionOf
 		// STEP 2: Generating all rules from the set of frequent itemsets
 		// (based on Agrawal & Srikant, 94)
 		ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94 algoAgrawal = new ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94();
+		if (parameters.length >=4 && "".equals(parameters[3]) == false) {
+			algoAgrawal.setThreadCount(getParamAsInteger(parameters[3]));
+		}
 		algoAgrawal.runAlgorithm(patterns, outputFile, databaseSize,
 				minconf, minlift);
 		algoAgrawal.printStats();
@@ -85,10 +88,11 @@ public class DescriptionAlgoCFFPGrowthAssociationRulesLift extends DescriptionOf
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
 		parameters[0] = new DescriptionOfParameter("MIS file name", "(e.g. MIS.txt)", String.class, false);
 		parameters[1] = new DescriptionOfParameter("Minimum confidence (%)", "(e.g. 0.6 or 60%)", Double.class, false);
 		parameters[2] = new DescriptionOfParameter("Minimum lift ", "(e.g. 0.2)", Double.class, false);
+		parameters[3] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -104,5 +104,10 @@ public class DescriptionAlgoCMSPADE extends DescriptionOfAlgorithm {
 	public String[] getOutputFileTypes() {
 		return new String[]{"Patterns", "Sequential patterns", "Frequent sequential patterns"};
 	}
+
+	@Override
+	public boolean isCancellationSupported() {
+		return true;
+	}
 	
 }
@@ -82,6 +82,9 @@ public class DescriptionAlgoClosedAssociationRulesCharm extends DescriptionOfAlg
 		// STEP 2: Generate all rules from the set of frequent itemsets
 		// (based on Agrawal & Srikant, 94)
 		AlgoClosedRules algoAgrawal = new AlgoClosedRules();
+		if (parameters.length >=3 && "".equals(parameters[2]) == false) {
+			algoAgrawal.setThreadCount(getParamAsInteger(parameters[2]));
+		}
 		algoAgrawal.runAlgorithm(patterns, outputFile, database.size(),	minconf);
 		algoAgrawal.printStats();
 	}
@@ -89,9 +92,10 @@ public class DescriptionAlgoClosedAssociationRulesCharm extends DescriptionOfAlg
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[2];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.6 or 60%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("Minconf (%)", "(e.g. 0.6 or 60%)", Double.class, false);
+		parameters[2] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
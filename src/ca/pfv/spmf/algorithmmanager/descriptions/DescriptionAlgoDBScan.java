@@ -64,8 +64,14 @@ public class DescriptionAlgoDBScan extends DescriptionOfAlgorithm {
 			separator = " ";
 		} 
 
+		int threadCount = 1;
+		if (parameters.length > 3 && "".equals(parameters[3]) == false) {
+			threadCount = getParamAsInteger(parameters[3]);
+		}
+
 		// Apply the algorithm
 		AlgoDBSCAN algo = new AlgoDBSCAN();  
+		algo.setThreadCount(threadCount);
 		algo.runAlgorithm(inputFile, minPts, epsilon, separator);
 		algo.printStatistics();
 		algo.saveToFile(outputFile);
@@ -74,10 +80,11 @@ public class DescriptionAlgoDBScan extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
 		parameters[0] = new DescriptionOfParameter("minPts", "(e.g. 2)", Integer.class, false);
 		parameters[1] = new DescriptionOfParameter("epsilon", "(e.g. 2)", Double.class, false);
 		parameters[2] = new DescriptionOfParameter("separator", "(default: ' ')", String.class, true);
+		parameters[3] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -71,6 +71,10 @@ public class DescriptionAlgoDEclatBitset extends DescriptionOfAlgorithm {
 			algo.setMaximumPatternLength(getParamAsInteger(parameters[1]));
 		}
 		
+		if (parameters.length >=3 && "".equals(parameters[2]) == false) {
+			algo.setThreadCount(getParamAsInteger(parameters[2]));
+		}
+		
 		algo.runAlgorithm(outputFile, database, minsup, true);
 		algo.printStats();
 	}
@@ -78,9 +82,10 @@ public class DescriptionAlgoDEclatBitset extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[2];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.4 or 40%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("Max pattern length", "(e.g. 2 items)", Integer.class, true);		
+		parameters[2] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
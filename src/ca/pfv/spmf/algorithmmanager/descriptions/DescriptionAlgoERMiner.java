@@ -65,6 +65,9 @@ public class DescriptionAlgoERMiner extends DescriptionOfAlgorithm {
 		if (parameters.length >=4 && "".equals(parameters[3]) == false) {
 			algo.setMaxConsequentSize(getParamAsInteger(parameters[3]));
 		}
+		if (parameters.length >=5 && "".equals(parameters[4]) == false) {
+			algo.setThreadCount(getParamAsInteger(parameters[4]));
+		}
 		
 		algo.runAlgorithm(minsup, minconf, inputFile, outputFile);
 		algo.printStats();
@@ -73,11 +76,12 @@ public class DescriptionAlgoERMiner extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[5];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.5 or 50%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("Minconf (%)", "(e.g. 0.6 or 60%)", Double.class, false);
 		parameters[2] = new DescriptionOfParameter("Max antecedent size", "(e.g. 1 items)", Integer.class, true);
 		parameters[3] = new DescriptionOfParameter("Max consequent size", "(e.g. 2 items)", Integer.class, true);
+		parameters[4] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -75,6 +75,10 @@ public class DescriptionAlgoEclatBitset extends DescriptionOfAlgorithm {
 			algo.setMaximumPatternLength(getParamAsInteger(parameters[2]));
 		}
 		
+		if (parameters.length >=4 && "".equals(parameters[3]) == false) {
+			algo.setThreadCount(getParamAsInteger(parameters[3]));
+		}
+		
 		algo.runAlgorithm(outputFile, database, minsup, true);
 		algo.printStats();
 	}
@@ -82,10 +86,11 @@ public class DescriptionAlgoEclatBitset extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.4 or 40%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("Show transaction ids?", "(default: false)", Boolean.class, true);
 		parameters[2] = new DescriptionOfParameter("Max pattern length", "(e.g. 2 items)", Integer.class, true);		
+		parameters[3] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
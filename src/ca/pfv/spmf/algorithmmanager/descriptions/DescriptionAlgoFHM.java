@@ -58,6 +58,11 @@ public class DescriptionAlgoFHM extends DescriptionOfAlgorithm {
 		int minutil = getParamAsInteger(parameters[0]);
 		// Applying the algorithm
 		AlgoFHM algo = new AlgoFHM();
+		
+		if (parameters.length >=2 && "".equals(parameters[1]) == false) {
+			algo.setThreadCount(getParamAsInteger(parameters[1]));
+		}
+		
 		algo.runAlgorithm(inputFile, outputFile, minutil);
 		algo.printStats();
 	}
@@ -65,8 +70,9 @@ public class DescriptionAlgoFHM extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[1];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[2];
 		parameters[0] = new DescriptionOfParameter("Minimum utility", "(e.g. 30)", Integer.class, false);
+		parameters[1] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -79,6 +79,9 @@ public class DescriptionAlgoFPGrowthAssociationRules extends DescriptionOfAlgori
 		ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94 algoAgrawal = new ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94();
 		algoAgrawal.setMaxAntecedentLength(maxAntecedentLength);
 		algoAgrawal.setMaxConsequentLength(maxConsequentLength);
+		if (parameters.length >=5 && "".equals(parameters[4]) == false) {
+			algoAgrawal.setThreadCount(getParamAsInteger(parameters[4]));
+		}
 		algoAgrawal.runAlgorithm(patterns, outputFile, databaseSize,
 				minconf);
 		algoAgrawal.printStats();
@@ -87,11 +90,12 @@ public class DescriptionAlgoFPGrowthAssociationRules extends DescriptionOfAlgori
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[5];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.5 or 50%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("Minconf (%)", "(e.g. 0.6 or 60%)", Double.class, false);
 		parameters[2] = new DescriptionOfParameter("Max antecedent length", "(e.g. 2 items)", Integer.class, true);
 		parameters[3] = new DescriptionOfParameter("Max consequent length", "(e.g. 2 items)", Integer.class, true);
+		parameters[4] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -109,5 +113,10 @@ public class DescriptionAlgoFPGrowthAssociationRules extends DescriptionOfAlgori
 	public String[] getOutputFileTypes() {
 		return new String[]{"Patterns", "Association rules"};
 	}
+
+	@Override
+	public boolean isBinaryInputSupported() {
+		return true;
+	}
 	
 }
@@ -79,6 +79,9 @@ public class DescriptionAlgoFPGrowthAssociationRulesLift extends DescriptionOfAl
 		ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94 algoAgrawal = new ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94();
 		algoAgrawal.setMaxAntecedentLength(maxAntecedentLength);
 		algoAgrawal.setMaxConsequentLength(maxConsequentLength);
+		if (parameters.length >=6 && "".equals(parameters[5]) == false) {
+			algoAgrawal.setThreadCount(getParamAsInteger(parameters[5]));
+		}
 		algoAgrawal.runAlgorithm(patterns, outputFile, databaseSize,
 				minconf, minlift);
 		algoAgrawal.printStats();
@@ -87,12 +90,13 @@ public class DescriptionAlgoFPGrowthAssociationRulesLift extends DescriptionOfAl
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[5];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[6];
 		parameters[0] = new DescriptionOfParameter("Minimum support (%)", "(e.g. 0.5 or 50%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("Minimum confidence (%)", "(e.g. 0.9 or 90%)", Double.class, false);
 		parameters[2] = new DescriptionOfParameter("Minimum lift ", "(e.g. 1.0)", Double.class, false);
 		parameters[3] = new DescriptionOfParameter("Max antecedent length", "(e.g. 2 items)", Integer.class, true);
 		parameters[4] = new DescriptionOfParameter("Max consequent length", "(e.g. 2 items)", Integer.class, true);
+		parameters[5] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -110,5 +114,10 @@ public class DescriptionAlgoFPGrowthAssociationRulesLift extends DescriptionOfAl
 	public String[] getOutputFileTypes() {
 		return new String[]{"Patterns", "Association rules", "Association rules with lift"};
 	}
+
+	@Override
+	public boolean isBinaryInputSupported() {
+		return true;
+	}
 	
 }
@@ -56,6 +56,10 @@ public class DescriptionAlgoFPMax extends DescriptionOfAlgorithm {
 	public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
 		double minsup = getParamAsDouble(parameters[0]);
 		AlgoFPMax algo = new AlgoFPMax();
+		
+		if (parameters.length >=2 && "".equals(parameters[1]) == false) {
+			algo.setThreadCount(getParamAsInteger(parameters[1]));
+		}
 		algo.runAlgorithm(inputFile, outputFile, minsup);
 		algo.printStats();
 	}
@@ -63,8 +67,9 @@ public class DescriptionAlgoFPMax extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[1];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[2];
 		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.4 or 40%)", Double.class, false);
+		parameters[1] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
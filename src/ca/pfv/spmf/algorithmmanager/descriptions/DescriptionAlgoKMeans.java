@@ -67,8 +67,20 @@ public class DescriptionAlgoKMeans extends DescriptionOfAlgorithm {
 			separator = " ";
 		}
 		
+		int threadCount = 1;
+		if (parameters.length > 3 && "".equals(parameters[3]) == false) {
+			threadCount = getParamAsInteger(parameters[3]);
+		}
+		
+		boolean useKMeansPlusPlus = false;
+		if (parameters.length > 4 && "".equals(parameters[4]) == false) {
+			useKMeansPlusPlus = getParamAsBoolean(parameters[4]);
+		}
+		
 		// Apply the algorithm
 		AlgoKMeans algoKMeans = new AlgoKMeans();
+		algoKMeans.setThreadCount(threadCount);
+		algoKMeans.setUseKMeansPlusPlus(useKMeansPlusPlus);
 		algoKMeans.runAlgorithm(inputFile, k, distanceFunction, separator);
 		algoKMeans.printStatistics();
 		algoKMeans.saveToFile(outputFile);
@@ -77,10 +89,12 @@ public class DescriptionAlgoKMeans extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[5];
 		parameters[0] = new DescriptionOfParameter("k", "(e.g. 3)", Integer.class, false);
 		parameters[1] = new DescriptionOfParameter("Distance function", "(e.g. euclidian, cosine...)", String.class, false);
 		parameters[2] = new DescriptionOfParameter("separator", "(default: ' ')", String.class, true);
+		parameters[3] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
+		parameters[4] = new DescriptionOfParameter("Use k-means++?", "(default: false)", Boolean.class, true);
 		return parameters;
 	}
 
@@ -64,6 +64,10 @@ public class DescriptionAlgoMSApriori extends DescriptionOfAlgorithm {
 			algorithm.setMaximumPatternLength(getParamAsInteger(parameters[2]));
 		}
 		
+		if (parameters.length >=4 && "".equals(parameters[3]) == false) {
+			algorithm.setThreadCount(getParamAsInteger(parameters[3]));
+		}
+		
 		algorithm.runAlgorithm(inputFile, outputFile, beta, ls);
 		algorithm.printStats();
 	}
@@ -71,10 +75,11 @@ public class DescriptionAlgoMSApriori extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
 		parameters[0] = new DescriptionOfParameter("Beta", "(e.g. 0.4 or 40%)", Double.class, false);
 		parameters[1] = new DescriptionOfParameter("LS", "(e.g. 0.2 or 20%)", Double.class, false);
 		parameters[2] = new DescriptionOfParameter("Max pattern length", "(e.g. 2 items)", Integer.class, true);
+		parameters[3] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -65,7 +65,13 @@ public class DescriptionAlgoOPTICSClusterOrdering extends DescriptionOfAlgorithm
 			separator = " ";
 		} 
 		
+		int threadCount = 1;
+		if (parameters.length > 3 && "".equals(parameters[3]) == false) {
+			threadCount = getParamAsInteger(parameters[3]);
+		}
+		
 		AlgoOPTICS algo = new AlgoOPTICS();  
+		algo.setThreadCount(threadCount);
 		algo.computerClusterOrdering(inputFile, minPts, epsilon, separator);
 		
 		algo.printStatistics();
@@ -75,10 +81,11 @@ public class DescriptionAlgoOPTICSClusterOrdering extends DescriptionOfAlgorithm
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[3];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
 		parameters[0] = new DescriptionOfParameter("minPts", "(e.g. 2)", Integer.class, false);
 		parameters[1] = new DescriptionOfParameter("epsilon", "(e.g. 2)", Double.class, false);
 		parameters[2] = new DescriptionOfParameter("separator", "(default: ' ')", String.class, true);
+		parameters[3] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
@@ -66,8 +66,14 @@ public class DescriptionAlgoOPTICSDBScanCluster extends DescriptionOfAlgorithm {
 			separator = " ";
 		} 
 		
+		int threadCount = 1;
+		if (parameters.length > 4 && "".equals(parameters[4]) == false) {
+			threadCount = getParamAsInteger(parameters[4]);
+		}
+
 		// Apply the algorithm to compute a cluster ordering
 		AlgoOPTICS algo = new AlgoOPTICS();  
+		algo.setThreadCount(threadCount);
 		algo.computerClusterOrdering(inputFile, minPts, epsilon, separator);
 
 		//  generate dbscan clusters from the cluster ordering:
@@ -80,11 +86,12 @@ public class DescriptionAlgoOPTICSDBScanCluster extends DescriptionOfAlgorithm {
 	@Override
 	public DescriptionOfParameter[] getParametersDescription() {
         
-		DescriptionOfParameter[] parameters = new DescriptionOfParameter[4];
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[5];
 		parameters[0] = new DescriptionOfParameter("minPts", "(e.g. 2)", Integer.class, false);
 		parameters[1] = new DescriptionOfParameter("epsilon", "(e.g. 2)", Double.class, false);
 		parameters[2] = new DescriptionOfParameter("epsilonPrime", "(e.g. 5)", Double.class, false);
 		parameters[3] = new DescriptionOfParameter("separator", "(default: ' ')", String.class, true);
+		parameters[4] = new DescriptionOfParameter("Thread count", "(e.g. 4 threads)", Integer.class, true);
 		return parameters;
 	}
 
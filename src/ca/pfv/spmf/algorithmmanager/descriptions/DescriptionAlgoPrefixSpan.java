@@ -98,6 +98,16 @@ public class DescriptionAlgoPrefixSpan extends DescriptionOfAlgorithm {
 	public String[] getOutputFileTypes() {
 		return new String[]{"Patterns", "Sequential patterns", "Frequent Sequential patterns"};
 	}
+
+	@Override
+	public boolean isBinaryInputSupported() {
+		return true;
+	}
+
+	@Override
+	public boolean isCancellationSupported() {
+		return true;
+	}
 //
 //	@Override
 //	String[] getSpecialInputFileTypes() {
@@ -101,5 +101,10 @@ public class DescriptionAlgoSPAM extends DescriptionOfAlgorithm {
 	public String[] getOutputFileTypes() {
 		return new String[]{"Patterns", "Sequential patterns", "Frequent sequential patterns"};
 	}
+
+	@Override
+	public boolean isCancellationSupported() {
+		return true;
+	}
 	
 }
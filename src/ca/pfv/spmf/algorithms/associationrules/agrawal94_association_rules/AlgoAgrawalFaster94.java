@@ -20,9 +20,12 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
@@ -38,15 +41,26 @@ import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
  * or can alternatively keep it into memory if no output 
  * path is provided by the user when the runAlgorithm()
  * method is called.
+ * <br/><br/>
+ * 
+ * The support of the antecedent and consequent of each rule is obtained from an index
+ * of the itemsets (see ItemsetSupportIndex). If more than one thread is used (see setThreadCount()),
+ * the itemsets used to generate rules are divided into groups that are processed by different threads.
+ * Each thread keeps its rules in a buffer, and the rules are then saved by the calling thread
+ * in the order of the itemsets, so that the result is the same as with a single thread.
  * 
  *  @see   AssocRule
  *  @see   AssocRules
+ *  @see   ItemsetSupportIndex
  *  @author Philippe Fournier-Viger
  **/
 public class AlgoAgrawalFaster94{
 	
 	// the frequent itemsets that will be used to generate the rules
 	protected Itemsets patterns;
+	
+	// the support of the frequent itemsets
+	protected ItemsetSupportIndex supportIndex;
 	 
 	// variable used to store the result if the user choose to save
 	// the result in memory rather than to an output file
@@ -75,6 +89,12 @@ public class AlgoAgrawalFaster94{
 	protected double minlift;
 	protected boolean usingLift = true;
 	
+	/** the number of threads used to generate the rules (1 = serial execution) */
+	private int threadCount = 1;
+	
+	/** the number of itemsets used to generate rules in each task, when several threads are used */
+	private static final int ITEMSETS_PER_TASK = 256;
+	
 	/**
 	 * Default constructor
 	 */
@@ -133,6 +153,79 @@ public class AlgoAgrawalFaster94{
 	private AssocRules runAlgorithm(Itemsets patterns, String output, int databaseSize)
 			throws IOException {
 		
+		// record the time when the algorithm starts
+		startTimestamp = System.currentTimeMillis();
+		// save itemsets in a member variable
+		this.patterns = patterns;
+		
+		// We create an index of the support of itemsets. It is used to calculate the support
+		// of the antecedent and consequent of rules (in the method "calculateSupport()").
+		ItemsetSupportIndex index = new ItemsetSupportIndex(patterns.getItemsetsCount());
+		for(List<Itemset> itemsetsSameSize : patterns.getLevels()){
+			for(Itemset itemset : itemsetsSameSize){
+				index.add(itemset.getItems(), itemset.getAbsoluteSupport());
+			}
+		}
+		return generateRules(index, output, databaseSize);
+	}
+	
+	/**
+	 * Run the algorithm on itemsets that have been added to an index by an itemset mining algorithm
+	 * (see ItemsetSink), rather than kept in an Itemsets object.
+	 * @param index  the index containing the frequent itemsets
+	 * @param output an output file path for writing the result or null if the user want this method to return the result
+	 * @param databaseSize  the number of transactions in the database
+	 * @param minconf  the minconf threshold
+	 * @return  the set of association rules if the user wished to save them into memory
+	 * @throws IOException exception if error writing to the output file
+	 */
+	public AssocRules runAlgorithm(ItemsetSupportIndex index, String output, int databaseSize, double minconf) throws IOException {
+		// save the parameters
+		this.minconf = minconf;
+		this.minlift = 0;
+		usingLift = false;
+		
+		// start the algorithm
+		startTimestamp = System.currentTimeMillis();
+		patterns = null;
+		return generateRules(index, output, databaseSize);
+	}
+	
+	/**
+	 * Run the algorithm on itemsets that have been added to an index by an itemset mining algorithm
+	 * (see ItemsetSink), rather than kept in an Itemsets object.
+	 * @param index  the index containing the frequent itemsets
+	 * @param output an output file path for writing the result or null if the user want this method to return the result
+	 * @param databaseSize  the number of transactions in the database
+	 * @param minconf  the minconf threshold
+	 * @param minlift  the minlift threshold
+	 * @return  the set of association rules if the user wished to save them into memory
+	 * @throws IOException exception if error writing to the output file
+	 */
+	public AssocRules runAlgorithm(ItemsetSupportIndex index, String output, int databaseSize, double minconf,
+			double minlift) throws IOException {
+		// save the parameters
+		this.minconf = minconf;
+		this.minlift = minlift;
+		usingLift = true;
+		
+		// start the algorithm
+		startTimestamp = System.currentTimeMillis();
+		patterns = null;
+		return generateRules(index, output, databaseSize);
+	}
+	
+	/**
+	 * Generate the association rules of the itemsets of an index
+	 * @param index the index containing the itemsets
+	 * @param output the output file path. If null the result is saved in memory and returned by the method.
+	 * @param databaseSize  the number of transactions in the original database
+	 * @return the set of rules found if the user chose to save the result to memory
+	 * @throws IOException exception if error while writting to file
+	 */
+	private AssocRules generateRules(ItemsetSupportIndex index, String output, int databaseSize)
+			throws IOException {
+		
 		if(maxAntecedentLength < 1 || maxConsequentLength < 1){
 			throw new IllegalArgumentException("The maximum length must be at least 1.");
 		}
@@ -149,101 +242,14 @@ public class AlgoAgrawalFaster94{
 
 		this.databaseSize = databaseSize;
 		
-		// record the time when the algorithm starts
-		startTimestamp = System.currentTimeMillis();
 		// initialize variable to count the number of rules found
 		ruleCount = 0;
-		// save itemsets in a member variable
-		this.patterns = patterns;
-		
-		// SORTING
-		// First, we sort all itemsets having the same size by lexical order
-		// We do this for optimization purposes. If the itemsets are sorted, it allows to
-		// perform two optimizations:
-		// 1) When we need to calculate the support of an itemset (in the method
-		// "calculateSupport()") we can use a binary search instead of browsing the whole list.
-		// 2) When combining itemsets to generate candidate, we can use the
-		//    lexical order to avoid comparisons (in the method "generateCandidates()").
-		
-		// For itemsets of the same size
-		for(List<Itemset> itemsetsSameSize : patterns.getLevels()){
-			// Sort by lexicographical order using a Comparator
-			Collections.sort(itemsetsSameSize, new Comparator<Itemset>() {
-				@Override
-				public int compare(Itemset o1, Itemset o2) {
-					// The following code assume that itemsets are the same size
-					return ArraysAlgos.comparatorItemsetSameSize.compare(o1.getItems(), o2.getItems());
-				}
-			});
-		}
-		// END OF SORTING
+		// the index is used to calculate the support of the antecedent and consequent
+		// of rules (in the method "calculateSupport()").
+		supportIndex = index;
 		
 		// Now we will generate the rules.
-		
-		// For each frequent itemset of size >=2 that we will name "lk"
-		int maxSize = maxAntecedentLength;
-		for (int k = 2; k < patterns.getLevels().size(); k++) {
-			for (Itemset lk : patterns.getLevels().get(k)) {
-				
-				// create a variable H1 for recursion
-				List<int[]> H1_for_recursion = new ArrayList<int[]>();
-				
-				// For each itemset "itemsetSize1" of size 1 that is member of lk
-				for(int item : lk.getItems()) {
-					int itemsetHm_P_1[] = new int[] {item};
-	
-					if(lk.size() - 1 <= maxAntecedentLength){
-						// make a copy of  lk without items from  hm_P_1
-						int[] itemset_Lk_minus_hm_P_1 = ArraysAlgos.cloneItemSetMinusOneItem(lk.getItems(), item);
-	
-						// Now we will calculate the support and confidence
-						// of the rule: itemset_Lk_minus_hm_P_1 ==>  hm_P_1
-						int support = calculateSupport(itemset_Lk_minus_hm_P_1); // THIS COULD BE
-																	// OPTIMIZED ?
-						double supportAsDouble = (double) support;
-						
-						// calculate the confidence of the rule : itemset_Lk_minus_hm_P_1 ==>  hm_P_1
-						double conf = lk.getAbsoluteSupport() / supportAsDouble;
-	
-						// if the confidence is lower than minconf
-						if(conf < minconf || Double.isInfinite(conf)){
-							continue;
-						}
-						
-						double lift = 0;
-						int supportHm_P_1 = 0;
-						// if the user is using the minlift threshold, we will need
-						// to also calculate the lift of the rule:  itemset_Lk_minus_hm_P_1 ==>  hm_P_1
-						if(usingLift){
-							// if we want to calculate the lift, we need the support of hm_P_1
-							supportHm_P_1 = calculateSupport(itemsetHm_P_1);  // if we want to calculate the lift, we need to add this.
-							// calculate the lift
-							double term1 = ((double)lk.getAbsoluteSupport()) /databaseSize;
-							double term2 = supportAsDouble /databaseSize;
-							double term3 = ((double)supportHm_P_1 / databaseSize);
-							lift = term1 / (term2 * term3);
-							
-							// if the lift is not enough
-							if(lift < minlift){
-								continue;
-							}
-						}
-						
-						// If we are here, it means that the rule respect the minconf and minlift parameters.
-						// Therefore, we output the rule.
-						saveRule(itemset_Lk_minus_hm_P_1, support, itemsetHm_P_1, supportHm_P_1, lk.getAbsoluteSupport(), conf, lift);
-					}
-					// Then we keep the itemset  hm_P_1 to find more rules using this itemset and lk.
-					if(1 < maxConsequentLength ){
-						H1_for_recursion.add(itemsetHm_P_1);
-					}
-					// ================ END OF WHAT I HAVE ADDED
-				}
-				// Finally, we make a recursive call to continue explores rules that can be made with "lk"
-				apGenrules(k, 1, lk, H1_for_recursion);
-			}
-			
-		}
+		generateRules();
 
 		// close the file if we saved the result to a file
 		if(writer != null){
@@ -256,6 +262,137 @@ public class AlgoAgrawalFaster94{
 		// Otherwise, null will be returned
 		return rules;
 	}
+	
+	/**
+	 * Generate the rules of the itemsets of the index "supportIndex" and save them
+	 * @throws IOException exception if error while writing output file
+	 */
+	protected void generateRules() throws IOException {
+		final int count = supportIndex.size();
+		
+		// if a single thread is used, the rules are saved directly
+		if(threadCount == 1 || count <= ITEMSETS_PER_TASK){
+			generateRules(0, count, null);
+			return;
+		}
+		
+		// Otherwise, we create a task for each group of itemsets
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			List<Future<RuleBuffer>> futures = new ArrayList<Future<RuleBuffer>>();
+			for(int start = 0; start < count; start += ITEMSETS_PER_TASK){
+				final int taskStart = start;
+				final int taskEnd = Math.min(start + ITEMSETS_PER_TASK, count);
+				futures.add(pool.submit(new Callable<RuleBuffer>() {
+					public RuleBuffer call() throws IOException {
+						RuleBuffer buffer = new RuleBuffer();
+						generateRules(taskStart, taskEnd, buffer);
+						return buffer;
+					}
+				}));
+			}
+			// save the rules of each task in the order of the itemsets
+			for(int i = 0; i < futures.size(); i++){
+				futures.get(i).get().saveRules();
+				futures.set(i, null);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The rule generation was interrupted", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if(e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Generate the rules of some itemsets of the index "supportIndex"
+	 * @param start the position of the first itemset
+	 * @param end the position after the last itemset
+	 * @param buffer a buffer where the rules are kept, or null if the rules are saved immediately
+	 * @throws IOException exception if error while writing output file
+	 */
+	private void generateRules(int start, int end, RuleBuffer buffer) throws IOException {
+		// For each frequent itemset of size >=2 that we will name "lk"
+		for(int position = start; position < end; position++){
+			if(supportIndex.getLength(position) >= 2){
+				generateRules(supportIndex.getItems(position), supportIndex.getSupportAt(position), buffer);
+			}
+		}
+	}
+	
+	/**
+	 * Generate the rules of an itemset "lk" of size >= 2
+	 * @param lk the itemset
+	 * @param lkSupport the support of the itemset
+	 * @param buffer a buffer where the rules are kept, or null if the rules are saved immediately
+	 * @throws IOException exception if error while writing output file
+	 */
+	protected void generateRules(int[] lk, int lkSupport, RuleBuffer buffer) throws IOException {
+		int k = lk.length;
+		
+		// create a variable H1 for recursion
+		List<int[]> H1_for_recursion = new ArrayList<int[]>();
+		
+		// For each itemset "itemsetSize1" of size 1 that is member of lk
+		for(int item : lk) {
+			int itemsetHm_P_1[] = new int[] {item};
+
+			if(lk.length - 1 <= maxAntecedentLength){
+				// make a copy of  lk without items from  hm_P_1
+				int[] itemset_Lk_minus_hm_P_1 = ArraysAlgos.cloneItemSetMinusOneItem(lk, item);
+
+				// Now we will calculate the support and confidence
+				// of the rule: itemset_Lk_minus_hm_P_1 ==>  hm_P_1
+				int support = calculateSupport(itemset_Lk_minus_hm_P_1);
+				double supportAsDouble = (double) support;
+				
+				// calculate the confidence of the rule : itemset_Lk_minus_hm_P_1 ==>  hm_P_1
+				double conf = lkSupport / supportAsDouble;
+
+				// if the confidence is lower than minconf
+				if(conf < minconf || Double.isInfinite(conf)){
+					continue;
+				}
+				
+				double lift = 0;
+				int supportHm_P_1 = 0;
+				// if the user is using the minlift threshold, we will need
+				// to also calculate the lift of the rule:  itemset_Lk_minus_hm_P_1 ==>  hm_P_1
+				if(usingLift){
+					// if we want to calculate the lift, we need the support of hm_P_1
+					supportHm_P_1 = calculateSupport(itemsetHm_P_1);  // if we want to calculate the lift, we need to add this.
+					// calculate the lift
+					double term1 = ((double)lkSupport) /databaseSize;
+					double term2 = supportAsDouble /databaseSize;
+					double term3 = ((double)supportHm_P_1 / databaseSize);
+					lift = term1 / (term2 * term3);
+					
+					// if the lift is not enough
+					if(lift < minlift){
+						continue;
+					}
+				}
+				
+				// If we are here, it means that the rule respect the minconf and minlift parameters.
+				// Therefore, we output the rule.
+				saveRule(buffer, itemset_Lk_minus_hm_P_1, support, itemsetHm_P_1, supportHm_P_1, lkSupport, conf, lift);
+			}
+			// Then we keep the itemset  hm_P_1 to find more rules using this itemset and lk.
+			if(1 < maxConsequentLength ){
+				H1_for_recursion.add(itemsetHm_P_1);
+			}
+		}
+		// Finally, we make a recursive call to continue explores rules that can be made with "lk"
+		apGenrules(k, 1, lk, lkSupport, H1_for_recursion, buffer);
+	}
 
 	/**
 	 * The ApGenRules as described in p.14 of the paper by Agrawal.
@@ -263,14 +400,13 @@ public class AlgoAgrawalFaster94{
 	 * @param k the size of the first itemset used to generate rules
 	 * @param m the recursive depth of the call to this method (first time 1, then 2...)
 	 * @param lk the itemset that is used to generate rules
+	 * @param lkSupport the support of lk
 	 * @param Hm a set of itemsets that can be used with lk to generate rules
+	 * @param buffer a buffer where the rules are kept, or null if the rules are saved immediately
 	 * @throws IOException exception if error while writing output file
 	 */
-	private void apGenrules(int k, int m, Itemset lk, List<int[]> Hm)
+	private void apGenrules(int k, int m, int[] lk, int lkSupport, List<int[]> Hm, RuleBuffer buffer)
 			throws IOException {
-//		if(m + 1  > maxConsequentLength){
-//			return;
-//		}
 		
 		// if the itemset "lk" that is used to generate rules is larger than the size of itemsets in "Hm"
 		if (k > m + 1) {
@@ -283,9 +419,9 @@ public class AlgoAgrawalFaster94{
 			// for each such candidates
 			for (int[] hm_P_1 : Hm_plus_1) {
 				
-				if(lk.size() - hm_P_1.length <= maxAntecedentLength){
+				if(lk.length - hm_P_1.length <= maxAntecedentLength){
 					// We subtract the candidate from the itemset "lk"
-					int[] itemset_Lk_minus_hm_P_1 =  ArraysAlgos.cloneItemSetMinusAnItemset(lk.getItems(), hm_P_1);
+					int[] itemset_Lk_minus_hm_P_1 =  ArraysAlgos.cloneItemSetMinusAnItemset(lk, hm_P_1);
 	
 					// We will now calculate the support of the rule  Lk/(hm_P_1) ==> hm_P_1
 					// we need it to calculate the confidence
@@ -294,7 +430,7 @@ public class AlgoAgrawalFaster94{
 					double supportAsDouble = (double)support;
 					
 					// calculate the confidence of the rule Lk/(hm_P_1) ==> hm_P_1
-					double conf = lk.getAbsoluteSupport() / supportAsDouble;
+					double conf = lkSupport / supportAsDouble;
 	
 					// if the confidence is not enough than we don't need to consider
 					// the rule  Lk/(hm_P_1) ==> hm_P_1 anymore so we continue 
@@ -310,7 +446,7 @@ public class AlgoAgrawalFaster94{
 						// if we want to calculate the lift, we need the support of Hm+1
 						supportHm_P_1 = calculateSupport(hm_P_1);  
 						// calculate the lift of the rule:  Lk/(hm_P_1) ==> hm_P_1
-						double term1 = ((double)lk.getAbsoluteSupport()) /databaseSize;
+						double term1 = ((double)lkSupport) /databaseSize;
 						double term2 = (supportAsDouble) /databaseSize;
 						
 						 lift = term1 / (term2 * ((double)supportHm_P_1 / databaseSize));
@@ -323,7 +459,7 @@ public class AlgoAgrawalFaster94{
 					
 					// The rule has passed the confidence and lift threshold requirements,
 					// so we can output it
-					saveRule(itemset_Lk_minus_hm_P_1, support, hm_P_1, supportHm_P_1, lk.getAbsoluteSupport(), conf, lift);
+					saveRule(buffer, itemset_Lk_minus_hm_P_1, support, hm_P_1, supportHm_P_1, lkSupport, conf, lift);
 				}
 				// if k == m+1, then we cannot explore further rules using Lk since Lk will be too small.
 				if(k != m+1 && m + hm_P_1.length <= maxConsequentLength) {
@@ -331,50 +467,23 @@ public class AlgoAgrawalFaster94{
 				}
 			}
 			// recursive call to apGenRules to find more rules using "lk"
-			apGenrules(k, m + 1, lk, Hm_plus_1_for_recursion);
+			apGenrules(k, m + 1, lk, lkSupport, Hm_plus_1_for_recursion, buffer);
 		}
 	}
 	
 	/**
-	 * Calculate the support of an itemset by looking at the frequent patterns
-	 * of the same size.
-	 * Because patterns are sorted by lexical order, we use a binary search.
-	 * This is MUCH MORE efficient than just browsing the full list of patterns.
+	 * Calculate the support of an itemset by looking at the index of the frequent patterns.
+	 * This method can be called by several threads at the same time.
 	 * 
 	 * @param itemset the itemset.
 	 * @return the support of the itemset
 	 */
-	private int calculateSupport(int[] itemset) {
-		// We first get the list of patterns having the same size as "itemset"
-		List<Itemset> patternsSameSize = patterns.getLevels().get(itemset.length);
-//		
-		// We perform a binary search to find the position of itemset in this list
-        int first = 0;
-        int last = patternsSameSize.size() - 1;
-       
-        while( first <= last )
-        {
-        	int middle = ( first + last ) >>1 ; // >>1 means to divide by 2
-        	int[] itemsetMiddle = patternsSameSize.get(middle).getItems();
-
-        	int comparison = ArraysAlgos.comparatorItemsetSameSize.compare(itemset, itemsetMiddle);
-            if(comparison  > 0 ){
-            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-            }
-            else if(comparison  < 0 ){
-            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-            }
-            else{
-            	// we have found the itemset, so we return its support.
-            	return patternsSameSize.get(middle).getAbsoluteSupport();
-            }
-        }
-        // The following line will not happen because in the context of this algorithm, we will
+	protected int calculateSupport(int[] itemset) {
+		int support = supportIndex.getSupport(itemset);
+        // The itemset will always be found because in the context of this algorithm, we will
         // always search for itemsets that are frequent and thus will be in the list of patterns.
-        // We just put the following line to avoid compilation error and detect if the error if this
-        // case was ever to happen.
-        return 0;
-//        throw new RuntimeException("INVALID SUPPORT - THIS SHOULD NOT HAPPEN BECAUSE ALL ITEMSETS HAVE TO BE FREQUENT");
+        // We just return 0 if this case was ever to happen.
+		return support == -1 ? 0 : support;
 	}
 
 	/**
@@ -457,6 +566,27 @@ public class AlgoAgrawalFaster94{
 		System.out.println("===================================================");
 	}
 	
+	/**
+	 * Save a rule, or keep it in a buffer if it is generated by a thread other than the calling thread
+	 * @param buffer the buffer or null if the rule must be saved immediately
+	 * @param itemset1  left itemset of the rule
+	 * @param supportItemset1 the support of itemset1 if known
+	 * @param itemset2  right itemset of the rule
+	 * @param supportItemset2 the support of itemset2 if known
+	 * @param absoluteSupport support of the rule
+	 * @param conf confidence of the rule
+	 * @param lift lift of the rule
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void saveRule(RuleBuffer buffer, int[] itemset1, int supportItemset1, int[] itemset2, int supportItemset2,
+			int absoluteSupport, double conf, double lift) throws IOException {
+		if(buffer == null){
+			saveRule(itemset1, supportItemset1, itemset2, supportItemset2, absoluteSupport, conf, lift);
+		}else{
+			buffer.add(itemset1, supportItemset1, itemset2, supportItemset2, absoluteSupport, conf, lift);
+		}
+	}
+	
 	/**
 	 * Save a rule to the output file or in memory depending
 	 * if the user has provided an output file path or not
@@ -528,6 +658,60 @@ public class AlgoAgrawalFaster94{
 	public void setMaxConsequentLength(int maxConsequentLength) {
 		this.maxConsequentLength = maxConsequentLength;
 	}
+	
+	/**
+	 * Set the number of threads used to generate the rules
+	 * @param threadCount the number of threads (1 = serial execution)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * The rules generated by a thread, which are saved later by the calling thread
+	 */
+	protected class RuleBuffer {
+		// the antecedent and consequent of each rule
+		private final List<int[]> itemsets1 = new ArrayList<int[]>();
+		private final List<int[]> itemsets2 = new ArrayList<int[]>();
+		// the supports of the antecedent, consequent and rule (3 values per rule)
+		private int[] supports = new int[48];
+		// the confidence and lift of each rule (2 values per rule)
+		private double[] measures = new double[32];
+		
+		/**
+		 * Add a rule to the buffer
+		 */
+		private void add(int[] itemset1, int supportItemset1, int[] itemset2, int supportItemset2,
+				int absoluteSupport, double conf, double lift) {
+			int rule = itemsets1.size();
+			if(rule * 3 + 3 > supports.length){
+				supports = Arrays.copyOf(supports, supports.length * 2);
+				measures = Arrays.copyOf(measures, measures.length * 2);
+			}
+			itemsets1.add(itemset1);
+			itemsets2.add(itemset2);
+			supports[rule * 3] = supportItemset1;
+			supports[rule * 3 + 1] = supportItemset2;
+			supports[rule * 3 + 2] = absoluteSupport;
+			measures[rule * 2] = conf;
+			measures[rule * 2 + 1] = lift;
+		}
+		
+		/**
+		 * Save the rules of the buffer, in the order in which they were added
+		 * @throws IOException exception if error writing the output file
+		 */
+		private void saveRules() throws IOException {
+			for(int rule = 0; rule < itemsets1.size(); rule++){
+				saveRule(itemsets1.get(rule), supports[rule * 3], itemsets2.get(rule), supports[rule * 3 + 1],
+						supports[rule * 3 + 2], measures[rule * 2], measures[rule * 2 + 1]);
+			}
+		}
+	}
 
 //	
 //	/**
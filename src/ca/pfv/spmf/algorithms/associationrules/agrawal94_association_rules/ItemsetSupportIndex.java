@@ -0,0 +1,482 @@
+package ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules;
+
+/* This file is copyright (c) 2008-2015 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.ItemsetSink;
+
+/**
+ * This class is an index of the support of itemsets, used to calculate the confidence and lift of
+ * association rules (see AlgoAgrawalFaster94). It is a hash table with open addressing where
+ * the items of all itemsets are stored in a single array of int, so that looking for an itemset
+ * does not require to compare it with other itemsets of the same size, as a binary search does.
+ * <br/><br/>
+ * 
+ * The index is also an ItemsetSink, so that an itemset mining algorithm (e.g. FPGrowth) can add
+ * the itemsets to the index as soon as they are found, without keeping them in an Itemsets object.
+ * If a memory budget is given, the arrays of the index are moved to temporary memory-mapped files
+ * when their size exceeds the budget, so that the index does not use more memory than that
+ * (the operating system keeps in memory the parts of the files that are used). The method close()
+ * deletes these files.
+ * <br/><br/>
+ * 
+ * The items of each itemset must be sorted according to the same order as the items of the
+ * itemsets that are searched (e.g. the lexical order). Once all the itemsets have been added,
+ * the index can be read by several threads at the same time.
+ * 
+ *  @see   AlgoAgrawalFaster94
+ *  @see   ItemsetSink
+ *  @author Philippe Fournier-Viger
+ **/
+public class ItemsetSupportIndex implements ItemsetSink {
+	
+	/** the items of all itemsets, one itemset after the other */
+	private Column items;
+	/** the number of items in the array "items" */
+	private int itemCount = 0;
+	
+	/** the position of the first item of each itemset in the array "items" */
+	private Column starts;
+	/** the number of items of each itemset */
+	private Column lengths;
+	/** the support of each itemset */
+	private Column supports;
+	/** the hash code of each itemset */
+	private Column hashes;
+	/** the number of itemsets */
+	private int count = 0;
+	/** the number of itemsets that can be stored before the arrays are made larger */
+	private int capacity;
+	
+	/** the hash table: the position of an itemset plus one, or 0 if the slot is empty */
+	private Column table;
+	/** the size of the hash table (a power of two) */
+	private int tableSize;
+	
+	/** the maximum size of the arrays in memory (bytes) before they are moved to files */
+	private final long memoryBudget;
+	/** true if the arrays have been moved to files */
+	private boolean spilled = false;
+	/** the temporary files used by the index */
+	private final List<MappedColumn> files = new ArrayList<MappedColumn>();
+	
+	/**
+	 * Constructor of an index that is kept in memory
+	 * @param expectedCount the expected number of itemsets (the index grows if there are more)
+	 */
+	public ItemsetSupportIndex(int expectedCount) {
+		this(expectedCount, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Constructor
+	 * @param expectedCount the expected number of itemsets (the index grows if there are more)
+	 * @param memoryBudget the maximum size of the index in memory (bytes). If the index becomes larger,
+	 *    it is moved to temporary files.
+	 */
+	public ItemsetSupportIndex(int expectedCount, long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		capacity = Math.max(expectedCount, 16);
+		items = new HeapColumn(capacity * 2);
+		starts = new HeapColumn(capacity);
+		lengths = new HeapColumn(capacity);
+		supports = new HeapColumn(capacity);
+		hashes = new HeapColumn(capacity);
+		// the table is at most half full
+		tableSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+		table = new HeapColumn(tableSize);
+		spillIfOverBudget();
+	}
+	
+	/**
+	 * Add an itemset found by an itemset mining algorithm to the index.
+	 * @param itemset the items of the itemset
+	 * @param length the number of items
+	 * @param support the support of the itemset
+	 */
+	public void itemsetFound(int[] itemset, int length, int support) throws IOException {
+		add(itemset, length, support);
+	}
+	
+	/**
+	 * Add an itemset to the index. If the itemset is already in the index, its support is not changed.
+	 * @param itemset the items of the itemset
+	 * @param support the support of the itemset
+	 */
+	public void add(int[] itemset, int support) {
+		add(itemset, itemset.length, support);
+	}
+	
+	/**
+	 * Add an itemset to the index. If the itemset is already in the index, its support is not changed.
+	 * @param itemset an array containing the items of the itemset
+	 * @param length the number of items (the first "length" positions of the array)
+	 * @param support the support of the itemset
+	 */
+	public void add(int[] itemset, int length, int support) {
+		int hash = hash(itemset, length);
+		int mask = tableSize - 1;
+		int slot = hash & mask;
+		int entry;
+		while((entry = table.get(slot)) != 0) {
+			if(equals(entry - 1, hash, itemset, length)) {
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		
+		// make space for the itemset
+		if(count == capacity) {
+			capacity *= 2;
+			starts = starts.grow(capacity);
+			lengths = lengths.grow(capacity);
+			supports = supports.grow(capacity);
+			hashes = hashes.grow(capacity);
+		}
+		if(itemCount + length > items.size()) {
+			items = items.grow(Math.max(items.size() * 2, itemCount + length));
+		}
+		
+		// save the itemset
+		for(int i = 0; i < length; i++) {
+			items.set(itemCount + i, itemset[i]);
+		}
+		starts.set(count, itemCount);
+		lengths.set(count, length);
+		supports.set(count, support);
+		hashes.set(count, hash);
+		itemCount += length;
+		table.set(slot, ++count);
+		
+		// if the table is more than half full, we make it larger
+		if(count * 2 > tableSize) {
+			rehash(tableSize * 2);
+		}
+		spillIfOverBudget();
+	}
+	
+	/**
+	 * Get the support of an itemset
+	 * @param itemset the items of the itemset
+	 * @return the support or -1 if the itemset is not in the index
+	 */
+	public int getSupport(int[] itemset) {
+		int hash = hash(itemset, itemset.length);
+		int mask = tableSize - 1;
+		int slot = hash & mask;
+		int entry;
+		while((entry = table.get(slot)) != 0) {
+			if(equals(entry - 1, hash, itemset, itemset.length)) {
+				return supports.get(entry - 1);
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Get the number of itemsets in the index
+	 * @return the number of itemsets
+	 */
+	public int size() {
+		return count;
+	}
+	
+	/**
+	 * Get the number of items of an itemset of the index
+	 * @param position the position of the itemset (from 0 to size() - 1, in the order they were added)
+	 * @return the number of items
+	 */
+	public int getLength(int position) {
+		return lengths.get(position);
+	}
+	
+	/**
+	 * Get the support of an itemset of the index
+	 * @param position the position of the itemset (from 0 to size() - 1, in the order they were added)
+	 * @return the support
+	 */
+	public int getSupportAt(int position) {
+		return supports.get(position);
+	}
+	
+	/**
+	 * Get an item of an itemset of the index
+	 * @param position the position of the itemset (from 0 to size() - 1, in the order they were added)
+	 * @param i the position of the item in the itemset
+	 * @return the item
+	 */
+	public int getItem(int position, int i) {
+		return items.get(starts.get(position) + i);
+	}
+	
+	/**
+	 * Get the items of an itemset of the index
+	 * @param position the position of the itemset (from 0 to size() - 1, in the order they were added)
+	 * @return a new array containing the items
+	 */
+	public int[] getItems(int position) {
+		int start = starts.get(position);
+		int[] itemset = new int[lengths.get(position)];
+		for(int i = 0; i < itemset.length; i++) {
+			itemset[i] = items.get(start + i);
+		}
+		return itemset;
+	}
+	
+	/**
+	 * Check if the index has been moved to temporary files because it was larger than the memory budget
+	 * @return true if it is the case
+	 */
+	public boolean isSpilled() {
+		return spilled;
+	}
+	
+	/**
+	 * Delete the temporary files used by the index, if any. The index cannot be used anymore after
+	 * calling this method, if it was moved to files.
+	 */
+	public void close() {
+		for(MappedColumn file : files) {
+			file.close();
+		}
+		files.clear();
+	}
+	
+	/**
+	 * Check if an itemset of the index is equal to a given itemset
+	 * @param position the position of the itemset of the index
+	 * @param hash the hash code of the given itemset
+	 * @param itemset the given itemset
+	 * @param length the number of items of the given itemset
+	 * @return true if they are equal
+	 */
+	private boolean equals(int position, int hash, int[] itemset, int length) {
+		if(hashes.get(position) != hash || lengths.get(position) != length) {
+			return false;
+		}
+		int start = starts.get(position);
+		for(int i = 0; i < length; i++) {
+			if(items.get(start + i) != itemset[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Create a larger hash table
+	 * @param size the size of the new table (a power of two)
+	 */
+	private void rehash(int size) {
+		Column newTable = spilled ? newMappedColumn(size) : new HeapColumn(size);
+		int mask = size - 1;
+		for(int position = 0; position < count; position++) {
+			int slot = hashes.get(position) & mask;
+			while(newTable.get(slot) != 0) {
+				slot = (slot + 1) & mask;
+			}
+			newTable.set(slot, position + 1);
+		}
+		table.release();
+		table = newTable;
+		tableSize = size;
+	}
+	
+	/**
+	 * Move the arrays of the index to temporary files if they are larger than the memory budget
+	 */
+	private void spillIfOverBudget() {
+		if(spilled) {
+			return;
+		}
+		long bytes = 4L * (items.size() + starts.size() + lengths.size() + supports.size() + hashes.size() + table.size());
+		if(bytes <= memoryBudget) {
+			return;
+		}
+		spilled = true;
+		items = spill(items);
+		starts = spill(starts);
+		lengths = spill(lengths);
+		supports = spill(supports);
+		hashes = spill(hashes);
+		table = spill(table);
+	}
+	
+	/**
+	 * Copy a column in memory to a new temporary file
+	 * @param column the column
+	 * @return the new column
+	 */
+	private Column spill(Column column) {
+		Column mapped = newMappedColumn(column.size());
+		for(int i = 0; i < column.size(); i++) {
+			mapped.set(i, column.get(i));
+		}
+		return mapped;
+	}
+	
+	/**
+	 * Create a column stored in a temporary file
+	 * @param size the size of the column
+	 * @return the column
+	 */
+	private MappedColumn newMappedColumn(int size) {
+		MappedColumn column = new MappedColumn(size);
+		files.add(column);
+		return column;
+	}
+	
+	/**
+	 * Calculate the hash code of an itemset
+	 * @param itemset an array containing the items of the itemset
+	 * @param length the number of items
+	 * @return the hash code
+	 */
+	private static int hash(int[] itemset, int length) {
+		int hash = length;
+		for(int i = 0; i < length; i++) {
+			hash = hash * 0x9E3779B1 + itemset[i];
+		}
+		// mix the bits so that the lowest bits depend on all items
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		return hash;
+	}
+	
+	/**
+	 * An array of int that can be made larger
+	 */
+	private static abstract class Column {
+		/** get the value at a position */
+		abstract int get(int i);
+		/** set the value at a position */
+		abstract void set(int i, int value);
+		/** get the size of the array */
+		abstract int size();
+		/** get an array containing the same values, with a larger size */
+		abstract Column grow(int size);
+		/** release the resources used by this array (it cannot be used anymore) */
+		abstract void release();
+	}
+	
+	/**
+	 * An array of int in memory
+	 */
+	private static final class HeapColumn extends Column {
+		private int[] values;
+		
+		HeapColumn(int size) {
+			values = new int[size];
+		}
+		int get(int i) {
+			return values[i];
+		}
+		void set(int i, int value) {
+			values[i] = value;
+		}
+		int size() {
+			return values.length;
+		}
+		Column grow(int size) {
+			values = Arrays.copyOf(values, size);
+			return this;
+		}
+		void release() {
+			values = null;
+		}
+	}
+	
+	/**
+	 * An array of int stored in a temporary memory-mapped file. The file is mapped by
+	 * chunks, so that the array can be made larger by mapping more chunks.
+	 */
+	private static final class MappedColumn extends Column {
+		/** the number of int in a chunk (4 MB) */
+		private static final int CHUNK_BITS = 20;
+		private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+		
+		private File file;
+		private RandomAccessFile randomAccessFile;
+		private IntBuffer[] chunks = new IntBuffer[0];
+		private int size;
+		
+		MappedColumn(int size) {
+			try {
+				file = File.createTempFile("spmf_index", ".tmp");
+				file.deleteOnExit();
+				randomAccessFile = new RandomAccessFile(file, "rw");
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not create a temporary file for the itemset index", e);
+			}
+			grow(size);
+		}
+		int get(int i) {
+			return chunks[i >>> CHUNK_BITS].get(i & CHUNK_MASK);
+		}
+		void set(int i, int value) {
+			chunks[i >>> CHUNK_BITS].put(i & CHUNK_MASK, value);
+		}
+		int size() {
+			return size;
+		}
+		Column grow(int newSize) {
+			int chunkCount = (int) (((long) newSize + CHUNK_MASK) >>> CHUNK_BITS);
+			if(chunkCount > chunks.length) {
+				IntBuffer[] newChunks = Arrays.copyOf(chunks, chunkCount);
+				try {
+					FileChannel channel = randomAccessFile.getChannel();
+					for(int chunk = chunks.length; chunk < chunkCount; chunk++) {
+						long position = (long) chunk << (CHUNK_BITS + 2);
+						newChunks[chunk] = channel.map(FileChannel.MapMode.READ_WRITE, position, 4L << CHUNK_BITS)
+								.order(ByteOrder.nativeOrder()).asIntBuffer();
+					}
+				} catch (IOException e) {
+					throw new IllegalStateException("Could not extend a temporary file of the itemset index", e);
+				}
+				chunks = newChunks;
+			}
+			size = newSize;
+			return this;
+		}
+		void release() {
+			close();
+		}
+		void close() {
+			chunks = null;
+			if(randomAccessFile != null) {
+				try {
+					randomAccessFile.close();
+				} catch (IOException e) {
+					// the file is deleted anyway
+				}
+				randomAccessFile = null;
+				file.delete();
+			}
+		}
+	}
+}
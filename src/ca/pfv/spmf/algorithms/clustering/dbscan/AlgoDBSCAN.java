@@ -22,12 +22,17 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceEuclidian;
 import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceFunction;
 import ca.pfv.spmf.algorithms.clustering.instancereader.AlgoInstanceFileReader;
+import ca.pfv.spmf.datastructures.kdtree.EpsilonNeighborhoods;
 import ca.pfv.spmf.datastructures.kdtree.KDTree;
+import ca.pfv.spmf.datastructures.kdtree.NeighborList;
+import ca.pfv.spmf.input.SPMFFileTokenizer;
 import ca.pfv.spmf.patterns.cluster.Cluster;
 import ca.pfv.spmf.patterns.cluster.ClustersEvaluation;
 import ca.pfv.spmf.patterns.cluster.DoubleArray;
@@ -79,9 +84,14 @@ public class AlgoDBSCAN {
 	/* This KD-Tree is used to index the data points for fast access to points in the epsilon radius*/
 	KDTree kdtree;
 	
-	/* Buffers for storing points **/
-	List<DoubleArray> bufferNeighboors1 = null;
-	List<DoubleArray> bufferNeighboors2 = null;
+	/* The neighboors of every point within the radius, if they are found in parallel */
+	EpsilonNeighborhoods neighborhoods;
+	
+	/* Buffer for storing the neighboors of a point, if they are found when needed */
+	NeighborList neighborBuffer;
+	
+	/** number of threads used for finding the neighboors of points (1 = serial execution) */
+	private int threadCount = 1;
 
 	/** The names of the attributes **/
 	private List<String> attributeNames = null;
@@ -110,62 +120,49 @@ public class AlgoDBSCAN {
 		// reset the number of noise points to 0
 		numberOfNoisePoints =0;
 		
+		// The list of attribute names
+		attributeNames = new ArrayList<String>();
+		
 		// Structure to store the vectors from the file
-		List<DoubleArray> points = new ArrayList<DoubleArray>();
+		PointReader pointReader = new PointReader();
+		List<DoubleArray> points = pointReader.points;
 		
 		// read the vectors from the input file
-		BufferedReader reader = new BufferedReader(new FileReader(inputFile));
-		String line;
-		
-		// The list of attribute names
-		attributeNames = new ArrayList<String>();
-		 
-		String currentInstanceName = null;
-		// for each line until the end of the file
-		while (((line = reader.readLine()) != null)) {
-
-			
-			// if the line is  a comment, is  empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true ||
-					line.charAt(0) == '#' || line.charAt(0) == '%') {
-				continue;
-			}
-			
-			
-			// Read the name of the instance from the file
-			if(line.charAt(0) == '@'){
-				// if it is the name of the instance
-				if(line.startsWith("@NAME=")){
-					currentInstanceName = line.substring(6, line.length());
+		// if the separator is a single character (which is not a special character of regular expressions),
+		// the file is read by the tokenizer, which directly converts the bytes of the file to double values
+		if(separator.length() == 1 && "\\^$.|?*+()[]{}".indexOf(separator.charAt(0)) < 0) {
+			SPMFFileTokenizer.readVectors(inputFile, separator.charAt(0), pointReader);
+		}else {
+			BufferedReader reader = new BufferedReader(new FileReader(inputFile));
+			String line;
+			// for each line until the end of the file
+			while (((line = reader.readLine()) != null)) {
+				// if the line is  a comment, is  empty or is a
+				// kind of metadata
+				if (line.isEmpty() == true ||
+						line.charAt(0) == '#' || line.charAt(0) == '%') {
+					continue;
 				}
-				// if it is the name of an attribute   // @ATTRIBUTEDEF=Y
-				if(line.startsWith("@ATTRIBUTEDEF=")){
-					String attributeName = line.substring(14, line.length());
-					attributeNames.add(attributeName);
+				// Read the name of the instance from the file
+				if(line.charAt(0) == '@'){
+					pointReader.handleMetadata(line);
+					continue;
 				}
-				continue;
-			}
-			// if no name in the file, then we generate one
-			String nameToUse = currentInstanceName == null ?  "Instance" + points.size() : currentInstanceName;
-			currentInstanceName = null;
-			
-			// split the line by spaces
-			String[] lineSplited = line.split(separator);
-			// create a vector of double
-			double [] vector = new double[lineSplited.length];
-			// for each value of the current line
-			for (int i=0; i< lineSplited.length; i++) { 
-				// convert to double
-				double value = Double.parseDouble(lineSplited[i]);
-				// add the value to the current vector
-				vector[i] = value;
+				// split the line by the separator
+				String[] lineSplited = line.split(separator);
+				// create a vector of double
+				double [] vector = new double[lineSplited.length];
+				// for each value of the current line
+				for (int i=0; i< lineSplited.length; i++) { 
+					// convert to double
+					vector[i] = Double.parseDouble(lineSplited[i]);
+				}
+				// add the vector to the list of vectors
+				pointReader.handleVector(vector, vector.length);
 			}
-			// add the vector to the list of vectors
-			points.add(new DoubleArrayDBS(vector, nameToUse));
+			// close the file
+			reader.close();
 		}
-		// close the file
-		reader.close();
 		
 		// If the file did not contain attribute names, we will generate some
 		if(attributeNames.size() == 0 && points.size() > 0){
@@ -182,40 +179,57 @@ public class AlgoDBSCAN {
 		// For debugging, you can print the KD-Tree by uncommenting the following line:
 //		System.out.println(kdtree.toString());
 		
-		// Create a single cluster and return it 
-		clusters = new ArrayList<Cluster>();
+		// If several threads are used, the neighboors of all points within the radius are
+		// found in parallel before creating the clusters. Otherwise, they are found when needed.
+		if(threadCount > 1) {
+			neighborhoods = new EpsilonNeighborhoods(kdtree, epsilon, false, threadCount);
+		}else {
+			neighborBuffer = new NeighborList();
+		}
 		
-		// Create the buffer structure for storing neighboors when searching neighboors
-		// of a point within a radius
-		bufferNeighboors1 = new ArrayList<DoubleArray>();
-		bufferNeighboors2 = new ArrayList<DoubleArray>();
+		// The cluster of each point (-1 if the point is not in a cluster)
+		int[] clusterOfPoint = new int[points.size()];
+		Arrays.fill(clusterOfPoint, -1);
+		// The points that have been visited
+		BitSet visited = new BitSet(points.size());
+		// A queue of points to be visited when expanding a cluster. A point is added to this
+		// queue only when it is added to a cluster, so it is added at most once.
+		int[] queue = new int[points.size()];
+		int clusterCount = 0;
 		
 		// For each point in the dataset
-		for(DoubleArray point : points) {
+		for(int point = 0; point < points.size(); point++) {
 			// if the node has not been visited yet
-			DoubleArrayDBS pointDBS = (DoubleArrayDBS) point;
-			if(pointDBS.visited == false) {
+			if(visited.get(point) == false) {
 				
 				// mark the point as visited
-				pointDBS.visited = true;
-				
+				visited.set(point);
 				
 				// find the neighboors of this point within the radius
-				bufferNeighboors1.clear();
-				kdtree.pointsWithinRadiusOf(pointDBS, epsilon, bufferNeighboors1);
+				int neighborCount = findNeighbors(point, epsilon);
 				
 				// if it is not noise
-				if(bufferNeighboors1.size() >= minPts -1) { // - 1 because we don't count the point itself in its neighborood
+				if(neighborCount >= minPts -1) { // - 1 because we don't count the point itself in its neighborood
 					// transitively add all points that can be reached
-					expandCluster(pointDBS, bufferNeighboors1, epsilon, minPts);
+					expandCluster(point, neighborCount, clusterCount, epsilon, minPts, clusterOfPoint, visited, queue);
+					clusterCount++;
 				}
 			}
 		}
 		
-		// it is noise
-		for(DoubleArray point: points) {
-			if(((DoubleArrayDBS)point).cluster == null){
+		// Create the clusters
+		clusters = new ArrayList<Cluster>(clusterCount);
+		for(int i = 0; i < clusterCount; i++) {
+			clusters.add(new Cluster());
+		}
+		for(int point = 0; point < points.size(); point++) {
+			if(clusterOfPoint[point] == -1){
+				// it is noise
 				numberOfNoisePoints++;
+			}else {
+				DoubleArrayDBS pointDBS = (DoubleArrayDBS) points.get(point);
+				pointDBS.cluster = clusters.get(clusterOfPoint[point]);
+				pointDBS.cluster.addVector(pointDBS);
 			}
 		}
 		
@@ -226,65 +240,112 @@ public class AlgoDBSCAN {
 		endTimestamp =  System.currentTimeMillis();
 		
 		// set free some memory
-		bufferNeighboors1 = null;
-		bufferNeighboors2 = null;
+		neighborhoods = null;
+		neighborBuffer = null;
 		kdtree = null;
 		
 		// return the clusters
 		return clusters;
 	}
+	
+	/**
+	 * Find the neighboors of a point within the radius epsilon. They can then
+	 * be obtained with getNeighbor().
+	 * @param point the point
+	 * @param epsilon the epsilon parameter
+	 * @return the number of neighboors
+	 */
+	private int findNeighbors(int point, double epsilon) {
+		if(neighborhoods != null) {
+			return neighborhoods.getNeighborCount(point);
+		}
+		neighborBuffer.clear();
+		kdtree.pointsWithinRadiusOf(point, epsilon, neighborBuffer);
+		return neighborBuffer.size();
+	}
+	
+	/**
+	 * Get a neighboor of the point that was given to the latest call to findNeighbors().
+	 * @param point the point
+	 * @param i the position of the neighboor
+	 * @return the neighboor
+	 */
+	private int getNeighbor(int point, int i) {
+		if(neighborhoods != null) {
+			return neighborhoods.getNeighbor(point, i);
+		}
+		return neighborBuffer.getPointId(i);
+	}
 
 	/**
 	 * The DBScan expandCluster() method
-	 * @param currentPoint the current point
-	 * @param neighboors the neighboors of the current point
+	 * @param point the current point
+	 * @param neighborCount the number of neighboors of the current point
 	 * @param cluster the current cluster
 	 * @param epsilon the epsilon parameter
 	 * @param minPts the minPts parameter
+	 * @param clusterOfPoint the cluster of each point (-1 if none)
+	 * @param visited the points that have been visited
+	 * @param queue a buffer to store the points to be visited
 	 */
-	private void expandCluster(DoubleArrayDBS currentPoint,	List<DoubleArray> neighboors, double epsilon, int minPts) {	
-		// create a new cluster
-		Cluster cluster = new Cluster();
-		clusters.add(cluster);
+	private void expandCluster(int point, int neighborCount, int cluster, double epsilon, int minPts,
+			int[] clusterOfPoint, BitSet visited, int[] queue) {	
 		// add the current point to the cluster
-		cluster.addVector(currentPoint);
-		currentPoint.cluster = cluster;
+		clusterOfPoint[point] = cluster;
 		
 		// Note that the expandCluster code is not implemented with a recursive function
 		// (unlike the version of DBScan described in the DBScan paper).
 		// This is more efficient and avoid stack overflow errors for large datasets that can occur using
 		// a recursive function.
 		
-		// for each neighboor
-		for(int i = 0; i < neighboors.size(); i++) {
-			DoubleArrayDBS newPointDBS = (DoubleArrayDBS) neighboors.get(i);
-			
-			// if this point has not been visited yet
-			if(newPointDBS.visited == false) {
-					
-				// mark the point as visited
-				newPointDBS.visited = true;
-				
-				// find the neighboors of this point
-				bufferNeighboors2.clear();
-				kdtree.pointsWithinRadiusOf(newPointDBS, epsilon, bufferNeighboors2);
+		// add the neighboors to the cluster
+		int queueSize = addNeighborsToCluster(point, neighborCount, cluster, clusterOfPoint, visited, queue, 0);
+		
+		// for each point that was added to the cluster and has not been visited yet
+		for(int i = 0; i < queueSize; i++) {
+			int newPoint = queue[i];
 				
-				// if this point is not noise
-				if(bufferNeighboors2.size() >= minPts - 1) { // - 1 because we don't count the point itself in its neighborood
-					neighboors.addAll(bufferNeighboors2);
-				}
-			}
-			// NEW ====
-			if(newPointDBS.cluster == null){
-				cluster.addVector(newPointDBS);
-				newPointDBS.cluster = cluster;
+			// mark the point as visited
+			visited.set(newPoint);
+			
+			// find the neighboors of this point
+			int newNeighborCount = findNeighbors(newPoint, epsilon);
+			
+			// if this point is not noise
+			if(newNeighborCount >= minPts - 1) { // - 1 because we don't count the point itself in its neighborood
+				queueSize = addNeighborsToCluster(newPoint, newNeighborCount, cluster, clusterOfPoint, visited, queue, queueSize);
 			}
-			// END NEW ====
 		}
 
 		// check memory usage
 		MemoryLogger.getInstance().checkMemory();
 	}
+	
+	/**
+	 * Add the neighboors of a core point that are not in a cluster to a cluster. 
+	 * Those that have not been visited yet are also added to the queue of points to be visited.
+	 * @param point the core point
+	 * @param neighborCount its number of neighboors
+	 * @param cluster the cluster
+	 * @param clusterOfPoint the cluster of each point (-1 if none)
+	 * @param visited the points that have been visited
+	 * @param queue the queue of points to be visited
+	 * @param queueSize the current size of the queue
+	 * @return the new size of the queue
+	 */
+	private int addNeighborsToCluster(int point, int neighborCount, int cluster, int[] clusterOfPoint,
+			BitSet visited, int[] queue, int queueSize) {
+		for(int i = 0; i < neighborCount; i++) {
+			int neighbor = getNeighbor(point, i);
+			if(clusterOfPoint[neighbor] == -1) {
+				clusterOfPoint[neighbor] = cluster;
+				if(visited.get(neighbor) == false) {
+					queue[queueSize++] = neighbor;
+				}
+			}
+		}
+		return queueSize;
+	}
 
 	/**
 	 * Save the clusters to an output file
@@ -316,6 +377,51 @@ public class AlgoDBSCAN {
 		writer.close();
 	}
 	
+	/**
+	 * This class receives the lines of the input file and creates the points
+	 */
+	private class PointReader implements SPMFFileTokenizer.VectorHandler {
+		// the points that have been read
+		final List<DoubleArray> points = new ArrayList<DoubleArray>();
+		// the name of the next instance (if specified in the file)
+		String currentInstanceName = null;
+
+		@Override
+		public void handleMetadata(String line) {
+			// if it is the name of the instance
+			if(line.startsWith("@NAME=")){
+				currentInstanceName = line.substring(6, line.length());
+			}
+			// if it is the name of an attribute   // @ATTRIBUTEDEF=Y
+			if(line.startsWith("@ATTRIBUTEDEF=")){
+				String attributeName = line.substring(14, line.length());
+				attributeNames.add(attributeName);
+			}
+		}
+
+		@Override
+		public void handleVector(double[] values, int valueCount) {
+			// if no name in the file, then we generate one
+			String nameToUse = currentInstanceName == null ?  "Instance" + points.size() : currentInstanceName;
+			currentInstanceName = null;
+			// add the vector to the list of vectors
+			points.add(new DoubleArrayDBS(Arrays.copyOf(values, valueCount), nameToUse));
+		}
+	}
+	
+	/**
+	 * Set the number of threads used for finding the neighboors of points. If more than one
+	 * thread is used, the neighboors of all points are found in parallel before creating the
+	 * clusters, which requires more memory. The clusters are the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+	
 	/**
 	 * Print statistics of the latest execution to System.out.
 	 */
@@ -22,13 +22,12 @@ import ca.pfv.spmf.patterns.cluster.DoubleArrayInstance;
 
 /**
  * This class represents a vector of double values used by the DBScan algorithm.
- * It has a "visited" flag to remember the node that have been already visited.
+ * It remembers the cluster containing the point (null if it is noise).
 * 
  * @author Philippe Fournier-Viger
  */
 public class DoubleArrayDBS extends DoubleArrayInstance{
 	
-	boolean visited = false;
 	Cluster cluster = null;
 
 	/**
@@ -22,8 +22,13 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceFunction;
 import ca.pfv.spmf.algorithms.clustering.instancereader.AlgoInstanceFileReader;
@@ -43,6 +48,14 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * nearest cluster center. 4) Recompute the new cluster centers. 5) Repeat the two
  * previous steps until some convergence criterion is met (usually that the
  * assignment hasn't changed).
+ * <br/><br/>
+ * 
+ * This implementation keeps the cluster of each vector in an array, so that moving a vector
+ * to another cluster takes a constant time, and it updates the sum of the vectors of each cluster
+ * when a vector moves, to recompute the cluster centers efficiently. Optionally, the nearest cluster
+ * of each vector can be found by several threads (see {@link #setThreadCount(int)}), and the initial
+ * cluster centers can be chosen with the k-means++ method instead of being random vectors
+ * (see {@link #setUseKMeansPlusPlus(boolean)}).
  * 
  * @author Philippe Fournier-Viger
  */
@@ -65,6 +78,15 @@ public class AlgoKMeans {
 	
 	/** The names of the attributes **/
 	private List<String> attributeNames = null;
+	
+	/** number of threads used for assigning vectors to clusters (1 = serial execution) */
+	int threadCount = 1;
+	
+	/** a list of vectors smaller than this number of vectors per thread is processed by a single thread */
+	private static final int MIN_VECTORS_PER_THREAD = 1000;
+	
+	/** if true, the initial cluster centers are chosen with the k-means++ method */
+	boolean useKMeansPlusPlus = false;
 
 	/**
 	 * Default constructor
@@ -216,74 +238,242 @@ public class AlgoKMeans {
 			return newClusters;
 		}
 		
-		// (1) Randomly generate k empty clusters with a random mean (cluster
-		// center)
-		for(int i=0; i< k; i++){
-			DoubleArray meanVector = generateRandomVector(minValue, maxValue, vectorsSize);
-			ClusterWithMean cluster = new ClusterWithMean(vectorsSize);
-			cluster.setMean(meanVector);
-			newClusters.add(cluster);
+		// (1) Generate the k cluster centers, either randomly or 
+		// by choosing k vectors with the k-means++ method
+		DoubleArray[] means;
+		if(useKMeansPlusPlus) {
+			means = chooseKMeansPlusPlusCenters(k, distanceFunction, vectors);
+		}else {
+			means = new DoubleArray[k];
+			for(int i=0; i< k; i++){
+				means[i] = generateRandomVector(minValue, maxValue, vectorsSize);
+			}
 		}
-
-		// (2) Repeat the two next steps until the assignment hasn't changed
-		boolean changed;
-		while(true) {
-			iterationCount++;
-			changed = false;
-			// (2.1) Assign each point to the nearest cluster center.
-
-			// / for each vector
-			for (DoubleArray vector : vectors) {
-				// find the nearest cluster and the cluster containing the item
-				ClusterWithMean nearestCluster = null;
-				ClusterWithMean containingCluster = null;
-				double distanceToNearestCluster = Double.MAX_VALUE;
-
-				// for each cluster
-				for (ClusterWithMean cluster : newClusters) {
-					// calculate the distance of the cluster mean to the vector
-					double distance = distanceFunction.calculateDistance(cluster.getmean(), vector);
-					// if it is the smallest distance until now, record this cluster
-					// and the distance
-					if (distance < distanceToNearestCluster) {
-						nearestCluster = cluster;
-						distanceToNearestCluster = distance;
-					}
-					// if the cluster contain the vector already,
-					// remember that too!
-					if (cluster.contains(vector)) {
-						containingCluster = cluster;
+		
+		// The cluster containing each vector (-1 if the vector is not in a cluster yet).
+		// This allows to know in constant time the cluster containing a vector.
+		int[] assignment = new int[vectors.size()];
+		Arrays.fill(assignment, -1);
+		// The nearest cluster of each vector, for the current iteration
+		int[] nearestClusters = new int[vectors.size()];
+		// The sum of the vectors of each cluster and the number of vectors in each cluster
+		// (used to recompute the means efficiently)
+		double[][] sums = new double[k][vectorsSize];
+		int[] counts = new int[k];
+		
+		// If several threads are used, the nearest clusters are found in parallel
+		int partCount = Math.min(threadCount, vectors.size() / MIN_VECTORS_PER_THREAD);
+		ForkJoinPool pool = (partCount > 1) ? new ForkJoinPool(partCount) : null;
+		
+		try {
+			// (2) Repeat the two next steps until the assignment hasn't changed
+			while(true) {
+				iterationCount++;
+				// (2.1) Assign each point to the nearest cluster center.
+				if(pool == null) {
+					findNearestClusters(distanceFunction, vectors, means, assignment, nearestClusters, 0, vectors.size());
+				}else {
+					findNearestClustersInParallel(pool, partCount, distanceFunction, vectors, means, assignment, nearestClusters);
+				}
+				
+				// for each vector, if the nearest cluster is not the cluster 
+				// containing the vector, move the vector to the nearest cluster
+				boolean changed = false;
+				for (int i = 0; i < vectors.size(); i++) {
+					int nearestCluster = nearestClusters[i];
+					int containingCluster = assignment[i];
+					if (containingCluster != nearestCluster) {
+						double[] data = vectors.get(i).data;
+						// remove the vector from the containing cluster
+						if (containingCluster != -1) {
+							double[] sum = sums[containingCluster];
+							for(int j = 0; j < vectorsSize; j++) {
+								sum[j] -= data[j];
+							}
+							counts[containingCluster]--;
+						}
+						// add the vector to the nearest cluster
+						double[] sum = sums[nearestCluster];
+						for(int j = 0; j < vectorsSize; j++) {
+							sum[j] += data[j];
+						}
+						counts[nearestCluster]++;
+						assignment[i] = nearestCluster;
+						changed = true;
 					}
 				}
-
-				// if the nearest cluster is not the cluster containing
-				// the vector
-				if (containingCluster != nearestCluster) {
-					// remove the vector from the containing cluster
-					if (containingCluster != null) {
-						containingCluster.remove(vector);
+	
+				// check the memory usage
+				MemoryLogger.getInstance().checkMemory();
+				
+				if(!changed){     // exit condition for main loop
+					break;
+				}
+				
+				// (2.2) Recompute the new cluster means (the mean of an empty 
+				// cluster is not changed)
+				for (int c = 0; c < k; c++) {
+					if(counts[c] > 0) {
+						double[] mean = means[c].data;
+						for(int j = 0; j < vectorsSize; j++) {
+							mean[j] = sums[c][j] / counts[c];
+						}
 					}
-					// add the vector to the nearest cluster
-					nearestCluster.addVector(vector);
-					changed = true;
 				}
 			}
-
-			// check the memory usage
-			MemoryLogger.getInstance().checkMemory();
-			
-			if(!changed){     // exit condition for main loop
-				break;
-			}
-			
-			// (2.2) Recompute the new cluster means
-			for (ClusterWithMean cluster : newClusters) {
-				cluster.recomputeClusterMean();
+		} finally {
+			if(pool != null) {
+				pool.shutdownNow();
 			}
 		}
 		
+		// (3) Create the clusters
+		for(int c = 0; c < k; c++) {
+			ClusterWithMean cluster = new ClusterWithMean(vectorsSize);
+			cluster.setMean(means[c]);
+			newClusters.add(cluster);
+		}
+		for (int i = 0; i < vectors.size(); i++) {
+			newClusters.get(assignment[i]).addVector(vectors.get(i));
+		}
+		
 		return newClusters;
 	}
+	
+	/**
+	 * Find the nearest cluster of some vectors.
+	 * @param distanceFunction a distance function
+	 * @param vectors the vectors
+	 * @param means the mean of each cluster
+	 * @param assignment the cluster currently containing each vector (or -1)
+	 * @param nearestClusters an array to store the nearest cluster of each vector
+	 * @param start the position of the first vector
+	 * @param end the position after the last vector
+	 */
+	private void findNearestClusters(DistanceFunction distanceFunction, List<DoubleArray> vectors,
+			DoubleArray[] means, int[] assignment, int[] nearestClusters, int start, int end) {
+		// for each vector
+		for (int i = start; i < end; i++) {
+			DoubleArray vector = vectors.get(i);
+			int nearestCluster = -1;
+			double distanceToNearestCluster = Double.MAX_VALUE;
+			// for each cluster
+			for (int c = 0; c < means.length; c++) {
+				// calculate the distance of the cluster mean to the vector
+				double distance = distanceFunction.calculateDistance(means[c], vector);
+				// if it is the smallest distance until now, record this cluster
+				// and the distance
+				if (distance < distanceToNearestCluster) {
+					nearestCluster = c;
+					distanceToNearestCluster = distance;
+				}
+			}
+			// if no distance could be calculated (e.g. it is NaN), the vector stays
+			// in its cluster or is put in the first cluster
+			if(nearestCluster == -1) {
+				nearestCluster = (assignment[i] == -1) ? 0 : assignment[i];
+			}
+			nearestClusters[i] = nearestCluster;
+		}
+	}
+	
+	/**
+	 * Find the nearest cluster of each vector, by dividing the vectors 
+	 * between several threads.
+	 * @param pool the pool of threads
+	 * @param partCount the number of parts of the list of vectors (one per thread)
+	 * @param distanceFunction a distance function
+	 * @param vectors the vectors
+	 * @param means the mean of each cluster
+	 * @param assignment the cluster currently containing each vector (or -1)
+	 * @param nearestClusters an array to store the nearest cluster of each vector
+	 */
+	private void findNearestClustersInParallel(ForkJoinPool pool, int partCount, 
+			final DistanceFunction distanceFunction, final List<DoubleArray> vectors, 
+			final DoubleArray[] means, final int[] assignment, final int[] nearestClusters) {
+		// create a task for each part of the vectors
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(partCount);
+		for(int part = 0; part < partCount; part++) {
+			final int start = (int) ((long) vectors.size() * part / partCount);
+			final int end = (int) ((long) vectors.size() * (part + 1) / partCount);
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					findNearestClusters(distanceFunction, vectors, means, assignment, nearestClusters, start, end);
+					return null;
+				}
+			});
+		}
+		try {
+			for(Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The clustering was interrupted", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Choose k vectors as initial cluster centers with the k-means++ method 
+	 * (Arthur and Vassilvitskii, 2007). The first center is a random vector. Then, each 
+	 * other center is a vector chosen with a probability proportional to the square
+	 * of its distance to the nearest center that was already chosen.
+	 * @param k the number of centers
+	 * @param distanceFunction a distance function
+	 * @param vectors the vectors
+	 * @return the centers (copies of the chosen vectors)
+	 */
+	DoubleArray[] chooseKMeansPlusPlusCenters(int k, DistanceFunction distanceFunction,
+			List<DoubleArray> vectors) {
+		DoubleArray[] centers = new DoubleArray[k];
+		// the squared distance of each vector to its nearest center
+		double[] squaredDistances = new double[vectors.size()];
+		Arrays.fill(squaredDistances, Double.MAX_VALUE);
+		
+		// the first center is chosen randomly
+		DoubleArray center = vectors.get(random.nextInt(vectors.size()));
+		for(int c = 0; c < k; c++) {
+			if(c > 0) {
+				// the sum of squared distances
+				double total = 0;
+				for(double squaredDistance : squaredDistances) {
+					total += squaredDistance;
+				}
+				// choose a vector with a probability proportional to its squared distance
+				int chosen = -1;
+				double value = random.nextDouble() * total;
+				for(int i = 0; i < squaredDistances.length; i++) {
+					if(squaredDistances[i] > 0) {
+						chosen = i;
+						value -= squaredDistances[i];
+						if(value < 0) {
+							break;
+						}
+					}
+				}
+				// if all vectors are already centers, choose a vector randomly
+				if(chosen == -1) {
+					chosen = random.nextInt(vectors.size());
+				}
+				center = vectors.get(chosen);
+			}
+			centers[c] = center.clone();
+			
+			// update the distance of each vector to its nearest center
+			for(int i = 0; i < squaredDistances.length; i++) {
+				double distance = distanceFunction.calculateDistance(center, vectors.get(i));
+				if(distance * distance < squaredDistances[i]) {
+					squaredDistances[i] = distance * distance;
+				}
+			}
+		}
+		return centers;
+	}
 
 	/**
 	 * Generate a random vector.
@@ -335,6 +525,27 @@ public class AlgoKMeans {
 		writer.close();
 	}
 	
+	/**
+	 * Set the number of threads used for finding the nearest cluster of each vector.
+	 * The result is the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * Set if the initial cluster centers should be chosen with the k-means++ method
+	 * (vectors of the data chosen far from each other) rather than being random vectors.
+	 * @param useKMeansPlusPlus true to use k-means++ (default: false)
+	 */
+	public void setUseKMeansPlusPlus(boolean useKMeansPlusPlus) {
+		this.useKMeansPlusPlus = useKMeansPlusPlus;
+	}
+	
 	/**
 	 * Print statistics of the latest execution to System.out.
 	 */
@@ -34,6 +34,10 @@ public class MainTestKMeans_saveToFile {
 		
 		// Apply the algorithm
 		AlgoKMeans algoKMeans = new AlgoKMeans();  
+		// Uncomment the following line to choose the initial cluster centers with k-means++
+//		algoKMeans.setUseKMeansPlusPlus(true);
+		// Uncomment the following line to assign vectors to clusters with several threads (e.g. 4)
+//		algoKMeans.setThreadCount(4);
 		algoKMeans.runAlgorithm(input, k, distanceFunction, separator);
 		algoKMeans.printStatistics();
 		algoKMeans.saveToFile(output);
@@ -29,8 +29,9 @@ import java.util.PriorityQueue;
 
 import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceEuclidian;
 import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceFunction;
+import ca.pfv.spmf.datastructures.kdtree.EpsilonNeighborhoods;
 import ca.pfv.spmf.datastructures.kdtree.KDTree;
-import ca.pfv.spmf.datastructures.kdtree.KNNPoint;
+import ca.pfv.spmf.datastructures.kdtree.NeighborList;
 import ca.pfv.spmf.patterns.cluster.Cluster;
 import ca.pfv.spmf.patterns.cluster.DoubleArray;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -86,10 +87,17 @@ public class AlgoOPTICS {
 	/** The clusters found by the OPTICS algorithm */
 	List<Cluster> clusters = null;
 	
-	/** Array-list buffer for storing neighbor points to a given point.
-	 * There is two buffers because the algorithm need to use two at the same time. */
-	List<KNNPoint> neighboorsBuffer1 = new ArrayList<KNNPoint>();
-	List<KNNPoint> neighboorsBuffer2 = new ArrayList<KNNPoint>();
+	/** The neighbors of every point within the radius, if they are found in parallel */
+	EpsilonNeighborhoods neighborhoods;
+	
+	/** Buffer for storing the neighbors of a point, if they are found when needed */
+	NeighborList neighborBuffer;
+	
+	/** Buffer for sorting the distances of the neighbors of a point */
+	double[] distanceBuffer = new double[16];
+	
+	/** number of threads used for finding the neighbors of points (1 = serial execution) */
+	private int threadCount = 1;
 	
 
 	/** The names of the attributes **/
@@ -189,6 +197,11 @@ public class AlgoOPTICS {
 			}
 		}
 
+		// give an identifier to each point (its position in the list)
+		for (int i = 0; i < points.size(); i++) {
+			((DoubleArrayOPTICS) points.get(i)).pointId = i;
+		}
+
 		// build kd-tree
 		kdtree = new KDTree();
 		kdtree.buildtree(points);
@@ -196,6 +209,14 @@ public class AlgoOPTICS {
 		// For debugging, you can print the KD-Tree by uncommenting the
 		// following line:
 		// System.out.println(kdtree.toString());
+		
+		// If several threads are used, the neighboors of all points within the radius are
+		// found in parallel before creating the cluster ordering. Otherwise, they are found when needed.
+		if (threadCount > 1) {
+			neighborhoods = new EpsilonNeighborhoods(kdtree, epsilon, true, threadCount);
+		} else {
+			neighborBuffer = new NeighborList();
+		}
 
 		// Variable to store the order of points generated by OPTICS
 		clusterOrdering = new ArrayList<DoubleArrayOPTICS>();
@@ -207,7 +228,7 @@ public class AlgoOPTICS {
 			if (pointDBS.visited == false) {
 				
 				// process this point
-				expandClusterOrder(pointDBS, clusterOrdering, epsilon, minPts);
+				expandClusterOrder(pointDBS, points, clusterOrdering, epsilon, minPts);
 			}
 		}
 
@@ -218,34 +239,101 @@ public class AlgoOPTICS {
 		timeExtractClusterOrdering = System.currentTimeMillis() - startTimestampClusterOrdering;
 
 		// free some memory
-		neighboorsBuffer1.clear();
-		neighboorsBuffer2.clear();
+		neighborhoods = null;
+		neighborBuffer = null;
 		kdtree = null;
 
 		// return the clusters
 		return clusterOrdering;
 	}
 
+	/**
+	 * Find the neighboors of a point within the radius epsilon. They can then
+	 * be obtained with getNeighbor() and getNeighborDistance().
+	 * @param point the point
+	 * @param epsilon the epsilon parameter
+	 * @return the number of neighboors
+	 */
+	private int findNeighbors(DoubleArrayOPTICS point, double epsilon) {
+		if (neighborhoods != null) {
+			return neighborhoods.getNeighborCount(point.pointId);
+		}
+		neighborBuffer.clear();
+		kdtree.pointsWithinRadiusOf(point.pointId, epsilon, neighborBuffer);
+		return neighborBuffer.size();
+	}
 
+	/**
+	 * Get a neighboor of the point that was given to the latest call to findNeighbors().
+	 * @param point the point
+	 * @param i the position of the neighboor
+	 * @return the identifier of the neighboor
+	 */
+	private int getNeighbor(DoubleArrayOPTICS point, int i) {
+		if (neighborhoods != null) {
+			return neighborhoods.getNeighbor(point.pointId, i);
+		}
+		return neighborBuffer.getPointId(i);
+	}
+
+	/**
+	 * Get the distance of a neighboor of the point that was given to the latest call to findNeighbors().
+	 * @param point the point
+	 * @param i the position of the neighboor
+	 * @return the distance
+	 */
+	private double getNeighborDistance(DoubleArrayOPTICS point, int i) {
+		if (neighborhoods != null) {
+			return neighborhoods.getDistance(point.pointId, i);
+		}
+		return neighborBuffer.getDistance(i);
+	}
+
+	/**
+	 * Set the core distance of a point, which is the distance of its (minPts-1)-th nearest neighbor
+	 * (undefined if it has less neighbors).
+	 * @param point the point
+	 * @param neighborCount the number of neighbors found by the latest call to findNeighbors()
+	 * @param minPts the minPts parameter
+	 */
+	private void setCoreDistance(DoubleArrayOPTICS point, int neighborCount, int minPts) {
+		// if not enough neighbors, then undefined
+		if (neighborCount < minPts - 1) {
+			point.core_distance = Double.POSITIVE_INFINITY;
+		} else {
+			// sort the distances of neighbors by increasing distance
+			if (distanceBuffer.length < neighborCount) {
+				distanceBuffer = new double[Math.max(neighborCount, distanceBuffer.length * 2)];
+			}
+			for (int i = 0; i < neighborCount; i++) {
+				distanceBuffer[i] = getNeighborDistance(point, i);
+			}
+			Arrays.sort(distanceBuffer, 0, neighborCount);
+
+			// the core distance is the distance of the minPts-1-th neighbor
+			point.core_distance = distanceBuffer[minPts - 2];
+		}
+	}
 
 	/**
 	 * The DBScan expandCluster() method
 	 * 
-	 * @param object
+	 * @param pointDBS
 	 *            the current point
+	 * @param points
+	 *            all the points
 	 * @param orderedFile
 	 *            the current order of points generated by OPTICS
 	 * @param epsilon
 	 *            the epsilon parameter
 	 * @param minPts
 	 *            the minPts parameter
-	 * @param neighbors  an array list that should used for returning the result
 	 */
-	private void expandClusterOrder(DoubleArrayOPTICS pointDBS,	List<DoubleArrayOPTICS> orderedFile, double epsilon, int minPts) {
+	private void expandClusterOrder(DoubleArrayOPTICS pointDBS, List<DoubleArray> points,
+			List<DoubleArrayOPTICS> orderedFile, double epsilon, int minPts) {
 
 		// find the neighboors of this point with their distance
-		neighboorsBuffer1.clear();
-		kdtree.pointsWithinRadiusOfWithDistance(pointDBS, epsilon, neighboorsBuffer1);
+		int neighborCount = findNeighbors(pointDBS, epsilon);
 
 		// mark the point as visited
 		pointDBS.visited = true;
@@ -253,7 +341,7 @@ public class AlgoOPTICS {
 		// ********** NEXT LINE, WE USE EPSILON AS MAX DISTANCE******* ///
 		pointDBS.reachabilityDistance = Double.POSITIVE_INFINITY; // / /// &&*&*&*
 																	
-		pointDBS.setCoreDistance(neighboorsBuffer1, epsilon, minPts); /// &&*&*&*
+		setCoreDistance(pointDBS, neighborCount, minPts); /// &&*&*&*
 
 		// add the current point to the order
 		orderedFile.add(pointDBS);
@@ -262,24 +350,23 @@ public class AlgoOPTICS {
 			// Create the orderSeeds structure to store points ordered by
 			// increasing reachability-distances
 			PriorityQueue<DoubleArrayOPTICS> orderSeeds = new PriorityQueue<DoubleArrayOPTICS>();
-			update(neighboorsBuffer1, pointDBS, orderSeeds, minPts, epsilon);
+			update(pointDBS, neighborCount, points, orderSeeds);
 			while (orderSeeds.isEmpty() == false) {
 				DoubleArrayOPTICS currentObject = (DoubleArrayOPTICS) orderSeeds.poll();
 
-				// Find the neighboors of the current object using a buffer 
-				neighboorsBuffer2.clear();
-				kdtree.pointsWithinRadiusOfWithDistance(currentObject, epsilon, neighboorsBuffer2);  /// &$&$ CurrentObject
+				// Find the neighboors of the current object 
+				int currentNeighborCount = findNeighbors(currentObject, epsilon);  /// &$&$ CurrentObject
 
 				// mark the point as visited
 				currentObject.visited = true;
 
-				currentObject.setCoreDistance(neighboorsBuffer2, epsilon, minPts);
+				setCoreDistance(currentObject, currentNeighborCount, minPts);
 
 				// add the current point to the order
 				orderedFile.add(currentObject);
 
 				if (currentObject.core_distance != Double.POSITIVE_INFINITY) {
-					update(neighboorsBuffer2, currentObject, orderSeeds, minPts, epsilon);
+					update(currentObject, currentNeighborCount, points, orderSeeds);
 				}
 			}
 		}
@@ -291,26 +378,25 @@ public class AlgoOPTICS {
 	/**
 	 * Update the orderSeeds w.r.t to the current object
 	 * 
-	 * @param neighbors
-	 *            the neighbors of the current object
 	 * @param centerObject
 	 *            the current object
+	 * @param neighborCount
+	 *            the number of neighbors of the current object found by the latest call to findNeighbors()
+	 * @param points
+	 *            all the points
 	 * @param orderSeeds
 	 *            the orderSeeds structure
-	 * @param epsilon the epsilon parameter
-	 * @param minPts  the minPts parameter
 	 */
-	private void update(List<KNNPoint> neighbors,
-			DoubleArrayOPTICS centerObject, PriorityQueue<DoubleArrayOPTICS> orderSeeds, int minPts, double epsilon) {
+	private void update(DoubleArrayOPTICS centerObject, int neighborCount, List<DoubleArray> points,
+			PriorityQueue<DoubleArrayOPTICS> orderSeeds) {
 		double cDist = centerObject.core_distance;
 
 		// FOR all object from neighbors DO:
-		for (KNNPoint object : neighbors) {
+		for (int i = 0; i < neighborCount; i++) {
 			// if the object has not been visited yet
-			DoubleArrayOPTICS objectOP = (DoubleArrayOPTICS) object.values;
+			DoubleArrayOPTICS objectOP = (DoubleArrayOPTICS) points.get(getNeighbor(centerObject, i));
 			if (objectOP.visited == false) {
-				double newRDistance = Math.max(cDist, distanceFunction
-						.calculateDistance(objectOP, centerObject));
+				double newRDistance = Math.max(cDist, getNeighborDistance(centerObject, i));
 
 				// if not already in orderSeeds
 				if (objectOP.reachabilityDistance == Double.POSITIVE_INFINITY) {
@@ -429,6 +515,19 @@ public class AlgoOPTICS {
 		writer.close();
 	}
 
+	/**
+	 * Set the number of threads used for finding the neighbors of points. If more than one
+	 * thread is used, the neighbors of all points are found in parallel before creating the
+	 * cluster ordering, which requires more memory. The result is the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Print statistics of the latest execution to System.out.
 	 */
@@ -32,6 +32,7 @@ import ca.pfv.spmf.patterns.cluster.DoubleArrayInstance;
 public class DoubleArrayOPTICS extends DoubleArrayInstance implements Comparable<DoubleArrayOPTICS>{
 	
 	boolean visited = false;
+	int pointId;  // the position of this point in the list of points
 	public double reachabilityDistance = Double.POSITIVE_INFINITY; // undefined
 	double core_distance = Double.POSITIVE_INFINITY;  // undefined
 
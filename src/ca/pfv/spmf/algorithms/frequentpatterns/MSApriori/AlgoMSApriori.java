@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import ca.pfv.spmf.algorithms.frequentpatterns.apriori.CandidateSupportCounter;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -76,6 +77,9 @@ public class AlgoMSApriori {
 	
 	/** Special parameter to set the maximum size of itemsets to be discovered */
 	int maxItemsetSize = Integer.MAX_VALUE;
+	
+	/** the number of threads used for counting the support of candidates */
+	private int threadCount = 1;
 
 	/**
 	 * Constructor
@@ -240,10 +244,23 @@ public class AlgoMSApriori {
 			Arrays.sort(transaction, itemComparator);  
 		}
 		
+		// copy the sorted transactions to arrays of int for counting the support of candidates
+		List<int[]> sortedDatabase = new ArrayList<int[]>(database.size());
+		for (Integer[] transaction : database) {
+			int[] items = new int[transaction.length];
+			for (int j = 0; j < transaction.length; j++) {
+				items[j] = transaction[j];
+			}
+			sortedDatabase.add(items);
+		}
+		database = null;
+		
 		if(maxItemsetSize >1){
 			// Now, the algorithm will discover itemset of size k > 1 starting from k=2
 			List<Itemset> level = null;
 			k = 2;
+			// the object used to count the support of candidates
+			CandidateSupportCounter supportCounter = new CandidateSupportCounter(threadCount);
 			// Generate candidates and test them for k>1 by inscreasing k at each iteration
 			// until no candidates can be generated
 			do {
@@ -264,35 +281,7 @@ public class AlgoMSApriori {
 	
 				// We scan the database one time to calculate the support
 				// of each candidates and keep those with higher suport.
-				
-				// for each transaction
-				for (Integer[] transaction : database) {
-					// for each candidate
-					loopCand: for (Itemset candidate : candidatesK) {
-						// We will check if the candidate is contained in the transaction by
-						// looking for each item one by one starting from pos =0.
-						int pos = 0;
-						// for each item in the transaction
-						for (int item : transaction) {
-							// if we have found the item at position pos
-							if (item == candidate.get(pos)) {
-								// search the next item from the candidate
-								pos++;
-								// if all items have been found
-								if (pos == candidate.size()) {
-									// then increase the support count of the candidate
-									candidate.increaseTransactionCount();
-									continue loopCand;
-								}
-							// because of the total order, if the item at position pos is larger 
-							// than the current item in the transaction we can stop checking
-							// this candidate because it will not be contained in the transaction.
-							} else if (itemComparator.compare(item, candidate.get(pos)) > 0){   // pfv 
-								continue loopCand;
-							}
-						}
-					}
-				}
+				supportCounter.countSupport(candidatesK, sortedDatabase);
 	
 				// We build the level k+1 with all the candidates that have
 				// a support higher than MIS[0]
@@ -530,4 +519,17 @@ public class AlgoMSApriori {
 	public void setMaximumPatternLength(int length) {
 		this.maxItemsetSize = length;
 	}
+	
+	/**
+	 * Set the number of threads used for counting the support of candidates. If more than one
+	 * thread is used, the transactions are divided between the threads. The result is the same
+	 * as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
 }
@@ -15,9 +15,7 @@ package ca.pfv.spmf.algorithms.frequentpatterns.apriori;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -29,6 +27,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.input.SPMFFileTokenizer;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -92,6 +91,9 @@ public class AlgoApriori {
 	/** object to write the output file (if the user wants to write to a file) */
 	BufferedWriter writer = null;
 
+	/** the number of threads used for counting the support of candidates */
+	private int threadCount = 1;
+
 	/** maximum pattern length */
 	private int maxPatternLength = 10000; 
 	
@@ -142,29 +144,16 @@ public class AlgoApriori {
 		database = new ArrayList<int[]>(); // the database in memory (intially empty)
 		
 		// scan the database to load it into memory and count the support of each single item at the same time
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
+		SPMFFileTokenizer reader = new SPMFFileTokenizer(input);
 		// for each line (transactions) until the end of the file
-		while (((line = reader.readLine()) != null)) { 
-			// if the line is  a comment, is  empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true ||
-					line.charAt(0) == '#' || line.charAt(0) == '%'
-							|| line.charAt(0) == '@') {
-				continue;
-			}
-			// split the line according to spaces
-			String[] lineSplited = line.split(" ");
-			
+		// (comments, empty lines and metadata are skipped by the tokenizer)
+		while (reader.nextTransaction()) { 
 			// create an array of int to store the items in this transaction
-			int transaction[] = new int[lineSplited.length];
+			int transaction[] = reader.copyItems();
 			
 			// for each item in this line (transaction)
-			for (int i=0; i< lineSplited.length; i++) { 
-				// transform this item from a string to an integer
-				Integer item = Integer.parseInt(lineSplited[i]);
-				// store the item in the memory representation of the database
-				transaction[i] = item;
+			for (int i=0; i< transaction.length; i++) { 
+				Integer item = transaction[i];
 				// increase the support count
 				Integer count = mapItemCount.get(item);
 				if (count == null) {
@@ -230,6 +219,8 @@ public class AlgoApriori {
 		// The loop will stop when no candidates can be generated.
 		List<Itemset> level = null;
 		k = 2;
+		// the object used to count the support of candidates
+		CandidateSupportCounter supportCounter = new CandidateSupportCounter(threadCount);
 		do{
 			// we check the memory usage
 			MemoryLogger.getInstance().checkMemory();
@@ -250,42 +241,7 @@ public class AlgoApriori {
 
 			// We scan the database one time to calculate the support
 			// of each candidates and keep those with higher suport.
-			// For each transaction:
-			for(int[] transaction: database){
-				// NEW OPTIMIZATION 2013: Skip transactions shorter than k!
-				if(transaction.length < k) {
-//					System.out.println("test");
-					continue;
-				}
-				// END OF NEW OPTIMIZATION
-				
-				// for each candidate:
-	 loopCand:	for(Itemset candidate : candidatesK){
-		 			// a variable that will be use to check if 
-		 			// all items of candidate are in this transaction
-					int pos = 0;
-					// for each item in this transaction
-					for(int item: transaction){
-						// if the item correspond to the current item of candidate
-						if(item == candidate.itemset[pos]){
-							// we will try to find the next item of candidate next
-							pos++;
-							// if we found all items of candidate in this transaction
-							if(pos == candidate.itemset.length){
-								// we increase the support of this candidate
-								candidate.support++;
-								continue loopCand;
-							}
-					    // Because of lexical order, we don't need to 
-						// continue scanning the transaction if the current item
-						// is larger than the one that we search  in candidate.
-						}else if(item > candidate.itemset[pos]){
-							continue loopCand;
-						}
-						
-					}
-				}
-			}
+			supportCounter.countSupport(candidatesK, database);
 
 			// We build the level k+1 with all the candidates that have
 			// a support higher than the minsup threshold.
@@ -496,4 +452,17 @@ public class AlgoApriori {
 	public void setMaximumPatternLength(int length) {
 		maxPatternLength = length;
 	}
+	
+	/**
+	 * Set the number of threads used for counting the support of candidates. If more than one
+	 * thread is used, the transactions are divided between the threads. The result is the same
+	 * as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
 }
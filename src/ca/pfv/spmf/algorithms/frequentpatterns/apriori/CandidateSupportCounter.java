@@ -0,0 +1,302 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.apriori;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+/**
+ * This class counts the support of the candidates of size k generated by
+ * the Apriori algorithm and its variations (AprioriClose, AprioriRare, AprioriInverse
+ * and MSApriori) by scanning a transaction database.
+ * <br/><br/>
+ *
+ * The candidates are first inserted in a prefix trie stored in arrays. Then, for each transaction,
+ * the trie is traversed using only the items of that transaction, so that each transaction is
+ * compared only with the candidates that share a prefix with it, rather than with every candidate.
+ * <br/><br/>
+ *
+ * The items of a transaction and of the candidates must be sorted according to the same
+ * total order (this order does not need to be the lexical order). If more than one thread is used,
+ * the transactions are divided into as many parts as there are threads, each part is counted
+ * with its own array of support counts, and the arrays are then added together.
+ *
+ * @see AlgoApriori
+ * @author Philippe Fournier-Viger
+ */
+public class CandidateSupportCounter {
+
+	/** a transaction database smaller than this number of transactions is always scanned by a single thread */
+	private static final int MIN_TRANSACTIONS_PER_THREAD = 1000;
+
+	/** the number of threads used for counting (1 = serial execution) */
+	private final int threadCount;
+
+	// the size of the candidates that are currently counted
+	private int k;
+
+	// THE PREFIX TRIE. The root is node 0. The children of a node are
+	// consecutive nodes, sorted by item.
+	// the item of each node
+	private int[] nodeItem;
+	// the first child of each node
+	private int[] firstChild;
+	// the number of children of each node
+	private int[] childCount;
+	// for a node at depth k, the position of the candidate in the list of candidates
+	private int[] candidateOfNode;
+	// the number of nodes in the trie
+	private int nodeCount;
+
+	/**
+	 * Constructor
+	 * @param threadCount the number of threads used for counting the support of candidates
+	 */
+	public CandidateSupportCounter(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Scan a database to count the support of some candidates. The support of each candidate
+	 * is increased by the number of transactions containing it.
+	 * @param candidates the candidates (they should all have the same size)
+	 * @param database the transactions, where the items are sorted according to the same
+	 *            total order as the items of candidates
+	 */
+	public void countSupport(List<Itemset> candidates, List<int[]> database) {
+		if(candidates.isEmpty()) {
+			return;
+		}
+		// build the trie
+		k = candidates.get(0).size();
+		buildTrie(candidates);
+
+		// count the support of candidates
+		int[] supports;
+		int partCount = Math.min(threadCount, database.size() / MIN_TRANSACTIONS_PER_THREAD);
+		if(partCount <= 1) {
+			supports = new int[candidates.size()];
+			countTransactions(database, 0, database.size(), supports);
+		}else {
+			supports = countInParallel(candidates.size(), database, partCount);
+		}
+
+		// update the support of the candidates
+		for(int i = 0; i < supports.length; i++) {
+			candidates.get(i).support += supports[i];
+		}
+
+		// release the memory used by the trie
+		nodeItem = null;
+		firstChild = null;
+		childCount = null;
+		candidateOfNode = null;
+	}
+
+	/**
+	 * Count the support of candidates by dividing the transactions between several threads.
+	 * @param candidateCount the number of candidates
+	 * @param database the transactions
+	 * @param partCount the number of parts of the database (one per thread)
+	 * @return the support of each candidate
+	 */
+	private int[] countInParallel(final int candidateCount, final List<int[]> database, int partCount) {
+		// create a task for each part of the database, with its own array of support counts
+		List<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>(partCount);
+		for(int part = 0; part < partCount; part++) {
+			final int start = (int) ((long) database.size() * part / partCount);
+			final int end = (int) ((long) database.size() * (part + 1) / partCount);
+			tasks.add(new Callable<int[]>() {
+				public int[] call() {
+					int[] supports = new int[candidateCount];
+					countTransactions(database, start, end, supports);
+					return supports;
+				}
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(partCount);
+		try {
+			// add the support counts of all parts together
+			int[] supports = new int[candidateCount];
+			for(Future<int[]> future : pool.invokeAll(tasks)) {
+				int[] partSupports = future.get();
+				for(int i = 0; i < candidateCount; i++) {
+					supports[i] += partSupports[i];
+				}
+			}
+			return supports;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The support counting was interrupted", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Count the candidates contained in some transactions.
+	 * @param database the transactions
+	 * @param start the position of the first transaction
+	 * @param end the position after the last transaction
+	 * @param supports the support counts to be updated (one per candidate)
+	 */
+	private void countTransactions(List<int[]> database, int start, int end, int[] supports) {
+		for(int i = start; i < end; i++) {
+			int[] transaction = database.get(i);
+			// a transaction shorter than k cannot contain a candidate
+			if(transaction.length >= k) {
+				countTransaction(transaction, 0, 0, 0, supports);
+			}
+		}
+	}
+
+	/**
+	 * Recursively find the candidates contained in a transaction, by following the
+	 * paths of the trie that match items of the transaction.
+	 * @param transaction the transaction
+	 * @param node the current node of the trie
+	 * @param depth the depth of the node (the number of items of the prefix)
+	 * @param from the position of the first item of the transaction that can extend the prefix
+	 * @param supports the support counts to be updated
+	 */
+	private void countTransaction(int[] transaction, int node, int depth, int from, int[] supports) {
+		int childStart = firstChild[node];
+		int childEnd = childStart + childCount[node];
+		// the last position of the transaction that leaves enough items to complete a candidate
+		int lastPosition = transaction.length - (k - depth);
+		for(int pos = from; pos <= lastPosition; pos++) {
+			// binary search for a child having the current item
+			int item = transaction[pos];
+			int low = childStart;
+			int high = childEnd - 1;
+			while(low <= high) {
+				int middle = (low + high) >>> 1;
+				int middleItem = nodeItem[middle];
+				if(middleItem < item) {
+					low = middle + 1;
+				}else if(middleItem > item) {
+					high = middle - 1;
+				}else {
+					// if the child is a leaf, the transaction contains that candidate
+					if(depth + 1 == k) {
+						supports[candidateOfNode[middle]]++;
+					}else {
+						countTransaction(transaction, middle, depth + 1, pos + 1, supports);
+					}
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Build the prefix trie containing some candidates
+	 * @param candidates the candidates
+	 */
+	private void buildTrie(final List<Itemset> candidates) {
+		// sort the positions of the candidates by lexical order so that
+		// the candidates having the same prefix are consecutive
+		Integer[] order = new Integer[candidates.size()];
+		for(int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer o1, Integer o2) {
+				int[] itemset1 = candidates.get(o1).itemset;
+				int[] itemset2 = candidates.get(o2).itemset;
+				for(int i = 0; i < itemset1.length; i++) {
+					if(itemset1[i] != itemset2[i]) {
+						return itemset1[i] < itemset2[i] ? -1 : 1;
+					}
+				}
+				return 0;
+			}
+		});
+
+		// there are at most k nodes per candidate, plus the root
+		int maxNodeCount = candidates.size() * k + 1;
+		nodeItem = new int[maxNodeCount];
+		firstChild = new int[maxNodeCount];
+		childCount = new int[maxNodeCount];
+		candidateOfNode = new int[maxNodeCount];
+		nodeCount = 1;
+		buildNode(candidates, order, 0, 0, order.length, 0);
+	}
+
+	/**
+	 * Create the children of a node of the trie.
+	 * @param candidates the candidates
+	 * @param order the positions of the candidates, in lexical order
+	 * @param node the node
+	 * @param start the first candidate (in the lexical order) having the prefix of that node
+	 * @param end the position after the last candidate having that prefix
+	 * @param depth the depth of the node
+	 */
+	private void buildNode(List<Itemset> candidates, Integer[] order, int node, int start, int end, int depth) {
+		// count the number of different items at position "depth" of the candidates
+		int count = 0;
+		int previousItem = 0;
+		for(int i = start; i < end; i++) {
+			int item = candidates.get(order[i]).itemset[depth];
+			if(count == 0 || item != previousItem) {
+				count++;
+				previousItem = item;
+			}
+		}
+
+		// create the children as consecutive nodes
+		int firstNode = nodeCount;
+		firstChild[node] = firstNode;
+		childCount[node] = count;
+		nodeCount += count;
+
+		// then create the subtree of each child
+		int child = firstNode;
+		int childStart = start;
+		while(childStart < end) {
+			int item = candidates.get(order[childStart]).itemset[depth];
+			int childEnd = childStart + 1;
+			while(childEnd < end && candidates.get(order[childEnd]).itemset[depth] == item) {
+				childEnd++;
+			}
+			nodeItem[child] = item;
+			if(depth + 1 == k) {
+				candidateOfNode[child] = order[childStart];
+			}else {
+				buildNode(candidates, order, child, childStart, childEnd, depth + 1);
+			}
+			child++;
+			childStart = childEnd;
+		}
+	}
+}
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.algorithms.frequentpatterns.apriori.CandidateSupportCounter;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -86,6 +87,9 @@ public class AlgoAprioriInverse {
 
 	// object to write the output file (if the user wants to write to a file)
 	BufferedWriter writer = null; 
+
+	/** the number of threads used for counting the support of candidates */
+	private int threadCount = 1;
 	
 	/**
 	 * Default constructor
@@ -221,6 +225,8 @@ public class AlgoAprioriInverse {
 		// The loop will stop when no candidates can be generated.
 		List<Itemset> level = null;
 		k = 2;
+		// the object used to count the support of candidates
+		CandidateSupportCounter supportCounter = new CandidateSupportCounter(threadCount);
 		do{
 			// we check the memory usage
 			MemoryLogger.getInstance().checkMemory();
@@ -241,35 +247,7 @@ public class AlgoAprioriInverse {
 
 			// We scan the database one time to calculate the support
 			// of each candidates and keep those with higher suport.
-			// For each transaction:
-			for(int[] transaction: database){
-				// for each candidate:
-	 loopCand:	for(Itemset candidate : candidatesK){
-		 			// a variable that will be use to check if 
-		 			// all items of candidate are in this transaction
-					int pos = 0;
-					// for each item in this transaction
-					for(int item: transaction){
-						// if the item correspond to the current item of candidate
-						if(item == candidate.itemset[pos]){
-							// we will try to find the next item of candidate next
-							pos++;
-							// if we found all items of candidate in this transaction
-							if(pos == candidate.itemset.length){
-								// we increase the support of this candidate
-								candidate.support++;
-								continue loopCand;
-							}
-					    // Because of lexical order, we don't need to 
-						// continue scanning the transaction if the current item
-						// is larger than the one that we search  in candidate.
-						}else if(item > candidate.itemset[pos]){
-							continue loopCand;
-						}
-						
-					}
-				}
-			}
+			supportCounter.countSupport(candidatesK, database);
 
 			// We build the level k+1 with all the candidates that have
 			// a support higher than the minsup threshold.
@@ -482,4 +460,17 @@ public class AlgoAprioriInverse {
 		System.out.println(" Total time ~ " + (endTimestamp - startTimestamp) + " ms");
 		System.out.println("===================================================");
 	}
+	
+	/**
+	 * Set the number of threads used for counting the support of candidates. If more than one
+	 * thread is used, the transactions are divided between the threads. The result is the same
+	 * as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
 }
@@ -21,15 +21,13 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.bitsets.BitsetPool;
+import ca.pfv.spmf.datastructures.bitsets.Bitsets;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
@@ -39,6 +37,10 @@ import ca.pfv.spmf.tools.MemoryLogger;
 /**
  * This is a new implementation of the CHARM algorithm (2014) that relies on bitsets to implement
  * tidsets.
+ * The bitsets are arrays of long (see {@link Bitsets}). The intersection of two tidsets and the
+ * calculation of its support are done in a single pass, which is stopped as soon as the itemset
+ * cannot be frequent. The bitsets of the equivalence classes are reused from one equivalence class
+ * to the next one of the same depth (see {@link BitsetPool}).
  *  
  * Charm was proposed by ZAKI (2001).
  * <br/><br/>
@@ -62,7 +64,7 @@ import ca.pfv.spmf.tools.MemoryLogger;
 public class AlgoCharm_Bitset {
 
 	/** relative minimum support **/
-	private int minsupRelative;  
+	int minsupRelative;  
 	/** the transaction database **/
 	protected TransactionDatabase database; 
 
@@ -98,6 +100,9 @@ public class AlgoCharm_Bitset {
 	
 	/** if true, transaction identifiers of each pattern will be shown*/
 	boolean showTransactionIdentifiers = false;
+	
+	/** the bitsets that are reused for storing the tidsets of equivalence classes */
+	BitsetPool bitsetPool;
 
 	
 	/**
@@ -148,13 +153,28 @@ public class AlgoCharm_Bitset {
 		// by the database size
 		this.minsupRelative = (int) Math.ceil(minsup * database.size());
 
-		// (1) First database pass : calculate tidsets of each item.
-		// This map will contain the tidset of each item
-		// Key: item   Value :  tidset
-		final Map<Integer, BitSetSupport> mapItemTIDS = new HashMap<Integer, BitSetSupport>();
-		// for each transaction
+		// Convert the transactions to arrays of integers and find the largest item
+		int[][] transactions = new int[database.size()][];
 		int maxItemId = 0;
-		maxItemId = calculateSupportSingleItems(database, mapItemTIDS);
+		for (int i = 0; i < database.size(); i++) {
+			List<Integer> transaction = database.getTransactions().get(i);
+			int[] array = new int[transaction.size()];
+			for (int j = 0; j < array.length; j++) {
+				array[j] = transaction.get(j);
+				if (array[j] > maxItemId) {
+					maxItemId = array[j];
+				}
+			}
+			transactions[i] = array;
+		}
+		
+		// Create the pool of bitsets for the tidsets of equivalence classes
+		bitsetPool = new BitsetPool(database.size());
+
+		// (1) First database pass : calculate tidsets of each item.
+		// This array will contain the tidset of each item (or null if an item does not appear)
+		final BitSetSupport[] itemTidsets = new BitSetSupport[maxItemId + 1];
+		calculateSupportSingleItems(transactions, itemTidsets);
 
 		// If the user chose to use the triangular matrix optimization
 		// for counting the support of itemsets of size 2.
@@ -163,16 +183,14 @@ public class AlgoCharm_Bitset {
 			matrix = new TriangularMatrix(maxItemId + 1);
 			// for each transaction, take each itemset of size 2,
 			// and update the triangular matrix.
-			for (List<Integer> itemset : database.getTransactions()) {
-				Object[] array = itemset.toArray();
+			for (int[] transaction : transactions) {
 				// for each item i in the transaction
-				for (int i = 0; i < itemset.size(); i++) {
-					Integer itemI = (Integer) array[i];
+				for (int i = 0; i < transaction.length; i++) {
+					int itemI = transaction[i];
 					// compare with each other item j in the same transaction
-					for (int j = i + 1; j < itemset.size(); j++) {
-						Integer itemJ = (Integer) array[j];
+					for (int j = i + 1; j < transaction.length; j++) {
 						// update the matrix count by 1 for the pair i, j
-						matrix.incrementCount(itemI, itemJ);
+						matrix.incrementCount(itemI, transaction[j]);
 					}
 				}
 			}
@@ -182,13 +200,11 @@ public class AlgoCharm_Bitset {
 		List<Integer> frequentItems = new ArrayList<Integer>();
 		
 		// for each item
-		for(Entry<Integer, BitSetSupport> entry : mapItemTIDS.entrySet()) {
+		for(int item = 0; item <= maxItemId; item++) {
 			// get the support and tidset of that item
-			BitSetSupport tidset = entry.getValue();
-			int support = tidset.support;
-			int item = entry.getKey();
+			BitSetSupport tidset = itemTidsets[item];
 			// if the item is frequent
-			if(support >= minsupRelative) {
+			if(tidset != null && tidset.support >= minsupRelative) {
 				// add the item to the list of frequent items
 				frequentItems.add(item);
 			}
@@ -199,7 +215,7 @@ public class AlgoCharm_Bitset {
 		Collections.sort(frequentItems, new Comparator<Integer>() {
 			@Override
 			public int compare(Integer arg0, Integer arg1) {
-				return mapItemTIDS.get(arg0).support - mapItemTIDS.get(arg1).support;  
+				return itemTidsets[arg0].support - itemTidsets[arg1].support;  
 			}}); 
 		
 		// Now we will combine each pairs of single items to generate equivalence classes
@@ -215,7 +231,7 @@ public class AlgoCharm_Bitset {
 			}
 
 			// We obtain the tidset and support of that item X
-			BitSetSupport tidsetX = mapItemTIDS.get(itemX);
+			BitSetSupport tidsetX = itemTidsets[itemX];
 			
 			// We create an itemset with the item X.
 			int[] itemsetX = new int[] {itemX};
@@ -263,24 +279,26 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 				}
 				
 				// We obtain the tidset of J.
-				BitSetSupport tidsetJ = mapItemTIDS.get(itemJ);
+				BitSetSupport tidsetJ = itemTidsets[itemJ];
 
 				// Calculate the tidset of itemset "X" + "J" by performing the intersection of 
-				// the tidsets of X and the tidset of J.
-				BitSetSupport bitsetSupportUnion = new BitSetSupport();
+				// the tidsets of X and the tidset of J. The tidset is stored in the
+				// next free bitset of the equivalence classes of depth 1.
+				long[] buffer = bitsetPool.getBitset(1, equivalenceClassItidsets.size());
+				BitSetSupport bitsetSupportUnion;
 				if(itemsetX.length == 1 && useTriangularMatrixOptimization) {
 					// If the triangular matrix optimization is used and X is a single item, then
 					// we perform the intersection but we do not calculate the support since
 					// it was already calculated using the triangular matrix
-					bitsetSupportUnion = performANDFirstTime(tidsetX, tidsetJ, supportIJ);
+					bitsetSupportUnion = performANDFirstTime(tidsetX, tidsetJ, supportIJ, buffer);
 				}else {
 					// Otherwise, we perform the intersection and calculate the support
 					// by calculating the cardinality of the resulting tidset.
-					bitsetSupportUnion = performAND(tidsetX, tidsetJ);
+					bitsetSupportUnion = performAND(tidsetX, tidsetJ, buffer);
 				}
 				
 				// if the union is infrequent, we don't need to consider it further
-				if(bitsetSupportUnion.support < minsupRelative) {
+				if(bitsetSupportUnion == null) {
 					continue;
 				}
 				
@@ -334,7 +352,7 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 			// Note that we only do that if the equivalence class contains at least an itemset.
 			if(equivalenceClassIitemsets.size() > 0) {
 				// call to recursive method
-				processEquivalenceClass(itemsetX, equivalenceClassIitemsets, equivalenceClassItidsets);
+				processEquivalenceClass(itemsetX, equivalenceClassIitemsets, equivalenceClassItidsets, 1);
 			}
 			
 			// Save the itemset X  with its support (can be obtained from its tidset.
@@ -357,33 +375,31 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	}
 
 
-	int calculateSupportSingleItems(TransactionDatabase database,
-			final Map<Integer, BitSetSupport> mapItemTIDS) {
-		int maxItemId = 0;
-		for (int i = 0; i < database.size(); i++) {
+	/**
+	 * This method scans the database to calculate the support of each single item
+	 * @param transactions the transactions of the database
+	 * @param itemTidsets  an array to store the tidset corresponding to each item
+	 */
+	void calculateSupportSingleItems(int[][] transactions, BitSetSupport[] itemTidsets) {
+		for (int i = 0; i < transactions.length; i++) {
 			// Add the transaction id to the set of all transaction ids
 			// for each item in that transaction
 			
 			// For each item
-			for (Integer item : database.getTransactions().get(i)) {
+			for (int item : transactions[i]) {
 				// Get the current tidset of that item and its support
-				BitSetSupport tids = mapItemTIDS.get(item);
+				BitSetSupport tids = itemTidsets[item];
 				// If no tidset, then we create one
 				if(tids == null){
-					tids = new BitSetSupport();
-					mapItemTIDS.put(item, tids);
-					// we remember the largest item seen until now
-					if (item > maxItemId) {
-						maxItemId = item;
-					}
+					tids = new BitSetSupport(bitsetPool.newBitset());
+					itemTidsets[item] = tids;
 				}
 				// we add the current transaction id to the tidset of the item
-				tids.bitset.set(i);
+				Bitsets.set(tids.bitset, i);
 				// we increase the support of that item
 				tids.support++;
 			}
 		}
-		return maxItemId;
 	}
 
 	/**
@@ -392,35 +408,34 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	 * @param tidsetJ the second tidset
 	 * @param supportIJ the support of the intersection (already known) so it does not need to 
 	 *                  be calculated again
+	 * @param buffer the bitset where the resulting tidset is stored
 	 * @return  the resulting tidset and its support
 	 */
 	BitSetSupport performANDFirstTime(BitSetSupport tidsetI,
-			BitSetSupport tidsetJ, int supportIJ) {
-		// Create the new tidset and perform the logical AND to intersect the tidset
-		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
-		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
+			BitSetSupport tidsetJ, int supportIJ, long[] buffer) {
+		// Perform the logical AND to intersect the tidset
+		Bitsets.and(tidsetI.bitset, tidsetJ.bitset, buffer);
 		// set the support as the support provided as parameter
-		bitsetSupportIJ.support = supportIJ;
-		// return the new tidset
-		return bitsetSupportIJ;
+		return new BitSetSupport(buffer, supportIJ);
 	}
 
 	/**
 	 * Perform the intersection of two tidsets for itemsets containing more than one item.
+	 * The intersection is stopped as soon as the resulting itemset cannot be frequent.
 	 * @param tidsetI the first tidset
 	 * @param tidsetJ the second tidset
-	 * @return the resulting tidset and its support
+	 * @param buffer the bitset where the resulting tidset is stored
+	 * @return the resulting tidset and its support or null if the resulting itemset is infrequent
 	 */
-	BitSetSupport performAND(BitSetSupport tidsetI,	BitSetSupport tidsetJ) {
-		// Create the new tidset and perform the logical AND to intersect the tidset
-		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
-		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
-		// set the support as the cardinality of the new tidset
-		bitsetSupportIJ.support = bitsetSupportIJ.bitset.cardinality();
+	BitSetSupport performAND(BitSetSupport tidsetI,	BitSetSupport tidsetJ, long[] buffer) {
+		// Perform the logical AND to intersect the tidset, and calculate the support
+		// as the cardinality of the new tidset
+		int support = Bitsets.and(tidsetI.bitset, tidsetI.support, tidsetJ.bitset, buffer, minsupRelative);
+		if(support == -1) {
+			return null;
+		}
 		// return the new tidset
-		return bitsetSupportIJ;
+		return new BitSetSupport(buffer, support);
 	}
 	
 	/**
@@ -428,10 +443,11 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	 * @param prefix  the prefix of all itemsets of the current equivalence class
 	 * @param equivalenceClassItemsets  the list of last items of itemsets of the current equivalence class
 	 * @param equivalenceClassTidsets the list of tidsets of itemsets of the current equivalence class
+	 * @param depth the depth of the current equivalence class in the search tree
 	 * @throws IOException 
 	 */
 	void processEquivalenceClass(int[] prefix, List<int[]> equivalenceClassItemsets,
-			List<BitSetSupport> equivalenceClassTidsets) throws IOException {
+			List<BitSetSupport> equivalenceClassTidsets, int depth) throws IOException {
 		
 		// If there is only on itemset in equivalence class
 		if(equivalenceClassItemsets.size() == 1) {
@@ -457,10 +473,14 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 			BitSetSupport tidsetJ = equivalenceClassTidsets.get(1);
 			
 			// We calculate the tidset of the itemset resulting from the union of
-			// the first itemset and the second itemset.
-			BitSetSupport bitsetSupportIJ = performAND(tidsetI, tidsetJ);
+			// the first itemset and the second itemset (the tidset is only needed for saving
+			// the itemset, so it is stored in a bitset of the next depth, which is not used yet).
+			BitSetSupport bitsetSupportIJ = performAND(tidsetI, tidsetJ, bitsetPool.getBitset(depth + 1, 0));
+			// the support of the itemset, or -1 if it is infrequent
+			int supportIJ = -1;
 			// If the itemset is frequent
-			if(bitsetSupportIJ.support >= minsupRelative) {
+			if(bitsetSupportIJ != null) {
+				supportIJ = bitsetSupportIJ.support;
 				// we attempt to save the itemset  prefix + itemsetI + itemsetJ
 				int[] suffixIJ = ArraysAlgos.concatenate(itemsetI, itemsetJ);
 				save(prefix, suffixIJ, bitsetSupportIJ);
@@ -468,12 +488,12 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 			
 			// If the itemset prefix+I does not have the same support as prefix+I+J,
 			// then prefix+I may be closed, so we attempt to save it.
-			if(bitsetSupportIJ.support != tidsetI.support) {
+			if(supportIJ != tidsetI.support) {
 				save(prefix, itemsetI, tidsetI);
 			}
 			// If the itemset prefix+J does not have the same support as prefix+I+J,
 			// then prefix+J may be closed, so we attempt to save it.
-			if(bitsetSupportIJ.support != tidsetJ.support) {
+			if(supportIJ != tidsetJ.support) {
 				save(prefix, itemsetJ, tidsetJ);
 			}
 			return;
@@ -511,13 +531,14 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 				// Get the tidset of J.
 				BitSetSupport tidsetJ = equivalenceClassTidsets.get(j);
 				 
-				// Calculate the tidset intersection of prefix + X + J 
-				BitSetSupport bitsetSupportUnion = new BitSetSupport();
-				bitsetSupportUnion = performAND(tidsetX, tidsetJ);
+				// Calculate the tidset intersection of prefix + X + J. The tidset is stored
+				// in the next free bitset of the equivalence classes of the next depth.
+				long[] buffer = bitsetPool.getBitset(depth + 1, equivalenceClassItidsets.size());
+				BitSetSupport bitsetSupportUnion = performAND(tidsetX, tidsetJ, buffer);
 			
 				// If prefix + X + J  is infrequent, then we don't need
 				// to consider it anymore
-				if(bitsetSupportUnion.support < minsupRelative) {
+				if(bitsetSupportUnion == null) {
 					continue;
 				}
 				
@@ -567,7 +588,7 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 			// Note that we only do that if the equivalence class contains at least an itemset
 			if(equivalenceClassIitemsets.size()>0) {
 				int[] newPrefix = ArraysAlgos.concatenate(prefix, itemsetX);
-				processEquivalenceClass(newPrefix, equivalenceClassIitemsets, equivalenceClassItidsets);
+				processEquivalenceClass(newPrefix, equivalenceClassIitemsets, equivalenceClassItidsets, depth + 1);
 			}
 			// Finally, we attempt to save the itemset prefix+X since it may be a closed itemset.
 			save(prefix, itemsetX, tidsetX);
@@ -617,8 +638,26 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 	 * of a bitset in Java is very expensive.
 	 */
 	public class BitSetSupport{
-		BitSet bitset = new BitSet();
+		long[] bitset;
 		int support;
+		
+		/**
+		 * Constructor
+		 * @param bitset the bitset (an array of long, see {@link Bitsets})
+		 */
+		BitSetSupport(long[] bitset) {
+			this.bitset = bitset;
+		}
+		
+		/**
+		 * Constructor
+		 * @param bitset the bitset (an array of long, see {@link Bitsets})
+		 * @param support the cardinality of the bitset
+		 */
+		BitSetSupport(long[] bitset, int support) {
+			this.bitset = bitset;
+			this.support = support;
+		}
 	}
 	
 	/**
@@ -656,16 +695,17 @@ loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
 			// if the result should be saved to memory
 			if (writer == null) {
 				// save it to memory with its tidset
-				Itemset itemsetWithTidset = new Itemset(prefixSuffix, tidset.bitset, tidset.support);
+				// (the tidset is copied because the bitsets of equivalence classes are reused)
+				Itemset itemsetWithTidset = new Itemset(prefixSuffix, Bitsets.toBitSet(tidset.bitset), tidset.support);
 				closedItemsets.addItemset(itemsetWithTidset, itemset.size());
 			} else {
 				// otherwise if the result should be saved to a file,
 				// then write it to the output file
 				writer.write(itemset.toString() + " #SUP: " + itemset.support);
 				if(showTransactionIdentifiers) {
-					BitSet bitset = tidset.bitset;
+					long[] bitset = tidset.bitset;
 		        	writer.append(" #TID:");
-		        	for (int tid = bitset.nextSetBit(0); tid != -1; tid = bitset.nextSetBit(tid + 1)) {
+		        	for (int tid = Bitsets.nextSetBit(bitset, 0); tid != -1; tid = Bitsets.nextSetBit(bitset, tid + 1)) {
 		        		writer.append(" " + tid); 
 		        	}
 				}
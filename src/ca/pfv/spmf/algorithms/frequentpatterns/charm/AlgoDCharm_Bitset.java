@@ -18,10 +18,9 @@ package ca.pfv.spmf.algorithms.frequentpatterns.charm;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.BitSet;
-import java.util.Map;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.bitsets.Bitsets;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
@@ -79,62 +78,56 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset{
 	
 	/**
 	 * This method scans the database to calculate the support of each single item
-	 * @param database the transaction database
-	 * @param mapItemTIDS  a map to store the tidset corresponding to each item
-	 * @return the maximum item id appearing in this database
+	 * @param transactions the transactions of the database
+	 * @param itemTidsets  an array to store the diffset corresponding to each item
 	 */
-	int calculateSupportSingleItems(TransactionDatabase database,
-			final Map<Integer, BitSetSupport> mapItemTIDS) {
+	void calculateSupportSingleItems(int[][] transactions, BitSetSupport[] itemTidsets) {
 		
 		// (1) First database pass : calculate diffsets of each item.
-		int maxItemId = 0;
 		// for each transaction
-		for (int i = 0; i < database.size(); i++) {
+		for (int i = 0; i < transactions.length; i++) {
 			// Add the transaction id to the set of all transaction ids
 			// for each item in that transaction
 			
 			// For each item
-			for (Integer item : database.getTransactions().get(i)) {
+			for (int item : transactions[i]) {
 				// Get the current tidset of that item
-				BitSetSupport tids = mapItemTIDS.get(item);
+				BitSetSupport tids = itemTidsets[item];
 				// If none, then we create one
 				if(tids == null){
-					tids = new BitSetSupport();
+					tids = new BitSetSupport(bitsetPool.newBitset());
 					// For a new item, we sets all the bits of its diffset to true
-					tids.bitset.set(0, database.size(), true);
-					mapItemTIDS.put(item, tids);
-					// we remember the largest item seen until now
-					if (item > maxItemId) {
-						maxItemId = item;
-					}
+					Bitsets.setFirstBits(tids.bitset, transactions.length);
+					itemTidsets[item] = tids;
 				}
 				//We set to false the bit corresponding to this transaction
 				// in the diffset of that item
-				tids.bitset.set(i, false);
+				Bitsets.clear(tids.bitset, i);
 				// we increase the support of that item
 				tids.support++;
 			}
 		}	
-		return maxItemId;
 	}
 
 	
 	/**
 	 * Perform the intersection of two diffsets for itemsets containing more than one item.
+	 * The calculation is stopped as soon as the resulting itemset cannot be frequent.
 	 * @param tidsetI the first diffset
 	 * @param tidsetJ the second diffset
-	 * @return the resulting diffset and its support
+	 * @param buffer the bitset where the resulting diffset is stored
+	 * @return the resulting diffset and its support or null if the resulting itemset is infrequent
 	 */
-	 BitSetSupport performAND(BitSetSupport tidsetI, BitSetSupport tidsetJ) {
-		// Create the new diffset 
-		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		// Calculate the diffset 
-		bitsetSupportIJ.bitset = (BitSet)tidsetJ.bitset.clone();
-		bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
-		// Calculate the support
-		bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
-		// return the new diffset
-		return bitsetSupportIJ;
+	BitSetSupport performAND(BitSetSupport tidsetI, BitSetSupport tidsetJ, long[] buffer) {
+		// Calculate the diffset. Its cardinality should not be more than support(I) - minsup
+		// for the itemset to be frequent.
+		int cardinality = Bitsets.andNot(tidsetJ.bitset, tidsetI.bitset, buffer, 
+				tidsetI.support - minsupRelative);
+		if(cardinality == -1) {
+			return null;
+		}
+		// Calculate the support and return the new diffset
+		return new BitSetSupport(buffer, tidsetI.support - cardinality);
 	}
 	
 	/**
@@ -143,19 +136,15 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset{
 	 * @param tidsetJ the second diffset
 	 * @param supportIJ the support of the intersection (already known) so it does not need to 
 	 *                  be calculated again
+	 * @param buffer the bitset where the resulting diffset is stored
 	 * @return  the resulting diffset and its support
 	 */
 	BitSetSupport performANDFirstTime(BitSetSupport tidsetI,
-			BitSetSupport tidsetJ, int supportIJ) {
-		// Create the new diffset and perform the logical AND to intersect the diffsets
-		BitSetSupport bitsetSupportIJ = new BitSetSupport();
+			BitSetSupport tidsetJ, int supportIJ, long[] buffer) {
 		//Calculate the diffset
-		bitsetSupportIJ.bitset = (BitSet)tidsetJ.bitset.clone();
-		bitsetSupportIJ.bitset.andNot(tidsetI.bitset);
-		// Calculate the support
-		bitsetSupportIJ.support = tidsetI.support - bitsetSupportIJ.bitset.cardinality();
-		// return the new tidset
-		return bitsetSupportIJ;
+		Bitsets.andNot(tidsetJ.bitset, tidsetI.bitset, buffer, Integer.MAX_VALUE);
+		// return the new diffset with the support that is already known
+		return new BitSetSupport(buffer, supportIJ);
 	}
 
 	/**
@@ -202,9 +191,9 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset{
 				// then write it to the output file
 				writer.write(itemset.toString() + " #SUP: " + itemset.support);
 				if(showTransactionIdentifiers) {
-					BitSet bitset = tidset.bitset;
+					long[] bitset = tidset.bitset;
 		        	writer.append(" #TID:");
-		        	for (int tid = bitset.nextSetBit(0); tid != -1; tid = bitset.nextSetBit(tid + 1)) {
+		        	for (int tid = Bitsets.nextSetBit(bitset, 0); tid != -1; tid = Bitsets.nextSetBit(bitset, tid + 1)) {
 		        		writer.append(" " + tid); 
 		        	}
 				}
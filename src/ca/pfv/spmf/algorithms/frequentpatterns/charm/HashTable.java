@@ -21,6 +21,7 @@ import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 
+import ca.pfv.spmf.datastructures.bitsets.Bitsets;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
@@ -117,6 +118,34 @@ class HashTable {
 		return (hashcode % table.length);
 	}
 	
+	/**
+	 * Calculate the hashcode of an itemset as the sum of the tids of its tidset,
+	 * modulo the internal array length.
+	 * @param tidset the tidset of the itemset, as a bitset stored in an array of long
+	 *   (see {@link Bitsets})
+	 * @return the hashcode (an integer)
+	 */
+	public int hashCode(long[] tidset) {
+		int hashcode = 0;
+		// for each word of the tidset
+		for (int i = 0; i < tidset.length; i++) {
+			long word = tidset[i];
+			// for each tid in that word, make the sum
+			while (word != 0) {
+				hashcode += (i << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		// If an integer overflow occurs and the hashcode is negative,
+		// then we make it positive.
+		if(hashcode < 0){
+			hashcode = 0 - hashcode;
+		}
+		// Finally the hashcode is obtained by performing the modulo 
+		// operation using the size of the internal array.
+		return (hashcode % table.length);
+	}
+	
 	/**
 	 * Calculate the hashcode of an itemset as the sum of the tids of its tidset,
 	 * modulo the internal array length.
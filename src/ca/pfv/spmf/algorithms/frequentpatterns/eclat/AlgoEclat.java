@@ -20,6 +20,7 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -32,6 +33,7 @@ import java.util.Set;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.ItemsetSink;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
  
@@ -79,6 +81,13 @@ public class AlgoEclat {
 	/** object to write the output file */
 	BufferedWriter writer = null; 
 	
+	/** the object receiving the patterns that are found, if the user want them
+	 to be passed to that object rather than kept into memory */
+	private ItemsetSink itemsetSink = null;
+	
+	/** buffer used to sort an itemset before it is passed to the ItemsetSink */
+	private int[] itemsetOutputBuffer = null;
+	
 	/** the number of patterns found */
 	protected int itemsetCount; 
 	
@@ -125,9 +134,13 @@ public class AlgoEclat {
 		itemsetBuffer = new int[BUFFERS_SIZE];
 		
 		// if the user want to keep the result into memory
-		if(output == null){
+		if(output == null && itemsetSink == null){
 			writer = null;
 			frequentItemsets =  new Itemsets("FREQUENT ITEMSETS");
+	    }else if(output == null){ // if the user want to pass the result to an ItemsetSink
+			writer = null;
+			frequentItemsets = null;
+			itemsetOutputBuffer = new int[BUFFERS_SIZE];
 	    }else{ // if the user want to save the result to a file
 	    	frequentItemsets = null;
 			writer = new BufferedWriter(new FileWriter(output)); 
@@ -562,8 +575,15 @@ public class AlgoEclat {
 	private void save(int[] prefix, int prefixLength, int suffixItem, Set<Integer> tidset, int support) throws IOException {
 		// increase the itemset count
 		itemsetCount++;
-		// if the result should be saved to memory
-		if(writer == null){
+		// if the result should be passed to an ItemsetSink
+		if(itemsetSink != null && writer == null){
+			// append the prefix with the suffix and sort items according to lexical ordering
+			System.arraycopy(prefix, 0, itemsetOutputBuffer, 0, prefixLength);
+			itemsetOutputBuffer[prefixLength] = suffixItem;
+			Arrays.sort(itemsetOutputBuffer, 0, prefixLength + 1);
+			itemsetSink.itemsetFound(itemsetOutputBuffer, prefixLength + 1, support);
+		}else if(writer == null){
+			// if the result should be saved to memory
 			// append the prefix with the suffix
 			int[] itemsetArray = new int[prefixLength+1];
 			System.arraycopy(prefix, 0, itemsetArray, 0, prefixLength);
@@ -605,8 +625,12 @@ public class AlgoEclat {
 	private void saveSingleItem(int item, Set<Integer> tidset, int support) throws IOException {
 		// increase the itemset count
 		itemsetCount++;
-		// if the result should be saved to memory
-		if(writer == null){
+		// if the result should be passed to an ItemsetSink
+		if(itemsetSink != null && writer == null){
+			itemsetOutputBuffer[0] = item;
+			itemsetSink.itemsetFound(itemsetOutputBuffer, 1, support);
+		}else if(writer == null){
+			// if the result should be saved to memory
 			// add it to the set of frequent itemsets
 			Itemset itemset = new Itemset(new int[] {item});
 			itemset.setAbsoluteSupport(support);
@@ -638,6 +662,16 @@ public class AlgoEclat {
 		this.showTransactionIdentifiers = showTransactionIdentifiers;
 	}
 
+	/**
+	 * Set an object that will receive each frequent itemset as soon as it is found, when
+	 * no output file path is given to runAlgorithm(). The itemsets are then not kept into
+	 * memory and runAlgorithm() returns null.
+	 * @param itemsetSink the object receiving the itemsets, or null to keep them into memory (default)
+	 */
+	public void setItemsetSink(ItemsetSink itemsetSink) {
+		this.itemsetSink = itemsetSink;
+	}
+
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 */
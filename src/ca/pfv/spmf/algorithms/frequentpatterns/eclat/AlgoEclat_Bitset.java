@@ -19,15 +19,18 @@ package ca.pfv.spmf.algorithms.frequentpatterns.eclat;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import ca.pfv.spmf.datastructures.bitsets.BitsetPool;
+import ca.pfv.spmf.datastructures.bitsets.Bitsets;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
@@ -37,6 +40,14 @@ import ca.pfv.spmf.tools.MemoryLogger;
 /**
  * This is a recent implementation of the ECLAT algorithm that uses bitsets to represent
  * tidsets.
+ * The bitsets are arrays of long (see {@link Bitsets}). The intersection of two tidsets and the
+ * calculation of its support are done in a single pass, which is stopped as soon as the itemset
+ * cannot be frequent. The bitsets of the equivalence classes are reused from one equivalence class
+ * to the next one of the same depth (see {@link BitsetPool}).
+ * <br/><br/>
+ * 
+ * Optionally, the equivalence classes of the first level (the itemsets starting
+ * with each frequent item) can be explored in parallel by several threads (see {@link #setThreadCount(int)}).
  *  
  * Eclat was proposed by ZAKI (2000).
  * <br/><br/>
@@ -60,7 +71,7 @@ import ca.pfv.spmf.tools.MemoryLogger;
 public class AlgoEclat_Bitset {
 
 	/** relative minimum support **/
-	private int minsupRelative;  
+	int minsupRelative;  
 	/** the transaction database **/
 	protected TransactionDatabase database; 
 
@@ -93,6 +104,16 @@ public class AlgoEclat_Bitset {
 	
 	/** Special parameter to set the maximum size of itemsets to be discovered */
 	int maxItemsetSize = Integer.MAX_VALUE;
+	
+	/** the bitsets that are reused for storing the tidsets of equivalence classes */
+	BitsetPool bitsetPool;
+	
+	/** number of threads used for exploring the search space (1 = serial execution) */
+	private int threadCount = 1;
+	
+	// If this object is a worker of the parallel mode, the buffer where the 
+	// itemsets are written. Otherwise, this variable is null.
+	private StringWriter taskOutput = null;
 
 
 	/**
@@ -142,11 +163,28 @@ public class AlgoEclat_Bitset {
 		// by the database size
 		this.minsupRelative = (int) Math.ceil(minsupp * database.size());
 
+		// Convert the transactions to arrays of integers and find the largest item
+		int[][] transactions = new int[database.size()][];
+		int maxItemId = 0;
+		for (int i = 0; i < database.size(); i++) {
+			List<Integer> transaction = database.getTransactions().get(i);
+			int[] array = new int[transaction.size()];
+			for (int j = 0; j < array.length; j++) {
+				array[j] = transaction.get(j);
+				if (array[j] > maxItemId) {
+					maxItemId = array[j];
+				}
+			}
+			transactions[i] = array;
+		}
+		
+		// Create the pool of bitsets for the tidsets of equivalence classes
+		bitsetPool = new BitsetPool(database.size());
+
 		// (1) First database pass : calculate tidsets of each item.
-		// This map will contain the tidset of each item
-		// Key: item   Value :  tidset
-		final Map<Integer, BitSetSupport> mapItemTIDS = new HashMap<Integer, BitSetSupport>();
-		int maxItemId = calculateSupportSingleItems(database,  mapItemTIDS);
+		// This array will contain the tidset of each item (or null if an item does not appear)
+		final BitSetSupport[] itemTidsets = new BitSetSupport[maxItemId + 1];
+		calculateSupportSingleItems(transactions, itemTidsets);
 
 		// If the user chose to use the triangular matrix optimization
 		// for counting the support of itemsets of size 2.
@@ -155,16 +193,14 @@ public class AlgoEclat_Bitset {
 			matrix = new TriangularMatrix(maxItemId + 1);
 			// for each transaction, take each itemset of size 2,
 			// and update the triangular matrix.
-			for (List<Integer> itemset : database.getTransactions()) {
-				Object[] array = itemset.toArray();
+			for (int[] transaction : transactions) {
 				// for each item i in the transaction
-				for (int i = 0; i < itemset.size(); i++) {
-					Integer itemI = (Integer) array[i];
+				for (int i = 0; i < transaction.length; i++) {
+					int itemI = transaction[i];
 					// compare with each other item j in the same transaction
-					for (int j = i + 1; j < itemset.size(); j++) {
-						Integer itemJ = (Integer) array[j];
+					for (int j = i + 1; j < transaction.length; j++) {
 						// update the matrix count by 1 for the pair i, j
-						matrix.incrementCount(itemI, itemJ);
+						matrix.incrementCount(itemI, transaction[j]);
 					}
 				}
 			}
@@ -174,17 +210,15 @@ public class AlgoEclat_Bitset {
 		List<Integer> frequentItems = new ArrayList<Integer>();
 		
 		// for each item
-		for(Entry<Integer, BitSetSupport> entry : mapItemTIDS.entrySet()) {
+		for(int item = 0; item <= maxItemId; item++) {
 			// get the support and tidset of that item
-			BitSetSupport tidset = entry.getValue();
-			int support = tidset.support;
-			int item = entry.getKey();
+			BitSetSupport tidset = itemTidsets[item];
 			// if the item is frequent
-			if(support >= minsupRelative && maxItemsetSize >= 1) {
+			if(tidset != null && tidset.support >= minsupRelative && maxItemsetSize >= 1) {
 				// add the item to the list of frequent items
 				frequentItems.add(item);
 				// output the item
-				saveSingleItem(item, support, tidset.bitset);
+				saveSingleItem(item, tidset.support, tidset.bitset);
 			}
 		}
 		
@@ -193,7 +227,7 @@ public class AlgoEclat_Bitset {
 		Collections.sort(frequentItems, new Comparator<Integer>() {
 			@Override
 			public int compare(Integer arg0, Integer arg1) {
-				return mapItemTIDS.get(arg0).support - mapItemTIDS.get(arg1).support; 
+				return itemTidsets[arg0].support - itemTidsets[arg1].support; 
 			}}); 
 
 		
@@ -201,80 +235,13 @@ public class AlgoEclat_Bitset {
 		// of 2-itemsets
 		
 		if(maxItemsetSize >=2){
-			
-			// For each frequent item I according to the total order
-			for(int i=0; i < frequentItems.size(); i++) {
-				Integer itemI = frequentItems.get(i);
-				// We obtain the tidset and support of that item
-				BitSetSupport tidsetI = mapItemTIDS.get(itemI);
-				
-				// We create empty equivalence class for storing all 2-itemsets starting with
-				// the item "i".
-				// This equivalence class is represented by two structures.
-				// The first structure stores the suffix of all 2-itemsets starting with the prefix "i".
-				// For example, if itemI = "1" and the equivalence class contains 12, 13, 14, then
-				// the structure "equivalenceClassIitems" will only contain  2, 3 and 4 instead of
-				// 12, 13 and 14.  The reason for this implementation choice is that it is more
-				// memory efficient.
-				List<Integer> equivalenceClassIitems = new ArrayList<Integer>();
-				// The second structure stores the tidset of each 2-itemset in the equivalence class
-				// of the prefix "i"
-				List<BitSetSupport> equivalenceClassItidsets = new ArrayList<BitSetSupport>();
-				
-				// For each item itemJ that is larger than i according to the total order of
-				// increasing support.
-	loopJ:		for(int j=i+1; j < frequentItems.size(); j++) {
-					int itemJ = frequentItems.get(j);
-					
-					// if the triangular matrix optimization is activated we obtain
-					// the support of itemset "ij" in the matrix. This allows to determine
-					// directly without performing a join if "ij" is frequent.
-					int supportIJ = -1;
-					if(useTriangularMatrixOptimization) {
-						// check the support of {i,j} according to the triangular matrix
-						supportIJ = matrix.getSupportForItems(itemI, itemJ);
-						// if not frequent
-						if (supportIJ < minsupRelative) {
-							// we don't need to consider the itemset "ij" anymore
-							continue loopJ;
-						}
-					}
-					
-					// Obtain the tidset of item J and its support.
-					BitSetSupport tidsetJ = mapItemTIDS.get(itemJ);
-					
-					// Calculate the tidset of itemset "IJ" by performing the intersection of 
-					// the tidsets of I and the tidset of J.
-					BitSetSupport bitsetSupportIJ;
-					if(useTriangularMatrixOptimization) {
-						// If the triangular matrix optimization is used, then
-						// we perform the intersection but do not need to calculate the support
-						// since it is already known
-						bitsetSupportIJ = performANDFirstTime(tidsetI, tidsetJ, supportIJ);
-					}else {
-						// Otherwise, we perform the intersection and calculate the support
-						// by calculating the cardinality of the resulting tidset.
-						bitsetSupportIJ = performAND(tidsetI, tidsetJ);
-					}
-					
-					// After that, we add the itemJ to the equivalence class of 2-itemsets
-					// starting with the prefix "i". Note that although we only add "j" to the
-					// equivalence class, the item "j" 
-					// actually represents the itemset "ij" since we keep the prefix "i" for the
-					// whole equilvalence class.
-					if(useTriangularMatrixOptimization || bitsetSupportIJ.support >= minsupRelative){
-					    equivalenceClassIitems.add(itemJ);
-					     // We also keep the tidset of "ij".
-					    equivalenceClassItidsets.add(bitsetSupportIJ);
-					}
-				}
-				// Process all itemsets from the equivalence class of 2-itemsets starting with prefix I 
-				// to find larger itemsets if that class has more than 0 itemsets.
-				if(equivalenceClassIitems.size()>0) {
-					// This is done by a recursive call. Note that we pass
-					// item I to that method as the prefix of that equivalence class.
-					itemsetBuffer[0] = itemI;
-					processEquivalenceClass(itemsetBuffer, 1, equivalenceClassIitems, equivalenceClassItidsets);
+			if(threadCount > 1) {
+				// If several threads are used, the equivalence classes are explored in parallel
+				exploreInParallel(frequentItems, itemTidsets, useTriangularMatrixOptimization);
+			}else {
+				// For each frequent item I according to the total order
+				for(int i=0; i < frequentItems.size(); i++) {
+					exploreFirstLevelItem(frequentItems, itemTidsets, i, useTriangularMatrixOptimization);
 				}
 			}
 		}
@@ -296,58 +263,231 @@ public class AlgoEclat_Bitset {
 
 
 	/**
-	 * This method scans the database to calculate the support of each single item
-	 * @param database the transaction database
-	 * @param mapItemTIDS  a map to store the tidset corresponding to each item
-	 * @return the maximum item id appearing in this database
+	 * Explore all the itemsets starting with a frequent item (the equivalence class of that item).
+	 * @param frequentItems the frequent items, sorted by the total order
+	 * @param itemTidsets the tidset of each item
+	 * @param i the position of the item in the list of frequent items
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization is applied.
+	 * @throws IOException if error while writting the output to file
 	 */
-	int calculateSupportSingleItems(TransactionDatabase database,
-			final Map<Integer, BitSetSupport> mapItemTIDS) {
+	void exploreFirstLevelItem(List<Integer> frequentItems, BitSetSupport[] itemTidsets, int i,
+			boolean useTriangularMatrixOptimization) throws IOException {
+		int itemI = frequentItems.get(i);
+		// We obtain the tidset and support of that item
+		BitSetSupport tidsetI = itemTidsets[itemI];
 		
-		int maxItemId = 0;
+		// We create empty equivalence class for storing all 2-itemsets starting with
+		// the item "i".
+		// This equivalence class is represented by two structures.
+		// The first structure stores the suffix of all 2-itemsets starting with the prefix "i".
+		// For example, if itemI = "1" and the equivalence class contains 12, 13, 14, then
+		// the structure "equivalenceClassIitems" will only contain  2, 3 and 4 instead of
+		// 12, 13 and 14.  The reason for this implementation choice is that it is more
+		// memory efficient.
+		List<Integer> equivalenceClassIitems = new ArrayList<Integer>();
+		// The second structure stores the tidset of each 2-itemset in the equivalence class
+		// of the prefix "i"
+		List<BitSetSupport> equivalenceClassItidsets = new ArrayList<BitSetSupport>();
+		
+		// For each item itemJ that is larger than i according to the total order of
+		// increasing support.
+loopJ:	for(int j=i+1; j < frequentItems.size(); j++) {
+			int itemJ = frequentItems.get(j);
+			
+			// if the triangular matrix optimization is activated we obtain
+			// the support of itemset "ij" in the matrix. This allows to determine
+			// directly without performing a join if "ij" is frequent.
+			int supportIJ = -1;
+			if(useTriangularMatrixOptimization) {
+				// check the support of {i,j} according to the triangular matrix
+				supportIJ = matrix.getSupportForItems(itemI, itemJ);
+				// if not frequent
+				if (supportIJ < minsupRelative) {
+					// we don't need to consider the itemset "ij" anymore
+					continue loopJ;
+				}
+			}
+			
+			// Obtain the tidset of item J and its support.
+			BitSetSupport tidsetJ = itemTidsets[itemJ];
+			
+			// Calculate the tidset of itemset "IJ" by performing the intersection of 
+			// the tidsets of I and the tidset of J. The tidset is stored in the
+			// next free bitset of the equivalence classes of depth 1.
+			long[] buffer = bitsetPool.getBitset(1, equivalenceClassIitems.size());
+			BitSetSupport bitsetSupportIJ;
+			if(useTriangularMatrixOptimization) {
+				// If the triangular matrix optimization is used, then
+				// we perform the intersection but do not need to calculate the support
+				// since it is already known
+				bitsetSupportIJ = performANDFirstTime(tidsetI, tidsetJ, supportIJ, buffer);
+			}else {
+				// Otherwise, we perform the intersection and calculate the support
+				// by calculating the cardinality of the resulting tidset.
+				bitsetSupportIJ = performAND(tidsetI, tidsetJ, buffer);
+			}
+			
+			// After that, we add the itemJ to the equivalence class of 2-itemsets
+			// starting with the prefix "i". Note that although we only add "j" to the
+			// equivalence class, the item "j" 
+			// actually represents the itemset "ij" since we keep the prefix "i" for the
+			// whole equilvalence class.
+			if(bitsetSupportIJ != null){
+			    equivalenceClassIitems.add(itemJ);
+			     // We also keep the tidset of "ij".
+			    equivalenceClassItidsets.add(bitsetSupportIJ);
+			}
+		}
+		// Process all itemsets from the equivalence class of 2-itemsets starting with prefix I 
+		// to find larger itemsets if that class has more than 0 itemsets.
+		if(equivalenceClassIitems.size()>0) {
+			// This is done by a recursive call. Note that we pass
+			// item I to that method as the prefix of that equivalence class.
+			itemsetBuffer[0] = itemI;
+			processEquivalenceClass(itemsetBuffer, 1, equivalenceClassIitems, equivalenceClassItidsets);
+		}
+	}
+	
+	/**
+	 * Explore the equivalence classes of the frequent items using several threads. Each equivalence
+	 * class is explored by a worker (a copy of this algorithm having its own buffers) that writes the
+	 * itemsets that it finds to a buffer. The tidsets of single items are shared by the workers but
+	 * are only read. The itemsets found by the workers are then saved by this object in the order
+	 * of a serial execution, so that the result is the same.
+	 * @param frequentItems the frequent items, sorted by the total order
+	 * @param itemTidsets the tidset of each item
+	 * @param useTriangularMatrixOptimization if true the triangular matrix optimization is applied.
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void exploreInParallel(final List<Integer> frequentItems, final BitSetSupport[] itemTidsets,
+			final boolean useTriangularMatrixOptimization) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			// Create a task for each item, in the order used by the serial algorithm
+			List<Future<AlgoEclat_Bitset>> results = new ArrayList<Future<AlgoEclat_Bitset>>(frequentItems.size());
+			for(int i = 0; i < frequentItems.size(); i++) {
+				final int itemIndex = i;
+				results.add(pool.submit(new Callable<AlgoEclat_Bitset>() {
+					public AlgoEclat_Bitset call() throws IOException {
+						AlgoEclat_Bitset worker = createWorker();
+						worker.exploreFirstLevelItem(frequentItems, itemTidsets, itemIndex, useTriangularMatrixOptimization);
+						if(worker.writer != null) {
+							worker.writer.flush();
+						}
+						return worker;
+					}
+				}));
+			}
+			
+			// Wait for each task in order and save its itemsets as soon as it is done
+			for(int i = 0; i < results.size(); i++) {
+				AlgoEclat_Bitset worker = results.get(i).get();
+				itemsetCount += worker.itemsetCount;
+				if(writer != null) {
+					writer.write(worker.taskOutput.toString());
+				}else {
+					List<List<Itemset>> levels = worker.frequentItemsets.getLevels();
+					for(int k = 0; k < levels.size(); k++) {
+						for(Itemset itemset : levels.get(k)) {
+							frequentItemsets.addItemset(itemset, k);
+						}
+					}
+				}
+				// release the memory used by this task
+				results.set(i, null);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The mining was interrupted", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Create a worker for the parallel mode, that is a copy of this algorithm that has its own
+	 * buffers and saves the itemsets that it finds in a buffer.
+	 * @return the worker
+	 */
+	private AlgoEclat_Bitset createWorker() {
+		AlgoEclat_Bitset worker = newInstance();
+		worker.database = database;
+		worker.minsupRelative = minsupRelative;
+		worker.matrix = matrix;
+		worker.maxItemsetSize = maxItemsetSize;
+		worker.showTransactionIdentifiers = showTransactionIdentifiers;
+		worker.itemsetBuffer = new int[BUFFERS_SIZE];
+		worker.bitsetPool = new BitsetPool(database.size());
+		if(writer != null) {
+			worker.taskOutput = new StringWriter();
+			worker.writer = new BufferedWriter(worker.taskOutput);
+		}else {
+			worker.frequentItemsets = new Itemsets("FREQUENT ITEMSETS");
+		}
+		return worker;
+	}
+	
+	/**
+	 * Create a new instance of this algorithm (used to create the workers of the parallel mode).
+	 * @return the new instance
+	 */
+	AlgoEclat_Bitset newInstance() {
+		return new AlgoEclat_Bitset();
+	}
+
+	/**
+	 * This method scans the database to calculate the support of each single item
+	 * @param transactions the transactions of the database
+	 * @param itemTidsets  an array to store the tidset corresponding to each item
+	 */
+	void calculateSupportSingleItems(int[][] transactions, BitSetSupport[] itemTidsets) {
 		// for each transaction
-		for (int i = 0; i < database.size(); i++) {
+		for (int i = 0; i < transactions.length; i++) {
 			// Add the transaction id to the set of all transaction ids
 			// for each item in that transaction
 			
 			// For each item
-			for (Integer item : database.getTransactions().get(i)) {
+			for (int item : transactions[i]) {
 				// Get the current tidset of that item
-				BitSetSupport tids = mapItemTIDS.get(item);
+				BitSetSupport tids = itemTidsets[item];
 				// If none, then we create one
 				if(tids == null){
-					tids = new BitSetSupport();
-					mapItemTIDS.put(item, tids);
-					// we remember the largest item seen until now
-					if (item > maxItemId) {
-						maxItemId = item;
-					}
+					tids = new BitSetSupport(bitsetPool.newBitset());
+					itemTidsets[item] = tids;
 				}
 				// we add the current transaction id to the tidset of the item
-				tids.bitset.set(i);
+				Bitsets.set(tids.bitset, i);
 				// we increase the support of that item
 				tids.support++;
 			}
 		}
-		return maxItemId;
 	}
 
 	/**
 	 * Perform the intersection of two tidsets for itemsets containing more than one item.
+	 * The intersection is stopped as soon as the resulting itemset cannot be frequent.
 	 * @param tidsetI the first tidset
 	 * @param tidsetJ the second tidset
-	 * @return the resulting tidset and its support
+	 * @param buffer the bitset where the resulting tidset is stored
+	 * @return the resulting tidset and its support or null if the resulting itemset is infrequent
 	 */
-	 BitSetSupport performAND(BitSetSupport tidsetI,
-			BitSetSupport tidsetJ) {
-		// Create the new tidset and perform the logical AND to intersect the tidset
-		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
-		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
-		// set the support as the cardinality of the new tidset
-		bitsetSupportIJ.support = bitsetSupportIJ.bitset.cardinality();
+	BitSetSupport performAND(BitSetSupport tidsetI, BitSetSupport tidsetJ, long[] buffer) {
+		// Perform the logical AND to intersect the tidset, and calculate the support
+		// as the cardinality of the new tidset
+		int support = Bitsets.and(tidsetI.bitset, tidsetI.support, tidsetJ.bitset, buffer, minsupRelative);
+		if(support == -1) {
+			return null;
+		}
 		// return the new tidset
-		return bitsetSupportIJ;
+		return new BitSetSupport(buffer, support);
 	}
 
 	/**
@@ -356,18 +496,15 @@ public class AlgoEclat_Bitset {
 	 * @param tidsetJ the second tidset
 	 * @param supportIJ the support of the intersection (already known) so it does not need to 
 	 *                  be calculated again
+	 * @param buffer the bitset where the resulting tidset is stored
 	 * @return  the resulting tidset and its support
 	 */
 	BitSetSupport performANDFirstTime(BitSetSupport tidsetI,
-			BitSetSupport tidsetJ, int supportIJ) {
-		// Create the new tidset and perform the logical AND to intersect the tidset
-		BitSetSupport bitsetSupportIJ = new BitSetSupport();
-		bitsetSupportIJ.bitset = (BitSet)tidsetI.bitset.clone();
-		bitsetSupportIJ.bitset.and(tidsetJ.bitset);
+			BitSetSupport tidsetJ, int supportIJ, long[] buffer) {
+		// Perform the logical AND to intersect the tidset
+		Bitsets.and(tidsetI.bitset, tidsetJ.bitset, buffer);
 		// set the support as the support provided as parameter
-		bitsetSupportIJ.support = supportIJ;
-		// return the new tidset
-		return bitsetSupportIJ;
+		return new BitSetSupport(buffer, supportIJ);
 	}
 
 //	/**
@@ -431,9 +568,12 @@ public class AlgoEclat_Bitset {
 			// We calculate the tidset of the itemset resulting from the union of
 			// the first itemset and the second itemset.
 			if(prefixLength+2 <= maxItemsetSize){
-				BitSetSupport bitsetSupportIJ = performAND(tidsetI, tidsetJ);
+				// (the tidset is only needed for saving the itemset, so it is stored in a
+				// bitset of the next depth, which is not used yet)
+				BitSetSupport bitsetSupportIJ = performAND(tidsetI, tidsetJ, 
+						bitsetPool.getBitset(prefixLength + 1, 0));
 				// If the itemset is frequent
-				if(bitsetSupportIJ.support >= minsupRelative) {
+				if(bitsetSupportIJ != null) {
 					// Append the prefix with I
 					int newPrefixLength = prefixLength+1;
 					prefix[prefixLength] = itemI;
@@ -490,15 +630,17 @@ public class AlgoEclat_Bitset {
 					
 					// We will now calculate the tidset of the itemset {prefix, i,j}
 					// This is done by intersecting the tidset of the itemset prefix+i
-					// with the itemset prefix+j
-					BitSetSupport bitsetSupportIJ = performAND(tidsetI, tidsetJ);
+					// with the itemset prefix+j. The tidset is stored in the next free
+					// bitset of the equivalence classes of the next depth.
+					long[] buffer = bitsetPool.getBitset(prefixLength + 1, equivalenceClassISuffixItems.size());
+					BitSetSupport bitsetSupportIJ = performAND(tidsetI, tidsetJ, buffer);
 					
 					// If the itemset prefix+i+j is frequent, then we add it to the
 					// equivalence class of itemsets having the prefix "prefix"+i 
 					// Note actually, we just keep "j" for optimization because all itemsets
 					// in the equivalence class of prefix+i will start with prefix+i so it would just
 					// waste memory to keep prefix + i for all itemsets.		
-					if(bitsetSupportIJ.support >= minsupRelative) {
+					if(bitsetSupportIJ != null) {
 						equivalenceClassISuffixItems.add(itemJ);
 						// We also keep the corresponding tidset and support
 						equivalenceITidsets.add(bitsetSupportIJ);
@@ -558,9 +700,9 @@ public class AlgoEclat_Bitset {
 			buffer.append(" #SUP: ");
 			buffer.append(tidset.support);
 			if(showTransactionIdentifiers) {
-				BitSet bitset = tidset.bitset;
+				long[] bitset = tidset.bitset;
 				buffer.append(" #TID:");
-	        	for (int tid = bitset.nextSetBit(0); tid != -1; tid = bitset.nextSetBit(tid + 1)) {
+	        	for (int tid = Bitsets.nextSetBit(bitset, 0); tid != -1; tid = Bitsets.nextSetBit(bitset, tid + 1)) {
 	        		buffer.append(" " + tid); 
 	        	}
 			}
@@ -576,7 +718,7 @@ public class AlgoEclat_Bitset {
 	 * @param tidset the tidset of this itemset
 	 * @throws IOException if an error occurrs when writing to disk.
 	 */
-	private void saveSingleItem(int item, int support, BitSet tidset) throws IOException {
+	private void saveSingleItem(int item, int support, long[] tidset) throws IOException {
 		// increase the itemset count
 		itemsetCount++;
 		// if the result should be saved to memory
@@ -593,9 +735,9 @@ public class AlgoEclat_Bitset {
 			buffer.append(" #SUP: ");
 			buffer.append(support);
 			if(showTransactionIdentifiers) {
-	        	writer.append(" #TID:");
-	        	for (int tid = tidset.nextSetBit(0); tid != -1; tid = tidset.nextSetBit(tid + 1)) {
-	        		writer.append(" " + tid); 
+	        	buffer.append(" #TID:");
+	        	for (int tid = Bitsets.nextSetBit(tidset, 0); tid != -1; tid = Bitsets.nextSetBit(tidset, tid + 1)) {
+	        		buffer.append(" " + tid); 
 	        	}
 			}
 			writer.write(buffer.toString());
@@ -642,8 +784,39 @@ public class AlgoEclat_Bitset {
 	 * more than once.
 	 */ 
 	public class BitSetSupport{
-		BitSet bitset = new BitSet();
+		long[] bitset;
 		int support;
+		
+		/**
+		 * Constructor
+		 * @param bitset the bitset (an array of long, see {@link Bitsets})
+		 */
+		BitSetSupport(long[] bitset) {
+			this.bitset = bitset;
+		}
+		
+		/**
+		 * Constructor
+		 * @param bitset the bitset (an array of long, see {@link Bitsets})
+		 * @param support the cardinality of the bitset
+		 */
+		BitSetSupport(long[] bitset, int support) {
+			this.bitset = bitset;
+			this.support = support;
+		}
+	}
+	
+	/**
+	 * Set the number of threads used for exploring the search space. If more than one thread
+	 * is used, the equivalence classes of the frequent items are explored in parallel. 
+	 * The result is the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
 	}
 	
 	/** 
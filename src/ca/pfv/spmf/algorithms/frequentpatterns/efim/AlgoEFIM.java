@@ -10,6 +10,9 @@ import java.util.Comparator;
 import java.util.List;
 
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningCancelledException;
+import ca.pfv.spmf.tools.MiningContext;
+import ca.pfv.spmf.tools.PhaseProfiler;
 
 
 /* This file is copyright (c) 2012-2015 Souleymane Zida & Philippe Fournier-Viger
@@ -66,16 +69,15 @@ public class AlgoEFIM {
 	/** a temporary buffer */
 	private int [] temp= new int [500];
 	
-	/** The total time spent for performing intersections */
-	long timeIntersections;
-	/** The total time spent for performing database reduction */
-	long timeDatabaseReduction;
-	/** The total time spent for identifying promising items */
-	long timeIdentifyPromisingItems;
-	/** The total time spent for sorting */
-	long timeSort;
-	/** The total time spent for binary search */
-	long timeBinarySearch;
+	/** the profiler used to measure the time of each phase or null if profiling is deactivated */
+	private PhaseProfiler profiler = null;
+	
+	// The phases measured by the profiler (these variables are null if profiling is deactivated)
+	private PhaseProfiler.Phase phaseReadDatabase;
+	private PhaseProfiler.Phase phaseSort;
+	private PhaseProfiler.Phase phaseIntersections;
+	private PhaseProfiler.Phase phaseUpperBounds;
+	private PhaseProfiler.Phase phasePromisingItems;
 	
 
 	/** an array that map an old item name to its new name */
@@ -101,6 +103,24 @@ public class AlgoEFIM {
 
 	/** If true, sub-tree utility pruning will be performed */
 	private boolean activateSubtreeUtilityPruning;
+	
+	/** number of threads used for exploring the search space (1 = serial execution) */
+	private int threadCount = 1;
+	
+	// A projected database containing at least this number of transactions is explored
+	// by a separate task, when the algorithm is run with several threads
+	private static final int SUBTREE_TASK_THRESHOLD = 2048;
+	
+	// If this object is a worker of the parallel mode, the buffer where the itemsets are saved
+	// and the algorithm that created the worker. Otherwise, these variables are null.
+	private EFIMItemsetBuffer taskOutput = null;
+	private AlgoEFIM taskMaster = null;
+	
+	/** the mining context set by the user (if null, the context of the current thread is used) */
+	private MiningContext miningContext = null;
+	// the mining context of the current execution, which is polled to stop the algorithm
+	// and updated with its progress
+	private MiningContext context = null;
     
 	/** 
 	 * Constructor
@@ -125,8 +145,20 @@ public class AlgoEFIM {
     	// reset variables for statistics
     	mergeCount=0;
     	transactionReadingCount=0;
-		timeIntersections = 0;
-		timeDatabaseReduction = 0;
+    	
+    	// get the context that is polled to stop the algorithm
+    	context = MiningContext.resolve(miningContext);
+    	
+    	// get the phases measured by the profiler, if profiling is activated
+    	if(profiler != null){
+    		phaseReadDatabase = profiler.getPhase("Read database");
+    		phaseSort = profiler.getPhase("Sort");
+    		phaseIntersections = profiler.getPhase("Intersections");
+    		phaseUpperBounds = profiler.getPhase("Upper bounds");
+    		phasePromisingItems = profiler.getPhase("Promising items");
+    	}else{
+    		phaseReadDatabase = phaseSort = phaseIntersections = phaseUpperBounds = phasePromisingItems = null;
+    	}
     	
     	// save parameters about activating or not the optimizations
     	this.activateTransactionMerging = activateTransactionMerging;
@@ -136,7 +168,12 @@ public class AlgoEFIM {
 		startTimestamp = System.currentTimeMillis();
 		
 		// read the input file
+		long timeStartReading = (profiler == null) ? 0 : System.nanoTime();
 		Dataset dataset = new Dataset(inputPath, maximumTransactionCount);
+		if(profiler != null){
+			phaseReadDatabase.addTime(timeStartReading);
+			phaseReadDatabase.addCount(dataset.getTransactions().size());
+		}
 
 		// save minUtil value selected by the user
 		this.minUtil = minUtil;
@@ -242,7 +279,7 @@ public class AlgoEFIM {
     	// Now we will sort transactions in the database according to the proposed
     	// total order on transaction (the lexicographical order when transactions
     	// are read backward).
-    	long timeStartSorting = System.currentTimeMillis();
+    	long timeStartSorting = (profiler == null) ? 0 : System.nanoTime();
     	// We only sort if transaction merging is activated
     	if(activateTransactionMerging){
     		// Sort the dataset using a new comparator
@@ -324,7 +361,9 @@ public class AlgoEFIM {
     	
 
     	// record the total time spent for sorting
-    	timeSort = System.currentTimeMillis() - timeStartSorting;
+    	if(profiler != null){
+    		phaseSort.addTime(timeStartSorting);
+    	}
     	
     	// if in debug mode, print the database after sorting and removing promising items
 		if(DEBUG)
@@ -358,13 +397,28 @@ public class AlgoEFIM {
 
 //    	//======
         // Recursive call to the algorithm
-       	// If subtree utility pruning is activated
-    	if(activateSubtreeUtilityPruning){
-    		// We call the recursive algorithm with the database, secondary items and primary items
-    		backtrackingEFIM(dataset.getTransactions(), itemsToKeep, itemsToExplore, 0);
-    	}else{
-    		// We call the recursive algorithm with the database and secondary items
-    		backtrackingEFIM(dataset.getTransactions(), itemsToKeep, itemsToKeep, 0);
+    	// The progress is measured by the number of primary items of the first level that are explored
+    	context.setTotalWork(activateSubtreeUtilityPruning ? itemsToExplore.size() : itemsToKeep.size());
+    	try {
+	    	// If several threads are used, the primary items of the first level are explored in parallel
+	    	if(threadCount > 1){
+	    		List<Integer> primaryItems = activateSubtreeUtilityPruning ? itemsToExplore : itemsToKeep;
+	    		candidateCount += primaryItems.size();
+	    		ParallelEFIMMiner.mine(this, dataset.getTransactions(), itemsToKeep, primaryItems, threadCount, temp.length);
+	    	}else if(activateSubtreeUtilityPruning){
+	       		// If subtree utility pruning is activated,
+	    		// we call the recursive algorithm with the database, secondary items and primary items
+	    		backtrackingEFIM(dataset.getTransactions(), itemsToKeep, itemsToExplore, 0);
+	    	}else{
+	    		// We call the recursive algorithm with the database and secondary items
+	    		backtrackingEFIM(dataset.getTransactions(), itemsToKeep, itemsToKeep, 0);
+	    	}
+    	}catch(MiningCancelledException e){
+    		// if the algorithm is stopped, close the output file, which contains the itemsets found until now
+    		if(writer != null) {
+    			writer.close();
+    		}
+    		throw e;
     	}
 
 		// record the end time
@@ -440,6 +494,33 @@ public class AlgoEFIM {
     	
         // ========  for each frequent item  e  =============
 		for (int j = 0; j < itemsToExplore.size(); j++) {
+			exploreItem(transactionsOfP, itemsToKeep, itemsToExplore, j, prefixLength, false);
+			if(prefixLength == 0){
+				context.workDone();
+			}
+		}
+
+		// check the maximum memory usage for statistics purpose
+		MemoryLogger.getInstance().checkMemory();
+    }
+
+    /**
+     * Explore the itemsets starting with P U {e}, where e is a primary item
+     * (this is one iteration of the main loop of the recursive method)
+     * @param transactionsOfP the list of transactions containing the current prefix P
+     * @param itemsToKeep the list of secondary items in the p-projected database
+     * @param itemsToExplore the list of primary items in the p-projected database
+     * @param j the position of e in the list of primary items
+     * @param prefixLength the current prefixLength
+     * @param sharedTransactions if true, the transactions are also read by other threads and their offset
+     *    is not updated (the offset that a serial execution would use is calculated instead)
+     * @throws IOException if error writing to output file
+     */
+    private void exploreItem(List<Transaction> transactionsOfP, List<Integer> itemsToKeep,
+    		List<Integer> itemsToExplore, int j, int prefixLength, boolean sharedTransactions) throws IOException {
+			// stop if the algorithm was asked to stop
+			context.nodeExplored();
+			
 			Integer e = itemsToExplore.get(j);
 
 			// ========== PERFORM INTERSECTION =====================
@@ -456,21 +537,26 @@ public class AlgoEFIM {
 			int consecutiveMergeCount = 0;
 			
 	        // this variable is to record the time for performing intersection
-			long timeFirstIntersection = System.currentTimeMillis();
+			long timeFirstIntersection = (profiler == null) ? 0 : System.nanoTime();
+			
+			// Increase the number of transaction read
+			transactionReadingCount += transactionsOfP.size();
 			
 			// For each transaction
 	        for(Transaction transaction : transactionsOfP) {
-	        	// Increase the number of transaction read
-	        	transactionReadingCount++;
-	        	
-	        	// To record the time for performing binary searh
-	        	long timeBinaryLocal = System.currentTimeMillis();
-	        	
 	        	// we remember the position where e appears.
 	        	// we will call this position an "offset"
 	        	int positionE = -1;
 	        	// Variables low and high for binary search
 	    		int low = transaction.offset;
+	    		// If the transaction is shared with other threads, its offset is not updated. We thus
+	    		// calculate the offset that it would have after exploring the previous primary item,
+	    		// that is the position of the first item that is not smaller than that item.
+	    		if(sharedTransactions && j > 0){
+	    			low = findFirstPositionNotSmaller(transaction, itemsToExplore.get(j - 1));
+	    		}
+	    		// the position where the projection starts
+	    		int startOffset = low;
 	    		int high = transaction.items.length - 1;
 
 	    		// perform binary search to find e in the transaction
@@ -485,9 +571,6 @@ public class AlgoEFIM {
 	    				high = middle - 1;
 	    			}
 	    		}
-	    		// record the time spent for performing the binary search
-	        	timeBinarySearch +=  System.currentTimeMillis() - timeBinaryLocal;
-	        	
 //	        	if(prefixLength == 0 && newNamesToOldNames[e] == 385) {
 //		        	for(int i=0; i < transaction.getItems().length; i++) {
 //		        		if(transaction.getItems()[i] == e) {
@@ -508,7 +591,7 @@ public class AlgoEFIM {
 						// otherwise
 		            	if(activateTransactionMerging && MAXIMUM_SIZE_MERGING >= (transaction.items.length - positionE)){
 			            	// we cut the transaction starting from position 'e'
-							Transaction projectedTransaction = new Transaction(transaction, positionE);
+							Transaction projectedTransaction = new Transaction(transaction, startOffset, positionE);
 							utilityPe  += projectedTransaction.prefixUtility;
 							
 							// if it is the first transaction that we read
@@ -580,7 +663,7 @@ public class AlgoEFIM {
 						}else{
 			            	// Otherwise, if merging has been deactivated
 							// then we just create the projected transaction
-							Transaction projectedTransaction = new Transaction(transaction, positionE);
+							Transaction projectedTransaction = new Transaction(transaction, startOffset, positionE);
 							// we add the utility of Pe in that transaction to the total utility of Pe
 							utilityPe  += projectedTransaction.prefixUtility;
 							// we put the projected transaction in the projected database of Pe
@@ -590,8 +673,10 @@ public class AlgoEFIM {
 					// This is an optimization for binary search:
 					// we remember the position of E so that for the next item, we will not search
 					// before "e" in the transaction since items are visited in lexicographical order
-		            transaction.offset = positionE;   
-	            }else{
+	            	if(!sharedTransactions){
+	            		transaction.offset = positionE;
+	            	}
+	            }else if(!sharedTransactions){
 					// This is an optimization for binary search:
 					// we remember the position of E so that for the next item, we will not search
 					// before "e" in the transaction since items are visited in lexicographical order
@@ -599,7 +684,10 @@ public class AlgoEFIM {
 	            }
 	        }
 	        // remember the total time for peforming the database projection
-	        timeIntersections += (System.currentTimeMillis() - timeFirstIntersection);
+	        if(profiler != null){
+	        	phaseIntersections.addTime(timeFirstIntersection);
+	        	phaseIntersections.addCount(transactionsOfP.size());
+	        }
 
 	        // Add the last read transaction to the database if there is one
 	        if(previousTransaction != null){
@@ -622,7 +710,7 @@ public class AlgoEFIM {
 	        useUtilityBinArraysToCalculateUpperBounds(transactionsPe, j, itemsToKeep);  
 			
 	        // we now record time for identifying promising items
-			long initialTime = System.currentTimeMillis();
+			long initialTime = (profiler == null) ? 0 : System.nanoTime();
 			
 			// We will create the new list of secondary items
 			List<Integer> newItemsToKeep = new ArrayList<Integer>();
@@ -650,10 +738,16 @@ public class AlgoEFIM {
 	            }
 	        }
 	    	// update the total time  for identifying promising items
-	    	timeIdentifyPromisingItems +=  (System.currentTimeMillis() -  initialTime);
+	    	if(profiler != null){
+	    		phasePromisingItems.addTime(initialTime);
+	    	}
 			
 			// === recursive call to explore larger itemsets
-	    	if(activateSubtreeUtilityPruning){
+	    	if(taskOutput != null && transactionsPe.size() >= SUBTREE_TASK_THRESHOLD){
+	    		// in the parallel mode, a large projected database is explored by a separate task
+	    		ParallelEFIMMiner.forkSubtree(taskMaster, taskOutput, transactionsPe, newItemsToKeep, 
+	    				activateSubtreeUtilityPruning ? newItemsToExplore : newItemsToKeep, temp, prefixLength+1);
+	    	}else if(activateSubtreeUtilityPruning){
 	    		// if sub-tree utility pruning is activated, we consider primary and secondary items
 	    		backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToExplore,prefixLength+1);
 	    	}else{
@@ -661,12 +755,95 @@ public class AlgoEFIM {
 	    		// as primary items
 	    		backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToKeep,prefixLength+1);
 	    	}
-		}
+    }
 
-		// check the maximum memory usage for statistics purpose
-		MemoryLogger.getInstance().checkMemory();
+    /**
+     * Find the position of the first item of a transaction that is not smaller than a given item,
+     * starting from the offset of the transaction
+     * @param transaction the transaction
+     * @param item the item
+     * @return the position (the length of the transaction if all items are smaller)
+     */
+    private static int findFirstPositionNotSmaller(Transaction transaction, int item) {
+    	int low = transaction.offset;
+    	int high = transaction.items.length - 1;
+    	while (high >= low) {
+    		int middle = (low + high) >>> 1; // divide by 2
+    		if (transaction.items[middle] < item) {
+    			low = middle + 1;
+    		}else {
+    			high = middle - 1;
+    		}
+    	}
+    	return low;
+    }
+
+    /**
+     * Explore the sub-tree of a prefix (this is used by a task of the parallel mode)
+     * @param transactionsOfP the projected database of the prefix
+     * @param itemsToKeep the list of secondary items
+     * @param itemsToExplore the list of primary items
+     * @param prefix the prefix (using the original names of items)
+     * @param prefixLength the prefix length
+     * @throws IOException if error writing to output file
+     */
+    void exploreSubtree(List<Transaction> transactionsOfP, List<Integer> itemsToKeep,
+    		List<Integer> itemsToExplore, int[] prefix, int prefixLength) throws IOException {
+    	System.arraycopy(prefix, 0, temp, 0, prefixLength);
+    	backtrackingEFIM(transactionsOfP, itemsToKeep, itemsToExplore, prefixLength);
     }
 
+    /**
+     * Explore a primary item of the first level of the search tree
+     * (this is used by a task of the parallel mode). The transactions are not modified.
+     * @param transactions the transactions of the database
+     * @param itemsToKeep the list of secondary items
+     * @param itemsToExplore the list of primary items
+     * @param j the position of the item in the list of primary items
+     * @throws IOException if error writing to output file
+     */
+    void exploreFirstLevelItem(List<Transaction> transactions, List<Integer> itemsToKeep,
+    		List<Integer> itemsToExplore, int j) throws IOException {
+    	exploreItem(transactions, itemsToKeep, itemsToExplore, j, 0, true);
+    	context.workDone();
+    }
+
+    /**
+     * Create a worker for the parallel mode, that is a copy of this algorithm having its own
+     * utility-bin arrays and prefix buffer, which saves the itemsets that it finds in a buffer
+     * @param output the buffer where the worker should save itemsets
+     * @return the worker
+     */
+    AlgoEFIM createWorker(EFIMItemsetBuffer output) {
+    	AlgoEFIM worker = new AlgoEFIM();
+    	worker.minUtil = minUtil;
+    	worker.activateTransactionMerging = activateTransactionMerging;
+    	worker.activateSubtreeUtilityPruning = activateSubtreeUtilityPruning;
+    	worker.newNamesToOldNames = newNamesToOldNames;
+    	worker.newItemCount = newItemCount;
+    	worker.utilityBinArraySU = new int[newItemCount + 1];
+    	worker.utilityBinArrayLU = new int[newItemCount + 1];
+    	worker.temp = new int[temp.length];
+    	worker.taskOutput = output;
+    	worker.taskMaster = (taskMaster == null) ? this : taskMaster;
+    	worker.context = context;
+    	// the counters of the profiler are shared by all the workers
+    	worker.profiler = profiler;
+    	worker.phaseIntersections = phaseIntersections;
+    	worker.phaseUpperBounds = phaseUpperBounds;
+    	worker.phasePromisingItems = phasePromisingItems;
+    	return worker;
+    }
+
+    /**
+     * Add the statistics of a worker of the parallel mode to the statistics of this algorithm
+     * @param worker the worker
+     */
+    synchronized void addStatistics(AlgoEFIM worker) {
+    	candidateCount += worker.candidateCount;
+    	transactionReadingCount += worker.transactionReadingCount;
+    	mergeCount += worker.mergeCount;
+    }
 
     /**
      * Check if two transaction are identical
@@ -763,7 +940,10 @@ public class AlgoEFIM {
     		int j, List<Integer> itemsToKeep) {
 
     	// we will record the time used by this method for statistics purpose
-		long initialTime = System.currentTimeMillis();
+		long initialTime = (profiler == null) ? 0 : System.nanoTime();
+		
+		// count the number of transactions read
+		transactionReadingCount += transactionsPe.size();
 		
 		// For each promising item > e according to the total order
 		for (int i = j + 1; i < itemsToKeep.size(); i++) {
@@ -777,9 +957,6 @@ public class AlgoEFIM {
 		int sumRemainingUtility;
 		// for each transaction
 		for (Transaction transaction : transactionsPe) {
-			// count the number of transactions read
-			transactionReadingCount++;
-			
 			// We reset the sum of reamining utility to 0;
 			sumRemainingUtility = 0;
 			// we set high to the last promising item for doing the binary search
@@ -824,7 +1001,10 @@ public class AlgoEFIM {
 			}
 		}
 		// we update the time for database reduction for statistics purpose
-		timeDatabaseReduction += (System.currentTimeMillis() - initialTime);
+		if(profiler != null){
+			phaseUpperBounds.addTime(initialTime);
+			phaseUpperBounds.addCount(transactionsPe.size());
+		}
     }
 
 
@@ -835,13 +1015,33 @@ public class AlgoEFIM {
      * @throws IOException if error while writting to output file
      */
     private void output(int tempPosition, int utility) throws IOException {
+    	// update the progress of the algorithm
+    	context.patternFound();
+    	
+    	// if this is a worker of the parallel mode, the itemset is kept in the buffer of the task
+    	// and will be saved later by the algorithm that created the worker
+    	if(taskOutput != null) {
+    		taskOutput.add(temp, tempPosition + 1, utility);
+    		return;
+    	}
+    	saveItemset(temp, tempPosition + 1, utility);
+    }
+
+    /**
+     * Save a high-utility itemset to file or memory depending on what the user chose.
+     * @param itemset an array containing the items (using their original names)
+     * @param itemsetLength the number of items
+     * @param utility the utility of the itemset
+     * @throws IOException if error while writting to output file
+     */
+    void saveItemset(int[] itemset, int itemsetLength, int utility) throws IOException {
         patternCount++;
             
         	// if user wants to save the results to memory
 		if (writer == null) {
 			// we copy the temporary buffer into a new int array
-			int[] copy = new int[tempPosition+1];
-			System.arraycopy(temp, 0, copy, 0, tempPosition+1);
+			int[] copy = new int[itemsetLength];
+			System.arraycopy(itemset, 0, copy, 0, itemsetLength);
 			// we create the itemset using this array and add it to the list of itemsets
 			// found until now
 			highUtilityItemsets.addItemset(new Itemset(copy, utility),copy.length); 
@@ -850,9 +1050,9 @@ public class AlgoEFIM {
 			// create a stringuffer
 			StringBuffer buffer = new StringBuffer();
 			// append each item from the itemset to the stringbuffer, separated by spaces
-			for (int i = 0; i <= tempPosition; i++) {
-				buffer.append(temp[i]);
-				if (i != tempPosition) {
+			for (int i = 0; i < itemsetLength; i++) {
+				buffer.append(itemset[i]);
+				if (i != itemsetLength - 1) {
 					buffer.append(' ');
 				}
 			}
@@ -884,19 +1084,41 @@ public class AlgoEFIM {
 		if(DEBUG) {
 			System.out.println(" Transaction merge count ~: " + mergeCount);	
 			System.out.println(" Transaction read count ~: " + transactionReadingCount);	
-			
-			System.out.println(" Time intersections ~: " + timeIntersections
-					+ " ms");	
-			System.out.println(" Time database reduction ~: " + timeDatabaseReduction
-					+ " ms");
-			System.out.println(" Time promising items ~: " + timeIdentifyPromisingItems
-					+ " ms");
-			System.out.println(" Time binary search ~: " + timeBinarySearch
-					+ " ms");
-			System.out.println(" Time sort ~: " + timeSort	+ " ms");
 		}
 		System.out.println(" Max memory:" + MemoryLogger.getInstance().getMaxMemory());
 		System.out.println(" Candidate count : "             + candidateCount);
 		System.out.println("=====================================");
 	}
+
+	/**
+	 * Set the number of threads used for exploring the search space. If more than one thread
+	 * is used, the primary items of the first level of the search tree (and large projected databases)
+	 * are explored in parallel. The result is the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set a profiler to measure the time spent in each phase of the algorithm
+	 * (reading the database, sorting, intersections, calculating upper-bounds and
+	 * identifying promising items). By default, no profiler is used.
+	 * @param profiler the profiler or null to deactivate profiling
+	 */
+	public void setProfiler(PhaseProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Set the mining context that is used to stop the algorithm while it is running
+	 * and to follow its progress.
+	 * @param miningContext the context, or null to use the context of the current thread if any (default)
+	 */
+	public void setMiningContext(MiningContext miningContext) {
+		this.miningContext = miningContext;
+	}
 }
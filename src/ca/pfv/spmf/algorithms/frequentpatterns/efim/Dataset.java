@@ -1,10 +1,10 @@
 package ca.pfv.spmf.algorithms.frequentpatterns.efim;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+
+import ca.pfv.spmf.input.SPMFFileTokenizer;
 /* This file is copyright (c) 2012-2015 Souleymane Zida, Philippe Fournier-Viger, Alan Souza
 * 
 * This file is part of the SPMF DATA MINING SOFTWARE
@@ -45,20 +45,15 @@ public class Dataset {
     	// Initialize a list to store transactions in memory
         transactions = new ArrayList<Transaction>();
         
-        // Create a buffered reader to read the input file
-        BufferedReader br = new BufferedReader(new FileReader(datasetPath));
-        String line;
+        // Create a tokenizer to read the input file
+        SPMFFileTokenizer tokenizer = new SPMFFileTokenizer(datasetPath);
         int i=0;
         // iterate over the lines to build the transaction
-        while((line = br.readLine()) != null) { 
-			// if the line is  a comment, is  empty or is  metadata
-			if (line.isEmpty() == true || line.charAt(0) == '#' 
-					|| line.charAt(0) == '%' || line.charAt(0) == '@') {
-				continue;
-			}
+        // (comments, empty lines and metadata are skipped by the tokenizer)
+        while(tokenizer.nextUtilityTransaction()) { 
 			i++;
 			// read the transaction
-			transactions.add(createTransaction(line));
+			transactions.add(createTransaction(tokenizer));
 			// if the number of transaction to be read is reached, we stop
         	if(i==maximumTransactionCount) {
         		break;
@@ -67,39 +62,21 @@ public class Dataset {
         }
         //****** Show the number of transactions in this dataset**************************//
         System.out.println("Transaction count :" +  transactions.size());
-        br.close();
+        tokenizer.close();
     }
 
     /**
-     * Create a transaction object from a line from the input file
-     * @param line a line from input file
+     * Create a transaction object from the line that was just read by a tokenizer
+     * @param tokenizer the tokenizer reading the input file
      * @return a transaction
      */
-    private Transaction createTransaction(String line) {
-    	// split the line into tokens according to the ":" separator
-    	String[] split = line.split(":");
-    	
-    	// Get the transaction utility
-    	int transactionUtility = Integer.parseInt(split[1]);
-    	
-    	// Get the list of items 
-        String[] itemsString = split[0].split(" ");
-    	
-        // Get the list of item utilities
-        String[] itemsUtilitiesString = split[2].split(" ");
-    	
+    private Transaction createTransaction(SPMFFileTokenizer tokenizer) {
         //Create array to store the items and their utilities
-        int[] items = new  int[itemsString.length];
-        int[] utilities = new  int[itemsString.length];
+        int[] items = tokenizer.copyItems();
+        int[] utilities = tokenizer.copyUtilities();
 
         // for each item
         for (int i = 0; i < items.length; i++) {
-        	//store the item
-        	items[i] = Integer.parseInt(itemsString[i]);
-        	
-        	// store its utility in that transaction
-        	utilities[i] = Integer.parseInt(itemsUtilitiesString[i]);
-            
             // if the item name is larger than the largest item read from the database until now, we remember
         	// its name
             if(items[i] > maxItem) {
@@ -108,7 +85,7 @@ public class Dataset {
         }
 
 		// create the transaction object for this transaction and return it
-		return new Transaction(items, utilities, transactionUtility);
+		return new Transaction(items, utilities, tokenizer.getTransactionUtility());
     }
 
     /**
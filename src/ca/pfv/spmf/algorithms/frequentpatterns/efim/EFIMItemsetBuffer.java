@@ -0,0 +1,122 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.efim;
+
+/* This file is copyright (c) 2012-2015 Souleymane Zida & Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class stores the high-utility itemsets found by a task of the parallel EFIM engine,
+ * in the order where they were found. Itemsets are packed in int arrays rather than
+ * stored as Itemset objects to reduce memory usage.
+ * <br/><br/>
+ *
+ * A task may also hand over a sub-tree of the search space to a sub-task. In that case, the
+ * position of the sub-task in the output is recorded so that the itemsets of the sub-task
+ * are replayed exactly where a serial execution would have found them.
+ *
+ * @see ParallelEFIMMiner
+ * @author Philippe Fournier-Viger
+ */
+class EFIMItemsetBuffer {
+
+	// the items of all the itemsets, one after the other
+	private int[] items = new int[64];
+	// the number of cells used in the "items" array
+	private int itemsSize = 0;
+
+	// the length and utility of each itemset
+	private int[] lengths = new int[16];
+	private int[] utilities = new int[16];
+	// the number of itemsets in this buffer
+	private int count = 0;
+
+	// the sub-tasks that were forked by the task writing in this buffer
+	private List<ParallelEFIMMiner.MiningTask> subTasks = null;
+	// for each sub-task, the number of itemsets that were found before it was forked
+	private int[] subTaskPositions = null;
+
+	/**
+	 * Append an itemset to this buffer
+	 * @param itemset an array containing the items
+	 * @param itemsetLength the number of items to take from the array
+	 * @param utility the utility of the itemset
+	 */
+	void add(int[] itemset, int itemsetLength, int utility) {
+		// grow the arrays if needed
+		if(itemsSize + itemsetLength > items.length) {
+			items = Arrays.copyOf(items, Math.max(items.length * 2, itemsSize + itemsetLength));
+		}
+		if(count == lengths.length) {
+			lengths = Arrays.copyOf(lengths, count * 2);
+			utilities = Arrays.copyOf(utilities, count * 2);
+		}
+		System.arraycopy(itemset, 0, items, itemsSize, itemsetLength);
+		itemsSize += itemsetLength;
+		lengths[count] = itemsetLength;
+		utilities[count] = utility;
+		count++;
+	}
+
+	/**
+	 * Record that a sub-task was forked at the current position of this buffer
+	 * @param task the sub-task
+	 */
+	void addSubTask(ParallelEFIMMiner.MiningTask task) {
+		if(subTasks == null) {
+			subTasks = new ArrayList<ParallelEFIMMiner.MiningTask>();
+			subTaskPositions = new int[4];
+		}else if(subTasks.size() == subTaskPositions.length) {
+			subTaskPositions = Arrays.copyOf(subTaskPositions, subTaskPositions.length * 2);
+		}
+		subTaskPositions[subTasks.size()] = count;
+		subTasks.add(task);
+	}
+
+	/**
+	 * Send the itemsets of this buffer and of its sub-tasks to the algorithm, in the order
+	 * of a serial execution. This waits for the sub-tasks to terminate if needed.
+	 * @param algo the algorithm that will save the itemsets
+	 * @param itemsetBuffer a buffer large enough to store any itemset
+	 * @throws IOException if an error occurs while writing an itemset
+	 */
+	void replay(AlgoEFIM algo, int[] itemsetBuffer) throws IOException {
+		int nextSubTask = 0;
+		int subTaskCount = subTasks == null ? 0 : subTasks.size();
+		int position = 0;
+		for(int i = 0; i <= count; i++) {
+			// first replay the sub-tasks that were forked before this itemset was found
+			while(nextSubTask < subTaskCount && subTaskPositions[nextSubTask] == i) {
+				ParallelEFIMMiner.MiningTask task = subTasks.get(nextSubTask);
+				task.join();
+				task.getOutput().replay(algo, itemsetBuffer);
+				// release the memory used by the sub-task
+				subTasks.set(nextSubTask, null);
+				nextSubTask++;
+			}
+			if(i == count) {
+				break;
+			}
+			// then replay the itemset
+			System.arraycopy(items, position, itemsetBuffer, 0, lengths[i]);
+			position += lengths[i];
+			algo.saveItemset(itemsetBuffer, lengths[i], utilities[i]);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.efim;
+
+/* This file is copyright (c) 2012-2015 Souleymane Zida & Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class is the engine used to run EFIM with several threads.
+ * <br/><br/>
+ *
+ * Each primary item of the first level of the search tree is explored by a separate task of a
+ * fork-join pool. A task uses its own worker (a copy of the algorithm with its own utility-bin
+ * arrays and prefix buffer) and stores the high-utility itemsets that it finds in an
+ * {@link EFIMItemsetBuffer}. The projected databases created by a worker are only used by that
+ * worker. A worker may also fork a sub-task for exploring a large projected database.
+ * <br/><br/>
+ *
+ * The itemsets are then sent back to the original algorithm object, on the calling thread,
+ * following the order of the primary items. The calling thread is thus the only one that
+ * writes to the output file or to the Itemsets object, and the result is identical to
+ * that of a serial execution (including the order of itemsets in the output file).
+ *
+ * @see AlgoEFIM
+ * @author Philippe Fournier-Viger
+ */
+class ParallelEFIMMiner {
+
+	/**
+	 * A task of the fork-join pool, which explores either a primary item of the first level of
+	 * the search tree or a whole sub-tree.
+	 */
+	static class MiningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		// the algorithm that created this task
+		private final AlgoEFIM master;
+		// the transactions containing the prefix
+		private final List<Transaction> transactionsOfP;
+		// the secondary and primary items
+		private final List<Integer> itemsToKeep;
+		private final List<Integer> itemsToExplore;
+		// the position of the primary item to explore at the first level, or -1 to explore the whole sub-tree
+		private final int itemIndex;
+		// a copy of the prefix
+		private final int[] prefix;
+		private final int prefixLength;
+
+		// the itemsets found by this task
+		private final EFIMItemsetBuffer output = new EFIMItemsetBuffer();
+
+		/**
+		 * Constructor
+		 * @param master the algorithm that creates this task
+		 * @param transactionsOfP the transactions containing the prefix
+		 * @param itemsToKeep the secondary items
+		 * @param itemsToExplore the primary items
+		 * @param itemIndex the position of the primary item to explore or -1 to explore the whole sub-tree
+		 * @param prefix the current prefix (it is copied)
+		 * @param prefixLength the prefix length
+		 */
+		MiningTask(AlgoEFIM master, List<Transaction> transactionsOfP, List<Integer> itemsToKeep,
+				List<Integer> itemsToExplore, int itemIndex, int[] prefix, int prefixLength) {
+			this.master = master;
+			this.transactionsOfP = transactionsOfP;
+			this.itemsToKeep = itemsToKeep;
+			this.itemsToExplore = itemsToExplore;
+			this.itemIndex = itemIndex;
+			this.prefix = new int[prefixLength];
+			System.arraycopy(prefix, 0, this.prefix, 0, prefixLength);
+			this.prefixLength = prefixLength;
+		}
+
+		@Override
+		protected void compute() {
+			AlgoEFIM worker = master.createWorker(output);
+			try {
+				if(itemIndex >= 0) {
+					worker.exploreFirstLevelItem(transactionsOfP, itemsToKeep, itemsToExplore, itemIndex);
+				}else {
+					worker.exploreSubtree(transactionsOfP, itemsToKeep, itemsToExplore, prefix, prefixLength);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				master.addStatistics(worker);
+			}
+		}
+
+		/**
+		 * Get the itemsets found by this task
+		 * @return the buffer containing the itemsets
+		 */
+		EFIMItemsetBuffer getOutput() {
+			return output;
+		}
+	}
+
+	/**
+	 * Explore the search tree using several threads.
+	 * @param master the algorithm that will receive all the itemsets found
+	 * @param transactions the transactions of the database (they are only read during the mining)
+	 * @param itemsToKeep the secondary items
+	 * @param itemsToExplore the primary items
+	 * @param threadCount the number of threads
+	 * @param bufferSize the size of a buffer that can store any itemset
+	 * @throws IOException if an error occurs while writing the itemsets
+	 */
+	static void mine(AlgoEFIM master, List<Transaction> transactions, List<Integer> itemsToKeep,
+			List<Integer> itemsToExplore, int threadCount, int bufferSize) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			// Create a task for each primary item, in the order used by the serial algorithm
+			List<MiningTask> tasks = new ArrayList<MiningTask>(itemsToExplore.size());
+			int[] emptyPrefix = new int[0];
+			for(int j = 0; j < itemsToExplore.size(); j++) {
+				MiningTask task = new MiningTask(master, transactions, itemsToKeep, itemsToExplore, j, emptyPrefix, 0);
+				tasks.add(task);
+				pool.execute(task);
+			}
+
+			// Wait for each task in order and save its itemsets as soon as it is done
+			int[] itemsetBuffer = new int[bufferSize];
+			for(int i = 0; i < tasks.size(); i++) {
+				MiningTask task = tasks.get(i);
+				task.join();
+				task.getOutput().replay(master, itemsetBuffer);
+				// release the memory used by this task
+				tasks.set(i, null);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Fork a sub-task for exploring the sub-tree of a prefix. The position of the sub-task is
+	 * recorded in the output buffer of the worker that forks it.
+	 * @param master the algorithm that will create the worker of the sub-task
+	 * @param output the buffer of the worker that forks the sub-task
+	 * @param transactionsOfP the projected database of the prefix
+	 * @param itemsToKeep the secondary items
+	 * @param itemsToExplore the primary items
+	 * @param prefix the prefix
+	 * @param prefixLength the prefix length
+	 */
+	static void forkSubtree(AlgoEFIM master, EFIMItemsetBuffer output, List<Transaction> transactionsOfP,
+			List<Integer> itemsToKeep, List<Integer> itemsToExplore, int[] prefix, int prefixLength) {
+		MiningTask task = new MiningTask(master, transactionsOfP, itemsToKeep, itemsToExplore, -1, prefix, prefixLength);
+		output.addSubTask(task);
+		task.fork();
+	}
+}
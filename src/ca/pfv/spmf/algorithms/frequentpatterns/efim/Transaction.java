@@ -65,6 +65,18 @@ public class Transaction {
      * @param offsetE an offset over the original transaction for projecting the transaction
      */
     public Transaction(Transaction transaction, int offsetE) {	
+    	this(transaction, transaction.offset, offsetE);
+    }
+    
+    /**
+     * Constructor for a projected transaction, where the utility of items is subtracted
+     * starting from a given position rather than from the offset of the transaction
+     * (this is used when several threads project the same transaction)
+     * @param transaction the transaction that will be projected
+     * @param startOffset the position of the first item whose utility is subtracted
+     * @param offsetE an offset over the original transaction for projecting the transaction
+     */
+    Transaction(Transaction transaction, int startOffset, int offsetE) {	
     	// copy items and utilities from the original transaction
     	this.items = transaction.getItems();
     	this.utilities = transaction.getUtilities();
@@ -80,7 +92,7 @@ public class Transaction {
     	this.transactionUtility = transaction.transactionUtility - utilityE;
     	// and we also need to subtract the utility of all items before e
     	// but after the previous offset
-    	for(int i = transaction.offset; i < offsetE; i++){
+    	for(int i = startOffset; i < offsetE; i++){
     		this.transactionUtility -= transaction.utilities[i];
     	}
     	// remember the offset for this projected transaction
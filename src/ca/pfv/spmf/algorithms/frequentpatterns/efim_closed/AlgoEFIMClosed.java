@@ -10,6 +10,7 @@ import java.util.Comparator;
 import java.util.List;
 
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.PhaseProfiler;
 
 /* This file is copyright (c) 2012-2015 Souleymane Zida & Philippe Fournier-Viger
  * 
@@ -103,6 +104,15 @@ public class AlgoEFIMClosed {
 	/** If true, the closed pattern jump strategy will be performed */
 	private boolean activateClosedPatternJumping;
 
+	/** the profiler used to measure the time of each phase or null if profiling is deactivated */
+	private PhaseProfiler profiler = null;
+
+	// The phases measured by the profiler (these variables are null if profiling is deactivated)
+	private PhaseProfiler.Phase phaseReadDatabase;
+	private PhaseProfiler.Phase phaseIntersections;
+	private PhaseProfiler.Phase phaseBackwardExtension;
+	private PhaseProfiler.Phase phaseUpperBounds;
+
 	/**
 	 * Constructor
 	 */
@@ -137,6 +147,14 @@ public class AlgoEFIMClosed {
 		mergeCount = 0;
 		transactionReadingCount = 0;
 
+		// get the phases measured by the profiler, if profiling is activated
+		if (profiler != null) {
+			phaseReadDatabase = profiler.getPhase("Read database");
+			phaseIntersections = profiler.getPhase("Intersections");
+			phaseBackwardExtension = profiler.getPhase("Backward extension check");
+			phaseUpperBounds = profiler.getPhase("Upper bounds");
+		}
+
 		// save parameters about activating or not the optimizations
 		this.activateTransactionMerging = activateTransactionMerging;
 		this.activateSubtreeUtilityPruning = activateSubtreeUtilityPruning;
@@ -146,7 +164,12 @@ public class AlgoEFIMClosed {
 		startTimestamp = System.currentTimeMillis();
 
 		// read the input file
+		long timeStartReading = (profiler == null) ? 0 : System.nanoTime();
 		Dataset dataset = new Dataset(inputPath, maximumTransactionCount);
+		if (profiler != null) {
+			phaseReadDatabase.addTime(timeStartReading);
+			phaseReadDatabase.addCount(dataset.getTransactions().size());
+		}
 
 		// save the minUtil value selected by the user
 		this.minUtil = minUtil;
@@ -506,10 +529,14 @@ public class AlgoEFIMClosed {
 			Transaction previousTransaction = null;
 			int consecutiveMergeCount = 0;
 
+			// this variable is to record the time for performing intersection
+			long timeFirstIntersection = (profiler == null) ? 0 : System.nanoTime();
+
+			// Increase the number of transaction read
+			transactionReadingCount += transactionsOfP.size();
+
 			// For each transaction
 			for (Transaction transaction : transactionsOfP) {
-				// Increase the number of transaction read
-				transactionReadingCount++;
 
 				// we remember the position where e appears.
 				// we will call this position an "offset"
@@ -688,10 +715,21 @@ public class AlgoEFIMClosed {
 				transactionsPe.add(previousTransaction);
 			}
 
+			// remember the total time for peforming the database projection
+			if (profiler != null) {
+				phaseIntersections.addTime(timeFirstIntersection);
+				phaseIntersections.addCount(transactionsOfP.size());
+			}
+
 			// / ==================== END OF INTERSECTION
 			// ===========================
 			// ====== Check if PU{e...} has a backward extension ======
-			if (hasNoBackwardExtension(temp, prefixLength, transactionsPe,	nowEmptyTransactionsPe, e)) {
+			long timeStartCheck = (profiler == null) ? 0 : System.nanoTime();
+			boolean noBackwardExtension = hasNoBackwardExtension(temp, prefixLength, transactionsPe,	nowEmptyTransactionsPe, e);
+			if (profiler != null) {
+				phaseBackwardExtension.addTime(timeStartCheck);
+			}
+			if (noBackwardExtension) {
 				
 				
 				
@@ -1014,7 +1052,10 @@ public class AlgoEFIMClosed {
 		int utilityOfRemainingItemsJumpingClosure = 0;
 
 		// we will record the time used by this method for statistics purpose
-		long initialTime = System.currentTimeMillis();
+		long initialTime = (profiler == null) ? 0 : System.nanoTime();
+
+		// count the number of transactions read
+		transactionReadingCount += transactionsPe.size();
 
 		// For each promising item > e according to the total order
 		for (int i = j + 1; i < itemsToKeep.size(); i++) {
@@ -1032,9 +1073,6 @@ public class AlgoEFIMClosed {
 		int sumRemainingUtility;
 		// for each transaction
 		for (Transaction transaction : transactionsPe) {
-			// count the number of transactions read
-			transactionReadingCount++;
-
 			// We reset the sum of reamining utility to 0;
 			sumRemainingUtility = 0;
 			// we set high to the last promising item for doing the binary
@@ -1094,6 +1132,12 @@ public class AlgoEFIMClosed {
 			}
 		}
 
+		// we update the time for calculating upper-bounds for statistics purpose
+		if (profiler != null) {
+			phaseUpperBounds.addTime(initialTime);
+			phaseUpperBounds.addCount(transactionsPe.size());
+		}
+
 		return utilityOfRemainingItemsJumpingClosure;
 	}
 
@@ -1176,4 +1220,14 @@ public class AlgoEFIMClosed {
 		System.out.println(" Visited node count : " + candidateCount);
 		System.out.println("=====================================");
 	}
+
+	/**
+	 * Set a profiler to measure the time spent in each phase of the algorithm
+	 * (reading the database, intersections, checking backward extensions and
+	 * calculating upper-bounds). By default, no profiler is used.
+	 * @param profiler the profiler or null to deactivate profiling
+	 */
+	public void setProfiler(PhaseProfiler profiler) {
+		this.profiler = profiler;
+	}
 }
@@ -33,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.ItemsetSink;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -73,6 +74,10 @@ public class AlgoFPClose {
 	// The  patterns that are found 
 	// (if the user want to keep them into memory)
 	protected Itemsets patterns = null;
+	
+	// The object receiving the patterns that are found, if the user want them
+	// to be passed to that object rather than kept into memory
+	private ItemsetSink itemsetSink = null;
 		
 	// This variable is used to determine the size of buffers to store itemsets.
 	// A value of 2000 should be enough 
@@ -83,6 +88,8 @@ public class AlgoFPClose {
 	private int[] itemsetBuffer = null;
 	// Buffer for storing the counts of the current itemset that is mined 
 	private int[] countBuffer = null;
+	// This buffer is used to sort an itemset before it is passed to the ItemsetSink
+	private int[] itemsetOutputBuffer = null;
 	
 	
 	// This is the CFI tree for storing closed itemsets
@@ -94,6 +101,23 @@ public class AlgoFPClose {
 	// If set to true, the algorithm will show  information for debugging in the console
 	private final boolean DEBUG = false;
 	
+	/** number of threads used for mining (1 = serial execution) */
+	private int threadCount = 1;
+	
+	// If this object is a worker of the parallel mode, the buffer where the itemsets are saved.
+	// Otherwise, this variable is null.
+	private FPPatternBuffer taskOutput = null;
+	
+	/** if true, the algorithm uses a CompactFPTree instead of an FPTree */
+	private boolean useCompactTree = false;
+	
+	// The following variables are used when the algorithm uses a CompactFPTree:
+	// the original name of each item (the item i of the tree is compactItems[i])
+	private int[] compactItems = null;
+	// buffers used to create conditional trees
+	private int[] compactSupportBuffer = null;
+	private int[] compactItemBuffer = null;
+	
 	// Comparator to compare the items based on the order of decreasing support in the original DB.
 	Comparator<Integer> comparatorOriginalOrder = new Comparator<Integer>(){
 		public int compare(Integer item1, Integer item2){
@@ -135,9 +159,13 @@ public class AlgoFPClose {
 		MemoryLogger.getInstance().checkMemory();
 		
 		// if the user want to keep the result into memory
-		if(output == null){
+		if(output == null && itemsetSink == null){
 			writer = null;
 			patterns =  new Itemsets("FREQUENT ITEMSETS");
+	    }else if(output == null){ // if the user want to pass the result to an ItemsetSink
+			writer = null;
+			patterns = null;
+			itemsetOutputBuffer = new int[BUFFERS_SIZE];
 	    }else{ // if the user want to save the result to a file
 			patterns = null;
 			writer = new BufferedWriter(new FileWriter(output)); 
@@ -155,7 +183,35 @@ public class AlgoFPClose {
 
 		// Create the CFI Tree
 		cfiTree = new CFITree();	
+		cfiTree.setComparator(comparatorOriginalOrder);
+		
+		// if the user wants to use the compact FP-tree
+		if(useCompactTree) {
+			mineWithCompactTree(input);
+		}else {
+			mineWithFPTree(input);
+		}
+		
+		// close the output file if the result was saved to a file
+		if(writer != null){
+			writer.close();
+		}
+		// record the execution end time
+		endTime= System.currentTimeMillis();
 		
+		// check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+		
+		// return the result (if saved to memory)
+		return patterns;
+	}
+	
+	/**
+	 * Build the initial FP-tree and mine it.
+	 * @param input the path to an input file containing a transaction database.
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineWithFPTree(String input) throws IOException {
 		// (2) Scan the database again to build the initial FP-Tree
 		// Before inserting a transaction in the FPTree, we sort the items
 		// by descending order of support.  We ignore items that
@@ -190,8 +246,6 @@ public class AlgoFPClose {
 			// add the sorted transaction to the fptree.
 			tree.addTransaction(transaction);
 		}
-		
-		cfiTree.setComparator(comparatorOriginalOrder);
 		// close the input file
 		reader.close();
 		
@@ -208,22 +262,46 @@ public class AlgoFPClose {
 			// initialize the buffer for storing the current itemset
 			itemsetBuffer = new int[BUFFERS_SIZE];
 			countBuffer = new int[BUFFERS_SIZE];
-			// Next we will recursively generate frequent itemsets using the fp-tree
-			fpclose(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
-		}
-		
-		// close the output file if the result was saved to a file
-		if(writer != null){
-			writer.close();
+			// if several threads are used and the tree is not a single path,
+			// the items of the header list are mined in parallel
+			if(threadCount > 1 && tree.root.childs.size() > 1) {
+				ParallelFPMiner.mine(new ParallelMiner(this), tree, transactionCount, originalMapSupport, threadCount, BUFFERS_SIZE);
+			}else {
+				// Next we will recursively generate frequent itemsets using the fp-tree
+				fpclose(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+			}
 		}
-		// record the execution end time
-		endTime= System.currentTimeMillis();
+	}
+	
+	/**
+	 * Build the initial FP-tree as a CompactFPTree and mine it.
+	 * @param input the path to an input file containing a transaction database.
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineWithCompactTree(String input) throws IOException {
+		// (2) Rename the frequent items so that the item 0 is the most frequent item
+		// and build the initial FP-Tree. The order of items in the tree is thus the
+		// order of decreasing support in the original database.
+		compactItems = CompactFPTree.getFrequentItemsBySupport(originalMapSupport, minSupportRelative);
+		CompactFPTree tree = CompactFPTree.createFromFile(input, compactItems);
 		
 		// check the memory usage
 		MemoryLogger.getInstance().checkMemory();
 		
-		// return the result (if saved to memory)
-		return patterns;
+		// if at least an item is frequent
+		if(tree.getHeaderListSize() > 0) {
+			// initialize the buffers (an itemset cannot contain more than all the frequent items)
+			itemsetBuffer = new int[compactItems.length];
+			countBuffer = new int[compactItems.length];
+			compactSupportBuffer = new int[compactItems.length];
+			compactItemBuffer = new int[compactItems.length];
+			
+			// We create the header table for the tree
+			tree.sortHeaderListByItem();
+			
+			// recursively generate closed itemsets using the fp-tree
+			fpcloseCompact(tree, itemsetBuffer, 0, transactionCount);
+		}
 	}
 
 	
@@ -326,120 +404,244 @@ public class AlgoFPClose {
 			
 			// For each frequent item in the header table list of the tree in reverse order. (in decreasing order of support...)
 			for(int i = tree.headerList.size()-1; i>=0; i--){
-				// get the item
-				Integer item = tree.headerList.get(i);
+				mineHeaderItem(tree, i, prefix, prefixLength, prefixSupport, mapSupport);
+			}
+		}
+	}
+
+	/**
+	 * Mine the itemsets obtained by extending a prefix with an item of the header list of an FP-tree.
+	 * @param tree  the FP-tree
+	 * @param i the position of the item in the header list
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the current prefix length
+	 * @param prefixSupport the support of the current prefix
+	 * @param mapSupport the frequency of items in the FP-Tree
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void mineHeaderItem(FPTree tree, int i, int [] prefix, int prefixLength, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+		// get the item
+		Integer item = tree.headerList.get(i);
+		
+		// get the item support
+		int support = mapSupport.get(item);
+		
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+
+		// Create Beta by concatening item to the current prefix  alpha
+		prefix[prefixLength] = item;
+		countBuffer[prefixLength] = betaSupport;
+		
+		// === (A) Construct beta's conditional pattern base ===
+		// It is a subdatabase which consists of the set of prefix paths
+		// in the FP-tree co-occuring with the prefix pattern.
+		List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+		FPNode path = tree.mapItemNodes.get(item);
+		
+		// Map to count the support of items in the conditional prefix tree
+		// Key: item   Value: support
+		Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+		
+		while(path != null){
+			// if the path is not just the root node
+			if(path.parent.itemID != -1){
+				// create the prefixpath
+				List<FPNode> prefixPath = new ArrayList<FPNode>();
+				// add this node.
+				prefixPath.add(path);   // NOTE: we add it just to keep its support,
+				// actually it should not be part of the prefixPath
+				
+				// ####
+				int pathCount = path.counter;
 				
-				// get the item support
-				int support = mapSupport.get(item);
+				//Recursively add all the parents of this node.
+				FPNode parent = path.parent;
+				while(parent.itemID != -1){
+					prefixPath.add(parent);
+					
+					// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
+					// if the first time we see that node id
+					if(mapSupportBeta.get(parent.itemID) == null){
+						// just add the path count
+						mapSupportBeta.put(parent.itemID, pathCount);
+					}else{
+						// otherwise, make the sum with the value already stored
+						mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
+					}
+					parent = parent.parent;
+				}
+				// add the path to the list of prefixpaths
+				prefixPaths.add(prefixPath);
+			}
+			// We will look for the next prefixpath
+			path = path.nodeLink;
+		}
+
+		
+		// ===== FP-CLOSE ======
+		// concatenate Beta (Head) with the item "item" (i) to check 
+		// for closure
+		int[] headWithP = new int[prefixLength+1];
+		System.arraycopy(prefix, 0, headWithP, 0, prefixLength+1);
+		
+		// Sort Head U {item} according to the original header list total order on items
+		// sort item in the transaction by descending order of support
+		sortOriginalOrder(headWithP, prefixLength+1);
+
+		//======= DEBUG ========
+		if(DEBUG) {
+			System.out.println(" CHECK2 : " + Arrays.toString(headWithP) + " sup=" + betaSupport);
+		}
+		//========== END DEBUG =======
+		
+		// CHECK IF HEAD U P IS A SUBSET OF A CFI ACCORDING TO THE CFI-TREE
+		if(cfiTree.passSubsetChecking(headWithP, prefixLength+1, betaSupport)) {
+			
+			if(DEBUG) {
+				System.out.println("    passed!");
+			}
+			// (B) Construct beta's conditional FP-Tree using its prefix path
+			// Create the tree.
+			FPTree treeBeta = new FPTree();
+			// Add each prefixpath in the FP-tree.
+			for(List<FPNode> prefixPath : prefixPaths){
+				treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
+			}  
+			// Mine recursively the Beta tree if the root has child(s)
+			if(treeBeta.root.childs.size() > 0){
+
+				// Create the header list.
+				treeBeta.createHeaderList(originalMapSupport); 
+				
+				// recursive call
+				fpclose(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+			}
+			// if the tree is empty we still need to try to save the 
+			// itemset
+			if(cfiTree.passSubsetChecking(headWithP, prefixLength+1, betaSupport)) {
+				saveItemset(headWithP, prefixLength+1, betaSupport);
+			}
+		}
+		else {
+			if(DEBUG) {
+				System.out.println("     failed!");
+			}
+//					// OPTIMIZATION ONLY IN FPCLOSE:  IF THE CLOSURE CHECKING iS NOT PASSED
+//					// WE STOP THIS LOOP BECAUSE THE NEXT ITEMS WILL NOT PASS IT EITHER
+//					break;
+		}
+	}
+
+	/**
+	 * Mine a CompactFPTree. This method does the same thing as {@link #fpclose}
+	 * but for a CompactFPTree.
+	 * @param tree  the FP-tree
+	 * @param prefix  the current prefix, named "alpha" (using the names of items in the CompactFPTree)
+	 * @param prefixLength the current prefix length
+	 * @param prefixSupport the support of the current prefix
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpcloseCompact(CompactFPTree tree, int [] prefix, int prefixLength, int prefixSupport) throws IOException {
+		// We first check if the FPtree contains a single path
+		boolean singlePath = true;
+		// This variable is used to count the number of items in the single path  (if there
+		// is one + the prefix length
+		int position = prefixLength;
+		for(int node = tree.getFirstChild(0); node != CompactFPTree.NO_NODE; node = tree.getFirstChild(node)) {
+			// if the current node has a sibling, it is not a single path!
+			if(tree.getNextSibling(node) != CompactFPTree.NO_NODE) {
+				singlePath = false;
+				break;
+			}
+			// otherwise, we copy the current item in the buffer and move to the child
+			prefix[position] = tree.getItem(node);
+			countBuffer[position] = tree.getCounter(node);
+			position++;
+		}
+		
+		// Case 1: the FPtree contains a single path
+		// If this path has enough support:
+		if(singlePath && countBuffer[position-1] >= minSupportRelative){
+			// generate all the CFIs from this path
+			// for each CFI X generated, we will check if X is closed
+			// by looking at the CFI-tree. If yes we will insert X in
+			// the CFI-Tree
+			for(int i = prefixLength; i <= position; i++) {
+				// if the last item or if the counter of item in the i+1 th position is different
+				// from the counter of item in the i th position:
+				if(i == position || (i > 0 && countBuffer[i-1] !=0 && countBuffer[i-1] != countBuffer[i])) {
+					int pathSupport = countBuffer[i-1];
+					
+					// if he current itemset passes the closure checking
+					// we save this as a closed itemset
+					int[] headWithP = toOriginalItems(prefix, i);
+					if(cfiTree.passSubsetChecking(headWithP, i, pathSupport)) {
+						saveSortedItemset(headWithP, i, pathSupport);
+					}
+				}
+			}
+		}else {
+			// Case 2: There are multiple paths.
+			
+			// For each frequent item in the header table list of the tree in reverse order. (in decreasing order of support...)
+			int[] headerList = tree.getHeaderList();
+			for(int i = tree.getHeaderListSize()-1; i>=0; i--){
+				// get the item and its support
+				int item = headerList[i];
+				int support = tree.getItemSupport(item);
 				
 				// calculate the support of the new prefix beta
 				int betaSupport = (prefixSupport < support) ? prefixSupport: support;
-
+				
 				// Create Beta by concatening item to the current prefix  alpha
 				prefix[prefixLength] = item;
 				countBuffer[prefixLength] = betaSupport;
 				
-				// === (A) Construct beta's conditional pattern base ===
-				// It is a subdatabase which consists of the set of prefix paths
-				// in the FP-tree co-occuring with the prefix pattern.
-				List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-				FPNode path = tree.mapItemNodes.get(item);
-				
-				// Map to count the support of items in the conditional prefix tree
-				// Key: item   Value: support
-				Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
-				
-				while(path != null){
-					// if the path is not just the root node
-					if(path.parent.itemID != -1){
-						// create the prefixpath
-						List<FPNode> prefixPath = new ArrayList<FPNode>();
-						// add this node.
-						prefixPath.add(path);   // NOTE: we add it just to keep its support,
-						// actually it should not be part of the prefixPath
-						
-						// ####
-						int pathCount = path.counter;
-						
-						//Recursively add all the parents of this node.
-						FPNode parent = path.parent;
-						while(parent.itemID != -1){
-							prefixPath.add(parent);
-							
-							// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-							// if the first time we see that node id
-							if(mapSupportBeta.get(parent.itemID) == null){
-								// just add the path count
-								mapSupportBeta.put(parent.itemID, pathCount);
-							}else{
-								// otherwise, make the sum with the value already stored
-								mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-							}
-							parent = parent.parent;
-						}
-						// add the path to the list of prefixpaths
-						prefixPaths.add(prefixPath);
-					}
-					// We will look for the next prefixpath
-					path = path.nodeLink;
-				}
-
-				
 				// ===== FP-CLOSE ======
 				// concatenate Beta (Head) with the item "item" (i) to check 
 				// for closure
-				int[] headWithP = new int[prefixLength+1];
-				System.arraycopy(prefix, 0, headWithP, 0, prefixLength+1);
-				
-				// Sort Head U {item} according to the original header list total order on items
-				// sort item in the transaction by descending order of support
-				sortOriginalOrder(headWithP, prefixLength+1);
-
-				//======= DEBUG ========
-				if(DEBUG) {
-					System.out.println(" CHECK2 : " + Arrays.toString(headWithP) + " sup=" + betaSupport);
-				}
-				//========== END DEBUG =======
+				int[] headWithP = toOriginalItems(prefix, prefixLength+1);
 				
 				// CHECK IF HEAD U P IS A SUBSET OF A CFI ACCORDING TO THE CFI-TREE
 				if(cfiTree.passSubsetChecking(headWithP, prefixLength+1, betaSupport)) {
-					
-					if(DEBUG) {
-						System.out.println("    passed!");
-					}
-					// (B) Construct beta's conditional FP-Tree using its prefix path
-					// Create the tree.
-					FPTree treeBeta = new FPTree();
-					// Add each prefixpath in the FP-tree.
-					for(List<FPNode> prefixPath : prefixPaths){
-						treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
-					}  
+					// Construct beta's conditional FP-Tree
+					tree.countConditionalSupports(item, minSupportRelative, compactSupportBuffer, compactItemBuffer);
+					CompactFPTree treeBeta = tree.createConditionalTree(item, minSupportRelative, compactSupportBuffer, compactItemBuffer);
 					// Mine recursively the Beta tree if the root has child(s)
-					if(treeBeta.root.childs.size() > 0){
-
+					if(treeBeta.getNodeCount() > 1){
 						// Create the header list.
-						treeBeta.createHeaderList(originalMapSupport); 
-						
+						treeBeta.sortHeaderListByItem();
 						// recursive call
-						fpclose(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+						fpcloseCompact(treeBeta, prefix, prefixLength+1, betaSupport);
 					}
 					// if the tree is empty we still need to try to save the 
 					// itemset
 					if(cfiTree.passSubsetChecking(headWithP, prefixLength+1, betaSupport)) {
-						saveItemset(headWithP, prefixLength+1, betaSupport);
+						saveSortedItemset(headWithP, prefixLength+1, betaSupport);
 					}
 				}
-				else {
-					if(DEBUG) {
-						System.out.println("     failed!");
-					}
-//					// OPTIMIZATION ONLY IN FPCLOSE:  IF THE CLOSURE CHECKING iS NOT PASSED
-//					// WE STOP THIS LOOP BECAUSE THE NEXT ITEMS WILL NOT PASS IT EITHER
-//					break;
-				}
 			}
 		}
 	}
+	
+	/**
+	 * Convert items of a CompactFPTree to the original items
+	 * @param items the items of the CompactFPTree
+	 * @param length the number of items
+	 * @return a new array containing the original items, sorted according to 
+	 *         the order of decreasing support in the original database
+	 */
+	private int[] toOriginalItems(int[] items, int length) {
+		// sorting the items gives the order of decreasing support in the original database
+		int[] originalItems = new int[length];
+		System.arraycopy(items, 0, originalItems, 0, length);
+		Arrays.sort(originalItems);
+		for(int i = 0; i < length; i++) {
+			originalItems[i] = compactItems[originalItems[i]];
+		}
+		return originalItems;
+	}
 
 	/**
 	 * Write a frequent itemset that is found to the output file or
@@ -452,6 +654,18 @@ public class AlgoFPClose {
 		int[] itemsetCopy = new int[itemsetLength];
 		System.arraycopy(itemset, 0, itemsetCopy, 0, itemsetLength);
 		sortOriginalOrder(itemsetCopy, itemsetLength);
+		saveSortedItemset(itemsetCopy, itemsetLength, support);
+	}
+	
+	/**
+	 * Save an itemset that is found.
+	 * @param itemsetCopy the itemset, sorted according to the order of decreasing support
+	 *        in the original database (this array is kept by the CFITree)
+	 * @param itemsetLength the number of items
+	 * @param support the support of the itemset
+	 * @throws IOException if error writing the output file
+	 */
+	private void saveSortedItemset(int [] itemsetCopy, int itemsetLength, int support) throws IOException {
 		
 		if(DEBUG) {
 	//		//======= DEBUG ========
@@ -466,6 +680,15 @@ public class AlgoFPClose {
 		// add the itemset to the CFI-TREE
 		cfiTree.addCFI(itemsetCopy, itemsetCopy.length, support);
 		
+		// if this is a worker of the parallel mode, the itemset is only a candidate
+		// because the worker does not know the closed itemsets found by other workers.
+		// It is kept in the buffer of the task and will be checked again by the algorithm
+		// that created the worker
+		if(taskOutput != null) {
+			taskOutput.add(itemsetCopy, itemsetLength, support);
+			return;
+		}
+		
 		// increase the number of itemsets found for statistics purpose
 		itemsetCount++;
 		
@@ -487,6 +710,13 @@ public class AlgoFPClose {
 			// write to file and create a new line
 			writer.write(buffer.toString());
 			writer.newLine();
+		}// if the result should be passed to an ItemsetSink
+		else if(itemsetSink != null){
+			// copy the itemset in the output buffer and sort items according to lexical ordering
+			// (the itemset itself is kept by the CFI-tree)
+			System.arraycopy(itemsetCopy, 0, itemsetOutputBuffer, 0, itemsetLength);
+			Arrays.sort(itemsetOutputBuffer, 0, itemsetLength);
+			itemsetSink.itemsetFound(itemsetOutputBuffer, itemsetLength, support);
 		}// otherwise the result is kept into memory
 		else{
 			
@@ -585,4 +815,92 @@ public class AlgoFPClose {
 	public int getDatabaseSize() {
 		return transactionCount;
 	}
+	
+	/**
+	 * Set if the algorithm should use a CompactFPTree (an FP-tree stored in arrays of integers)
+	 * instead of an FPTree. This greatly reduces the memory usage and the time for building
+	 * conditional FP-trees. The result is the same. The compact tree is only used for a
+	 * serial execution (the number of threads is then ignored).
+	 * @param useCompactTree true to use the compact tree (default: false)
+	 */
+	public void setUseCompactTree(boolean useCompactTree) {
+		this.useCompactTree = useCompactTree;
+	}
+	
+	/**
+	 * Set an object that will receive each frequent closed itemset as soon as it is found, when
+	 * no output file path is given to runAlgorithm(). The itemsets are then not kept into
+	 * memory and runAlgorithm() returns null.
+	 * @param itemsetSink the object receiving the itemsets, or null to keep them into memory (default)
+	 */
+	public void setItemsetSink(ItemsetSink itemsetSink) {
+		this.itemsetSink = itemsetSink;
+	}
+	
+	/**
+	 * Set the number of threads used for mining the FP-tree. If more than one thread
+	 * is used, the items of the header list of the initial FP-tree are mined in parallel,
+	 * each with its own CFITree. The closed itemsets found by each thread are then checked
+	 * against the global CFITree in the order of a serial execution, so that
+	 * the result is the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * This class lets the parallel engine use this algorithm. It wraps either the algorithm object
+	 * that was called by the user, or a worker having its own buffers and CFITree.
+	 */
+	private static class ParallelMiner implements ParallelFPMiner.Miner {
+		// the wrapped algorithm
+		private final AlgoFPClose algo;
+		
+		ParallelMiner(AlgoFPClose algo) {
+			this.algo = algo;
+		}
+		
+		@Override
+		public ParallelFPMiner.Miner createWorker(FPPatternBuffer output) {
+			AlgoFPClose worker = new AlgoFPClose();
+			worker.minSupportRelative = algo.minSupportRelative;
+			worker.originalMapSupport = algo.originalMapSupport;
+			worker.cfiTree = new CFITree();
+			worker.cfiTree.setComparator(worker.comparatorOriginalOrder);
+			worker.itemsetBuffer = new int[algo.BUFFERS_SIZE];
+			worker.countBuffer = new int[algo.BUFFERS_SIZE];
+			worker.taskOutput = output;
+			return new ParallelMiner(worker);
+		}
+
+		@Override
+		public void mineHeaderItem(FPTree tree, int headerIndex, int[] prefix, int prefixLength,
+				int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+			System.arraycopy(prefix, 0, algo.itemsetBuffer, 0, prefixLength);
+			algo.mineHeaderItem(tree, headerIndex, algo.itemsetBuffer, prefixLength, prefixSupport, mapSupport);
+		}
+
+		@Override
+		public void mineTree(FPTree tree, int[] prefix, int prefixLength,
+				int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+			System.arraycopy(prefix, 0, algo.itemsetBuffer, 0, prefixLength);
+			algo.fpclose(tree, algo.itemsetBuffer, prefixLength, prefixSupport, mapSupport);
+		}
+
+		@Override
+		public void emitItemset(int[] itemset, int itemsetLength, int support) throws IOException {
+			// the itemset is sorted according to the original order. We check that
+			// it is not a subset of a closed itemset with the same support found by a previous task
+			// (the CFI-tree expects an array having the exact length of the itemset)
+			int[] headWithP = new int[itemsetLength];
+			System.arraycopy(itemset, 0, headWithP, 0, itemsetLength);
+			if(algo.cfiTree.passSubsetChecking(headWithP, itemsetLength, support)) {
+				algo.saveItemset(headWithP, itemsetLength, support);
+			}
+		}
+	}
 }
@@ -18,10 +18,8 @@
  */
 
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -32,9 +30,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import ca.pfv.spmf.input.SPMFBinaryDataset;
+import ca.pfv.spmf.input.SPMFFileTokenizer;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.ItemsetSink;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningCancelledException;
+import ca.pfv.spmf.tools.MiningContext;
 
 /** 
  * This is an implementation of the FPGROWTH algorithm (Han et al., 2004).
@@ -69,6 +72,10 @@ public class AlgoFPGrowth {
 	// The  patterns that are found 
 	// (if the user want to keep them into memory)
 	protected Itemsets patterns = null;
+	
+	// The object receiving the patterns that are found, if the user want them
+	// to be passed to that object rather than kept into memory
+	private ItemsetSink itemsetSink = null;
 		
 	// This variable is used to determine the size of buffers to store itemsets.
 	// A value of 50 is enough because it allows up to 2^50 patterns!
@@ -87,6 +94,39 @@ public class AlgoFPGrowth {
 	
 	/** maximum pattern length */
 	private int maxPatternLength = 1000;
+	
+	/** number of threads used for mining (1 = serial execution) */
+	private int threadCount = 1;
+	
+	// A conditional FP-tree whose conditional pattern base contains at least this number of
+	// nodes is mined by a separate task, when the algorithm is run with several threads
+	private static final int SUBTREE_TASK_THRESHOLD = 8192;
+	
+	// If this object is a worker of the parallel mode, the buffer where the itemsets are saved
+	// and the algorithm that created the worker. Otherwise, these variables are null.
+	private FPPatternBuffer taskOutput = null;
+	private ParallelFPMiner.Miner taskMaster = null;
+	
+	/** if true, the algorithm uses a CompactFPTree instead of an FPTree */
+	private boolean useCompactTree = false;
+	
+	// The following variables are used when the algorithm uses a CompactFPTree:
+	// the original name of each item (the item i of the tree is compactItems[i])
+	private int[] compactItems = null;
+	// the position of each item according to the order of original names (to break ties when sorting header lists)
+	private int[] compactItemOrder = null;
+	// buffers used to create conditional trees
+	private int[] compactSupportBuffer = null;
+	private int[] compactItemBuffer = null;
+	// buffers for storing the items and counters of nodes in a single path
+	private int[] compactPathItemBuffer = null;
+	private int[] compactPathCounterBuffer = null;
+	
+	/** the mining context set by the user (if null, the context of the current thread is used) */
+	private MiningContext miningContext = null;
+	// the mining context of the current execution, which is polled to stop the algorithm
+	// and updated with its progress
+	private MiningContext context = null;
 
 	/**
 	 * Constructor
@@ -109,15 +149,21 @@ public class AlgoFPGrowth {
 		startTimestamp = System.currentTimeMillis();
 		// number of itemsets found
 		itemsetCount = 0;
+		// get the context that is polled to stop the algorithm
+		context = MiningContext.resolve(miningContext);
 		
 		//initialize tool to record memory usage
 		MemoryLogger.getInstance().reset();
 		MemoryLogger.getInstance().checkMemory();
 		
 		// if the user want to keep the result into memory
-		if(output == null){
+		if(output == null && itemsetSink == null){
 			writer = null;
 			patterns =  new Itemsets("FREQUENT ITEMSETS");
+	    }else if(output == null){ // if the user want to pass the result to an ItemsetSink
+			writer = null;
+			patterns = null;
+			itemsetOutputBuffer = new int[BUFFERS_SIZE];
 	    }else{ // if the user want to save the result to a file
 			patterns = null;
 			writer = new BufferedWriter(new FileWriter(output)); 
@@ -133,6 +179,42 @@ public class AlgoFPGrowth {
 		// relative minimum support
 		this.minSupportRelative = (int) Math.ceil(minsupp * transactionCount);
 		
+		try {
+			// if the user wants to use the compact FP-tree
+			if(useCompactTree) {
+				mineWithCompactTree(input, mapSupport);
+			}else {
+				mineWithFPTree(input, mapSupport);
+			}
+		}catch(MiningCancelledException e) {
+			// if the algorithm is stopped, close the output file, which contains the itemsets found until now
+			if(writer != null){
+				writer.close();
+			}
+			throw e;
+		}
+		
+		// close the output file if the result was saved to a file
+		if(writer != null){
+			writer.close();
+		}
+		// record the execution end time
+		endTime= System.currentTimeMillis();
+		
+		// check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+		
+		// return the result (if saved to memory)
+		return patterns;
+	}
+	
+	/**
+	 * Build the initial FP-tree and mine it.
+	 * @param input the path to an input file containing a transaction database.
+	 * @param mapSupport the support of each item in the database
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineWithFPTree(String input, final Map<Integer, Integer> mapSupport) throws IOException {
 		// (2) Scan the database again to build the initial FP-Tree
 		// Before inserting a transaction in the FPTree, we sort the items
 		// by descending order of support.  We ignore items that
@@ -140,24 +222,16 @@ public class AlgoFPGrowth {
 		FPTree tree = new FPTree();
 		
 		// read the file
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
+		SPMFFileTokenizer reader = new SPMFFileTokenizer(input);
 		// for each line (transaction) until the end of the file
-		while( ((line = reader.readLine())!= null)){ 
-			// if the line is  a comment, is  empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true ||	line.charAt(0) == '#' || line.charAt(0) == '%'
-				|| line.charAt(0) == '@') {
-				continue;
-			}
-			
-			String[] lineSplited = line.split(" ");
-//			Set<Integer> alreadySeen = new HashSet<Integer>();
+		// (comments, empty lines and metadata are skipped by the tokenizer)
+		while(reader.nextTransaction()){ 
+			int[] lineItems = reader.getItems();
 			List<Integer> transaction = new ArrayList<Integer>();
 			
 			// for each item in the transaction
-			for(String itemString : lineSplited){  
-				Integer item = Integer.parseInt(itemString);
+			for(int i = 0; i < reader.getItemCount(); i++){  
+				Integer item = lineItems[i];
 				// only add items that have the minimum support
 				if(mapSupport.get(item) >= minSupportRelative){
 					transaction.add(item);	
@@ -193,24 +267,127 @@ public class AlgoFPGrowth {
 			itemsetBuffer = new int[BUFFERS_SIZE];
 			// and another buffer
 			fpNodeTempBuffer = new FPNode[BUFFERS_SIZE];
-			// recursively generate frequent itemsets using the fp-tree
-			// Note: we assume that the initial FP-Tree has more than one path
-			// which should generally be the case.
-			fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
-		}
-		
-		// close the output file if the result was saved to a file
-		if(writer != null){
-			writer.close();
+			// the progress is measured by the number of items of the header list that are mined
+			context.setTotalWork(tree.headerList.size());
+			// if several threads are used and the tree is not a single path,
+			// the items of the header list are mined in parallel
+			if(threadCount > 1 && tree.root.childs.size() > 1) {
+				ParallelFPMiner.mine(new ParallelMiner(this), tree, transactionCount, mapSupport, threadCount, BUFFERS_SIZE);
+			}else {
+				// recursively generate frequent itemsets using the fp-tree
+				// Note: we assume that the initial FP-Tree has more than one path
+				// which should generally be the case.
+				fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
+			}
 		}
-		// record the execution end time
-		endTime= System.currentTimeMillis();
+	}
+	
+	/**
+	 * Build the initial FP-tree as a CompactFPTree and mine it.
+	 * @param input the path to an input file containing a transaction database.
+	 * @param mapSupport the support of each item in the database
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineWithCompactTree(String input, Map<Integer, Integer> mapSupport) throws IOException {
+		// (2) Rename the frequent items so that the item 0 is the most frequent item
+		// and build the initial FP-Tree
+		compactItems = CompactFPTree.getFrequentItemsBySupport(mapSupport, minSupportRelative);
+		CompactFPTree tree = CompactFPTree.createFromFile(input, compactItems);
 		
 		// check the memory usage
 		MemoryLogger.getInstance().checkMemory();
 		
-		// return the result (if saved to memory)
-		return patterns;
+		// if at least an item is frequent
+		if(tree.getHeaderListSize() > 0) {
+			// calculate the position of each item according to the order of original names
+			int[] sortedItems = compactItems.clone();
+			Arrays.sort(sortedItems);
+			compactItemOrder = new int[compactItems.length];
+			for(int i = 0; i < compactItems.length; i++) {
+				compactItemOrder[i] = Arrays.binarySearch(sortedItems, compactItems[i]);
+			}
+			
+			// initialize the buffers
+			itemsetBuffer = new int[BUFFERS_SIZE];
+			compactSupportBuffer = new int[compactItems.length];
+			compactItemBuffer = new int[compactItems.length];
+			compactPathItemBuffer = new int[compactItems.length];
+			compactPathCounterBuffer = new int[compactItems.length];
+			
+			// We create the header table for the tree using the support of single items
+			tree.sortHeaderListBySupport(compactItemOrder);
+			// the progress is measured by the number of items of the header list that are mined
+			context.setTotalWork(tree.getHeaderListSize());
+			
+			// recursively generate frequent itemsets using the fp-tree
+			fpgrowthCompact(tree, itemsetBuffer, 0, transactionCount);
+		}
+	}
+	
+	/**
+	 * Mine a CompactFPTree. This method does the same thing as {@link #fpgrowth}
+	 * but for a CompactFPTree.
+	 * @param tree  the FP-tree
+	 * @param prefix  the current prefix, named "alpha" (using the original names of items)
+	 * @param prefixLength the current prefix length
+	 * @param prefixSupport the support of the current prefix
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpgrowthCompact(CompactFPTree tree, int [] prefix, int prefixLength, int prefixSupport) throws IOException {
+		
+		if(prefixLength == maxPatternLength){
+			return;
+		}
+		
+		// Case 1: the FPtree contains a single path
+		if(tree.isSinglePath()){
+			// copy the items and counters of the nodes of the path in the buffers
+			int position = 0;
+			for(int node = tree.getFirstChild(0); node != CompactFPTree.NO_NODE; node = tree.getFirstChild(node)) {
+				compactPathItemBuffer[position] = compactItems[tree.getItem(node)];
+				compactPathCounterBuffer[position] = tree.getCounter(node);
+				position++;
+			}
+			// We save all the combinations of items of the path
+			saveAllCombinationsOfPath(compactPathItemBuffer, compactPathCounterBuffer, position, prefix, prefixLength);
+		}else {
+			// For each frequent item in the header table list of the tree in reverse order.
+			int[] headerList = tree.getHeaderList();
+			for(int i = tree.getHeaderListSize()-1; i>=0; i--){
+				// stop if the algorithm was asked to stop
+				context.nodeExplored();
+				
+				// get the item and its support
+				int item = headerList[i];
+				int support = tree.getItemSupport(item);
+				
+				// Create Beta by concatening prefix Alpha by adding the current item to alpha
+				prefix[prefixLength] = compactItems[item];
+				
+				// calculate the support of the new prefix beta
+				int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+				
+				// save beta to the output file
+				saveItemset(prefix, prefixLength+1, betaSupport);
+				
+				if(prefixLength+1 < maxPatternLength){
+					// Construct beta's conditional FP-Tree
+					tree.countConditionalSupports(item, minSupportRelative, compactSupportBuffer, compactItemBuffer);
+					CompactFPTree treeBeta = tree.createConditionalTree(item, minSupportRelative, compactSupportBuffer, compactItemBuffer);
+					
+					// Mine recursively the Beta tree if the root has child(s)
+					if(treeBeta.getNodeCount() > 1){
+						// Create the header list.
+						treeBeta.sortHeaderListBySupport(compactItemOrder);
+						// recursive call
+						fpgrowthCompact(treeBeta, prefix, prefixLength+1, betaSupport);
+					}
+				}
+				if(prefixLength == 0){
+					context.workDone();
+				}
+			}
+		}
 	}
 
 
@@ -279,88 +456,119 @@ public class AlgoFPGrowth {
 		}else {
 			// For each frequent item in the header table list of the tree in reverse order.
 			for(int i = tree.headerList.size()-1; i>=0; i--){
-				// get the item
-				Integer item = tree.headerList.get(i);
-				
-				// get the item support
-				int support = mapSupport.get(item);
+				mineHeaderItem(tree, i, prefix, prefixLength, prefixSupport, mapSupport);
+				if(prefixLength == 0){
+					context.workDone();
+				}
+			}
+		}
+		
+	}
 	
-				// Create Beta by concatening prefix Alpha by adding the current item to alpha
-				prefix[prefixLength] = item;
-				
-				// calculate the support of the new prefix beta
-				int betaSupport = (prefixSupport < support) ? prefixSupport: support;
-				
-				// save beta to the output file
-				saveItemset(prefix, prefixLength+1, betaSupport);
-				
-				if(prefixLength+1 < maxPatternLength){
-				
-					// === (A) Construct beta's conditional pattern base ===
-					// It is a subdatabase which consists of the set of prefix paths
-					// in the FP-tree co-occuring with the prefix pattern.
-					List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-					FPNode path = tree.mapItemNodes.get(item);
+	/**
+	 * Mine the itemsets obtained by extending a prefix with an item of the header list of an FP-tree.
+	 * @param tree  the FP-tree
+	 * @param i the position of the item in the header list
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the current prefix length
+	 * @param prefixSupport the support of the current prefix
+	 * @param mapSupport the frequency of items in the FP-Tree
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void mineHeaderItem(FPTree tree, int i, int [] prefix, int prefixLength, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+		// stop if the algorithm was asked to stop
+		context.nodeExplored();
+		
+		// get the item
+		Integer item = tree.headerList.get(i);
+		
+		// get the item support
+		int support = mapSupport.get(item);
+
+		// Create Beta by concatening prefix Alpha by adding the current item to alpha
+		prefix[prefixLength] = item;
+		
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+		
+		// save beta to the output file
+		saveItemset(prefix, prefixLength+1, betaSupport);
+		
+		if(prefixLength+1 < maxPatternLength){
+		
+			// === (A) Construct beta's conditional pattern base ===
+			// It is a subdatabase which consists of the set of prefix paths
+			// in the FP-tree co-occuring with the prefix pattern.
+			List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+			FPNode path = tree.mapItemNodes.get(item);
+			
+			// Map to count the support of items in the conditional prefix tree
+			// Key: item   Value: support
+			Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+			
+			// the number of nodes in the conditional pattern base
+			int prefixPathsNodeCount = 0;
+			
+			while(path != null){
+				// if the path is not just the root node
+				if(path.parent.itemID != -1){
+					// create the prefixpath
+					List<FPNode> prefixPath = new ArrayList<FPNode>();
+					// add this node.
+					prefixPath.add(path);   // NOTE: we add it just to keep its support,
+					// actually it should not be part of the prefixPath
 					
-					// Map to count the support of items in the conditional prefix tree
-					// Key: item   Value: support
-					Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+					// ####
+					int pathCount = path.counter;
 					
-					while(path != null){
-						// if the path is not just the root node
-						if(path.parent.itemID != -1){
-							// create the prefixpath
-							List<FPNode> prefixPath = new ArrayList<FPNode>();
-							// add this node.
-							prefixPath.add(path);   // NOTE: we add it just to keep its support,
-							// actually it should not be part of the prefixPath
-							
-							// ####
-							int pathCount = path.counter;
-							
-							//Recursively add all the parents of this node.
-							FPNode parent = path.parent;
-							while(parent.itemID != -1){
-								prefixPath.add(parent);
-								
-								// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-								// if the first time we see that node id
-								if(mapSupportBeta.get(parent.itemID) == null){
-									// just add the path count
-									mapSupportBeta.put(parent.itemID, pathCount);
-								}else{
-									// otherwise, make the sum with the value already stored
-									mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-								}
-								parent = parent.parent;
-							}
-							// add the path to the list of prefixpaths
-							prefixPaths.add(prefixPath);
+					//Recursively add all the parents of this node.
+					FPNode parent = path.parent;
+					while(parent.itemID != -1){
+						prefixPath.add(parent);
+						
+						// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
+						// if the first time we see that node id
+						if(mapSupportBeta.get(parent.itemID) == null){
+							// just add the path count
+							mapSupportBeta.put(parent.itemID, pathCount);
+						}else{
+							// otherwise, make the sum with the value already stored
+							mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
 						}
-						// We will look for the next prefixpath
-						path = path.nodeLink;
-					}
-	
-					// (B) Construct beta's conditional FP-Tree
-					// Create the tree.
-					FPTree treeBeta = new FPTree();
-					// Add each prefixpath in the FP-tree.
-					for(List<FPNode> prefixPath : prefixPaths){
-						treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
-					}  
-					
-					// Mine recursively the Beta tree if the root has child(s)
-					if(treeBeta.root.childs.size() > 0){
-	
-						// Create the header list.
-						treeBeta.createHeaderList(mapSupportBeta); 
-						// recursive call
-						fpgrowth(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+						parent = parent.parent;
 					}
+					// add the path to the list of prefixpaths
+					prefixPaths.add(prefixPath);
+					prefixPathsNodeCount += prefixPath.size();
+				}
+				// We will look for the next prefixpath
+				path = path.nodeLink;
+			}
+
+			// (B) Construct beta's conditional FP-Tree
+			// Create the tree.
+			FPTree treeBeta = new FPTree();
+			// Add each prefixpath in the FP-tree.
+			for(List<FPNode> prefixPath : prefixPaths){
+				treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
+			}  
+			
+			// Mine recursively the Beta tree if the root has child(s)
+			if(treeBeta.root.childs.size() > 0){
+
+				// Create the header list.
+				treeBeta.createHeaderList(mapSupportBeta); 
+				
+				// if this is a worker of the parallel mode and the tree is large,
+				// the tree is mined by a separate task
+				if(taskOutput != null && prefixPathsNodeCount >= SUBTREE_TASK_THRESHOLD) {
+					ParallelFPMiner.forkSubTree(taskMaster, taskOutput, treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+				}else {
+					// recursive call
+					fpgrowth(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
 				}
 			}
 		}
-		
 	}
 
 
@@ -407,6 +615,45 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 	}
 	
 
+	/**
+	 * This method saves all combinations of items of a single path of a CompactFPTree
+	 * @param pathItems the items of the path
+	 * @param pathCounters the counters of the nodes of the path
+	 * @param position the number of nodes in the path
+	 * @param prefix the current prefix
+	 * @param prefixLength the current prefix length
+	 * @throws IOException if exception while writting to output file
+	 */
+	private void saveAllCombinationsOfPath(int[] pathItems, int[] pathCounters, int position, 
+			int[] prefix, int prefixLength) throws IOException {
+
+		int support = 0;
+		// Generate all subsets of the path except the empty set
+		// and output them
+		// We use bits to generate all subsets.
+loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
+			
+			// we create a new subset
+			int newPrefixLength = prefixLength;
+			
+			// for each bit
+			for (int j = 0; j < position; j++) {
+				// check if the j bit is set to 1
+				int isSet = (int) i & (1 << j);
+				// if yes, add the bit position as an item to the new subset
+				if (isSet > 0) {
+					if(newPrefixLength == maxPatternLength){
+						continue loop1;
+					}
+					prefix[newPrefixLength++] = pathItems[j];
+					support = pathCounters[j];
+				}
+			}
+			// save the itemset
+			saveItemset(prefix, newPrefixLength, support);
+		}
+	}
+
 	/**
 	 * This method scans the input database to calculate the support of single items
 	 * @param input the path of the input file
@@ -415,38 +662,35 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 	 */
 	private  Map<Integer, Integer> scanDatabaseToDetermineFrequencyOfSingleItems(String input)
 			throws FileNotFoundException, IOException {
-		// a map for storing the support of each item (key: item, value: support)
-		 Map<Integer, Integer> mapSupport = new HashMap<Integer, Integer>();
-		//Create object for reading the input file
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
-		// for each line (transaction) until the end of file
-		while( ((line = reader.readLine())!= null)){ 
-			// if the line is  a comment, is  empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true ||  line.charAt(0) == '#' || line.charAt(0) == '%' 	|| line.charAt(0) == '@') {
-				continue;
+		// if the file is in binary format, the support of each item was calculated
+		// when the file was created, so the transactions do not need to be read
+		if(SPMFBinaryDataset.isBinaryDataset(input)) {
+			SPMFBinaryDataset dataset = new SPMFBinaryDataset(input);
+			try {
+				transactionCount += dataset.getTransactionCount();
+				return dataset.getItemSupports();
+			}finally {
+				dataset.close();
 			}
-			
-			// split the line into items
-			String[] lineSplited = line.split(" ");
-			// for each item
-			for(String itemString : lineSplited){  
-				// increase the support count of the item
-				Integer item = Integer.parseInt(itemString);
-				// increase the support count of the item
-				Integer count = mapSupport.get(item);
-				if(count == null){
-					mapSupport.put(item, 1);
-				}else{
-					mapSupport.put(item, ++count);
+		}
+		// a map for storing the support of each item (key: item, value: support)
+		final Map<Integer, Integer> mapSupport = new HashMap<Integer, Integer>();
+		// read each line (transaction) of the input file until the end of file
+		// and increase the transaction count
+		transactionCount += SPMFFileTokenizer.readTransactions(input, new SPMFFileTokenizer.TransactionHandler() {
+			public void handleTransaction(int[] items, int itemCount) {
+				// for each item
+				for(int i = 0; i < itemCount; i++){  
+					// increase the support count of the item
+					Integer count = mapSupport.get(items[i]);
+					if(count == null){
+						mapSupport.put(items[i], 1);
+					}else{
+						mapSupport.put(items[i], ++count);
+					}
 				}
 			}
-			// increase the transaction count
-			transactionCount++;
-		}
-		// close the input file
-		reader.close();
+		});
 		
 		return mapSupport;
 	}
@@ -457,7 +701,22 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 	 * keep into memory if the user prefer that the result be saved into memory.
 	 */
 	private void saveItemset(int [] itemset, int itemsetLength, int support) throws IOException {
+		// update the progress of the algorithm
+		context.patternFound();
 		
+		// if this is a worker of the parallel mode, the itemset is kept in the buffer of the task
+		// and will be saved later by the algorithm that created the worker
+		if(taskOutput != null) {
+			taskOutput.add(itemset, itemsetLength, support);
+			return;
+		}
+		writeItemset(itemset, itemsetLength, support);
+	}
+	
+	/**
+	 * Write an itemset to the output file, pass it to the ItemsetSink or keep it into memory.
+	 */
+	private void writeItemset(int [] itemset, int itemsetLength, int support) throws IOException {
 		// increase the number of itemsets found for statistics purpose
 		itemsetCount++;
 		
@@ -483,6 +742,13 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 			writer.write(buffer.toString());
 			writer.newLine();
 			
+		}// if the result should be passed to an ItemsetSink
+		else if(itemsetSink != null){
+			// copy the itemset in the output buffer and sort items
+			System.arraycopy(itemset, 0, itemsetOutputBuffer, 0, itemsetLength);
+			Arrays.sort(itemsetOutputBuffer, 0, itemsetLength);
+			itemsetSink.itemsetFound(itemsetOutputBuffer, itemsetLength, support);
+			
 		}// otherwise the result is kept into memory
 		else{
 			// create an object Itemset and add it to the set of patterns 
@@ -527,5 +793,94 @@ loop1:	for (long i = 1, max = 1 << position; i < max; i++) {
 	public void setMaximumPatternLength(int length) {
 		maxPatternLength = length;
 	}
+	
+	/**
+	 * Set if the algorithm should use a CompactFPTree (an FP-tree stored in arrays of integers)
+	 * instead of an FPTree. This greatly reduces the memory usage and the time for building
+	 * conditional FP-trees. The result is the same. The compact tree is only used for a
+	 * serial execution (the number of threads is then ignored).
+	 * @param useCompactTree true to use the compact tree (default: false)
+	 */
+	public void setUseCompactTree(boolean useCompactTree) {
+		this.useCompactTree = useCompactTree;
+	}
+	
+	/**
+	 * Set an object that will receive each frequent itemset as soon as it is found, when
+	 * no output file path is given to runAlgorithm(). The itemsets are then not kept into
+	 * memory and runAlgorithm() returns null.
+	 * @param itemsetSink the object receiving the itemsets, or null to keep them into memory (default)
+	 */
+	public void setItemsetSink(ItemsetSink itemsetSink) {
+		this.itemsetSink = itemsetSink;
+	}
+	
+	/**
+	 * Set the number of threads used for mining the FP-tree. If more than one thread
+	 * is used, the items of the header list of the initial FP-tree (and large conditional FP-trees)
+	 * are mined in parallel. The result is the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * Set the mining context that is used to stop the algorithm while it is running
+	 * and to follow its progress.
+	 * @param miningContext the context, or null to use the context of the current thread if any (default)
+	 */
+	public void setMiningContext(MiningContext miningContext) {
+		this.miningContext = miningContext;
+	}
+	
+	/**
+	 * This class lets the parallel engine use this algorithm. It wraps either the algorithm object
+	 * that was called by the user, or a worker having its own buffers.
+	 */
+	private static class ParallelMiner implements ParallelFPMiner.Miner {
+		// the wrapped algorithm
+		private final AlgoFPGrowth algo;
+		
+		ParallelMiner(AlgoFPGrowth algo) {
+			this.algo = algo;
+		}
+		
+		@Override
+		public ParallelFPMiner.Miner createWorker(FPPatternBuffer output) {
+			AlgoFPGrowth worker = new AlgoFPGrowth();
+			worker.minSupportRelative = algo.minSupportRelative;
+			worker.maxPatternLength = algo.maxPatternLength;
+			worker.itemsetBuffer = new int[algo.BUFFERS_SIZE];
+			worker.fpNodeTempBuffer = new FPNode[algo.BUFFERS_SIZE];
+			worker.taskOutput = output;
+			worker.taskMaster = this;
+			worker.context = algo.context;
+			return new ParallelMiner(worker);
+		}
+
+		@Override
+		public void mineHeaderItem(FPTree tree, int headerIndex, int[] prefix, int prefixLength,
+				int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+			System.arraycopy(prefix, 0, algo.itemsetBuffer, 0, prefixLength);
+			algo.mineHeaderItem(tree, headerIndex, algo.itemsetBuffer, prefixLength, prefixSupport, mapSupport);
+			algo.context.workDone();
+		}
+
+		@Override
+		public void mineTree(FPTree tree, int[] prefix, int prefixLength,
+				int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+			System.arraycopy(prefix, 0, algo.itemsetBuffer, 0, prefixLength);
+			algo.fpgrowth(tree, algo.itemsetBuffer, prefixLength, prefixSupport, mapSupport);
+		}
+
+		@Override
+		public void emitItemset(int[] itemset, int itemsetLength, int support) throws IOException {
+			algo.writeItemset(itemset, itemsetLength, support);
+		}
+	}
 
 }
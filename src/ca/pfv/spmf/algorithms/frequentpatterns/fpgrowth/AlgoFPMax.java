@@ -88,6 +88,25 @@ public class AlgoFPMax {
 	// If set to true, the algorithm will show  information for debugging in the console
 	private final boolean DEBUG = false;
 	
+	/** number of threads used for mining (1 = serial execution) */
+	private int threadCount = 1;
+	
+	// If this object is a worker of the parallel mode, the buffer where the itemsets are saved.
+	// Otherwise, this variable is null.
+	private FPPatternBuffer taskOutput = null;
+	
+	/** if true, the algorithm uses a CompactFPTree instead of an FPTree */
+	private boolean useCompactTree = false;
+	
+	// The following variables are used when the algorithm uses a CompactFPTree:
+	// the original name of each item (the item i of the tree is compactItems[i])
+	private int[] compactItems = null;
+	// buffers used to create conditional trees
+	private int[] compactSupportBuffer = null;
+	private int[] compactItemBuffer = null;
+	// buffer for storing head U P
+	private int[] compactHeadBuffer = null;
+	
 	// Comparator to compare the items based on the order of decreasing support in the original DB.
 	Comparator<Integer> comparatorOriginalOrder = new Comparator<Integer>(){
 		public int compare(Integer item1, Integer item2){
@@ -150,6 +169,33 @@ public class AlgoFPMax {
 		// Create the MFI Tree
 		mfiTree = new MFITree();	
 		
+		// if the user wants to use the compact FP-tree
+		if(useCompactTree) {
+			mineWithCompactTree(input);
+		}else {
+			mineWithFPTree(input);
+		}
+		
+		// close the output file if the result was saved to a file
+		if(writer != null){
+			writer.close();
+		}
+		// record the execution end time
+		endTime= System.currentTimeMillis();
+		
+		// check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+		
+		// return the result (if saved to memory)
+		return patterns;
+	}
+	
+	/**
+	 * Build the initial FP-tree and mine it.
+	 * @param input the path to an input file containing a transaction database.
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineWithFPTree(String input) throws IOException {
 		// (2) Scan the database again to build the initial FP-Tree
 		// Before inserting a transaction in the FPTree, we sort the items
 		// by descending order of support.  We ignore items that
@@ -199,22 +245,46 @@ public class AlgoFPMax {
 		if(tree.headerList.size() > 0) {
 			// initialize the buffer for storing the current itemset
 			itemsetBuffer = new int[BUFFERS_SIZE];
-			// Next we will recursively generate frequent itemsets using the fp-tree
-			fpMax(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
-		}
-		
-		// close the output file if the result was saved to a file
-		if(writer != null){
-			writer.close();
+			// if several threads are used and the tree is not a single path,
+			// the items of the header list are mined in parallel
+			if(threadCount > 1 && tree.root.childs.size() > 1) {
+				ParallelFPMiner.mine(new ParallelMiner(this), tree, transactionCount, originalMapSupport, threadCount, BUFFERS_SIZE);
+			}else {
+				// Next we will recursively generate frequent itemsets using the fp-tree
+				fpMax(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+			}
 		}
-		// record the execution end time
-		endTime= System.currentTimeMillis();
+	}
+	
+	/**
+	 * Build the initial FP-tree as a CompactFPTree and mine it.
+	 * @param input the path to an input file containing a transaction database.
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineWithCompactTree(String input) throws IOException {
+		// (2) Rename the frequent items so that the item 0 is the most frequent item
+		// and build the initial FP-Tree. The order of items in the tree is thus the
+		// order of decreasing support in the original database.
+		compactItems = CompactFPTree.getFrequentItemsBySupport(originalMapSupport, minSupportRelative);
+		CompactFPTree tree = CompactFPTree.createFromFile(input, compactItems);
 		
 		// check the memory usage
 		MemoryLogger.getInstance().checkMemory();
 		
-		// return the result (if saved to memory)
-		return patterns;
+		// if at least an item is frequent
+		if(tree.getHeaderListSize() > 0) {
+			// initialize the buffers (an itemset cannot contain more than all the frequent items)
+			int[] prefix = new int[compactItems.length];
+			compactSupportBuffer = new int[compactItems.length];
+			compactItemBuffer = new int[compactItems.length];
+			compactHeadBuffer = new int[compactItems.length];
+			
+			// We create the header table for the tree
+			tree.sortHeaderListByItem();
+			
+			// recursively generate maximal itemsets using the fp-tree
+			fpMaxCompact(tree, prefix, 0, transactionCount);
+		}
 	}
 
 	
@@ -279,133 +349,267 @@ public class AlgoFPMax {
 			
 			// For each frequent item in the header table list of the tree in reverse order. (in decreasing order of support...)
 			for(int i = tree.headerList.size()-1; i>=0; i--){
-				// get the item
-				Integer item = tree.headerList.get(i);
+				mineHeaderItem(tree, i, prefix, prefixLength, prefixSupport, mapSupport);
+			}
+		}
+	}
+
+	/**
+	 * Mine the itemsets obtained by extending a prefix with an item of the header list of an FP-tree.
+	 * @param tree  the FP-tree
+	 * @param i the position of the item in the header list
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the current prefix length
+	 * @param prefixSupport the support of the current prefix
+	 * @param mapSupport the frequency of items in the FP-Tree
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void mineHeaderItem(FPTree tree, int i, int [] prefix, int prefixLength, int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+		// get the item
+		Integer item = tree.headerList.get(i);
+		
+		// get the item support
+		int support = mapSupport.get(item);
+
+		// Create Beta by concatening item to the current prefix  alpha
+		prefix[prefixLength] = item;
+		
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+
+		
+		// === (A) Construct beta's conditional pattern base ===
+		// It is a subdatabase which consists of the set of prefix paths
+		// in the FP-tree co-occuring with the prefix pattern.
+		List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+		FPNode path = tree.mapItemNodes.get(item);
+		
+		// Map to count the support of items in the conditional prefix tree
+		// Key: item   Value: support
+		Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+		
+		while(path != null){
+			// if the path is not just the root node
+			if(path.parent.itemID != -1){
+				// create the prefixpath
+				List<FPNode> prefixPath = new ArrayList<FPNode>();
+				// add this node.
+				prefixPath.add(path);   // NOTE: we add it just to keep its support,
+				// actually it should not be part of the prefixPath
+				
+				// ####
+				int pathCount = path.counter;
 				
-				// get the item support
-				int support = mapSupport.get(item);
+				//Recursively add all the parents of this node.
+				FPNode parent = path.parent;
+				while(parent.itemID != -1){
+					prefixPath.add(parent);
+					
+					// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
+					// if the first time we see that node id
+					if(mapSupportBeta.get(parent.itemID) == null){
+						// just add the path count
+						mapSupportBeta.put(parent.itemID, pathCount);
+					}else{
+						// otherwise, make the sum with the value already stored
+						mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
+					}
+					parent = parent.parent;
+				}
+				// add the path to the list of prefixpaths
+				prefixPaths.add(prefixPath);
+			}
+			// We will look for the next prefixpath
+			path = path.nodeLink;
+		}
+
+		
+		// ===== FPMAX ======
+		// concatenate Beta with all the frequent itemsets in the pattern base
+		// to get head U P
+		List<Integer> headWithP = new ArrayList<Integer>(mapSupportBeta.size() + prefixLength+1);
+		// concatenate the prefix
+		for(int z=0; z < prefixLength+1; z++) {
+			headWithP.add(prefix[z]);
+		}
+		// concatenate the other FREQUENT items in the pattern base
+		// for each item
+		for(Entry<Integer,Integer> entry: mapSupportBeta.entrySet()) {
+			// if the item is frequent
+			if(entry.getValue() >= minSupportRelative) {
+				headWithP.add(entry.getKey());
+			}
+		}
+		
+		// Sort Head U P according to the original header list total order on items
+		// sort item in the transaction by descending order of support
+		Collections.sort(headWithP, comparatorOriginalOrder);
+
+		//======= DEBUG ========
+		if(DEBUG) {
+			System.out.println(" CHECK2 : " + headWithP);
+		}
+		//========== END DEBUG =======
+		
+		// CHECK IF HEAD U P IS A SUBSET OF A MFI ACCORDING TO THE MFI-TREE
+		if(mfiTree.passSubsetChecking(headWithP)) {
+			
+			if(DEBUG) {
+				System.out.println("    passed!");
+			}
+			// (B) Construct beta's conditional FP-Tree using its prefix path
+			// Create the tree.
+			FPTree treeBeta = new FPTree();
+			// Add each prefixpath in the FP-tree.
+			for(List<FPNode> prefixPath : prefixPaths){
+				treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
+			}  
+			// Mine recursively the Beta tree if the root has child(s)
+			if(treeBeta.root.childs.size() > 0){
+
+				// Create the header list.
+				treeBeta.createHeaderList(originalMapSupport); 
+				
+				// recursive call
+				fpMax(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+			}
+			
+			// ======= After that, we still need to check if beta is a maximal itemset ====
+			List<Integer> temp = new ArrayList<Integer>(mapSupportBeta.size() + prefixLength+1);
+			for(int z=0; z < prefixLength+1; z++) {
+				temp.add(prefix[z]);
+			}
+			Collections.sort(temp, comparatorOriginalOrder);
+			// if beta pass the test, we save it
+			if(mfiTree.passSubsetChecking(temp)) {
+				saveItemset(prefix, prefixLength+1, betaSupport);
+			}
+			//===========================================================
+		}
+		else if (DEBUG){
+			System.out.println("     failed!");
+		}
+	}
 
+	/**
+	 * Mine a CompactFPTree. This method does the same thing as {@link #fpMax}
+	 * but for a CompactFPTree.
+	 * @param tree  the FP-tree
+	 * @param prefix  the current prefix, named "alpha" (using the names of items in the CompactFPTree)
+	 * @param prefixLength the current prefix length
+	 * @param prefixSupport the support of the current prefix
+	 * @throws IOException  exception if error writing the output file
+	 */
+	private void fpMaxCompact(CompactFPTree tree, int [] prefix, int prefixLength, int prefixSupport) throws IOException {
+		// We first check if the FPtree contains a single path
+		boolean singlePath = true;
+		// We will use a variable to keep the support of the single path if there is one
+		int singlePathSupport = 0;
+		// This variable is used to count the number of items in the single path  (if there
+		// is one + the prefix length
+		int position = prefixLength;
+		for(int node = tree.getFirstChild(0); node != CompactFPTree.NO_NODE; node = tree.getFirstChild(node)) {
+			// if the current node has a sibling, it is not a single path!
+			if(tree.getNextSibling(node) != CompactFPTree.NO_NODE) {
+				singlePath = false;
+				break;
+			}
+			// otherwise, we copy the current item in the buffer and move to the child
+			prefix[position] = tree.getItem(node);
+			singlePathSupport = tree.getCounter(node);
+			position++;
+		}
+		
+		// Case 1: the FPtree contains a single path
+		if(singlePath && singlePathSupport >= minSupportRelative){	
+			// We save the path, because it is a maximal itemset
+			saveCompactItemset(prefix, position, singlePathSupport);
+		}else {
+			// Case 2: There are multiple paths.
+			
+			// For each frequent item in the header table list of the tree in reverse order. (in decreasing order of support...)
+			int[] headerList = tree.getHeaderList();
+			for(int i = tree.getHeaderListSize()-1; i>=0; i--){
+				// get the item and its support
+				int item = headerList[i];
+				int support = tree.getItemSupport(item);
+				
 				// Create Beta by concatening item to the current prefix  alpha
 				prefix[prefixLength] = item;
 				
 				// calculate the support of the new prefix beta
 				int betaSupport = (prefixSupport < support) ? prefixSupport: support;
-
-				
-				// === (A) Construct beta's conditional pattern base ===
-				// It is a subdatabase which consists of the set of prefix paths
-				// in the FP-tree co-occuring with the prefix pattern.
-				List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-				FPNode path = tree.mapItemNodes.get(item);
 				
-				// Map to count the support of items in the conditional prefix tree
-				// Key: item   Value: support
-				Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
-				
-				while(path != null){
-					// if the path is not just the root node
-					if(path.parent.itemID != -1){
-						// create the prefixpath
-						List<FPNode> prefixPath = new ArrayList<FPNode>();
-						// add this node.
-						prefixPath.add(path);   // NOTE: we add it just to keep its support,
-						// actually it should not be part of the prefixPath
-						
-						// ####
-						int pathCount = path.counter;
-						
-						//Recursively add all the parents of this node.
-						FPNode parent = path.parent;
-						while(parent.itemID != -1){
-							prefixPath.add(parent);
-							
-							// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-							// if the first time we see that node id
-							if(mapSupportBeta.get(parent.itemID) == null){
-								// just add the path count
-								mapSupportBeta.put(parent.itemID, pathCount);
-							}else{
-								// otherwise, make the sum with the value already stored
-								mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-							}
-							parent = parent.parent;
-						}
-						// add the path to the list of prefixpaths
-						prefixPaths.add(prefixPath);
-					}
-					// We will look for the next prefixpath
-					path = path.nodeLink;
-				}
-
+				// === (A) Calculate the support of items in beta's conditional pattern base ===
+				int frequentCount = tree.countConditionalSupports(item, minSupportRelative, compactSupportBuffer, compactItemBuffer);
 				
 				// ===== FPMAX ======
-				// concatenate Beta with all the frequent itemsets in the pattern base
-				// to get head U P
-				List<Integer> headWithP = new ArrayList<Integer>(mapSupportBeta.size() + prefixLength+1);
-				// concatenate the prefix
-				for(int z=0; z < prefixLength+1; z++) {
-					headWithP.add(prefix[z]);
-				}
-				// concatenate the other FREQUENT items in the pattern base
-				// for each item
-				for(Entry<Integer,Integer> entry: mapSupportBeta.entrySet()) {
-					// if the item is frequent
-					if(entry.getValue() >= minSupportRelative) {
-						headWithP.add(entry.getKey());
-					}
-				}
-				
-				// Sort Head U P according to the original header list total order on items
-				// sort item in the transaction by descending order of support
-				Collections.sort(headWithP, comparatorOriginalOrder);
-
-				//======= DEBUG ========
-				if(DEBUG) {
-					System.out.println(" CHECK2 : " + headWithP);
-				}
-				//========== END DEBUG =======
+				// concatenate Beta with all the frequent items in the pattern base
+				// to get head U P, sorted according to the original header list total order on items
+				System.arraycopy(prefix, 0, compactHeadBuffer, 0, prefixLength+1);
+				System.arraycopy(compactItemBuffer, 0, compactHeadBuffer, prefixLength+1, frequentCount);
+				int headLength = prefixLength + 1 + frequentCount;
+				Arrays.sort(compactHeadBuffer, 0, headLength);
 				
 				// CHECK IF HEAD U P IS A SUBSET OF A MFI ACCORDING TO THE MFI-TREE
-				if(mfiTree.passSubsetChecking(headWithP)) {
-					
-					if(DEBUG) {
-						System.out.println("    passed!");
-					}
-					// (B) Construct beta's conditional FP-Tree using its prefix path
-					// Create the tree.
-					FPTree treeBeta = new FPTree();
-					// Add each prefixpath in the FP-tree.
-					for(List<FPNode> prefixPath : prefixPaths){
-						treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative); 
-					}  
+				if(mfiTree.passSubsetChecking(toOriginalItems(compactHeadBuffer, headLength))) {
+					// (B) Construct beta's conditional FP-Tree
+					CompactFPTree treeBeta = tree.createConditionalTree(item, minSupportRelative, compactSupportBuffer, compactItemBuffer);
 					// Mine recursively the Beta tree if the root has child(s)
-					if(treeBeta.root.childs.size() > 0){
-
+					if(treeBeta.getNodeCount() > 1){
 						// Create the header list.
-						treeBeta.createHeaderList(originalMapSupport); 
-						
+						treeBeta.sortHeaderListByItem();
 						// recursive call
-						fpMax(treeBeta, prefix, prefixLength+1, betaSupport, mapSupportBeta);
+						fpMaxCompact(treeBeta, prefix, prefixLength+1, betaSupport);
 					}
 					
 					// ======= After that, we still need to check if beta is a maximal itemset ====
-					List<Integer> temp = new ArrayList<Integer>(mapSupportBeta.size() + prefixLength+1);
-					for(int z=0; z < prefixLength+1; z++) {
-						temp.add(prefix[z]);
-					}
-					Collections.sort(temp, comparatorOriginalOrder);
+					System.arraycopy(prefix, 0, compactHeadBuffer, 0, prefixLength+1);
+					Arrays.sort(compactHeadBuffer, 0, prefixLength+1);
 					// if beta pass the test, we save it
-					if(mfiTree.passSubsetChecking(temp)) {
-						saveItemset(prefix, prefixLength+1, betaSupport);
+					if(mfiTree.passSubsetChecking(toOriginalItems(compactHeadBuffer, prefixLength+1))) {
+						saveCompactItemset(prefix, prefixLength+1, betaSupport);
 					}
-					//===========================================================
-				}
-				else if (DEBUG){
-					System.out.println("     failed!");
+				}else {
+					// the conditional tree is not needed
+					tree.clearConditionalSupports(item, compactSupportBuffer);
 				}
 			}
 		}
 	}
+	
+	/**
+	 * Convert items of a CompactFPTree to the original items
+	 * @param items the items of the CompactFPTree sorted by increasing order
+	 * @param length the number of items
+	 * @return the list of original items, sorted according to the original header list total order
+	 */
+	private List<Integer> toOriginalItems(int[] items, int length) {
+		List<Integer> originalItems = new ArrayList<Integer>(length);
+		for(int i = 0; i < length; i++) {
+			originalItems.add(compactItems[items[i]]);
+		}
+		return originalItems;
+	}
+	
+	/**
+	 * Save an itemset found in a CompactFPTree
+	 * @param itemset the items, using the names of items in the CompactFPTree
+	 * @param itemsetLength the number of items
+	 * @param support the support of the itemset
+	 * @throws IOException if error writing the output file
+	 */
+	private void saveCompactItemset(int [] itemset, int itemsetLength, int support) throws IOException {
+		// sort the items, which gives the order of decreasing support in the original database,
+		// and then rename them
+		int[] itemsetCopy = new int[itemsetLength];
+		System.arraycopy(itemset, 0, itemsetCopy, 0, itemsetLength);
+		Arrays.sort(itemsetCopy);
+		for(int i = 0; i < itemsetLength; i++) {
+			itemsetCopy[i] = compactItems[itemsetCopy[i]];
+		}
+		saveSortedItemset(itemsetCopy, itemsetLength, support);
+	}
 
 	/**
 	 * Write a frequent itemset that is found to the output file or
@@ -418,6 +622,18 @@ public class AlgoFPMax {
 		int[] itemsetCopy = new int[itemsetLength];
 		System.arraycopy(itemset, 0, itemsetCopy, 0, itemsetLength);
 		sortOriginalOrder(itemsetCopy, itemsetLength);
+		saveSortedItemset(itemsetCopy, itemsetLength, support);
+	}
+	
+	/**
+	 * Save an itemset that is found.
+	 * @param itemsetCopy the itemset, sorted according to the order of decreasing support
+	 *        in the original database (this array is kept by the MFITree)
+	 * @param itemsetLength the number of items
+	 * @param support the support of the itemset
+	 * @throws IOException if error writing the output file
+	 */
+	private void saveSortedItemset(int [] itemsetCopy, int itemsetLength, int support) throws IOException {
 		
 		if(DEBUG) {
 	//		//======= DEBUG ========
@@ -432,6 +648,15 @@ public class AlgoFPMax {
 		// add the itemset to the MFI-TREE
 		mfiTree.addMFI(itemsetCopy, itemsetCopy.length, support);
 		
+		// if this is a worker of the parallel mode, the itemset is only a candidate
+		// because the worker does not know the maximal itemsets found by other workers.
+		// It is kept in the buffer of the task and will be checked again by the algorithm
+		// that created the worker
+		if(taskOutput != null) {
+			taskOutput.add(itemsetCopy, itemsetLength, support);
+			return;
+		}
+		
 		// increase the number of itemsets found for statistics purpose
 		itemsetCount++;
 		
@@ -551,4 +776,81 @@ public class AlgoFPMax {
 	public int getDatabaseSize() {
 		return transactionCount;
 	}
+	
+	/**
+	 * Set if the algorithm should use a CompactFPTree (an FP-tree stored in arrays of integers)
+	 * instead of an FPTree. This greatly reduces the memory usage and the time for building
+	 * conditional FP-trees. The result is the same. The compact tree is only used for a
+	 * serial execution (the number of threads is then ignored).
+	 * @param useCompactTree true to use the compact tree (default: false)
+	 */
+	public void setUseCompactTree(boolean useCompactTree) {
+		this.useCompactTree = useCompactTree;
+	}
+	
+	/**
+	 * Set the number of threads used for mining the FP-tree. If more than one thread
+	 * is used, the items of the header list of the initial FP-tree are mined in parallel,
+	 * each with its own MFITree. The maximal itemsets found by each thread are then checked
+	 * against the global MFITree in the order of a serial execution, so that
+	 * the result is the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * This class lets the parallel engine use this algorithm. It wraps either the algorithm object
+	 * that was called by the user, or a worker having its own buffers and MFITree.
+	 */
+	private static class ParallelMiner implements ParallelFPMiner.Miner {
+		// the wrapped algorithm
+		private final AlgoFPMax algo;
+		
+		ParallelMiner(AlgoFPMax algo) {
+			this.algo = algo;
+		}
+		
+		@Override
+		public ParallelFPMiner.Miner createWorker(FPPatternBuffer output) {
+			AlgoFPMax worker = new AlgoFPMax();
+			worker.minSupportRelative = algo.minSupportRelative;
+			worker.originalMapSupport = algo.originalMapSupport;
+			worker.mfiTree = new MFITree();
+			worker.itemsetBuffer = new int[algo.BUFFERS_SIZE];
+			worker.taskOutput = output;
+			return new ParallelMiner(worker);
+		}
+
+		@Override
+		public void mineHeaderItem(FPTree tree, int headerIndex, int[] prefix, int prefixLength,
+				int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+			System.arraycopy(prefix, 0, algo.itemsetBuffer, 0, prefixLength);
+			algo.mineHeaderItem(tree, headerIndex, algo.itemsetBuffer, prefixLength, prefixSupport, mapSupport);
+		}
+
+		@Override
+		public void mineTree(FPTree tree, int[] prefix, int prefixLength,
+				int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException {
+			System.arraycopy(prefix, 0, algo.itemsetBuffer, 0, prefixLength);
+			algo.fpMax(tree, algo.itemsetBuffer, prefixLength, prefixSupport, mapSupport);
+		}
+
+		@Override
+		public void emitItemset(int[] itemset, int itemsetLength, int support) throws IOException {
+			// the itemset is sorted according to the original order. We check that
+			// it is not a subset of a maximal itemset found by a previous task
+			List<Integer> itemsetList = new ArrayList<Integer>(itemsetLength);
+			for(int i=0; i< itemsetLength; i++) {
+				itemsetList.add(itemset[i]);
+			}
+			if(algo.mfiTree.passSubsetChecking(itemsetList)) {
+				algo.saveItemset(itemset, itemsetLength, support);
+			}
+		}
+	}
 }
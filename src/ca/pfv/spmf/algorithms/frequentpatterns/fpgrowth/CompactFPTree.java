@@ -0,0 +1,610 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
+
+/* This file is copyright (c) 2008-2015 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import ca.pfv.spmf.input.SPMFFileTokenizer;
+
+/**
+ * This is a compact implementation of an FP-tree, which can be used instead of {@link FPTree}
+ * by FPGrowth, FPMax, FPClose and FPGrowth_Strings.
+ * <br/><br/>
+ *
+ * Instead of creating an FPNode object for each node, the nodes are stored in parallel arrays of
+ * integers (item, counter, parent, first child, next sibling and node link). A node is thus
+ * identified by its position in these arrays. The root is the node 0.
+ * <br/><br/>
+ *
+ * Items are not the original items of the database but integers from 0 to itemCount-1, where
+ * the item 0 is the most frequent item (items are renamed by the algorithms before building the tree).
+ * This allows to store the header table and the support of items in arrays indexed by items,
+ * rather than in maps. Because a conditional FP-tree of an item i only contains items
+ * that are more frequent than i, the header table of a conditional tree only needs i cells.
+ * <br/><br/>
+ *
+ * A node uses 24 bytes in this tree, while a node of the {@link FPTree} uses more than 100 bytes
+ * (the FPNode object, its list of children and the array of this list).
+ *
+ * @see FPTree
+ * @see AlgoFPGrowth
+ * @see AlgoFPMax
+ * @see AlgoFPClose
+ * @author Philippe Fournier-Viger
+ */
+public class CompactFPTree {
+
+	/** the value used to indicate that there is no node */
+	public static final int NO_NODE = -1;
+
+	// the item of each node
+	private int[] nodeItem;
+	// the counter (support) of each node
+	private int[] nodeCounter;
+	// the parent of each node
+	private int[] nodeParent;
+	// the first child of each node
+	private int[] nodeFirstChild;
+	// the next sibling of each node
+	private int[] nodeNextSibling;
+	// the next node having the same item (for the header table)
+	private int[] nodeLink;
+	// the number of nodes in the tree (including the root)
+	private int nodeCount;
+
+	// the number of items that can appear in this tree (0 to itemCount-1)
+	private final int itemCount;
+	// the first and last nodes of each item in the node links
+	private final int[] headerFirstNode;
+	private final int[] headerLastNode;
+	// the support of each item in this tree
+	private final int[] itemSupport;
+
+	// the list of items appearing in this tree
+	private final int[] headerList;
+	private int headerListSize = 0;
+
+	/**
+	 * Constructor
+	 * @param itemCount the number of items that can appear in this tree
+	 */
+	public CompactFPTree(int itemCount) {
+		this(itemCount, 64);
+	}
+
+	/**
+	 * Constructor
+	 * @param itemCount the number of items that can appear in this tree
+	 * @param initialCapacity the initial number of nodes that can be stored without resizing the arrays
+	 */
+	public CompactFPTree(int itemCount, int initialCapacity) {
+		this.itemCount = itemCount;
+		int capacity = Math.max(initialCapacity, 2);
+		nodeItem = new int[capacity];
+		nodeCounter = new int[capacity];
+		nodeParent = new int[capacity];
+		nodeFirstChild = new int[capacity];
+		nodeNextSibling = new int[capacity];
+		nodeLink = new int[capacity];
+
+		headerFirstNode = new int[itemCount];
+		headerLastNode = new int[itemCount];
+		Arrays.fill(headerFirstNode, NO_NODE);
+		itemSupport = new int[itemCount];
+		headerList = new int[itemCount];
+
+		// create the root
+		nodeItem[0] = NO_NODE;
+		nodeParent[0] = NO_NODE;
+		nodeFirstChild[0] = NO_NODE;
+		nodeNextSibling[0] = NO_NODE;
+		nodeLink[0] = NO_NODE;
+		nodeCount = 1;
+	}
+
+	/**
+	 * Get the frequent items sorted by decreasing order of support (items having the same support
+	 * are sorted by increasing order). The position of an item in this array is the name
+	 * of the item in a CompactFPTree.
+	 * @param mapSupport the support of each item (key: item, value: support)
+	 * @param minSupport the minimum support threshold
+	 * @return the frequent items
+	 */
+	public static int[] getFrequentItemsBySupport(final Map<Integer, Integer> mapSupport, int minSupport) {
+		// create an array with the frequent items
+		int frequentCount = 0;
+		for(Integer support : mapSupport.values()) {
+			if(support >= minSupport) {
+				frequentCount++;
+			}
+		}
+		// we store each item with its support in a long so that we can sort
+		// them without creating objects (the support is negated to obtain the decreasing order)
+		long[] itemsWithSupport = new long[frequentCount];
+		int i = 0;
+		for(Entry<Integer, Integer> entry : mapSupport.entrySet()) {
+			if(entry.getValue() >= minSupport) {
+				itemsWithSupport[i++] = ((long) -entry.getValue() << 32) | (entry.getKey() & 0xFFFFFFFFL);
+			}
+		}
+		Arrays.sort(itemsWithSupport);
+		int[] frequentItems = new int[frequentCount];
+		for(i = 0; i < frequentCount; i++) {
+			frequentItems[i] = (int) itemsWithSupport[i];
+		}
+		return frequentItems;
+	}
+
+	/**
+	 * Read a transaction database and create the corresponding FP-tree. Items that are not
+	 * frequent are ignored and the other items are renamed according to their position in
+	 * the array of frequent items.
+	 * @param input the path of the transaction database
+	 * @param frequentItems the frequent items sorted by decreasing order of support
+	 *        (see {@link #getFrequentItemsBySupport})
+	 * @return the FP-tree
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public static CompactFPTree createFromFile(String input, int[] frequentItems) throws IOException {
+		// map to obtain the new name of each frequent item
+		Map<Integer, Integer> mapItemToNewName = new HashMap<Integer, Integer>(frequentItems.length * 2);
+		for(int i = 0; i < frequentItems.length; i++) {
+			mapItemToNewName.put(frequentItems[i], i);
+		}
+
+		CompactFPTree tree = new CompactFPTree(frequentItems.length, 1024);
+		// buffer to store the current transaction
+		int[] transaction = new int[frequentItems.length];
+
+		// read the file
+		SPMFFileTokenizer reader = new SPMFFileTokenizer(input);
+		// for each line (transaction) until the end of the file
+		// (comments, empty lines and metadata are skipped by the tokenizer)
+		while(reader.nextTransaction()){
+			int[] lineItems = reader.getItems();
+			int length = 0;
+			// for each item in the transaction
+			for(int i = 0; i < reader.getItemCount(); i++){
+				// only add items that have the minimum support
+				Integer newName = mapItemToNewName.get(lineItems[i]);
+				if(newName != null){
+					// the buffer is resized if the transaction contains the same item several times
+					if(length == transaction.length) {
+						transaction = Arrays.copyOf(transaction, length * 2);
+					}
+					transaction[length++] = newName;
+				}
+			}
+			// sort items by descending order of support, which is the increasing order of their new names
+			Arrays.sort(transaction, 0, length);
+			// add the sorted transaction to the tree.
+			tree.addTransaction(transaction, length, 1);
+		}
+		// close the input file
+		reader.close();
+		return tree;
+	}
+
+	/**
+	 * Add a transaction to the tree
+	 * @param items the items of the transaction, sorted by increasing order (decreasing order of support)
+	 * @param length the number of items to take from the array
+	 * @param count the number of times that this transaction appears
+	 */
+	public void addTransaction(int[] items, int length, int count) {
+		int currentNode = 0;
+		// For each item in the transaction
+		for(int i = 0; i < length; i++) {
+			int item = items[i];
+			// look if there is a node already in the FP-Tree
+			int child = getChildWithItem(currentNode, item);
+			if(child == NO_NODE) {
+				// there is no node, we create a new one
+				child = createNode(item, currentNode, count);
+			}else {
+				// there is a node already, we update it
+				nodeCounter[child] += count;
+			}
+			itemSupport[item] += count;
+			currentNode = child;
+		}
+	}
+
+	/**
+	 * Find the child of a node having a given item
+	 * @param node the node
+	 * @param item the item
+	 * @return the child or NO_NODE if there is none
+	 */
+	private int getChildWithItem(int node, int item) {
+		int child = nodeFirstChild[node];
+		while(child != NO_NODE && nodeItem[child] != item) {
+			child = nodeNextSibling[child];
+		}
+		return child;
+	}
+
+	/**
+	 * Create a new node and update the node links
+	 * @param item the item of the node
+	 * @param parent the parent node
+	 * @param count the counter of the node
+	 * @return the new node
+	 */
+	private int createNode(int item, int parent, int count) {
+		// resize the arrays if needed
+		if(nodeCount == nodeItem.length) {
+			int newCapacity = nodeCount + (nodeCount >> 1);
+			nodeItem = Arrays.copyOf(nodeItem, newCapacity);
+			nodeCounter = Arrays.copyOf(nodeCounter, newCapacity);
+			nodeParent = Arrays.copyOf(nodeParent, newCapacity);
+			nodeFirstChild = Arrays.copyOf(nodeFirstChild, newCapacity);
+			nodeNextSibling = Arrays.copyOf(nodeNextSibling, newCapacity);
+			nodeLink = Arrays.copyOf(nodeLink, newCapacity);
+		}
+		int node = nodeCount++;
+		nodeItem[node] = item;
+		nodeCounter[node] = count;
+		nodeParent[node] = parent;
+		nodeFirstChild[node] = NO_NODE;
+		// the new node becomes the first child of its parent
+		nodeNextSibling[node] = nodeFirstChild[parent];
+		nodeFirstChild[parent] = node;
+
+		// We update the header table and the node links
+		nodeLink[node] = NO_NODE;
+		if(headerFirstNode[item] == NO_NODE) {
+			headerFirstNode[item] = node;
+			headerList[headerListSize++] = item;
+		}else {
+			nodeLink[headerLastNode[item]] = node;
+		}
+		headerLastNode[item] = node;
+		return node;
+	}
+
+	/**
+	 * Calculate the support of items in the conditional pattern base of an item
+	 * (the prefix paths of the nodes of that item).
+	 * @param item the item
+	 * @param minSupport the minimum support threshold
+	 * @param supportBuffer an array of at least "item" cells, filled with zeros, where the support
+	 *        of each item will be stored. It should then be passed to {@link #createConditionalTree}
+	 *        or {@link #clearConditionalSupports}, which will fill it again with zeros.
+	 * @param frequentItems an array of at least "item" cells where the frequent items will be stored
+	 * @return the number of frequent items in the conditional pattern base
+	 */
+	public int countConditionalSupports(int item, int minSupport, int[] supportBuffer, int[] frequentItems) {
+		int frequentCount = 0;
+		// for each node of that item
+		for(int node = headerFirstNode[item]; node != NO_NODE; node = nodeLink[node]) {
+			int pathCount = nodeCounter[node];
+			// for each node in the prefix path
+			for(int parent = nodeParent[node]; parent != 0; parent = nodeParent[parent]) {
+				int parentItem = nodeItem[parent];
+				int oldSupport = supportBuffer[parentItem];
+				supportBuffer[parentItem] = oldSupport + pathCount;
+				// if the item just became frequent, we remember it
+				if(oldSupport < minSupport && oldSupport + pathCount >= minSupport) {
+					frequentItems[frequentCount++] = parentItem;
+				}
+			}
+		}
+		return frequentCount;
+	}
+
+	/**
+	 * Create the conditional FP-tree of an item, using the supports calculated by
+	 * {@link #countConditionalSupports}. Only frequent items are inserted in the conditional tree.
+	 * After this method, the support buffer is filled with zeros.
+	 * @param item the item
+	 * @param minSupport the minimum support threshold
+	 * @param supportBuffer the support of items in the conditional pattern base
+	 * @param pathBuffer an array of at least "item" cells used to store a prefix path
+	 * @return the conditional FP-tree (which contains only the root if no item is frequent)
+	 */
+	public CompactFPTree createConditionalTree(int item, int minSupport, int[] supportBuffer, int[] pathBuffer) {
+		CompactFPTree treeBeta = new CompactFPTree(item);
+		// for each node of that item
+		for(int node = headerFirstNode[item]; node != NO_NODE; node = nodeLink[node]) {
+			// copy the frequent items of the prefix path in the buffer,
+			// from the node to the root
+			int length = 0;
+			for(int parent = nodeParent[node]; parent != 0; parent = nodeParent[parent]) {
+				int parentItem = nodeItem[parent];
+				if(supportBuffer[parentItem] >= minSupport) {
+					pathBuffer[length++] = parentItem;
+				}
+			}
+			// reverse the path so that it goes from the root to the node
+			for(int i = 0, j = length - 1; i < j; i++, j--) {
+				int temp = pathBuffer[i];
+				pathBuffer[i] = pathBuffer[j];
+				pathBuffer[j] = temp;
+			}
+			// add the prefix path to the conditional tree
+			if(length > 0) {
+				treeBeta.addTransaction(pathBuffer, length, nodeCounter[node]);
+			}
+		}
+		clearConditionalSupports(item, supportBuffer);
+		return treeBeta;
+	}
+
+	/**
+	 * Fill again with zeros the support buffer used by {@link #countConditionalSupports}.
+	 * @param item the item
+	 * @param supportBuffer the support buffer
+	 */
+	public void clearConditionalSupports(int item, int[] supportBuffer) {
+		for(int node = headerFirstNode[item]; node != NO_NODE; node = nodeLink[node]) {
+			for(int parent = nodeParent[node]; parent != 0; parent = nodeParent[parent]) {
+				supportBuffer[nodeItem[parent]] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Check if this tree contains a single path
+	 * @return true if each node has at most one child
+	 */
+	public boolean isSinglePath() {
+		for(int node = 0; node != NO_NODE; node = nodeFirstChild[node]) {
+			if(nodeFirstChild[node] != NO_NODE && nodeNextSibling[nodeFirstChild[node]] != NO_NODE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sort the header list by increasing order of items (this is the order of decreasing
+	 * support in the original database).
+	 */
+	public void sortHeaderListByItem() {
+		Arrays.sort(headerList, 0, headerListSize);
+	}
+
+	/**
+	 * Sort the header list by decreasing order of support in this tree. Items having the same
+	 * support are sorted according to a second order.
+	 * @param tieBreakOrder an array indicating the position of each item according to the second order
+	 *    (for example the lexical order of the original items)
+	 */
+	public void sortHeaderListBySupport(int[] tieBreakOrder) {
+		// insertion sort for small lists and quicksort otherwise
+		sortHeaderList(0, headerListSize - 1, tieBreakOrder);
+	}
+
+	/**
+	 * Sort a part of the header list (quicksort, using insertion sort for small parts)
+	 * @param low the first position
+	 * @param high the last position
+	 * @param tieBreakOrder the second order used to compare items having the same support
+	 */
+	private void sortHeaderList(int low, int high, int[] tieBreakOrder) {
+		while(high - low > 16) {
+			// use the median of three items as pivot
+			int middle = (low + high) >>> 1;
+			if(compareHeaderItems(headerList[middle], headerList[low], tieBreakOrder) < 0) swapHeaderItems(middle, low);
+			if(compareHeaderItems(headerList[high], headerList[low], tieBreakOrder) < 0) swapHeaderItems(high, low);
+			if(compareHeaderItems(headerList[high], headerList[middle], tieBreakOrder) < 0) swapHeaderItems(high, middle);
+			int pivot = headerList[middle];
+			int i = low;
+			int j = high;
+			while(i <= j) {
+				while(compareHeaderItems(headerList[i], pivot, tieBreakOrder) < 0) i++;
+				while(compareHeaderItems(headerList[j], pivot, tieBreakOrder) > 0) j--;
+				if(i <= j) {
+					swapHeaderItems(i++, j--);
+				}
+			}
+			// recursive call on the smallest part and loop on the largest part
+			if(j - low < high - i) {
+				sortHeaderList(low, j, tieBreakOrder);
+				low = i;
+			}else {
+				sortHeaderList(i, high, tieBreakOrder);
+				high = j;
+			}
+		}
+		// insertion sort
+		for(int i = low + 1; i <= high; i++) {
+			int item = headerList[i];
+			int j = i - 1;
+			while(j >= low && compareHeaderItems(headerList[j], item, tieBreakOrder) > 0) {
+				headerList[j + 1] = headerList[j];
+				j--;
+			}
+			headerList[j + 1] = item;
+		}
+	}
+
+	/**
+	 * Compare two items by decreasing order of support, and then using a second order
+	 * @param item1 the first item
+	 * @param item2 the second item
+	 * @param tieBreakOrder the second order
+	 * @return a negative value if item1 is before item2, a positive value if it is after, otherwise 0
+	 */
+	private int compareHeaderItems(int item1, int item2, int[] tieBreakOrder) {
+		int compare = itemSupport[item2] - itemSupport[item1];
+		return (compare == 0) ? tieBreakOrder[item1] - tieBreakOrder[item2] : compare;
+	}
+
+	/**
+	 * Swap two items of the header list
+	 * @param i the position of the first item
+	 * @param j the position of the second item
+	 */
+	private void swapHeaderItems(int i, int j) {
+		int temp = headerList[i];
+		headerList[i] = headerList[j];
+		headerList[j] = temp;
+	}
+
+	/**
+	 * Get the list of items appearing in this tree. Only the first {@link #getHeaderListSize()}
+	 * cells of this array should be used.
+	 * @return the header list
+	 */
+	public int[] getHeaderList() {
+		return headerList;
+	}
+
+	/**
+	 * Get the number of items appearing in this tree
+	 * @return the size of the header list
+	 */
+	public int getHeaderListSize() {
+		return headerListSize;
+	}
+
+	/**
+	 * Get the support of an item in this tree
+	 * @param item the item
+	 * @return the support
+	 */
+	public int getItemSupport(int item) {
+		return itemSupport[item];
+	}
+
+	/**
+	 * Get the first node of an item (following the node links)
+	 * @param item the item
+	 * @return the node or NO_NODE if the item does not appear in the tree
+	 */
+	public int getFirstNodeOfItem(int item) {
+		return headerFirstNode[item];
+	}
+
+	/**
+	 * Get the number of nodes in this tree, including the root
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Get the number of items that can appear in this tree
+	 * @return the number of items
+	 */
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Get the item of a node
+	 * @param node the node
+	 * @return the item
+	 */
+	public int getItem(int node) {
+		return nodeItem[node];
+	}
+
+	/**
+	 * Get the counter (support) of a node
+	 * @param node the node
+	 * @return the counter
+	 */
+	public int getCounter(int node) {
+		return nodeCounter[node];
+	}
+
+	/**
+	 * Get the parent of a node
+	 * @param node the node
+	 * @return the parent or NO_NODE if the node is the root
+	 */
+	public int getParent(int node) {
+		return nodeParent[node];
+	}
+
+	/**
+	 * Get the first child of a node
+	 * @param node the node
+	 * @return the first child or NO_NODE if the node has no child
+	 */
+	public int getFirstChild(int node) {
+		return nodeFirstChild[node];
+	}
+
+	/**
+	 * Get the next sibling of a node
+	 * @param node the node
+	 * @return the next sibling or NO_NODE if there is none
+	 */
+	public int getNextSibling(int node) {
+		return nodeNextSibling[node];
+	}
+
+	/**
+	 * Get the next node having the same item as a node
+	 * @param node the node
+	 * @return the next node or NO_NODE if there is none
+	 */
+	public int getNodeLink(int node) {
+		return nodeLink[node];
+	}
+
+	/**
+	 * Get an estimation of the memory used by this tree in bytes
+	 * @return the number of bytes
+	 */
+	public long getMemoryUsage() {
+		return 6L * 4 * nodeItem.length + 4L * 4 * itemCount;
+	}
+
+	@Override
+	/**
+	 * Method for getting a string representation of the tree
+	 * (to be used for debugging purposes).
+	 * @return a string
+	 */
+	public String toString() {
+		StringBuilder output = new StringBuilder();
+		output.append("F HeaderList: ");
+		output.append(Arrays.toString(Arrays.copyOf(headerList, headerListSize)));
+		output.append('\n');
+		toString(output, 0, "");
+		return output.toString();
+	}
+
+	/**
+	 * Append a string representation of a node and its descendants to a StringBuilder
+	 * @param output the StringBuilder
+	 * @param node the node
+	 * @param indent the indentation
+	 */
+	private void toString(StringBuilder output, int node, String indent) {
+		output.append(nodeItem[node]);
+		output.append(" (count=");
+		output.append(nodeCounter[node]);
+		output.append(")\n");
+		String newIndent = indent + "   ";
+		for(int child = nodeFirstChild[node]; child != NO_NODE; child = nodeNextSibling[child]) {
+			output.append(newIndent);
+			toString(output, child, newIndent);
+		}
+	}
+}
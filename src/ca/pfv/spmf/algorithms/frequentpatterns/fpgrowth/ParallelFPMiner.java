@@ -0,0 +1,225 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
+
+/* This file is copyright (c) 2008-2015 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class is the engine used to run FPGrowth, FPMax and FPClose with several threads.
+ * <br/><br/>
+ *
+ * Each item of the header list of the initial FP-tree is mined by a separate task of a
+ * fork-join pool. A task uses its own worker (a copy of the algorithm with its own buffers)
+ * and stores the itemsets that it finds in a {@link FPPatternBuffer}. A worker may also fork
+ * a sub-task for a large conditional FP-tree.
+ * <br/><br/>
+ *
+ * The itemsets are then sent back to the original algorithm object, on the calling thread,
+ * following the order of the header list. The calling thread is thus the only one that
+ * writes to the output file or to the Itemsets object, and the result is identical to
+ * that of a serial execution (including the order of itemsets in the output file).
+ *
+ * @see AlgoFPGrowth
+ * @see AlgoFPMax
+ * @see AlgoFPClose
+ * @author Philippe Fournier-Viger
+ */
+class ParallelFPMiner {
+
+	/**
+	 * Interface implemented by the algorithms that can be run by this engine.
+	 */
+	interface Miner {
+
+		/**
+		 * Create a worker, that is a copy of this algorithm having its own buffers,
+		 * which saves the itemsets that it finds in a buffer
+		 * @param output the buffer where the worker should save itemsets
+		 * @return the worker
+		 */
+		Miner createWorker(FPPatternBuffer output);
+
+		/**
+		 * Mine the itemsets starting with a prefix extended with an item of the header list of a tree
+		 * (this is one iteration of the main loop of the recursive mining procedure)
+		 * @param tree the FP-tree
+		 * @param headerIndex the position of the item in the header list of the tree
+		 * @param prefix the current prefix
+		 * @param prefixLength the current prefix length
+		 * @param prefixSupport the support of the prefix
+		 * @param mapSupport the support of items in the tree
+		 * @throws IOException if an error occurs
+		 */
+		void mineHeaderItem(FPTree tree, int headerIndex, int[] prefix, int prefixLength,
+				int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException;
+
+		/**
+		 * Mine all the itemsets of a conditional FP-tree
+		 * @param tree the FP-tree
+		 * @param prefix the current prefix
+		 * @param prefixLength the current prefix length
+		 * @param prefixSupport the support of the prefix
+		 * @param mapSupport the support of items in the tree
+		 * @throws IOException if an error occurs
+		 */
+		void mineTree(FPTree tree, int[] prefix, int prefixLength,
+				int prefixSupport, Map<Integer, Integer> mapSupport) throws IOException;
+
+		/**
+		 * Receive an itemset found by a worker. This method is called by the engine
+		 * on the thread that called {@link ParallelFPMiner#mine}, in the order where
+		 * a serial execution would have found the itemsets.
+		 * @param itemset an array containing the items
+		 * @param itemsetLength the number of items
+		 * @param support the support of the itemset
+		 * @throws IOException if an error occurs while writing the itemset
+		 */
+		void emitItemset(int[] itemset, int itemsetLength, int support) throws IOException;
+	}
+
+	/**
+	 * A task of the fork-join pool, which mines either an item of the header list of a tree
+	 * or a whole conditional FP-tree.
+	 */
+	static class MiningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		// the algorithm that created this task
+		private final Miner master;
+		// the tree to be mined
+		private final FPTree tree;
+		// the position of the item to mine in the header list or -1 to mine the whole tree
+		private final int headerIndex;
+		// a copy of the prefix
+		private final int[] prefix;
+		private final int prefixLength;
+		private final int prefixSupport;
+		private final Map<Integer, Integer> mapSupport;
+
+		// the itemsets found by this task
+		private final FPPatternBuffer output = new FPPatternBuffer();
+
+		/**
+		 * Constructor
+		 * @param master the algorithm that creates this task
+		 * @param tree the tree
+		 * @param headerIndex the position of the item to mine in the header list or -1 to mine the whole tree
+		 * @param prefix the current prefix (it is copied)
+		 * @param prefixLength the prefix length
+		 * @param prefixSupport the support of the prefix
+		 * @param mapSupport the support of items in the tree
+		 */
+		MiningTask(Miner master, FPTree tree, int headerIndex, int[] prefix, int prefixLength,
+				int prefixSupport, Map<Integer, Integer> mapSupport) {
+			this.master = master;
+			this.tree = tree;
+			this.headerIndex = headerIndex;
+			this.prefix = new int[prefixLength];
+			System.arraycopy(prefix, 0, this.prefix, 0, prefixLength);
+			this.prefixLength = prefixLength;
+			this.prefixSupport = prefixSupport;
+			this.mapSupport = mapSupport;
+		}
+
+		@Override
+		protected void compute() {
+			Miner worker = master.createWorker(output);
+			try {
+				if(headerIndex >= 0) {
+					worker.mineHeaderItem(tree, headerIndex, prefix, prefixLength, prefixSupport, mapSupport);
+				}else {
+					worker.mineTree(tree, prefix, prefixLength, prefixSupport, mapSupport);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/**
+		 * Get the itemsets found by this task
+		 * @return the buffer containing the itemsets
+		 */
+		FPPatternBuffer getOutput() {
+			return output;
+		}
+	}
+
+	/**
+	 * Mine an FP-tree using several threads.
+	 * @param master the algorithm that will receive all the itemsets found
+	 * @param tree the FP-tree (it is only read during the mining)
+	 * @param prefixSupport the support of the empty prefix (the number of transactions)
+	 * @param mapSupport the support of items in the tree
+	 * @param threadCount the number of threads
+	 * @param bufferSize the size of a buffer that can store any itemset
+	 * @throws IOException if an error occurs while writing the itemsets
+	 */
+	static void mine(Miner master, FPTree tree, int prefixSupport, Map<Integer, Integer> mapSupport,
+			int threadCount, int bufferSize) throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			// Create a task for each item of the header list, in the order used by the serial algorithm
+			// (the reverse order of the header list)
+			List<MiningTask> tasks = new ArrayList<MiningTask>(tree.headerList.size());
+			int[] emptyPrefix = new int[0];
+			for(int i = tree.headerList.size() - 1; i >= 0; i--) {
+				MiningTask task = new MiningTask(master, tree, i, emptyPrefix, 0, prefixSupport, mapSupport);
+				tasks.add(task);
+				pool.execute(task);
+			}
+
+			// Wait for each task in order and send its itemsets to the master as soon as it is done
+			int[] itemsetBuffer = new int[bufferSize];
+			for(int i = 0; i < tasks.size(); i++) {
+				MiningTask task = tasks.get(i);
+				task.join();
+				task.getOutput().replay(master, itemsetBuffer);
+				// release the memory used by this task
+				tasks.set(i, null);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Fork a sub-task for mining a conditional FP-tree. The position of the sub-task is
+	 * recorded in the output buffer of the worker that forks it.
+	 * @param master the algorithm that will create the worker of the sub-task
+	 * @param output the buffer of the worker that forks the sub-task
+	 * @param tree the conditional FP-tree
+	 * @param prefix the prefix of the conditional FP-tree
+	 * @param prefixLength the prefix length
+	 * @param prefixSupport the support of the prefix
+	 * @param mapSupport the support of items in the tree
+	 */
+	static void forkSubTree(Miner master, FPPatternBuffer output, FPTree tree, int[] prefix, int prefixLength,
+			int prefixSupport, Map<Integer, Integer> mapSupport) {
+		MiningTask task = new MiningTask(master, tree, -1, prefix, prefixLength, prefixSupport, mapSupport);
+		output.addSubTask(task);
+		task.fork();
+	}
+}
@@ -25,12 +25,15 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth.CompactFPTree;
+
 /** 
  * This is an implementation of the FPGROWTH algorithm (Han et al., 2004) that take
  * as input a transaction database where items are represented by strings rather
@@ -61,6 +64,21 @@ public class AlgoFPGrowth_Strings {
 	// object to write the output file
 	BufferedWriter writer = null; 
 	
+	/** if true, the algorithm uses a CompactFPTree instead of an FPTree_Strings */
+	private boolean useCompactTree = false;
+	
+	// The following variables are used when the algorithm uses a CompactFPTree:
+	// the original name of each item (the item i of the tree is compactItems[i])
+	private String[] compactItems = null;
+	// the position of each item according to the lexical ordering (to break ties when sorting header lists)
+	private int[] compactItemOrder = null;
+	// buffers used to create conditional trees
+	private int[] compactSupportBuffer = null;
+	private int[] compactItemBuffer = null;
+	// buffers for storing the items and counters of nodes in a single path
+	private int[] compactPathItemBuffer = null;
+	private int[] compactPathCounterBuffer = null;
+	
 
 	/**
 	 * Default constructor
@@ -95,6 +113,26 @@ public class AlgoFPGrowth_Strings {
 		// by multiplying by the database size.
 		this.relativeMinsupp = (int) Math.ceil(minsupp * transactionCount);
 		
+		// if the user wants to use the compact FP-tree
+		if(useCompactTree) {
+			mineWithCompactTree(input, mapSupport);
+		}else {
+			mineWithFPTree(input, mapSupport);
+		}
+		
+		// close the output file
+		writer.close();
+		// record the end time
+		endTime= System.currentTimeMillis();
+	}
+	
+	/**
+	 * Build the initial FP-tree and mine it.
+	 * @param input the file path of an input transaction database.
+	 * @param mapSupport the support of each item in the database
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineWithFPTree(String input, final Map<String, Integer> mapSupport) throws IOException {
 		// (2) Scan the database again to build the initial FP-Tree
 		// Before inserting a transaction in the FPTree, we sort the items
 		// by descending order of support.  We ignore items that
@@ -157,13 +195,99 @@ public class AlgoFPGrowth_Strings {
 			fpgrowth(tree, prefixAlpha, transactionCount, mapSupport);
 		}
 		
-		// close the output file
-		writer.close();
-		// record the end time
-		endTime= System.currentTimeMillis();
-		
 //		print(tree.root, " ");
 	}
+	
+	/**
+	 * Build the initial FP-tree as a CompactFPTree and mine it. The frequent items are renamed
+	 * with integers so that the item 0 is the most frequent item.
+	 * @param input the file path of an input transaction database.
+	 * @param mapSupport the support of each item in the database
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineWithCompactTree(String input, final Map<String, Integer> mapSupport) throws IOException {
+		// (2) Sort the frequent items by descending order of support
+		// (items having the same support are sorted by lexical ordering)
+		List<String> frequentItems = new ArrayList<String>();
+		for(Map.Entry<String, Integer> entry : mapSupport.entrySet()) {
+			if(entry.getValue() >= relativeMinsupp) {
+				frequentItems.add(entry.getKey());
+			}
+		}
+		Collections.sort(frequentItems, new Comparator<String>(){
+			public int compare(String item1, String item2){
+				// compare the support
+				int compare = mapSupport.get(item2) - mapSupport.get(item1);
+				// if the same support, we check the lexical ordering!
+				if(compare == 0){ 
+					return item1.compareTo(item2);
+				}
+				// otherwise use the support
+				return compare;
+			}
+		});
+		compactItems = frequentItems.toArray(new String[frequentItems.size()]);
+		
+		// map each frequent item to its new name, and calculate the position of each
+		// item according to the lexical ordering
+		Map<String, Integer> mapItemToCompactItem = new HashMap<String, Integer>();
+		String[] sortedItems = compactItems.clone();
+		Arrays.sort(sortedItems);
+		compactItemOrder = new int[compactItems.length];
+		for(int i = 0; i < compactItems.length; i++) {
+			mapItemToCompactItem.put(compactItems[i], i);
+			compactItemOrder[i] = Arrays.binarySearch(sortedItems, compactItems[i]);
+		}
+		
+		// (3) Scan the database again to build the initial FP-Tree
+		CompactFPTree tree = new CompactFPTree(compactItems.length);
+		int[] transaction = new int[compactItems.length];
+		
+		BufferedReader reader = new BufferedReader(new FileReader(input));
+		String line;
+		// for each line (transaction) in the input file until the end of file
+		while( ((line = reader.readLine())!= null)){ 
+			// if the line is  a comment, is  empty or is a
+			// kind of metadata
+			if (line.isEmpty() == true ||
+					line.charAt(0) == '#' || line.charAt(0) == '%'
+							|| line.charAt(0) == '@') {
+				continue;
+			}
+			
+			// split the transaction into items
+			String[] lineSplited = line.split(" ");
+			int length = 0;
+			// for each item in the transaction
+			for(String itemString : lineSplited){  
+				// if it is frequent, add it to the transaction
+				Integer item = mapItemToCompactItem.get(itemString);
+				if(item != null){
+					transaction[length++] = item;
+				}
+			}
+			// sort item in the transaction by descending order of support
+			Arrays.sort(transaction, 0, length);
+			// add the sorted transaction to the fptree.
+			tree.addTransaction(transaction, length, 1);
+		}
+		// close the input file
+		reader.close();
+		
+		// (4) We start to mine the FP-Tree by calling the recursive method.
+		// Initially, the prefix alpha is empty.
+		if(tree.getHeaderListSize() > 0) {
+			// initialize the buffers
+			compactSupportBuffer = new int[compactItems.length];
+			compactItemBuffer = new int[compactItems.length];
+			compactPathItemBuffer = new int[compactItems.length];
+			compactPathCounterBuffer = new int[compactItems.length];
+			
+			// We create the header table for the tree
+			tree.sortHeaderListByItem();
+			fpgrowthCompact(tree, new int[compactItems.length], 0, transactionCount);
+		}
+	}
 
 //	private void print(FPNode node, String indentation) {
 //		System.out.println(indentation + "NODE : " + node.itemID + " COUNTER" + node.counter);
@@ -327,6 +451,81 @@ public class AlgoFPGrowth_Strings {
 		
 	}
 
+	/**
+	 * Mine a CompactFPTree. This method does the same thing as {@link #fpgrowth}
+	 * but for a CompactFPTree.
+	 * @param tree  the FP-tree
+	 * @param prefix  the current prefix, named "alpha"
+	 * @param prefixLength the current prefix length
+	 * @param prefixSupport the support of the current prefix
+	 * @throws IOException   exception if error writing the output file
+	 */
+	private void fpgrowthCompact(CompactFPTree tree, int[] prefix, int prefixLength, int prefixSupport) throws IOException {
+		// We need to check if there is a single path in the prefix tree or not.
+		if(tree.isSinglePath()){
+			// copy the items and counters of the nodes of the path in the buffers
+			int pathLength = 0;
+			for(int node = tree.getFirstChild(0); node != CompactFPTree.NO_NODE; node = tree.getFirstChild(node)) {
+				compactPathItemBuffer[pathLength] = tree.getItem(node);
+				compactPathCounterBuffer[pathLength] = tree.getCounter(node);
+				pathLength++;
+			}
+			// add all combinations of this path, concatenated with the prefix "alpha", to the set of patterns found.
+			addAllCombinationsForPathAndPrefix(0, pathLength, prefix, prefixLength);
+		}else{
+			// We process each frequent item in the header table list of the tree in reverse order.
+			int[] headerList = tree.getHeaderList();
+			for(int i = tree.getHeaderListSize()-1; i>=0; i--){
+				int item = headerList[i];
+				int support = tree.getItemSupport(item);
+				
+				// Create Beta by concatening Alpha with the current item
+				// and add it to the list of frequent patterns
+				prefix[prefixLength] = item;
+				
+				// calculate the support of beta
+				int betaSupport = (prefixSupport < support) ? prefixSupport: support;
+				// save beta to the output file
+				writeItemsetToFile(prefix, prefixLength+1, betaSupport);
+				
+				// Construct beta's conditional FP-Tree
+				tree.countConditionalSupports(item, relativeMinsupp, compactSupportBuffer, compactItemBuffer);
+				CompactFPTree treeBeta = tree.createConditionalTree(item, relativeMinsupp, compactSupportBuffer, compactItemBuffer);
+				
+				// Mine recursively the Beta tree if the root as child(s)
+				if(treeBeta.getNodeCount() > 1){
+					// Create the header list.
+					treeBeta.sortHeaderListBySupport(compactItemOrder);
+					// recursive call
+					fpgrowthCompact(treeBeta, prefix, prefixLength+1, betaSupport);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * This method is for adding recursively all combinations of nodes in a path of a CompactFPTree, 
+	 * concatenated with a given prefix, to the set of patterns found. The path is stored in the
+	 * buffers compactPathItemBuffer and compactPathCounterBuffer.
+	 * @param position the position of the current node in the path
+	 * @param pathLength the number of nodes in the path
+	 * @param prefix the prefix
+	 * @param prefixLength the prefix length
+	 * @throws IOException if exception while writting to output file
+	 */
+	private void addAllCombinationsForPathAndPrefix(int position, int pathLength, int[] prefix, int prefixLength) throws IOException {
+		// Concatenate the node item to the current prefix
+		prefix[prefixLength] = compactPathItemBuffer[position];
+		
+		// save the resulting itemset to the file with its support
+		writeItemsetToFile(prefix, prefixLength+1, compactPathCounterBuffer[position]);
+		
+		if(position+1 < pathLength) {
+			addAllCombinationsForPathAndPrefix(position+1, pathLength, prefix, prefixLength+1);
+			addAllCombinationsForPathAndPrefix(position+1, pathLength, prefix, prefixLength);
+		}
+	}
+
 	/**
 	 * This method is for adding recursively all combinations of nodes in a path, concatenated with a given prefix,
 	 * to the set of patterns found.
@@ -376,6 +575,45 @@ public class AlgoFPGrowth_Strings {
 		writer.newLine();
 	}
 
+	/**
+	 * Write a frequent itemset found in a CompactFPTree to the output file.
+	 * @param itemset the items, using the names of items in the CompactFPTree
+	 * @param itemsetLength the number of items
+	 * @param support the support of the itemset
+	 * @throws IOException if exception while writting to output file
+	 */
+	private void writeItemsetToFile(int [] itemset, int itemsetLength, int support) throws IOException {
+		// increase the number of itemsets found for statistics purpose
+		itemsetCount++;
+		
+		// create a string buffer 
+		StringBuilder buffer = new StringBuilder();
+		// write the original name of items from the itemset to the StringBuilder
+		for(int i=0; i< itemsetLength; i++){
+			buffer.append(compactItems[itemset[i]]);
+			if(i != itemsetLength-1){
+				buffer.append(' ');
+			}
+		}
+		// append the support of the itemset
+		buffer.append(':');
+		buffer.append(support);
+		// write the strinbuffer and create a newline so that we are
+		// ready for the next itemset to be written
+		writer.write(buffer.toString());
+		writer.newLine();
+	}
+
+	/**
+	 * Set if the algorithm should use a CompactFPTree (an FP-tree stored in arrays of integers)
+	 * instead of an FPTree_Strings. Items are then renamed with integers, which greatly
+	 * reduces the memory usage and the time for building conditional FP-trees. The result is the same.
+	 * @param useCompactTree true to use the compact tree (default: false)
+	 */
+	public void setUseCompactTree(boolean useCompactTree) {
+		this.useCompactTree = useCompactTree;
+	}
+
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 */
@@ -52,8 +52,7 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * - this implementation adds the EUCP strategy from the FHM algorithm to improve the performance
  *   of CHUI-Miner.
  * 
- * @see UtilityList
- * @see Element
+ * @see CompactUtilityList
  * @author Philippe Fournier-Viger 2014
  */
 public class AlgoCHUIMiner {
@@ -226,25 +225,25 @@ public class AlgoCHUIMiner {
 	    }
 		
 		// CREATE A LIST TO STORE THE UTILITY LIST OF ITEMS WITH TWU  >= MIN_UTILITY.
-		List<UtilityList> listOfUtilityLists = new ArrayList<UtilityList>();
+		List<CompactUtilityList> listOfUtilityLists = new ArrayList<CompactUtilityList>();
 		// CREATE A MAP TO STORE THE UTILITY LIST FOR EACH ITEM.
 		// Key : item    Value :  utility list associated to that item
-		Map<Integer, UtilityList> mapItemToUtilityList = new HashMap<Integer, UtilityList>();
+		Map<Integer, CompactUtilityList> mapItemToUtilityList = new HashMap<Integer, CompactUtilityList>();
 		
 		// For each item
 		for(Integer item: mapItemToTWU.keySet()){
 			// if the item is promising  (TWU >= minutility)
 			if(mapItemToTWU.get(item) >= minUtility){
 				// create an empty Utility List that we will fill later.
-				UtilityList uList = new UtilityList(item);
+				CompactUtilityList uList = new CompactUtilityList(item);
 				mapItemToUtilityList.put(item, uList);
 				// add the item to the list of high TWU items
 				listOfUtilityLists.add(uList); 
 			}
 		}
 		// SORT THE LIST OF HIGH TWU ITEMS IN ASCENDING ORDER
-		Collections.sort(listOfUtilityLists, new Comparator<UtilityList>(){
-			public int compare(UtilityList o1, UtilityList o2) {
+		Collections.sort(listOfUtilityLists, new Comparator<CompactUtilityList>(){
+			public int compare(CompactUtilityList o1, CompactUtilityList o2) {
 				// compare the TWU of the items
 				return compareItems(o1.item, o2.item);
 			}
@@ -311,12 +310,10 @@ public class AlgoCHUIMiner {
 					remainingUtility = remainingUtility - pair.utility;
 					
 					// get the utility list of this item
-					UtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
+					CompactUtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
 					
 					// Add a new Element to the utility list of this item corresponding to this transaction
-					Element element = new Element(tid, pair.utility, remainingUtility);
-					
-					utilityListOfItem.addElement(element);
+					utilityListOfItem.addElement(tid, pair.utility, remainingUtility);
 										
 					// BEGIN CODE for updating the structure used
 					// BY THE EUCP STRATEGY INTRODUCED IN CHUIMiner
@@ -357,7 +354,7 @@ public class AlgoCHUIMiner {
 
 		// Mine the database recursively
 		// (3) CALL THE recursive procedure
-		chuimineClosed_eucp(true, new int[0], null, new ArrayList<UtilityList>(), listOfUtilityLists);
+		chuimineClosed_eucp(true, new int[0], null, new ArrayList<CompactUtilityList>(), listOfUtilityLists);
 		
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -381,14 +378,14 @@ public class AlgoCHUIMiner {
 	 * @param minUtilityRatio The minUtility threshold.
 	 * @throws IOException
 	 */
-	private void chuimineClosed_eucp(boolean firstTime, int [] closedSet, UtilityList closedSetUL, 
-			List<UtilityList> preset, List<UtilityList> postset)
+	private void chuimineClosed_eucp(boolean firstTime, int [] closedSet, CompactUtilityList closedSetUL, 
+			List<CompactUtilityList> preset, List<CompactUtilityList> postset)
 			throws IOException {
 		
 		//L2: for all i in postset
-		for(UtilityList iUL : postset){
+		for(CompactUtilityList iUL : postset){
 			// L4 Calculate the tidset of the new GENERATOR "closedset U {i}"
-			UtilityList newgen_TIDs;
+			CompactUtilityList newgen_TIDs;
 			// if the first time
 			if(firstTime){
 				// it is the tidset of it
@@ -410,14 +407,14 @@ public class AlgoCHUIMiner {
 					int[] closedSetNew = newGen;	
 
 					// calculate tidset
-					UtilityList closedsetNewTIDs = newgen_TIDs;
+					CompactUtilityList closedsetNewTIDs = newgen_TIDs;
 					
 //					// L7 : PostsetNew = emptyset
-					List<UtilityList> postsetNew = new ArrayList<UtilityList>();
+					List<CompactUtilityList> postsetNew = new ArrayList<CompactUtilityList>();
 					
 					// for each item J in the postset
 					boolean passedHUIPruning = true;
-					for(UtilityList jUL : postset){
+					for(CompactUtilityList jUL : postset){
 						// if J is smaller than I according to the total order on items, we skip it
 						if(jUL.item == iUL.item || compareItems(jUL.item, iUL.item) < 0){
 							continue;
@@ -449,12 +446,12 @@ public class AlgoCHUIMiner {
 					if(passedHUIPruning) {
 						// L15 : write out Closed_setNew and its support
 						if(closedsetNewTIDs.sumIutils >= minUtility) {
-							saveCHUI(closedSetNew, closedsetNewTIDs.sumIutils, closedsetNewTIDs.elements.size());
+							saveCHUI(closedSetNew, closedsetNewTIDs.sumIutils, closedsetNewTIDs.getSupport());
 						}
 						
 						// L16: recursive call
 						// FIXED: we have to make a copy of preset before the recursive call
-						List<UtilityList> presetNew = new ArrayList<UtilityList>(preset);
+						List<CompactUtilityList> presetNew = new ArrayList<CompactUtilityList>(preset);
 						chuimineClosed_eucp(false, closedSetNew, closedsetNewTIDs, presetNew, postsetNew);
 					}
 					
@@ -470,7 +467,7 @@ public class AlgoCHUIMiner {
 	 * @param utilitylist the utility list of an itemset
 	 * @return true if it passes the pruning condition. Otherwise false.
 	 */
-	private boolean isPassingHUIPruning(UtilityList utilitylist) {
+	private boolean isPassingHUIPruning(CompactUtilityList utilitylist) {
 		return utilitylist.sumIutils +  utilitylist.sumRutils >= minUtility;
 	}
 
@@ -480,16 +477,8 @@ public class AlgoCHUIMiner {
 	 * @param ul2 the second utility list
 	 * @return  true if it contains all tids, otherwise false.
  	 */
-	private boolean containsAllTIDS(UtilityList ul1, UtilityList ul2) {
-		// for each integer j in preset
-		for(Element elmX : ul2.elements){
-			// do a binary search to find element ey in py with tid = ex.tid
-			Element elmE = findElementWithTID(ul1, elmX.tid);
-			if(elmE == null){
-				return false;
-			}
-		}
-		return true;
+	private boolean containsAllTIDS(CompactUtilityList ul1, CompactUtilityList ul2) {
+		return ul1.containsAllTIDs(ul2);
 	}
 
 	/**
@@ -527,25 +516,14 @@ public class AlgoCHUIMiner {
 	 * @param newgenTIDs  the tidset of newgen
 	 * @param preset      the itemset "preset"
 	 */
-	private boolean is_dup(UtilityList newgenTIDs, List<UtilityList> preset) {
+	private boolean is_dup(CompactUtilityList newgenTIDs, List<CompactUtilityList> preset) {
 		// L25
 		// for each integer j in preset
-		for(UtilityList j : preset){
-			
-			// for each element in the utility list of pX
-			boolean containsAll = true;
-			for(Element elmX : newgenTIDs.elements){
-				// do a binary search to find element ey in py with tid = ex.tid
-				Element elmE = findElementWithTID(j, elmX.tid);
-				if(elmE == null){
-					containsAll = false;
-					break;
-				}
-			}
+		for(CompactUtilityList j : preset){
 			
 			// L26 :  
 			// If tidset of newgen is included in tids of j, return true
-			if(containsAll){
+			if(j.containsAllTIDs(newgenTIDs)){
 				// IMPORTANT
 				// NOTE THAT IN ORIGINAL PAPER THEY WROTE FALSE, BUT IT SHOULD BE TRUE
 				return true; 
@@ -559,59 +537,33 @@ public class AlgoCHUIMiner {
 	 * @param uX : the utility list of X
 	 * @param uE : the utility list of e
 	 */
-	private UtilityList construct(UtilityList uX, UtilityList uE) {
+	private CompactUtilityList construct(CompactUtilityList uX, CompactUtilityList uE) {
 		
 		// create an empy utility list for pXY
-		UtilityList uXE = new UtilityList(uE.item);
+		CompactUtilityList uXE = new CompactUtilityList(uE.item);
 
+		// The elements of the utility lists are sorted by tids. Thus, the utility list of e
+		// is read from left to right at the same time as the utility list of X (merge-join).
+		int posE = 0;
 		// for each element in the utility list of pX
-		for(Element elmX : uX.elements){
-			// do a binary search to find element ey in py with tid = ex.tid
-			Element elmE = findElementWithTID(uE, elmX.tid);
-			if(elmE == null){
+		for(int posX = 0; posX < uX.size; posX++){
+			int tid = uX.tids[posX];
+			// find the element elmE in uE with the same tid
+			while(posE < uE.size && uE.tids[posE] < tid){
+				posE++;
+			}
+			if(posE == uE.size || uE.tids[posE] != tid){
 				continue;
 			}
 			// Create the new element
 			//     IMPORTANT :  TRICKY PART :  WE NEED TO SUBTRACT  ELMX.RUTIL - ELME.iutil
 			// THIS IS BECAUSE DCI  DOES NOT ADD ITEMS TO AN ITEMSET ACCORDING TO THE TOTAL ORDER
-			Element elmXe = new Element(elmX.tid, elmX.iutils + elmE.iutils, elmX.rutils - elmE.iutils);
 			// add the new element to the utility list of pXY
-			uXE.addElement(elmXe);
+			uXE.addElement(tid, uX.iutils[posX] + uE.iutils[posE], uX.rutils[posX] - uE.iutils[posE]);
 		}
 		// return the utility list of Xe.
 		return uXE;
 	}
-	/**
-	 * Do a binary search to find the element with a given tid in a utility list
-	 * @param ulist the utility list
-	 * @param tid  the tid
-	 * @return  the element or null if none has the tid.
-	 */
-	private Element findElementWithTID(UtilityList ulist, int tid){
-		List<Element> list = ulist.elements;
-		
-		// perform a binary search to check if  the subset appears in  level k-1.
-        int first = 0;
-        int last = list.size() - 1;
-       
-        // the binary search
-        while( first <= last )
-        {
-        	int middle = ( first + last ) >>> 1; // divide by 2
-
-            if(list.get(middle).tid < tid){
-            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-            }
-            else if(list.get(middle).tid > tid){
-            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-            }
-            else{
-            	return list.get(middle);
-            }
-        }
-		return null;
-	}
-
 	/**
 	 * Method to write a high utility itemset to the output file or memory.
 	 * @param the prefix to be writent o the output file
@@ -49,7 +49,6 @@ import ca.pfv.spmf.tools.MemoryLogger;
  *   Intelligence Systems (HAIS 2016), Springer LNAI, 14 pages, to appear.
  * 
  * @see UtilityListFCHM
- * @see Element
  * @author Philippe Fournier-Viger
  */
 public class AlgoFCHM  implements Serializable{
@@ -87,6 +86,9 @@ public class AlgoFCHM  implements Serializable{
 	* the idea is to always reuse the same buffer to reduce memory usage. */
 	final int BUFFERS_SIZE = 200;
 	private int[] itemsetBuffer = null;
+	
+	/** the utility lists that are not used anymore and can be reused */
+	private List<UtilityListFCHM> utilityListPool = null;
 
 	/** minimum bond threshold**/
 	private double minBond;  
@@ -148,6 +150,9 @@ public class AlgoFCHM  implements Serializable{
 		// initialize the buffer for storing the current itemset
 		itemsetBuffer = new int[BUFFERS_SIZE];
 		
+		// initialize the pool of utility lists
+		utilityListPool = new ArrayList<UtilityListFCHM>();
+		
 		mapSMAP =  new HashMap<Integer, Map<Integer, TwuSupportPair>>();
 		
 		
@@ -314,9 +319,7 @@ public class AlgoFCHM  implements Serializable{
 					UtilityListFCHMOfItem.bitsetDisjunctiveTIDs.support++;
 					
 					// Add a new Element to the utility list of this item corresponding to this transaction
-					Element element = new Element(tid, pair.utility, remainingUtility);
-					
-					UtilityListFCHMOfItem.addElement(element);
+					UtilityListFCHMOfItem.addElement(tid, pair.utility, remainingUtility);
 										
 					// BEGIN NEW OPTIMIZATION for FHM
 					Map<Integer, TwuSupportPair> mapFMAPItem = mapSMAP.get(pair.item);
@@ -359,6 +362,7 @@ public class AlgoFCHM  implements Serializable{
 
 		// Mine the database recursively
 		fchm(itemsetBuffer, 0, null, listOfUtilityListFCHMs, minUtility);
+		utilityListPool = null;
 		
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -448,12 +452,18 @@ public class AlgoFCHM  implements Serializable{
 					UtilityListFCHM temp = construct(pUL, X, Y, minUtility);
 					if(temp != null && temp.getBond() >= minBond) {
 						exULs.add(temp);
+					}else if(temp != null) {
+						// this utility list is not needed anymore and can be reused
+						utilityListPool.add(temp);
 					}
 				}
 				// We create new prefix pX
 				itemsetBuffer[prefixLength] = X.item;
 				// We make a recursive call to discover all itemsets with the prefix pXY
 				fchm(itemsetBuffer, prefixLength+1, X, exULs, minUtility); 
+				
+				// The utility lists of pX extensions are not needed anymore and can be reused
+				utilityListPool.addAll(exULs);
 			}
 		}
 		MemoryLogger.getInstance().checkMemory();
@@ -475,12 +485,12 @@ public class AlgoFCHM  implements Serializable{
 		//== new optimization - SLA-prune  == /
 		// Initialize the sum of total utility
 		double maxdisjunctivesupport  = bitsetPXY.support;
-		double pxsupport = px.elements.size();
+		double pxsupport = px.size;
 		int minSup = (int) Math.ceil(maxdisjunctivesupport * minBond);
 		// ================================================
 		
 		// create an empty utility list for pXY
-		UtilityListFCHM pxyUL = new UtilityListFCHM(py.item, bitsetPXY);
+		UtilityListFCHM pxyUL = newUtilityList(py.item, bitsetPXY);
 		
 		//== new optimization - LA-prune  == /
 		// Initialize the sum of total utility
@@ -488,16 +498,24 @@ public class AlgoFCHM  implements Serializable{
 		// ================================================
 
 		
+		// The elements of the utility lists are sorted by tids. Thus, the utility lists of pY and P
+		// are read from left to right at the same time as the utility list of pX (merge-join).
+		int posY = 0;
+		int posP = 0;
 		// for each element in the utility list of pX
-		for(Element ex : px.elements){
-			// do a binary search to find element ey in py with tid = ex.tid
-			Element ey = findElementWithTID(py, ex.tid);
-			if(ey == null){
+		for(int posX = 0; posX < px.size; posX++){
+			int tid = px.tids[posX];
+			// find the element ey in py with tid = ex.tid
+			while(posY < py.size && py.tids[posY] < tid){
+				posY++;
+			}
+			if(posY == py.size || py.tids[posY] != tid){
 				//== new optimization - LA-prune == /
 				if(ENABLE_LA_PRUNE) {
-					totalUtility -= (ex.iutils+ex.rutils);
+					totalUtility -= (px.iutils[posX] + px.rutils[posX]);
 					if(totalUtility < minUtility) {
 						candidateEliminatedByLAPrune++;
+						utilityListPool.add(pxyUL);
 						return null;
 					}
 				}
@@ -505,6 +523,7 @@ public class AlgoFCHM  implements Serializable{
 					pxsupport--;
 					if(pxsupport < minSup){
 						candidateEliminatedBySLAPrune++;
+						utilityListPool.add(pxyUL);
 						return null;
 					}
 				}
@@ -513,20 +532,18 @@ public class AlgoFCHM  implements Serializable{
 			}
 			// if the prefix p is null
 			if(P == null){
-				// Create the new element
-				Element eXY = new Element(ex.tid, ex.iutils + ey.iutils, ey.rutils);
 				// add the new element to the utility list of pXY
-				pxyUL.addElement(eXY);
+				pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY], py.rutils[posY]);
 				
 			}else{
 				// find the element in the utility list of p wih the same tid
-				Element e = findElementWithTID(P, ex.tid);
-				if(e != null){
-					// Create new element
-					Element eXY = new Element(ex.tid, ex.iutils + ey.iutils - e.iutils,
-								ey.rutils);
+				while(posP < P.size && P.tids[posP] < tid){
+					posP++;
+				}
+				if(posP < P.size && P.tids[posP] == tid){
 					// add the new element to the utility list of pXY
-					pxyUL.addElement(eXY);
+					pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY] - P.iutils[posP],
+								py.rutils[posY]);
 				}
 			}	
 		}
@@ -535,36 +552,21 @@ public class AlgoFCHM  implements Serializable{
 	}
 	
 	/**
-	 * Do a binary search to find the element with a given tid in a utility list
-	 * @param ulist the utility list
-	 * @param tid  the tid
-	 * @return  the element or null if none has the tid.
+	 * Get an empty utility list for an item. A utility list from the pool is reused if possible.
+	 * @param item the item
+	 * @param bitsetDisjunctiveTIDs the disjunctive set of transaction ids
+	 * @return the utility list
 	 */
-	private Element findElementWithTID(UtilityListFCHM ulist, int tid){
-		List<Element> list = ulist.elements;
-		
-		// perform a binary search to check if  the subset appears in  level k-1.
-        int first = 0;
-        int last = list.size() - 1;
-       
-        // the binary search
-        while( first <= last )
-        {
-        	int middle = ( first + last ) >>> 1; // divide by 2
-
-            if(list.get(middle).tid < tid){
-            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-            }
-            else if(list.get(middle).tid > tid){
-            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-            }
-            else{
-            	return list.get(middle);
-            }
-        }
-		return null;
+	private UtilityListFCHM newUtilityList(int item, BitSetSupport bitsetDisjunctiveTIDs) {
+		if(utilityListPool.isEmpty()){
+			return new UtilityListFCHM(item, bitsetDisjunctiveTIDs);
+		}
+		UtilityListFCHM utilityList = utilityListPool.remove(utilityListPool.size() - 1);
+		utilityList.reset(item);
+		utilityList.bitsetDisjunctiveTIDs = bitsetDisjunctiveTIDs;
+		return utilityList;
 	}
-
+	
 	/**
 	 * Method to write a high utility itemset to the output file.
 	 * @param the prefix to be writent o the output file
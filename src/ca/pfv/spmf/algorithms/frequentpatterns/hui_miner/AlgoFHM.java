@@ -21,22 +21,20 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.PhaseProfiler;
 
 /**
  * This is an implementation of the "FHM" algorithm for High-Utility Itemsets Mining
@@ -46,8 +44,7 @@ import ca.pfv.spmf.tools.MemoryLogger;
  *  Mining Algorithm using Estimated Utility Co-occurrence Pruning. 
  *  Proc. 21st International Symposium on Methodologies for Intelligent Systems (ISMIS 2014), Springer, LNAI, 12 pages (to appear).
  *
- * @see UtilityList
- * @see Element
+ * @see CompactUtilityList
  * @author Philippe Fournier-Viger
  */
 public class AlgoFHM {
@@ -70,8 +67,8 @@ public class AlgoFHM {
 	/** writer to write the output file  */
 	BufferedWriter writer = null;  
 	
-	/** The eucs structure:  key: item   key: another item   value: twu */
-	Map<Integer, Map<Integer, Long>> mapFMAP;  
+	/** The eucs structure: the TWU of each pair of items */
+	CooccurrenceMatrix eucs;
 	
 	/** enable LA-prune strategy  */
 	boolean ENABLE_LA_PRUNE = true;
@@ -84,6 +81,34 @@ public class AlgoFHM {
 	final int BUFFERS_SIZE = 200;
 	private int[] itemsetBuffer = null;
 	
+	/** the utility lists that are not used anymore and can be reused */
+	private List<CompactUtilityList> utilityListPool = null;
+	
+	/** the minimum utility threshold */
+	private int minUtility;
+	
+	/** number of threads used for exploring the search space (1 = serial execution) */
+	private int threadCount = 1;
+	
+	// The extensions of a utility list are explored by a separate task if their utility lists
+	// contain at least this number of elements, when the algorithm is run with several threads
+	private static final int SUBTREE_TASK_THRESHOLD = 4096;
+	
+	// If this object is a worker of the parallel mode, the buffer where the itemsets are saved
+	// and the algorithm that created the worker. Otherwise, these variables are null.
+	private HUIItemsetBuffer taskOutput = null;
+	private ParallelUtilityListMiner.Miner taskMaster = null;
+	// the number of sub-tasks forked by this worker
+	private int forkCount = 0;
+	
+	/** the profiler used to measure the time of each phase or null if profiling is deactivated */
+	private PhaseProfiler profiler = null;
+	
+	// The phases measured by the profiler (these variables are null if profiling is deactivated)
+	private PhaseProfiler.Phase phaseFirstScan;
+	private PhaseProfiler.Phase phaseSecondScan;
+	private PhaseProfiler.Phase phaseConstruct;
+	
 	/** this class represent an item and its utility in a transaction */
 	class Pair{
 		int item = 0;
@@ -111,16 +136,27 @@ public class AlgoFHM {
 		// initialize the buffer for storing the current itemset
 		itemsetBuffer = new int[BUFFERS_SIZE];
 		
-		mapFMAP =  new HashMap<Integer, Map<Integer, Long>>();
+		// initialize the pool of utility lists
+		utilityListPool = new ArrayList<CompactUtilityList>();
 		
 		startTimestamp = System.currentTimeMillis();
 		
+		this.minUtility = minUtility;
+		
 		writer = new BufferedWriter(new FileWriter(output));
 
 		//  We create a  map to store the TWU of each item
 		mapItemToTWU = new HashMap<Integer, Long>();
 
+		// get the phases measured by the profiler, if profiling is activated
+		if(profiler != null){
+			phaseFirstScan = profiler.getPhase("First database scan");
+			phaseSecondScan = profiler.getPhase("Second database scan");
+			phaseConstruct = profiler.getPhase("Utility-list construction");
+		}
+		
 		// We scan the database a first time to calculate the TWU of each item.
+		long timeStartScan = (profiler == null) ? 0 : System.nanoTime();
 		BufferedReader myInput = null;
 		String thisLine;
 		try {
@@ -162,19 +198,22 @@ public class AlgoFHM {
 				myInput.close();
 			}
 	    }
+		if(profiler != null){
+			phaseFirstScan.addTime(timeStartScan);
+		}
 		
 		// CREATE A LIST TO STORE THE UTILITY LIST OF ITEMS WITH TWU  >= MIN_UTILITY.
-		List<UtilityList> listOfUtilityLists = new ArrayList<UtilityList>();
+		List<CompactUtilityList> listOfUtilityLists = new ArrayList<CompactUtilityList>();
 		// CREATE A MAP TO STORE THE UTILITY LIST FOR EACH ITEM.
 		// Key : item    Value :  utility list associated to that item
-		Map<Integer, UtilityList> mapItemToUtilityList = new HashMap<Integer, UtilityList>();
+		Map<Integer, CompactUtilityList> mapItemToUtilityList = new HashMap<Integer, CompactUtilityList>();
 		
 		// For each item
 		for(Integer item: mapItemToTWU.keySet()){
 			// if the item is promising  (TWU >= minutility)
 			if(mapItemToTWU.get(item) >= minUtility){
 				// create an empty Utility List that we will fill later.
-				UtilityList uList = new UtilityList(item);
+				CompactUtilityList uList = new CompactUtilityList(item);
 				mapItemToUtilityList.put(item, uList);
 				// add the item to the list of high TWU items
 				listOfUtilityLists.add(uList); 
@@ -182,14 +221,22 @@ public class AlgoFHM {
 			}
 		}
 		// SORT THE LIST OF HIGH TWU ITEMS IN ASCENDING ORDER
-		Collections.sort(listOfUtilityLists, new Comparator<UtilityList>(){
-			public int compare(UtilityList o1, UtilityList o2) {
+		Collections.sort(listOfUtilityLists, new Comparator<CompactUtilityList>(){
+			public int compare(CompactUtilityList o1, CompactUtilityList o2) {
 				// compare the TWU of the items
 				return compareItems(o1.item, o2.item);
 			}
 			} );
 		
+		// CREATE THE EUCS STRUCTURE, WHICH STORES THE TWU OF EACH PAIR OF PROMISING ITEMS
+		int maxItem = 0;
+		for(CompactUtilityList uList : listOfUtilityLists) {
+			maxItem = Math.max(maxItem, uList.item);
+		}
+		eucs = new CooccurrenceMatrix(listOfUtilityLists.size(), maxItem);
+		
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS 
+		timeStartScan = (profiler == null) ? 0 : System.nanoTime();
 		// OF 1-ITEMSETS  HAVING TWU  >= minutil (promising items)
 		try {
 			// prepare object for reading the file
@@ -256,28 +303,15 @@ public class AlgoFHM {
 					remainingUtility = remainingUtility - pair.utility;
 					
 					// get the utility list of this item
-					UtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
+					CompactUtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
 					
 					// Add a new Element to the utility list of this item corresponding to this transaction
-					Element element = new Element(tid, pair.utility, remainingUtility);
-					
-					utilityListOfItem.addElement(element);
+					utilityListOfItem.addElement(tid, pair.utility, remainingUtility);
 										
 					// BEGIN NEW OPTIMIZATION for FHM
-					Map<Integer, Long> mapFMAPItem = mapFMAP.get(pair.item);
-					if(mapFMAPItem == null) {
-						mapFMAPItem = new HashMap<Integer, Long>();
-						mapFMAP.put(pair.item, mapFMAPItem);
-					}
-
 					for(int j = i+1; j< revisedTransaction.size(); j++){
 						Pair pairAfter = revisedTransaction.get(j);
-						Long twuSum = mapFMAPItem.get(pairAfter.item);
-						if(twuSum == null) {
-							mapFMAPItem.put(pairAfter.item, newTWU);
-						}else {
-							mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
-						}
+						eucs.add(pair.item, pairAfter.item, newTWU);
 					}
 					// END OPTIMIZATION of FHM
 				}
@@ -292,12 +326,22 @@ public class AlgoFHM {
 				myInput.close();
 			}
 	    }
+		if(profiler != null){
+			phaseSecondScan.addTime(timeStartScan);
+		}
 		
 		// check the memory usage
 		MemoryLogger.getInstance().checkMemory();
 
 		// Mine the database recursively
-		fhm(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		// If several threads are used, the items of the first level are explored in parallel
+		// (the EUCS structure is only read during the mining)
+		if(threadCount > 1){
+			ParallelUtilityListMiner.mine(new ParallelMiner(this), listOfUtilityLists, threadCount, BUFFERS_SIZE);
+		}else{
+			fhm(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		}
+		utilityListPool = null;
 		
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -330,56 +374,103 @@ public class AlgoFHM {
 	 * @throws IOException
 	 */
 	private void fhm(int [] prefix,
-			int prefixLength, UtilityList pUL, List<UtilityList> ULs, int minUtility)
+			int prefixLength, CompactUtilityList pUL, List<CompactUtilityList> ULs, int minUtility)
 			throws IOException {
 		
 		// For each extension X of prefix P
 		for(int i=0; i< ULs.size(); i++){
-			UtilityList X = ULs.get(i);
+			exploreExtension(prefix, prefixLength, pUL, ULs, i, minUtility);
+		}
+		MemoryLogger.getInstance().checkMemory();
+	}
+	
+	/**
+	 * Explore the i-th extension X of a prefix P and the extensions of pX
+	 * (this is one iteration of the main loop of the recursive method)
+	 * @param prefix  This is the current prefix.
+	 * @param prefixLength The current prefix length
+	 * @param pUL This is the Utility List of the prefix.
+	 * @param ULs The utility lists corresponding to each extension of the prefix.
+	 * @param i the position of the extension X
+	 * @param minUtility The minUtility threshold.
+	 * @throws IOException
+	 */
+	private void exploreExtension(int [] prefix, int prefixLength, CompactUtilityList pUL,
+			List<CompactUtilityList> ULs, int i, int minUtility) throws IOException {
+		CompactUtilityList X = ULs.get(i);
 
-			// If pX is a high utility itemset.
-			// we save the itemset:  pX 
-			if(X.sumIutils >= minUtility){
-				// save to file
-				writeOut(prefix, prefixLength, X.item, X.sumIutils);
+		// If pX is a high utility itemset.
+		// we save the itemset:  pX 
+		if(X.sumIutils >= minUtility){
+			// save to file
+			writeOut(prefix, prefixLength, X.item, X.sumIutils);
+		}
+		
+		// If the sum of the remaining utilities for pX
+		// is higher than minUtility, we explore extensions of pX.
+		// (this is the pruning condition)
+		if(X.sumIutils + X.sumRutils >= minUtility){
+			// This list will contain the utility lists of pX extensions.
+			List<CompactUtilityList> exULs = new ArrayList<CompactUtilityList>();
+			// For each extension of p appearing
+			// after X according to the ascending order
+			for(int j=i+1; j < ULs.size(); j++){
+				CompactUtilityList Y = ULs.get(j);
+				
+				// ======================== NEW OPTIMIZATION USED IN FHM
+				// (a pair that never appears together has the value -1)
+				if(eucs.get(X.item, Y.item) < minUtility) {
+					continue;
+				}
+				candidateCount++;
+				// =========================== END OF NEW OPTIMIZATION
+				
+				// we construct the extension pXY 
+				// and add it to the list of extensions of pX
+				long timeStartConstruct = (profiler == null) ? 0 : System.nanoTime();
+				CompactUtilityList temp = construct(pUL, X, Y, minUtility);
+				if(profiler != null){
+					phaseConstruct.addTime(timeStartConstruct);
+					phaseConstruct.addCount(X.size);
+				}
+				if(temp != null) {
+					exULs.add(temp);
+				}
 			}
+			// We create new prefix pX
+			itemsetBuffer[prefixLength] = X.item;
 			
-			// If the sum of the remaining utilities for pX
-			// is higher than minUtility, we explore extensions of pX.
-			// (this is the pruning condition)
-			if(X.sumIutils + X.sumRutils >= minUtility){
-				// This list will contain the utility lists of pX extensions.
-				List<UtilityList> exULs = new ArrayList<UtilityList>();
-				// For each extension of p appearing
-				// after X according to the ascending order
-				for(int j=i+1; j < ULs.size(); j++){
-					UtilityList Y = ULs.get(j);
-					
-					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Long> mapTWUF = mapFMAP.get(X.item);
-					if(mapTWUF != null) {
-						Long twuF = mapTWUF.get(Y.item);
-						if(twuF == null || twuF < minUtility) {
-							continue;
-						}
-					}
-					candidateCount++;
-					// =========================== END OF NEW OPTIMIZATION
-					
-					// we construct the extension pXY 
-					// and add it to the list of extensions of pX
-					UtilityList temp = construct(pUL, X, Y, minUtility);
-					if(temp != null) {
-						exULs.add(temp);
-					}
-				}
-				// We create new prefix pX
-				itemsetBuffer[prefixLength] = X.item;
-				// We make a recursive call to discover all itemsets with the prefix pXY
-				fhm(itemsetBuffer, prefixLength+1, X, exULs, minUtility); 
+			// in the parallel mode, the extensions of pX are explored by a separate task 
+			// if their utility lists are large
+			if(taskOutput != null && getElementCount(exULs) >= SUBTREE_TASK_THRESHOLD){
+				ParallelUtilityListMiner.forkSubtree(taskMaster, taskOutput, itemsetBuffer, prefixLength+1, X, exULs);
+				forkCount++;
+				return;
+			}
+			
+			// We make a recursive call to discover all itemsets with the prefix pXY
+			int previousForkCount = forkCount;
+			fhm(itemsetBuffer, prefixLength+1, X, exULs, minUtility); 
+			
+			// The utility lists of pX extensions are not needed anymore and can be reused
+			// (unless a sub-task that uses them was forked in the parallel mode)
+			if(forkCount == previousForkCount){
+				utilityListPool.addAll(exULs);
 			}
 		}
-		MemoryLogger.getInstance().checkMemory();
+	}
+	
+	/**
+	 * Get the total number of elements of some utility lists
+	 * @param ULs the utility lists
+	 * @return the number of elements
+	 */
+	private static long getElementCount(List<CompactUtilityList> ULs) {
+		long count = 0;
+		for(CompactUtilityList ul : ULs){
+			count += ul.size;
+		}
+		return count;
 	}
 	
 	/**
@@ -389,24 +480,32 @@ public class AlgoFHM {
 	 * @param py : the utility list of pY
 	 * @return the utility list of pXY
 	 */
-	private UtilityList construct(UtilityList P, UtilityList px, UtilityList py, int minUtility) {
+	private CompactUtilityList construct(CompactUtilityList P, CompactUtilityList px, CompactUtilityList py, int minUtility) {
 		// create an empy utility list for pXY
-		UtilityList pxyUL = new UtilityList(py.item);
+		CompactUtilityList pxyUL = newUtilityList(py.item);
 		
 		//== new optimization - LA-prune  == /
 		// Initialize the sum of total utility
 		long totalUtility = px.sumIutils + px.sumRutils;
 		// ================================================
 		
+		// The elements of the utility lists are sorted by tids. Thus, the utility lists of pY and P
+		// are read from left to right at the same time as the utility list of pX (merge-join).
+		int posY = 0;
+		int posP = 0;
 		// for each element in the utility list of pX
-		for(Element ex : px.elements){
-			// do a binary search to find element ey in py with tid = ex.tid
-			Element ey = findElementWithTID(py, ex.tid);
-			if(ey == null){
+		for(int posX = 0; posX < px.size; posX++){
+			int tid = px.tids[posX];
+			// find the element ey in py with tid = ex.tid
+			while(posY < py.size && py.tids[posY] < tid){
+				posY++;
+			}
+			if(posY == py.size || py.tids[posY] != tid){
 				//== new optimization - LA-prune == /
 				if(ENABLE_LA_PRUNE) {
-					totalUtility -= (ex.iutils+ex.rutils);
+					totalUtility -= (px.iutils[posX] + px.rutils[posX]);
 					if(totalUtility < minUtility) {
+						utilityListPool.add(pxyUL);
 						return null;
 					}
 				}
@@ -415,20 +514,18 @@ public class AlgoFHM {
 			}
 			// if the prefix p is null
 			if(P == null){
-				// Create the new element
-				Element eXY = new Element(ex.tid, ex.iutils + ey.iutils, ey.rutils);
 				// add the new element to the utility list of pXY
-				pxyUL.addElement(eXY);
+				pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY], py.rutils[posY]);
 				
 			}else{
 				// find the element in the utility list of p wih the same tid
-				Element e = findElementWithTID(P, ex.tid);
-				if(e != null){
-					// Create new element
-					Element eXY = new Element(ex.tid, ex.iutils + ey.iutils - e.iutils,
-								ey.rutils);
+				while(posP < P.size && P.tids[posP] < tid){
+					posP++;
+				}
+				if(posP < P.size && P.tids[posP] == tid){
 					// add the new element to the utility list of pXY
-					pxyUL.addElement(eXY);
+					pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY] - P.iutils[posP],
+								py.rutils[posY]);
 				}
 			}	
 		}
@@ -437,36 +534,19 @@ public class AlgoFHM {
 	}
 	
 	/**
-	 * Do a binary search to find the element with a given tid in a utility list
-	 * @param ulist the utility list
-	 * @param tid  the tid
-	 * @return  the element or null if none has the tid.
+	 * Get an empty utility list for an item. A utility list from the pool is reused if possible.
+	 * @param item the item
+	 * @return the utility list
 	 */
-	private Element findElementWithTID(UtilityList ulist, int tid){
-		List<Element> list = ulist.elements;
-		
-		// perform a binary search to check if  the subset appears in  level k-1.
-        int first = 0;
-        int last = list.size() - 1;
-       
-        // the binary search
-        while( first <= last )
-        {
-        	int middle = ( first + last ) >>> 1; // divide by 2
-
-            if(list.get(middle).tid < tid){
-            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-            }
-            else if(list.get(middle).tid > tid){
-            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-            }
-            else{
-            	return list.get(middle);
-            }
-        }
-		return null;
+	private CompactUtilityList newUtilityList(int item) {
+		if(utilityListPool.isEmpty()){
+			return new CompactUtilityList(item);
+		}
+		CompactUtilityList utilityList = utilityListPool.remove(utilityListPool.size() - 1);
+		utilityList.reset(item);
+		return utilityList;
 	}
-
+	
 	/**
 	 * Method to write a high utility itemset to the output file.
 	 * @param the prefix to be writent o the output file
@@ -475,6 +555,11 @@ public class AlgoFHM {
 	 * @param prefixLength the prefix length
 	 */
 	private void writeOut(int[] prefix, int prefixLength, int item, long utility) throws IOException {
+		// in the parallel mode, the itemset is saved in the buffer of the task
+		if(taskOutput != null){
+			taskOutput.add(prefix, prefixLength, item, utility);
+			return;
+		}
 		huiCount++; // increase the number of high utility itemsets found
 		
 		//Create a string buffer
@@ -507,35 +592,85 @@ public class AlgoFHM {
 		System.out.println(" Candidate count : "             + candidateCount);
 		
 		if(DEBUG) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapFMAP);
-			for(Entry<Integer, Map<Integer, Long>> entry : mapFMAP.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for(Entry<Integer, Long> entry2 :entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("CMAP size " + maxMemory + " MB");
-			System.out.println("PAIR COUNT " + pairCount);
+			System.out.println("CMAP size " + eucs.getMemorySize() + " MB");
+			System.out.println("PAIR COUNT " + eucs.getPairCount());
 		}
 		System.out.println("===================================================");
 	}
 	
 	/**
-	 * Get the size of a Java object (for debugging purposes)
-	 * @param object the object
-	 * @return the size in MB
-	 * @throws IOException
+	 * Set a profiler to measure the time spent in each phase of the algorithm
+	 * (the two database scans and the construction of utility-lists).
+	 * By default, no profiler is used.
+	 * @param profiler the profiler or null to deactivate profiling
+	 */
+	public void setProfiler(PhaseProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Set the number of threads used for exploring the search space. If more than one thread
+	 * is used, the items of the first level of the search tree (and the extensions of large utility lists)
+	 * are explored in parallel. The result is the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
 	 */
-    private double getObjectSize(
-            Object object)
-            throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-        oos.writeObject(object);
-        oos.close();
-        double maxMemory = baos.size() / 1024d / 1024d;
-        return maxMemory;
-    }
-}
\ No newline at end of file
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * This class lets the parallel engine use this algorithm. It wraps either the algorithm object
+	 * that was called by the user, or a worker having its own buffers.
+	 */
+	private static class ParallelMiner implements ParallelUtilityListMiner.Miner {
+		// the wrapped algorithm
+		private final AlgoFHM algo;
+		
+		ParallelMiner(AlgoFHM algo) {
+			this.algo = algo;
+		}
+		
+		@Override
+		public ParallelUtilityListMiner.Miner createWorker(HUIItemsetBuffer output) {
+			AlgoFHM worker = new AlgoFHM();
+			worker.minUtility = algo.minUtility;
+			worker.eucs = algo.eucs;
+			worker.ENABLE_LA_PRUNE = algo.ENABLE_LA_PRUNE;
+			worker.itemsetBuffer = new int[algo.BUFFERS_SIZE];
+			worker.utilityListPool = new ArrayList<CompactUtilityList>();
+			worker.taskOutput = output;
+			worker.taskMaster = (algo.taskMaster == null) ? this : algo.taskMaster;
+			// the counters of the profiler are shared by all the workers
+			worker.profiler = algo.profiler;
+			worker.phaseConstruct = algo.phaseConstruct;
+			return new ParallelMiner(worker);
+		}
+
+		@Override
+		public void exploreFirstLevelItem(List<CompactUtilityList> ULs, int i) throws IOException {
+			algo.exploreExtension(algo.itemsetBuffer, 0, null, ULs, i, algo.minUtility);
+		}
+
+		@Override
+		public void exploreSubtree(int[] prefix, int prefixLength, CompactUtilityList pUL,
+				List<CompactUtilityList> ULs) throws IOException {
+			System.arraycopy(prefix, 0, algo.itemsetBuffer, 0, prefixLength);
+			algo.fhm(algo.itemsetBuffer, prefixLength, pUL, ULs, algo.minUtility);
+		}
+
+		@Override
+		public void emitItemset(int[] prefix, int prefixLength, int item, long utility) throws IOException {
+			algo.writeOut(prefix, prefixLength, item, utility);
+		}
+
+		@Override
+		public void addStatistics(ParallelUtilityListMiner.Miner worker) {
+			synchronized (algo) {
+				algo.candidateCount += ((ParallelMiner) worker).algo.candidateCount;
+			}
+		}
+	}
+}
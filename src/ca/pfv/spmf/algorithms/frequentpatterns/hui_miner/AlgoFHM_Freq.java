@@ -21,20 +21,17 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -76,8 +73,8 @@ public class AlgoFHM_Freq {
 	/** writer to write the output file  */
 	BufferedWriter writer = null;  
 	
-	/** The eucs structure:  key: item   key: another item   value: twu */
-	Map<Integer, Map<Integer, Long>> mapFMAP;  
+	/** The eucs structure: the TWU of each pair of items */
+	CooccurrenceMatrix eucs;
 	
 	/** enable LA-prune strategy  */
 	boolean ENABLE_LA_PRUNE = true;
@@ -121,8 +118,6 @@ public class AlgoFHM_Freq {
 		// initialize the buffer for storing the current itemset
 		itemsetBuffer = new int[BUFFERS_SIZE];
 		
-		mapFMAP =  new HashMap<Integer, Map<Integer, Long>>();
-		
 		startTimestamp = System.currentTimeMillis();
 		
 		writer = new BufferedWriter(new FileWriter(output));
@@ -217,6 +212,13 @@ public class AlgoFHM_Freq {
 			}
 			} );
 		
+		// CREATE THE EUCS STRUCTURE, WHICH STORES THE TWU OF EACH PAIR OF PROMISING ITEMS
+		int maxItem = 0;
+		for(UtilityList uList : listOfUtilityLists) {
+			maxItem = Math.max(maxItem, uList.item);
+		}
+		eucs = new CooccurrenceMatrix(listOfUtilityLists.size(), maxItem);
+		
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS 
 		// OF 1-ITEMSETS  HAVING TWU  >= minutil (promising items)
 		try {
@@ -293,20 +295,9 @@ public class AlgoFHM_Freq {
 					utilityListOfItem.addElement(element);
 										
 					// BEGIN NEW OPTIMIZATION for FHM
-					Map<Integer, Long> mapFMAPItem = mapFMAP.get(pair.item);
-					if(mapFMAPItem == null) {
-						mapFMAPItem = new HashMap<Integer, Long>();
-						mapFMAP.put(pair.item, mapFMAPItem);
-					}
-
 					for(int j = i+1; j< revisedTransaction.size(); j++){
 						Pair pairAfter = revisedTransaction.get(j);
-						Long twuSum = mapFMAPItem.get(pairAfter.item);
-						if(twuSum == null) {
-							mapFMAPItem.put(pairAfter.item, newTWU);
-						}else {
-							mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
-						}
+						eucs.add(pair.item, pairAfter.item, newTWU);
 					}
 					// END OPTIMIZATION of FHM
 				}
@@ -385,12 +376,9 @@ public class AlgoFHM_Freq {
 					UtilityList Y = ULs.get(j);
 					
 					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Long> mapTWUF = mapFMAP.get(X.item);
-					if(mapTWUF != null) {
-						Long twuF = mapTWUF.get(Y.item);
-						if(twuF == null || twuF < minUtility) {
-							continue;
-						}
+					// (a pair that never appears together has the value -1)
+					if(eucs.get(X.item, Y.item) < minUtility) {
+						continue;
 					}
 					candidateCount++;
 					// =========================== END OF NEW OPTIMIZATION
@@ -550,35 +538,10 @@ public class AlgoFHM_Freq {
 		System.out.println(" Candidate count : "             + candidateCount);
 		
 		if(DEBUG) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapFMAP);
-			for(Entry<Integer, Map<Integer, Long>> entry : mapFMAP.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for(Entry<Integer, Long> entry2 :entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("CMAP size " + maxMemory + " MB");
-			System.out.println("PAIR COUNT " + pairCount);
+			System.out.println("CMAP size " + eucs.getMemorySize() + " MB");
+			System.out.println("PAIR COUNT " + eucs.getPairCount());
 		}
 		System.out.println("===================================================");
 	}
 	
-	/**
-	 * Get the size of a Java object (for debugging purposes)
-	 * @param object the object
-	 * @return the size in MB
-	 * @throws IOException
-	 */
-    private double getObjectSize(
-            Object object)
-            throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-        oos.writeObject(object);
-        oos.close();
-        double maxMemory = baos.size() / 1024d / 1024d;
-        return maxMemory;
-    }
 }
\ No newline at end of file
@@ -21,13 +21,11 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -35,7 +33,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -50,7 +47,6 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * Mining and Applications (ADMA 2014), Springer LNCS 8933, pp. 16-29.
  * 
  * @see UtilityListFHN
- * @see ElementFHN
  * @author Philippe Fournier-Viger
  */
 public class AlgoFHN {
@@ -73,8 +69,8 @@ public class AlgoFHN {
 	/** writer to write the output file  */
 	BufferedWriter writer = null;  
 	
-	/** The eucs structure:  key: item   key: another item   value: twu */
-	Map<Integer, Map<Integer, Long>> mapFMAP;  
+	/** The eucs structure: the TWU of each pair of items */
+	CooccurrenceMatrix eucs;
 
 	/** enable LA-prune strategy  */
 	boolean ENABLE_LA_PRUNE = true;
@@ -86,6 +82,9 @@ public class AlgoFHN {
 	* the idea is to always reuse the same buffer to reduce memory usage. */
 	final int BUFFERS_SIZE = 200;
 	private int[] itemsetBuffer = null;
+	
+	/** the utility lists that are not used anymore and can be reused */
+	private List<UtilityListFHN> utilityListPool = null;
 
 
 	//===================== FHN ===========================
@@ -126,8 +125,8 @@ public class AlgoFHN {
 		// initialize the buffer for storing the current itemset
 		itemsetBuffer = new int[BUFFERS_SIZE];
 		
-		// Create the EUCP structure as described in the FHM and FHN papers
-		mapFMAP =  new HashMap<Integer, Map<Integer, Long>>();
+		// initialize the pool of utility lists
+		utilityListPool = new ArrayList<UtilityListFHN>();
 		
 		// record the start time of the algorithm
 		startTimestamp = System.currentTimeMillis();
@@ -223,6 +222,13 @@ public class AlgoFHN {
 			}
 			} );
 		
+		// CREATE THE EUCS STRUCTURE, WHICH STORES THE TWU OF EACH PAIR OF PROMISING ITEMS
+		int maxItem = 0;
+		for(UtilityListFHN uList : listOfUtilityLists) {
+			maxItem = Math.max(maxItem, uList.item);
+		}
+		eucs = new CooccurrenceMatrix(listOfUtilityLists.size(), maxItem);
+		
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS 
 		// OF 1-ITEMSETS  HAVING TWU  >= minutil (promising items)
 		try {
@@ -301,11 +307,9 @@ public class AlgoFHN {
 					
 					// Add a new Element to the utility list of this item corresponding to this transaction
 					if(pair.utility > 0) {
-						ElementFHN element = new ElementFHN(tid, pair.utility, 0, remainingUtility);
-						utilityListOfItem.addElement(element);
+						utilityListOfItem.addElement(tid, pair.utility, 0, remainingUtility);
 					}else {
-						ElementFHN element = new ElementFHN(tid, 0, pair.utility, remainingUtility);
-						utilityListOfItem.addElement(element);
+						utilityListOfItem.addElement(tid, 0, pair.utility, remainingUtility);
 					}
 					
 										
@@ -314,20 +318,12 @@ public class AlgoFHN {
 					// if not a negative item
 					if(remainingUtility != 0) {
 					// =============================================
-						Map<Integer, Long> mapFMAPItem = mapFMAP.get(pair.item);
-						if(mapFMAPItem == null) {
-							mapFMAPItem = new HashMap<Integer, Long>();
-							mapFMAP.put(pair.item, mapFMAPItem);
-						}
+						// remember that the EUCS has an entry for this item
+						eucs.addItem(pair.item);
 	
 						for(int j = i+1; j< revisedTransaction.size(); j++){
 							Pair pairAfter = revisedTransaction.get(j);
-							Long twuSum = mapFMAPItem.get(pairAfter.item);
-							if(twuSum == null) {
-								mapFMAPItem.put(pairAfter.item, newTWU);
-							}else {
-								mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
-							}
+							eucs.add(pair.item, pairAfter.item, newTWU);
 						}
 					}
 					// END OPTIMIZATION of FHM
@@ -349,6 +345,7 @@ public class AlgoFHN {
 
 		// Mine the database recursively
 		fhn(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		utilityListPool = null;
 		
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -411,18 +408,18 @@ public class AlgoFHN {
 			if(X.sumIutils + X.sumRutils >= minUtility){
 				// This list will contain the utility lists of pX extensions.
 				List<UtilityListFHN> exULs = new ArrayList<UtilityListFHN>();
+				// The EUCS is only used if it has an entry for X (there is no entry
+				// for an item that is never followed by a positive item)
+				boolean useEUCS = eucs.containsItem(X.item);
 				// For each extension of p appearing
 				// after X according to the ascending order
 				for(int j=i+1; j < ULs.size(); j++){
 					UtilityListFHN Y = ULs.get(j);
 					
 					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Long> mapTWUF = mapFMAP.get(X.item);
-					if(mapTWUF != null) {
-						Long twuF = mapTWUF.get(Y.item);
-						if(twuF == null || twuF < minUtility) {
-							continue;
-						}
+					// (a pair that never appears together has the value -1)
+					if(useEUCS && eucs.get(X.item, Y.item) < minUtility) {
+						continue;
 					}
 					candidateCount++;
 					// =========================== END OF NEW OPTIMIZATION
@@ -440,6 +437,9 @@ public class AlgoFHN {
 				
 				// We make a recursive call to discover all itemsets with the prefix pXY
 				fhn(itemsetBuffer, prefixLength+1, X, exULs, minUtility); 
+				
+				// The utility lists of pX extensions are not needed anymore and can be reused
+				utilityListPool.addAll(exULs);
 			}
 		}
 		MemoryLogger.getInstance().checkMemory();
@@ -455,22 +455,30 @@ public class AlgoFHN {
 	 */
 	private UtilityListFHN construct(UtilityListFHN P, UtilityListFHN px, UtilityListFHN py, int minUtility) {
 		// create an empy utility list for pXY
-		UtilityListFHN pxyUL = new UtilityListFHN(py.item);
+		UtilityListFHN pxyUL = newUtilityList(py.item);
 		
 		//== new optimization - LA-prune  == /
 		// Initialize the sum of total utility
 		long totalUtility = px.sumIutils + px.sumRutils;
 		// ================================================
 		
+		// The elements of the utility lists are sorted by tids. Thus, the utility lists of pY and P
+		// are read from left to right at the same time as the utility list of pX (merge-join).
+		int posY = 0;
+		int posP = 0;
 		// for each element in the utility list of pX
-		for(ElementFHN ex : px.elements){
-			// do a binary search to find element ey in py with tid = ex.tid
-			ElementFHN ey = findElementWithTID(py, ex.tid);
-			if(ey == null){
+		for(int posX = 0; posX < px.size; posX++){
+			int tid = px.tids[posX];
+			// find the element ey in py with tid = ex.tid
+			while(posY < py.size && py.tids[posY] < tid){
+				posY++;
+			}
+			if(posY == py.size || py.tids[posY] != tid){
 				//== new optimization - LA-prune == /
 				if(ENABLE_LA_PRUNE) {
-					totalUtility -= (ex.iutils+ex.rutils);
+					totalUtility -= (px.iutils[posX] + px.rutils[posX]);
 					if(totalUtility < minUtility) {
+						utilityListPool.add(pxyUL);
 						return null;
 					}
 				}
@@ -479,21 +487,20 @@ public class AlgoFHN {
 			}
 			// if the prefix p is null
 			if(P == null){
-				// Create the new element
-				ElementFHN eXY = new ElementFHN(ex.tid, ex.iutils + ey.iutils, ex.inutils + ey.inutils, ey.rutils);
 				// add the new element to the utility list of pXY
-				pxyUL.addElement(eXY);
+				pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY], 
+						px.inutils[posX] + py.inutils[posY], py.rutils[posY]);
 				
 			}else{
 				// find the element in the utility list of p wih the same tid
-				ElementFHN e = findElementWithTID(P, ex.tid);
-				if(e != null){
-					// Create new element
-					ElementFHN eXY = new ElementFHN(ex.tid, ex.iutils + ey.iutils - e.iutils,
-							ex.inutils + ey.inutils - e.inutils,
-								ey.rutils);
+				while(posP < P.size && P.tids[posP] < tid){
+					posP++;
+				}
+				if(posP < P.size && P.tids[posP] == tid){
 					// add the new element to the utility list of pXY
-					pxyUL.addElement(eXY);
+					pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY] - P.iutils[posP],
+							px.inutils[posX] + py.inutils[posY] - P.inutils[posP],
+								py.rutils[posY]);
 				}
 			}	
 		}
@@ -502,36 +509,19 @@ public class AlgoFHN {
 	}
 	
 	/**
-	 * Do a binary search to find the element with a given tid in a utility list
-	 * @param ulist the utility list
-	 * @param tid  the tid
-	 * @return  the element or null if none has the tid.
+	 * Get an empty utility list for an item. A utility list from the pool is reused if possible.
+	 * @param item the item
+	 * @return the utility list
 	 */
-	private ElementFHN findElementWithTID(UtilityListFHN ulist, int tid){
-		List<ElementFHN> list = ulist.elements;
-		
-		// perform a binary search to check if  the subset appears in  level k-1.
-        int first = 0;
-        int last = list.size() - 1;
-       
-        // the binary search
-        while( first <= last )
-        {
-        	int middle = ( first + last ) >>> 1; // divide by 2
-
-            if(list.get(middle).tid < tid){
-            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-            }
-            else if(list.get(middle).tid > tid){
-            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-            }
-            else{
-            	return list.get(middle);
-            }
-        }
-		return null;
+	private UtilityListFHN newUtilityList(int item) {
+		if(utilityListPool.isEmpty()){
+			return new UtilityListFHN(item);
+		}
+		UtilityListFHN utilityList = utilityListPool.remove(utilityListPool.size() - 1);
+		utilityList.reset(item);
+		return utilityList;
 	}
-
+	
 	/**
 	 * Method to write a high utility itemset to the output file.
 	 * @param the prefix to be writent o the output file
@@ -571,35 +561,10 @@ public class AlgoFHN {
 		System.out.println(" Candidate count : "             + candidateCount);
 		
 		if(DEBUG) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapFMAP);
-			for(Entry<Integer, Map<Integer, Long>> entry : mapFMAP.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for(Entry<Integer, Long> entry2 :entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("CMAP size " + maxMemory + " MB");
-			System.out.println("PAIR COUNT " + pairCount);
+			System.out.println("CMAP size " + eucs.getMemorySize() + " MB");
+			System.out.println("PAIR COUNT " + eucs.getPairCount());
 		}
 		System.out.println("===================================================");
 	}
 	
-	/**
-	 * This method is used to calculate the size of a Java object
-	 * @param object an object
-	 * @return the size in Megabytes (MB)
-	 * @throws IOException
-	 */
-    private double getObjectSize(
-            Object object)
-            throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-        oos.writeObject(object);
-        oos.close();
-        double maxMemory = baos.size() / 1024d / 1024d;
-        return maxMemory;
-    }
 }
\ No newline at end of file
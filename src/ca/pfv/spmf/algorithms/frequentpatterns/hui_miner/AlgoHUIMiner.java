@@ -19,13 +19,9 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 */
 
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -33,7 +29,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import ca.pfv.spmf.input.SPMFFileTokenizer;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningCancelledException;
+import ca.pfv.spmf.tools.MiningContext;
+import ca.pfv.spmf.tools.PhaseProfiler;
 
 /**
  * This is an implementation of the "HUI-MINER Algorithm" for High-Utility Itemsets Mining
@@ -42,8 +42,7 @@ import ca.pfv.spmf.tools.MemoryLogger;
  *  Liu, M., Qu, J. (2012). Mining High Utility Itemsets without Candidate Generation. 
  *  Proc. of CIKM 2012. pp.55-64.
  *
- * @see UtilityList
- * @see Element
+ * @see CompactUtilityList
  * @author Philippe Fournier-Viger
  */
 public class AlgoHUIMiner {
@@ -71,6 +70,40 @@ public class AlgoHUIMiner {
 	final int BUFFERS_SIZE = 200;
 	private int[] itemsetBuffer = null;
 	
+	/** the utility lists that are not used anymore and can be reused */
+	private List<CompactUtilityList> utilityListPool = null;
+	
+	/** the minimum utility threshold */
+	private int minUtility;
+	
+	/** number of threads used for exploring the search space (1 = serial execution) */
+	private int threadCount = 1;
+	
+	// The extensions of a utility list are explored by a separate task if their utility lists
+	// contain at least this number of elements, when the algorithm is run with several threads
+	private static final int SUBTREE_TASK_THRESHOLD = 4096;
+	
+	// If this object is a worker of the parallel mode, the buffer where the itemsets are saved
+	// and the algorithm that created the worker. Otherwise, these variables are null.
+	private HUIItemsetBuffer taskOutput = null;
+	private ParallelUtilityListMiner.Miner taskMaster = null;
+	// the number of sub-tasks forked by this worker
+	private int forkCount = 0;
+	
+	/** the profiler used to measure the time of each phase or null if profiling is deactivated */
+	private PhaseProfiler profiler = null;
+	
+	// The phases measured by the profiler (these variables are null if profiling is deactivated)
+	private PhaseProfiler.Phase phaseFirstScan;
+	private PhaseProfiler.Phase phaseSecondScan;
+	private PhaseProfiler.Phase phaseConstruct;
+	
+	/** the mining context set by the user (if null, the context of the current thread is used) */
+	private MiningContext miningContext = null;
+	// the mining context of the current execution, which is polled to stop the algorithm
+	// and updated with its progress
+	private MiningContext context = null;
+	
 	/** this class represent an item and its utility in a transaction */
 	class Pair{
 		int item = 0;
@@ -97,39 +130,49 @@ public class AlgoHUIMiner {
 		// initialize the buffer for storing the current itemset
 		itemsetBuffer = new int[BUFFERS_SIZE];
 		
+		// initialize the pool of utility lists
+		utilityListPool = new ArrayList<CompactUtilityList>();
+		
 		startTimestamp = System.currentTimeMillis();
 		
+		// get the context that is polled to stop the algorithm
+		context = MiningContext.resolve(miningContext);
+		
+		this.minUtility = minUtility;
+		
 		writer = new BufferedWriter(new FileWriter(output));
 
 		//  We create a  map to store the TWU of each item
 		mapItemToTWU = new HashMap<Integer, Integer>();
 
+		// get the phases measured by the profiler, if profiling is activated
+		if(profiler != null){
+			phaseFirstScan = profiler.getPhase("First database scan");
+			phaseSecondScan = profiler.getPhase("Second database scan");
+			phaseConstruct = profiler.getPhase("Utility-list construction");
+		}
+		
 		// We scan the database a first time to calculate the TWU of each item.
-		BufferedReader myInput = null;
-		String thisLine;
+		long timeStartScan = (profiler == null) ? 0 : System.nanoTime();
+		SPMFFileTokenizer myInput = null;
 		try {
 			// prepare the object for reading the file
-			myInput = new BufferedReader(new InputStreamReader( new FileInputStream(new File(input))));
+			myInput = new SPMFFileTokenizer(input);
+			// if the file is in binary format, the TWU of each item was calculated
+			// when the file was created, so the transactions do not need to be read
+			if(myInput.getBinaryDataset() != null){
+				mapItemToTWU = myInput.getBinaryDataset().getItemTWUs();
+			}
 			// for each line (transaction) until the end of file
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is  a comment, is  empty or is a
-				// kind of metadata
-				if (thisLine.isEmpty() == true ||
-						thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-								|| thisLine.charAt(0) == '@') {
-					continue;
-				}
-				
-				// split the transaction according to the : separator
-				String split[] = thisLine.split(":"); 
+			// (comments, empty lines and metadata are skipped by the tokenizer)
+			while (myInput.getBinaryDataset() == null && myInput.nextUtilityTransaction()) {
 				// the first part is the list of items
-				String items[] = split[0].split(" "); 
+				int items[] = myInput.getItems();
 				// the second part is the transaction utility
-				int transactionUtility = Integer.parseInt(split[1]);  
+				int transactionUtility = myInput.getTransactionUtility();  
 				// for each item, we add the transaction utility to its TWU
-				for(int i=0; i <items.length; i++){
-					// convert item to integer
-					Integer item = Integer.parseInt(items[i]);
+				for(int i=0; i < myInput.getItemCount(); i++){
+					Integer item = items[i];
 					// get the current TWU of that item
 					Integer twu = mapItemToTWU.get(item);
 					// add the utility of the item in the current transaction to its twu
@@ -146,19 +189,22 @@ public class AlgoHUIMiner {
 				myInput.close();
 			}
 	    }
+		if(profiler != null){
+			phaseFirstScan.addTime(timeStartScan);
+		}
 		
 		// CREATE A LIST TO STORE THE UTILITY LIST OF ITEMS WITH TWU  >= MIN_UTILITY.
-		List<UtilityList> listOfUtilityLists = new ArrayList<UtilityList>();
+		List<CompactUtilityList> listOfUtilityLists = new ArrayList<CompactUtilityList>();
 		// CREATE A MAP TO STORE THE UTILITY LIST FOR EACH ITEM.
 		// Key : item    Value :  utility list associated to that item
-		Map<Integer, UtilityList> mapItemToUtilityList = new HashMap<Integer, UtilityList>();
+		Map<Integer, CompactUtilityList> mapItemToUtilityList = new HashMap<Integer, CompactUtilityList>();
 		
 		// For each item
 		for(Integer item: mapItemToTWU.keySet()){
 			// if the item is promising  (TWU >= minutility)
 			if(mapItemToTWU.get(item) >= minUtility){
 				// create an empty Utility List that we will fill later.
-				UtilityList uList = new UtilityList(item);
+				CompactUtilityList uList = new CompactUtilityList(item);
 				mapItemToUtilityList.put(item, uList);
 				// add the item to the list of high TWU items
 				listOfUtilityLists.add(uList); 
@@ -166,37 +212,28 @@ public class AlgoHUIMiner {
 			}
 		}
 		// SORT THE LIST OF HIGH TWU ITEMS IN ASCENDING ORDER
-		Collections.sort(listOfUtilityLists, new Comparator<UtilityList>(){
-			public int compare(UtilityList o1, UtilityList o2) {
+		Collections.sort(listOfUtilityLists, new Comparator<CompactUtilityList>(){
+			public int compare(CompactUtilityList o1, CompactUtilityList o2) {
 				// compare the TWU of the items
 				return compareItems(o1.item, o2.item);
 			}
 			} );
 		
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS 
+		timeStartScan = (profiler == null) ? 0 : System.nanoTime();
 		// OF 1-ITEMSETS  HAVING TWU  >= minutil (promising items)
 		try {
 			// prepare object for reading the file
-			myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
+			myInput = new SPMFFileTokenizer(input);
 			// variable to count the number of transaction
 			int tid =0;
 			// for each line (transaction) until the end of file
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is  a comment, is  empty or is a
-				// kind of metadata
-				if (thisLine.isEmpty() == true ||
-						thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-								|| thisLine.charAt(0) == '@') {
-					continue;
-				}
-				
-				// split the line according to the separator
-				String split[] = thisLine.split(":");
+			while (myInput.nextUtilityTransaction()) {
 				// get the list of items
-				String items[] = split[0].split(" ");
+				int items[] = myInput.getItems();
 				// get the list of utility values corresponding to each item
 				// for that transaction
-				String utilityValues[] = split[2].split(" ");
+				int utilityValues[] = myInput.getUtilities();
 				
 				// Copy the transaction into lists but 
 				// without items with TWU < minutility
@@ -206,11 +243,10 @@ public class AlgoHUIMiner {
 				// Create a list to store items
 				List<Pair> revisedTransaction = new ArrayList<Pair>();
 				// for each item
-				for(int i=0; i <items.length; i++){
-					/// convert values to integers
+				for(int i=0; i < myInput.getItemCount(); i++){
 					Pair pair = new Pair();
-					pair.item = Integer.parseInt(items[i]);
-					pair.utility = Integer.parseInt(utilityValues[i]);
+					pair.item = items[i];
+					pair.utility = utilityValues[i];
 					// if the item has enough utility
 					if(mapItemToTWU.get(pair.item) >= minUtility){
 						// add it
@@ -231,12 +267,10 @@ public class AlgoHUIMiner {
 					remainingUtility = remainingUtility - pair.utility;
 					
 					// get the utility list of this item
-					UtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
+					CompactUtilityList utilityListOfItem = mapItemToUtilityList.get(pair.item);
 					
 					// Add a new Element to the utility list of this item corresponding to this transaction
-					Element element = new Element(tid, pair.utility, remainingUtility);
-					
-					utilityListOfItem.addElement(element);
+					utilityListOfItem.addElement(tid, pair.utility, remainingUtility);
 				}
 				tid++; // increase tid number for next transaction
 
@@ -249,12 +283,29 @@ public class AlgoHUIMiner {
 				myInput.close();
 			}
 	    }
+		if(profiler != null){
+			phaseSecondScan.addTime(timeStartScan);
+		}
 		
 		// check the memory usage
 		MemoryLogger.getInstance().checkMemory();
 
 		// Mine the database recursively
-		huiMiner(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		// (the progress is measured by the number of items of the first level that are explored)
+		context.setTotalWork(listOfUtilityLists.size());
+		try {
+			// If several threads are used, the items of the first level are explored in parallel
+			if(threadCount > 1){
+				ParallelUtilityListMiner.mine(new ParallelMiner(this), listOfUtilityLists, threadCount, BUFFERS_SIZE);
+			}else{
+				huiMiner(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+			}
+		}catch(MiningCancelledException e){
+			// if the algorithm is stopped, close the output file, which contains the itemsets found until now
+			writer.close();
+			throw e;
+		}
+		utilityListPool = null;
 		
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -281,44 +332,101 @@ public class AlgoHUIMiner {
 	 * @throws IOException
 	 */
 	private void huiMiner(int [] prefix, 
-			int prefixLength, UtilityList pUL, List<UtilityList> ULs, int minUtility)
+			int prefixLength, CompactUtilityList pUL, List<CompactUtilityList> ULs, int minUtility)
 			throws IOException {
 		
 		// For each extension X of prefix P
 		for(int i=0; i< ULs.size(); i++){
-			UtilityList X = ULs.get(i);
+			exploreExtension(prefix, prefixLength, pUL, ULs, i, minUtility);
+			if(prefixLength == 0){
+				context.workDone();
+			}
+		}
+	}
+	
+	/**
+	 * Explore the i-th extension X of a prefix P and the extensions of pX
+	 * (this is one iteration of the main loop of the recursive method)
+	 * @param prefix  This is the current prefix.
+	 * @param prefixLength The current prefix length
+	 * @param pUL This is the Utility List of the prefix.
+	 * @param ULs The utility lists corresponding to each extension of the prefix.
+	 * @param i the position of the extension X
+	 * @param minUtility The minUtility threshold.
+	 * @throws IOException
+	 */
+	private void exploreExtension(int [] prefix, int prefixLength, CompactUtilityList pUL,
+			List<CompactUtilityList> ULs, int i, int minUtility) throws IOException {
+		// stop if the algorithm was asked to stop
+		context.nodeExplored();
+		
+		CompactUtilityList X = ULs.get(i);
 
-			// If pX is a high utility itemset.
-			// we save the itemset:  pX 
-			if(X.sumIutils >= minUtility){
-				// save to file
-				writeOut(prefix, prefixLength, X.item, X.sumIutils);
+		// If pX is a high utility itemset.
+		// we save the itemset:  pX 
+		if(X.sumIutils >= minUtility){
+			// update the progress of the algorithm
+			context.patternFound();
+			// save to file
+			writeOut(prefix, prefixLength, X.item, X.sumIutils);
+		}
+		
+		// If the sum of the remaining utilities for pX
+		// is higher than minUtility, we explore extensions of pX.
+		// (this is the pruning condition)
+		if(X.sumIutils + X.sumRutils >= minUtility){
+			// This list will contain the utility lists of pX extensions.
+			List<CompactUtilityList> exULs = new ArrayList<CompactUtilityList>();
+			// For each extension of p appearing
+			// after X according to the ascending order
+			for(int j=i+1; j < ULs.size(); j++){
+				CompactUtilityList Y = ULs.get(j);
+				// we construct the extension pXY 
+				// and add it to the list of extensions of pX
+				long timeStartConstruct = (profiler == null) ? 0 : System.nanoTime();
+				exULs.add(construct(pUL, X, Y));
+				if(profiler != null){
+					phaseConstruct.addTime(timeStartConstruct);
+					phaseConstruct.addCount(X.size);
+				}
+				joinCount++;
 			}
+			// We create new prefix pX
+			itemsetBuffer[prefixLength] = X.item;
 			
-			// If the sum of the remaining utilities for pX
-			// is higher than minUtility, we explore extensions of pX.
-			// (this is the pruning condition)
-			if(X.sumIutils + X.sumRutils >= minUtility){
-				// This list will contain the utility lists of pX extensions.
-				List<UtilityList> exULs = new ArrayList<UtilityList>();
-				// For each extension of p appearing
-				// after X according to the ascending order
-				for(int j=i+1; j < ULs.size(); j++){
-					UtilityList Y = ULs.get(j);
-					// we construct the extension pXY 
-					// and add it to the list of extensions of pX
-					exULs.add(construct(pUL, X, Y));
-					joinCount++;
-				}
-				// We create new prefix pX
-				itemsetBuffer[prefixLength] = X.item;
-				
-				// We make a recursive call to discover all itemsets with the prefix pXY
-				huiMiner(itemsetBuffer, prefixLength+1, X, exULs, minUtility); 
+			// in the parallel mode, the extensions of pX are explored by a separate task 
+			// if their utility lists are large
+			if(taskOutput != null && getElementCount(exULs) >= SUBTREE_TASK_THRESHOLD){
+				ParallelUtilityListMiner.forkSubtree(taskMaster, taskOutput, itemsetBuffer, prefixLength+1, X, exULs);
+				forkCount++;
+				return;
+			}
+			
+			// We make a recursive call to discover all itemsets with the prefix pXY
+			int previousForkCount = forkCount;
+			huiMiner(itemsetBuffer, prefixLength+1, X, exULs, minUtility); 
+			
+			// The utility lists of pX extensions are not needed anymore and can be reused
+			// (unless a sub-task that uses them was forked in the parallel mode)
+			if(forkCount == previousForkCount){
+				utilityListPool.addAll(exULs);
 			}
 		}
 	}
 	
+	/**
+	 * Get the total number of elements of some utility lists
+	 * @param ULs the utility lists
+	 * @return the number of elements
+	 */
+	private static long getElementCount(List<CompactUtilityList> ULs) {
+		long count = 0;
+		for(CompactUtilityList ul : ULs){
+			count += ul.size;
+		}
+		return count;
+	}
+	
 	/**
 	 * This method constructs the utility list of pXY
 	 * @param P :  the utility list of prefix P.
@@ -326,32 +434,37 @@ public class AlgoHUIMiner {
 	 * @param py : the utility list of pY
 	 * @return the utility list of pXY
 	 */
-	private UtilityList construct(UtilityList P, UtilityList px, UtilityList py) {
+	private CompactUtilityList construct(CompactUtilityList P, CompactUtilityList px, CompactUtilityList py) {
 		// create an empy utility list for pXY
-		UtilityList pxyUL = new UtilityList(py.item);
+		CompactUtilityList pxyUL = newUtilityList(py.item);
+		// The elements of the utility lists are sorted by tids. Thus, the utility lists of pY and P
+		// are read from left to right at the same time as the utility list of pX (merge-join).
+		int posY = 0;
+		int posP = 0;
 		// for each element in the utility list of pX
-		for(Element ex : px.elements){
-			// do a binary search to find element ey in py with tid = ex.tid
-			Element ey = findElementWithTID(py, ex.tid);
-			if(ey == null){
+		for(int posX = 0; posX < px.size; posX++){
+			int tid = px.tids[posX];
+			// find the element ey in py with tid = ex.tid
+			while(posY < py.size && py.tids[posY] < tid){
+				posY++;
+			}
+			if(posY == py.size || py.tids[posY] != tid){
 				continue;
 			}
 			// if the prefix p is null
 			if(P == null){
-				// Create the new element
-				Element eXY = new Element(ex.tid, ex.iutils + ey.iutils, ey.rutils);
 				// add the new element to the utility list of pXY
-				pxyUL.addElement(eXY);
+				pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY], py.rutils[posY]);
 				
 			}else{
 				// find the element in the utility list of p wih the same tid
-				Element e = findElementWithTID(P, ex.tid);
-				if(e != null){
-					// Create new element
-					Element eXY = new Element(ex.tid, ex.iutils + ey.iutils - e.iutils,
-								ey.rutils);
+				while(posP < P.size && P.tids[posP] < tid){
+					posP++;
+				}
+				if(posP < P.size && P.tids[posP] == tid){
 					// add the new element to the utility list of pXY
-					pxyUL.addElement(eXY);
+					pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY] - P.iutils[posP],
+								py.rutils[posY]);
 				}
 			}	
 		}
@@ -360,36 +473,19 @@ public class AlgoHUIMiner {
 	}
 	
 	/**
-	 * Do a binary search to find the element with a given tid in a utility list
-	 * @param ulist the utility list
-	 * @param tid  the tid
-	 * @return  the element or null if none has the tid.
+	 * Get an empty utility list for an item. A utility list from the pool is reused if possible.
+	 * @param item the item
+	 * @return the utility list
 	 */
-	private Element findElementWithTID(UtilityList ulist, int tid){
-		List<Element> list = ulist.elements;
-		
-		// perform a binary search to check if  the subset appears in  level k-1.
-        int first = 0;
-        int last = list.size() - 1;
-       
-        // the binary search
-        while( first <= last )
-        {
-        	int middle = ( first + last ) >>> 1; // divide by 2
-
-            if(list.get(middle).tid < tid){
-            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-            }
-            else if(list.get(middle).tid > tid){
-            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-            }
-            else{
-            	return list.get(middle);
-            }
-        }
-		return null;
+	private CompactUtilityList newUtilityList(int item) {
+		if(utilityListPool.isEmpty()){
+			return new CompactUtilityList(item);
+		}
+		CompactUtilityList utilityList = utilityListPool.remove(utilityListPool.size() - 1);
+		utilityList.reset(item);
+		return utilityList;
 	}
-
+	
 	/**
 	 * Method to write a high utility itemset to the output file.
 	 * @param the prefix to be writent o the output file
@@ -398,6 +494,11 @@ public class AlgoHUIMiner {
 	 * @param prefixLength the prefix length
 	 */
 	private void writeOut(int[] prefix, int prefixLength, int item, long utility) throws IOException {
+		// in the parallel mode, the itemset is saved in the buffer of the task
+		if(taskOutput != null){
+			taskOutput.add(prefix, prefixLength, item, utility);
+			return;
+		}
 		huiCount++; // increase the number of high utility itemsets found
 		
 		//Create a string buffer
@@ -428,4 +529,89 @@ public class AlgoHUIMiner {
 		System.out.println(" Join count : " + joinCount); 
 		System.out.println("===================================================");
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Set a profiler to measure the time spent in each phase of the algorithm
+	 * (the two database scans and the construction of utility-lists).
+	 * By default, no profiler is used.
+	 * @param profiler the profiler or null to deactivate profiling
+	 */
+	public void setProfiler(PhaseProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Set the number of threads used for exploring the search space. If more than one thread
+	 * is used, the items of the first level of the search tree (and the extensions of large utility lists)
+	 * are explored in parallel. The result is the same as with a single thread.
+	 * @param threadCount the number of threads (default: 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set the mining context that is used to stop the algorithm while it is running
+	 * and to follow its progress.
+	 * @param miningContext the context, or null to use the context of the current thread if any (default)
+	 */
+	public void setMiningContext(MiningContext miningContext) {
+		this.miningContext = miningContext;
+	}
+	
+	/**
+	 * This class lets the parallel engine use this algorithm. It wraps either the algorithm object
+	 * that was called by the user, or a worker having its own buffers.
+	 */
+	private static class ParallelMiner implements ParallelUtilityListMiner.Miner {
+		// the wrapped algorithm
+		private final AlgoHUIMiner algo;
+		
+		ParallelMiner(AlgoHUIMiner algo) {
+			this.algo = algo;
+		}
+		
+		@Override
+		public ParallelUtilityListMiner.Miner createWorker(HUIItemsetBuffer output) {
+			AlgoHUIMiner worker = new AlgoHUIMiner();
+			worker.minUtility = algo.minUtility;
+			worker.itemsetBuffer = new int[algo.BUFFERS_SIZE];
+			worker.utilityListPool = new ArrayList<CompactUtilityList>();
+			worker.taskOutput = output;
+			worker.taskMaster = (algo.taskMaster == null) ? this : algo.taskMaster;
+			worker.context = algo.context;
+			// the counters of the profiler are shared by all the workers
+			worker.profiler = algo.profiler;
+			worker.phaseConstruct = algo.phaseConstruct;
+			return new ParallelMiner(worker);
+		}
+
+		@Override
+		public void exploreFirstLevelItem(List<CompactUtilityList> ULs, int i) throws IOException {
+			algo.exploreExtension(algo.itemsetBuffer, 0, null, ULs, i, algo.minUtility);
+			algo.context.workDone();
+		}
+
+		@Override
+		public void exploreSubtree(int[] prefix, int prefixLength, CompactUtilityList pUL,
+				List<CompactUtilityList> ULs) throws IOException {
+			System.arraycopy(prefix, 0, algo.itemsetBuffer, 0, prefixLength);
+			algo.huiMiner(algo.itemsetBuffer, prefixLength, pUL, ULs, algo.minUtility);
+		}
+
+		@Override
+		public void emitItemset(int[] prefix, int prefixLength, int item, long utility) throws IOException {
+			algo.writeOut(prefix, prefixLength, item, utility);
+		}
+
+		@Override
+		public void addStatistics(ParallelUtilityListMiner.Miner worker) {
+			synchronized (algo) {
+				algo.joinCount += ((ParallelMiner) worker).algo.joinCount;
+			}
+		}
+	}
+}
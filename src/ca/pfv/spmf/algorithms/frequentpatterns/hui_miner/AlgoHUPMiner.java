@@ -44,7 +44,6 @@ import ca.pfv.spmf.tools.MemoryLogger;
  *  It introduces and additional parameter, which is the number of partitions.
  *
  * @see UtilityListHUP
- * @see Element
  * @author Philippe Fournier-Viger
  */
 public class AlgoHUPMiner {
@@ -84,6 +83,9 @@ public class AlgoHUPMiner {
 	final int BUFFERS_SIZE = 200;
 	private int[] itemsetBuffer = null;
 	
+	/** the utility lists that are not used anymore and can be reused */
+	private List<UtilityListHUP> utilityListPool = null;
+	
 	/** this class represent an item and its utility in a transaction */
 	class Pair{
 		int item = 0;
@@ -111,6 +113,9 @@ public class AlgoHUPMiner {
 		// initialize the buffer for storing the current itemset
 		itemsetBuffer = new int[BUFFERS_SIZE];
 		
+		// initialize the pool of utility lists
+		utilityListPool = new ArrayList<UtilityListHUP>();
+		
 		startTimestamp = System.currentTimeMillis();
 		
 		writer = new BufferedWriter(new FileWriter(output));
@@ -263,9 +268,7 @@ public class AlgoHUPMiner {
 					UtilityListHUP utilityListOfItem = mapItemToUtilityList.get(pair.item);
 					
 					// Add a new Element to the utility list of this item corresponding to this transaction
-					Element element = new Element(tid, pair.utility, remainingUtility);
-					
-					utilityListOfItem.addElement(element, partitionSize);
+					utilityListOfItem.addElement(tid, pair.utility, remainingUtility, partitionSize);
 				}
 				tid++; // increase tid number for next transaction
 
@@ -284,6 +287,7 @@ public class AlgoHUPMiner {
 
 		// Mine the database recursively
 		hupMiner(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		utilityListPool = null;
 		
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -358,6 +362,9 @@ public class AlgoHUPMiner {
 				
 				// We make a recursive call to discover all itemsets with the prefix pXY
 				hupMiner(itemsetBuffer, prefixLength+1, X, exULs, minUtility); 
+				
+				// The utility lists of pX extensions are not needed anymore and can be reused
+				utilityListPool.addAll(exULs);
 			}
 		}
 	}
@@ -397,21 +404,29 @@ public class AlgoHUPMiner {
 	private UtilityListHUP construct(UtilityListHUP P, 
 			UtilityListHUP px, UtilityListHUP py, int minUtility) {
 		// create an empy utility list for pXY
-		UtilityListHUP pxyUL = new UtilityListHUP(py.item,k);
+		UtilityListHUP pxyUL = newUtilityList(py.item);
 		
 		// BEGIN HUP-Miner
 		// Initialize the sum of total utility
 		long totalUtility = px.sumIutils + px.sumRutils;
 		// END HUP-Miner
 		
+		// The elements of the utility lists are sorted by tids. Thus, the utility lists of pY and P
+		// are read from left to right at the same time as the utility list of pX (merge-join).
+		int posY = 0;
+		int posP = 0;
 		// for each element in the utility list of pX
-		for(Element ex : px.elements){
-			// do a binary search to find element ey in py with tid = ex.tid
-			Element ey = findElementWithTID(py, ex.tid);
-			if(ey == null){
+		for(int posX = 0; posX < px.size; posX++){
+			int tid = px.tids[posX];
+			// find the element ey in py with tid = ex.tid
+			while(posY < py.size && py.tids[posY] < tid){
+				posY++;
+			}
+			if(posY == py.size || py.tids[posY] != tid){
 				// BEGIN HUP-Miner
-				totalUtility -= (ex.iutils+ex.rutils);
+				totalUtility -= (px.iutils[posX] + px.rutils[posX]);
 				if(totalUtility < minUtility) {
+					utilityListPool.add(pxyUL);
 					return null;
 				}
 				// END HUP-Miner
@@ -419,20 +434,18 @@ public class AlgoHUPMiner {
 			}
 			// if the prefix p is null
 			if(P == null){
-				// Create the new element
-				Element eXY = new Element(ex.tid, ex.iutils + ey.iutils, ey.rutils);
 				// add the new element to the utility list of pXY
-				pxyUL.addElement(eXY, partitionSize);
+				pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY], py.rutils[posY], partitionSize);
 				
 			}else{
 				// find the element in the utility list of p wih the same tid
-				Element e = findElementWithTID(P, ex.tid);
-				if(e != null){
-					// Create new element
-					Element eXY = new Element(ex.tid, ex.iutils + ey.iutils - e.iutils,
-								ey.rutils);
+				while(posP < P.size && P.tids[posP] < tid){
+					posP++;
+				}
+				if(posP < P.size && P.tids[posP] == tid){
 					// add the new element to the utility list of pXY
-					pxyUL.addElement(eXY, partitionSize);
+					pxyUL.addElement(tid, px.iutils[posX] + py.iutils[posY] - P.iutils[posP],
+								py.rutils[posY], partitionSize);
 				}
 			}
 			
@@ -442,36 +455,19 @@ public class AlgoHUPMiner {
 	}
 	
 	/**
-	 * Do a binary search to find the element with a given tid in a utility list
-	 * @param ulist the utility list
-	 * @param tid  the tid
-	 * @return  the element or null if none has the tid.
+	 * Get an empty utility list for an item. A utility list from the pool is reused if possible.
+	 * @param item the item
+	 * @return the utility list
 	 */
-	private Element findElementWithTID(UtilityListHUP ulist, int tid){
-		List<Element> list = ulist.elements;
-		
-		// perform a binary search to check if  the subset appears in  level k-1.
-        int first = 0;
-        int last = list.size() - 1;
-       
-        // the binary search
-        while( first <= last )
-        {
-        	int middle = ( first + last ) >>> 1; // divide by 2
-
-            if(list.get(middle).tid < tid){
-            	first = middle + 1;  //  the itemset compared is larger than the subset according to the lexical order
-            }
-            else if(list.get(middle).tid > tid){
-            	last = middle - 1; //  the itemset compared is smaller than the subset  is smaller according to the lexical order
-            }
-            else{
-            	return list.get(middle);
-            }
-        }
-		return null;
+	private UtilityListHUP newUtilityList(int item) {
+		if(utilityListPool.isEmpty()){
+			return new UtilityListHUP(item, k);
+		}
+		UtilityListHUP utilityList = utilityListPool.remove(utilityListPool.size() - 1);
+		utilityList.reset(item);
+		return utilityList;
 	}
-
+	
 	/**
 	 * Method to write a high utility itemset to the output file.
 	 * @param the prefix to be writent o the output file
@@ -21,13 +21,11 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -70,8 +68,8 @@ public class AlgoMinFHM {
 	/** writer to write the output file  */
 	BufferedWriter writer = null;  
 	
-	/** the EUCP structure */
-	Map<Integer, Map<Integer, Integer>> mapFMAP;  // PAIR OF ITEMS , item --> item, twu
+	/** The eucs structure: the TWU of each pair of items */
+	CooccurrenceMatrix eucs;
 	
 	/** variable to activate the debug mode */
 	boolean debug = false;
@@ -123,7 +121,7 @@ public class AlgoMinFHM {
 	public void registerItemsetAndRemoveLarger(int [] itemset, long utility, int support) {
 //		// OPTIMIZATION: if it is an itemset of size 2, we set the pair to ZERO in the EUCS ===========
 		if(itemset.length == 2) {
-			mapFMAP.get(itemset[0]).put(itemset[1], 0);
+			eucs.set(itemset[0], itemset[1], 0);
 		}
 //		/// END OF OPTIMIZATION =======================
 		
@@ -200,8 +198,6 @@ public class AlgoMinFHM {
 		// reset maximum
 		MemoryLogger.getInstance().reset();
 		
-		mapFMAP =  new HashMap<Integer, Map<Integer, Integer>>();
-		
 		startTimestamp = System.currentTimeMillis();
 		
 		writer = new BufferedWriter(new FileWriter(output));
@@ -301,6 +297,13 @@ public class AlgoMinFHM {
 			}
 			} );
 		
+		// CREATE THE EUCS STRUCTURE, WHICH STORES THE TWU OF EACH PAIR OF PROMISING ITEMS
+		int maxItem = 0;
+		for(UtilityList uList : listOfUtilityLists) {
+			maxItem = Math.max(maxItem, uList.item);
+		}
+		eucs = new CooccurrenceMatrix(listOfUtilityLists.size(), maxItem);
+		
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS 
 		// OF 1-ITEMSETS  HAVING TWU  >= minutil (promising items)
 		try {
@@ -373,20 +376,9 @@ public class AlgoMinFHM {
 					utilityListOfItem.addElement(element);
 										
 					// BEGIN NEW OPTIMIZATION for FHM
-					Map<Integer, Integer> mapFMAPItem = mapFMAP.get(pair.item);
-					if(mapFMAPItem == null) {
-						mapFMAPItem = new HashMap<Integer, Integer>();
-						mapFMAP.put(pair.item, mapFMAPItem);
-					}
-
 					for(int j = i+1; j< revisedTransaction.size(); j++){
 						Pair pairAfter = revisedTransaction.get(j);
-						Integer twuSum = mapFMAPItem.get(pairAfter.item);
-						if(twuSum == null) {
-							mapFMAPItem.put(pairAfter.item, newTWU);
-						}else {
-							mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
-						}
+						eucs.add(pair.item, pairAfter.item, newTWU);
 					}
 						
 					// END OPTIMIZATION of FHM
@@ -488,12 +480,9 @@ public class AlgoMinFHM {
 					UtilityList Y = ULs.get(j);
 					
 					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Integer> mapTWUF = mapFMAP.get(X.item);
-					if(mapTWUF != null) {
-						Integer twuF = mapTWUF.get(Y.item);
-						if(twuF == null || twuF < minUtility) {
-							continue;
-						}
+					// (a pair that never appears together has the value -1)
+					if(eucs.get(X.item, Y.item) < minUtility) {
+						continue;
 					}
 					candidateCount++;
 					// =========================== END OF NEW OPTIMIZATION
@@ -676,30 +665,10 @@ public class AlgoMinFHM {
 		System.out.println(" Candidate count : "             + candidateCount);
 		
 		if(debug) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapFMAP);
-			for(Entry<Integer, Map<Integer, Integer>> entry : mapFMAP.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for(Entry<Integer, Integer> entry2 :entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("CMAP size " + maxMemory + " MB");
-			System.out.println("PAIR COUNT " + pairCount);
+			System.out.println("CMAP size " + eucs.getMemorySize() + " MB");
+			System.out.println("PAIR COUNT " + eucs.getPairCount());
 		}
 		System.out.println("===================================================");
 	}
-	
-    private double getObjectSize(
-            Object object)
-            throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-        oos.writeObject(object);
-        oos.close();
-        double maxMemory = baos.size() / 1024d / 1024d;
-        return maxMemory;
-    }
 
 }
\ No newline at end of file
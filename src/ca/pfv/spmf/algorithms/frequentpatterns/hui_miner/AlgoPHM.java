@@ -21,13 +21,11 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -66,11 +64,11 @@ public class AlgoPHM {
 	/** writer to write the output file  */
 	BufferedWriter writer = null;  
 	
-	/** The eucs structure:  key: item   key: another item   value: twu */
-	Map<Integer, Map<Integer, Long>> mapEUCS = null;  
+	/** The eucs structure: the TWU of each pair of items */
+	CooccurrenceMatrix eucs = null;
 	
-	/** The eucs structure:  key: item   key: another item   value: support */
-	Map<Integer, Map<Integer, Long>> mapESCS = null;  
+	/** The escs structure: the support of each pair of items */
+	CooccurrenceMatrix escs = null;
 	
 	/** enable LA-prune strategy  */
 	boolean ENABLE_LA_PRUNE = true;
@@ -168,13 +166,6 @@ public class AlgoPHM {
 		// initialize the buffer for storing the current itemset
 		itemsetBuffer = new int[BUFFERS_SIZE];
 		
-		if(ENABLE_EUCP){
-			mapEUCS =  new HashMap<Integer, Map<Integer, Long>>();
-		}
-		if(ENABLE_ESCP){
-			mapESCS =  new HashMap<Integer, Map<Integer, Long>>();
-		}
-		
 		
 		startTimestamp = System.currentTimeMillis();
 		
@@ -357,6 +348,18 @@ public class AlgoPHM {
 			}
 			} );
 		
+		// CREATE THE EUCS AND ESCS STRUCTURES, WHICH STORE THE TWU AND SUPPORT OF EACH PAIR OF PROMISING ITEMS
+		int maxItem = 0;
+		for(UtilityListPHM uList : listOfUtilityLists) {
+			maxItem = Math.max(maxItem, uList.item);
+		}
+		if(ENABLE_EUCP){
+			eucs = new CooccurrenceMatrix(listOfUtilityLists.size(), maxItem);
+		}
+		if(ENABLE_ESCP){
+			escs = new CooccurrenceMatrix(listOfUtilityLists.size(), maxItem);
+		}
+		
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS 
 		// OF 1-ITEMSETS  HAVING TWU  >= minutil (promising items)
 		try {
@@ -435,36 +438,16 @@ public class AlgoPHM {
 										
 					// BEGIN NEW OPTIMIZATION for FHM
 					if(ENABLE_EUCP){
-						Map<Integer, Long> mapFMAPItem = mapEUCS.get(pair.item);
-						if(mapFMAPItem == null) {
-							mapFMAPItem = new HashMap<Integer, Long>();
-							mapEUCS.put(pair.item, mapFMAPItem);
-						}
 						for(int j = i+1; j< revisedTransaction.size(); j++){
 							Pair pairAfter = revisedTransaction.get(j);
-							Long twuSum = mapFMAPItem.get(pairAfter.item);
-							if(twuSum == null) {
-								mapFMAPItem.put(pairAfter.item, newTWU);
-							}else {
-								mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
-							}
+							eucs.add(pair.item, pairAfter.item, newTWU);
 						}
 					}
 
 					if(ENABLE_ESCP){
-						Map<Integer, Long> mapESItem = mapESCS.get(pair.item);
-						if(mapESItem == null) {
-							mapESItem = new HashMap<Integer, Long>();
-							mapESCS.put(pair.item, mapESItem);
-						}
 						for(int j = i+1; j< revisedTransaction.size(); j++){
 							Pair pairAfter = revisedTransaction.get(j);
-							Long support = mapESItem.get(pairAfter.item);
-							if(support == null) {
-								mapESItem.put(pairAfter.item, 1l);
-							}else {
-								mapESItem.put(pairAfter.item, support + 1);
-							}
+							escs.add(pair.item, pairAfter.item, 1);
 						}
 					}
 
@@ -569,24 +552,16 @@ public class AlgoPHM {
 						UtilityListPHM Y = ULs.get(j);
 						
 						// ======================== NEW OPTIMIZATION USED IN FHM
-						if(ENABLE_EUCP){
-							Map<Integer, Long> mapTWUF = mapEUCS.get(X.item);
-							if(mapTWUF != null) {
-								Long twuF = mapTWUF.get(Y.item);
-								if(twuF == null || twuF < minUtility) {
-									continue;
-								}
-							}
+						// (a pair that never appears together has the value -1)
+						if(ENABLE_EUCP && eucs.get(X.item, Y.item) < minUtility){
+							continue;
 						}
 						// =========================== END OF NEW OPTIMIZATION
 						// ======================== NEW OPTIMIZATION USED IN PHM
 						if(ENABLE_ESCP){
-							Map<Integer, Long> mapSUPF = mapESCS.get(X.item);
-							if(mapSUPF != null) {
-								Long supportF = mapSUPF.get(Y.item);
-								if(supportF != null && supportF < supportPruningThreshold) {
-									continue;
-								}
+							long supportF = escs.get(X.item, Y.item);
+							if(supportF != CooccurrenceMatrix.ABSENT && supportF < supportPruningThreshold) {
+								continue;
 							}
 						}
 						// =========================== END OF NEW OPTIMIZATION
@@ -825,25 +800,13 @@ public class AlgoPHM {
 		// print the eucs
 		if(DEBUG && ENABLE_EUCP) {
 			System.out.println("===== CONTENT OF EUCP =====");
-			for(Entry<Integer, Map<Integer, Long>> entry : mapEUCS.entrySet()) {
-				System.out.print("Item:" + entry.getKey()  + " -- ");
-				for(Entry<Integer, Long> entry2 :entry.getValue().entrySet()) {
-					System.out.print(entry2.getKey()  + " (" + entry2.getValue() + ")  ");
-				}
-				System.out.println();
-			}
+			System.out.print(eucs.toString());
 		}
 		
 		// print the escs
 		if(DEBUG && ENABLE_ESCP) {
 			System.out.println("===== CONTENT OF ESCS =====");
-			for(Entry<Integer, Map<Integer, Long>> entry : mapESCS.entrySet()) {
-				System.out.print("Item:" + entry.getKey()  + " -- ");
-				for(Entry<Integer, Long> entry2 :entry.getValue().entrySet()) {
-					System.out.print(entry2.getKey()  + " (" + entry2.getValue() + ")  ");
-				}
-				System.out.println();
-			}
+			System.out.print(escs.toString());
 		}
 	
 		
@@ -858,28 +821,10 @@ public class AlgoPHM {
 		System.out.println(" Candidate count : "             + candidateCount);
 		
 		if(DEBUG && ENABLE_EUCP) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapEUCS);
-			for(Entry<Integer, Map<Integer, Long>> entry : mapEUCS.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for(Entry<Integer, Long> entry2 :entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("EUCS size " + maxMemory + " MB    PAIR COUNT " + pairCount);
+			System.out.println("EUCS size " + eucs.getMemorySize() + " MB    PAIR COUNT " + eucs.getPairCount());
 		}
 		if(DEBUG && ENABLE_ESCP) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapESCS);
-			for(Entry<Integer, Map<Integer, Long>> entry : mapESCS.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for(Entry<Integer, Long> entry2 :entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("ESCS size " + maxMemory + " MB    PAIR COUNT " + pairCount);
+			System.out.println("ESCS size " + escs.getMemorySize() + " MB    PAIR COUNT " + escs.getPairCount());
 		}
 		System.out.println("===================================================");
 		
@@ -887,23 +832,6 @@ public class AlgoPHM {
 		
 	}
 
-	/**
-	 * Get the size of a Java object (for debugging purposes)
-	 * @param object the object
-	 * @return the size in MB
-	 * @throws IOException
-	 */
-    private double getObjectSize(
-            Object object)
-            throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-        oos.writeObject(object);
-        oos.close();
-        double maxMemory = baos.size() / 1024d / 1024d;
-        return maxMemory;
-    }
-
     /**
      * This method let the user specify if the EUCP should be enabled.
      * @param enable if this parameter is true, EUCP will be enabled. Otherwise, not.
@@ -0,0 +1,136 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This class represents a utility list stored in columns. Instead of a list of Element
+ * objects, the tids, iutils and rutils of the elements are stored in three arrays of primitive
+ * values (the i-th element of the utility list is (tids[i], iutils[i], rutils[i])).
+ * The elements are sorted by ascending tids, so that two utility lists can be joined
+ * by reading them from left to right, rather than by doing a binary search for each element.
+ * <br/><br/>
+ *
+ * A utility list can be emptied and reused for another item by calling reset(),
+ * which avoids allocating new arrays. It is used by HUI-Miner, FHM, FHN, HUP-Miner,
+ * CHUI-Miner and FCHM.
+ *
+ * @see UtilityList
+ * @see AlgoHUIMiner
+ * @author Philippe Fournier-Viger
+ */
+public class CompactUtilityList {
+	/** the initial capacity of the arrays */
+	private static final int INITIAL_CAPACITY = 8;
+
+	int item;  // the item
+	long sumIutils = 0;  // the sum of item utilities
+	long sumRutils = 0;  // the sum of remaining utilities
+
+	int size = 0;  // the number of elements
+	int[] tids;  // the tid of each element
+	long[] iutils;  // the utility of the itemset in each transaction
+	long[] rutils;  // the remaining utility in each transaction
+
+	/**
+	 * Constructor.
+	 * @param item the item that is used for this utility list
+	 */
+	public CompactUtilityList(int item){
+		this.item = item;
+		tids = new int[INITIAL_CAPACITY];
+		iutils = new long[INITIAL_CAPACITY];
+		rutils = new long[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Method to add an element to this utility list and update the sums at the same time.
+	 * The tid must be larger than the tid of the last element.
+	 * @param tid the tid of the transaction
+	 * @param iutil the utility of the itemset in this transaction
+	 * @param rutil the remaining utility in this transaction
+	 */
+	public void addElement(int tid, long iutil, long rutil){
+		if(size == tids.length){
+			grow(size * 2);
+		}
+		sumIutils += iutil;
+		sumRutils += rutil;
+		tids[size] = tid;
+		iutils[size] = iutil;
+		rutils[size] = rutil;
+		size++;
+	}
+
+	/**
+	 * Increase the capacity of the arrays. A subclass having more columns
+	 * should override this method to also increase the capacity of its columns.
+	 * @param capacity the new capacity
+	 */
+	protected void grow(int capacity){
+		tids = Arrays.copyOf(tids, capacity);
+		iutils = Arrays.copyOf(iutils, capacity);
+		rutils = Arrays.copyOf(rutils, capacity);
+	}
+
+	/**
+	 * Remove all the elements of this utility list so that it can be reused for another item.
+	 * The arrays are kept.
+	 * @param item the new item
+	 */
+	public void reset(int item){
+		this.item = item;
+		sumIutils = 0;
+		sumRutils = 0;
+		size = 0;
+	}
+
+	/**
+	 * Get the support of the itemset represented by this utility list
+	 * @return the support as a number of transactions
+	 */
+	public int getSupport() {
+		return size;
+	}
+
+	/**
+	 * Check if the tids of this utility list contain all the tids of another
+	 * utility list. Both lists are read from left to right.
+	 * @param other the other utility list
+	 * @return true if the tids of this list contain the tids of the other list
+	 */
+	public boolean containsAllTIDs(CompactUtilityList other){
+		if(other.size > size){
+			return false;
+		}
+		int pos = 0;
+		for(int i = 0; i < other.size; i++){
+			int tid = other.tids[i];
+			// skip the smaller tids
+			while(pos < size && tids[pos] < tid){
+				pos++;
+			}
+			if(pos == size || tids[pos] != tid){
+				return false;
+			}
+			pos++;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,399 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This class stores a value for each pair of items that appear together in a transaction,
+ * such as the EUCS (Estimated Utility Co-occurrence Structure) of FHM, which stores the TWU
+ * of each pair of items, or the ESCS of PHM, which stores the support of each pair of items.
+ * Values are stored as primitive long values, so that no objects are created when the
+ * structure is built or read.
+ * <br/><br/>
+ *
+ * Two representations are used, and the choice is made automatically according to the number of items:
+ * <ul>
+ * <li>if there are few items, items are renamed as consecutive integers 0, 1, 2... when they are first
+ * seen and the values are stored in a triangular matrix implemented as a single array
+ * (see also the TriangularMatrix class of SPMF),</li>
+ * <li>otherwise, only the pairs that appear in the database are stored in a hash table using open
+ * addressing, where a pair of items is encoded as a single long key.</li>
+ * </ul>
+ * The value of a pair {a, b} is the same as that of the pair {b, a}. Items must be positive integers
+ * and values must not be negative. An item can also be registered without any pair, to remember
+ * that it was seen (for example, FHN only creates an entry for an item followed by positive items).
+ * After it is built, the structure can be read by several threads.
+ *
+ * @see AlgoFHM
+ * @author Philippe Fournier-Viger
+ */
+public class CooccurrenceMatrix {
+
+	/** the value returned for a pair of items that was never added */
+	public static final long ABSENT = -1;
+
+	/** the largest number of items for using a triangular matrix (about 16 MB) */
+	private static final int DENSE_MAX_ITEM_COUNT = 2048;
+	/** the largest item for using a triangular matrix (the items are renamed using an array) */
+	private static final int DENSE_MAX_ITEM = 1 << 22;
+
+	/** the key of an empty cell of the hash table (no pair of two different items has this key) */
+	private static final long EMPTY_KEY = -1;
+
+	// ============ TRIANGULAR MATRIX ============
+	/** the new name of each item, or -1 if the item was not seen yet */
+	private int[] indexOfItem = null;
+	/** the item having each new name */
+	private int[] itemOfIndex = null;
+	/** for each new name, true if the item was registered with addItem() */
+	private boolean[] registeredItems = null;
+	/** the number of items that have been renamed */
+	private int renamedItemCount = 0;
+	/** the number of items (the size of the matrix) */
+	private int matrixSize = 0;
+	/** the cells of the triangular matrix, row by row */
+	private long[] matrix = null;
+
+	// ============ HASH TABLE ============
+	/** the keys of the hash table */
+	private long[] keys = null;
+	/** the values associated to the keys */
+	private long[] values = null;
+	/** the number of bits used to compute the position of a key (the capacity is 2^bits) */
+	private int bits;
+	/** the number of keys in the hash table (pairs and registered items) */
+	private int keyCount = 0;
+
+	/** the number of pairs stored in this structure */
+	private int pairCount = 0;
+
+	/**
+	 * Constructor
+	 * @param itemCount the number of distinct items that may be added to this structure
+	 * @param maxItem the largest item that may be added to this structure
+	 */
+	public CooccurrenceMatrix(int itemCount, int maxItem) {
+		if(itemCount <= DENSE_MAX_ITEM_COUNT && maxItem < DENSE_MAX_ITEM) {
+			indexOfItem = new int[maxItem + 1];
+			Arrays.fill(indexOfItem, -1);
+			matrixSize = Math.max(itemCount, 1);
+			itemOfIndex = new int[matrixSize];
+			registeredItems = new boolean[matrixSize];
+			matrix = new long[matrixSize * (matrixSize - 1) / 2];
+			Arrays.fill(matrix, ABSENT);
+		}else {
+			// start with a capacity of four pairs per item
+			bits = 4;
+			while((1 << bits) < itemCount * 4L && bits < 30) {
+				bits++;
+			}
+			keys = new long[1 << bits];
+			values = new long[1 << bits];
+			Arrays.fill(keys, EMPTY_KEY);
+		}
+	}
+
+	/**
+	 * Check if this structure is a triangular matrix or a hash table
+	 * @return true if it is a triangular matrix
+	 */
+	public boolean isDense() {
+		return matrix != null;
+	}
+
+	/**
+	 * Add a value to the value of a pair of items. If the pair was never added,
+	 * its value becomes the given value.
+	 * @param itemA an item
+	 * @param itemB another item
+	 * @param value the value to be added
+	 */
+	public void add(int itemA, int itemB, long value) {
+		if(matrix != null) {
+			int cell = getCell(renameItem(itemA), renameItem(itemB));
+			long current = matrix[cell];
+			if(current == ABSENT) {
+				matrix[cell] = value;
+				pairCount++;
+			}else {
+				matrix[cell] = current + value;
+			}
+		}else {
+			int position = findOrInsert(getKey(itemA, itemB));
+			long current = values[position];
+			if(current == ABSENT) {
+				values[position] = value;
+				pairCount++;
+			}else {
+				values[position] = current + value;
+			}
+		}
+	}
+
+	/**
+	 * Set the value of a pair of items
+	 * @param itemA an item
+	 * @param itemB another item
+	 * @param value the new value
+	 */
+	public void set(int itemA, int itemB, long value) {
+		if(matrix != null) {
+			int cell = getCell(renameItem(itemA), renameItem(itemB));
+			if(matrix[cell] == ABSENT) {
+				pairCount++;
+			}
+			matrix[cell] = value;
+		}else {
+			int position = findOrInsert(getKey(itemA, itemB));
+			if(values[position] == ABSENT) {
+				pairCount++;
+			}
+			values[position] = value;
+		}
+	}
+
+	/**
+	 * Register an item, to remember that it was seen even if it has no pair
+	 * @param item the item
+	 */
+	public void addItem(int item) {
+		if(matrix != null) {
+			registeredItems[renameItem(item)] = true;
+		}else {
+			// an item is stored as a pair made of the item with itself
+			int position = findOrInsert(getKey(item, item));
+			values[position] = 0;
+		}
+	}
+
+	/**
+	 * Check if an item was registered with addItem()
+	 * @param item the item
+	 * @return true if it was registered
+	 */
+	public boolean containsItem(int item) {
+		if(matrix != null) {
+			if(item >= indexOfItem.length || indexOfItem[item] < 0) {
+				return false;
+			}
+			return registeredItems[indexOfItem[item]];
+		}
+		return find(getKey(item, item)) >= 0;
+	}
+
+	/**
+	 * Get the value of a pair of items
+	 * @param itemA an item
+	 * @param itemB another item
+	 * @return the value, or ABSENT (-1) if the pair was never added
+	 */
+	public long get(int itemA, int itemB) {
+		if(matrix != null) {
+			if(itemA >= indexOfItem.length || itemB >= indexOfItem.length) {
+				return ABSENT;
+			}
+			int indexA = indexOfItem[itemA];
+			int indexB = indexOfItem[itemB];
+			if(indexA < 0 || indexB < 0) {
+				return ABSENT;
+			}
+			return matrix[getCell(indexA, indexB)];
+		}
+		int position = find(getKey(itemA, itemB));
+		return (position < 0) ? ABSENT : values[position];
+	}
+
+	/**
+	 * Get the number of pairs of items stored in this structure
+	 * @return the number of pairs
+	 */
+	public int getPairCount() {
+		return pairCount;
+	}
+
+	/**
+	 * Get the approximate memory used by this structure
+	 * @return the memory in MB
+	 */
+	public double getMemorySize() {
+		long bytes;
+		if(matrix != null) {
+			bytes = matrix.length * 8L + indexOfItem.length * 4L + itemOfIndex.length * 5L;
+		}else {
+			bytes = keys.length * 16L;
+		}
+		return bytes / 1024d / 1024d;
+	}
+
+	/**
+	 * Get a string representation of this structure, listing each pair of items and its value
+	 * (for debugging purposes)
+	 * @return the string
+	 */
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		if(matrix != null) {
+			for(int i = 0; i < renamedItemCount; i++) {
+				for(int j = i + 1; j < renamedItemCount; j++) {
+					long value = matrix[getCell(i, j)];
+					if(value != ABSENT) {
+						buffer.append(itemOfIndex[i]).append(' ').append(itemOfIndex[j]);
+						buffer.append(" (").append(value).append(")\n");
+					}
+				}
+			}
+		}else {
+			for(int i = 0; i < keys.length; i++) {
+				long key = keys[i];
+				int itemA = (int) (key >>> 32);
+				int itemB = (int) key;
+				if(key != EMPTY_KEY && itemA != itemB) {
+					buffer.append(itemA).append(' ').append(itemB);
+					buffer.append(" (").append(values[i]).append(")\n");
+				}
+			}
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Get the new name of an item in the triangular matrix, and rename it if it was not seen yet
+	 * @param item the item
+	 * @return the new name
+	 */
+	private int renameItem(int item) {
+		int index = indexOfItem[item];
+		if(index < 0) {
+			if(renamedItemCount == matrixSize) {
+				throw new IllegalStateException("More items were added than the number of items given to the constructor");
+			}
+			index = renamedItemCount++;
+			indexOfItem[item] = index;
+			itemOfIndex[index] = item;
+		}
+		return index;
+	}
+
+	/**
+	 * Get the position of a pair of renamed items in the triangular matrix
+	 * @param indexA an item
+	 * @param indexB another item
+	 * @return the position in the array
+	 */
+	private int getCell(int indexA, int indexB) {
+		int i = Math.min(indexA, indexB);
+		int j = Math.max(indexA, indexB);
+		// the rows before row i contain (size-1) + (size-2) + ... + (size-i) cells
+		return i * (2 * matrixSize - i - 1) / 2 + (j - i - 1);
+	}
+
+	/**
+	 * Get the key of a pair of items in the hash table
+	 * @param itemA an item
+	 * @param itemB another item
+	 * @return the key, made of the smallest item followed by the largest item
+	 */
+	private static long getKey(int itemA, int itemB) {
+		if(itemA < itemB) {
+			return ((long) itemA << 32) | itemB;
+		}
+		return ((long) itemB << 32) | itemA;
+	}
+
+	/**
+	 * Get the first position to be checked for a key in the hash table
+	 * @param key the key
+	 * @return the position
+	 */
+	private int hash(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+	}
+
+	/**
+	 * Find the position of a key in the hash table
+	 * @param key the key
+	 * @return the position of the key or -1 if it is not in the table
+	 */
+	private int find(long key) {
+		int mask = keys.length - 1;
+		for(int position = hash(key); ; position = (position + 1) & mask) {
+			long current = keys[position];
+			if(current == key) {
+				return position;
+			}
+			if(current == EMPTY_KEY) {
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * Find the position of a key in the hash table, or insert the key with the value ABSENT
+	 * if it is not in the table
+	 * @param key the key
+	 * @return the position of the key
+	 */
+	private int findOrInsert(long key) {
+		int mask = keys.length - 1;
+		int position = hash(key);
+		while(true) {
+			long current = keys[position];
+			if(current == key) {
+				return position;
+			}
+			if(current == EMPTY_KEY) {
+				break;
+			}
+			position = (position + 1) & mask;
+		}
+		// the key is new. If the table is half full, double its capacity
+		if(keyCount + 1 > keys.length / 2) {
+			resize();
+			return findOrInsert(key);
+		}
+		keys[position] = key;
+		values[position] = ABSENT;
+		keyCount++;
+		return position;
+	}
+
+	/**
+	 * Double the capacity of the hash table
+	 */
+	private void resize() {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		bits++;
+		keys = new long[1 << bits];
+		values = new long[1 << bits];
+		Arrays.fill(keys, EMPTY_KEY);
+		int mask = keys.length - 1;
+		for(int i = 0; i < oldKeys.length; i++) {
+			long key = oldKeys[i];
+			if(key != EMPTY_KEY) {
+				int position = hash(key);
+				while(keys[position] != EMPTY_KEY) {
+					position = (position + 1) & mask;
+				}
+				keys[position] = key;
+				values[position] = oldValues[i];
+			}
+		}
+	}
+}
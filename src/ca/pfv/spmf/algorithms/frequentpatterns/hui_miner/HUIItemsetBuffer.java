@@ -0,0 +1,126 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class stores the high-utility itemsets found by a task of the parallel HUI-Miner / FHM engine,
+ * in the order where they were found. Itemsets are packed in arrays of primitive values rather than
+ * stored as objects to reduce memory usage.
+ * <br/><br/>
+ *
+ * A task may also hand over a sub-tree of the search space to a sub-task. In that case, the
+ * position of the sub-task in the output is recorded so that the itemsets of the sub-task
+ * are replayed exactly where a serial execution would have found them.
+ *
+ * @see ParallelUtilityListMiner
+ * @author Philippe Fournier-Viger
+ */
+class HUIItemsetBuffer {
+
+	// the items of all the itemsets, one after the other
+	private int[] items = new int[64];
+	// the number of cells used in the "items" array
+	private int itemsSize = 0;
+
+	// the length and utility of each itemset
+	private int[] lengths = new int[16];
+	private long[] utilities = new long[16];
+	// the number of itemsets in this buffer
+	private int count = 0;
+
+	// the sub-tasks that were forked by the task writing in this buffer
+	private List<ParallelUtilityListMiner.MiningTask> subTasks = null;
+	// for each sub-task, the number of itemsets that were found before it was forked
+	private int[] subTaskPositions = null;
+
+	/**
+	 * Append an itemset to this buffer. The itemset is a prefix extended with an item.
+	 * @param prefix an array containing the items of the prefix
+	 * @param prefixLength the number of items to take from the array
+	 * @param item the item appended to the prefix
+	 * @param utility the utility of the itemset
+	 */
+	void add(int[] prefix, int prefixLength, int item, long utility) {
+		// grow the arrays if needed
+		if(itemsSize + prefixLength + 1 > items.length) {
+			items = Arrays.copyOf(items, Math.max(items.length * 2, itemsSize + prefixLength + 1));
+		}
+		if(count == lengths.length) {
+			lengths = Arrays.copyOf(lengths, count * 2);
+			utilities = Arrays.copyOf(utilities, count * 2);
+		}
+		System.arraycopy(prefix, 0, items, itemsSize, prefixLength);
+		itemsSize += prefixLength;
+		items[itemsSize++] = item;
+		lengths[count] = prefixLength + 1;
+		utilities[count] = utility;
+		count++;
+	}
+
+	/**
+	 * Record that a sub-task was forked at the current position of this buffer
+	 * @param task the sub-task
+	 */
+	void addSubTask(ParallelUtilityListMiner.MiningTask task) {
+		if(subTasks == null) {
+			subTasks = new ArrayList<ParallelUtilityListMiner.MiningTask>();
+			subTaskPositions = new int[4];
+		}else if(subTasks.size() == subTaskPositions.length) {
+			subTaskPositions = Arrays.copyOf(subTaskPositions, subTaskPositions.length * 2);
+		}
+		subTaskPositions[subTasks.size()] = count;
+		subTasks.add(task);
+	}
+
+	/**
+	 * Send the itemsets of this buffer and of its sub-tasks to a miner, in the order
+	 * of a serial execution. This waits for the sub-tasks to terminate if needed.
+	 * @param miner the miner that will receive the itemsets
+	 * @param itemsetBuffer a buffer large enough to store any itemset
+	 * @throws IOException if an error occurs while the miner writes an itemset
+	 */
+	void replay(ParallelUtilityListMiner.Miner miner, int[] itemsetBuffer) throws IOException {
+		int nextSubTask = 0;
+		int subTaskCount = subTasks == null ? 0 : subTasks.size();
+		int position = 0;
+		for(int i = 0; i <= count; i++) {
+			// first replay the sub-tasks that were forked before this itemset was found
+			while(nextSubTask < subTaskCount && subTaskPositions[nextSubTask] == i) {
+				ParallelUtilityListMiner.MiningTask task = subTasks.get(nextSubTask);
+				task.join();
+				task.getOutput().replay(miner, itemsetBuffer);
+				// release the memory used by the sub-task
+				subTasks.set(nextSubTask, null);
+				nextSubTask++;
+			}
+			if(i == count) {
+				break;
+			}
+			// then replay the itemset (the last item is passed separately, as when it was found)
+			int length = lengths[i];
+			System.arraycopy(items, position, itemsetBuffer, 0, length - 1);
+			position += length;
+			miner.emitItemset(itemsetBuffer, length - 1, items[position - 1], utilities[i]);
+		}
+	}
+}
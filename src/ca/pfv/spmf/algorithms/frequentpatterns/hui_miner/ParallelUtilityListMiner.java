@@ -0,0 +1,222 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class is the engine used to run HUI-Miner and FHM with several threads.
+ * <br/><br/>
+ *
+ * Each utility list of the first level of the search tree (an item and its extensions) is explored
+ * by a separate task of a fork-join pool. A task uses its own worker (a copy of the algorithm with
+ * its own prefix buffer and pool of utility lists) and stores the high-utility itemsets that it finds
+ * in a {@link HUIItemsetBuffer}. The utility lists of single items are shared by all the tasks but
+ * are only read. A worker may also fork a sub-task for exploring the extensions of a large utility list.
+ * <br/><br/>
+ *
+ * The itemsets are then sent back to the original algorithm object, on the calling thread,
+ * following the order of the items. The calling thread is thus the only one that writes to the
+ * output file, and the result is identical to that of a serial execution (including the order
+ * of itemsets in the output file).
+ *
+ * @see AlgoHUIMiner
+ * @see AlgoFHM
+ * @author Philippe Fournier-Viger
+ */
+class ParallelUtilityListMiner {
+
+	/**
+	 * Interface implemented by the algorithms that can be run by this engine.
+	 */
+	interface Miner {
+
+		/**
+		 * Create a worker, that is a copy of this algorithm having its own buffers,
+		 * which saves the itemsets that it finds in a buffer
+		 * @param output the buffer where the worker should save itemsets
+		 * @return the worker
+		 */
+		Miner createWorker(HUIItemsetBuffer output);
+
+		/**
+		 * Explore the itemsets starting with an item of the first level of the search tree
+		 * (this is one iteration of the main loop of the recursive search procedure)
+		 * @param ULs the utility lists of the items
+		 * @param i the position of the item to explore
+		 * @throws IOException if an error occurs
+		 */
+		void exploreFirstLevelItem(List<CompactUtilityList> ULs, int i) throws IOException;
+
+		/**
+		 * Explore all the extensions of a prefix
+		 * @param prefix the prefix
+		 * @param prefixLength the prefix length
+		 * @param pUL the utility list of the prefix
+		 * @param ULs the utility lists of the extensions of the prefix
+		 * @throws IOException if an error occurs
+		 */
+		void exploreSubtree(int[] prefix, int prefixLength, CompactUtilityList pUL,
+				List<CompactUtilityList> ULs) throws IOException;
+
+		/**
+		 * Receive an itemset found by a worker. This method is called by the engine
+		 * on the thread that called {@link ParallelUtilityListMiner#mine}, in the order where
+		 * a serial execution would have found the itemsets.
+		 * @param prefix an array containing the items of the prefix
+		 * @param prefixLength the prefix length
+		 * @param item the item appended to the prefix
+		 * @param utility the utility of the itemset
+		 * @throws IOException if an error occurs while writing the itemset
+		 */
+		void emitItemset(int[] prefix, int prefixLength, int item, long utility) throws IOException;
+
+		/**
+		 * Add the statistics of a worker to the statistics of this algorithm
+		 * @param worker the worker
+		 */
+		void addStatistics(Miner worker);
+	}
+
+	/**
+	 * A task of the fork-join pool, which explores either an item of the first level of
+	 * the search tree or all the extensions of a prefix.
+	 */
+	static class MiningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		// the algorithm that created this task
+		private final Miner master;
+		// the utility list of the prefix (null for the first level)
+		private final CompactUtilityList pUL;
+		// the utility lists of the extensions of the prefix
+		private final List<CompactUtilityList> ULs;
+		// the position of the item to explore at the first level, or -1 to explore the whole sub-tree
+		private final int itemIndex;
+		// a copy of the prefix
+		private final int[] prefix;
+		private final int prefixLength;
+
+		// the itemsets found by this task
+		private final HUIItemsetBuffer output = new HUIItemsetBuffer();
+
+		/**
+		 * Constructor
+		 * @param master the algorithm that creates this task
+		 * @param pUL the utility list of the prefix
+		 * @param ULs the utility lists of the extensions of the prefix
+		 * @param itemIndex the position of the item to explore or -1 to explore the whole sub-tree
+		 * @param prefix the current prefix (it is copied)
+		 * @param prefixLength the prefix length
+		 */
+		MiningTask(Miner master, CompactUtilityList pUL, List<CompactUtilityList> ULs, int itemIndex,
+				int[] prefix, int prefixLength) {
+			this.master = master;
+			this.pUL = pUL;
+			this.ULs = ULs;
+			this.itemIndex = itemIndex;
+			this.prefix = new int[prefixLength];
+			System.arraycopy(prefix, 0, this.prefix, 0, prefixLength);
+			this.prefixLength = prefixLength;
+		}
+
+		@Override
+		protected void compute() {
+			Miner worker = master.createWorker(output);
+			try {
+				if(itemIndex >= 0) {
+					worker.exploreFirstLevelItem(ULs, itemIndex);
+				}else {
+					worker.exploreSubtree(prefix, prefixLength, pUL, ULs);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				master.addStatistics(worker);
+			}
+		}
+
+		/**
+		 * Get the itemsets found by this task
+		 * @return the buffer containing the itemsets
+		 */
+		HUIItemsetBuffer getOutput() {
+			return output;
+		}
+	}
+
+	/**
+	 * Explore the search tree using several threads.
+	 * @param master the algorithm that will receive all the itemsets found
+	 * @param ULs the utility lists of the items (they are only read during the mining)
+	 * @param threadCount the number of threads
+	 * @param bufferSize the size of a buffer that can store any itemset
+	 * @throws IOException if an error occurs while writing the itemsets
+	 */
+	static void mine(Miner master, List<CompactUtilityList> ULs, int threadCount, int bufferSize)
+			throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			// Create a task for each item, in the order used by the serial algorithm
+			List<MiningTask> tasks = new ArrayList<MiningTask>(ULs.size());
+			int[] emptyPrefix = new int[0];
+			for(int i = 0; i < ULs.size(); i++) {
+				MiningTask task = new MiningTask(master, null, ULs, i, emptyPrefix, 0);
+				tasks.add(task);
+				pool.execute(task);
+			}
+
+			// Wait for each task in order and send its itemsets to the master as soon as it is done
+			int[] itemsetBuffer = new int[bufferSize];
+			for(int i = 0; i < tasks.size(); i++) {
+				MiningTask task = tasks.get(i);
+				task.join();
+				task.getOutput().replay(master, itemsetBuffer);
+				// release the memory used by this task
+				tasks.set(i, null);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Fork a sub-task for exploring the extensions of a prefix. The position of the sub-task is
+	 * recorded in the output buffer of the worker that forks it. The worker must not reuse
+	 * the utility lists given to the sub-task.
+	 * @param master the algorithm that will create the worker of the sub-task
+	 * @param output the buffer of the worker that forks the sub-task
+	 * @param prefix the prefix
+	 * @param prefixLength the prefix length
+	 * @param pUL the utility list of the prefix
+	 * @param ULs the utility lists of the extensions of the prefix
+	 */
+	static void forkSubtree(Miner master, HUIItemsetBuffer output, int[] prefix, int prefixLength,
+			CompactUtilityList pUL, List<CompactUtilityList> ULs) {
+		MiningTask task = new MiningTask(master, pUL, ULs, -1, prefix, prefixLength);
+		output.addSubTask(task);
+		task.fork();
+	}
+}
@@ -20,11 +20,11 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 /**
  * This class represents a UtilityList as used by the FCHM algorithm.
  *
- * @see AlgoHUIMiner
- * @see Element
+ * @see AlgoFCHM
+ * @see CompactUtilityList
  * @author Philippe Fournier-Viger
  */
-class UtilityListFCHM  extends UtilityList{
+class UtilityListFCHM  extends CompactUtilityList{
 
 	
 	BitSetSupport bitsetDisjunctiveTIDs = null;
@@ -44,6 +44,6 @@ class UtilityListFCHM  extends UtilityList{
 	 * @return the bond
 	 */
 	public double getBond() {
-		return elements.size() / ((double)bitsetDisjunctiveTIDs.support);
+		return size / ((double)bitsetDisjunctiveTIDs.support);
 	}
 }
@@ -17,40 +17,57 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
 
-
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * This class represents a UtilityList as used by the FHN algorithm.
  *
- * @see AlgoHUIMiner
- * @see ElementFHN
+ * @see AlgoFHN
+ * @see CompactUtilityList
  * @author Philippe Fournier-Viger
  */
-public class UtilityListFHN extends UtilityList{
+public class UtilityListFHN extends CompactUtilityList{
 
 	// the sum of iutil values of negative items
 	long  sumINutils = 0;
 	
-	// the list of elements in this utility list
-	public List<ElementFHN> elements = new ArrayList<ElementFHN>();
+	// the utility of negative items in each transaction (the fourth column of this utility list)
+	long[] inutils = new long[tids.length];
  
 	/**
 	 * Constructor
 	 * @param item the last item of the itemset represented by this utility list
 	 */
-	public UtilityListFHN(Integer item) {
+	public UtilityListFHN(int item) {
 		super(item);
 	}
 
 	/**
 	 * Method to add an element to this utility list and update the sums at the same time.
+	 * @param tid the tid of the transaction
+	 * @param iutil the utility of positive items in this transaction
+	 * @param inutil the utility of negative items in this transaction
+	 * @param rutil the remaining utility in this transaction
 	 */
-	public void addElement(ElementFHN element){
-		sumIutils += element.iutils;
-		sumRutils += element.rutils;
-		sumINutils += element.inutils;
-		elements.add(element);
+	public void addElement(int tid, long iutil, long inutil, long rutil){
+		// the inutil column is written first because the base class increases the size
+		if(size == inutils.length){
+			grow(size * 2);
+		}
+		inutils[size] = inutil;
+		sumINutils += inutil;
+		addElement(tid, iutil, rutil);
+	}
+
+	@Override
+	protected void grow(int capacity){
+		super.grow(capacity);
+		inutils = Arrays.copyOf(inutils, capacity);
+	}
+
+	@Override
+	public void reset(int item){
+		super.reset(item);
+		sumINutils = 0;
 	}
 }
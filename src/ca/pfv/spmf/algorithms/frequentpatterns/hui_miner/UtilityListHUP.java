@@ -17,19 +17,18 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
 
-
+import java.util.Arrays;
 
 /**
  * This class represents a Partitioned Utility List as used by the HUP-Miner algorithm.
  *
  * @see AlgoHUPMiner
- * @see UtilityList
- * @see Element
+ * @see CompactUtilityList
  * @author Philippe Fournier-Viger
  */
-class UtilityListHUP extends UtilityList {
+class UtilityListHUP extends CompactUtilityList {
 	/** this variable stores the sum of SU+RU for each partition */
-	int[] partitionSURU;
+	long[] partitionSURU;
 	 
 	/**
 	 * Constructor
@@ -38,23 +37,29 @@ class UtilityListHUP extends UtilityList {
 	 */
 	public UtilityListHUP(int item, int k){
 		super(item);
-		this.partitionSURU = new int[k];
+		this.partitionSURU = new long[k];
 	}
 	
 	/**
 	 * Method to add an element to this utility list and update the sums at the same time.
-	 * @param element the element to be added
+	 * @param tid the tid of the transaction
+	 * @param iutil the utility of the itemset in this transaction
+	 * @param rutil the remaining utility in this transaction
 	 * @param partitionSize the size of the partition
 	 */
-	public void addElement(Element element, int partitionSize){
+	public void addElement(int tid, long iutil, long rutil, int partitionSize){
 		
-		sumIutils += element.iutils;
-		sumRutils += element.rutils;
-		elements.add(element);
+		addElement(tid, iutil, rutil);
 		
 		// update the sum of utility and remaining utility for the partition
 		// corresponding to this element
-		int partition = element.tid / partitionSize;
-		partitionSURU[partition] += element.iutils + element.rutils;
+		int partition = tid / partitionSize;
+		partitionSURU[partition] += iutil + rutil;
+	}
+
+	@Override
+	public void reset(int item){
+		super.reset(item);
+		Arrays.fill(partitionSURU, 0);
 	}
 }
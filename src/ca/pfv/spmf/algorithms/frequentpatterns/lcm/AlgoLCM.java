@@ -4,10 +4,12 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.ItemsetSink;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -53,6 +55,12 @@ public class AlgoLCM {
 	// object to write the output file
 	BufferedWriter writer = null;
 	
+	// the object receiving the itemsets that are found, if the user want them
+	// to be passed to that object rather than kept into memory
+	private ItemsetSink itemsetSink = null;
+	// buffer used to sort an itemset before it is passed to the ItemsetSink
+	private int[] itemsetOutputBuffer = new int[0];
+	
 	// the number of frequent itemsets found (for
 	// statistics)
 	private int frequentCount; 
@@ -89,6 +97,10 @@ public class AlgoLCM {
 		// create object for writing the output file
 		if(outputPath != null) {
 			writer = new BufferedWriter(new FileWriter(outputPath));
+		}else if(itemsetSink != null) {
+			// if the user choose to pass the itemsets to an ItemsetSink
+			writer = null;
+	        this.closedFrequentItemsets = null;
 		}else {
 			// if the user choose to save to memory
 			writer = null;
@@ -414,8 +426,19 @@ public class AlgoLCM {
         if(!itemset.isEmpty()) {
             frequentCount++;
             
+        	// if the itemset should be passed to an ItemsetSink
+        	if(writer == null && itemsetSink != null) {
+        		// copy the itemset in the output buffer and sort items according to lexical ordering
+        		if(itemsetOutputBuffer.length < itemset.size()) {
+        			itemsetOutputBuffer = new int[itemset.size() * 2];
+        		}
+        		for (int i = 0; i < itemset.size(); i++) {
+        			itemsetOutputBuffer[i] = itemset.get(i);
+        		}
+        		Arrays.sort(itemsetOutputBuffer, 0, itemset.size());
+        		itemsetSink.itemsetFound(itemsetOutputBuffer, itemset.size(), support);
+        	}else if(writer == null) {
         	// if save to memory
-        	if(writer == null) {
         		// The following line is not too optimized since
         		// we convert an itemset as List<Integer> to int[]
         		// but this cost is still quite small, so we leave it like 
@@ -445,6 +468,16 @@ public class AlgoLCM {
 
  
  
+    /**
+     * Set an object that will receive each frequent closed itemset as soon as it is found, when
+     * no output file path is given to runAlgorithm(). The itemsets are then not kept into
+     * memory and runAlgorithm() returns null.
+     * @param itemsetSink the object receiving the itemsets, or null to keep them into memory (default)
+     */
+    public void setItemsetSink(ItemsetSink itemsetSink) {
+    	this.itemsetSink = itemsetSink;
+    }
+
     /**
      * Print statistics about the latest execution of the algorithm.
      */
@@ -28,7 +28,7 @@ public class MemoryLogger {
 		mMemoryUsage.clear();
 	}
 	
-	public static void addUpdate() {
+	public static synchronized void addUpdate() {
 		mMemoryUsage.add(getUsedMemory());
 	}
 	
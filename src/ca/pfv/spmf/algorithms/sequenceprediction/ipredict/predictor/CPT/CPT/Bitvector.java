@@ -83,10 +83,20 @@ public class Bitvector {
 		return cardinality;
 	}
 
-	// set a bit to 1 and increment the cardinality by 1
+	// set a bit to 1 and increment the cardinality by 1 (if the bit was 0)
 	public void setBitAndIncrementCardinality(int i) {
-		bitset.set(i);
-		cardinality++;
+		if(bitset.get(i) == false) {
+			bitset.set(i);
+			cardinality++;
+		}
+	}
+
+	// set a bit to 0 and decrement the cardinality by 1 (if the bit was 1)
+	public void clearBitAndDecrementCardinality(int i) {
+		if(bitset.get(i)) {
+			bitset.clear(i);
+			cardinality--;
+		}
 	}
 	
 	// FOR DEBUGGING
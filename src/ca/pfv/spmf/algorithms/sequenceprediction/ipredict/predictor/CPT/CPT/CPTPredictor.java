@@ -29,6 +29,10 @@ import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.predictor.Predictor;
 /**
  * CPT - Compact Prediction Tree 
  * 1st iteration from  ADMA 2013, with speed enhancement
+ * 
+ * Once trained, the model can be updated with new sequences (see update()), without being trained again.
+ * If the parameter "trainingWindow" is set, the model only keeps the last trainingWindow sequences that were
+ * added: when a new sequence is added, the oldest one is removed from the model.
  */
 public class CPTPredictor extends Predictor {
 
@@ -41,6 +45,8 @@ public class CPTPredictor extends Predictor {
 	
 	private long nodeNumber; //number of node in the prediction tree
 	
+	private int nextSeqId; //id given to the next sequence added to the prediction tree
+	
 	public Paramable parameters;
 	
 	public CPTPredictor() {
@@ -371,58 +377,18 @@ public class CPTPredictor extends Predictor {
 	public Boolean Train(List<Sequence> trainingSequences) {
 		
 		nodeNumber = 0;
-		int seqId = 0; //current sequence from database
+		nextSeqId = 0;
 		Root = new PredictionTree();
 		LT = new HashMap<Integer, PredictionTree>();
 		II = new HashMap<Integer, Bitvector>();
 		
 		//Logging memory usage
 		MemoryLogger.addUpdate();
-			
-		//Slicing sequences, so no sequence has a length > maxTreeHeight
-		List<Sequence> newTrainingSet = new ArrayList<Sequence>();
-		for(Sequence seq : trainingSequences) {
-			
-			if(seq.size() > parameters.paramInt("splitLength") && parameters.paramInt("splitMethod") > 0) {
-				if(parameters.paramInt("splitMethod") == 1)
-					newTrainingSet.addAll(CPTHelper.sliceBasic(seq, parameters.paramInt("splitLength")));
-				else
-					newTrainingSet.addAll(CPTHelper.slice(seq, parameters.paramInt("splitLength")));
-			}else{
-				newTrainingSet.add(seq);
-			}	
-		}
-		
 		
 		//For each line (sequence) in file
-		for(Sequence curSeq : newTrainingSet) {
-			
-			PredictionTree curNode = Root;
-			
-			//for each item in this sequence
-			for(Item it : curSeq.getItems()) {
-				
-				//if item is not in Inverted Index then we add it
-				if(II.containsKey(it.val) == false) {
-					Bitvector tmpBitset = new Bitvector();
-					II.put(it.val, tmpBitset);
-				}
-				//updating Inverted Index with seqId for this Item
-				
-				II.get(it.val).setBitAndIncrementCardinality(seqId); 
-				
-				//if item is not in prediction tree then we add it
-				if(curNode.hasChild(it) == false) {
-					curNode.addChild(it);
-					nodeNumber++;
-				}
-				curNode = curNode.getChild(it);
-			}
-			
-			LT.put(seqId, curNode); //adding <sequence id, last node in sequence>
-			seqId++; //increment sequence id number
+		for(Sequence seq : trainingSequences) {
+			addSequence(seq);
 		}
-
 		
 		
 		/**
@@ -447,6 +413,124 @@ public class CPTPredictor extends Predictor {
 		return true;
 	}
 	
+	/**
+	 * Adds a sequence to the trained model, without training it again.
+	 * If the parameter "trainingWindow" is set and the model already has trainingWindow sequences,
+	 * the oldest sequence is removed from the model.
+	 * @param sequence the new sequence
+	 * @return true on success
+	 */
+	public Boolean update(Sequence sequence) {
+		addSequence(sequence);
+		return true;
+	}
+	
+	/**
+	 * Adds several sequences to the trained model, without training it again (see update()).
+	 * @param sequences the new sequences
+	 * @return true on success
+	 */
+	public Boolean updateAll(List<Sequence> sequences) {
+		for(Sequence sequence : sequences) {
+			addSequence(sequence);
+		}
+		return true;
+	}
+	
+	/**
+	 * Adds a sequence to the prediction tree, the inverted index and the lookup table,
+	 * after slicing it if needed
+	 * @param seq the sequence
+	 */
+	private void addSequence(Sequence seq) {
+		
+		//Slicing sequences, so no sequence has a length > maxTreeHeight
+		if(seq.size() > parameters.paramInt("splitLength") && parameters.paramInt("splitMethod") > 0) {
+			List<Sequence> slices;
+			if(parameters.paramInt("splitMethod") == 1)
+				slices = CPTHelper.sliceBasic(seq, parameters.paramInt("splitLength"));
+			else
+				slices = CPTHelper.slice(seq, parameters.paramInt("splitLength"));
+			for(Sequence slice : slices) {
+				insertSequence(slice);
+			}
+		}else{
+			insertSequence(seq);
+		}
+	}
+	
+	/**
+	 * Inserts a sequence in the prediction tree, the inverted index and the lookup table.
+	 * If the model has a window of sequences, the sequence takes the id of the oldest
+	 * sequence, which is removed first.
+	 * @param curSeq the sequence
+	 */
+	private void insertSequence(Sequence curSeq) {
+		
+		int seqId = nextSeqId;
+		if(LT.containsKey(seqId)) {
+			removeSequence(seqId);
+		}
+		int windowSize = parameters.paramIntOrDefault("trainingWindow", 0);
+		nextSeqId = (windowSize > 0) ? (seqId + 1) % windowSize : seqId + 1;
+		
+		PredictionTree curNode = Root;
+		
+		//for each item in this sequence
+		for(Item it : curSeq.getItems()) {
+			
+			//if item is not in Inverted Index then we add it
+			if(II.containsKey(it.val) == false) {
+				Bitvector tmpBitset = new Bitvector();
+				II.put(it.val, tmpBitset);
+			}
+			//updating Inverted Index with seqId for this Item
+			
+			II.get(it.val).setBitAndIncrementCardinality(seqId); 
+			
+			//if item is not in prediction tree then we add it
+			if(curNode.hasChild(it) == false) {
+				curNode.addChild(it);
+				nodeNumber++;
+			}
+			curNode = curNode.getChild(it);
+			curNode.Support++;
+		}
+		
+		LT.put(seqId, curNode); //adding <sequence id, last node in sequence>
+	}
+	
+	/**
+	 * Removes a sequence from the prediction tree, the inverted index and the lookup table.
+	 * The nodes that are not used by another sequence are removed from the tree.
+	 * @param seqId the id of the sequence
+	 */
+	private void removeSequence(int seqId) {
+		
+		PredictionTree curNode = LT.remove(seqId);
+		
+		//going up the branch of the sequence
+		while(curNode.Parent != null) {
+			
+			//updating Inverted Index, and removing the items that are not in any sequence anymore
+			Bitvector bitset = II.get(curNode.Item.val);
+			if(bitset != null) {
+				bitset.clearBitAndDecrementCardinality(seqId);
+				if(bitset.cardinality() == 0) {
+					II.remove(curNode.Item.val);
+				}
+			}
+			
+			PredictionTree parent = curNode.Parent;
+			curNode.Support--;
+			if(curNode.Support == 0) {
+				parent.removeChild(curNode);
+				nodeNumber--;
+			}
+			curNode = parent;
+		}
+	}
+	
 	/**
 	 * Return the number of node in the prediction tree
 	 */
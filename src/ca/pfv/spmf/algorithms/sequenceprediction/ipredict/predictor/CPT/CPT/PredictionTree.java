@@ -43,6 +43,10 @@ public class PredictionTree {
 		Children.add(newChild);
 	}
 	
+	public void removeChild(PredictionTree child) {
+		Children.remove(child);
+	}
+	
 	public Boolean hasChild(Item target) {
 		
 		for(PredictionTree child : Children) {
@@ -89,6 +89,13 @@ public class Bitvector {
 			cardinality++;
 		}
 	}
+
+	public void clearBit(int i) {
+		if(bitset.get(i)) {
+			bitset.clear(i);
+			cardinality--;
+		}
+	}
 	
 	// FOR DEBUGGING
 	public String toString(){
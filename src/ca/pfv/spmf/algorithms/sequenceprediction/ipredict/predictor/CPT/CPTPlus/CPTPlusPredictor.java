@@ -30,6 +30,12 @@ import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.predictor.Predictor;
  * A predictor based on CPT with three additional strategies; CCF (compression), CBS (compression) and PNR (prediction speed)
  *
  * Source: T. Gueniche, P. Fournier-Viger and V. S. Tseng, "CPT+: Decreasing the time/space complexity of the Compact Prediction Tree" In the Pacific-Asia conference on Knowledge Discovery And Data mining (PAKDD 2015).
+ * 
+ * Once trained, the model can be updated with new sequences (see update()), without being trained again.
+ * The new sequences are encoded with the itemsets found by the CCF strategy during training, and if CBS is
+ * activated, the branch of each new sequence is collapsed when it is added. If the parameter "trainingWindow" is set,
+ * the model only keeps the last trainingWindow sequences that were added: when a new sequence is added,
+ * the oldest one is removed from the model.
  */
 public class CPTPlusPredictor extends Predictor {
 
@@ -55,6 +61,17 @@ public class CPTPlusPredictor extends Predictor {
 	 */
 	protected long nodeNumber;
 	
+	/**
+	 * id given to the next sequence added to the prediction tree
+	 */
+	protected int nextSeqId;
+	
+	/**
+	 * Number of nodes using each itemset added to the encoder by the CBS strategy
+	 * (such an itemset is removed from the encoder when no node uses it anymore)
+	 */
+	protected Map<Integer, Integer> collapsedItemsets;
+	
 	/**
 	 * Flag for the CCF Strategy (default value)
 	 */
@@ -112,16 +129,7 @@ public class CPTPlusPredictor extends Predictor {
 	@Override
 	public Boolean Train(List<Sequence> trainingSequences) {
 		
-		Root = new PredictionTree();
-		LT = new HashMap<Integer, PredictionTree>();
-		II = new HashMap<Integer, Bitvector>();
-		encoder = new Encoder();
-		((CPTHelper) helper).setEncoded(encoder);
-		nodeNumber = 0;
-		
-		int seqId = 0;
-		PredictionTree curNode;
-
+		reset();
 		
 		//CCF Strategy
 		//Identifying the frequent sequential itemsets
@@ -139,53 +147,7 @@ public class CPTPlusPredictor extends Predictor {
 
 		//for each training sequence
 		for(Sequence seq : trainingSequences) {
-			
-			//slicing the sequence if needed
-			if(parameters.paramInt("splitMethod") > 0) {
-				seq = helper.keepLastItems(seq, parameters.paramInt("splitLength"));
-			}
-
-			//Generating the compressed version of this sequence
-			Sequence seqCompressed = new Sequence(seq);
-			seqCompressed = encoder.encode(seqCompressed);
-			
-			//resetting node pointer to root node
-			curNode = Root;
-
-			//for each item in the compressed sequence
-			for(Item itemCompressed : seqCompressed.getItems()) {
-						
-				//decoding the current item the encoded sequence
-				List<Item> itemset = encoder.getEntry(itemCompressed.val);
-				
-				//II update
-				for(Item item : itemset) {
-				
-					//adding the item in the Inverted Index if needed
-					if(II.containsKey(item.val) == false) {
-						Bitvector tmpBitset = new Bitvector();
-						II.put(item.val, tmpBitset);
-					}
-	
-					//updating Inverted Index with seqId for this Item
-					II.get(item.val).setBit(seqId);
-				}
-				
-				//if this itemCompressed is not a child of the current node, we add him
-				if(curNode.hasChild(itemCompressed) == false) {
-					curNode.addChild(itemCompressed);
-					nodeNumber++;
-					curNode = curNode.getChild(itemCompressed);
-				}
-				//if this itemCompressed is already a child of the current node
-				else {
-					curNode = curNode.getChild(itemCompressed);
-				}
-			}
-
-			//adding the sequence id in the Lookup Table
-			LT.put(seqId, curNode); //adding <sequence id, last node in sequence>
-			seqId++; //increment sequence id number
+			insertSequence(seq);
 		}
 		
 
@@ -197,6 +159,160 @@ public class CPTPlusPredictor extends Predictor {
 		return true;
 	}
 	
+	/**
+	 * Adds a sequence to the trained model, without training it again.
+	 * If the parameter "trainingWindow" is set and the model already has trainingWindow sequences,
+	 * the oldest sequence is removed from the model.
+	 * @param sequence the new sequence
+	 * @return true on success
+	 */
+	public Boolean update(Sequence sequence) {
+		
+		//the model was never trained
+		if(encoder == null) {
+			reset();
+		}
+		
+		PredictionTree leaf = insertSequence(sequence);
+		
+		//collapsing the branch of this sequence
+		if(parameters.paramBoolOrDefault("CBS", CBS)) {
+			collapseBranch(leaf);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Adds several sequences to the trained model, without training it again (see update()).
+	 * @param sequences the new sequences
+	 * @return true on success
+	 */
+	public Boolean updateAll(List<Sequence> sequences) {
+		for(Sequence sequence : sequences) {
+			update(sequence);
+		}
+		return true;
+	}
+	
+	/**
+	 * Creates an empty model
+	 */
+	protected void reset() {
+		Root = new PredictionTree();
+		LT = new HashMap<Integer, PredictionTree>();
+		II = new HashMap<Integer, Bitvector>();
+		encoder = new Encoder();
+		((CPTHelper) helper).setEncoded(encoder);
+		nodeNumber = 0;
+		nextSeqId = 0;
+		collapsedItemsets = new HashMap<Integer, Integer>();
+	}
+	
+	/**
+	 * Inserts a sequence in the prediction tree, the inverted index and the lookup table.
+	 * If the model has a window of sequences, the sequence takes the id of the oldest
+	 * sequence, which is removed first.
+	 * @param seq the sequence
+	 * @return the last node of the sequence in the prediction tree
+	 */
+	protected PredictionTree insertSequence(Sequence seq) {
+		
+		int seqId = nextSeqId;
+		if(LT.containsKey(seqId)) {
+			removeSequence(seqId);
+		}
+		int windowSize = parameters.paramIntOrDefault("trainingWindow", 0);
+		nextSeqId = (windowSize > 0) ? (seqId + 1) % windowSize : seqId + 1;
+		
+		//slicing the sequence if needed
+		if(parameters.paramInt("splitMethod") > 0) {
+			seq = helper.keepLastItems(seq, parameters.paramInt("splitLength"));
+		}
+
+		//Generating the compressed version of this sequence
+		Sequence seqCompressed = new Sequence(seq);
+		seqCompressed = encoder.encode(seqCompressed);
+		
+		//resetting node pointer to root node
+		PredictionTree curNode = Root;
+
+		//for each item in the compressed sequence
+		for(Item itemCompressed : seqCompressed.getItems()) {
+					
+			//decoding the current item the encoded sequence
+			List<Item> itemset = encoder.getEntry(itemCompressed.val);
+			
+			//II update
+			for(Item item : itemset) {
+			
+				//adding the item in the Inverted Index if needed
+				if(II.containsKey(item.val) == false) {
+					Bitvector tmpBitset = new Bitvector();
+					II.put(item.val, tmpBitset);
+				}
+
+				//updating Inverted Index with seqId for this Item
+				II.get(item.val).setBit(seqId);
+			}
+			
+			//if this itemCompressed is not a child of the current node, we add him
+			if(curNode.hasChild(itemCompressed) == false) {
+				curNode.addChild(itemCompressed);
+				nodeNumber++;
+				curNode = curNode.getChild(itemCompressed);
+				
+				//an itemset found by CBS can be used to encode a new sequence
+				Integer nodeCount = collapsedItemsets.get(itemCompressed.val);
+				if(nodeCount != null) {
+					collapsedItemsets.put(itemCompressed.val, nodeCount + 1);
+				}
+			}
+			//if this itemCompressed is already a child of the current node
+			else {
+				curNode = curNode.getChild(itemCompressed);
+			}
+			curNode.Support++;
+		}
+
+		//adding the sequence id in the Lookup Table
+		LT.put(seqId, curNode); //adding <sequence id, last node in sequence>
+		return curNode;
+	}
+	
+	/**
+	 * Removes a sequence from the prediction tree, the inverted index and the lookup table.
+	 * The nodes that are not used by another sequence are removed from the tree.
+	 * @param seqId the id of the sequence
+	 */
+	protected void removeSequence(int seqId) {
+		
+		PredictionTree curNode = LT.remove(seqId);
+		
+		//going up the branch of the sequence
+		while(curNode != Root) {
+			
+			//updating the Inverted Index, and removing the items that are not in any sequence anymore
+			for(Item item : encoder.getEntry(curNode.Item.val)) {
+				Bitvector bitset = II.get(item.val);
+				if(bitset != null) {
+					bitset.clearBit(seqId);
+					if(bitset.cardinality() == 0) {
+						II.remove(item.val);
+					}
+				}
+			}
+			
+			PredictionTree parent = curNode.Parent;
+			curNode.Support--;
+			if(curNode.Support == 0) {
+				parent.removeChild(curNode);
+				nodeNumber--;
+				releaseItemset(curNode.Item.val);
+			}
+			curNode = parent;
+		}
+	}
 	
 	@Override
 	public Sequence Predict(Sequence target) {
@@ -352,63 +468,94 @@ public class CPTPlusPredictor extends Predictor {
 	 */
 	protected void pathCollapse() {
 		
-		int nodeSaved = 0;
-		
 		//for each sequences registered in the Lookup Table (LT)
 		for(Entry<Integer, PredictionTree> entry : LT.entrySet()) {
+			collapseBranch(entry.getValue());
+		}
+	}
+	
+	/**
+	 * Replaces the direct branch ending with a leaf by a single node (see pathCollapse()).
+	 * The branch goes up from the leaf while the parent node has a single child
+	 * and is not the last node of another sequence.
+	 * @param leaf the last node of a sequence
+	 */
+	protected void collapseBranch(PredictionTree leaf) {
+		
+		//if this leaf is not a true leaf
+		if(leaf == Root || leaf.getChildren().size() > 0) {
+			return;
+		}
+		
+		//while the path is singular (starting from the leaf)
+		PredictionTree top = leaf;
+		List<Item> itemset = new ArrayList<Item>(encoder.getEntry(leaf.Item.val));
+		int pathLength = 1;
+		while(top.Parent != Root && top.Parent.getChildren().size() == 1 && top.Parent.Support == leaf.Support) {
+			top = top.Parent;
 			
-			PredictionTree cur = entry.getValue();
-			PredictionTree leaf = cur;
-			PredictionTree last = null;
-			List<Item> itemset = new ArrayList<Item>();
-			int pathLength = 0;
-			boolean singlePath = true;
+			List<Item> tmp = itemset;
+			itemset = new ArrayList<Item>();
+			itemset.addAll(encoder.getEntry(top.Item.val));
+			itemset.addAll(tmp);
 			
-			//if this cur is a true leaf
-			if(cur.getChildren().size() == 0) {
-				
-				//while the path is singular (starting from the leaf)
-				while(singlePath == true) {
-					
-					//if the current node has multiple children
-					if(cur.getChildren().size() > 1 || cur == null) {
-						
-						if(pathLength != 1) {
-							//updating the leaf to be a child of cur
-							Integer newId = encoder.getIdorAdd(itemset);
-							leaf.Item = new Item(newId);
-							leaf.Parent = cur;
-							
-							//updating cur to have the leaf has a child
-							cur.removeChild(last.Item);
-							cur.addChild(leaf);
-							
-							//saving the number of node saved
-							nodeSaved += pathLength - 1;
-						}
-						singlePath = false;
-					}
-					//this node has only one child and so it is added to the itemset 
-					else {
-						List<Item> curItemset = encoder.getEntry(cur.Item.val);
-						
-						List<Item> tmp = itemset;
-						itemset = new ArrayList<Item>();
-						itemset.addAll(curItemset);
-						itemset.addAll(tmp);
-						
-						cur.getChildren().clear();
-						
-						pathLength++;
-						
-						last = cur;
-						cur = cur.Parent;
-					}
-				}			
-			}
+			pathLength++;
 		}
 		
-		nodeNumber -= nodeSaved;
+		if(pathLength > 1) {
+			//the nodes of the branch other than the leaf are removed
+			PredictionTree cur = top.Parent;
+			cur.removeChild(top);
+			for(PredictionTree node = leaf; node != cur; node = node.Parent) {
+				releaseItemset(node.Item.val);
+			}
+			
+			//updating the leaf to be a child of cur
+			leaf.Item = new Item(acquireItemset(itemset));
+			cur.addChild(leaf);
+			
+			//saving the number of node saved
+			nodeNumber -= pathLength - 1;
+		}
+	}
+	
+	/**
+	 * Gets the id of an itemset found by the CBS strategy, after adding it to the encoder if needed
+	 * @param itemset the itemset
+	 * @return the id of the itemset in the encoder
+	 */
+	protected int acquireItemset(List<Item> itemset) {
+		Integer id = encoder.getId(itemset);
+		if(id == null) {
+			id = encoder.addEntry(itemset);
+			collapsedItemsets.put(id, 1);
+		}
+		else {
+			Integer nodeCount = collapsedItemsets.get(id);
+			if(nodeCount != null) {
+				collapsedItemsets.put(id, nodeCount + 1);
+			}
+		}
+		return id;
+	}
+	
+	/**
+	 * Indicates that a node does not use an itemset anymore. An itemset found by the
+	 * CBS strategy is removed from the encoder when no node uses it.
+	 * @param id the id of the itemset in the encoder
+	 */
+	protected void releaseItemset(int id) {
+		Integer nodeCount = collapsedItemsets.get(id);
+		if(nodeCount == null) {
+			return;
+		}
+		if(nodeCount == 1) {
+			collapsedItemsets.remove(id);
+			encoder.removeEntry(id);
+		}
+		else {
+			collapsedItemsets.put(id, nodeCount - 1);
+		}
 	}
 
 	@Override
@@ -428,6 +575,15 @@ public class CPTPlusPredictor extends Predictor {
 		return sizePredictionTree + sizeInvertedIndex + sizeLookupTable;
 	}
 
+	/**
+	 * Create a read-only copy of this trained model that can make predictions
+	 * faster and from several threads at the same time.
+	 * @return the compiled model
+	 */
+	public CompiledCPTPlusModel compile() {
+		return new CompiledCPTPlusModel(this);
+	}
+
 	/**
 	 * Obtain the count table used for the latest prediction 
 	 * made by the model.
@@ -0,0 +1,657 @@
+package ca.pfv.spmf.algorithms.sequenceprediction.ipredict.predictor.CPT.CPTPlus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.database.Item;
+import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.database.Sequence;
+import ca.pfv.spmf.datastructures.bitsets.Bitsets;
+/*
+ * This file is copyright (c) Ted Gueniche
+ * <ted.gueniche@gmail.com>
+ *
+ * This file is part of the IPredict project
+ * (https://github.com/tedgueniche/IPredict).
+ *
+ * IPredict is distributed under The MIT License (MIT).
+ * You may obtain a copy of the License at
+ * https://opensource.org/licenses/MIT
+ */
+/**
+ * A read-only copy of a trained CPT+ model (see {@link CPTPlusPredictor}) that is optimized
+ * for making predictions, possibly from several threads at the same time.
+ * <br/><br/>
+ *
+ * The prediction tree, the lookup table and the inverted index are stored in arrays of int
+ * and long. The items are identified by their position in a sorted array of items, so that the
+ * inverted index and the count table are accessed by position rather than through a hash map.
+ * Each thread has its own scratch memory (count table, candidate subsequences, buffers),
+ * which is reused from one prediction to the next. Thus, after the first predictions of a thread,
+ * a prediction does not create objects (except for the Sequence returned by {@link #Predict(Sequence)}).
+ * <br/><br/>
+ *
+ * The predictions are the same as those made by the CPT+ model that was compiled.
+ * The model is not updated if the CPT+ model is trained again.
+ */
+public class CompiledCPTPlusModel {
+
+	/** the value returned by predict(int[]) when no prediction is made */
+	public static final int NO_PREDICTION = -1;
+
+	/** the maximum number of items after the matched items of a similar sequence that are added to the count table */
+	private static final int MAX_ITEMS_PER_SEQUENCE = 99;
+
+	/** the ratio between the two best scores of the count table that is required to make a prediction */
+	private static final double MIN_BEST_SCORE_RATIO = 1.002;
+
+	/** the tag of the compiled predictor */
+	private final String TAG;
+
+	/** the parameters of the noise reduction */
+	private final double minPredictionRatio;
+	private final double noiseRatio;
+
+	/** the items seen during training, sorted by value. An item is identified by its position in this array */
+	private final int[] items;
+
+	/** Inverted Index: for each item, the bitset of the training sequences containing it */
+	private final long[][] sequencesOfItem;
+
+	/** the number of training sequences containing each item */
+	private final int[] supportOfItem;
+
+	/** Prediction Tree: for each node, its parent (-1 if the parent is the root) */
+	private final int[] parentOfNode;
+
+	/** the items of the node i (decoded) are nodeItems[nodeItemStart[i]] to nodeItems[nodeItemStart[i+1]-1] */
+	private final int[] nodeItemStart;
+	private final int[] nodeItems;
+
+	/** Lookup Table: the last node of each training sequence (-1 for an empty sequence) */
+	private final int[] nodeOfSequence;
+
+	/** the largest number of nodes of a branch */
+	private final int maxDepth;
+
+	/** the largest number of items of a training sequence */
+	private final int maxSequenceLength;
+
+	/** the scratch memory of each thread */
+	private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
+
+	/**
+	 * Compile a trained CPT+ model
+	 * @param predictor the model
+	 */
+	public CompiledCPTPlusModel(CPTPlusPredictor predictor) {
+		if(predictor.encoder == null) {
+			throw new IllegalStateException("The CPT+ predictor must be trained before being compiled");
+		}
+		TAG = predictor.getTAG();
+		minPredictionRatio = predictor.parameters.paramDouble("minPredictionRatio");
+		noiseRatio = predictor.parameters.paramDouble("noiseRatio");
+
+		// the items, sorted by value
+		items = new int[predictor.II.size()];
+		int position = 0;
+		for(Integer item : predictor.II.keySet()) {
+			items[position++] = item;
+		}
+		Arrays.sort(items);
+
+		// the inverted index
+		int sequenceCount = predictor.LT.size();
+		int wordCount = Bitsets.wordCount(sequenceCount);
+		sequencesOfItem = new long[items.length][];
+		supportOfItem = new int[items.length];
+		for(int i = 0; i < items.length; i++) {
+			Bitvector bitvector = predictor.II.get(items[i]);
+			sequencesOfItem[i] = Arrays.copyOf(bitvector.bitset.toLongArray(), wordCount);
+			supportOfItem[i] = bitvector.cardinality();
+		}
+
+		// number the nodes of the branches of the training sequences
+		// (after the CBS strategy, some of these nodes are not children of their parent anymore)
+		Map<PredictionTree, Integer> nodeIds = new IdentityHashMap<PredictionTree, Integer>();
+		List<PredictionTree> nodes = new ArrayList<PredictionTree>();
+		nodeOfSequence = new int[sequenceCount];
+		for(int id = 0; id < sequenceCount; id++) {
+			PredictionTree leaf = predictor.LT.get(id);
+			nodeOfSequence[id] = (leaf == predictor.Root) ? -1 : nodeId(leaf, nodeIds, nodes, predictor.Root);
+		}
+
+		// encode the nodes
+		parentOfNode = new int[nodes.size()];
+		nodeItemStart = new int[nodes.size() + 1];
+		int nodeItemCount = 0;
+		for(PredictionTree node : nodes) {
+			nodeItemCount += predictor.encoder.getEntry(node.Item.val).size();
+		}
+		nodeItems = new int[nodeItemCount];
+		nodeItemCount = 0;
+		for(int i = 0; i < nodes.size(); i++) {
+			PredictionTree node = nodes.get(i);
+			parentOfNode[i] = (node.Parent == null || node.Parent == predictor.Root) ? -1 : nodeIds.get(node.Parent);
+			nodeItemStart[i] = nodeItemCount;
+			for(Item item : predictor.encoder.getEntry(node.Item.val)) {
+				nodeItems[nodeItemCount++] = Arrays.binarySearch(items, item.val);
+			}
+		}
+		nodeItemStart[nodes.size()] = nodeItemCount;
+
+		// the size of the longest branch and of the longest sequence
+		int depthMax = 0;
+		int lengthMax = 0;
+		for(int id = 0; id < sequenceCount; id++) {
+			int depth = 0;
+			int length = 0;
+			for(int node = nodeOfSequence[id]; node != -1; node = parentOfNode[node]) {
+				depth++;
+				length += nodeItemStart[node + 1] - nodeItemStart[node];
+			}
+			depthMax = Math.max(depthMax, depth);
+			lengthMax = Math.max(lengthMax, length);
+		}
+		maxDepth = depthMax;
+		maxSequenceLength = lengthMax;
+	}
+
+	/**
+	 * Get the id of a node, after giving an id to the node and its ancestors if needed
+	 * @param leaf the node
+	 * @param nodeIds the ids of the nodes
+	 * @param nodes the nodes, by id
+	 * @param root the root of the prediction tree
+	 * @return the id
+	 */
+	private static int nodeId(PredictionTree leaf, Map<PredictionTree, Integer> nodeIds, List<PredictionTree> nodes, PredictionTree root) {
+		for(PredictionTree node = leaf; node != null && node != root && nodeIds.containsKey(node) == false; node = node.Parent) {
+			nodeIds.put(node, nodes.size());
+			nodes.add(node);
+		}
+		return nodeIds.get(leaf);
+	}
+
+	/**
+	 * Get the predictor's TAG (unique string identifier)
+	 */
+	public String getTAG() {
+		return TAG;
+	}
+
+	/**
+	 * Get the number of nodes stored for the prediction tree
+	 */
+	public long size() {
+		return parentOfNode.length;
+	}
+
+	/**
+	 * Predict the next element in the given sequence. This method can be called by several threads at the same time.
+	 * @param target the sequence
+	 * @return a sequence containing the predicted item, or an empty sequence if no prediction is made
+	 */
+	public Sequence Predict(Sequence target) {
+		int[] sequence = new int[target.size()];
+		for(int i = 0; i < sequence.length; i++) {
+			sequence[i] = target.get(i).val;
+		}
+		Sequence predicted = new Sequence(-1);
+		int item = predict(sequence, sequence.length);
+		if(item != NO_PREDICTION) {
+			predicted.addItem(new Item(item));
+		}
+		return predicted;
+	}
+
+	/**
+	 * Predict the next item of a sequence of items. This method can be called by several threads at the same time.
+	 * @param sequence the items of the sequence
+	 * @param length the number of items of the sequence (the first "length" items of the array are used)
+	 * @return the predicted item, or NO_PREDICTION if no prediction is made
+	 */
+	public int predict(int[] sequence, int length) {
+		Scratch s = scratch.get();
+		s.startPrediction();
+
+		// convert the items to positions, and remove the items that were never seen before
+		s.ensurePoolCapacity(length);
+		s.ensureItemCapacity(length);
+		int targetSize = 0;
+		for(int i = 0; i < length; i++) {
+			int item = Arrays.binarySearch(items, sequence[i]);
+			if(item >= 0) {
+				s.pool[targetSize++] = item;
+			}
+		}
+		if(targetSize == 0) {
+			return NO_PREDICTION;
+		}
+		s.poolSize = targetSize;
+		s.enqueue(0, targetSize);
+
+		// minimum number of required prediction to ensure the best accuracy
+		int maxPredictionCount = 1 + (int) (targetSize * minPredictionRatio);
+		int predictionCount = 0;
+
+		// initial prediction with the whole sequence
+		updateCountTable(s, 0, targetSize);
+		if(bestItem(s) != -1) {
+			predictionCount++;
+		}
+
+		// while the min prediction count is not reached, remove noisy items from the subsequences
+		while(s.queueHead < s.queueSize && predictionCount < maxPredictionCount) {
+			int start = s.queueStart[s.queueHead];
+			int size = s.queueLength[s.queueHead];
+			s.queueHead++;
+
+			// if this subsequence has not been seen yet
+			if(s.addToSeen(start, size) == false) {
+				continue;
+			}
+
+			int noiseCount = findNoise(s, start, size);
+			for(int n = 0; n < noiseCount; n++) {
+				int noise = s.noise[n];
+
+				// create the candidate by removing the first appearance of the noisy item
+				s.ensurePoolCapacity(s.poolSize + size);
+				int candidateStart = s.poolSize;
+				int candidateSize = 0;
+				boolean removed = false;
+				for(int i = start; i < start + size; i++) {
+					if(removed == false && s.pool[i] == noise) {
+						removed = true;
+					}else {
+						s.pool[candidateStart + candidateSize++] = s.pool[i];
+					}
+				}
+
+				// keep the candidate in the queue if it can be reduced further
+				if(candidateSize > 1) {
+					s.poolSize += candidateSize;
+					s.enqueue(candidateStart, candidateSize);
+				}
+
+				// update the count table with this candidate, and do a prediction if it did something
+				if(updateCountTable(s, candidateStart, candidateSize) > 0 && bestItem(s) != -1) {
+					predictionCount++;
+				}
+			}
+		}
+
+		int best = bestItem(s);
+		return (best == -1) ? NO_PREDICTION : items[best];
+	}
+
+	/**
+	 * Find the items of a subsequence with the lowest support
+	 * @param s the scratch memory
+	 * @param start the position of the subsequence in the pool
+	 * @param size the number of items of the subsequence
+	 * @return the number of noisy items (they are stored in s.noise)
+	 */
+	private int findNoise(Scratch s, int start, int size) {
+		int noiseCount = (int) Math.floor(size * noiseRatio);
+
+		// if the noise count is 0, only the first item with the lowest support is noise
+		if(noiseCount <= 0) {
+			int noise = s.pool[start];
+			for(int i = start + 1; i < start + size; i++) {
+				if(supportOfItem[s.pool[i]] < supportOfItem[noise]) {
+					noise = s.pool[i];
+				}
+			}
+			s.noise[0] = noise;
+			return 1;
+		}
+
+		// otherwise, sort the items by decreasing support (stable insertion sort)
+		// and keep the last noiseCount items
+		noiseCount = Math.min(noiseCount, size);
+		int[] sorted = s.sorted;
+		for(int i = 0; i < size; i++) {
+			int item = s.pool[start + i];
+			int j = i - 1;
+			while(j >= 0 && supportOfItem[sorted[j]] < supportOfItem[item]) {
+				sorted[j + 1] = sorted[j];
+				j--;
+			}
+			sorted[j + 1] = item;
+		}
+		System.arraycopy(sorted, size - noiseCount, s.noise, 0, noiseCount);
+		return noiseCount;
+	}
+
+	/**
+	 * Update the count table with a subsequence. It finds the training sequences containing all the
+	 * items of that subsequence, and for each of them that was not used yet, the items following
+	 * the first appearance of all these items are added to the count table.
+	 * @param s the scratch memory
+	 * @param start the position of the subsequence in the pool
+	 * @param size the number of items of the subsequence
+	 * @return the number of training sequences that updated the count table
+	 */
+	private int updateCountTable(Scratch s, int start, int size) {
+		if(size == 0) {
+			return 0;
+		}
+
+		// intersection of the bitsets of the items
+		long[] similar = s.similar;
+		int first = s.pool[start];
+		System.arraycopy(sequencesOfItem[first], 0, similar, 0, similar.length);
+		int cardinality = supportOfItem[first];
+		for(int i = start + 1; i < start + size && cardinality > 0; i++) {
+			cardinality = Bitsets.and(similar, cardinality, sequencesOfItem[s.pool[i]], similar, 1);
+		}
+		if(cardinality <= 0) {
+			return 0;
+		}
+
+		int branchesUsed = 0;
+		for(int id = Bitsets.nextSetBit(similar, 0); id >= 0; id = Bitsets.nextSetBit(similar, id + 1)) {
+			if(s.branchStamp[id] == s.predictionStamp) {
+				continue;
+			}
+			s.branchStamp[id] = s.predictionStamp;
+
+			// the items of the subsequence, that must appear before the items added to the count table
+			int avoidStamp = s.nextAvoidStamp();
+			int remaining = 0;
+			for(int i = start; i < start + size; i++) {
+				if(s.avoidStamp[s.pool[i]] != avoidStamp) {
+					s.avoidStamp[s.pool[i]] = avoidStamp;
+					remaining++;
+				}
+			}
+
+			// update the count table with the items that follow them
+			int length = readSequence(s, id);
+			int count = 1;
+			for(int i = 0; i < length && count < MAX_ITEMS_PER_SEQUENCE; i++) {
+				int item = s.sequence[i];
+				if(remaining == 0) {
+					push(s, item, cardinality, count);
+					count++;
+				}
+				else if(s.avoidStamp[item] == avoidStamp) {
+					s.avoidStamp[item] = 0;
+					remaining--;
+				}
+			}
+			if(count > 1) {
+				branchesUsed++;
+			}
+		}
+		return branchesUsed;
+	}
+
+	/**
+	 * Read the items of a training sequence from the prediction tree
+	 * @param s the scratch memory (the items are stored in s.sequence)
+	 * @param id the id of the sequence
+	 * @return the number of items
+	 */
+	private int readSequence(Scratch s, int id) {
+		int depth = 0;
+		for(int node = nodeOfSequence[id]; node != -1; node = parentOfNode[node]) {
+			s.path[depth++] = node;
+		}
+		int length = 0;
+		for(int d = depth - 1; d >= 0; d--) {
+			int node = s.path[d];
+			int nodeLength = nodeItemStart[node + 1] - nodeItemStart[node];
+			System.arraycopy(nodeItems, nodeItemStart[node], s.sequence, length, nodeLength);
+			length += nodeLength;
+		}
+		return length;
+	}
+
+	/**
+	 * Add the score of an item to the count table. If the item is already in the table,
+	 * its score is multiplied by the new score.
+	 * @param s the scratch memory
+	 * @param item the item
+	 * @param similarCount the number of similar sequences
+	 * @param distance the position of the item after the matched items
+	 */
+	private void push(Scratch s, int item, int similarCount, int distance) {
+		float weightLevel = 1f / similarCount;
+		float weightDistance = 1f / distance;
+		float value = (weightLevel * 1f) + (1f) + (weightDistance * 0.0001f);
+		if(s.scoreStamp[item] != s.predictionStamp) {
+			s.scoreStamp[item] = s.predictionStamp;
+			s.score[item] = value;
+			s.scoredItems[s.scoredCount++] = item;
+		}else {
+			s.score[item] *= value;
+		}
+	}
+
+	/**
+	 * Get the item with the best score in the count table. If several items have the best score,
+	 * the smallest one is returned.
+	 * @param s the scratch memory
+	 * @return the position of the item or -1 if the best score is not high enough compared to the second best
+	 */
+	private int bestItem(Scratch s) {
+		if(s.scoredCount == 0) {
+			return -1;
+		}
+		int best = -1;
+		float bestScore = 0;
+		float secondScore = 0;
+		boolean hasSecond = false;
+		for(int i = 0; i < s.scoredCount; i++) {
+			int item = s.scoredItems[i];
+			float score = s.score[item];
+			if(best == -1 || score > bestScore) {
+				if(best != -1) {
+					secondScore = bestScore;
+					hasSecond = true;
+				}
+				best = item;
+				bestScore = score;
+			}else if(score == bestScore) {
+				best = Math.min(best, item);
+			}else if(hasSecond == false || score > secondScore) {
+				secondScore = score;
+				hasSecond = true;
+			}
+		}
+		if(hasSecond && ((double) bestScore / (double) secondScore) < MIN_BEST_SCORE_RATIO) {
+			return -1;
+		}
+		return best;
+	}
+
+	/**
+	 * The memory used by a thread to make predictions. The count table, the similar
+	 * sequences already used and the items to avoid are reset by increasing a stamp
+	 * rather than by clearing arrays.
+	 */
+	private final class Scratch {
+		/** the stamp of the current prediction */
+		int predictionStamp;
+		/** the last stamp used for the items to avoid */
+		int lastAvoidStamp;
+
+		/** the stamp of the last prediction that used each training sequence */
+		final int[] branchStamp = new int[nodeOfSequence.length];
+		/** the count table: the score of each item and the stamp of the prediction that set it */
+		final float[] score = new float[items.length];
+		final int[] scoreStamp = new int[items.length];
+		/** the items in the count table */
+		final int[] scoredItems = new int[items.length];
+		int scoredCount;
+		/** the stamp of the items to avoid */
+		final int[] avoidStamp = new int[items.length];
+
+		/** the similar sequences */
+		final long[] similar = new long[Bitsets.wordCount(nodeOfSequence.length)];
+		/** the items of a training sequence and the nodes of its branch */
+		final int[] sequence = new int[maxSequenceLength];
+		final int[] path = new int[maxDepth];
+
+		/** the items of the target sequence and of the candidate subsequences */
+		int[] pool = new int[64];
+		int poolSize;
+		/** the queue of subsequences to be reduced (position and size in the pool) */
+		int[] queueStart = new int[16];
+		int[] queueLength = new int[16];
+		int queueHead;
+		int queueSize;
+		/** the subsequences already reduced: a hash table of positions in the queue (plus one) */
+		int[] seen = new int[64];
+		/** the slots used in the hash table */
+		int[] seenSlots = new int[32];
+		int seenCount;
+		/** the noisy items and the items sorted by support */
+		int[] noise = new int[64];
+		int[] sorted = new int[64];
+
+		/**
+		 * Reset the scratch memory for a new prediction
+		 */
+		void startPrediction() {
+			if(++predictionStamp == 0) {
+				Arrays.fill(branchStamp, 0);
+				Arrays.fill(scoreStamp, 0);
+				predictionStamp = 1;
+			}
+			scoredCount = 0;
+			poolSize = 0;
+			queueHead = 0;
+			queueSize = 0;
+			for(int i = 0; i < seenCount; i++) {
+				seen[seenSlots[i]] = 0;
+			}
+			seenCount = 0;
+		}
+
+		/**
+		 * Get a new stamp for the items to avoid
+		 */
+		int nextAvoidStamp() {
+			if(++lastAvoidStamp == 0) {
+				Arrays.fill(avoidStamp, 0);
+				lastAvoidStamp = 1;
+			}
+			return lastAvoidStamp;
+		}
+
+		/**
+		 * Make sure that the pool can contain a given number of items
+		 */
+		void ensurePoolCapacity(int capacity) {
+			if(pool.length < capacity) {
+				pool = Arrays.copyOf(pool, Math.max(capacity, pool.length * 2));
+			}
+		}
+
+		/**
+		 * Make sure that the buffers of noisy and sorted items can contain the items of a target sequence
+		 */
+		void ensureItemCapacity(int capacity) {
+			if(noise.length < capacity) {
+				noise = new int[capacity];
+				sorted = new int[capacity];
+			}
+		}
+
+		/**
+		 * Add a subsequence to the queue
+		 */
+		void enqueue(int start, int size) {
+			if(queueSize == queueStart.length) {
+				queueStart = Arrays.copyOf(queueStart, queueSize * 2);
+				queueLength = Arrays.copyOf(queueLength, queueSize * 2);
+			}
+			queueStart[queueSize] = start;
+			queueLength[queueSize] = size;
+			queueSize++;
+		}
+
+		/**
+		 * Add the subsequence at the head of the queue to the subsequences already seen
+		 * @param start the position of the subsequence in the pool
+		 * @param size its number of items
+		 * @return true if it was not seen before
+		 */
+		boolean addToSeen(int start, int size) {
+			if((seenCount + 1) * 2 > seen.length) {
+				growSeen();
+			}
+			int mask = seen.length - 1;
+			for(int slot = hash(start, size) & mask; ; slot = (slot + 1) & mask) {
+				int entry = seen[slot];
+				if(entry == 0) {
+					seen[slot] = queueHead;
+					seenSlots[seenCount++] = slot;
+					return true;
+				}
+				if(sameItems(queueStart[entry - 1], queueLength[entry - 1], start, size)) {
+					return false;
+				}
+			}
+		}
+
+		/**
+		 * Double the size of the hash table of the subsequences already seen
+		 */
+		private void growSeen() {
+			int[] oldSeen = seen;
+			int oldCount = seenCount;
+			seen = new int[oldSeen.length * 2];
+			seenSlots = new int[seen.length / 2];
+			seenCount = 0;
+			int mask = seen.length - 1;
+			for(int entry : oldSeen) {
+				if(entry != 0) {
+					int slot = hash(queueStart[entry - 1], queueLength[entry - 1]) & mask;
+					while(seen[slot] != 0) {
+						slot = (slot + 1) & mask;
+					}
+					seen[slot] = entry;
+					seenSlots[seenCount++] = slot;
+				}
+			}
+			assert seenCount == oldCount;
+		}
+
+		/**
+		 * Calculate the hash code of a subsequence
+		 */
+		private int hash(int start, int size) {
+			int hash = size;
+			for(int i = start; i < start + size; i++) {
+				hash = 31 * hash + pool[i];
+			}
+			return hash ^ (hash >>> 16);
+		}
+
+		/**
+		 * Check if two subsequences have the same items
+		 */
+		private boolean sameItems(int start1, int size1, int start2, int size2) {
+			if(size1 != size2) {
+				return false;
+			}
+			for(int i = 0; i < size1; i++) {
+				if(pool[start1 + i] != pool[start2 + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
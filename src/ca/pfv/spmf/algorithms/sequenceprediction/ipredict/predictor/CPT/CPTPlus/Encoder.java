@@ -27,10 +27,12 @@ public class Encoder {
 	
 	protected List<List<Item>> Dict;
 	protected HashMap<List<Item>, Integer> InvDict;
+	protected List<Integer> FreeIds; //ids of removed itemsets, reused by addEntry()
 	
 	public Encoder() {
 		Dict = new ArrayList<List<Item>>();
 		InvDict = new HashMap<List<Item>, Integer>();
+		FreeIds = new ArrayList<Integer>();
 	}
 	
 	/**
@@ -42,14 +44,33 @@ public class Encoder {
 		Integer id = getId(entry);
 		if(id == null) {
 			
-			Dict.add(entry);
-			id = Dict.size() - 1;
+			if(FreeIds.isEmpty()) {
+				Dict.add(entry);
+				id = Dict.size() - 1;
+			}
+			else {
+				id = FreeIds.remove(FreeIds.size() - 1);
+				Dict.set(id, entry);
+			}
 			InvDict.put(entry, id);
 		}
 		
 		return id;
 	}
 	
+	/**
+	 * Remove an itemset from the dictionary. Its id can then be given to another itemset,
+	 * so it must not be used anymore by the encoded sequences.
+	 */
+	public void removeEntry(int id) {
+		List<Item> entry = Dict.get(id);
+		if(entry != null) {
+			InvDict.remove(entry);
+			Dict.set(id, null);
+			FreeIds.add(id);
+		}
+	}
+	
 	/**
 	 * Return the itemset with the given id
 	 */
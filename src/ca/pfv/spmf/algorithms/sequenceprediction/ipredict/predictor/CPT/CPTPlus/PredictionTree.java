@@ -30,6 +30,11 @@ public class PredictionTree {
 	 */
 	public Item Item;
 	
+	/**
+	 * Number of training sequences whose branch contains this node
+	 */
+	public int Support;
+	
 	/**
 	 * A link to its parent node
 	 */
@@ -77,6 +82,13 @@ public class PredictionTree {
 		Children = Children.stream().filter(c -> c.Item.equals(child) == false).collect(Collectors.toList());
 	}
 	
+	/**
+	 * Removes the given child node from the current node
+	 */
+	public void removeChild(PredictionTree child) {
+		Children.remove(child);
+	}
+	
 	/**
 	 * Return true if the given item is a child of this node
 	 */
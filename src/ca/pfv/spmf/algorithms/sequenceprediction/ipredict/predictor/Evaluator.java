@@ -2,8 +2,16 @@ package ca.pfv.spmf.algorithms.sequenceprediction.ipredict.predictor;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.database.DatabaseHelper;
 import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.database.Item;
@@ -26,10 +34,22 @@ import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.predictor.profile.Prof
  */
 /**
  * Evaluation framework
+ * 
+ * By default, the predictors, datasets and runs (folds) are evaluated one after the other.
+ * If several threads are used (see setThreadCount()), each run of each predictor on each dataset is a
+ * separate task, with its own predictor instance (for predictors added with a factory) and its own results.
+ * The results are merged in the same order as in the sequential evaluation, so both give the same
+ * accuracy. Besides accuracy, the evaluation reports the training throughput (sequences per second)
+ * and the 50th and 99th percentiles of the time taken by a prediction (in microseconds).
  */
 public class Evaluator {
 
 	private List<Predictor> predictors; //list of predictors
+	private List<Supplier<Predictor>> predictorFactories; //for each predictor, a factory creating new instances (or null)
+	
+	private int threadCount = 1; //number of threads used for the evaluation (1 = sequential evaluation)
+	
+	private List<List<RunResult>> runs; //results of the runs of each predictor on the current dataset
 	
 	//Sampling type
 	public final static int HOLDOUT = 0;
@@ -53,6 +73,8 @@ public class Evaluator {
 	
 	public Evaluator(String pathToDatasets) {
 		predictors = new ArrayList<Predictor>();
+		predictorFactories = new ArrayList<Supplier<Predictor>>();
+		experiments = new ArrayList<StatsLogger>();
 		datasets = new ArrayList<String>();
 		datasetsMaxCount = new ArrayList<Integer>();
 		database = new DatabaseHelper(pathToDatasets);
@@ -64,6 +86,30 @@ public class Evaluator {
 	 */
 	public void addPredictor(Predictor predictor) {
 		predictors.add(predictor);
+		predictorFactories.add(null);
+	}
+	
+	/**
+	 * Adds a Predictor to the list of predictors, with a factory creating new instances of it.
+	 * When several threads are used, each run is done with a new instance, so that the runs of this
+	 * predictor can be done at the same time (the runs of a predictor added without a factory
+	 * are done one after the other).
+	 * @param factory a factory creating new instances of the predictor, with the same parameters
+	 */
+	public void addPredictor(Supplier<Predictor> factory) {
+		predictors.add(factory.get());
+		predictorFactories.add(factory);
+	}
+	
+	/**
+	 * Set the number of threads used for the evaluation
+	 * @param threadCount the number of threads (1 = sequential evaluation)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
 	}
 	
 	/**
@@ -96,6 +142,9 @@ public class Evaluator {
 		statsColumns.add("Size (MB)");
 		statsColumns.add("Train Time");
 		statsColumns.add("Test Time");
+		statsColumns.add("Train/s");
+		statsColumns.add("p50 (us)");
+		statsColumns.add("p99 (us)");
 		
 		//Extracting the name of each predictor
 		List<String> predictorNames = new ArrayList<String>();
@@ -103,6 +152,10 @@ public class Evaluator {
 			predictorNames.add(predictor.getTAG());
 		}
 		
+		if(threadCount > 1) {
+			return StartInParallel(samplingType, param, statsColumns, predictorNames, showResults, showDatasetStats, showExecutionStats);
+		}
+		
 		for(int i = 0; i < datasets.size(); i++) {
 			
 			int maxCount = datasetsMaxCount.get(i);
@@ -121,6 +174,11 @@ public class Evaluator {
 			
 			//Creating the statsLogger
 			stats = new StatsLogger(statsColumns, predictorNames, false);
+			experiments.add(stats);
+			runs = new ArrayList<List<RunResult>>();
+			for(int id = 0 ; id < predictors.size(); id++) {
+				runs.add(new ArrayList<RunResult>());
+			}
 			
 			//Saving current time for across time analysis
 			startTime = System.currentTimeMillis();
@@ -149,6 +207,7 @@ public class Evaluator {
 			//Saving end time
 			endTime = System.currentTimeMillis();
 			
+			mergeRuns(runs);
 			finalizeStats(showExecutionStats);
 			
 			if(showResults == true) {
@@ -158,6 +217,138 @@ public class Evaluator {
 		
 		return stats;
 	}
+	
+	/**
+	 * Evaluate the predictors on the datasets using several threads. Each run (e.g. a fold) of a predictor
+	 * on a dataset is a separate task. The datasets are loaded first, and each task uses the profile of its dataset.
+	 * @return the stats logger of the last dataset (the stats of each dataset are in "experiments")
+	 */
+	private StatsLogger StartInParallel(int samplingType, float param, List<String> statsColumns, List<String> predictorNames,
+			boolean showResults, boolean showDatasetStats, boolean showExecutionStats) throws IOException {
+		
+		final int runCount = getRunCount(samplingType, param);
+		
+		//Loading each dataset with the parameters of its profile
+		final List<List<Sequence>> dataSets = new ArrayList<List<Sequence>>();
+		final List<HashMap<String, String>> profiles = new ArrayList<HashMap<String, String>>();
+		for(int i = 0; i < datasets.size(); i++) {
+			String format = datasets.get(i);
+			ProfileManager.loadProfileByName(format.toString());
+			database.loadDataset(format, datasetsMaxCount.get(i));
+			if(showDatasetStats) {
+				System.out.println();
+				SequenceStatsGenerator.prinStats(database.getDatabase(), format);
+			}
+			dataSets.add(getDatabaseCopy());
+			profiles.add(Profile.parameters);
+		}
+		
+		//Creating the tasks: one per run for the predictors having a factory, and one per predictor
+		//for the other predictors (since all their runs use the same instance)
+		List<Callable<List<RunResult>>> tasks = new ArrayList<Callable<List<RunResult>>>();
+		for(int id = 0 ; id < predictors.size(); id++) {
+			final int predictorId = id;
+			final Supplier<Predictor> factory = predictorFactories.get(id);
+			if(factory != null) {
+				for(int i = 0; i < datasets.size(); i++) {
+					for(int run = 0; run < runCount; run++) {
+						final int datasetId = i;
+						final int runId = run;
+						tasks.add(new Callable<List<RunResult>>() {
+							public List<RunResult> call() {
+								Profile.useParameters(profiles.get(datasetId));
+								try {
+									List<Sequence>[] sets = getTrainingAndTestSets(samplingType, param, dataSets.get(datasetId), runId);
+									RunResult result = evaluate(factory.get(), sets[0], sets[1]);
+									result.setId(datasetId, predictorId, runId);
+									return Collections.singletonList(result);
+								} finally {
+									Profile.useParameters(null);
+								}
+							}
+						});
+					}
+				}
+			}
+			else {
+				tasks.add(new Callable<List<RunResult>>() {
+					public List<RunResult> call() {
+						List<RunResult> results = new ArrayList<RunResult>();
+						for(int i = 0; i < datasets.size(); i++) {
+							Profile.useParameters(profiles.get(i));
+							try {
+								for(int run = 0; run < runCount; run++) {
+									List<Sequence>[] sets = getTrainingAndTestSets(samplingType, param, dataSets.get(i), run);
+									RunResult result = evaluate(predictors.get(predictorId), sets[0], sets[1]);
+									result.setId(i, predictorId, run);
+									results.add(result);
+								}
+							} finally {
+								Profile.useParameters(null);
+							}
+						}
+						return results;
+					}
+				});
+			}
+		}
+		
+		//Doing the tasks
+		startTime = System.currentTimeMillis();
+		List<RunResult> results = new ArrayList<RunResult>();
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			for(Future<List<RunResult>> future : pool.invokeAll(tasks)) {
+				results.addAll(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The evaluation was interrupted", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		endTime = System.currentTimeMillis();
+		
+		//Merging the results of each dataset in the order of the sequential evaluation
+		Collections.sort(results, new Comparator<RunResult>() {
+			public int compare(RunResult r1, RunResult r2) {
+				if(r1.datasetId != r2.datasetId) {
+					return Integer.compare(r1.datasetId, r2.datasetId);
+				}
+				if(r1.predictorId != r2.predictorId) {
+					return Integer.compare(r1.predictorId, r2.predictorId);
+				}
+				return Integer.compare(r1.runId, r2.runId);
+			}
+		});
+		int position = 0;
+		for(int i = 0; i < datasets.size(); i++) {
+			List<List<RunResult>> runsOfDataset = new ArrayList<List<RunResult>>();
+			for(int id = 0 ; id < predictors.size(); id++) {
+				List<RunResult> runsOfPredictor = new ArrayList<RunResult>();
+				while(position < results.size() && results.get(position).datasetId == i && results.get(position).predictorId == id) {
+					runsOfPredictor.add(results.get(position++));
+				}
+				runsOfDataset.add(runsOfPredictor);
+			}
+			
+			stats = new StatsLogger(statsColumns, predictorNames, false);
+			experiments.add(stats);
+			mergeRuns(runsOfDataset);
+			finalizeStats(showExecutionStats && i == datasets.size() - 1);
+			
+			if(showResults == true) {
+				System.out.println(stats.toString());
+			}
+		}
+		
+		return stats;
+	}
 
 	/**
 	 * Holdout method
@@ -167,16 +358,13 @@ public class Evaluator {
 	 */
 	public void Holdout(double ratio, int classifierId) {
 		
-		List<Sequence> trainingSequences = getDatabaseCopy();
-		List<Sequence> testSequences = splitList(trainingSequences, ratio);
+		List<Sequence>[] sets = getTrainingAndTestSets(HOLDOUT, ratio, getDatabaseCopy(), 0);
 		
 		//DEBUG
-		//System.out.println("Dataset size: "+ (trainingSequences.size() + testSequences.size()));
-		//System.out.println("Training: " + trainingSequences.size() + " and Test set: "+ testSequences.size());
+		//System.out.println("Dataset size: "+ (sets[0].size() + sets[1].size()));
+		//System.out.println("Training: " + sets[0].size() + " and Test set: "+ sets[1].size());
 		
-		PrepareClassifier(trainingSequences, classifierId); //training (preparing) classifier
-		
-		StartClassifier(testSequences, classifierId); //classification of the test sequence
+		runs.get(classifierId).add(evaluate(predictors.get(classifierId), sets[0], sets[1]));
 	}
 	
 	/**
@@ -186,7 +374,7 @@ public class Evaluator {
 	 */
 	public void RandomSubSampling(double ratio, int classifierId) {
 		
-		int k = 10;
+		int k = getRunCount(RANDOMSAMPLING, ratio);
 		for(int i = 0 ; i < k; i++) {
 			Holdout(ratio, classifierId);
 			
@@ -205,54 +393,137 @@ public class Evaluator {
 	public void KFold(int k, int classifierId) {
 		
 		//k has to be at least 2
-		if(k < 2) {
-			throw new RuntimeException("K needs to be 2 or more");
-		}
+		getRunCount(KFOLD, k);
 
 		List<Sequence> dataSet = getDatabaseCopy();
 		
-		//calculating absolute ratio
-		double relativeRatio = 1/(double)k;
-		int absoluteRatio = (int) (dataSet.size() * relativeRatio);
-		
 		//For each fold, it does training and testing
 		for(int i = 0 ; i < k ; i++) {
-
+			
+			List<Sequence>[] sets = getTrainingAndTestSets(KFOLD, k, dataSet, i);
+			runs.get(classifierId).add(evaluate(predictors.get(classifierId), sets[0], sets[1]));
+			
+			//Logging memory usage
+			MemoryLogger.addUpdate();
+		}
+		
+	}
+	
+	/**
+	 * Get the number of runs (training and testing) of a predictor on a dataset
+	 * @param samplingType one of: HOLDOUT, RANDOMSAMPLING, KFOLD
+	 * @param param The parameter associated with the sampling type
+	 * @return the number of runs (0 if the sampling type is unknown)
+	 */
+	private int getRunCount(int samplingType, double param) {
+		switch(samplingType) {
+			case HOLDOUT:
+				return 1;
+			
+			case KFOLD:
+				//k has to be at least 2
+				if((int) param < 2) {
+					throw new RuntimeException("K needs to be 2 or more");
+				}
+				return (int) param;
+				
+			case RANDOMSAMPLING:
+				return 10;
+			
+			default: 
+				System.out.println("Unknown sampling type."); 
+				return 0;
+		}
+	}
+	
+	/**
+	 * Partition a dataset into a training set and a test set for a run
+	 * @param samplingType one of: HOLDOUT, RANDOMSAMPLING, KFOLD
+	 * @param param The parameter associated with the sampling type
+	 * @param dataSet the dataset (it is not modified)
+	 * @param run the number of the run (e.g. the fold)
+	 * @return the training set and the test set
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private List<Sequence>[] getTrainingAndTestSets(int samplingType, double param, List<Sequence> dataSet, int run) {
+		
+		List<Sequence> trainingSequences;
+		List<Sequence> testSequences;
+		
+		if(samplingType == KFOLD) {
+			int k = (int) param;
+			
+			//calculating absolute ratio
+			double relativeRatio = 1/(double)k;
+			int absoluteRatio = (int) (dataSet.size() * relativeRatio);
+			
 			//Partitioning database 
-			//
-			int posStart = i * absoluteRatio; //start position of testing set
+			int posStart = run * absoluteRatio; //start position of testing set
 			int posEnd = posStart + absoluteRatio; //end position of testing set
-			if(i == (k-1)) { //if last fold we adjust the size to include all the left-over sequences
+			if(run == (k-1)) { //if last fold we adjust the size to include all the left-over sequences
 				posEnd = dataSet.size(); //special case
 			}
 			
-			//declaring the sets
-			List<Sequence> trainingSequences = new LinkedList<Sequence>();
-			List<Sequence> testSequences = new LinkedList<Sequence>();
+			trainingSequences = new ArrayList<Sequence>(dataSet.size() - (posEnd - posStart));
+			trainingSequences.addAll(dataSet.subList(0, posStart));
+			trainingSequences.addAll(dataSet.subList(posEnd, dataSet.size()));
+			testSequences = new ArrayList<Sequence>(dataSet.subList(posStart, posEnd));
+		}
+		else {
+			//holdout (random subsampling repeats the holdout)
+			trainingSequences = new ArrayList<Sequence>(dataSet);
+			testSequences = splitList(trainingSequences, param);
+		}
+		
+		return new List[] {trainingSequences, testSequences};
+	}
+	
+	/**
+	 * Write the results of the runs of each predictor on a dataset in the stats logger.
+	 * The numbers of predictions are added, the training and testing times and the size are those
+	 * of the last run, and the percentiles of the prediction time are calculated over all the runs.
+	 * @param runsOfPredictors for each predictor, the results of its runs, in order
+	 */
+	private void mergeRuns(List<List<RunResult>> runsOfPredictors) {
+		
+		for(int id = 0; id < predictors.size(); id++) {
+			String tag = predictors.get(id).getTAG();
+			List<RunResult> runsOfPredictor = runsOfPredictors.get(id);
 			
-			//actual partitioning
-			for(int j = 0 ; j < dataSet.size(); j++) {
-				
-				Sequence toAdd = dataSet.get(j);
-				
-				//is in testing set
-				if(j >= posStart && j < posEnd) {
-					testSequences.add(toAdd);
-				}
-				else {
-					trainingSequences.add(toAdd);
-				}
+			int predictionCount = 0;
+			double trainingTime = 0;
+			long trainingSize = 0;
+			for(RunResult run : runsOfPredictor) {
+				stats.set("Success", tag, stats.get("Success", tag) + run.success);
+				stats.set("Failure", tag, stats.get("Failure", tag) + run.failure);
+				stats.set("No Match", tag, stats.get("No Match", tag) + run.noMatch);
+				stats.set("Too Small", tag, stats.get("Too Small", tag) + run.tooSmall);
+				stats.set("Train Time", tag, run.trainTime);
+				stats.set("Test Time", tag, run.testTime);
+				stats.set("Size (MB)", tag, run.memoryUsage);
+				predictionCount += run.predictionCount;
+				trainingTime += run.trainTime;
+				trainingSize += run.trainingSize;
 			}
-			//
-			//End of Partitioning
-		
-			PrepareClassifier(trainingSequences, classifierId); //training (preparing) classifier	
-			StartClassifier(testSequences, classifierId); //classification of the test sequence
 			
-			//Logging memory usage
-			MemoryLogger.addUpdate();
+			//training throughput (sequences per second)
+			if(trainingTime > 0) {
+				stats.set("Train/s", tag, trainingSize / trainingTime);
+			}
+			
+			//percentiles of the time of a prediction (microseconds)
+			if(predictionCount > 0) {
+				long[] predictionTimes = new long[predictionCount];
+				int position = 0;
+				for(RunResult run : runsOfPredictor) {
+					System.arraycopy(run.predictionTimes, 0, predictionTimes, position, run.predictionCount);
+					position += run.predictionCount;
+				}
+				Arrays.sort(predictionTimes);
+				stats.set("p50 (us)", tag, predictionTimes[(predictionCount - 1) / 2] / 1000.0);
+				stats.set("p99 (us)", tag, predictionTimes[(int) Math.ceil(predictionCount * 0.99) - 1] / 1000.0);
+			}
 		}
-		
 	}
 	
 	/**
@@ -280,13 +551,15 @@ public class Evaluator {
 			
 			stats.divide("Train Time", predictor.getTAG(), 100);
 			stats.divide("Test Time", predictor.getTAG(), 100);
+			stats.divide("Train/s", predictor.getTAG(), 100);
+			stats.divide("p50 (us)", predictor.getTAG(), 100);
+			stats.divide("p99 (us)", predictor.getTAG(), 100);
 			
 			//Adding overall success
 			stats.set("Overall", predictor.getTAG(), success);
 			stats.divide("Overall", predictor.getTAG(), testingSize);
 			
-			//Size of the predictor
-			stats.set("Size (MB)", predictor.getTAG(), predictor.memoryUsage());
+			//Size of the predictor (after the last run)
 			stats.divide("Size (MB)", predictor.getTAG(), (100 * 1000 * 1000));
 			
 			
@@ -327,19 +600,25 @@ public class Evaluator {
 	
 
 	
-	private void PrepareClassifier(List<Sequence> trainingSequences, int classifierId) {
-		long start = System.currentTimeMillis(); //Training starting time
+	/**
+	 * Train a predictor and test it
+	 * @param predictor the predictor
+	 * @param trainingSequences the training set
+	 * @param testSequences the test set
+	 * @return the results
+	 */
+	private RunResult evaluate(Predictor predictor, List<Sequence> trainingSequences, List<Sequence> testSequences) {
+		RunResult result = new RunResult(testSequences.size());
 		
-		predictors.get(classifierId).Train(trainingSequences); //actual training
+		long start = System.nanoTime(); //Training starting time
 		
-		long end = System.currentTimeMillis(); //Training ending time
-		double duration = (double)(end - start) / 1000;
-		stats.set("Train Time", predictors.get(classifierId).getTAG(), duration);
-	}
-	
-	private void StartClassifier(List<Sequence> testSequences, int classifierId) {	
+		predictor.Train(trainingSequences); //actual training
+		
+		long end = System.nanoTime(); //Training ending time
+		result.trainTime = (double)(end - start) / 1000000000;
+		result.trainingSize = trainingSequences.size();
 		
-		long start = System.currentTimeMillis(); //Testing starting time
+		start = System.nanoTime(); //Testing starting time
 		
 		//for each sequence; it classifies it and evaluates it
 		for(Sequence target : testSequences) {
@@ -350,30 +629,33 @@ public class Evaluator {
 				Sequence consequent = target.getLastItems(Profile.paramInt("consequentSize"),0); //the lasts actual items in target
 				Sequence finalTarget = target.getLastItems(Profile.paramInt("windowSize"),Profile.paramInt("consequentSize"));
 				
-				Sequence predicted = predictors.get(classifierId).Predict(finalTarget);
+				long predictionStart = System.nanoTime();
+				Sequence predicted = predictor.Predict(finalTarget);
+				result.predictionTimes[result.predictionCount++] = System.nanoTime() - predictionStart;
 				
 				//if no sequence is returned, it means that they is no match for this sequence
 				if(predicted.size() == 0) {
-					stats.inc("No Match", predictors.get(classifierId).getTAG());
+					result.noMatch++;
 				}
 				//evaluates the prediction
 				else if(isGoodPrediction(consequent, predicted)) {
-					stats.inc("Success", predictors.get(classifierId).getTAG());
+					result.success++;
 				}
 				else {
-					stats.inc("Failure", predictors.get(classifierId).getTAG());
+					result.failure++;
 				}
 				
 			}
 			//sequence is too small
 			else {
-				stats.inc("Too Small", predictors.get(classifierId).getTAG());
+				result.tooSmall++;
 			}
 		}
 		
-		long end = System.currentTimeMillis(); //Training ending time
-		double duration = (double)(end - start) / 1000;
-		stats.set("Test Time", predictors.get(classifierId).getTAG(), duration);
+		end = System.nanoTime(); //Testing ending time
+		result.testTime = (double)(end - start) / 1000000000;
+		result.memoryUsage = predictor.memoryUsage();
+		return result;
 	}
 
 	private List<Sequence> splitList(List<Sequence> toSplit, double absoluteRatio){
@@ -391,4 +673,41 @@ public class Evaluator {
 		return new ArrayList<Sequence>(database.getDatabase().getSequences().subList(0, database.getDatabase().size()));
 	}
 	
+	/**
+	 * The results of a run (training and testing) of a predictor on a dataset
+	 */
+	private static class RunResult {
+		
+		//the dataset, predictor and run (used to merge the results in order)
+		int datasetId;
+		int predictorId;
+		int runId;
+		
+		//number of predictions of each kind
+		int success;
+		int failure;
+		int noMatch;
+		int tooSmall;
+		
+		//training and testing times (seconds)
+		double trainTime;
+		double testTime;
+		
+		int trainingSize; //number of training sequences
+		float memoryUsage; //size of the predictor after training
+		
+		long[] predictionTimes; //time of each prediction (nanoseconds)
+		int predictionCount;
+		
+		RunResult(int testSize) {
+			predictionTimes = new long[testSize];
+		}
+		
+		void setId(int datasetId, int predictorId, int runId) {
+			this.datasetId = datasetId;
+			this.predictorId = predictorId;
+			this.runId = runId;
+		}
+	}
+	
 }
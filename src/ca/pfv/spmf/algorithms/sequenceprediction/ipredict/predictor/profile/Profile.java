@@ -22,30 +22,57 @@ public class Profile {
 	//Contains the parameter as strings
 	public static HashMap<String, String> parameters;
 	
+	//Parameters used by the current thread instead of the global parameters (see useParameters())
+	private static final ThreadLocal<HashMap<String, String>> threadParameters = new ThreadLocal<HashMap<String, String>>();
+	
 	public Profile() {
 		parameters = new HashMap<String, String>();
 	}
 	
+	/**
+	 * Use some parameters in the current thread instead of the global parameters,
+	 * so that several threads can use different profiles at the same time
+	 * @param params the parameters of a profile, or null to use the global parameters again
+	 */
+	public static void useParameters(HashMap<String, String> params) {
+		if(params == null) {
+			threadParameters.remove();
+		}
+		else {
+			threadParameters.set(params);
+		}
+	}
+	
+	//Returns the parameters used by the current thread
+	private static HashMap<String, String> currentParameters() {
+		HashMap<String, String> params = threadParameters.get();
+		return (params != null) ? params : parameters;
+	}
+	
 	public static Double paramDouble(String name) {
 //		System.out.println(name);
-		Object value = parameters.get(name);
-		return (value == null) ? null : Double.valueOf(parameters.get(name));
+		HashMap<String, String> params = currentParameters();
+		Object value = (params == null) ? null : params.get(name);
+		return (value == null) ? null : Double.valueOf(params.get(name));
 	}
 	
 	public static Integer paramInt(String name) {
 //		System.out.println(name);
-		Object value = parameters.get(name);
-		return (value == null) ? null : Integer.valueOf(parameters.get(name));	
+		HashMap<String, String> params = currentParameters();
+		Object value = (params == null) ? null : params.get(name);
+		return (value == null) ? null : Integer.valueOf(params.get(name));	
 	}
 	
 	public static Float paramFloat(String name) {
-		Object value = parameters.get(name);
-		return (value == null) ? null : Float.valueOf(parameters.get(name));	
+		HashMap<String, String> params = currentParameters();
+		Object value = (params == null) ? null : params.get(name);
+		return (value == null) ? null : Float.valueOf(params.get(name));	
 	}
 	
 	public static Boolean paramBool(String name) {
-		Object value = parameters.get(name);
-		return (value == null) ? null : Boolean.valueOf(parameters.get(name));	
+		HashMap<String, String> params = currentParameters();
+		Object value = (params == null) ? null : params.get(name);
+		return (value == null) ? null : Boolean.valueOf(params.get(name));	
 	}
 	
 	//Applies the parameters 
@@ -18,11 +18,10 @@ package ca.pfv.spmf.algorithms.sequential_rules.cmrules;
 
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
@@ -39,7 +38,12 @@ import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemsets;
  * 
  * The Apriori algorithm finds all the frequents itemsets and their support
  * in a binary context.
+ * <br/><br/>
+ * 
+ * The tidsets of the itemsets of the current level are stored as sorted arrays of
+ * transaction IDs (see SidList), and each frequent itemset receives a read-only view of its tidset.
  * 
+ * @see SidList
  * @author Philippe Fournier-Viger
  */
 public class AlgoAprioriTID_forCMRules {
@@ -80,7 +84,7 @@ public class AlgoAprioriTID_forCMRules {
 	 * @return the frequent itemsets
 	 */
 	public Itemsets runAlgorithm(int minsuppRelative, List<Integer> listFrequentsSize1, 
-			Map<Integer, Set<Integer>> mapItemCount) {
+			Map<Integer, SidList> mapItemCount) {
 		
 		// save the minimum suppor threshold
 		this.minSuppRelative = minsuppRelative;
@@ -88,7 +92,9 @@ public class AlgoAprioriTID_forCMRules {
 		// To build level 1, we keep only the frequent candidates.
 		// We scan the database one time to calculate the support of each candidate.
 		k=1;
-		List<Itemset> level = createLevelWithFrequentItemsetsSize1(listFrequentsSize1, mapItemCount);
+		// the tidsets of the itemsets of the current level (in the same order)
+		List<SidList> tidsets = new ArrayList<SidList>();
+		List<Itemset> level = createLevelWithFrequentItemsetsSize1(listFrequentsSize1, mapItemCount, tidsets);
 
 		// Generate candidates with size k = 1 (all itemsets of size 1)
 		k = 2;
@@ -96,7 +102,9 @@ public class AlgoAprioriTID_forCMRules {
 		while (!level.isEmpty()  && k <= maxItemsetSize) {
 			// We build the level k+1 with all the candidates that have
 			// a support higher than the minsup threshold.
-			level = generateCandidateSizeK(level);; 
+			List<SidList> tidsetsK = new ArrayList<SidList>();
+			level = generateCandidateSizeK(level, tidsets, tidsetsK);
+			tidsets = tidsetsK;
 			k++;
 		}
 		// return frequent itemsets
@@ -108,9 +116,11 @@ public class AlgoAprioriTID_forCMRules {
 	 * Generate frequents itemsets of size 1
 	 * @param listFrequentsSize1  list of frequent items of size 1
 	 * @param mapItemCount a map indicating the tidset (value) of each item (key)
+	 * @param tidsets a list where the tidsets of the itemsets of size 1 are added
 	 * @return the itemsets of size1
 	 */
-	protected List<Itemset> createLevelWithFrequentItemsetsSize1(List<Integer> listFrequentsSize1, Map<Integer, Set<Integer>> mapItemCount) {
+	protected List<Itemset> createLevelWithFrequentItemsetsSize1(List<Integer> listFrequentsSize1, 
+			Map<Integer, SidList> mapItemCount, List<SidList> tidsets) {
 		// create the structure to store itemsets of size 1
 		List<Itemset> levelK = new ArrayList<Itemset>();
 
@@ -118,7 +128,9 @@ public class AlgoAprioriTID_forCMRules {
 		for(Integer item : listFrequentsSize1){
 			// create an itemset
 			Itemset itemset = new Itemset(item);
-			itemset.setTIDs(mapItemCount.get(item));
+			SidList tidset = mapItemCount.get(item);
+			itemset.setTIDs(tidset.asSet());
+			tidsets.add(tidset);
 			// add it to the level k that will be used for generating k+1 later on...
 			levelK.add(itemset);
 			// add the itemset to frequent itemsets
@@ -132,9 +144,12 @@ public class AlgoAprioriTID_forCMRules {
 	/**
 	 * Generate candidate itemsets of size K by using itemsets of size k-1
 	 * @param levelK_1   itemsets of size k-1
+	 * @param tidsetsK_1 the tidsets of the itemsets of size k-1
+	 * @param tidsetsK a list where the tidsets of the candidates of size K are added
 	 * @return  candidates of size K
 	 */
-	protected List<Itemset> generateCandidateSizeK(List<Itemset> levelK_1) {
+	protected List<Itemset> generateCandidateSizeK(List<Itemset> levelK_1, 
+			List<SidList> tidsetsK_1, List<SidList> tidsetsK) {
 		// a set to store candidates of size K
 		List<Itemset> candidates = new ArrayList<Itemset>();
 
@@ -167,28 +182,23 @@ loop2:		for(int j=i+1; j< levelK_1.size(); j++){
 					}
 				}
 
-				// create list of common tids
-				Set<Integer> list = new HashSet<Integer>();
-				// for each tid from the tidset of itemset1
-				for(Integer val1 : itemset1.getTransactionsIds()){
-					// if it appears also in the tidset of itemset2
-					if(itemset2.getTransactionsIds().contains(val1)){
-						// add it to common tids
-						list.add(val1);
-					}
-				}
+				// create list of common tids (the intersection is stopped
+				// as soon as it cannot contain minsup tids)
+				SidList list = SidList.intersect(tidsetsK_1.get(i), tidsetsK_1.get(j), minSuppRelative);
 
 				// if the combination of itemset1 and itemset2 is frequent
-				if(list.size() >= minSuppRelative){
+				if(list != null){
 					// Create a new candidate by combining itemset1 and itemset2
 					int newItemset[] = new int[itemset1.size()+1];
 					System.arraycopy(itemset1.itemset, 0, newItemset, 0, itemset1.size());
 					newItemset[itemset1.size()] = itemset2.getItems()[itemset2.size() -1];
 					Itemset candidate = new Itemset(newItemset);
-					candidate.setTIDs(list);
+					list.trimToSize();
+					candidate.setTIDs(list.asSet());
 					
 					// add it to the list of candidates
 					candidates.add(candidate);
+					tidsetsK.add(list);
 					// add it to the list of frequent itemsets
 					frequentItemsets.addItemset(candidate, k);
 				}
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
 import ca.pfv.spmf.input.sequence_database_list_integers.Sequence;
 import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
@@ -94,7 +95,7 @@ public class AlgoCMRules {
 	int maxItemId = 0;
 	
 	// this map indicate the tidset (value) for each item (key)
-	Map<Integer, Set<Integer>> mapItemCount = new HashMap<Integer, Set<Integer>>();
+	Map<Integer, SidList> mapItemCount = new HashMap<Integer, SidList>();
 	
 	// list of frequent items
 	List<Integer> listFrequentsSize1 = new ArrayList<Integer>();
@@ -254,14 +255,15 @@ public class AlgoCMRules {
 	 * @param sequences
 	 * @return
 	 */
-	private Map<Integer, Set<Integer>> removeItemsThatAreNotFrequent(SequenceDatabase sequences) {
+	private Map<Integer, SidList> removeItemsThatAreNotFrequent(SequenceDatabase sequences) {
 		// (1) count the support of each item in the database in one database pass
 		// Store the information in a map where each item (key) is associated to
 		// a tidset (value).
-		mapItemCount = new HashMap<Integer, Set<Integer>>(); 
+		mapItemCount = new HashMap<Integer, SidList>(); 
 		
 		// for each sequence
-		for(Sequence sequence : sequences.getSequences()){
+		for(int k=0; k< sequences.size(); k++){
+			Sequence sequence = sequences.getSequences().get(k);
 			
 			// for each itemset in that sequence
 			for(List<Integer> itemset : sequence.getItemsets()){
@@ -269,10 +271,10 @@ public class AlgoCMRules {
 				// for each item in that itemset
 				for(int i=0; i< itemset.size(); i++){
 					// get its tidset
-					Set<Integer> ids = mapItemCount.get(itemset.get(i));
+					SidList ids = mapItemCount.get(itemset.get(i));
 					if(ids == null){
 						// if no tidset create one
-						ids = new HashSet<Integer>();
+						ids = new SidList();
 						mapItemCount.put(itemset.get(i), ids);
 						
 						// if it is the largest item seen until now, then remember that
@@ -281,7 +283,8 @@ public class AlgoCMRules {
 						}
 					}
 					// add the sequence ID to the tidset
-					ids.add(sequence.getId());
+					// (it is ignored if the item was already seen in that sequence)
+					ids.add(k);
 				}
 			}
 		}
@@ -19,15 +19,22 @@ import ca.pfv.spmf.algorithms.sequential_rules.topseqrules_and_tns.AlgoTNS;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import ca.pfv.spmf.datastructures.sidlists.ItemOccurrenceIndex;
+import ca.pfv.spmf.datastructures.sidlists.OccurrenceList;
+import ca.pfv.spmf.datastructures.sidlists.PairCounter;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.input.sequence_database_list_integers.Sequence;
 import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -41,8 +48,16 @@ import java.util.logging.Logger;
  * common to several sequences where antecedent and consequent are unordered itemsets. 
  * <br/><br/>
  * The main method of this algorithm is "runAlgorithm". It output the result to a file.
+ * <br/><br/>
+ * 
+ * Once the equivalence classes of rules of size 1*1 are built, they can be expanded independently.
+ * If more than one thread is used (see setThreadCount()), each equivalence class is expanded by
+ * a task of a ForkJoinPool, which keeps its rules and the rules that it registers for expand left
+ * after right in its own buffer. The calling thread then saves these buffers in the order of the
+ * equivalence classes, so that the output file is the same as for a serial execution.
  *
- * @see Occurence
+ * @see OccurrenceList
+ * @see SidList
  * @see Sequence
  * @see SequenceDatabase
  * @author Philippe Fournier-Viger
@@ -70,9 +85,9 @@ public class AlgoERMiner {
         SequenceDatabase contrastdatabase;
 	
 	//*** internal variables ***/
-	/** This map contains for each item (key) a map of occurences (value).
-	// The map of occurences associates to sequence ID (key), an occurence of the item (value). */
-	Map<Integer,  Map<Integer, Occurence>> mapItemCount;  // item, <tid, occurence> 
+	/** This structure contains for each item the sequences where it appears,
+	// with its first and last occurences in each of these sequences. */
+	ItemOccurrenceIndex itemOccurrences;
 
 	/** object to write the output file */
 	BufferedWriter writer = null; 
@@ -95,6 +110,9 @@ public class AlgoERMiner {
 	/**  the maximum size of the consequent of rules (optional) */
 	int maxConsequentSize = Integer.MAX_VALUE;
 
+	/** the number of threads used to expand the equivalence classes (1 = serial execution) */
+	private int threadCount = 1;
+
 	/**
 	 * Default constructor
 	 */
@@ -145,6 +163,9 @@ public class AlgoERMiner {
 		this.minConfidence = minConfidence;
 		// reinitialize the number of rules found
 		ruleCount = 0;
+		totalCandidateCount = 0;
+		candidatePrunedCount = 0;
+		store = new ExpandLeftStore();
 //		countPruning = 0;
 		
 		// if the database was not loaded, then load it.
@@ -173,6 +194,9 @@ public class AlgoERMiner {
 		// save the start time
 		timeStart = System.currentTimeMillis(); // for stats
 
+		// the rules found by this thread are written directly to the output file
+		ExpansionBuffer threadBuffer = new ExpansionBuffer(store, false);
+
 		// Remove infrequent items from the database in one database scan.
 		// Then perform another database scan to count the
 		// the support of each item in the same database scan 
@@ -194,84 +218,82 @@ public class AlgoERMiner {
 		// The map for right-equivalence classes has a key : item on the left side, value: list of rules
 		Map<Integer, RightEquivalenceClass> mapEclassRight = new HashMap<Integer, RightEquivalenceClass>();
 		
-		// for each entry in the matrix
-		// entry  =  key: item I    value: a map where key: item J and value: the support of {i, j} 
-		for(Entry<Integer, Map<Integer, Integer>> entry :  matrix.getMatrix().entrySet()) {
-			Integer intI = entry.getKey();
-			Map<Integer, Occurence> occurencesI = mapItemCount.get(intI);
+		// for each pair of items {I, J} in the matrix
+		PairCounter pairCounts = matrix.getMatrix();
+		for(int slot = 0; slot < pairCounts.getSlotCount(); slot++) {
+			// if I and J are infrequent, we don't continue
+			if(!pairCounts.isUsed(slot) || pairCounts.getCount(slot) < minsuppRelative) {
+				continue;
+			}
+			int intI = pairCounts.getFirstItem(slot);
+			OccurrenceList occurencesI = itemOccurrences.get(intI);
 			// get the tidset of item I
-			Set<Integer> tidsI = occurencesI.keySet();
+			SidList tidsI = occurencesI;
 			
-			// for each item J that co-occurs with I
-			for(Entry<Integer, Integer> entryJ : entry.getValue().entrySet()) {
-				// if I and J are infrequent, we don't continue
-				if(entryJ.getValue() < minsuppRelative) {
-					continue;
-				}
-				Integer intJ = entryJ.getKey();
-				Map<Integer, Occurence> occurencesJ = mapItemCount.get(intJ);
+			int intJ = pairCounts.getSecondItem(slot);
+			OccurrenceList occurencesJ = itemOccurrences.get(intJ);
 
-				// (1) We will now calculate the tids of I -->J  and J-->I.
-				
-				// initialize the tids sets
-				Set<Integer> tidsIJ = new HashSet<Integer>();  // tidset of  I -->J  
-				Set<Integer> tidsJI = new HashSet<Integer>(); // tidset of J-->I
-				
-				// for each occurence of I
-				if(occurencesI.size() < occurencesJ.size()) {
-					calculateTidsetsIJandJI(occurencesI, occurencesJ, tidsIJ, tidsJI);
-				}else {
-					calculateTidsetsIJandJI(occurencesJ, occurencesI, tidsJI, tidsIJ);
-				}
-				
-				// (2) check if the two itemsets have enough common tids
-				// if not, we don't need to generate a rule for them.
-				
-				// create rule IJ
-				if(tidsIJ.size() >= minsuppRelative){
-					// calculate the confidence of I ==> J
-					double confIJ = ((double)tidsIJ.size()) / occurencesI.size();
+			// (1) We will now calculate the tids of I -->J  and J-->I.
+			
+			// initialize the tids sets
+			SidList tidsIJ = new SidList();  // tidset of  I -->J  
+			SidList tidsJI = new SidList(); // tidset of J-->I
+			
+			// for each occurence of I
+			if(occurencesI.size() < occurencesJ.size()) {
+				calculateTidsetsIJandJI(occurencesI, occurencesJ, tidsIJ, tidsJI);
+			}else {
+				calculateTidsetsIJandJI(occurencesJ, occurencesI, tidsJI, tidsIJ);
+			}
+			
+			// (2) check if the two itemsets have enough common tids
+			// if not, we don't need to generate a rule for them.
+			
+			// create rule IJ
+			if(tidsIJ.size() >= minsuppRelative){
+				// calculate the confidence of I ==> J
+				double confIJ = ((double)tidsIJ.size()) / occurencesI.size();
 
-					// create itemset of the rule I ==> J
-					int[] itemsetI = new int[]{intI};
-					int[] itemsetJ = new int[]{intJ};
+				// create itemset of the rule I ==> J
+				int[] itemsetI = new int[]{intI};
+				int[] itemsetJ = new int[]{intJ};
 
-					Set<Integer> tidsJ = occurencesJ.keySet();
+				SidList tidsJ = occurencesJ;
 
-					// if the confidence is high enough, save the rule
-					if(confIJ >= minConfidence){
-						saveRule(tidsIJ, confIJ, itemsetI, itemsetJ);
-					}
-					if(maxAntecedentSize >1 || maxConsequentSize > 1){
-						// register the rule in the appropriate equivalence classes
-						registerRule11(intI, intJ, tidsI, tidsJ, tidsIJ, occurencesI, occurencesJ, mapEclassLeft, mapEclassRight);
-					}
+				// if the confidence is high enough, save the rule
+				if(confIJ >= minConfidence){
+					saveRule(tidsIJ, confIJ, itemsetI, itemsetJ, threadBuffer);
 				}
-				// check if J ==> I has enough common tids
-				// If yes, we create the rule J ==> I
-				if(tidsJI.size() >= minsuppRelative){
-					// create itemset of the rule J ==> I
-					int[] itemsetI = new int[]{intI};
-					int[] itemsetJ = new int[]{intJ};
-					
-					// calculate the confidence
-					double confJI = ((double)tidsJI.size()) / occurencesJ.size();
+				if(maxAntecedentSize >1 || maxConsequentSize > 1){
+					// register the rule in the appropriate equivalence classes
+					registerRule11(intI, intJ, tidsI, tidsJ, tidsIJ, occurencesI, occurencesJ, mapEclassLeft, mapEclassRight);
+				}
+			}
+			// check if J ==> I has enough common tids
+			// If yes, we create the rule J ==> I
+			if(tidsJI.size() >= minsuppRelative){
+				// create itemset of the rule J ==> I
+				int[] itemsetI = new int[]{intI};
+				int[] itemsetJ = new int[]{intJ};
+				
+				// calculate the confidence
+				double confJI = ((double)tidsJI.size()) / occurencesJ.size();
 
-					Set<Integer> tidsJ = occurencesJ.keySet();
+				SidList tidsJ = occurencesJ;
 
-					// if the confidence is high enough, save the rule
-					if(confJI >= minConfidence){
-						saveRule(tidsJI, confJI, itemsetJ, itemsetI);
-					}
-					// register the rule in the appropriate equivalence classes
-					if(maxAntecedentSize > 1 || maxConsequentSize > 1){
-						registerRule11(intJ, intI, tidsJ,  tidsI, tidsJI, occurencesJ, occurencesI, mapEclassLeft, mapEclassRight);
-					}
+				// if the confidence is high enough, save the rule
+				if(confJI >= minConfidence){
+					saveRule(tidsJI, confJI, itemsetJ, itemsetI, threadBuffer);
+				}
+				// register the rule in the appropriate equivalence classes
+				if(maxAntecedentSize > 1 || maxConsequentSize > 1){
+					registerRule11(intJ, intI, tidsJ,  tidsI, tidsJI, occurencesJ, occurencesI, mapEclassLeft, mapEclassRight);
 				}
 			}
 		}
 
 		// PERFORM EXPAND LEFT FOR EACH LEFT-EQUIVALENCE CLASS OF SIZE 1-1
+		List<LeftEquivalenceClass> leftClasses = new ArrayList<LeftEquivalenceClass>();
 		if(maxAntecedentSize >1){
 			for(LeftEquivalenceClass eclassLeft : mapEclassLeft.values()) {
 				if(eclassLeft.rules.size() != 1) {
@@ -280,7 +302,7 @@ public class AlgoERMiner {
 							return arg0.itemsetI[0] - arg1.itemsetI[0];
 						}});
 	
-					expandLeft(eclassLeft);
+					leftClasses.add(eclassLeft);
 				}
 			}
 		}
@@ -288,6 +310,7 @@ public class AlgoERMiner {
 		mapEclassLeft = null;
 		
 		// PERFORM EXPAND RIGHT FOR EACH RIGHT-EQUIVALENCE CLASS OF SIZE 1-1
+		List<RightEquivalenceClass> rightClasses = new ArrayList<RightEquivalenceClass>();
 		if(maxConsequentSize >1){
 			for(RightEquivalenceClass eclassRight : mapEclassRight.values()) {
 				if(eclassRight.rules.size() != 1) {
@@ -296,14 +319,19 @@ public class AlgoERMiner {
 							return arg0.itemsetJ[0] - arg1.itemsetJ[0];
 						}});
 						
-					expandRight(eclassRight, true);
+					rightClasses.add(eclassRight);
 				}
 			}
 		}
 		
 		mapEclassRight = null;
 		
+		expandEquivalenceClasses(leftClasses, rightClasses, threadBuffer);
+		leftClasses = null;
+		rightClasses = null;
+		
 		// PROCESS ALL EQUIVALENCE CLASSES WITH MORE THAN ONE ITEM IN LEF PART FOR EXPAND LEFT AFTER RIGHT...
+		List<LeftEquivalenceClass> storeClasses = new ArrayList<LeftEquivalenceClass>();
 		for(Map<Integer, List<LeftEquivalenceClass>> map : store.getStore().values()) {
 			for(List<LeftEquivalenceClass> eclassList :  map.values()) {
 				for(LeftEquivalenceClass eclass : eclassList) {
@@ -313,12 +341,17 @@ public class AlgoERMiner {
 								return arg0.itemsetI[arg0.itemsetI.length-1] - arg1.itemsetI[arg1.itemsetI.length-1];
 							}});
 					
-						expandLeft(eclass);
+						storeClasses.add(eclass);
 					}
 
 				}
 			}
 		}
+		expandEquivalenceClasses(storeClasses, new ArrayList<RightEquivalenceClass>(), threadBuffer);
+		storeClasses = null;
+		
+		// add the statistics of this thread
+		threadBuffer.save();
 		
 		// save end time
 		timeEnd = System.currentTimeMillis(); 
@@ -330,10 +363,72 @@ public class AlgoERMiner {
 		database = null;
 	}
 
-	private void registerRule11(Integer intI, Integer intJ, Set<Integer> tidsI,
-			Set<Integer> tidsJ, Set<Integer> tidsIJ,
-			Map<Integer, Occurence> occurencesI,
-			Map<Integer, Occurence> occurencesJ,
+	/**
+	 * Expand some equivalence classes, in order. If more than one thread is used, each equivalence
+	 * class is expanded by a task with its own buffer, and the buffers are saved in the order of the classes.
+	 * @param leftClasses the left equivalence classes to be expanded with expand left
+	 * @param rightClasses the right equivalence classes to be expanded with expand right (after the left classes)
+	 * @param output the buffer of the calling thread
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void expandEquivalenceClasses(List<LeftEquivalenceClass> leftClasses,
+			List<RightEquivalenceClass> rightClasses, ExpansionBuffer output) throws IOException {
+		// if a single thread is used, the classes are expanded by the calling thread
+		if(threadCount == 1) {
+			for(LeftEquivalenceClass eclass : leftClasses) {
+				expandLeft(eclass, output);
+			}
+			for(RightEquivalenceClass eclass : rightClasses) {
+				expandRight(eclass, true, output);
+			}
+			return;
+		}
+		
+		// Otherwise, we create a task for each equivalence class
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			List<Future<ExpansionBuffer>> futures = new ArrayList<Future<ExpansionBuffer>>();
+			for(final LeftEquivalenceClass eclass : leftClasses) {
+				futures.add(pool.submit(new Callable<ExpansionBuffer>() {
+					public ExpansionBuffer call() {
+						ExpansionBuffer buffer = new ExpansionBuffer(null, true);
+						expandLeft(eclass, buffer);
+						return buffer;
+					}
+				}));
+			}
+			for(final RightEquivalenceClass eclass : rightClasses) {
+				futures.add(pool.submit(new Callable<ExpansionBuffer>() {
+					public ExpansionBuffer call() {
+						// the rules for expand left after right are registered in a store of this task
+						ExpansionBuffer buffer = new ExpansionBuffer(new ExpandLeftStore(), true);
+						expandRight(eclass, true, buffer);
+						return buffer;
+					}
+				}));
+			}
+			// save the buffer of each task in the order of the equivalence classes
+			for(int i = 0; i < futures.size(); i++){
+				futures.get(i).get().save();
+				futures.set(i, null);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The expansion of the equivalence classes was interrupted", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void registerRule11(int intI, int intJ, SidList tidsI,
+			SidList tidsJ, SidList tidsIJ,
+			OccurrenceList occurencesI,
+			OccurrenceList occurencesJ,
 			Map<Integer, LeftEquivalenceClass> mapEclassLeft,
 			Map<Integer, RightEquivalenceClass> mapEclassRight) {
 		
@@ -357,25 +452,27 @@ public class AlgoERMiner {
 	}
 
 
-	private void calculateTidsetsIJandJI(Map<Integer, Occurence> occurencesI,
-			Map<Integer, Occurence> occurencesJ, Set<Integer> tidsIJ, Set<Integer> tidsJI) {
-		for(Entry<Integer, Occurence> entryOccI : occurencesI.entrySet()){
-			Integer tid = entryOccI.getKey();
+	private void calculateTidsetsIJandJI(OccurrenceList occurencesI,
+			OccurrenceList occurencesJ, SidList tidsIJ, SidList tidsJI) {
+		int posJ = 0;
+		for(int posI = 0; posI < occurencesI.size() && posJ < occurencesJ.size(); posI++){
+			int tid = occurencesI.get(posI);
 			// get the occurence of J in the same sequence
-			Occurence occJ = occurencesJ.get(tid);
+			posJ = occurencesJ.search(tid, posJ);
 			// if J appears in that sequence
-			if(occJ !=  null){
-				Occurence occI = entryOccI.getValue();
+			if(posJ >= 0){
 				// if J appeared before I in that sequence,
 				// then we put this tid in the tidset of  J-->I
-				if(occJ.firstItemset < occI.lastItemset){
+				if(occurencesJ.getFirst(posJ) < occurencesI.getLast(posI)){
 					tidsJI.add(tid);
 				}
 				// if I appeared before J in that sequence,
 				// then we put this tid in the tidset of  I-->J
-				if(occI.firstItemset < occJ.lastItemset){
+				if(occurencesI.getFirst(posI) < occurencesJ.getLast(posJ)){
 					tidsIJ.add(tid);
 				}
+			}else {
+				posJ = -posJ - 1;
 			}
 		}
 	}
@@ -388,7 +485,7 @@ public class AlgoERMiner {
 	}
 	
 
-	private void expandLeft(LeftEquivalenceClass eclass){
+	private void expandLeft(LeftEquivalenceClass eclass, ExpansionBuffer output){
 		for(int w=0; w < eclass.rules.size()-1; w++){  // IMPORTANT : SIZE -1 BECAUSE THE LAST ONE HAS NOTHING LEFT FOR COMPARISON
 			LeftRule rule1 = eclass.rules.get(w);
 			int d = rule1.itemsetI[rule1.itemsetI.length -1];
@@ -404,88 +501,48 @@ public class AlgoERMiner {
 				int c = rule2.itemsetI[rule2.itemsetI.length -1];
 				
 				if(matrix.getCount(c, d) < minsuppRelative){
-					candidatePrunedCount++;
-					totalCandidateCount++;
+					output.candidatePrunedCount++;
+					output.totalCandidateCount++;
 					continue;
 				}
-				totalCandidateCount++;
+				output.totalCandidateCount++;
 
 				
 				// CALCULATE TIDS I U {C}
-				Set<Integer> tidsIC = new HashSet<Integer>(); 
-				
-				Map<Integer, Occurence> mapC = mapItemCount.get(c);
+				OccurrenceList occurencesC = itemOccurrences.get(c);
 				
-				// depending of the relative size of tids of I and tids of {c} we have two ways to calculate it
-				
-				if(rule1.tidsI.size() < mapC.size()) {
-					// EARLY SKIP OPTIMIZATION: <<<<<********
-					int remains = rule1.tidsI.size();
-		 			// for each sequence containing I
-					for(Integer tid: rule1.tidsI){
-						// Get the first and last occurences of C in that sequence
-						// if there is an occurence
-			    		if(mapC.get(tid) != null){
-			    			// add the tid of the sequence to the tidset of JU{c}
-			    			tidsIC.add(tid);
-			    		}
-			    		remains--;
-			    		// early skip
-			    		if(tidsIC.size() + remains < minsuppRelative) {
-			    			break;
-			    		}
-			    	}
-				}else {
-					int remains = mapC.size();
-					// for each sequence containing I
-					for(Integer tid: mapC.keySet()){
-						// Get the first and last occurences of C in that sequence
-						// if there is an occurence
-			    		if(rule1.tidsI.contains(tid)){
-			    			// add the tid of the sequence to the tidset of JU{c}
-			    			tidsIC.add(tid);
-			    		}
-			    		remains--;
-			    		if(tidsIC.size() + remains < minsuppRelative) {
-			    			break;
-			    		}
-			    	}
+				// EARLY SKIP OPTIMIZATION: the intersection is stopped as soon as
+				// I U {c} cannot be frequent (and then IU{c} ==> J cannot be frequent)
+				SidList tidsIC = SidList.intersect(rule1.tidsI, occurencesC, minsuppRelative);
+				if(tidsIC == null) {
+					continue;
 				}
 				
 				// CALCULATE TIDS IC ==> J
-				Set<Integer>  tidsIC_J = new HashSet<Integer>();
+				SidList tidsIC_J = new SidList();
 		    	
-				// depending of the relative size of tids of IUJ and tids of {c} we have two ways to calculate it
-				if(rule1.tidsIJ.size() < mapC.size()) {
-					// for each sequence containing I
-					for(Integer tid: rule1.tidsIJ){
-						// Get the first and last occurences of C in that sequence
-						Occurence occurenceC = mapC.get(tid);
-						// if there is an occurence
-			    		if(occurenceC != null){
-							Occurence occurenceJ = eclass.occurencesJ.get(tid);
-			    			if(occurenceC.firstItemset < occurenceJ.lastItemset){
-			    				// add the tid of the sequence to the tidset of JU{c}
-			    				tidsIC_J.add(tid);
-				    		}
+				// for each sequence containing I ==> J
+				int posC = 0;
+				int posJ = 0;
+				for(int t=0; t < rule1.tidsIJ.size() && posC < occurencesC.size(); t++){
+					int tid = rule1.tidsIJ.get(t);
+					// Get the first and last occurences of C in that sequence
+					posC = occurencesC.search(tid, posC);
+					// if there is an occurence
+		    		if(posC >= 0){
+		    			posJ = eclass.occurencesJ.search(tid, posJ);
+		    			if(occurencesC.getFirst(posC) < eclass.occurencesJ.getLast(posJ)){
+		    				// add the tid of the sequence to the tidset of IU{c} ==> J
+		    				tidsIC_J.add(tid);
 			    		}
-			    	}
-				}else {
-					// for each sequence containing I
-					for(Entry<Integer, Occurence> entryC: mapC.entrySet()){
-						int tid = entryC.getKey();
-						if(rule1.tidsIJ.contains(tid)) {
-							// Get the first and last occurences of C in that sequence
-							Occurence occurenceC = entryC.getValue();
-							// if there is an occurence
-							Occurence occurenceJ = eclass.occurencesJ.get(tid);
-			    			if(occurenceC.firstItemset < occurenceJ.lastItemset){
-				    			// add the tid of the sequence to the tidset of JU{c}
-				    			tidsIC_J.add(tid);
-			    			}
-						}
-			    	}
-				}
+		    		}else {
+		    			posC = -posC - 1;
+		    		}
+		    		// EARLY SKIP OPTIMIZATION: stop if IU{c} ==> J cannot be frequent
+		    		if(tidsIC_J.size() + rule1.tidsIJ.size() - t - 1 < minsuppRelative) {
+		    			break;
+		    		}
+		    	}
 	 			
 				
 				if(tidsIC_J.size() >= minsuppRelative) {
@@ -503,7 +560,7 @@ public class AlgoERMiner {
 					// if the confidence is high enough, then it is a valid rule
 					if(confIC_J >= minConfidence){
 						// save the rule
-						saveRule(tidsIC_J, confIC_J, itemsetIC,  eclass.itemsetJ);
+						saveRule(tidsIC_J, confIC_J, itemsetIC,  eclass.itemsetJ, output);
 					}
 		
 					if(newRule.itemsetI.length < maxAntecedentSize){
@@ -513,7 +570,7 @@ public class AlgoERMiner {
 			}
 			
 			if(rulesForRecursion.rules.size() >1  ) {
-				expandLeft(rulesForRecursion);
+				expandLeft(rulesForRecursion, output);
 			}
 		}
 		// check the memory usage
@@ -521,7 +578,7 @@ public class AlgoERMiner {
 	}
 
 
-	private void expandRight(RightEquivalenceClass eclass, boolean firstTime) {
+	private void expandRight(RightEquivalenceClass eclass, boolean firstTime, ExpansionBuffer output) {
 		for(int w=0; w < eclass.rules.size()-1; w++){ // IMPORTANT : SIZE -1 BECAUSE THE LAST ONE HAS NOTHING LEFT FOR COMPARISON
 			RightRule rule1 = eclass.rules.get(w);
 			int d = rule1.itemsetJ[rule1.itemsetJ.length -1];
@@ -534,107 +591,71 @@ public class AlgoERMiner {
 				int c = rule2.itemsetJ[rule2.itemsetJ.length -1];
 
 				if(matrix.getCount(c, d) < minsuppRelative) {
-					candidatePrunedCount++;
-					totalCandidateCount++;
+					output.candidatePrunedCount++;
+					output.totalCandidateCount++;
 					continue;
 				}
-				totalCandidateCount++;
+				output.totalCandidateCount++;
 				
 				// CALCULATE TIDS OF  I ==> JC
-				Set<Integer> tidsI_JC = new HashSet<Integer>();
+				SidList tidsI_JC = new SidList();
 				
-	 			// for each sequence containing I
-				Map<Integer, Occurence> mapC = mapItemCount.get(c);
-
-				// depending of the relative size of tids of IUJ and tids of {c} we have two ways to calculate it
-				if(rule1.tidsIJ.size() < mapC.size()) {
-					// EARLY SKIP OPTIMIZATION:
-					int remains = rule1.tidsIJ.size();
-					for(Integer tid: rule1.tidsIJ){
-						// Get the first and last occurences of C in that sequence
-						Occurence occurenceC = mapC.get(tid);
-						// if there is an occurence
-			    		if(occurenceC != null) {
-							Occurence occurenceI = eclass.occurencesI.get(tid);
-			    			if(occurenceC.lastItemset > occurenceI.firstItemset){
-			    				// add the tid of the sequence to the tidset of JU{c}
-			    				tidsI_JC.add(tid);
-			    			}
-			    		}
-			    		remains--;
-			    		if(tidsI_JC.size() + remains < minsuppRelative) {
-			    			break;
-			    		}
-			    	}
-				}else {
-					// EARLY SKIP OPTIMIZATION:
-					int remains = mapC.size();
-					for(Entry<Integer, Occurence> entryC: mapC.entrySet()){
-						int tid = entryC.getKey();
-						// if there is an occurence
-			    		if(rule1.tidsIJ.contains(tid)) {
-							Occurence occurenceC = entryC.getValue();
-							Occurence occurenceI = eclass.occurencesI.get(tid);
-			    			if(occurenceC.lastItemset > occurenceI.firstItemset){
-			    				// add the tid of the sequence to the tidset of JU{c}
-			    				tidsI_JC.add(tid);
-			    			}
-			    		}
-			    	}
-					remains--;
-		    		if(tidsI_JC.size() + remains < minsuppRelative) {
+				OccurrenceList occurencesC = itemOccurrences.get(c);
+
+				// for each sequence containing I ==> J, find the occurences of {c}
+				// and of I in that sequence
+				int posC = 0;
+				int posI = 0;
+				for(int t=0; t < rule1.tidsIJ.size() && posC < occurencesC.size(); t++){
+					int tid = rule1.tidsIJ.get(t);
+					// Get the first and last occurences of C in that sequence
+					posC = occurencesC.search(tid, posC);
+					// if there is an occurence
+		    		if(posC >= 0) {
+		    			posI = eclass.occurencesI.search(tid, posI);
+		    			if(occurencesC.getLast(posC) > eclass.occurencesI.getFirst(posI)){
+		    				// add the tid of the sequence to the tidset of JU{c}
+		    				tidsI_JC.add(tid);
+		    			}
+		    		}else {
+		    			posC = -posC - 1;
+		    		}
+		    		// EARLY SKIP OPTIMIZATION: stop if I ==> JU{c} cannot be frequent
+		    		if(tidsI_JC.size() + rule1.tidsIJ.size() - t - 1 < minsuppRelative) {
 		    			break;
 		    		}
-				}
+		    	}
 				
 				
 				// if the support of I ==> JU{c} is enough 
 	    		if(tidsI_JC.size() >= minsuppRelative){  
 	    			
 	    			// CALCULATE THE OCCURENCES OF JU{c}
-	    			Set<Integer> tidsJC = new HashSet<Integer>(rule1.tidsJ.size());
-	    			Map<Integer, Occurence> occurencesJC = new HashMap<Integer, Occurence>();
+	    			// (the sequence IDs of these occurences are the tids of JU{c})
+	    			OccurrenceList occurencesJC = new OccurrenceList(Math.min(rule1.tidsJ.size(), occurencesC.size()));
 	    			
 	    			// for each sequence containing J
-	    			if(rule1.tidsJ.size() < mapC.size()) {
-		    			for(Integer tid: rule1.tidsJ){
-		    				// Get the first and last occurences of C in that sequence
-		    				Occurence occurrenceC = mapC.get(tid);
-		    				// if there is an occurence
-		    	    		if(occurrenceC != null){
-		    	    			// add the tid of the sequence to the tidset of JU{c}
-		    	    			tidsJC.add(tid);
-		    	    			// calculate last occurence of JU{c} depending on if
-		    	    			// the last occurence of J is before the last occurence
-		    	    			// of c or not.
-		    	    			Occurence occurenceJ = rule1.occurencesJ.get(tid);
-		    	    			if(occurrenceC.lastItemset < occurenceJ.lastItemset){
-		    	    				occurencesJC.put(tid, occurrenceC);
-		    	    			}else{
-		    	    				occurencesJC.put(tid, occurenceJ);
-		    	    			}
-		    	    		}
-		    	    	}
-	    			}else {
-	    				for(Entry<Integer, Occurence> entryC: mapC.entrySet()){
-							int tid = entryC.getKey();
-							// if there is an occurence
-				    		if(rule1.tidsJ.contains(tid)) {
-								// add the tid of the sequence to the tidset of JU{c}
-		    	    			tidsJC.add(tid);
-		    	    			// calculate last occurence of JU{c} depending on if
-		    	    			// the last occurence of J is before the last occurence
-		    	    			// of c or not.
-								Occurence occurrenceC = entryC.getValue();
-		    	    			Occurence occurenceJ = rule1.occurencesJ.get(tid);
-		    	    			if(occurrenceC.lastItemset < occurenceJ.lastItemset){
-		    	    				occurencesJC.put(tid, occurrenceC);
-		    	    			}else{
-		    	    				occurencesJC.put(tid, occurenceJ);
-		    	    			}
-				    		}
-	    				}
-	    			}
+	    			posC = 0;
+	    			for(int posJ=0; posJ < rule1.occurencesJ.size() && posC < occurencesC.size(); posJ++){
+	    				int tid = rule1.occurencesJ.get(posJ);
+	    				// Get the first and last occurences of C in that sequence
+	    				posC = occurencesC.search(tid, posC);
+	    				// if there is no occurence
+	    	    		if(posC < 0){
+	    	    			posC = -posC - 1;
+	    	    			continue;
+	    	    		}
+	    	    		// add the tid of the sequence to the tidset of JU{c} and
+	    	    		// calculate last occurence of JU{c} depending on if
+	    	    		// the last occurence of J is before the last occurence
+	    	    		// of c or not.
+	    	    		if(occurencesC.getLast(posC) < rule1.occurencesJ.getLast(posJ)){
+	    	    			occurencesJC.add(tid, occurencesC.getFirst(posC), occurencesC.getLast(posC));
+	    	    		}else{
+	    	    			occurencesJC.add(tid, rule1.occurencesJ.getFirst(posJ), rule1.occurencesJ.getLast(posJ));
+	    	    		}
+	    	    	}
+	    			SidList tidsJC = occurencesJC;
 	    			
 	    			// Create rule I ==> J U{c} and calculate its confidence   
 	    	    	// defined as:  sup(I -->J U{c}) /  sup(I)	
@@ -646,7 +667,7 @@ public class AlgoERMiner {
 					// if the confidence is enough
 					if(confI_JC >= minConfidence){
 						// then it is a valid rule so save it
-						saveRule(tidsI_JC, confI_JC, eclass.itemsetI, itemsetJC);
+						saveRule(tidsI_JC, confI_JC, eclass.itemsetI, itemsetJC, output);
 					}
 					// recursively try to expand the left and right side
 					// of the rule
@@ -659,13 +680,13 @@ public class AlgoERMiner {
 					
 					if(eclass.itemsetI.length < maxAntecedentSize){
 						LeftRule leftRule = new LeftRule(eclass.itemsetI, eclass.tidsI, tidsI_JC);
-						store.register(leftRule, itemsetJC, tidsJC, eclass.occurencesI, occurencesJC); // register for left expansion
+						output.store.register(leftRule, itemsetJC, tidsJC, eclass.occurencesI, occurencesJC); // register for left expansion
 					}
 				}
 			}
 
 			if(rulesForRecursion.rules.size() >1) {
-				expandRight(rulesForRecursion, false);
+				expandRight(rulesForRecursion, false, output);
 			}
 		}
     	// check the memory usage
@@ -677,13 +698,13 @@ public class AlgoERMiner {
 	 * This method calculate the frequency of each item in one database pass.
 	 * Then it remove all items that are not frequent.
 	 * @param database : a sequence database 
-	 * @return A map such that key = item
-	 *                         value = a map  where a key = tid  and a value = Occurence
-	 * This map allows knowing the frequency of each item and their first and last occurence in each sequence.
+	 * @return A structure that gives for each item the sequence IDs where it appears
+	 *         and its first and last occurence in each of these sequences.
+	 * This structure allows knowing the frequency of each item and their first and last occurence in each sequence.
 	 */
-	private Map<Integer, Map<Integer, Occurence>> calculateFrequencyOfEachItem(SequenceDatabase database) {
+	private ItemOccurrenceIndex calculateFrequencyOfEachItem(SequenceDatabase database) {
 		// (1) Count the support of each item in the database in one database pass
-		mapItemCount = new HashMap<Integer, Map<Integer, Occurence>>(); // <item, Map<tid, occurence>>
+		itemOccurrences = new ItemOccurrenceIndex(false);
 		
 		// for each sequence in the database
 		for(int k=0; k< database.size(); k++){
@@ -693,65 +714,56 @@ public class AlgoERMiner {
 				List<Integer> itemset = sequence.get(j);
 				// for each item in that itemset
 				for(Integer itemI : itemset){
-					
-					// get the map of occurences of that item
-					Map<Integer, Occurence> occurences = mapItemCount.get(itemI);
-					// if this map is null, create a new one
-					if(occurences == null){
-						occurences = new HashMap<Integer, Occurence>();
-						mapItemCount.put(itemI, occurences);
-						occurences.put(k, new Occurence(j, j));
-					}else {
-						// then update the occurence by adding j as the 
-						// last occurence in sequence k
-						Occurence occurence = occurences.get(k);
-						if(occurence == null){
-							occurences.put(k, new Occurence(j, j));
-						}else{
-							occurence.lastItemset = j;
-						}
-					}
+					// update the occurences of that item by adding j as the 
+					// last occurence in sequence k (and as the first occurence
+					// if the item was not seen yet in that sequence)
+					itemOccurrences.addOccurrence(itemI, k, j);
 				}
 			}
 		}
 		
-		// return the map of occurences of items
-		return mapItemCount;
+		// return the occurences of items
+		return itemOccurrences;
 	}
 
 
 	private void generateMatrix(SequenceDatabase database) {
+		// for each item, the last sequence where it was processed
+		// (to remember which items have been processed in the current sequence)
+		int[] processedInSequence = new int[itemOccurrences.getMaxItem() + 1];
+		Arrays.fill(processedInSequence, -1);
+		// the frequent items of the current sequence
+		int[] frequentItems = new int[itemOccurrences.getMaxItem() + 1];
+		
 		// for each sequence
-		for(Sequence sequence : database.getSequences()){
-			
-			// to remember which items have been processed
-			Set<Integer> alreadyProcessed = new HashSet<Integer>();
+		for(int k=0; k< database.size(); k++){
+			Sequence sequence = database.getSequences().get(k);
 			
+			// find the frequent items of that sequence (each item once)
+			int frequentItemCount = 0;
 			// for each itemset
 			for(List<Integer> itemsetj : sequence.getItemsets()) {
-				
 				// for each item
 				for(Integer itemk : itemsetj) {
-					if(alreadyProcessed.contains(itemk) || mapItemCount.get(itemk).size() < minsuppRelative){
+					if(processedInSequence[itemk] == k || itemOccurrences.getSupport(itemk) < minsuppRelative){
 						continue;
 					}
-					
-					/// for item k we should update the matrix with each item co-occurring 
-					Set<Integer> alreadyProcessedWithRespectToK = new HashSet<Integer>();
-					for(List<Integer> itemsetjj : sequence.getItemsets()) {
-						
-						for(Integer itemkk : itemsetjj) {
-							if(itemkk == itemk || alreadyProcessedWithRespectToK.contains(itemkk)
-									||  mapItemCount.get(itemkk).size() < minsuppRelative){
-								continue;
-							}
-							
-							matrix.increaseCountOfPair(itemk, itemkk);
-							alreadyProcessedWithRespectToK.add(itemkk);
-						}
+					processedInSequence[itemk] = k;
+					frequentItems[frequentItemCount++] = itemk;
+				}
+			}
+			
+			/// for each pair of frequent items of the sequence, we update the matrix
+			// (the largest item of the pair is the first one)
+			for(int i=0; i< frequentItemCount; i++) {
+				int itemi = frequentItems[i];
+				for(int j=i+1; j< frequentItemCount; j++) {
+					int itemj = frequentItems[j];
+					if(itemi > itemj) {
+						matrix.increaseCountOfPair(itemi, itemj);
+					}else {
+						matrix.increaseCountOfPair(itemj, itemi);
 					}
-					// end second loop
-					alreadyProcessed.add(itemk);
 				}
 			}
 		}
@@ -765,9 +777,10 @@ public class AlgoERMiner {
 	 * @param confIJ the confidence
 	 * @param itemsetI the left part of the rule
 	 * @param itemsetJ the right part of the rule
+	 * @param output the buffer of the current thread
 	 * @throws IOException exception if error writing the file
 	 */
-	private void saveRule(Set<Integer> tidsIJ, double confIJ, int[] itemsetI, int[] itemsetJ) {
+	private void saveRule(SidList tidsIJ, double confIJ, int[] itemsetI, int[] itemsetJ, ExpansionBuffer output) {
                 // before adding rule, contrast with the other DB to check the support
                 MeasureCalculator mcalc = new MeasureCalculator();
                 try {
@@ -782,7 +795,7 @@ public class AlgoERMiner {
                 }
                 
 		// increase the number of rule found
-		ruleCount++;
+		output.ruleCount++;
 		
 		// create a string buffer
 		StringBuilder buffer = new StringBuilder();
@@ -811,6 +824,11 @@ public class AlgoERMiner {
 		// write confidence
 		buffer.append(" #CONF: ");
 		buffer.append(confIJ);
+		// if the rule is found by another thread, it is saved later
+		if(output.rules != null) {
+			output.rules.add(buffer.toString());
+			return;
+		}
 		try {
 			writer.write(buffer.toString());
 			writer.newLine();
@@ -851,4 +869,63 @@ public class AlgoERMiner {
 		this.maxConsequentSize = maxConsequentSize;
 	}
 
+	/**
+	 * Set the number of threads used to expand the equivalence classes
+	 * @param threadCount the number of threads (1 = serial execution)
+	 */
+	public void setThreadCount(int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * The output of the expansion of equivalence classes by a thread: the rules found, the rules
+	 * registered for expand left after right and the number of candidates. The buffer of a task
+	 * is saved later by the calling thread.
+	 */
+	private class ExpansionBuffer {
+		/** the store where the rules for expand left after right are registered */
+		private final ExpandLeftStore store;
+		/** the rules found, or null if they are written directly to the output file */
+		private final List<String> rules;
+		/** number of rules found */
+		private int ruleCount;
+		/** total number of candidates */
+		private long totalCandidateCount;
+		/** number of pruned candidates */
+		private long candidatePrunedCount;
+		
+		/**
+		 * Constructor
+		 * @param store the store for expand left after right (null if the buffer is only used for expand left)
+		 * @param keepRules if true, the rules are kept in the buffer rather than written to the output file
+		 */
+		private ExpansionBuffer(ExpandLeftStore store, boolean keepRules) {
+			this.store = store;
+			this.rules = keepRules ? new ArrayList<String>() : null;
+		}
+		
+		/**
+		 * Write the rules of the buffer to the output file, merge its store with the store
+		 * of the algorithm and add its statistics to those of the algorithm
+		 * @throws IOException exception if error writing the output file
+		 */
+		private void save() throws IOException {
+			if(rules != null) {
+				for(String rule : rules) {
+					writer.write(rule);
+					writer.newLine();
+				}
+			}
+			if(store != null && store != AlgoERMiner.this.store) {
+				AlgoERMiner.this.store.merge(store);
+			}
+			AlgoERMiner.this.ruleCount += ruleCount;
+			AlgoERMiner.this.totalCandidateCount += totalCandidateCount;
+			AlgoERMiner.this.candidatePrunedCount += candidatePrunedCount;
+		}
+	}
+
 }
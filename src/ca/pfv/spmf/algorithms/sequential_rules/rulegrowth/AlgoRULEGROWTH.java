@@ -21,14 +21,14 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
+import ca.pfv.spmf.datastructures.sidlists.ItemOccurrenceIndex;
+import ca.pfv.spmf.datastructures.sidlists.OccurrenceList;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.input.sequence_database_list_integers.Sequence;
 import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -43,8 +43,12 @@ import ca.pfv.spmf.tools.MemoryLogger;
  *  Proceedings of the 26th Symposium on Applied Computing (ACM SAC 2011). ACM Press, pp. 954-959. 
  * <br/><br/>
  * The main method of this algorithm is "runAlgorithm". It output the result to a file.
+ * <br/><br/>
+ * The tidsets are stored as sorted arrays of sequence IDs (see SidList) and the first and
+ * last occurences of items as arrays of positions (see OccurrenceList).
  * 
- * @see Occurence
+ * @see OccurrenceList
+ * @see SidList
  * @see Sequence
  * @see SequenceDatabase
  * @author Philippe Fournier-Viger
@@ -72,9 +76,9 @@ public class AlgoRULEGROWTH {
 	SequenceDatabase database;
 	
 	/*** internal variables 
-	// This map contains for each item (key) a map of occurences (value).
-	// The map of occurences associates to sequence ID (key), an occurence of the item (value). */
-	Map<Integer,  Map<Integer, Occurence>> mapItemCount;  // item, <tid, occurence>
+	// This structure contains for each item the sequences where it appears,
+	// with its first and last occurences in each of these sequences. */
+	ItemOccurrenceIndex itemOccurrences;
 
 	/** object to write the output file */
 	BufferedWriter writer = null; 
@@ -170,11 +174,11 @@ public class AlgoRULEGROWTH {
 		// Put frequent items in a list.
 		List<Integer> listFrequents = new ArrayList<Integer>();
 		// for each item
-		for(Entry<Integer,Map<Integer, Occurence>> entry : mapItemCount.entrySet()){
+		for(int item = 0; item <= itemOccurrences.getMaxItem(); item++){
 			// if it is frequent
-			if(entry.getValue().size() >= minsuppRelative){
+			if(itemOccurrences.getSupport(item) >= minsuppRelative){
 				// add it to the list
-				listFrequents.add(entry.getKey());
+				listFrequents.add(item);
 			}
 		}
 		
@@ -184,44 +188,47 @@ public class AlgoRULEGROWTH {
 
 		// For each pair of frequent items i  and j such that i != j
 		for(int i=0; i< listFrequents.size(); i++){
-			// get the item I and its map of occurences
-			Integer intI = listFrequents.get(i);
-			Map<Integer, Occurence> occurencesI = mapItemCount.get(intI);
-			// get the tidset of item I
-			Set<Integer> tidsI = occurencesI.keySet();
+			// get the item I and its occurences
+			int intI = listFrequents.get(i);
+			OccurrenceList occurencesI = itemOccurrences.get(intI);
+			// get the tidset of item I (the sequence IDs of its occurences)
+			SidList tidsI = occurencesI;
 
 			
 			for(int j=i+1; j< listFrequents.size(); j++){
-				// get the item j and its map of occurences
-				Integer intJ = listFrequents.get(j);
-				Map<Integer,Occurence> occurencesJ = mapItemCount.get(intJ);
+				// get the item j and its occurences
+				int intJ = listFrequents.get(j);
+				OccurrenceList occurencesJ = itemOccurrences.get(intJ);
 				// get the tidset of item J
-				Set<Integer> tidsJ = occurencesJ.keySet();
-
+				SidList tidsJ = occurencesJ;
 //				
 				// (1) We will now calculate the tidsets
 				// of I -->J  and the rule J-->I.
 				
-				// initialize the sets
-				Set<Integer> tidsIJ = new HashSet<Integer>();  // tidset of  I -->J  
-				Set<Integer> tidsJI = new HashSet<Integer>(); // tidset of J-->I
+				// initialize the tidsets
+				SidList tidsIJ = new SidList();  // tidset of  I -->J  
+				SidList tidsJI = new SidList(); // tidset of J-->I
 				
 				// for each occurence of I
-				for(Entry<Integer, Occurence> entryOccI : occurencesI.entrySet()){
+				int posJ = 0;
+				for(int posI = 0; posI < occurencesI.size() && posJ < occurencesJ.size(); posI++){
+					int tid = occurencesI.get(posI);
 					// get the occurence of J in the same sequence
-					Occurence occJ = occurencesJ.get(entryOccI.getKey());
-					// if J appears in that sequence
-					if(occJ !=  null){
-						// if J appeared before I in that sequence,
-						// then we put this tid in the tidset of  J-->I
-						if(occJ.firstItemset < entryOccI.getValue().lastItemset){
-							tidsJI.add(entryOccI.getKey());
-						}
-						// if I appeared before J in that sequence,
-						// then we put this tid in the tidset of  I-->J
-						if(entryOccI.getValue().firstItemset < occJ.lastItemset){
-							tidsIJ.add(entryOccI.getKey());
-						}
+					posJ = occurencesJ.search(tid, posJ);
+					// if J does not appear in that sequence
+					if(posJ < 0){
+						posJ = -posJ - 1;
+						continue;
+					}
+					// if J appeared before I in that sequence,
+					// then we put this tid in the tidset of  J-->I
+					if(occurencesJ.getFirst(posJ) < occurencesI.getLast(posI)){
+						tidsJI.add(tid);
+					}
+					// if I appeared before J in that sequence,
+					// then we put this tid in the tidset of  I-->J
+					if(occurencesI.getFirst(posI) < occurencesJ.getLast(posJ)){
+						tidsIJ.add(tid);
 					}
 				}
 				
@@ -326,7 +333,7 @@ public class AlgoRULEGROWTH {
 	 * @param itemsetJ the right part of the rule
 	 * @throws IOException exception if error writing the file
 	 */
-	private void saveRule(Set<Integer> tidsIJ, double confIJ, int[] itemsetI, int[] itemsetJ) throws IOException {
+	private void saveRule(SidList tidsIJ, double confIJ, int[] itemsetI, int[] itemsetJ) throws IOException {
 		// increase the number of rule found
 		ruleCount++;
 //		
@@ -374,30 +381,35 @@ public class AlgoRULEGROWTH {
 	 *   - c is lexically bigger than all items in I
 	 * @throws IOException 
 	 */
-    private void expandLeft(int [] itemsetI, int[] itemsetJ, Collection<Integer> tidsI, 
-    						Collection<Integer> tidsIJ, 
-    						Map<Integer, Occurence> occurencesJ) throws IOException {    	
+    private void expandLeft(int [] itemsetI, int[] itemsetJ, SidList tidsI, 
+    						SidList tidsIJ, 
+    						OccurrenceList occurencesJ) throws IOException {    	
     	// The following map will be used to count the support of each item
     	// c that could potentially extend the rule.
-    	// The map associated a set of tids (value) to an item (key).
-    	Map<Integer, Set<Integer>> frequentItemsC  = new HashMap<Integer, Set<Integer>>();  
+    	// The map associated a tidset (value) to an item (key).
+    	Map<Integer, SidList> frequentItemsC  = new HashMap<Integer, SidList>();  
     	
     	// We scan the sequence where I-->J appear to search for items c 
     	// that we could add to generate a larger rule  IU{c} --> J
     	int left = tidsIJ.size();  // the number of tid containing I-->J
     	
+    	// the position of the current sequence in the occurences of J
+    	int posJ = 0;
+    	
     	// For each tid of sequence containing I-->J
-    	for(Integer tid : tidsIJ){
+    	for(int t=0; t < tidsIJ.size(); t++){
+    		int tid = tidsIJ.get(t);
     		// get the sequence and occurences of J in that sequence
     		Sequence sequence = database.getSequences().get(tid);
-			Occurence end = occurencesJ.get(tid);
+    		posJ = occurencesJ.search(tid, posJ);
+			short end = occurencesJ.getLast(posJ);
 			
 			// for each itemset before the last occurence of J in that sequence
-itemLoop:	for(int k=0; k < end.lastItemset; k++){
+itemLoop:	for(int k=0; k < end; k++){
 				List<Integer> itemset = sequence.get(k);
 				// for each item c in that itemset
 				for(int m=0; m< itemset.size(); m++){
-					Integer itemC = itemset.get(m);
+					int itemC = itemset.get(m);
 					
 					// We will consider if we could create a rule IU{c} --> J
 					// If lexical order is not respected or c is included in the rule already,
@@ -407,7 +419,7 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 					}
 					
 					// Otherwise, we get the tidset of "c" 
-					Set<Integer> tidsItemC = frequentItemsC.get(itemC);
+					SidList tidsItemC = frequentItemsC.get(itemC);
 					
 					// if this set is not null, which means that "c" was not seen yet
 					// when scanning the sequences from I==>J
@@ -422,16 +434,16 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 					// if "c" was seen before but there is not enough sequences left to be scanned
 					// to allow IU{c} --> J to reach the minimum support threshold
 					}else if(tidsItemC.size() + left < minsuppRelative){
-						// remove c and continue the loop of items
-						tidsItemC.remove(itemC);
+						// continue the loop of items
 						continue itemLoop;
 					}
 					// otherwise, if we did not see "c" yet, create a new tidset for "c"
 					if(tidsItemC == null){
-						tidsItemC = new HashSet<Integer>(tidsIJ.size());
+						tidsItemC = new SidList();
 						frequentItemsC.put(itemC, tidsItemC);
 					}
 					// add the current tid to the tidset of "c"
+					// (it is ignored if c appeared in a previous itemset of this sequence)
 					tidsItemC.add(tid);				
 				}
 			}
@@ -439,22 +451,17 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 		}
     	
      	// For each item c found, we create a rule	IU{c} ==> J
-    	for(Entry<Integer, Set<Integer>> entry : frequentItemsC.entrySet()){
-    		Integer itemC = entry.getKey();
+    	for(Entry<Integer, SidList> entry : frequentItemsC.entrySet()){
+    		int itemC = entry.getKey();
     		// get the tidset IU{c} ==> J
-    		Set<Integer> tidsIC_J = entry.getValue();
+    		SidList tidsIC_J = entry.getValue();
     		
     		// if the support of IU{c} ==> J is enough 
     		if(tidsIC_J.size() >= minsuppRelative){ 
     			
     			// Calculate tids containing IU{c} which is necessary
     			// to calculate the confidence
-    			Set<Integer> tidsIC = new HashSet<Integer>(tidsI.size());
-    	    	for(Integer tid: tidsI){
-    	    		if(mapItemCount.get(itemC).containsKey(tid)){
-    	    			tidsIC.add(tid);
-    	    		}
-    	    	}
+    			SidList tidsIC = SidList.intersect(tidsI, itemOccurrences.get(itemC), 0);
     			
     			// Create rule and calculate its confidence of IU{c} ==> J 
     	    	// defined as:  sup(IU{c} -->J) /  sup(IU{c})			
@@ -492,36 +499,41 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 	 * @throws IOException 
 	 */
     private void expandRight(int [] itemsetI, int []itemsetJ,
-							Set<Integer> tidsI, 
-    						Collection<Integer> tidsJ, 
-    						Collection<Integer> tidsIJ, 
-    						Map<Integer, Occurence> occurencesI,
-    						Map<Integer, Occurence> occurencesJ) throws IOException {
+							SidList tidsI, 
+    						SidList tidsJ, 
+    						SidList tidsIJ, 
+    						OccurrenceList occurencesI,
+    						OccurrenceList occurencesJ) throws IOException {
 //		if(true)
 //    	return;
     	
     	// The following map will be used to count the support of each item
     	// c that could potentially extend the rule.
-    	// The map associated a set of tids (value) to an item (key).
-    	Map<Integer, Set<Integer>> frequentItemsC  = new HashMap<Integer, Set<Integer>>();  
+    	// The map associated a tidset (value) to an item (key).
+    	Map<Integer, SidList> frequentItemsC  = new HashMap<Integer, SidList>();  
     	
     	// we scan the sequence where I-->J appear to search for items c that we could add.
     	// for each sequence containing I-->J.
     	int left = tidsIJ.size();
     	
+    	// the position of the current sequence in the occurences of I
+    	int posI = 0;
+    	
     	// For each tid of sequence containing I-->J
-    	for(Integer tid : tidsIJ){
+    	for(int t=0; t < tidsIJ.size(); t++){
+    		int tid = tidsIJ.get(t);
     		// get the sequence and get occurences of I in that sequence
     		Sequence sequence = database.getSequences().get(tid);
-			Occurence first = occurencesI.get(tid);
+    		posI = occurencesI.search(tid, posI);
+			short first = occurencesI.getFirst(posI);
 			
 			// for each itemset after the first occurence of I in that sequence
-			for(int k=first.firstItemset+1; k < sequence.size(); k++){
+			for(int k=first+1; k < sequence.size(); k++){
 				List<Integer> itemset = sequence.get(k);
 				// for each item
 	itemLoop:	for(int m=0; m< itemset.size(); m++){
 					// for each item c in that itemset
-					Integer itemC = itemset.get(m);
+					int itemC = itemset.get(m);
 					
 					// We will consider if we could create a rule I --> J U{c}
 					// If lexical order is not respected or c is included in the rule already,
@@ -529,7 +541,7 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 					if(containsLEX(itemsetI, itemC) ||  containsLEXPlus(itemsetJ, itemC)){
 						continue;
 					}
-					Set<Integer> tidsItemC = frequentItemsC.get(itemC);
+					SidList tidsItemC = frequentItemsC.get(itemC);
 					
 					// if "c" was seen before but there is not enough sequences left to be scanned
 					// to allow IU --> J {c} to reach the minimum support threshold
@@ -540,16 +552,16 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 					}else if(tidsItemC.size() + left < minsuppRelative){
 						// if "c" was seen before but there is not enough sequences left to be scanned
 						// to allow I--> JU{c}  to reach the minimum support threshold,
-						// remove "c" and continue the loop of items
-						tidsItemC.remove(itemC);
+						// then continue the loop of items
 						continue itemLoop;
 					}
 					if(tidsItemC == null){
 						// otherwise, if we did not see "c" yet, create a new tidset for "c"
-						tidsItemC = new HashSet<Integer>(tidsIJ.size());
+						tidsItemC = new SidList();
 						frequentItemsC.put(itemC, tidsItemC);
 					}
 					// add the current tid to the tidset of "c"
+					// (it is ignored if c appeared in a previous itemset of this sequence)
 					tidsItemC.add(tid);					
 				}
 			}
@@ -557,36 +569,40 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 		}
     	
     	// For each item c found, we create a rule	I ==> JU {c}
-    	for(Entry<Integer, Set<Integer>> entry : frequentItemsC.entrySet()){
-    		Integer itemC = entry.getKey();
+    	for(Entry<Integer, SidList> entry : frequentItemsC.entrySet()){
+    		int itemC = entry.getKey();
     		// get the tidset of I ==> JU {c}
-    		Set<Integer> tidsI_JC = entry.getValue();
+    		SidList tidsI_JC = entry.getValue();
     		
     		// if the support of I ==> JU{c} is enough 
     		if(tidsI_JC.size() >= minsuppRelative){  
     			// create the itemset JU{c} and calculate the occurences of JU{c}
-    			Set<Integer> tidsJC = new HashSet<Integer>(tidsJ.size());
-    			Map<Integer, Occurence> occurencesJC = new HashMap<Integer, Occurence>();
+    			// (the sequence IDs of these occurences are the tidset of JU{c})
+    			OccurrenceList occurencesC = itemOccurrences.get(itemC);
+    			OccurrenceList occurencesJC = new OccurrenceList(Math.min(tidsJ.size(), occurencesC.size()));
     			
     			// for each sequence containing J
-    			for(Integer tid: tidsJ){
+    			int posC = 0;
+    			for(int posJ=0; posJ < occurencesJ.size() && posC < occurencesC.size(); posJ++){
+    				int tid = occurencesJ.get(posJ);
     				// Get the first and last occurences of C in that sequence
-    				Occurence occurenceC = mapItemCount.get(itemC).get(tid);
-    				// if there is an occurence
-    	    		if(occurenceC != null){
-    	    			// add the tid of the sequence to the tidset of JU{c}
-    	    			tidsJC.add(tid);
-    	    			// calculate last occurence of JU{c} depending on if
-    	    			// the last occurence of J is before the last occurence
-    	    			// of c or not.
-    	    			Occurence occurenceJ = occurencesJ.get(tid);
-    	    			if(occurenceC.lastItemset < occurenceJ.lastItemset){
-    	    				occurencesJC.put(tid, occurenceC);
-    	    			}else{
-    	    				occurencesJC.put(tid, occurenceJ);
-    	    			}
+    				posC = occurencesC.search(tid, posC);
+    				// if there is no occurence
+    	    		if(posC < 0){
+    	    			posC = -posC - 1;
+    	    			continue;
+    	    		}
+    	    		// add the tid of the sequence to the tidset of JU{c} and
+    	    		// calculate last occurence of JU{c} depending on if
+    	    		// the last occurence of J is before the last occurence
+    	    		// of c or not.
+    	    		if(occurencesC.getLast(posC) < occurencesJ.getLast(posJ)){
+    	    			occurencesJC.add(tid, occurencesC.getFirst(posC), occurencesC.getLast(posC));
+    	    		}else{
+    	    			occurencesJC.add(tid, occurencesJ.getFirst(posJ), occurencesJ.getLast(posJ));
     	    		}
     	    	}
+    			SidList tidsJC = occurencesJC;
     			
     			// Create rule I ==> J U{c} and calculate its confidence   
     	    	// defined as:  sup(I -->J U{c}) /  sup(I)	
@@ -623,13 +639,13 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 	 * This method calculate the frequency of each item in one database pass.
 	 * Then it remove all items that are not frequent.
 	 * @param database : a sequence database 
-	 * @return A map such that key = item
-	 *                         value = a map  where a key = tid  and a value = Occurence
-	 * This map allows knowing the frequency of each item and their first and last occurence in each sequence.
+	 * @return A structure that gives for each item the sequence IDs where it appears
+	 *         and its first and last occurence in each of these sequences.
+	 * This structure allows knowing the frequency of each item and their first and last occurence in each sequence.
 	 */
-	private Map<Integer, Map<Integer, Occurence>> removeItemsThatAreNotFrequent(SequenceDatabase database) {
+	private ItemOccurrenceIndex removeItemsThatAreNotFrequent(SequenceDatabase database) {
 		// (1) Count the support of each item in the database in one database pass
-		mapItemCount = new HashMap<Integer, Map<Integer, Occurence>>(); // <item, Map<tid, occurence>>
+		itemOccurrences = new ItemOccurrenceIndex(false);
 		
 		// for each sequence in the database
 		for(int k=0; k< database.size(); k++){
@@ -639,28 +655,13 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 				List<Integer> itemset = sequence.get(j);
 				// for each item in that itemset
 				for(int i=0; i< itemset.size(); i++){
-					Integer itemI = itemset.get(i);
-					
-					// get the map of occurences of that item
-					Map<Integer, Occurence> occurences = mapItemCount.get(itemI);
-					// if this map is null, create a new one
-					if(occurences == null){
-						occurences = new HashMap<Integer, Occurence>();
-						mapItemCount.put(itemI, occurences);
-					}
-					// then update the occurence by adding j as the 
-					// last occurence in sequence k
-					Occurence occurence = occurences.get(k);
-					if(occurence == null){
-						occurence = new Occurence(j, j);
-						occurences.put(k, occurence);
-					}else{
-						occurence.lastItemset = j;
-					}
+					// update the occurences of that item by adding j as the 
+					// last occurence in sequence k (and as the first occurence
+					// if the item was not seen yet in that sequence)
+					itemOccurrences.addOccurrence(itemset.get(i), k, j);
 				}
 			}
 		}
-//		System.out.println("NUMBER OF DIFFERENT ITEMS : " + mapItemCount.size());
 		// (2) remove all items that are not frequent from the database
 		
 		// for each sequence
@@ -675,7 +676,7 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 				// for each item
 				while(j < itemset.size()){
 					// if the item is not frequent remove it
-					if( mapItemCount.get(itemset.get(j)).size() < minsuppRelative){
+					if(itemOccurrences.getSupport(itemset.get(j)) < minsuppRelative){
 						itemset.remove(j);
 					}else{
 						// otherwise go to next item
@@ -685,8 +686,8 @@ itemLoop:	for(int k=0; k < end.lastItemset; k++){
 				i++;  // go to next itemset
 			}
 		}
-		// return the map of occurences of items
-		return mapItemCount;
+		// return the occurences of items
+		return itemOccurrences;
 	}
 
 	/**
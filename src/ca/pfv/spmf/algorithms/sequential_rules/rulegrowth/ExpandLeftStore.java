@@ -17,13 +17,20 @@ package ca.pfv.spmf.algorithms.sequential_rules.rulegrowth;
 */
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+
+import ca.pfv.spmf.datastructures.sidlists.OccurrenceList;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 
 /**
  * This is the LeftStore structure used by the ERMiner algorithm
+ * <br/><br/>
+ * 
+ * The equivalence classes are kept in the order in which they were first registered.
+ * Thus, when the rules are registered by several threads in their own stores, merging
+ * these stores in a fixed order gives the same store as a serial execution.
  * 
  * @see AlgoERMiner
  * @author Philippe Fournier-Viger
@@ -31,41 +38,66 @@ import java.util.Set;
 public class ExpandLeftStore {
 	
 	// SIZE,  HASH on LEFT ITEMSET,  LIST OF RULES
-	Map<Integer, Map<Integer, List<LeftEquivalenceClass>>> store = new HashMap<Integer, Map<Integer, List<LeftEquivalenceClass>>>();
+	Map<Integer, Map<Integer, List<LeftEquivalenceClass>>> store = new LinkedHashMap<Integer, Map<Integer, List<LeftEquivalenceClass>>>();
 
 	public ExpandLeftStore() {
 		
 	}
 	public void register(LeftRule leftRule, int[] itemsetJ,
-			Set<Integer> tidsJ, Map<Integer, Occurence> occurencesI,
-			Map<Integer, Occurence> occurencesJ) {
+			SidList tidsJ, OccurrenceList occurencesI,
+			OccurrenceList occurencesJ) {
+		getEquivalenceClass(itemsetJ, tidsJ, occurencesJ).rules.add(leftRule);
+	}
+
+	/**
+	 * Add the rules registered in another store to the equivalence classes of this store
+	 * (the rules of each class are appended after the rules already in this store).
+	 * @param other the other store
+	 */
+	public void merge(ExpandLeftStore other) {
+		for(Map<Integer, List<LeftEquivalenceClass>> map : other.store.values()) {
+			for(List<LeftEquivalenceClass> list : map.values()) {
+				for(LeftEquivalenceClass otherClass : list) {
+					LeftEquivalenceClass eclass = getEquivalenceClass(otherClass.itemsetJ,
+							otherClass.tidsJ, otherClass.occurencesJ);
+					eclass.rules.addAll(otherClass.rules);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the equivalence class of a consequent, or create it if it is not in the store
+	 * @param itemsetJ the consequent
+	 * @param tidsJ the tidset of the consequent
+	 * @param occurencesJ the occurences of the consequent
+	 * @return the equivalence class
+	 */
+	private LeftEquivalenceClass getEquivalenceClass(int[] itemsetJ, SidList tidsJ,
+			OccurrenceList occurencesJ) {
 		int size = itemsetJ.length;
 		int hash = Arrays.hashCode(itemsetJ);
 		
 		Map<Integer, List<LeftEquivalenceClass>> map = store.get(size);
 		if(map == null) {
-			map = new HashMap<Integer, List<LeftEquivalenceClass>>();
+			map = new LinkedHashMap<Integer, List<LeftEquivalenceClass>>();
 			store.put(size, map);
 		}	
 		List<LeftEquivalenceClass> list = map.get(hash);	
 		if(list == null) {
-			LeftEquivalenceClass eclass = new LeftEquivalenceClass(itemsetJ, tidsJ, occurencesJ);
 			list = new ArrayList<LeftEquivalenceClass>();
 			map.put(hash, list);
-			list.add(eclass);
-			eclass.rules.add(leftRule);
 		}else {
 			for(LeftEquivalenceClass eclass : list) {
 				if(Arrays.equals(eclass.itemsetJ, itemsetJ)) {
-					eclass.rules.add(leftRule);
-					return;
+					return eclass;
 				}
 			}
-			// if not found
-			LeftEquivalenceClass eclass = new LeftEquivalenceClass(itemsetJ, tidsJ, occurencesJ);
-			list.add(eclass);
-			eclass.rules.add(leftRule);
 		}
+		// if not found
+		LeftEquivalenceClass eclass = new LeftEquivalenceClass(itemsetJ, tidsJ, occurencesJ);
+		list.add(eclass);
+		return eclass;
 	}
 
 
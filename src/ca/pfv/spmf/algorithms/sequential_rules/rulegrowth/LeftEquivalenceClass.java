@@ -19,9 +19,9 @@ package ca.pfv.spmf.algorithms.sequential_rules.rulegrowth;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
+import ca.pfv.spmf.datastructures.sidlists.OccurrenceList;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 
 /**
@@ -34,14 +34,14 @@ import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 public class LeftEquivalenceClass {
 	
 	int[] itemsetJ; 
-	Set<Integer> tidsJ;
-	Map<Integer, Occurence> occurencesJ;
+	SidList tidsJ;
+	OccurrenceList occurencesJ;
 	
 	List<LeftRule> rules = new ArrayList<LeftRule>();
 
 	public LeftEquivalenceClass(int[] itemsetJ, 
-			Set<Integer> tidsJ, 
-			Map<Integer, Occurence> occurencesJ) {
+			SidList tidsJ, 
+			OccurrenceList occurencesJ) {
 			this.itemsetJ = itemsetJ;
 			this.tidsJ = tidsJ;
 			this.occurencesJ = occurencesJ;
@@ -17,8 +17,8 @@ package ca.pfv.spmf.algorithms.sequential_rules.rulegrowth;
 */
 
 import java.util.Arrays;
-import java.util.Set;
 
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 
 /**
@@ -31,11 +31,11 @@ import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 public class LeftRule {
 	
 	int[] itemsetI;
-	Set<Integer> tidsI;
-	Set<Integer> tidsIJ;
+	SidList tidsI;
+	SidList tidsIJ;
 
-	public LeftRule(int[] itemsetI, Set<Integer> tidsI,
-			Set<Integer> tidsIJ
+	public LeftRule(int[] itemsetI, SidList tidsI,
+			SidList tidsIJ
 			) {
 			this.itemsetI = itemsetI;
 			this.tidsI = tidsI;
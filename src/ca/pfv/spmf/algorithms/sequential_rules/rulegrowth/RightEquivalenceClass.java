@@ -19,9 +19,9 @@ package ca.pfv.spmf.algorithms.sequential_rules.rulegrowth;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
+import ca.pfv.spmf.datastructures.sidlists.OccurrenceList;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 
 /**
@@ -34,13 +34,13 @@ import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 public class RightEquivalenceClass {
 	
 	int[] itemsetI;
-	Set<Integer> tidsI;
-	Map<Integer, Occurence> occurencesI;
+	SidList tidsI;
+	OccurrenceList occurencesI;
 	
 	List<RightRule> rules = new ArrayList<RightRule>();
 
-	public RightEquivalenceClass(int[] itemsetI, Set<Integer> tidsI,
-			Map<Integer, Occurence> occurencesI) {
+	public RightEquivalenceClass(int[] itemsetI, SidList tidsI,
+			OccurrenceList occurencesI) {
 			this.itemsetI = itemsetI;
 			this.tidsI = tidsI;
 			this.occurencesI = occurencesI;
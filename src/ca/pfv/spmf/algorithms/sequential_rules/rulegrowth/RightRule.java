@@ -17,9 +17,9 @@ package ca.pfv.spmf.algorithms.sequential_rules.rulegrowth;
 */
 
 import java.util.Arrays;
-import java.util.Map;
-import java.util.Set;
 
+import ca.pfv.spmf.datastructures.sidlists.OccurrenceList;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 
 /**
@@ -32,13 +32,13 @@ import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 public class RightRule {
 	
 	int []itemsetJ; 
-	Set<Integer> tidsJ;
-	Set<Integer> tidsIJ;
-	Map<Integer, Occurence> occurencesJ;
+	SidList tidsJ;
+	SidList tidsIJ;
+	OccurrenceList occurencesJ;
 
 	public RightRule(int[] itemsetJ, 
-			Set<Integer> tidsJ, Set<Integer> tidsIJ,
-			Map<Integer, Occurence> occurencesJ) {
+			SidList tidsJ, SidList tidsIJ,
+			OccurrenceList occurencesJ) {
 			this.itemsetJ = itemsetJ;
 			this.tidsJ = tidsJ;
 			this.tidsIJ = tidsIJ;
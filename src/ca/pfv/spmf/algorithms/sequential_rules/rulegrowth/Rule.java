@@ -17,10 +17,10 @@ package ca.pfv.spmf.algorithms.sequential_rules.rulegrowth;
 */
 
 import java.util.Arrays;
-import java.util.Map;
-import java.util.Set;
 
 import ca.pfv.spmf.algorithms.sequential_rules.cmdeogun.AlgoCMDeogun;
+import ca.pfv.spmf.datastructures.sidlists.OccurrenceList;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids.Itemset;
 
 /**
@@ -34,16 +34,16 @@ public class Rule {
 	
 	int[] itemsetI;
 	int[] itemsetJ; 
-	Set<Integer> tidsI;
-	Set<Integer> tidsJ;
-	Set<Integer> tidsIJ;
-	Map<Integer, Occurence> occurencesI;
-	Map<Integer, Occurence> occurencesJ;
+	SidList tidsI;
+	SidList tidsJ;
+	SidList tidsIJ;
+	OccurrenceList occurencesI;
+	OccurrenceList occurencesJ;
 
-	public Rule(int[] itemsetI, int[] itemsetJ, Set<Integer> tidsI,
-			Set<Integer> tidsJ, Set<Integer> tidsIJ,
-			Map<Integer, Occurence> occurencesI,
-			Map<Integer, Occurence> occurencesJ) {
+	public Rule(int[] itemsetI, int[] itemsetJ, SidList tidsI,
+			SidList tidsJ, SidList tidsIJ,
+			OccurrenceList occurencesI,
+			OccurrenceList occurencesJ) {
 			this.itemsetI = itemsetI;
 			this.itemsetJ = itemsetJ;
 			this.tidsI = tidsI;
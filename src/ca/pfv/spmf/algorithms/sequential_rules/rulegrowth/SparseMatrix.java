@@ -15,64 +15,38 @@ package ca.pfv.spmf.algorithms.sequential_rules.rulegrowth;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import java.util.HashMap;
-import java.util.Map;
+import ca.pfv.spmf.datastructures.sidlists.PairCounter;
 
 /**
  * This class represents the SparseMatrix structure used by ERMiner.
+ * The counts are stored in a hash table of pairs of items (see PairCounter).
  * 
  * @see AlgoERMiner
+ * @see PairCounter
  * @author Philippe Fournier-Viger
  */
 public class SparseMatrix {
 	
 
 	// item i, item j ,  count of i,j appearing together
-	Map<Integer, Map<Integer, Integer>> matrix = new HashMap<Integer, Map<Integer, Integer>>();
-	
+	PairCounter matrix = new PairCounter();
+
 	public SparseMatrix() {
-		
 	}
-	
+
 	public void increaseCountOfPair(int i, int j) {
 		// IMPORTANT
 		if(i < j) {  
 			return;
 		}
-		
-		Map<Integer, Integer> map = matrix.get(i);
-		if(map == null) {
-			map = new HashMap<Integer, Integer>();
-			map.put(j, 1);
-			matrix.put(i, map);
-		}else {
-			Integer count = map.get(j);
-			if(count == null) {
-				map.put(j, 1);	
-			}else {
-				map.put(j, count+1);
-			}
-		}
+		matrix.increment(i, j);
 	}
 	
 	public int getCount(int i, int j) {
-		Map<Integer, Integer> map = matrix.get(i);
-		if(map == null) {
-			return 0;
-		}
-		Integer count = map.get(j);
-		if(count == null) {
-			return 0;
-		}
-		return count;
+		return matrix.getCount(i, j);
 	}
 
-	public Map<Integer, Map<Integer, Integer>> getMatrix() {
+	public PairCounter getMatrix() {
 		return matrix;
 	}
-	
-	
-	
-	 
-
 }
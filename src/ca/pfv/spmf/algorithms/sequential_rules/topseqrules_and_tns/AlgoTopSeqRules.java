@@ -20,13 +20,14 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.sidlists.ItemOccurrenceIndex;
+import ca.pfv.spmf.datastructures.sidlists.OccurrenceList;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.datastructures.redblacktree.RedBlackTree;
 import ca.pfv.spmf.input.sequence_database_array_integers.Sequence;
 import ca.pfv.spmf.input.sequence_database_array_integers.SequenceDatabase;
@@ -42,8 +43,12 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * <br/><br/>
  * The implementation use the red-black tree data structure for storing the current top-k rules during
  * the mining process and the top-k candidate for exploration (see details in the paper).
+ * The tidsets are stored as sorted arrays of sequence IDs (see SidList) and the first and
+ * last occurences of items as arrays of positions (see OccurrenceList).
  * 
  * @see RedBlackTree
+ * @see OccurrenceList
+ * @see SidList
  * @see Sequence
  * @see SequenceDatabase
  * @author Philippe Fournier-Viger
@@ -80,11 +85,9 @@ public class AlgoTopSeqRules {
 	/** the max number of candidates at the same time during the last execution */
 	int maxCandidateCount = 0;
 	
-	/**Arrays where the ith position contains
-	// the map of last or first occurrences for the item i
-	// The key of the maps is a sequence ID and the value is an occurence. */
-	Map<Integer, Short>  arrayMapItemCountFirst[];  // item, <tid, occurence>
-	Map<Integer, Short>  arrayMapItemCountLast[];  // item, <tid, occurence>
+	/** This structure contains for each item the sequences where it appears,
+	// with its first and last occurences in each of these sequences. */
+	ItemOccurrenceIndex itemOccurrences;
 	
 	/**  the maximum size of the antecedent of rules (optional) */
 	int maxAntecedentSize = Integer.MAX_VALUE;
@@ -122,8 +125,7 @@ public class AlgoTopSeqRules {
 		this.minsuppRelative = 1;
 		
 		// create the structure for storing the first/last occurences
-		arrayMapItemCountFirst = new HashMap[database.maxItem+1];
-		arrayMapItemCountLast = new HashMap[database.maxItem+1];
+		itemOccurrences = new ItemOccurrenceIndex(false);
 		
 		// the sets that will contain the top-k rules and the candidates
 		kRules = new RedBlackTree<Rule>();
@@ -156,15 +158,15 @@ public class AlgoTopSeqRules {
 		
 		// For each pair of frequent items i  and j such that i != j
 main1:	for(int itemI=database.minItem; itemI<= database.maxItem; itemI++){
-			// Get the map of occurences of item I
-			Map<Integer, Short> occurencesIfirst = arrayMapItemCountFirst[itemI];
+			// Get the occurences of item I
+			OccurrenceList occurencesI = itemOccurrences.get(itemI);
 			
 			// if none continue
-			if(occurencesIfirst == null){
+			if(occurencesI == null){
 				continue main1;
 			}
 			// get  the set of sequence IDs containing I
-			Set<Integer> tidsI = occurencesIfirst.keySet();
+			SidList tidsI = occurencesI;
 			// if the support of I (cardinality of the tids) is lower
 			// than minsup, than it is not frequent, so we skip this item
 			if(tidsI.size() < minsuppRelative){
@@ -172,15 +174,15 @@ main1:	for(int itemI=database.minItem; itemI<= database.maxItem; itemI++){
 			}
 			
 main2:		for(int itemJ=itemI+1; itemJ <= database.maxItem; itemJ++){
-				// Get the map of occurences of item J
-				Map<Integer, Short> occurencesJfirst = (Map<Integer, Short>) arrayMapItemCountFirst[itemJ];
+				// Get the occurences of item J
+				OccurrenceList occurencesJ = itemOccurrences.get(itemJ);
 				
 				// if none continue
-				if(occurencesJfirst == null){
+				if(occurencesJ == null){
 					continue main2;
 				}
 				// get  the set of sequence IDs containing J
-				Set<Integer> tidsJ = occurencesJfirst.keySet();
+				SidList tidsJ = occurencesJ;
 				// if the support of J (cardinality of the tids) is lower
 				// than minsup, than it is not frequent, so we skip this item
 				if(tidsJ.size() < minsuppRelative){
@@ -190,15 +192,9 @@ main2:		for(int itemJ=itemI+1; itemJ <= database.maxItem; itemJ++){
 				// (1) Build list of common  tids  and count occurences 
 				// of i ==> j  and  j ==> i.
 				
-				// These two hashsets will store the tids of: 
-				Set<Integer> tidsIJ = new HashSet<Integer>();  // i ==> j
-				Set<Integer> tidsJI = new HashSet<Integer>(); // j ==> i.
-
-				// These maps will store the last occurence of I 
-				// and last occurence of J for each sequence ID (a.k.a. tid)
-				//  key: tid     value:  itemset position 
-				Map<Integer, Short> occurencesJlast = (Map<Integer, Short>) arrayMapItemCountLast[itemJ];
-				Map<Integer, Short> occurencesIlast = arrayMapItemCountLast[itemI];
+				// These two lists will store the tids of: 
+				SidList tidsIJ = new SidList();  // i ==> j
+				SidList tidsJI = new SidList(); // j ==> i.
 
 				// if there is less tids in J, then
 				// we will loop over J instead of I to calculate the tidsets
@@ -207,28 +203,29 @@ main2:		for(int itemJ=itemI+1; itemJ <= database.maxItem; itemJ++){
 					// this repsents the number of itemsets left to be scanned
 					int left = tidsJ.size();
 					
+					// the position of the current tid in the occurences of I
+					int posI = 0;
+					
 					// for each tid where J eappears
-					for(Entry<Integer, Short> entry : occurencesJfirst.entrySet()){
-						Integer tid = entry.getKey();
+					for(int posJ = 0; posJ < occurencesJ.size(); posJ++){
+						int tid = occurencesJ.get(posJ);
 						
 						// get the first occurence of I
-						Short occIFirst = occurencesIfirst.get(tid);
+						posI = occurencesI.search(tid, posI);
 						// if there is one
-						if(occIFirst !=  null){
-							// get the first and last occurences of J
-							Short occJFirst = occurencesJfirst.get(tid);
-							Short occJLast = occurencesJlast.get(tid);
+						if(posI >= 0){
 							// If the first of I appears before the last of J
-							if(occIFirst < occJLast){
+							if(occurencesI.getFirst(posI) < occurencesJ.getLast(posJ)){
 								// current tid to the tidset of  i ==> j 
 								tidsIJ.add(tid);
 							}
-							Short occILast = occurencesIlast.get(tid);
 							// If the first of J appears before the last of I
-							if(occJFirst < occILast){
+							if(occurencesJ.getFirst(posJ) < occurencesI.getLast(posI)){
 								// current tid to the tidset of  j ==> i 
 								tidsJI.add(tid);
 							}
+						}else{
+							posI = -posI - 1;
 						}
 						left--;// go to next itemset (in backward direction)
 						
@@ -246,28 +243,29 @@ main2:		for(int itemJ=itemI+1; itemJ <= database.maxItem; itemJ++){
 					// this repsents the number of itemsets left to be scanned
 					int left = tidsI.size();
 					
-					for(Entry<Integer, Short> entry : occurencesIfirst.entrySet()){
-						Integer tid = entry.getKey();
+					// the position of the current tid in the occurences of J
+					int posJ = 0;
+					
+					for(int posI = 0; posI < occurencesI.size(); posI++){
+						int tid = occurencesI.get(posI);
 						
 						// get the first occurence of J
-						Short occJFirst = occurencesJfirst.get(tid);
+						posJ = occurencesJ.search(tid, posJ);
 						
 						// if there is one
-						if(occJFirst !=  null){
-							// get the first and last occurences of I
-							Short occIFirst = occurencesIfirst.get(tid);
-							Short occILast = occurencesIlast.get(tid);
+						if(posJ >= 0){
 							// If the first of J appears before the last of I
-							if(occJFirst < occILast){
+							if(occurencesJ.getFirst(posJ) < occurencesI.getLast(posI)){
 								// current tid to the tidset of  j ==> i
 								tidsJI.add(tid);
 							}
-							Short occJLast = occurencesJlast.get(tid);
 							// If the first of I appears before the last of J
-							if(occIFirst < occJLast){
+							if(occurencesI.getFirst(posI) < occurencesJ.getLast(posJ)){
 								// current tid to the tidset of  i ==> j 
 								tidsIJ.add(tid);
 							}
+						}else{
+							posJ = -posJ - 1;
 						}
 						left--; // go to next itemset (in backward direction)
 						
@@ -288,13 +286,13 @@ main2:		for(int itemJ=itemI+1; itemJ <= database.maxItem; itemJ++){
 				// if the rule I ==> J  is frequent
 				if(supIJ >= minsuppRelative){
 					// create the rule
-					double confIJ = ((double)tidsIJ.size()) / occurencesIfirst.size();
+					double confIJ = ((double)tidsIJ.size()) / occurencesI.size();
 					int[] itemsetI = new int[1];
 					itemsetI[0]= itemI;
 					int[] itemsetJ = new int[1];
 					itemsetJ[0]= itemJ;
 					
-					Rule ruleIJ = new Rule(itemsetI, itemsetJ, confIJ, supIJ, tidsI, tidsJ, tidsIJ, occurencesIfirst, occurencesJlast);
+					Rule ruleIJ = new Rule(itemsetI, itemsetJ, confIJ, supIJ, tidsI, tidsJ, tidsIJ, occurencesI, occurencesJ);
 					
 					// if the rule is valid
 					if(confIJ >= minConfidence){
@@ -315,8 +313,8 @@ main2:		for(int itemJ=itemI+1; itemJ <= database.maxItem; itemJ++){
 					itemsetI[0]= itemI;
 					int[] itemsetJ = new int[1];
 					itemsetJ[0]= itemJ;
-					double confJI = ((double)tidsJI.size()) / occurencesJfirst.size();
-					Rule ruleJI = new Rule(itemsetJ, itemsetI, confJI, supJI, tidsJ, tidsI, tidsJI, occurencesJfirst, occurencesIlast);
+					double confJI = ((double)tidsJI.size()) / occurencesJ.size();
+					Rule ruleJI = new Rule(itemsetJ, itemsetI, confJI, supJI, tidsJ, tidsI, tidsJI, occurencesJ, occurencesI);
 
 					// if the rule is valid
 					if(confJI >= minConfidence){
@@ -421,22 +419,26 @@ main2:		for(int itemJ=itemI+1; itemJ <= database.maxItem; itemJ++){
     	
     	// The following map will be used to count the support of each item
     	// c that could potentially extend the rule.
-    	// The map associated a set of tids (value) to an item (key).
-    	Map<Integer, Set<Integer>> frequentItemsC  = new HashMap<Integer, Set<Integer>>();  
+    	// The map associated a tidset (value) to an item (key).
+    	Map<Integer, SidList> frequentItemsC  = new HashMap<Integer, SidList>();  
     	
     	// we scan the sequence where I-->J appear to search for items c that we could add.
     	// for each sequence containing I-->J
     	int left = rule.tidsIJ.size();
-    	for(Integer tid : rule.tidsIJ){
+    	// the position of the current sequence in the occurences of J
+    	int posJ = 0;
+    	for(int t=0; t < rule.tidsIJ.size(); t++){
+    		int tid = rule.tidsIJ.get(t);
     		// get the sequence and occurences of J in that sequence
     		Sequence sequence = database.getSequences().get(tid);
-			Short end = rule.occurencesJlast.get(tid);
+    		posJ = rule.occurencesJlast.search(tid, posJ);
+			short end = rule.occurencesJlast.getLast(posJ);
 			
 			// for each itemset before the last occurence of J
-itemLoop:	for(int k=0; k < end; k++){
+			for(int k=0; k < end; k++){
 				Integer[] itemset = sequence.get(k);
 				// for each item
-				for(int m=0; m< itemset.length; m++){
+	itemLoop:	for(int m=0; m< itemset.length; m++){
 					Integer itemC = itemset[m];
 					
 					// We will consider if we could create a rule IU{c} --> J
@@ -448,7 +450,7 @@ itemLoop:	for(int k=0; k < end; k++){
 					}
 
 					// Otherwise, we get the tidset of "c" 
-					Set<Integer> tidsItemC = frequentItemsC.get(itemC);
+					SidList tidsItemC = frequentItemsC.get(itemC);
 					
 					// if this set is not null, which means that "c" was not seen yet
 					// when scanning the sequences from I==>J
@@ -462,16 +464,16 @@ itemLoop:	for(int k=0; k < end; k++){
 						// if "c" was seen before but there is not enough sequences left to be scanned
 						// to allow IU{c} --> J to reach the minimum support threshold
 					}else if(tidsItemC.size() + left < minsuppRelative){
-						// remove c and continue the loop of items
-						tidsItemC.remove(itemC);
+						// continue the loop of items
 						continue itemLoop;
 					}
 					// otherwise, if we did not see "c" yet, create a new tidset for "c"
 					if(tidsItemC == null){
-						tidsItemC = new HashSet<Integer>(rule.tidsIJ.size());
+						tidsItemC = new SidList();
 						frequentItemsC.put(itemC, tidsItemC);
 					}
 					// add the current tid to the tidset of "c"
+					// (it is ignored if c appeared in a previous itemset of this sequence)
 					tidsItemC.add(tid);			
 				}
 			}
@@ -479,9 +481,9 @@ itemLoop:	for(int k=0; k < end; k++){
 		}
     	
     	// For each item c found, we create a rule	IU{c} ==> J
-    	for(Entry<Integer, Set<Integer>> entry : frequentItemsC.entrySet()){
+    	for(Entry<Integer, SidList> entry : frequentItemsC.entrySet()){
     		// get the tidset IU{c} ==> J
-    		Set<Integer> tidsIC_J = entry.getValue();
+    		SidList tidsIC_J = entry.getValue();
     		
     		// if the support of IU{c} ==> J is enough 
     		if(tidsIC_J.size() >= minsuppRelative){ 
@@ -489,12 +491,7 @@ itemLoop:	for(int k=0; k < end; k++){
         		
         		// Calculate tids containing IU{c} which is necessary
     			// to calculate the confidence
-    			Set<Integer> tidsIC = new HashSet<Integer>(rule.tidsI.size());
-    	    	for(Integer tid: rule.tidsI){
-    	    		if(arrayMapItemCountFirst[itemC].containsKey(tid)){
-    	    			tidsIC.add(tid);
-    	    		}
-    	    	}
+    			SidList tidsIC = SidList.intersect(rule.tidsI, itemOccurrences.get(itemC), 0);
 
     			// Create rule and calculate its confidence of IU{c} ==> J 
     	    	// defined as:  sup(IU{c} -->J) /  sup(IU{c})					
@@ -533,18 +530,23 @@ itemLoop:	for(int k=0; k < end; k++){
 	
     	// The following map will be used to count the support of each item
     	// c that could potentially extend the rule.
-    	// The map associated a set of tids (value) to an item (key).
-    	Map<Integer, Set<Integer>> frequentItemsC  = new HashMap<Integer, Set<Integer>>();  
+    	// The map associated a tidset (value) to an item (key).
+    	Map<Integer, SidList> frequentItemsC  = new HashMap<Integer, SidList>();  
     	
     	// we scan the sequence where I-->J appear to search for items c that we could add.
     	// for each sequence containing I-->J.
     	int left =rule.tidsIJ.size();
     	
+    	// the position of the current sequence in the occurences of I
+    	int posI = 0;
+    	
     	// For each tid of sequence containing I-->J
-    	for(Integer tid : rule.tidsIJ){
+    	for(int t=0; t < rule.tidsIJ.size(); t++){
+    		int tid = rule.tidsIJ.get(t);
     		// get the sequence and get first occurence of I in that sequence
     		Sequence sequence = database.getSequences().get(tid);
-			Short first = rule.occurencesIfirst.get(tid);
+    		posI = rule.occurencesIfirst.search(tid, posI);
+			short first = rule.occurencesIfirst.getFirst(posI);
 
 			// for each itemset after the first occurence of I in that sequence
 			for(int k=first+1; k < sequence.size(); k++){
@@ -562,7 +564,7 @@ itemLoop:	for(int k=0; k < end; k++){
 						continue;
 					}
 					
-					Set<Integer> tidsItemC = frequentItemsC.get(itemC);
+					SidList tidsItemC = frequentItemsC.get(itemC);
 					// if "c" was seen before but there is not enough sequences left to be scanned
 					// to allow IU --> J {c} to reach the minimum support threshold
 					if(tidsItemC == null){ 
@@ -572,16 +574,16 @@ itemLoop:	for(int k=0; k < end; k++){
 					}else if(tidsItemC.size() + left < minsuppRelative){
 						// if "c" was seen before but there is not enough sequences left to be scanned
 						// to allow I--> JU{c}  to reach the minimum support threshold,
-						// remove "c" and continue the loop of items
-						tidsItemC.remove(itemC);
+						// then continue the loop of items
 						continue itemLoop;
 					}
 					if(tidsItemC == null){
 						// otherwise, if we did not see "c" yet, create a new tidset for "c"
-						tidsItemC = new HashSet<Integer>(rule.tidsIJ.size());
+						tidsItemC = new SidList();
 						frequentItemsC.put(itemC, tidsItemC);
 					}
 					// add the current tid to the tidset of "c"
+					// (it is ignored if c appeared in a previous itemset of this sequence)
 					tidsItemC.add(tid);		
 				}
 			}
@@ -589,37 +591,41 @@ itemLoop:	for(int k=0; k < end; k++){
 		}
     	
     	// For each item c found, we create a rule	I ==> JU {c}	
-    	for(Entry<Integer, Set<Integer>> entry : frequentItemsC.entrySet()){
+    	for(Entry<Integer, SidList> entry : frequentItemsC.entrySet()){
     		// get the tidset of I ==> JU {c}
-    		Set<Integer> tidsI_JC = entry.getValue();
+    		SidList tidsI_JC = entry.getValue();
 
     		// if the support of I ==> JU{c} is enough 
     		if(tidsI_JC.size() >= minsuppRelative){  
         		Integer itemC = entry.getKey();
 
     			// create the itemset JU{c} and calculate the occurences of JU{c}
-    			Set<Integer> tidsJC = new HashSet<Integer>(rule.tidsJ.size());
-    			Map<Integer, Short> occurencesJC = new HashMap<Integer, Short>();
+    			// (the sequence IDs of these occurences are the tidset of JU{c})
+    			OccurrenceList occurencesC = itemOccurrences.get(itemC);
+    			OccurrenceList occurencesJC = new OccurrenceList(Math.min(rule.tidsJ.size(), occurencesC.size()));
 
     			// for each sequence containing J
-    			for(Integer tid: rule.tidsJ){
+    			int posC = 0;
+    			for(int posJ=0; posJ < rule.occurencesJlast.size() && posC < occurencesC.size(); posJ++){
+    				int tid = rule.occurencesJlast.get(posJ);
     				// Get the  last occurence of C in that sequence
-    				Short occurenceCLast = arrayMapItemCountLast[itemC].get(tid);
-    				// if there is an occurence
-    	    		if(occurenceCLast != null){
-    	    			// add the tid of the sequence to the tidset of JU{c}
-    	    			tidsJC.add(tid);
-    	    			// calculate last occurence of JU{c} depending on if
-    	    			// the last occurence of J is before the last occurence
-    	    			// of c or not.
-    	    			Short occurenceJlast = rule.occurencesJlast.get(tid);
-    	    			if(occurenceCLast < occurenceJlast){
-    	    				occurencesJC.put(tid, occurenceCLast);
-    	    			}else{
-    	    				occurencesJC.put(tid, occurenceJlast);
-    	    			}
+    				posC = occurencesC.search(tid, posC);
+    				// if there is no occurence
+    	    		if(posC < 0){
+    	    			posC = -posC - 1;
+    	    			continue;
+    	    		}
+    	    		// add the tid of the sequence to the tidset of JU{c} and
+    	    		// calculate last occurence of JU{c} depending on if
+    	    		// the last occurence of J is before the last occurence
+    	    		// of c or not.
+    	    		if(occurencesC.getLast(posC) < rule.occurencesJlast.getLast(posJ)){
+    	    			occurencesJC.add(tid, occurencesC.getFirst(posC), occurencesC.getLast(posC));
+    	    		}else{
+    	    			occurencesJC.add(tid, rule.occurencesJlast.getFirst(posJ), rule.occurencesJlast.getLast(posJ));
     	    		}
     	    	}
+    			SidList tidsJC = occurencesJC;
 
     			// Create rule I ==> J U{c} and calculate its confidence   
     	    	// defined as:  sup(I -->J U{c}) /  sup(I)	
@@ -647,10 +653,9 @@ itemLoop:	for(int k=0; k < end; k++){
     
 	/**
 	 * This method calculate the frequency of each item in one database pass.
+	 * It fills the structure "itemOccurrences", which gives for each item the sequence IDs
+	 * where it appears and its first and last occurence in each of these sequences.
 	 * @param database : a sequence database 
-	 * @return A map such that key = item
-	 *                         value = a map  where a key = tid  and a value = Occurence
-	 * This map allows knowing the frequency of each item and their first and last occurence in each sequence.
 	 */
 	private void scanDatabase(SequenceDatabase database) {
 		// (1) Count the support of each item in the database in one database pass
@@ -663,21 +668,9 @@ itemLoop:	for(int k=0; k < end; k++){
 				Integer[] itemset = sequence.get(j);
 				// for each item in that sequence
 				for(int i=0; i<itemset.length; i++ ){
-					Integer itemI = itemset[i];
-					// if the map of occurences of that item is null, create a new one
-					if(arrayMapItemCountFirst[itemI] == null){
-						arrayMapItemCountFirst[itemI] =  new HashMap<Integer, Short>();
-						arrayMapItemCountLast[itemI] = new HashMap<Integer, Short>();
-					}
-					// then update the occurences by adding j as the 
+					// update the occurences of that item by adding j as the 
 					// first and/or last occurence(s) in sequence k
-					Short oldPosition = arrayMapItemCountFirst[itemI].get(tid);
-					if(oldPosition == null){
-						arrayMapItemCountFirst[itemI].put(tid, j);
-						arrayMapItemCountLast[itemI].put(tid, j);
-					}else{
-						arrayMapItemCountLast[itemI].put(tid, j);
-					}
+					itemOccurrences.addOccurrence(itemset[i], tid, j);
 				}
 			}
 		}
@@ -16,8 +16,8 @@ package ca.pfv.spmf.algorithms.sequential_rules.topseqrules_and_tns;
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
 
-import java.util.Map;
-import java.util.Set;
+import ca.pfv.spmf.datastructures.sidlists.OccurrenceList;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 
 
 /**
@@ -26,9 +26,11 @@ import java.util.Set;
  * It is optimized for these algorithms by storing several additional fields that are necessary 
  * for such top-k algorithms. For example, a rule includes the 
  * transactions IDs of the antecedent, the transaction IDs of the consequent, the transaction IDs
- * of the sequences where the antecedent appears before the consequent, maps of occurences for the
+ * of the sequences where the antecedent appears before the consequent, lists of occurences for the
  * antecedent and consequent, etc.
  * 
+ * @see SidList
+ * @see OccurrenceList
  * @see AlgoTopSeqClassRules
  * @see AlgoTNS
  * @author Philippe Fournier-Viger
@@ -42,15 +44,15 @@ public class Rule implements Comparable<Rule>{
 	/** absolute support */
 	int transactioncount; 
 	/** the transaction IDs of the antecedent */
-	Set<Integer> tidsI;  
+	SidList tidsI;  
 	/** the transaction IDs of the consequent */
-	Set<Integer> tidsJ; 
+	SidList tidsJ; 
 	/** transaction IDs of the sequences where the antecedent appears before the consequent */
-	Set<Integer> tidsIJ; 	
-	/**  maps of first occurences of the antecedent */
-	Map<Integer, Short> occurencesIfirst; 
-	/**  maps of last occurences of the antecedent */
-	Map<Integer, Short> occurencesJlast; 
+	SidList tidsIJ; 	
+	/**  occurences of the antecedent (only the first occurences are used) */
+	OccurrenceList occurencesIfirst; 
+	/**  occurences of the consequent (only the last occurences are used) */
+	OccurrenceList occurencesJlast; 
 	/** flag indicating if both left and right expansion should be explored from this rule */
 	boolean expandLR = false; 
 	 /** confidence of the rule */
@@ -65,13 +67,13 @@ public class Rule implements Comparable<Rule>{
 	 * @param tidsI the transaction IDs of the antecedent
 	 * @param tidsJ the transaction IDs of the consequent
 	 * @param tidsIJ transaction IDs of the sequences where the antecedent appears before the consequent
-	 * @param occurencesIfirst maps of first occurences of the antecedent
-	 * @param occurencesJlast maps of last occurences of the antecedent
+	 * @param occurencesIfirst occurences of the antecedent (only the first occurences are used)
+	 * @param occurencesJlast occurences of the consequent (only the last occurences are used)
 	 */
 	public Rule(int[] itemset1, int[] itemset2, double confidence, int transactioncount, 
-			Set<Integer> tidsI, Set<Integer> tidsJ, Set<Integer> tidsIJ, 
-			Map<Integer, Short> occurencesIfirst,
-			Map<Integer, Short> occurencesJlast){
+			SidList tidsI, SidList tidsJ, SidList tidsIJ, 
+			OccurrenceList occurencesIfirst,
+			OccurrenceList occurencesJlast){
 		this.itemset1 = itemset1;
 		this.itemset2 = itemset2;
 		this.confidence = confidence;
@@ -185,7 +187,32 @@ public class Rule implements Comparable<Rule>{
 			return compare4;
 		}
 
-		return this.hashCode() - o.hashCode();
+		// if the rules are still tied, they are compared item by item so that 
+		// the order of rules does not depend on where they are stored in memory
+		int compare5 = compareItems(this.itemset1, o.itemset1);
+		if(compare5 !=0){
+			return compare5;
+		}
+		return compareItems(this.itemset2, o.itemset2);
+	}
+	
+	/**
+	 * Compare two itemsets of the same size item by item
+	 * @param itemsetA the first itemset
+	 * @param itemsetB the second itemset
+	 * @return 0 if equal, 0< if the first itemset is smaller or >0 if it is larger
+	 */
+	private static int compareItems(int[] itemsetA, int[] itemsetB) {
+		if(itemsetA == null || itemsetB == null){
+			return 0;
+		}
+		for(int i=0; i< itemsetA.length; i++){
+			int compare = Integer.compare(itemsetA[i], itemsetB[i]);
+			if(compare !=0){
+				return compare;
+			}
+		}
+		return 0;
 	}
 	
 	/**
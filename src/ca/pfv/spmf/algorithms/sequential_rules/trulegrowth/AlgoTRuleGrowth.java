@@ -4,18 +4,18 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.sidlists.ItemOccurrenceIndex;
+import ca.pfv.spmf.datastructures.sidlists.PositionList;
+import ca.pfv.spmf.datastructures.sidlists.SidList;
 import ca.pfv.spmf.input.sequence_database_list_integers.Sequence;
 import ca.pfv.spmf.input.sequence_database_list_integers.SequenceDatabase;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -31,7 +31,13 @@ import ca.pfv.spmf.tools.MemoryLogger;
  *  Proceedings of the 25th Canadian Conf. on Artificial Intelligence (AI 2012), 
  *  Springer, LNAI 7310, pp.299-304. 
  * <br/><br/>
+ * 
+ * The tidsets are stored as sorted arrays of sequence IDs (see SidList) and the
+ * positions of items in each sequence as arrays of positions (see PositionList).
+ * <br/><br/>
  *  
+ *@see PositionList
+ *@see SidList
  *@see Sequence
  *@see SequenceDatabase
  *@author Philippe Fournier-Viger
@@ -44,11 +50,10 @@ public class AlgoTRuleGrowth {
 	
 	
 	//*** internal variables ***/
-	// A map to record the occurences of each item in each sequence
-	// KEY: an item
-	// VALUE:  a map of  key: sequence ID  value: occurences of the item in that sequence.
-	// (note: an occurence is an itemset position)
-	Map<Integer,  Map<Integer, Occurence>> mapItemCount;
+	// A structure to record the occurences of each item in each sequence
+	// (for each item, the sequence IDs where it appears and the positions
+	// of the itemsets containing it in each of these sequences)
+	ItemOccurrenceIndex itemOccurrences;
 	
 	 // minimum support which will be raised dynamically
 	int minsuppRelative; 
@@ -156,11 +161,11 @@ public class AlgoTRuleGrowth {
 		// Put frequent items in a list.
 		List<Integer> listFrequents = new ArrayList<Integer>();
 		// for each item
-		for(Entry<Integer,Map<Integer, Occurence>> entry : mapItemCount.entrySet()){
+		for(int item = 0; item <= itemOccurrences.getMaxItem(); item++){
 			// if it is frequent
-			if(entry.getValue().size() >= minsuppRelative){
+			if(itemOccurrences.getSupport(item) >= minsuppRelative){
 				// add it to the list
-				listFrequents.add(entry.getKey());
+				listFrequents.add(item);
 			}
 		}
 		
@@ -170,32 +175,33 @@ public class AlgoTRuleGrowth {
 
 		// For each pair of frequent items i  and j such that i != j
 		for(int i=0; i< listFrequents.size(); i++){
-			// get the item i and its map of occurences
-			Integer intI = listFrequents.get(i);
-			Map<Integer,Occurence> occurencesI = mapItemCount.get(intI);
+			// get the item i and its occurences
+			int intI = listFrequents.get(i);
+			PositionList occurencesI = (PositionList) itemOccurrences.get(intI);
 			
 			for(int j=i+1; j< listFrequents.size(); j++){
-				// get the item j and its map of occurences
-				Integer intJ = listFrequents.get(j);
-				Map<Integer,Occurence> occurencesJ = mapItemCount.get(intJ);
+				// get the item j and its occurences
+				int intJ = listFrequents.get(j);
+				PositionList occurencesJ = (PositionList) itemOccurrences.get(intJ);
 				
 				// (1) We will now calculate the tidsets
 				// of itemset I,  itemset J,   the rule I -->J 
 				// and the rule J-->I
-				Set<Integer> tidsI = new HashSet<Integer>();
-				Set<Integer> tidsJ = null;
-				Set<Integer> tidsIJ = new HashSet<Integer>();
-				Set<Integer> tidsJI= new HashSet<Integer>();
-
-				// for each occurence of I
-	looptid:	for(Occurence occI : occurencesI.values()){
-					
-					// add the sequenceID of that occurence to tidsI
-					tidsI.add(occI.sequenceID);
+				// (the tidsets of I and J are the sequence IDs of their occurences)
+				SidList tidsI = occurencesI;
+				SidList tidsJ = occurencesJ;
+				SidList tidsIJ = new SidList();
+				SidList tidsJI= new SidList();
+
+				// for each sequence containing I
+				int indexJ = 0;
+	looptid:	for(int indexI = 0; indexI < occurencesI.size() && indexJ < occurencesJ.size(); indexI++){
+					int tid = occurencesI.get(indexI);
 					
 					// if J does not appear in that sequence continue loop
-					Occurence occJ = occurencesJ.get(occI.sequenceID);
-					if(occJ == null){
+					indexJ = occurencesJ.search(tid, indexJ);
+					if(indexJ < 0){
+						indexJ = -indexJ - 1;
 						continue looptid;
 					}
 					
@@ -205,17 +211,19 @@ public class AlgoTRuleGrowth {
 					boolean addedIJ= false;
 					boolean addedJI= false;
 					// for each occurence of I in that sequence
-			loopIJ:	for(Short posI : occI.occurences){
+			loopIJ:	for(int m=0; m < occurencesI.getOccurrenceCount(indexI); m++){
+						short posI = occurencesI.getPosition(indexI, m);
 						// for each occurence of J in that sequence
-						for(Short posJ : occJ.occurences){
-							if(!posI.equals(posJ) && Math.abs(posI - posJ) <= windowSize){
+						for(int n=0; n < occurencesJ.getOccurrenceCount(indexJ); n++){
+							short posJ = occurencesJ.getPosition(indexJ, n);
+							if(posI != posJ && Math.abs(posI - posJ) <= windowSize){
 								if(posI <= posJ){
 									// if I is before J
-									tidsIJ.add(occI.sequenceID);
+									tidsIJ.add(tid);
 									addedIJ = true;
 								}else{
 									// if J is before I
-									tidsJI.add(occI.sequenceID);
+									tidsJI.add(tid);
 									addedJI = true;
 								}
 								// if we have found that I is before J and J is before I
@@ -243,12 +251,6 @@ public class AlgoTRuleGrowth {
 					if(confIJ >= minConfidence){
 						saveRule(tidsIJ, confIJ, itemset1, itemset2);
 					}
-					// Calculate tidsJ.
-					tidsJ = new HashSet<Integer>();
-					for(Occurence occJ : occurencesJ.values()){
-						tidsJ.add(occJ.sequenceID);
-					}
-					
 					// recursive call to try to expand the rule on the left and
 					// right sides
 					if(itemset1.length < maxAntecedentSize) {
@@ -274,13 +276,6 @@ public class AlgoTRuleGrowth {
 //							rules.addRule(ruleJI);
 						}
 						
-						// Calculate tidsJ.
-						if(tidsJ == null){
-							tidsJ = new HashSet<Integer>();
-							for(Occurence occJ : occurencesJ.values()){
-								tidsJ.add(occJ.sequenceID);
-							}
-						}
 						// recursive call to try to expand the rule
 
 						if(itemset1.length < maxConsequentSize) {
@@ -313,21 +308,22 @@ public class AlgoTRuleGrowth {
 	 * @throws IOException  exception if error while writing output file
 	 */
     private void expandLeft(int[] itemsetI, int[] itemsetJ,
-    						Collection<Integer> tidsI, 
-    						Collection<Integer> tidsIJ // ,
+    						SidList tidsI, 
+    						SidList tidsIJ // ,
 //    						Map<Integer, Occurence> mapOccurencesJ
     						) throws IOException {    	
     	
     	// The following map will be used to count the support of each item
     	// c that could potentially extend the rule.
-    	// The map associated a set of tids (value) to an item (key).
-    	Map<Integer, Set<Integer>> frequentItemsC  = new HashMap<Integer, Set<Integer>>();  
+    	// The map associated a tidset (value) to an item (key).
+    	Map<Integer, SidList> frequentItemsC  = new HashMap<Integer, SidList>();  
 
     	// We scan the sequence where I-->J appear to search for items c 
     	// that we could add to generate a larger rule  IU{c} --> J
     	
     	// For each tid of  sequence containing I-->J
-    	for(Integer tid : tidsIJ){
+    	for(int t=0; t < tidsIJ.size(); t++){
+    		int tid = tidsIJ.get(t);
     		Sequence sequence = database.getSequences().get(tid);
     		
     		//  there maps are used when scanning the sequence to determine
@@ -425,13 +421,14 @@ public class AlgoTRuleGrowth {
 								continue;  // skip it
 							}	
 							// otherwise, get the tidset of "c"
-							Set<Integer> tidsItemC = frequentItemsC.get(itemC);
+							SidList tidsItemC = frequentItemsC.get(itemC);
 							// if there is no tidset, create one
 							if(tidsItemC == null){
-								tidsItemC = new HashSet<Integer>();
+								tidsItemC = new SidList();
 								frequentItemsC.put(itemC, tidsItemC);
 							}
 							// add the tid to the tidset of c
+							// (it is ignored if c was already found in this sequence)
 							tidsItemC.add(tid);	
     					}
     				}
@@ -446,8 +443,8 @@ public class AlgoTRuleGrowth {
     	
 
     	// For each item c found, we create a rule	IU{c} ==> J
-    	for(Entry<Integer, Set<Integer>> entry : frequentItemsC.entrySet()){
-    		Set<Integer> tidsIC_J = entry.getValue();
+    	for(Entry<Integer, SidList> entry : frequentItemsC.entrySet()){
+    		SidList tidsIC_J = entry.getValue();
 
     		// if the support of IU{c} ==> J is enough 
     		if(tidsIC_J.size() >= minsuppRelative){ 
@@ -459,9 +456,10 @@ public class AlgoTRuleGrowth {
 				// Calculate tids containing IU{c} within the time window which is necessary
     			// to calculate the confidence
 				
-    			Set<Integer> tidsIC = new HashSet<Integer>();
+    			SidList tidsIC = new SidList();
     			// for each sequence containing I 
-   loop1:	    for(Integer tid: tidsI){
+   loop1:	    for(int t=0; t < tidsI.size(); t++){
+   					int tid = tidsI.get(t);
 	   				// get the sequence
     	    		Sequence sequence = database.getSequences().get(tid);
     	    		// To check if IU{c} is contained in that sequence we will use a map
@@ -602,20 +600,21 @@ public class AlgoTRuleGrowth {
 	 * @throws IOException 
 	 */
     private void expandRight(int[] itemsetI, int[] itemsetJ, 
-							Set<Integer> tidsI, 
-    						Collection<Integer> tidsJ, 
-    						Collection<Integer> tidsIJ //,
+							SidList tidsI, 
+    						SidList tidsJ, 
+    						SidList tidsIJ //,
 //    						Map<Integer, Occurence> occurencesI,
 //    						Map<Integer, Occurence> occurencesJ
     						) throws IOException {
 
     	// The following map will be used to count the support of each item
     	// c that could potentially extend the rule.
-    	// The map associated a set of tids (value) to an item (key).
-    	Map<Integer, Set<Integer>> frequentItemsC  = new HashMap<Integer, Set<Integer>>();  
+    	// The map associated a tidset (value) to an item (key).
+    	Map<Integer, SidList> frequentItemsC  = new HashMap<Integer, SidList>();  
     	
     	// For each tid of sequence containing I-->J
-    	 for(Integer tid : tidsIJ){
+    	 for(int t=0; t < tidsIJ.size(); t++){
+    		int tid = tidsIJ.get(t);
     		// get the sequence
     		Sequence sequence = database.getSequences().get(tid);
     		
@@ -717,14 +716,15 @@ public class AlgoTRuleGrowth {
 								continue;
 							}	
 							// otherwise, get the tidset of "c"
-							Set<Integer> tidsItemC = frequentItemsC.get(itemC);
+							SidList tidsItemC = frequentItemsC.get(itemC);
 							// if there is no tidset, create one
 							if(tidsItemC == null){
 								//if we did not see "c" yet, create a new tidset for "c"
-								tidsItemC = new HashSet<Integer>();
+								tidsItemC = new SidList();
 								frequentItemsC.put(itemC, tidsItemC);
 							}
 							// add the current tid to the tidset of "c"
+							// (it is ignored if c was already found in this sequence)
 							tidsItemC.add(tid);	
     					}
     				}
@@ -736,9 +736,9 @@ public class AlgoTRuleGrowth {
  		}  	
     	 
     	// For each item c found, we create a rule	I ==> JU {c} 	
-     	for(Entry<Integer, Set<Integer>> entry : frequentItemsC.entrySet()){
+     	for(Entry<Integer, SidList> entry : frequentItemsC.entrySet()){
     		// get the tidset of I ==> JU {c}
-     		Set<Integer> tidsI_JC = entry.getValue();
+     		SidList tidsI_JC = entry.getValue();
 
     		// if the support of I ==> JU{c} is enough 
      		if(tidsI_JC.size() >= minsuppRelative){ 
@@ -750,9 +750,10 @@ public class AlgoTRuleGrowth {
 				itemsetJC[itemsetJ.length]= itemC;
  				
      			//  calculate the occurences of JU{c} within the time window
-     			Set<Integer> tidsJC = new HashSet<Integer>();
+     			SidList tidsJC = new SidList();
      			// for each sequence containing J
-    loop1:	    for(Integer tid: tidsJ){
+    loop1:	    for(int t=0; t < tidsJ.size(); t++){
+    				int tid = tidsJ.get(t);
     				// get the sequence
      	    		Sequence sequence = database.getSequences().get(tid);
      	    		
@@ -826,38 +827,26 @@ public class AlgoTRuleGrowth {
 	 * This method calculate the frequency of each item in one database pass.
 	 * Then it remove all items that are not frequent in another database pass.
 	 * @param database : a sequence database 
-	 * @return A map such that key = item
-	 *                         value = a map  where a key = tid  and a value = Occurence
-	 * This map allows knowing the frequency of each item and their first and last occurence in each sequence.
+	 * @return A structure that gives for each item the sequence IDs where it appears
+	 *         and all its occurences in each of these sequences.
+	 * This structure allows knowing the frequency of each item and their occurences in each sequence.
 	 */
-	private Map<Integer, Map<Integer, Occurence>> removeItemsThatAreNotFrequent(SequenceDatabase database) {
+	private ItemOccurrenceIndex removeItemsThatAreNotFrequent(SequenceDatabase database) {
 		// (1) Count the support of each item in the database in one database pass
-		mapItemCount = new HashMap<Integer, Map<Integer, Occurence>>(); // <item, Map<tid, occurence>>
+		// (all the positions of each item are kept)
+		itemOccurrences = new ItemOccurrenceIndex(true);
 		
 		// for each sequence in the database
-		for(Sequence sequence : database.getSequences()){
+		for(int k=0; k< database.size(); k++){
+			Sequence sequence = database.getSequences().get(k);
 			// for each itemset in that sequence
 			for(short j=0; j< sequence.getItemsets().size(); j++){
 				List<Integer> itemset = sequence.get(j);
 				// for each item in that sequence
 				for(int i=0; i< itemset.size(); i++){
-					Integer itemI = itemset.get(i);
-					
-					// get the map of occurences of that item
-					Map<Integer, Occurence> occurences = mapItemCount.get(itemI);
-					// if the map of occurences of that item is null, create a new one
-					if(occurences == null){
-						occurences = new HashMap<Integer, Occurence>();
-						mapItemCount.put(itemI, occurences);
-					}
-					// add this sequence id to the occurences of that item
-					Occurence occurence = occurences.get(sequence.getId());
-					if(occurence == null){
-						occurence = new Occurence(sequence.getId());
-						occurences.put(sequence.getId(), occurence);
-					}
 					// add the current itemset position to the occurences of that item
-					occurence.add(j);
+					// in sequence k
+					itemOccurrences.addOccurrence(itemset.get(i), k, j);
 				}
 			}
 		}
@@ -875,10 +864,8 @@ public class AlgoTRuleGrowth {
 				
 				// for each item
 				while(j < itemset.size()){
-					double count = mapItemCount.get(itemset.get(j)).size();
-					
 					// if the item is not frequent remove it
-					if(count < minsuppRelative){
+					if(itemOccurrences.getSupport(itemset.get(j)) < minsuppRelative){
 						itemset.remove(j);
 					}else{
 						// otherwise go to next item
@@ -888,8 +875,8 @@ public class AlgoTRuleGrowth {
 				i++;  // go to next itemset
 			}
 		}
-		// return the map of occurences of items
-		return mapItemCount;
+		// return the occurences of items
+		return itemOccurrences;
 	}
 	
 	/**
@@ -900,7 +887,7 @@ public class AlgoTRuleGrowth {
 	 * @param itemsetJ the right part of the rule
 	 * @throws IOException exception if error writing the file
 	 */
-	private void saveRule(Set<Integer> tidsIJ, double confIJ, int[] itemsetI, int[] itemsetJ) throws IOException {
+	private void saveRule(SidList tidsIJ, double confIJ, int[] itemsetI, int[] itemsetJ) throws IOException {
 		// increase the number of rule found
 		ruleCount++;
 		
@@ -17,6 +17,7 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.fournier2008_seqdim.kmeans_for
 */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -103,16 +104,21 @@ public class AlgoKMeans_forFournier08 {
 			return clusters;
 		}
 
-		// (1.2) Generate the k empty clusters with a random average
+		// (1.2) Generate the k cluster averages, with a random value
 		// between the smallest and largest values.
+		double[] averages = new double[k];
 		for (int i = 0; i < k; i++) {
-			// generate random average
-			double average = random.nextInt((int) (higher - lower)) + lower;
-			// create the cluster
-			Cluster cluster = new Cluster(average);
-			clusters.add(cluster);
+			averages[i] = random.nextInt((int) (higher - lower)) + lower;
 		}
 
+		// The cluster containing each item (-1 if the item is not in a cluster yet),
+		// and the sum of values and number of items of each cluster.
+		// This allows to move an item to another cluster in constant time.
+		int[] assignment = new int[input.size()];
+		Arrays.fill(assignment, -1);
+		double[] sums = new double[k];
+		int[] counts = new int[k];
+
 		// (2) Repeat the two next steps until the assignment hasn't changed
 		boolean changed;
 
@@ -121,53 +127,62 @@ public class AlgoKMeans_forFournier08 {
 			// (2.1) Assign each point to the nearest cluster center.
 
 			// / for each item
-			for (ItemValued item : input) {
-				// find the nearest cluster and the cluster containing the item
-				Cluster nearestCluster = null;
-				Cluster containingCluster = null;
+			for (int i = 0; i < input.size(); i++) {
+				double value = input.get(i).getValue();
+				// find the nearest cluster
+				int nearestCluster = -1;
 				double distanceToNearestCluster = Double.MAX_VALUE;
 
 				// for each cluster
-				for (Cluster cluster : clusters) {
+				for (int c = 0; c < k; c++) {
 					// calculate the distance to the current item
-					double distance = averageDistance(cluster, item);
+					double distance = Math.abs(averages[c] - value);
 					// if the smallest distance until now, remember
 					// that cluster
 					if (distance < distanceToNearestCluster) {
-						nearestCluster = cluster;
+						nearestCluster = c;
 						distanceToNearestCluster = distance;
 					}
-					// if the cluster contains that item,
-					// then note that this is the cluster
-					// containing the item.
-					if (cluster.containsItem(item)) {
-						containingCluster = cluster;
-					}
 				}
 
 				// if the closest cluster to the current item
 				// is not the cluster containing the item
+				int containingCluster = assignment[i];
 				if (containingCluster != nearestCluster) {
 					// if the item is in a cluster
-					if (containingCluster != null) {
+					if (containingCluster != -1) {
 						// remove item from the cluster
-						removeItem(containingCluster.getItems(), item);
+						sums[containingCluster] -= value;
+						counts[containingCluster]--;
 					}
 					// add the item to the nearest cluster
-					nearestCluster.addItem(item);
+					sums[nearestCluster] += value;
+					counts[nearestCluster]++;
+					assignment[i] = nearestCluster;
 					changed = true;
 				}
 			}
 
-			// (2.2) For each cluster, recompute the new cluster average
-			for (Cluster cluster : clusters) {
-				cluster.recomputeClusterAverage();
+			// (2.2) For each non empty cluster, recompute the new cluster average
+			for (int c = 0; c < k; c++) {
+				if (counts[c] > 0) {
+					averages[c] = sums[c] / counts[c];
+				}
 			}
 
 		} while (changed);
 
-		// Computer min and max for all clusters
+		// (3) Create the clusters
+		for (int c = 0; c < k; c++) {
+			clusters.add(new Cluster(averages[c]));
+		}
+		for (int i = 0; i < input.size(); i++) {
+			clusters.get(assignment[i]).addItem(input.get(i));
+		}
+
+		// Computer the average, min and max for all clusters
 		for (Cluster cluster : clusters) {
+			cluster.recomputeClusterAverage();
 			cluster.computeHigherAndLower();
 		}
 
@@ -175,33 +190,6 @@ public class AlgoKMeans_forFournier08 {
 		return clusters;
 	}
 
-	/**
-	 * Remove an item from a list of items
-	 * @param items  a list of items
-	 * @param item  the item to be removed
-	 */
-	private void removeItem(List<ItemValued> items, ItemValued item) {
-		// for each item in the list
-		for (int i = 0; i < items.size(); i++) {
-			// if the item to be removed is found
-			if (items.get(i) == item) {
-				// then, remove it
-				items.remove(i);
-			}
-		}
-	}
-
-	/**
-	 * Calculate the distance between the average of a cluster and
-	 * a given item
-	 * @param cluster1 the cluster
-	 * @param item  the item
-	 * @return  the distance as a double
-	 */
-	private double averageDistance(Cluster cluster1, ItemValued item) {
-		return Math.abs(cluster1.getaverage() - item.getValue());
-	}
-
 	/**
 	 * Set the parameter k for the k-means algorithm.
 	 * @param k  an integer.
@@ -4,12 +4,7 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -88,37 +83,24 @@ public class AlgoBIDEPlus{
 	/** boolean indicating whether this database contains itemsets with multiple items or not */
 	boolean containsItemsetsWithMultipleItems = false;
 	
-	/**
-	 * A set that is used to remember which items we have already seen in a sequence. It is
-	 * a variable reused by various methods, to save memory 
-	 */
-	Set<Integer> alreadySeen = new HashSet<Integer>();
-	/**
-	 * A set that is used to remember which items we have already seen in a sequence. It is
-	 * a variable reused by various methods, to save memory 
-	 */
-	Set<Integer> alreadySeenPostfix = new HashSet<Integer>();
-	/**
-	 * A set that is used to remember which items we have already seen in a sequence. It is
-	 * a variable reused by various methods, to save memory 
-	 */
-	Set<Integer> alreadySeenSuffix = new HashSet<Integer>();
+	/** the object used to create the projected databases (items are renamed by this object) */
+	private ProjectionEngine projectionEngine;
 	
 	/**
 	 * A variable reused by various method for counting the support of items that can extend a sequential pattern
-	 * by s-extension in a projected database
+	 * by s-extension in a projected database. It also remembers which items we have already seen in a sequence.
 	 */
-	Map<Integer,Integer> mapItemSupport = new HashMap<Integer,Integer>();
+	ItemCounter itemCounter;
 	/**
 	 * A variable reused by various method for counting the support of items that can extend a sequential pattern
 	 * by i-extension (as part of a postfix) in a projected database
 	 */
-	Map<Integer,Integer> mapsItemSupportPostfix = new HashMap<Integer,Integer>();
+	ItemCounter itemCounterPostfix;
 	/**
 	 * A variable reused by various method for counting the support of items that can extend a sequential pattern
 	 * by i-extension (as part of a suffix) in a projected database
 	 */
-	Map<Integer,Integer> mapsItemSupportSuffix = new HashMap<Integer,Integer>();
+	ItemCounter itemCounterSuffix;
 	
 	/**
 	 * Default constructor
@@ -228,152 +210,114 @@ public class AlgoBIDEPlus{
 //		System.out.println(sequenceDatabase.toString());
 		
 		//============== CALCULATE FREQUENCY OF EACH SINGLE ITEMS BY SCANNING THE DATABASE =============
-		// We have to scan the database to find all frequent sequential patterns containing 1 item.
-		// We note the sequences where each item appears.
-		Map<Integer, List<Integer>> mapSequenceID = findSequencesContainingItems();
+		// We scan the database to find the frequent items, remove infrequent items from
+		// sequences and rename the frequent items as 1, 2, 3... (this is done by the projection engine)
+		projectionEngine = new ProjectionEngine(sequenceDatabase, minsuppAbsolute);
+		containsItemsetsWithMultipleItems = projectionEngine.containsItemsetsWithMultipleItems();
+		
+		// Create the counters used for checking the backscan pruning and backward extension conditions
+		int itemCount = projectionEngine.getItemCount();
+		itemCounter = new ItemCounter(itemCount);
+		itemCounterPostfix = new ItemCounter(itemCount);
+		itemCounterSuffix = new ItemCounter(itemCount);
+		
+		// The projected database of each frequent item is created from the whole database (level 0)
+		ProjectedDatabase root = projectionEngine.getLevel(0);
+		ProjectedDatabase projectedDatabases = projectionEngine.projectSingleItems(0, 0, root.size);
 
-		//====== Remove infrequent items from the database, and then explore each projected database ================
-		// This step is performed differently depending on whether the database contains multiple items
+		//============= WE EXPLORE EACH PROJECTED DATABASE  ================================
+		// The checks are performed differently depending on whether the database contains multiple items
 		// per itemset, or not. This allows to do additional optimizations.
-		// CASE 1: the database has multiple items per itemset
-		if(containsItemsetsWithMultipleItems){
-			bideWithMultipleItems(mapSequenceID);	
-		}else{
-			// CASE 2: the database does not have multiple items per itemset.
-			bideWithSingleItems(mapSequenceID);	
-		}
-	}
-	
-	/**
-	 * Remove infrequent items from the sequence database, then save each pattern of length 1 having a frequency no less than 
-	 * minsup, then recursively explore larger patterns.
-	 *  Important: this method is optimized for the case where all sequences in the database contains a single item per itemset.
-	 * @param mapSequenceID the set of items (Integer) with the corresponding IDs of sequence where they appears (List<Integer>)
-	 * @throws IOException if error writing to file
-	 */
-	private void bideWithSingleItems(Map<Integer, List<Integer>> mapSequenceID) throws IOException {
-		//=============== REMOVE INFREQUENT ITEMS ========================
-		// We scan the database to remove infrequent items  and resize sequences after removal.
-		// For each sequence in the current database
-		for(int i=0; i < sequenceDatabase.size(); i++){
-			// Get the sequence
-			int[] sequence  = sequenceDatabase.getSequences().get(i);
-			
-			// We will copy the frequent items one by one but not those items that are infrequent
-			// The following variable will be used to remember the position where to copy (we start at 0).
-			int currentPosition = 0;
+		// For each frequent item
+		for(int i = 0; i < projectedDatabases.itemCount; i++){
+			int item = projectedDatabases.items[i];
+			int start = projectedDatabases.getStart(i);
+			int end = projectedDatabases.getEnd(i);
+			// Get its support
+			int support = end - start;
+
+			// Check the backscan pruning condition for this item to determine if we should try to explore
+			// larger pattern by extending this item
+			boolean passBackscanPruning;
+			if(containsItemsetsWithMultipleItems){
+				passBackscanPruning = checkBackscanPruningMultipleItemsFirstTime(item, projectedDatabases, start, end);
+			}else{
+				passBackscanPruning = checkBackscanPruningSingleItemsFirstTime(item, projectedDatabases, start, end);
+			}
 			
-			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
-			for(int j = 0; j < sequence.length; j++){
-				int token = sequence[j];
+			// If the item has passed the pruning condition (we should explore its supersets
+			if(passBackscanPruning){
+
+				// Create the current pattern by copying the item in the buffer
+				patternBuffer[0] = item;
 				
-				// if it is an item
-				if(token > 0){
-					// check if it is frequent
-					boolean isFrequent = mapSequenceID.get(token).size() >= minsuppAbsolute;
-					
-					// if the item is frequent
-					if(isFrequent){
-						// copy the item to the current position
-						sequence[currentPosition] = token;
-						// increment the current position
-						currentPosition++;
-					}	
-				}else if(token == -2){
-					// If it is the end of the sequence,
-					// If the sequence is not empty after having removed the infrequent items
-					if(currentPosition >0){
-						// copy the item to the end of sequence -2 at the current position
-						sequence[currentPosition] = -2;
-						
-						// now replace the previous sequence in the database with the new sequence where items have been removed
-						int[] newSequence = new int[currentPosition+1];
-						System.arraycopy(sequence, 0, newSequence, 0, currentPosition+1);
-						sequenceDatabase.getSequences().set(i, newSequence);
-						// continue to next sequence
-						continue; 
+				// Make a recursive exploration of patterns by trying to extend the current pattern
+				// This method returns the highest support of extensions found by this depth-first search
+				int maxSupportExtensions = 0;
+				
+				// If the maximum pattern length set by the user (optional) is greater than 1
+				if(maximumPatternLength >1){
+					if(containsItemsetsWithMultipleItems){
+						maxSupportExtensions = recursionMultipleItems(1, start, end, 2, 0); 
 					}else{
-						// if the sequence is  empty, delete this sequence by replacing it with null
-						sequenceDatabase.getSequences().set(i, null);
+						maxSupportExtensions = recursionSingleItems(1, start, end, 2, 0); 
 					}
 				}
-			}
-		}
-		
-		//============= WE EXPLORE EACH PROJECTED DATABASE  ================================
-		// For each  item
-		for(Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()){
-			// Get its support
-			int support = entry.getValue().size();
-			// if the item is frequent  (has a support >= minsup)
-			if(support >= minsuppAbsolute){ 
-				int item = entry.getKey();
-
-				// check if the current item pass the backscan pruning method of the BIDE+ algorithm
-				boolean passBackscanPruning = checkBackscanPruningSingleItemsFirstTime(item, entry.getValue());
 				
-				// if it passes the backscan pruning condition
-				if(passBackscanPruning){
-					
-					// Create the sequential pattern with this item by copying the item in the buffer for the current patern
-					patternBuffer[0] = item;
-
-					// build the projected database for that item
-					List<PseudoSequence> projectedDatabase  = buildProjectedDatabaseSingleItems(item, entry.getValue());
-					
-					// Make a recursive exploration of patterns by trying to extend the current pattern
-					// This method returns the highest support of extensions found by this depth-first search
-					int maxSupportExtensions = 0;
-					 
-					// If the maximum pattern length set by the user (optional) is greater than 1
-					if(maximumPatternLength >1){
-						maxSupportExtensions = recursionSingleItems(projectedDatabase, 2, 0); 
+				// If the current pattern passes the forward extension pruning condition of the BIDE+ algorithm
+				// (that no extension of the current pattern has the same support)
+				if(support != maxSupportExtensions){
+					// Check if the pattern has a backward extension.
+					boolean passBackwardExtensionChecking;
+					if(containsItemsetsWithMultipleItems){
+						passBackwardExtensionChecking = checkBackwardExtensionMultipleItemsFirstTime(item, projectedDatabases, start, end);
+					}else{
+						passBackwardExtensionChecking = checkBackwardExtensionSingleItemsFirstTime(item, projectedDatabases, start, end);
 					}
 					
-					// If the current pattern passes the forward extension pruning condition of the BIDE+ algorithm
-					// (that no extension of the current pattern has the same support)
-					if(support != maxSupportExtensions){
-					
-						// Check if the pattern has a backward extension.
-						boolean passBackwardExtensionChecking = checkBackwardExtensionSingleItemsFirstTime(item, entry.getValue());
-			
-						// If the pattern has no backward extension, then it is closed and it can be saved.
-						if(passBackwardExtensionChecking){
-							// save the pattern to the output file.
-							savePattern(item, support, entry.getValue()); 
-						}
+					// If the pattern has no backward extension, then it is closed and it can be saved.
+					if(passBackwardExtensionChecking){
+						savePattern(0, projectedDatabases, start, end); 
 					}
 				}
 			}
 		}
+		
+		// release the memory used by the projected databases
+		projectionEngine = null;
 	}
-
+	
 	/**
 	 * This method checks if the current pattern respects the backscan pruning condition of the BIDE+ algorithm (if it
 	 * should not be pruned).
 	 * It is optimized for patterns containing a single item.
 	 * @param the item the pattern consisting of a single item
-	 * @param sequenceIDs the identifiers of the sequences containing this pattern
+	 * @param database the projected databases containing the pseudo-sequences where this pattern appears
+	 * @param start the position of the first of these pseudo-sequences
+	 * @param end the position after the last of these pseudo-sequences
 	 * @return true if there is no backward extension. Otherwise, false.
 	 */
-	private boolean checkBackscanPruningSingleItemsFirstTime(int item, List<Integer> sequenceIDs) {
-		// A map is used to store the support of items that can form a backward extension
-		// with the current pattern. Key: item  Value: support
-		Map<Integer,Integer> mapItemSupport = new HashMap<Integer,Integer>();
+	private boolean checkBackscanPruningSingleItemsFirstTime(int item, ProjectedDatabase database, int start, int end) {
+		// the support of the pattern
+		int support = end - start;
+		
+		// A counter is used to store the support of items that can form a backward extension
+		// with the current pattern. We reset this counter
+		itemCounter.clear();
 		
 		// As an optimization, we will use a variable to remember the highest support until now.
 		int highestSupportUntilNow = 0;
 
 		// for each sequence where the pattern appears
-		for(int k =0; k < sequenceIDs.size(); k++){
-			int sid = sequenceIDs.get(k);
+		for(int k = start; k < end; k++){
+			int sid = database.sequenceIDs[k];
 			// Get the sequence
 			int[] sequence = sequenceDatabase.getSequences().get(sid);
 			
 			// Clear the set to remember items that we have already seen in this sequence.
 			// This set is used to avoid updating the support of the same item twice or more if it appears
 			// several times in the same sequence.
-			alreadySeen.clear();
+			itemCounter.nextSequence();
 			
 			// for each item when reading the sequence forward
 			for(int j=0; sequence[j] != -2; j++){
@@ -391,31 +335,22 @@ public class AlgoBIDEPlus{
 						// and it is not the item used for projection, we increase its support by 1.
 						// We first make sure that we have not updated the support of this item
 						// already for the current sequence.
-						if(alreadySeen.contains(token) == false){
+						if(itemCounter.isCountedInSequence(token) == false){
 							// Get the support of that item
-							Integer itemSupport = mapItemSupport.get(token);
-							// increase the support
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
+							int itemSupport = itemCounter.increment(token);
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-							// update the support in the map
-							mapItemSupport.put(token, itemSupport);
 							
 							// if this extension has the same support as the sequential pattern that
 							// we want to check for a backward extension
-							if(itemSupport == sequenceIDs.size()){
+							if(itemSupport == support){
 								// return false because it means that the current sequential patterns has a backward extension
 								return false;
 							}
 
 							
-							alreadySeen.add(token);
 						}
 					}
 				}
@@ -423,7 +358,7 @@ public class AlgoBIDEPlus{
 			
 			// Optimization: if there is not enough sequences left for finding a backward extension given
 			// the highest support found until now, we can know that there will not be any backward extension for that pattern.
-			if(highestSupportUntilNow + (sequenceIDs.size() - k - 1) < sequenceIDs.size()) {
+			if(highestSupportUntilNow + (end - k - 1) < support) {
 				return true;
 			}
 		}
@@ -436,27 +371,31 @@ public class AlgoBIDEPlus{
 	 * This method checks if the current pattern has a backward extension.
 	 * This method is optimized for patterns containing a single item.
 	 * @param the item a pattern consisting of a single item
-	 * @param sequenceIDs the identifiers of the sequences containing this pattern
+	 * @param database the projected databases containing the pseudo-sequences where this pattern appears
+	 * @param start the position of the first of these pseudo-sequences
+	 * @param end the position after the last of these pseudo-sequences
 	 * @return true if there is no backward extension. Otherwise false.
 	 */
-	private boolean checkBackwardExtensionSingleItemsFirstTime(int item, List<Integer> sequenceIDs) {
+	private boolean checkBackwardExtensionSingleItemsFirstTime(int item, ProjectedDatabase database, int start, int end) {
+		// the support of the pattern
+		int support = end - start;
 		
-		// a map that will be used to count the support of items that can form a backward extension
-		// with the current pattern
-		// key: item  value: support
-		Map<Integer,Integer> mapItemSupport = new HashMap<Integer,Integer>();
+		
+		// a counter that will be used to count the support of items that can form a backward extension
+		// with the current pattern. We reset this counter
+		itemCounter.clear();
 		
 		// As an optimization, we will use a variable to remember the highest support until now.
 		int highestSupportUntilNow = 0;
 
 		// for each sequence where the pattern appears
-		for(int k =0; k < sequenceIDs.size(); k++){
-			int sid = sequenceIDs.get(k);
+		for(int k = start; k < end; k++){
+			int sid = database.sequenceIDs[k];
 			int[] sequence = sequenceDatabase.getSequences().get(sid);
 			
 			// clear the set to remember item that we have already updated their support for the
 			// current sequence
-			alreadySeen.clear();
+			itemCounter.nextSequence();
 			
 			// for each item when reading the sequence backward
 			boolean foundTheItem = false;
@@ -475,29 +414,21 @@ public class AlgoBIDEPlus{
 						// and it is not the item used for projection, we update its support
 						// We first make sure that we have not updated the support of this item
 						// already for the current sequence.
-						if(alreadySeen.contains(token) == false){
-							Integer itemSupport = mapItemSupport.get(token);
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
+						if(itemCounter.isCountedInSequence(token) == false){
+							int itemSupport = itemCounter.increment(token);
 
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
 
-							// update the support in the map
-							mapItemSupport.put(token, itemSupport);
 							
 							// if this extension has the same support as the item used
 							// for database projection
-							if(itemSupport == sequenceIDs.size()){
+							if(itemSupport == support){
 								return false;
 							}
 							
-							alreadySeen.add(token);
 						}
 					}
 				}
@@ -505,7 +436,7 @@ public class AlgoBIDEPlus{
 			
 			// Optimization: if there is not enough sequences left for finding a backward extension given
 			// the highest support found until now, we can know that there will not be any backward extension for that pattern.
-			if(highestSupportUntilNow + (sequenceIDs.size() - k - 1) < sequenceIDs.size()) {
+			if(highestSupportUntilNow + (end - k - 1) < support) {
 				return true;
 			}
 		}
@@ -513,145 +444,31 @@ public class AlgoBIDEPlus{
 		return true;
 	}
 
-	/**
-	 * Remove infrequent items from the sequence database. Then save each frequent items as a sequential pattern of length 1.
-	 * Then, recursively explore extensions of patterns of length 1 using a depth first search.
-	 * This method is designed for the case where the sequence database contains sequences having multiple items per itemsets.
-	 * @param mapSequenceID a map where the key is an item and the value is the list of identifiers of sequences containing that item
-	 * @throws IOException if there is an error while writing the result to the output file.
-	 */
-	private void bideWithMultipleItems(Map<Integer, List<Integer>> mapSequenceID) throws IOException {
-
-		//=============== REMOVE INFREQUENT ITEMS ========================
-		// We scan the database to remove infrequent items from sequences.
-		// For each sequence in the current database
-		for(int i=0; i < sequenceDatabase.size(); i++){
-			int[] sequence  = sequenceDatabase.getSequences().get(i);
-			
-			// We will copy the frequent items one by one but not those items that are infrequent 
-			// to obtain a sequence without the infrequent items.
-			// The following variable will be used to remember the position were will copy next (we start at 0).
-			int currentPosition = 0;
-			// This variable is used to count the number of items in the current itemset (after removing infrequent items)
-			int currentItemsetItemCount = 0;
-			
-			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
-			for(int j =0; j < sequence.length; j++){
-				int token = sequence[j];
-				
-				// if it is an item
-				if(token > 0){
-					// Check if that item is frequent
-					boolean isFrequent = mapSequenceID.get(token).size() >= minsuppAbsolute;
-					
-					// if the item is frequent
-					if(isFrequent){
-						// copy the item to the current position
-						sequence[currentPosition] = token;
-						// increment the current position
-						currentPosition++;
-						// increment the number of items in the current itemset
-						currentItemsetItemCount++;
-					}	
-				}else if(token == -1){
-					// If we have reached the end of an itemset (-1 is the itemset separator)
-					// If this itemset is not empty after having removed the infrequent items.
-					if(currentItemsetItemCount >0){
-						// copy the itemset separator (-1) to the current position
-						sequence[currentPosition] = -1;
-						// increment the current position
-						currentPosition++;
-						// reset the number of items in the current itemset for the next itemset
-						currentItemsetItemCount = 0;
-					}
-				}else if(token == -2){
-					// If we have reached the end of the current sequence (-2 is the symbol indicating the end of a sequence),
-					// and if the sequence is not empty after having removed the infrequent items
-					if(currentPosition >0){
-						// copy the item to the current position
-						sequence[currentPosition] = -2;
-						
-						// now replace the previous array representing the current sequence
-						// with the new array where infrequent items have been removed.
-						int[] newSequence = new int[currentPosition+1];
-						System.arraycopy(sequence, 0, newSequence, 0, currentPosition+1);
-						sequenceDatabase.getSequences().set(i, newSequence);
-						// continue to next sequence
-						continue; 
-					}else{
-						// If the sequence is  empty after having removed the infrequent items, 
-						// we delete this sequence by replacing it with null.
-						sequenceDatabase.getSequences().set(i, null);
-					}
-				}
-			}
-		}
-		
-		//============= WE EXPLORE EACH PROJECTED DATABASE  ================================
-		// For each  item
-		for(Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()){
-			// Get its support
-			int support = entry.getValue().size();
-			// if the item is frequent  (has a support >= minsup)
-			if(support >= minsuppAbsolute){ 
-				int item = entry.getKey();
-				
-				// Check the backscan pruning condition for this item to determine if we should try to explore
-				// larger pattern by extending this item
-				boolean passBackscanPruning = checkBackscanPruningMultipleItemsFirstTime(item, entry.getValue());
-				
-				// If the item has passed the pruning condition (we should explore its supersets
-				if(passBackscanPruning){
-
-					// Create the current pattern by copying the item in the buffer
-					patternBuffer[0] = item;
-
-					// build the projected database for that item
-					List<PseudoSequence> projectedDatabase  = buildProjectedDatabaseFirstTimeMultipleItems(item, entry.getValue());
-					
-					// Recursively try to extend this pattern to find larger patterns if the 
-					// maximum pattern length set by the user is greater than 1 (an optional parameter).
-					int maxSupportExtensions =0;
-					if(maximumPatternLength >1){
-						// Recursive call
-						maxSupportExtensions = recursionMultipleItems(projectedDatabase, 2, 0); 
-					}
-					// If the current pattern has no forward extensions (no extension having the same support)
-					// that means that it might be a closed pattern.
-					if(support != maxSupportExtensions){
-						// We check if the pattern passes the backward extension checking of the BIDE algorithm
-						boolean passBackwardExtensionChecking = checkBackwardExtensionMultipleItemsFirstTime(item, entry.getValue());
-						
-						// If yes, the pattern is closed, and we save it to file or memory.
-						if(passBackwardExtensionChecking){
-							savePattern(item, support, entry.getValue()); 
-						}
-					}
-				}
-			}
-		}
-	} 
-	
 	/**
 	 * Check if a sequential pattern has has a backward extension. 
 	 * This method is optimized for patterns containing a single item and sequence databases containing multiple
 	 * items per itemsets.
 	 * @param item the item
-	 * @param sequenceIDs the list of sequence ids where this item appears
+	 * @param database the projected databases containing the pseudo-sequences where this pattern appears
+	 * @param start the position of the first of these pseudo-sequences
+	 * @param end the position after the last of these pseudo-sequences
 	 * @return true if this pattern has no backward extension. Otherwise false.
 	 */
-	private boolean checkBackwardExtensionMultipleItemsFirstTime(int item, List<Integer> sequenceIDs) {
-		// We use three maps the store the support of possible item that could be used for the backscan pruning
-		mapItemSupport.clear();
-		mapsItemSupportPostfix.clear();
+	private boolean checkBackwardExtensionMultipleItemsFirstTime(int item, ProjectedDatabase database, int start, int end) {
+		// the support of the pattern
+		int support = end - start;
+		
+		// We use three counters to store the support of possible item that could be used for the backscan pruning
+		itemCounter.clear();
+		itemCounterPostfix.clear();
 
 		// As an optimization, we will use a variable to remember the highest support until now.
 		int highestSupportUntilNow = 0;
 	
 		// for each sequence where the pattern appears
-		for(int k =0; k < sequenceIDs.size(); k++){
+		for(int k = start; k < end; k++){
 			// get the sequence
-			int sid = sequenceIDs.get(k);
+			int sid = database.sequenceIDs[k];
 			int[] sequence = sequenceDatabase.getSequences().get(sid);
 
 			// FIRST FIND THE LAST POSITION OF ei BY SCANNING THE SEQUENCE BACKWARD
@@ -668,8 +485,8 @@ public class AlgoBIDEPlus{
 				
 			}
 			// reset the set to remember which items we have seen
-			alreadySeen.clear();
-			alreadySeenPostfix.clear();
+			itemCounter.nextSequence();
+			itemCounterPostfix.nextSequence();
 			
 			// variable to remember if the current itemset contains the item
 			boolean itemsetContainsItem = true;
@@ -710,55 +527,36 @@ public class AlgoBIDEPlus{
 					// if it can be a postfix extension
 					if(couldBePostfixExtension){
 						// and if we have not seen that item yet as a postfix extension in that sequence
-						if(alreadySeenPostfix.contains(token) == false){
+						if(itemCounterPostfix.isCountedInSequence(token) == false){
 							// update the support of that item as a postfix of the current pattern 
-							Integer itemSupport = mapsItemSupportPostfix.get(token);
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
+							int itemSupport = itemCounterPostfix.increment(token);
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-							// update the support in the map
-							mapsItemSupportPostfix.put(token, itemSupport);
 	
 							// if this extension has the same support as the pattern
-							if(itemSupport == sequenceIDs.size()){
+							if(itemSupport == support){
 								return false;
 							}
-							// remember that we have seen that item in that sequence
-							alreadySeenPostfix.add(token);
 						}
 
 					}
 					// If the item can be an s-extension of the current pattern
 					if(couldBeExtension){
 						// and if we have not seen that item yet as an s-extension in that sequence
-						if(alreadySeen.contains(token) == false){
+						if(itemCounter.isCountedInSequence(token) == false){
 							// Get the support of that item in the current projected 
-							Integer itemSupport = mapItemSupport.get(token);
-							// increase the support
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
+							int itemSupport = itemCounter.increment(token);
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-							// update the support in the map
-							mapItemSupport.put(token, itemSupport);
 							
 							// if this extension has the same support as the pattern
-							if(itemSupport == sequenceIDs.size()){
+							if(itemSupport == support){
 								return false;
 							}
-							// Remember that we have seen that item in that sequence
-							alreadySeen.add(token);		
 						}
 					}	
 				}
@@ -766,7 +564,7 @@ public class AlgoBIDEPlus{
 			
 			// Optimization: if there is not enough sequences left for finding a backward extension given
 			// the highest support found until now, we can know that there will not be any backward extension for that pattern.
-			if(highestSupportUntilNow + (sequenceIDs.size() - k - 1) < sequenceIDs.size()) {
+			if(highestSupportUntilNow + (end - k - 1) < support) {
 				return true;
 			}
 		}	
@@ -779,22 +577,27 @@ public class AlgoBIDEPlus{
 	 * This method is optimized for patterns containing a single item, and is designed for sequences 
 	 *  where multiple items may appear in itemsets.
 	 * @param item the current pattern, consisting of a single item
-	 * @param sequenceIDs the list of sequence ids where this pattern appears
+	 * @param database the projected databases containing the pseudo-sequences where this pattern appears
+	 * @param start the position of the first of these pseudo-sequences
+	 * @param end the position after the last of these pseudo-sequences
 	 * @return  true if it should not be pruned, false if it should be pruned.
 	 */
-	private boolean checkBackscanPruningMultipleItemsFirstTime(int item, List<Integer> sequenceIDs) {		
-		// We use two maps the store the support of possible item that could be used for the backscan pruning
-		// We reset these maps
-		mapItemSupport.clear();
-		mapsItemSupportPostfix.clear();
+	private boolean checkBackscanPruningMultipleItemsFirstTime(int item, ProjectedDatabase database, int start, int end) {
+		// the support of the pattern
+		int support = end - start;
+		
+		// We use two counters to store the support of possible item that could be used for the backscan pruning
+		// We reset these counters
+		itemCounter.clear();
+		itemCounterPostfix.clear();
 		
 		// As an optimization, we will use a variable to remember the highest support until now.
 		int highestSupportUntilNow = 0;
 
 		// for each sequence where the pattern appears
-		for(int k =0; k < sequenceIDs.size(); k++){
+		for(int k = start; k < end; k++){
 			// Get the sequence
-			int sid = sequenceIDs.get(k);
+			int sid = database.sequenceIDs[k];
 			int[] sequence = sequenceDatabase.getSequences().get(sid);
 
 
@@ -818,8 +621,8 @@ public class AlgoBIDEPlus{
 			}
 
 			// Reset the sets for remembering which items have been already seen in the current sequence.
-			alreadySeen.clear();
-			alreadySeenPostfix.clear();
+			itemCounter.nextSequence();
+			itemCounterPostfix.nextSequence();
 			
 			// THEN, FOR EACH ITEM BEFORE The positin of item ei WE WILL UPDATE ITS SUPPORT
 			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
@@ -831,54 +634,34 @@ public class AlgoBIDEPlus{
 					// if the current item would NOT be in the same itemset as the pattern
 					if(i < posItemset){
 						// If we did not see this item yet in this sequence
-						if(alreadySeen.contains(token) == false){
+						if(itemCounter.isCountedInSequence(token) == false){
 							// Get its support
-							Integer itemSupport = mapItemSupport.get(token);
-							// Increase its support by 1
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
+							int itemSupport = itemCounter.increment(token);
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-							// update the support in the map
-							mapItemSupport.put(token, itemSupport);
 							
 							// if this extension has the same support as the pattern
-							if(itemSupport == sequenceIDs.size()){
+							if(itemSupport == support){
 								return false;
 							}
-							// Remember that we have seen that item in that sequence
-							alreadySeen.add(token);
 						}
 						
 					}else{
 						// If we did not see this item yet in this sequence
-						if(alreadySeenPostfix.contains(token) == false){
+						if(itemCounterPostfix.isCountedInSequence(token) == false){
 							// Get its support
-							Integer itemSupport = mapsItemSupportPostfix.get(token);
-							// Increase its support by 1
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
+							int itemSupport = itemCounterPostfix.increment(token);
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-							// update the support in the map
-							mapsItemSupportPostfix.put(token, itemSupport);
 	
 							// if this extension has the same support as the pattern
-							if(itemSupport == sequenceIDs.size()){
+							if(itemSupport == support){
 								return false;
 							}
-							// Remember that we have seen that item in that sequence
-							alreadySeenPostfix.add(token);
 						}
 					}	
 				}
@@ -886,7 +669,7 @@ public class AlgoBIDEPlus{
 			
 			// Optimization: if there is not enough sequences left for finding a backward extension given
 			// the highest support found until now, we can know that there will not be any backward extension for that pattern.
-			if(highestSupportUntilNow + (sequenceIDs.size() - k - 1) < sequenceIDs.size()) {
+			if(highestSupportUntilNow + (end - k - 1) < support) {
 				return true;
 			}
 		}		
@@ -895,57 +678,14 @@ public class AlgoBIDEPlus{
 	}
 
 	/**
-	 * This method saves a sequential pattern containing a single item to the output file or
-	 * in memory, depending on if the user provided an output file path or not
-	 * when he launched the algorithm
-	 * @param item the pattern to be saved.
-	 * @param support the support of this item
-	 * @param sequenceIDs the list of sequences containing this item
-	 * @throws IOException exception if error while writing the output file.
-	 */
-	private void savePattern(int item, int support, List<Integer> sequenceIDs) throws IOException {
-		// increase the number of pattern found for statistics purposes
-		patternCount++; 
-	
-		// if the result should be saved to a file
-		if(writer != null){
-			// create a StringBuilder
-			StringBuilder r = new StringBuilder();
-			r.append(item);
-			r.append(" -1 #SUP: ");
-			r.append(support);
-			if(showSequenceIdentifiers) {
-	        	r.append(" #SID: ");
-	        	for (Integer sid: sequenceIDs) {
-	        		r.append(sid);
-	        		r.append(" ");
-	        	}
-			}
-			// write the string to the file
-			writer.write(r.toString());
-			// start a new line
-			writer.newLine();
-		}
-		// otherwise the result is kept into memory
-		else{
-			// Create an object to store the pattern
-			SequentialPattern pattern = new SequentialPattern();
-			pattern.addItemset(new Itemset(item));
-			pattern.setSequenceIDs(sequenceIDs);
-			
-			// Store in a structure to store patterns
-			patterns.addSequence(pattern, 1);
-		}
-	}
-	
-	/**
-	 * Save a pattern containing two or more items to the output file (or in memory, depending on what the user prefer)
+	 * Save a pattern to the output file (or in memory, depending on what the user prefer)
 	 * @param lastBufferPosition the last position in the buffer for this pattern
-	 * @param pseudoSequences the list of pseudosequences where this pattern appears.
-	 * @param length the pattern length in terms of number of items.
+	 * @param database the projected databases containing the pseudo-sequences where this pattern appears.
+	 * @param start the position of the first of these pseudo-sequences
+	 * @param end the position after the last of these pseudo-sequences
 	 * @throws IOException if error when writing to file
 	 */
-	private void savePattern(int lastBufferPosition, List<PseudoSequence> pseudoSequences) throws IOException {
+	private void savePattern(int lastBufferPosition, ProjectedDatabase database, int start, int end) throws IOException {
 		// increase the number of pattern found for statistics purposes
 		patternCount++;  
 	
@@ -955,8 +695,9 @@ public class AlgoBIDEPlus{
 			StringBuilder r = new StringBuilder();
 			// For each element in this pattern
 			for(int i=0; i <= lastBufferPosition; i++){
-				// append the element
-				r.append(patternBuffer[i]);
+				// append the element (the items are converted back to their original names)
+				int token = patternBuffer[i];
+				r.append(token > 0 ? projectionEngine.getOriginalItem(token) : token);
 				// if this database does not have multiple items per itemset in sequence
 				if(i != lastBufferPosition && containsItemsetsWithMultipleItems == false){
 					// append the -1 separator
@@ -975,13 +716,13 @@ public class AlgoBIDEPlus{
 			
 			// append the support
 			r.append("#SUP: ");
-			r.append(pseudoSequences.size());
+			r.append(end - start);
 			
 			// if the user wants to see the sequence identifiers
 			if(showSequenceIdentifiers) {
 	        	r.append(" #SID: ");
-	        	for (PseudoSequence sequence: pseudoSequences) {
-	        		r.append(sequence.sequenceID);
+	        	for (int i = start; i < end; i++) {
+	        		r.append(database.sequenceIDs[i]);
 	        		r.append(" ");
 	        	}
 			}
@@ -1001,7 +742,7 @@ public class AlgoBIDEPlus{
 				int token = patternBuffer[i];
 				// if it is an item
 				if(token>0){
-					currentItemset.addItem(token);
+					currentItemset.addItem(projectionEngine.getOriginalItem(token));
 				}else if(token == -1){
 					// if it is an itemset separator
 					pattern.addItemset(currentItemset);
@@ -1015,9 +756,9 @@ public class AlgoBIDEPlus{
 			itemsetCount++;
 			
 			// create a list to store the identifiers of sequences containing that pattern
-			List<Integer> sequencesIDs = new ArrayList<Integer>(pseudoSequences.size());
-			for (int i = 0; i< pseudoSequences.size(); i++) {
-				sequencesIDs.add(pseudoSequences.get(i).sequenceID);
+			List<Integer> sequencesIDs = new ArrayList<Integer>(end - start);
+			for (int i = start; i < end; i++) {
+				sequencesIDs.add(database.sequenceIDs[i]);
         	}
 			pattern.setSequenceIDs(sequencesIDs);
 			
@@ -1027,205 +768,68 @@ public class AlgoBIDEPlus{
 	}
 	
 	
-	/**
-	 * Scan the database to obtain the list of identifiers of sequences where each item appears, and also
-	 * determine if this database contains multiple items per itemset.
-	 * @return Map where the key is an item and the value is the list of identifiers of sequence where this item appears.
-	 */
-	private Map<Integer, List<Integer>> findSequencesContainingItems() {
-		// number of items in the current itemset 
-		int itemCountInCurrentItemset;
-		
-		// We use a map to store the sequence IDs where an item appear
-		// Key : item   Value :  a set of sequence IDs
-		Map<Integer, List<Integer>> mapSequenceID = new HashMap<Integer, List<Integer>>(); 
-		
-		// for each sequence in the current database
-		for(int i=0; i < sequenceDatabase.size(); i++){
-			int[] sequence  = sequenceDatabase.getSequences().get(i);
-			
-			// reset the variable to count the number of items in the current itemset
-			 itemCountInCurrentItemset = 0;
-			 
-			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
-			for(int token : sequence){
-				// if it is an item
-				if(token > 0){
-					// get the set of sequence IDs for this item until now
-					List<Integer> sequenceIDs = mapSequenceID.get(token);
-					if(sequenceIDs == null){
-						// if the set does not exist, create one
-						sequenceIDs = new ArrayList<Integer>();
-						mapSequenceID.put(token, sequenceIDs);
-					}
-					// add the sequence ID to the 
-					// set of sequences IDs of this item
-					// if it is not already there
-					if(sequenceIDs.size() == 0 || sequenceIDs.get(sequenceIDs.size() - 1) != i){
-						sequenceIDs.add(i);
-					}
-					// increase the count of the number of items in this itemset
-					itemCountInCurrentItemset++;
-					// if this itemset contains more than 1 item, we will remember that this database
-					// contains sequence with multiple items for optimization purpose.
-					if(itemCountInCurrentItemset > 1){
-						containsItemsetsWithMultipleItems = true;
-					}
-				}else if(token == -1){
-					// if it is the end of an itemset, reste the item count per itemset.
-					itemCountInCurrentItemset = 0;
-				}
-			}
-		}
-		// return the map
-		return mapSequenceID;
-	}
-	
-	/**
-	 * Create a projected database by pseudo-projection with the initial database and a given item.
-	 * This method is optimized for the case of a database containing a single item per itemset in sequences
-	 * @param item The item to use to make the pseudo-projection
-	 * @param list  The list of sequence ids containing the item
-	 * @return the projected database.
-	 */
-	private List<PseudoSequence> buildProjectedDatabaseSingleItems(int item, List<Integer> sequenceIDs) {
-		// We create a new projected database
-		List<PseudoSequence> projectedDatabase = new ArrayList<PseudoSequence>();
-
-		// for each sequence that contains the current item
-loopSeq:for(int sequenceID : sequenceIDs){ 
-			int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
-			
-			// for each token in this sequence (item  or end of sequence (-2)
-			for(int j=0; sequence[j] != -2; j++){
-				int token = sequence[j];
-				
-				// if it is the item that we want to use for projection
-				if(token == item){
-					// if it is not the end of the sequence
-					if(sequence[j+1] != -2){
-						// Create a pseudo-sequence by cutting that sequence at position j, so that items from
-						// position j+1 and after remains in the sequence
-						PseudoSequence pseudoSequence = new PseudoSequence(sequenceID, j+1);
-						// add the sequence to the projected database
-						projectedDatabase.add(pseudoSequence);
-					}
-					
-					// we have created the pseudosequence for the current sequence, so we continue to the next sequence
-					continue loopSeq;
-				}
-			}
-		}
-		return projectedDatabase; // return the projected database
-	}
-	
-	/**
-	 * Create a projected database by pseudo-projection with the initial database and a given item.
-	 * This method is optimized for the case of sequences that may contain multiple items per itemset.
-	 * @param item The item to use to make the pseudo-projection
-	 * @param list  The list of sequence ids containing the item
-	 * @return the projected database.
-	 */
-	private List<PseudoSequence> buildProjectedDatabaseFirstTimeMultipleItems(int item, List<Integer> sequenceIDs) {
-		// We create a new projected database
-		List<PseudoSequence> projectedDatabase = new ArrayList<PseudoSequence>();
-
-		// for each sequence that contains the current item
-loopSeq:for(int sequenceID : sequenceIDs){ 
-			int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
-			
-			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
-			for(int j=0; sequence[j] != -2; j++){
-				int token = sequence[j];
-				
-				// if it is the item that we want to use for projection
-				if(token == item){
-					// if it is not the end of the sequence
-					boolean isEndOfSequence = sequence[j+1] == -1 && sequence[j+2] == -2;
-					if(isEndOfSequence == false){
-						// Create a pseudo-sequence by cutting that sequence at position j, so that items from
-						// position j+1 and after remains in the sequence
-						PseudoSequence pseudoSequence = new PseudoSequence(sequenceID, j+1);
-						// add the projected sequence to the projected database
-						projectedDatabase.add(pseudoSequence);
-					}
-
-					// we have created the pseudosequence for the current sequence, so we continue to the next sequence
-					continue loopSeq;
-				}
-			}
-		}
-		// return the projected database
-		return projectedDatabase; 
-	}
-	
-
 	/**
 	 * Method to recursively grow a given sequential pattern.
 	 * This method is optimized for sequence databases that may contain only a single item per itemset in sequences
-	 * @param database the current projected sequence database
+	 * @param depth the level of the projected database of the current pattern
+	 * @param start the position of the first pseudo-sequence of the projected database at that level
+	 * @param end the position after the last pseudo-sequence of the projected database
 	 * @param k  the prefix length in terms of items
 	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
 	 * @return the largest support among all extensions explored by this method.
 	 * @throws IOException exception if there is an error writing to the output file
 	 */
-	private int recursionSingleItems(List<PseudoSequence> database, int k, int lastBufferPosition) throws IOException {	
+	private int recursionSingleItems(int depth, int start, int end, int k, int lastBufferPosition) throws IOException {	
 
 		// variable to store the largest support of extensions of the current pattern
 		int maxSupport = 0;
 		
-		// Scan the projected database to calculate the list of pseudosequences containing each item.
-		// We obtain a map where a key is an item and the value is the corresponding list of pseudosequences
-		Map<Integer,List<PseudoSequence>> itemsPseudoSequences = findAllFrequentPairsSingleItems(database, lastBufferPosition);
-		
-		// release the memory used by the database
-		database = null;
+		// Scan the projected database to find the frequent items, and at the same time 
+		// create their respective projected databases (the items are sorted by ascending order)
+		ProjectedDatabase projectedDatabases = projectionEngine.projectSingleItems(depth, start, end);
 	
-		// For each pair found (a pair is an item with a boolean indicating if it
-		// appears in an itemset that is cut (a postfix) or not, and the sequence IDs
-		// where it appears in the projected database).
-		for(Entry<Integer, List<PseudoSequence>> entry : itemsPseudoSequences.entrySet()){
+		// For each frequent item
+		for(int i = 0; i < projectedDatabases.itemCount; i++){
+			int itemStart = projectedDatabases.getStart(i);
+			int itemEnd = projectedDatabases.getEnd(i);
 			// get the support of the item
-			int support = entry.getValue().size();
-			//if the item is frequent in the current projected database
-			if(support >= minsuppAbsolute){
-				// remember if it is the highest support found until now
-				if(support > maxSupport){
-					maxSupport = support;
-				}
-				
-				//Create the new pattern by appending the item  to the current pattern that we are extending
-				patternBuffer[lastBufferPosition+1] = entry.getKey();
+			int support = itemEnd - itemStart;
+			
+			// remember if it is the highest support found until now
+			if(support > maxSupport){
+				maxSupport = support;
+			}
+			
+			//Create the new pattern by appending the item  to the current pattern that we are extending
+			patternBuffer[lastBufferPosition+1] = projectedDatabases.items[i];
 
-				// check if the resulting pattern passes the backscan pruning check
-				boolean passBackscanPruning = checkBackscanPruningSingleItems(lastBufferPosition+1, entry.getValue());
+			// check if the resulting pattern passes the backscan pruning check
+			boolean passBackscanPruning = checkBackscanPruningSingleItems(lastBufferPosition+1, projectedDatabases, itemStart, itemEnd);
+			
+			// if we should not prune the resulting pattern according to the backscan pruning
+			if(passBackscanPruning){
+				// we use this variable to find the largest support of extension of the new  pattern
+				int maxSupportExtensions = 0;
+				// make a recursive call
+				if( k < maximumPatternLength){
+					// make a recursive call to recursively extend the new pattern
+					maxSupportExtensions = recursionSingleItems(depth + 1, itemStart, itemEnd, k+1, lastBufferPosition+1);
+				}
 				
-				// if we should not prune the resulting pattern according to the backscan pruning
-				if(passBackscanPruning){
-					// we use this variable to find the largest support of extension of the new  pattern
-					
-					int maxSupportExtensions = 0;
-					// make a recursive call
-					if( k < maximumPatternLength){
-						// make a recursive call to recursively extend the new pattern
-						maxSupportExtensions = recursionSingleItems(entry.getValue(), k+1, lastBufferPosition+1);
-					}
-					
-					// if the new pattern has no forward extension (an extension having the same support)
-					if(support != maxSupportExtensions){
+				// if the new pattern has no forward extension (an extension having the same support)
+				if(support != maxSupportExtensions){
 
-						// we still need to check if this pattern has a backward extension to determine if 
-						// it is closed
-						boolean passBackwardExtensionChecking = checkBackwardExtensionSingleItems(lastBufferPosition+1, entry.getValue());
-			
-						// if it has no backward extension, it is closed
-						if(passBackwardExtensionChecking){		
-							// Thus, we save the pattern
-							savePattern(lastBufferPosition+1, entry.getValue());
-						}
+					// we still need to check if this pattern has a backward extension to determine if 
+					// it is closed
+					boolean passBackwardExtensionChecking = checkBackwardExtensionSingleItems(lastBufferPosition+1, projectedDatabases, itemStart, itemEnd);
+		
+					// if it has no backward extension, it is closed
+					if(passBackwardExtensionChecking){		
+						// Thus, we save the pattern
+						savePattern(lastBufferPosition+1, projectedDatabases, itemStart, itemEnd);
 					}
-				}	
-			}
+				}
+			}	
 		}
 
 		// check the current memory usage
@@ -1239,10 +843,14 @@ loopSeq:for(int sequenceID : sequenceIDs){
 	 * This method checks if the current pattern respects the backscan pruning condition.
 	 * This method is optimized for sequence databases that may contain only a single item per itemset in sequences
 	 * @param lastBufferPosition the last position used in the buffer for storing the current pattern
-	 * @param projectedDatabase the projected dtabase
+	 * @param database the projected databases containing the pseudo-sequences where this pattern appears
+	 * @param start the position of the first of these pseudo-sequences
+	 * @param end the position after the last of these pseudo-sequences
 	 * @return true if there is not backward extension. Otherwise false.
 	 */
-	private boolean checkBackscanPruningSingleItems(int lastBufferPosition, List<PseudoSequence> projectedDatabase) {
+	private boolean checkBackscanPruningSingleItems(int lastBufferPosition, ProjectedDatabase database, int start, int end) {
+		// the support of the pattern
+		int support = end - start;
 
 
 		
@@ -1251,15 +859,13 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			// As an optimization, we will use a variable to remember the highest support until now.
 			int highestSupportUntilNow = 0;
 			
-			// reset the map for counting the support of items 
-			mapItemSupport.clear();
+			// reset the counter for counting the support of items 
+			itemCounter.clear();
 			
 			// for each sequence where the pattern appears
 			// for each sequence where the pattern appears
-loopSeq:	for(int k =0; k < projectedDatabase.size(); k++){
-				PseudoSequence pseudoSequence = projectedDatabase.get(k);
-				// get the original sequence
-				int sid = pseudoSequence.getOriginalSequenceID();
+loopSeq:	for(int k = start; k < end; k++){
+				int sid = database.sequenceIDs[k];
 				int[] sequence = sequenceDatabase.getSequences().get(sid);
 				
 				// we will try to match all items before the position of the current item
@@ -1267,7 +873,7 @@ loopSeq:	for(int k =0; k < projectedDatabase.size(); k++){
 				
 				// clear the set to remember item that we have already updated their support for the
 				// current sequence
-				alreadySeen.clear();
+				itemCounter.nextSequence();
 				
 				// for each item when reading the sequence forward
 				for(int j=0; sequence[j] != -2; j++){
@@ -1286,28 +892,19 @@ loopSeq:	for(int k =0; k < projectedDatabase.size(); k++){
 							// if it is an item that appear before the item that we are looking for
 							// and we did not count its support yet for this sequence
 							// and it is between the previous item that we are looking for an the one that we are looking for
-							if(alreadySeen.contains(token) == false && currentPositionToMatch == i){
-								Integer itemSupport = mapItemSupport.get(token);
-								if(itemSupport == null){
-									itemSupport = 1;
-								}else{
-									itemSupport++;
-								}
+							if(itemCounter.isCountedInSequence(token) == false && currentPositionToMatch == i){
+								int itemSupport = itemCounter.increment(token);
 								// update highest support until now
 								if(itemSupport > highestSupportUntilNow){
 									highestSupportUntilNow = itemSupport;
 								}
-								// update the support in the map for that item
-								mapItemSupport.put(token, itemSupport);
 								
 								// if this extension has the same support as the item used
 								// for database projection
-								if(itemSupport == projectedDatabase.size()){
+								if(itemSupport == support){
 									// it means that there the current pattern should be bascan pruned
 									return false;
 								}
-								// remember that we counted the support of that item in that sequence 
-								alreadySeen.add(token);
 							}
 						}
 					}
@@ -1315,7 +912,7 @@ loopSeq:	for(int k =0; k < projectedDatabase.size(); k++){
 				
 				// Optimization: if there is not enough sequences left for finding a backward extension given
 				// the highest support found until now, we can know that there will not be any backward extension for that pattern.
-				if(highestSupportUntilNow + (projectedDatabase.size() - k - 1) < projectedDatabase.size()) {
+				if(highestSupportUntilNow + (end - k - 1) < support) {
 					continue loopi;
 				}
 			}
@@ -1328,10 +925,14 @@ loopSeq:	for(int k =0; k < projectedDatabase.size(); k++){
 	 * This method checks if the current pattern respect the backscan pruning condition.
 	 * This method is optimized for sequence databases that may contain only a single item per itemset in sequences
 	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
-	 * @param sequenceIDs the ids of sequences containing this pattern
+	 * @param database the projected databases containing the pseudo-sequences where this pattern appears
+	 * @param start the position of the first of these pseudo-sequences
+	 * @param end the position after the last of these pseudo-sequences
 	 * @return true if there is not backward extension. Otherwise false.
 	 */
-	private boolean checkBackwardExtensionSingleItems(int lastBufferPosition, List<PseudoSequence> projectedDatabase) {
+	private boolean checkBackwardExtensionSingleItems(int lastBufferPosition, ProjectedDatabase database, int start, int end) {
+		// the support of the pattern
+		int support = end - start;
 
 		
 		// we will check if there is a backward extension for each item in the current pattern
@@ -1340,15 +941,13 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			// As an optimization, we will use a variable to remember the highest support until now.
 			int highestSupportUntilNow = 0;
 			
-			// reset the map for counting the support of items
-			mapItemSupport.clear();
+			// reset the counter for counting the support of items
+			itemCounter.clear();
 			
 			// for each sequence where the pattern appears
 			// for each sequence where the pattern appears
-			for(int k =0; k < projectedDatabase.size(); k++){
-				PseudoSequence pseudoSequence = projectedDatabase.get(k);
-				// get the original sequence
-				int sid = pseudoSequence.getOriginalSequenceID();
+			for(int k = start; k < end; k++){
+				int sid = database.sequenceIDs[k];
 				int[] sequence = sequenceDatabase.getSequences().get(sid);
 				
 				// FIRST FIND THE POSITION OF THE FIRST INSTANCE OF e1, e2... ei-1
@@ -1383,7 +982,7 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 				
 				// clear the set to remember item that we have already updated their support for the
 				// current sequence
-				alreadySeen.clear();
+				itemCounter.nextSequence();
 				
 				// for each item when reading the sequence backward
 				for(int j=sequence.length-1; j >= posAfterFirstInstance; j--){
@@ -1398,28 +997,19 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 							// if it is an item that appear before the item  ei and after ei-1
 							// and we did not count its support yet for this sequence
 							// and it is between the item that we are looking for and the one after
-							if(currentPositionToMatch == i-1 && alreadySeen.contains(token) == false){
-								Integer itemSupport = mapItemSupport.get(token);
-								if(itemSupport == null){
-									itemSupport = 1;
-								}else{
-									itemSupport++;
-								}
+							if(currentPositionToMatch == i-1 && itemCounter.isCountedInSequence(token) == false){
+								int itemSupport = itemCounter.increment(token);
 								// update highest support until now
 								if(itemSupport > highestSupportUntilNow){
 									highestSupportUntilNow = itemSupport;
 								}
-								// update the support in the map for that item
-								mapItemSupport.put(token, itemSupport);
 								
 								// if this extension has the same support as the item used
 								// for database projection
-								if(itemSupport == projectedDatabase.size()){
+								if(itemSupport == support){
 									// it means that there the current pattern has a backward extension
 									return false;
 								}
-								// remember that we counted the support of that item in that sequence 
-								alreadySeen.add(token);
 							}
 						}
 					}
@@ -1429,7 +1019,7 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 				
 				// Optimization: if there is not enough sequences left for finding a backward extension given
 				// the highest support found until now, we can know that there will not be any backward extension for that pattern.
-				if(highestSupportUntilNow + (projectedDatabase.size() - k - 1) < projectedDatabase.size()) {
+				if(highestSupportUntilNow + (end - k - 1) < support) {
 					continue loopi;
 				}
 			}
@@ -1441,125 +1031,71 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 	/**
 	 * Method to recursively grow a given sequential pattern.
 	 * This method is optimized for sequence databases that may contain multiple items per itemset in sequences.
-	 * @param database the current projected sequence database
+	 * @param depth the level of the projected database of the current pattern
+	 * @param start the position of the first pseudo-sequence of the projected database at that level
+	 * @param end the position after the last pseudo-sequence of the projected database
 	 * @param k  the prefix length in terms of items
 	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
 	 * @return the support of the most frequent extension of the current pattern
 	 * @throws IOException exception if there is an error writing to the output file
 	 */
-	private int recursionMultipleItems(List<PseudoSequence> database, int k, int lastBufferPosition) throws IOException {
-		
+	private int recursionMultipleItems(int depth, int start, int end, int k, int lastBufferPosition) throws IOException {
 		
 		// variable to store  the support of the most frequent extension of the current pattern
 		int maxSupport = 0;
 		
 		// FIND FREQUENT PAIRS
-		// find frequent items of size 1 in the current projected database, and at the same
-		// time create their respective projected databases
-		// We create some maps of pairs for storing the frequent items. The following object
-		// contains two maps. The first one is for item extending the current pattern as an i-extension,
-		// while the second is for item extending the current pattern as an s-extension.
-		MapFrequentPairs mapsPairs = findAllFrequentPairs(database, lastBufferPosition);
-		
-		// release the memory used by the database
-		database = null;
+		// find frequent items in the current projected database, and at the same
+		// time create their respective projected databases.
+		// The items extending the current pattern as an i-extension (in a postfix itemset) appear first, 
+		// followed by the items extending the current pattern as an s-extension.
+		ProjectedDatabase projectedDatabases = projectionEngine.projectMultipleItems(depth, start, end, patternBuffer, lastBufferPosition);
 	
-		// For each pair found that is in a postfix itemset(a pair is an item with a boolean indicating if it
-		// appears in an itemset that is cut (a postfix) or not, and the sequence IDs
-		// where it appears in the projected database).
-		for(Entry<Pair,Pair> entry : mapsPairs.mapPairsInPostfix.entrySet()){
-			Pair pair = entry.getKey();
-			// Get the support of that pair
-			int support = pair.getCount();
-			
-			// if the item is frequent in the current projected database
-			if(pair.getCount() >= minsuppAbsolute){
-				
-				// If it is the item with the highest support until, we will remember that support value
-				if(support > maxSupport){
-					maxSupport = support;
-				}
-
-				// we append the item to the current pattern to create a new pattern
-				int newBuferPosition = lastBufferPosition;
-				newBuferPosition++;
-				patternBuffer[newBuferPosition] = pair.item;
-								
-				// We check if the new pattern passes the backscan pruning condition
-				boolean passBackscanPruning = checkBackscanPruningMultipleItems(newBuferPosition, entry.getValue().getPseudoSequences());
+		// For each frequent item
+		for(int i = 0; i < projectedDatabases.itemCount; i++){
+			int itemStart = projectedDatabases.getStart(i);
+			int itemEnd = projectedDatabases.getEnd(i);
+			// Get the support of that item
+			int support = itemEnd - itemStart;
 				
-				// If the new pattern should  not be pruned according to the backscan pruning condition
-				if(passBackscanPruning){
-					// make a recursive call to explore extensions of the new pattern
-					int maxSupportExtensions = 0;
-					if( k < maximumPatternLength){
-						// the recursive call return the largest support value among extension of the new pattern
-						 maxSupportExtensions = recursionMultipleItems(pair.getPseudoSequences(), k+1, newBuferPosition);
-					}
-
-					// if the new pattern has no forward extension (an extension having the same support, it may be closed
-					if(support != maxSupportExtensions){
-						// but we still need to check if it has a backward extension
-						boolean passBackwardExtensionChecking = checkBackwardExtensionMultipleItems(newBuferPosition, entry.getValue().getPseudoSequences());
-						// If the new pattern has no backward extension
-						if(passBackwardExtensionChecking){		
-							// Then it is closed, so we save the pattern
-							savePattern(newBuferPosition, pair.getPseudoSequences());	
-						}
-					}				
-				}		
+			// If it is the item with the highest support until, we will remember that support value
+			if(support > maxSupport){
+				maxSupport = support;
 			}
-		}
-		
-		// For each pair found representing an item that is not in a postfix
-		for(Entry<Pair,Pair> entry : mapsPairs.mapPairs.entrySet()){
-			Pair pair = entry.getKey();
-			// get the support of that item
-			int support = pair.getCount();
-			
-			// if the item is frequent in the current projected database
-			if(support >= minsuppAbsolute){
-
-				// If it is the item with the highest support until, we will remember that support value
-				if(support > maxSupport){
-					maxSupport = support;
-				}
 
-				// we append the item to the current pattern to create a new pattern
-				int newBuferPosition = lastBufferPosition;
-				newBuferPosition++;
+			// we append the item to the current pattern to create a new pattern
+			int newBuferPosition = lastBufferPosition;
+			newBuferPosition++;
+			if(i >= projectedDatabases.iExtensionCount){
+				// if it is an s-extension, the item is appended as a new itemset
 				patternBuffer[newBuferPosition] = -1;
 				newBuferPosition++;
-				patternBuffer[newBuferPosition] = pair.item;
-
-				// We check if the new pattern passes the backscan pruning condition
-				boolean passBackscanPruning = checkBackscanPruningMultipleItems(newBuferPosition, entry.getValue().getPseudoSequences());
-
-				// If the new pattern should  not be pruned according to the backscan pruning condition
-				if(passBackscanPruning){
-
-					// make a recursive call to explore extensions of the new pattern
-					int maxSupportExtensions = 0;
-					// make a recursive call
-					if( k < maximumPatternLength){
-						// the recursive call return the largest support value among extension of the new pattern
-						maxSupportExtensions = recursionMultipleItems(pair.getPseudoSequences(), k+1, newBuferPosition);
-					}
-
-					// if the new pattern has no forward extension (an extension having the same support, it may be closed
-					if(support != maxSupportExtensions){
+			}
+			patternBuffer[newBuferPosition] = projectedDatabases.items[i];
+							
+			// We check if the new pattern passes the backscan pruning condition
+			boolean passBackscanPruning = checkBackscanPruningMultipleItems(newBuferPosition, projectedDatabases, itemStart, itemEnd);
+			
+			// If the new pattern should  not be pruned according to the backscan pruning condition
+			if(passBackscanPruning){
+				// make a recursive call to explore extensions of the new pattern
+				int maxSupportExtensions = 0;
+				if( k < maximumPatternLength){
+					// the recursive call return the largest support value among extension of the new pattern
+					 maxSupportExtensions = recursionMultipleItems(depth + 1, itemStart, itemEnd, k+1, newBuferPosition);
+				}
 
-						// but we still need to check if it has a backward extension
-						boolean passBackwardExtensionChecking = checkBackwardExtensionMultipleItems(newBuferPosition, entry.getValue().getPseudoSequences());
-						// If the new pattern has no backward extension
-						if(passBackwardExtensionChecking){	
-							// Then it is closed, so we save the pattern
-							savePattern(newBuferPosition, pair.getPseudoSequences());
-						}
+				// if the new pattern has no forward extension (an extension having the same support, it may be closed
+				if(support != maxSupportExtensions){
+					// but we still need to check if it has a backward extension
+					boolean passBackwardExtensionChecking = checkBackwardExtensionMultipleItems(newBuferPosition, projectedDatabases, itemStart, itemEnd);
+					// If the new pattern has no backward extension
+					if(passBackwardExtensionChecking){		
+						// Then it is closed, so we save the pattern
+						savePattern(newBuferPosition, projectedDatabases, itemStart, itemEnd);	
 					}
-				
-				}
-			}
+				}				
+			}		
 		}
 		// check the current memory usage
 		MemoryLogger.getInstance().checkMemory();
@@ -1573,10 +1109,14 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 	 * Check if there is a backward extension, for a pattern of length greater than 1.
 	 * This method is optimized for sequence databases that may contain multiple items per itemset in sequences
 	 * @param lastBufferPosition the last item of the current pattern in the buffer 
-	 * @param sequences a projected database
+	 * @param database the projected databases containing the pseudo-sequences where this pattern appears
+	 * @param start the position of the first of these pseudo-sequences
+	 * @param end the position after the last of these pseudo-sequences
 	 * @return true if the pattern has no backward extension. Otherwise, false.
 	 */
-	private boolean checkBackwardExtensionMultipleItems(int lastBufferPosition, List<PseudoSequence> sequences) {
+	private boolean checkBackwardExtensionMultipleItems(int lastBufferPosition, ProjectedDatabase database, int start, int end) {
+		// the support of the pattern
+		int support = end - start;
 
 		
 		// we will check if there is a backward extension for each item in the current pattern
@@ -1591,26 +1131,25 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			}
 			//===================================
 			
-			// We use three maps the store the support of possible item that could be used for the backscan pruning
-			mapItemSupport.clear();
-			mapsItemSupportPostfix.clear();
-			mapsItemSupportSuffix.clear();
+			// We use three counters to store the support of possible item that could be used for the backscan pruning
+			itemCounter.clear();
+			itemCounterPostfix.clear();
+			itemCounterSuffix.clear();
 			
 			// for each sequence
 			// for each sequence where the pattern appears
-			for(int k =0; k < sequences.size(); k++){
-				PseudoSequence pseudoSequence = sequences.get(k);
-				int sid = pseudoSequence.getOriginalSequenceID();
+			for(int k = start; k < end; k++){
+				int sid = database.sequenceIDs[k];
 				int[] sequence = sequenceDatabase.getSequences().get(sid);
 				
 				// clear the variables to remember which items we have already seen in the current sequence
 				// that can extend the current pattern as a:
 				// s-extension
-				alreadySeen.clear();
+				itemCounter.nextSequence();
 				// i-extension that is a postfix
-				alreadySeenPostfix.clear();
+				itemCounterPostfix.nextSequence();
 				// i-extension that is a suffix
-				alreadySeenSuffix.clear();
+				itemCounterSuffix.nextSequence();
 			
 				//======================================================
 				// FIRST we will try to match  e1, e2, ei-1...
@@ -1782,63 +1321,39 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 					
 					
 					if(inFirstPostfix || (inAnotherPostfix && !justMatched)){
-						if(alreadySeenPostfix.contains(token) == false){
-							Integer itemSupport = mapsItemSupportPostfix.get(token);
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
-							if(itemSupport ==  sequences.size()){
+						if(itemCounterPostfix.isCountedInSequence(token) == false){
+							int itemSupport = itemCounterPostfix.increment(token);
+							if(itemSupport == support){
 								return false;
 							}
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-	//						// update the support in the map
-							mapsItemSupportPostfix.put(token, itemSupport);
-							alreadySeenPostfix.add(token);
 						}
 					}
 					if(j >= posLastItemset){
-						if(alreadySeenSuffix.contains(token) == false){
-							Integer itemSupport = mapsItemSupportSuffix.get(token);
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
-							if(itemSupport ==  sequences.size()){
+						if(itemCounterSuffix.isCountedInSequence(token) == false){
+							int itemSupport = itemCounterSuffix.increment(token);
+							if(itemSupport == support){
 								return false;
 							}
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-	//						// update the support in the map
-							mapsItemSupportSuffix.put(token, itemSupport);
-							alreadySeenSuffix.add(token);
 						}
 					}
 					if(!inFirstPostfix && j < posLastItemset){
-						if(alreadySeen.contains(token) == false){
-							Integer itemSupport = mapItemSupport.get(token);
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
-							if(itemSupport ==  sequences.size()){
+						if(itemCounter.isCountedInSequence(token) == false){
+							int itemSupport = itemCounter.increment(token);
+							if(itemSupport == support){
 								return false;
 							}
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-	//						// update the support in the map
-							mapItemSupport.put(token, itemSupport);
-							alreadySeen.add(token);
 						}
 					}
 					/////////////////
@@ -1850,7 +1365,7 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			
 			// Optimization: if there is not enough sequences left for finding a backward extension given
 			// the highest support found until now, we can know that there will not be any backward extension for that pattern.
-//			if(highestSupportUntilNow + (sequences.size() - k - 1) < sequences.size()) {
+//			if(highestSupportUntilNow + (end - k - 1) < support) {
 //				continue loopi;
 //			}
 			
@@ -1866,10 +1381,14 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 	 * This is the general case (pattern of length greater than 1, in a database)
 	 * This method is optimized for sequence databases that may contain multiple items per itemset in sequences.
 	 * @param lastBufferPosition the last item of the current pattern in the buffer 
-	 * @param sequences
+	 * @param database the projected databases containing the pseudo-sequences where this pattern appears
+	 * @param start the position of the first of these pseudo-sequences
+	 * @param end the position after the last of these pseudo-sequences
 	 * @return true if the pattern has no backward extension. Otherwise, false.
 	 */
-	private boolean checkBackscanPruningMultipleItems(int lastBufferPosition,  List<PseudoSequence> sequences) {
+	private boolean checkBackscanPruningMultipleItems(int lastBufferPosition, ProjectedDatabase database, int start, int end) {
+		// the support of the pattern
+		int support = end - start;
 		
 		// we will check the backscan pruning condition for each item in the current pattern
 loopi:	for(int i=0; i <= lastBufferPosition; i++){
@@ -1884,21 +1403,20 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			}
 			//===================================
 			
-			// We use three maps the store the support of possible item that could be used for the backscan pruning
-			mapItemSupport.clear();
-			mapsItemSupportPostfix.clear();
-			mapsItemSupportSuffix.clear();
+			// We use three counters to store the support of possible item that could be used for the backscan pruning
+			itemCounter.clear();
+			itemCounterPostfix.clear();
+			itemCounterSuffix.clear();
 			
 			// for each sequence where the pattern appears
-			for(int k =0; k < sequences.size(); k++){
+			for(int k = start; k < end; k++){
 
-				PseudoSequence pseudoSequence = sequences.get(k);
-				int sid = pseudoSequence.getOriginalSequenceID();
+				int sid = database.sequenceIDs[k];
 				int[] sequence = sequenceDatabase.getSequences().get(sid);
 
-				alreadySeen.clear();
-				alreadySeenPostfix.clear();
-				alreadySeenSuffix.clear();
+				itemCounter.nextSequence();
+				itemCounterPostfix.nextSequence();
+				itemCounterSuffix.nextSequence();
 			
 				//======================================================
 				// FIRST we will try to match  e1, e2, ei-1...
@@ -2072,63 +1590,39 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 					
 					
 					if(inFirstPostfix || (inAnotherPostfix && !justMatched)){
-						if(alreadySeenPostfix.contains(token) == false){
-							Integer itemSupport = mapsItemSupportPostfix.get(token);
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
-							if(itemSupport ==  sequences.size()){
+						if(itemCounterPostfix.isCountedInSequence(token) == false){
+							int itemSupport = itemCounterPostfix.increment(token);
+							if(itemSupport == support){
 								return false;
 							}
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-	//						// update the support in the map
-							mapsItemSupportPostfix.put(token, itemSupport);
-							alreadySeenPostfix.add(token);
 						}
 					}
 					if(j >= posLastItemset){
-						if(alreadySeenSuffix.contains(token) == false){
-							Integer itemSupport = mapsItemSupportSuffix.get(token);
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
-							if(itemSupport ==  sequences.size()){
+						if(itemCounterSuffix.isCountedInSequence(token) == false){
+							int itemSupport = itemCounterSuffix.increment(token);
+							if(itemSupport == support){
 								return false;
 							}
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-	//						// update the support in the map
-							mapsItemSupportSuffix.put(token, itemSupport);
-							alreadySeenSuffix.add(token);
 						}
 					}
 					if(!inFirstPostfix && j < posLastItemset){
-						if(alreadySeen.contains(token) == false){
-							Integer itemSupport = mapItemSupport.get(token);
-							if(itemSupport == null){
-								itemSupport = 1;
-							}else{
-								itemSupport++;
-							}
-							if(itemSupport ==  sequences.size()){
+						if(itemCounter.isCountedInSequence(token) == false){
+							int itemSupport = itemCounter.increment(token);
+							if(itemSupport == support){
 								return false;
 							}
 							// update highest support until now
 							if(itemSupport > highestSupportUntilNow){
 								highestSupportUntilNow = itemSupport;
 							}
-	//						// update the support in the map
-							mapItemSupport.put(token, itemSupport);
-							alreadySeen.add(token);
 						}
 					}
 					/////////////////
@@ -2141,7 +1635,7 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 			
 			// Optimization: if there is not enough sequences left for finding a backward extension given
 			// the highest support found until now, we can know that there will not be any backward extension for that pattern.
-			if(highestSupportUntilNow + (sequences.size() - k - 1) < sequences.size()) {
+			if(highestSupportUntilNow + (end - k - 1) < support) {
 				continue loopi;
 			}
 			
@@ -2151,196 +1645,6 @@ loopi:	for(int i=0; i <= lastBufferPosition; i++){
 		return true;
 	}
 
-	/**
-	 * Method to find all frequent items in a projected sequence database
-	 * This method is optimized for sequence databases that may contain no more than an item per itemset in sequences
-	 * @param sequences  the set of sequences
-	 * @param patternBuffer  the current sequential pattern that we want to try to grow
-	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
-	 * @return A list of pairs, where a pair is an item with (1) a boolean indicating if it
-	 *         is in an itemset that is "cut" and (2) the sequence IDs where it occurs.
-	 */
-	protected Map<Integer,List<PseudoSequence>>  findAllFrequentPairsSingleItems(List<PseudoSequence> sequences, int lastBufferPosition){
-		// We use a Map the store the pairs.
-		Map<Integer,List<PseudoSequence>>  mapItemsPseudoSequences = new HashMap<Integer,List<PseudoSequence>>();
-
-		// for each sequence
-		for(PseudoSequence pseudoSequence : sequences){
-			
-			// for each sequence
-			int sequenceID = pseudoSequence.getOriginalSequenceID();
-			int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
-			
-			// for each token in this sequence 
-			for(int i = pseudoSequence.indexFirstItem;  sequence[i] != -2 ; i++){
-				int token = sequence[i];
-				
-				// if it is an item
-				if(token > 0){
-					// get the pair object stored in the map if there is one already
-					List<PseudoSequence> listSequences = mapItemsPseudoSequences.get(token);
-					// if there is no pair object yet
-					if(listSequences == null){
-						listSequences = new ArrayList<PseudoSequence>();
-						// store the pair object that we created
-						mapItemsPseudoSequences.put(token, listSequences);
-					}
-					
-					// Check if that sequence as already been added to the projected database of this item
-					boolean ok = true;
-					if(listSequences.size() > 0){
-						ok = listSequences.get(listSequences.size() - 1).sequenceID != sequenceID;
-					}
-					// if not we add it
-					if(ok){
-						listSequences.add(new PseudoSequence(sequenceID, i+1));
-					}
-				}
-			}
-		}
-		MemoryLogger.getInstance().checkMemory();  // check the memory for statistics.
-		// return the map of pairs
-		return mapItemsPseudoSequences;
-	}
-	
-	
-	/**
-	 * This class contains two maps, which are used for counting the
-	 * frequencies of items, whether in a postfix itemset or a normal itemset.
-	 */
-	public class MapFrequentPairs{
-	    public final Map<Pair, Pair>  mapPairs = new HashMap<Pair, Pair>();
-	    public final Map<Pair, Pair>  mapPairsInPostfix = new HashMap<Pair, Pair>();
-	};
-
-	/**
-	 * Method to find all frequent items in a projected sequence database
-	 * @param sequences  the set of sequences
-	 * @param lastBufferPosition the last position used in the buffer for storing the current prefix
-	 * @return A list of pairs, where a pair is an item with (1) a boolean indicating if it
-	 *         is in an itemset that is "cut" and (2) the sequence IDs where it occurs.
-	 */
-	protected MapFrequentPairs findAllFrequentPairs(List<PseudoSequence> sequences, int lastBufferPosition){
-		// We use an object containing two maps the store the pairs.
-		MapFrequentPairs mapsPairs = new MapFrequentPairs();
-		
-		// find the position of the first item of the last itemset of the current sequential pattern that is grown
-		int firstPositionOfLastItemsetInBuffer = lastBufferPosition;
-		while(lastBufferPosition >0){
-			firstPositionOfLastItemsetInBuffer--;
-			if(firstPositionOfLastItemsetInBuffer < 0 || patternBuffer[firstPositionOfLastItemsetInBuffer] == -1){
-				firstPositionOfLastItemsetInBuffer++;
-				break;
-			}
-		};
-		
-		// use a variable to try to match the last itemset of the pattern in the buffer
-		int positionToBeMatched = firstPositionOfLastItemsetInBuffer;
-		
-		// for each sequence
-		for(PseudoSequence pseudoSequence : sequences){
-			
-			// for each sequence
-			int sequenceID = pseudoSequence.getOriginalSequenceID();
-			int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
-
-			
-			// check if the first itemset of that sequence is a postfix
-			// It is a postfix (the itemset is cut) if the previous item is a -1 indicating
-			// the end of an itemset
-			int previousItem = sequence[pseudoSequence.indexFirstItem - 1];
-			boolean currentItemsetIsPostfix = (previousItem != - 1);
-			boolean isFirstItemset = true;
-			
-			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
-			for(int i = pseudoSequence.indexFirstItem;  sequence[i] != -2 ; i++){
-				int token = sequence[i];
-				
-				// if it is an item
-				if(token > 0){
-					
-					// create the pair corresponding to this item
-					Pair pair = new Pair(token);   
-					// get the pair object store in the map if there is one already
-					Pair oldPair;
-					if(currentItemsetIsPostfix){
-						oldPair = mapsPairs.mapPairsInPostfix.get(pair);
-					}else{
-						oldPair = mapsPairs.mapPairs.get(pair);
-					}
-					// if there is no pair object yet
-					if(oldPair == null){
-						// store the pair object that we created
-						if(currentItemsetIsPostfix){
-							mapsPairs.mapPairsInPostfix.put(pair, pair);
-						}else{
-							mapsPairs.mapPairs.put(pair, pair);
-						}
-					}else{
-						// otherwise use the old one
-						pair = oldPair;
-					}
-					
-					// Check if that sequence as already been added to the projected database of this item
-					boolean ok = true;
-					if(pair.getPseudoSequences().size() > 0){
-						ok = pair.getPseudoSequences().get(pair.getPseudoSequences().size() - 1).sequenceID != sequenceID;
-					}
-					// if not we add it
-					if(ok){
-						pair.getPseudoSequences().add(new PseudoSequence(sequenceID, i+1));
-					}
-					
-					///////// ====== IMPORTANT =========
-					// if the current itemset is a postfix and it is not the first itemset
-					// we must also consider that it may not be a postfix for extending the current prefix
-					if(currentItemsetIsPostfix && isFirstItemset == false){
-						// create the pair corresponding to this item
-						 pair = new Pair(token);     // FALSE !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!
-						// get the pair object store in the map if there is one already
-						 oldPair = mapsPairs.mapPairs.get(pair);
-						// if there is no pair object yet
-						if(oldPair == null){
-							// store the pair object that we created
-							mapsPairs.mapPairs.put(pair, pair);
-						}else{
-							// otherwise use the old one
-							pair = oldPair;
-						}
-						
-						// Check if that sequence as already been added to the projected database of this item
-						ok = true;
-						if(pair.getPseudoSequences().size() > 0){
-							ok = pair.getPseudoSequences().get(pair.getPseudoSequences().size() - 1).sequenceID != sequenceID;
-						}
-						// if not we add it
-						if(ok){
-							pair.getPseudoSequences().add(new PseudoSequence(sequenceID, i+1));
-						}
-						
-					}
-					//////////////////////////////////////////////////////////
-
-					//  try to match this item with the last itemset in the prefix
-					if(currentItemsetIsPostfix == false && patternBuffer[positionToBeMatched] == token){
-						positionToBeMatched++;
-						if(positionToBeMatched > lastBufferPosition){
-							currentItemsetIsPostfix = true;
-						}
-					}
-
-				}else if(token == -1){
-					isFirstItemset = false;
-					currentItemsetIsPostfix = false;
-					positionToBeMatched = firstPositionOfLastItemsetInBuffer;
-				}
-			}
-		}
-		MemoryLogger.getInstance().checkMemory();  // check the memory for statistics.
-		// return the map of pairs
-		return mapsPairs;
-	}
-
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 */
@@ -0,0 +1,142 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.util.Arrays;
+
+/**
+ * This class is used to count the support of items in a set of sequences, where items are
+ * integers 1, 2, ... n (the items renamed by the ProjectionEngine). The support of each item is
+ * stored in an array indexed by the item, which replaces a Map&lt;Integer,Integer&gt; and a
+ * Set&lt;Integer&gt; remembering which items were already counted in the current sequence.
+ * <br/><br/>
+ *
+ * The items that have a support are remembered so that the counter can be cleared without
+ * reading the whole array. The items already counted in the current sequence are marked with
+ * the number of the current sequence, so that moving to the next sequence does not require
+ * to clear anything.
+ *
+ * This class is used by the PrefixSpan and BIDE+ algorithms.
+ *
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+class ItemCounter {
+
+	/** the support of each item */
+	private final int[] supports;
+
+	/** for each item, the number of the last sequence where it was counted */
+	private final int[] sequenceMarks;
+
+	/** the number of the current sequence */
+	private int currentSequence = 1;
+
+	/** the items having a support greater than 0 */
+	private final int[] countedItems;
+
+	/** the number of items having a support greater than 0 */
+	private int countedItemCount = 0;
+
+	/**
+	 * Constructor
+	 * @param maxItem the largest item
+	 */
+	ItemCounter(int maxItem){
+		supports = new int[maxItem + 1];
+		sequenceMarks = new int[maxItem + 1];
+		countedItems = new int[maxItem + 1];
+	}
+
+	/**
+	 * Set the support of all items to 0.
+	 */
+	void clear(){
+		for(int i = 0; i < countedItemCount; i++){
+			supports[countedItems[i]] = 0;
+		}
+		countedItemCount = 0;
+	}
+
+	/**
+	 * Move to the next sequence. After calling this method, no item is
+	 * considered as counted in the current sequence.
+	 */
+	void nextSequence(){
+		currentSequence++;
+		// if the sequence number overflows, we start again from 1
+		if(currentSequence == Integer.MAX_VALUE){
+			Arrays.fill(sequenceMarks, 0);
+			currentSequence = 1;
+		}
+	}
+
+	/**
+	 * Check if an item was already counted in the current sequence
+	 * @param item the item
+	 * @return true if it was counted
+	 */
+	boolean isCountedInSequence(int item){
+		return sequenceMarks[item] == currentSequence;
+	}
+
+	/**
+	 * Mark an item as counted in the current sequence, without changing its support
+	 * @param item the item
+	 */
+	void setCountedInSequence(int item){
+		sequenceMarks[item] = currentSequence;
+	}
+
+	/**
+	 * Increase the support of an item by 1 and mark it as counted in the current sequence
+	 * @param item the item
+	 * @return the new support of the item
+	 */
+	int increment(int item){
+		sequenceMarks[item] = currentSequence;
+		if(supports[item] == 0){
+			countedItems[countedItemCount++] = item;
+		}
+		return ++supports[item];
+	}
+
+	/**
+	 * Get the support of an item
+	 * @param item the item
+	 * @return the support
+	 */
+	int getSupport(int item){
+		return supports[item];
+	}
+
+	/**
+	 * Get the number of items having a support greater than 0
+	 * @return the number of items
+	 */
+	int getCountedItemCount(){
+		return countedItemCount;
+	}
+
+	/**
+	 * Get an item having a support greater than 0
+	 * @param i a position between 0 and getCountedItemCount()-1
+	 * @return the item
+	 */
+	int getCountedItem(int i){
+		return countedItems[i];
+	}
+}
@@ -0,0 +1,109 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.util.Arrays;
+
+/**
+ * This represents the projected databases of all the items that extend a sequential pattern
+ * (as based in PrefixSpan). Rather than storing each pseudo-sequence as an object, a pseudo-sequence
+ * is stored as two integers: the identifier of the original sequence and the position where the
+ * pseudo-sequence starts in that sequence. The pseudo-sequences of all the items are stored one
+ * after the other in the same two arrays, and the items are sorted by ascending order. The projected
+ * database of the i-th item is thus the part of the arrays between getStart(i) and getEnd(i).
+ * <br/><br/>
+ *
+ * If the database contains itemsets with multiple items, the items that extend the pattern
+ * as an i-extension (in the same itemset) appear first, and then the items that extend the pattern as an
+ * s-extension (in a new itemset). An object of this class is created for each level of the
+ * search tree by the ProjectionEngine, and is reused for the whole search.
+ *
+ * This class is used by the PrefixSpan and BIDE+ algorithms.
+ *
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+class ProjectedDatabase {
+
+	/** the original sequence of each pseudo-sequence */
+	int[] sequenceIDs = new int[16];
+
+	/** the position of the first item of each pseudo-sequence in its original sequence */
+	int[] offsets = new int[16];
+
+	/** the number of pseudo-sequences */
+	int size = 0;
+
+	/** the items, sorted by ascending order (i-extensions first, then s-extensions) */
+	int[] items = new int[16];
+
+	/** the position of the first pseudo-sequence of each item (the last value is the size) */
+	int[] starts = new int[17];
+
+	/** the number of items */
+	int itemCount = 0;
+
+	/** the number of items that are i-extensions (they appear first in the array of items) */
+	int iExtensionCount = 0;
+
+	/**
+	 * Remove all the items and pseudo-sequences, and make sure that the arrays are large enough
+	 * @param sequenceCapacity the number of pseudo-sequences that will be stored
+	 * @param itemCapacity the number of items that will be stored
+	 */
+	void reset(int sequenceCapacity, int itemCapacity){
+		if(sequenceIDs.length < sequenceCapacity){
+			int capacity = Math.max(sequenceCapacity, sequenceIDs.length * 2);
+			sequenceIDs = new int[capacity];
+			offsets = new int[capacity];
+		}
+		if(items.length < itemCapacity){
+			int capacity = Math.max(itemCapacity, items.length * 2);
+			items = Arrays.copyOf(items, capacity);
+			starts = new int[capacity + 1];
+		}
+		size = 0;
+		itemCount = 0;
+		iExtensionCount = 0;
+	}
+
+	/**
+	 * Get the position of the first pseudo-sequence of an item
+	 * @param i the position of the item
+	 * @return the position of its first pseudo-sequence
+	 */
+	int getStart(int i){
+		return starts[i];
+	}
+
+	/**
+	 * Get the position after the last pseudo-sequence of an item
+	 * @param i the position of the item
+	 * @return the position after its last pseudo-sequence
+	 */
+	int getEnd(int i){
+		return starts[i + 1];
+	}
+
+	/**
+	 * Get the support of an item (the number of pseudo-sequences in its projected database)
+	 * @param i the position of the item
+	 * @return the support
+	 */
+	int getSupport(int i){
+		return starts[i + 1] - starts[i];
+	}
+}
@@ -0,0 +1,462 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class creates the projected databases of the PrefixSpan and BIDE+ algorithms by pseudo-projection.
+ * <br/><br/>
+ *
+ * When it is created, it removes the infrequent items from the sequence database and renames the
+ * frequent items as 1, 2, 3 ... n by ascending order, so that the support of items can be counted
+ * with arrays (see ItemCounter) rather than with maps. Since the order of items is kept, itemsets remain sorted.
+ * The original name of an item is obtained by calling getOriginalItem().
+ * <br/><br/>
+ *
+ * The projected databases are stored in a ProjectedDatabase object for each level of the search tree.
+ * These objects are created once and then reused, so that no object is created when a projected database
+ * is built. The level 0 contains all the sequences of the database. To build the projected databases
+ * of the items extending a pattern, the projected database of the pattern is read two times:
+ * once to count the support of each item, and then to copy the pseudo-sequences of the frequent
+ * items at the next level.
+ *
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see AlgoPrefixSpan
+ * @see AlgoBIDEPlus
+ */
+class ProjectionEngine {
+
+	/** the sequences of the database (a sequence is null if it contains no frequent items) */
+	private final int[][] sequences;
+
+	/** the minimum support as a number of sequences */
+	private final int minsup;
+
+	/** boolean indicating whether this database contains itemsets with multiple items or not */
+	private boolean containsItemsetsWithMultipleItems = false;
+
+	/** the original name of each item (the position 0 is unused) */
+	private int[] originalItems;
+
+	/** the projected databases of each level of the search tree */
+	private ProjectedDatabase[] levels = new ProjectedDatabase[16];
+
+	/** the counter for items that extend a pattern by s-extension */
+	private final ItemCounter counter;
+
+	/** the counter for items that extend a pattern by i-extension (in a postfix) */
+	private final ItemCounter counterPostfix;
+
+	/** for each item, the position where its next pseudo-sequence will be copied (or -1 if it is infrequent) */
+	private final int[] cursors;
+
+	/** for each item, the position where its next pseudo-sequence will be copied for an i-extension */
+	private final int[] cursorsPostfix;
+
+	/**
+	 * Constructor. This removes the infrequent items from the sequence database and renames the frequent items.
+	 * @param sequenceDatabase a sequence database (it is modified)
+	 * @param minsup the minimum support as a number of sequences
+	 */
+	ProjectionEngine(SequenceDatabase sequenceDatabase, int minsup){
+		this.minsup = minsup;
+		List<int[]> list = sequenceDatabase.getSequences();
+
+		//============== CALCULATE FREQUENCY OF SINGLE ITEMS =============
+		// First find the largest item and check if some itemsets contain multiple items
+		int maxItem = 0;
+		for(int[] sequence : list){
+			int itemCountInCurrentItemset = 0;
+			for(int token : sequence){
+				if(token > 0){
+					if(token > maxItem){
+						maxItem = token;
+					}
+					itemCountInCurrentItemset++;
+					if(itemCountInCurrentItemset > 1){
+						containsItemsetsWithMultipleItems = true;
+					}
+				}else if(token == -1){
+					itemCountInCurrentItemset = 0;
+				}
+			}
+		}
+
+		// Then count the number of sequences containing each item
+		int[] supports = new int[maxItem + 1];
+		int[] lastSequences = new int[maxItem + 1];
+		Arrays.fill(lastSequences, -1);
+		for(int i = 0; i < list.size(); i++){
+			for(int token : list.get(i)){
+				if(token > 0 && lastSequences[token] != i){
+					lastSequences[token] = i;
+					supports[token]++;
+				}
+			}
+		}
+
+		//============== RENAME THE FREQUENT ITEMS =============
+		// the new name of each item (0 if the item is infrequent)
+		int[] newNames = new int[maxItem + 1];
+		int frequentItemCount = 0;
+		for(int item = 1; item <= maxItem; item++){
+			if(supports[item] >= minsup){
+				newNames[item] = ++frequentItemCount;
+			}
+		}
+		originalItems = new int[frequentItemCount + 1];
+		for(int item = 1; item <= maxItem; item++){
+			if(newNames[item] != 0){
+				originalItems[newNames[item]] = item;
+			}
+		}
+
+		//=============== REMOVE INFREQUENT ITEMS ========================
+		// We scan the database to remove infrequent items and resize sequences after removal
+		sequences = new int[list.size()][];
+		for(int i = 0; i < list.size(); i++){
+			int[] sequence = list.get(i);
+
+			// we will copy the frequent items one by one but not those items that are infrequent
+			// The following variable will be used to remember the position were to copy (we start at 0).
+			int currentPosition = 0;
+			// variable to count the number of items in the current itemset (after removing infrequent items)
+			int currentItemsetItemCount = 0;
+
+			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
+			for(int j = 0; j < sequence.length; j++){
+				int token = sequence[j];
+
+				// if it is an item
+				if(token > 0){
+					// if the item is frequent, copy its new name to the current position
+					if(newNames[token] != 0){
+						sequence[currentPosition] = newNames[token];
+						currentPosition++;
+						currentItemsetItemCount++;
+					}
+				}else if(token == -1){
+					// if this itemset is not empty after having removed the infrequent items
+					// (itemset separators are not kept if itemsets contain a single item)
+					if(containsItemsetsWithMultipleItems && currentItemsetItemCount > 0){
+						sequence[currentPosition] = -1;
+						currentPosition++;
+						currentItemsetItemCount = 0;
+					}
+				}else if(token == -2){
+					// if the sequence is not empty after having removed the infrequent items
+					if(currentPosition > 0){
+						sequence[currentPosition] = -2;
+						// now replace the previous array with the new array
+						sequences[i] = Arrays.copyOf(sequence, currentPosition + 1);
+					}
+					// otherwise the sequence is deleted by replacing it with null
+					break;
+				}
+			}
+			list.set(i, sequences[i]);
+		}
+
+		counter = new ItemCounter(frequentItemCount);
+		counterPostfix = new ItemCounter(frequentItemCount);
+		cursors = new int[frequentItemCount + 1];
+		cursorsPostfix = new int[frequentItemCount + 1];
+
+		// The level 0 contains each sequence, starting from its first item
+		ProjectedDatabase root = getLevel(0);
+		root.reset(sequences.length, 0);
+		for(int i = 0; i < sequences.length; i++){
+			if(sequences[i] != null){
+				root.sequenceIDs[root.size] = i;
+				root.offsets[root.size] = 0;
+				root.size++;
+			}
+		}
+	}
+
+	/**
+	 * Check if the database contains itemsets with multiple items
+	 * @return true if it does
+	 */
+	boolean containsItemsetsWithMultipleItems(){
+		return containsItemsetsWithMultipleItems;
+	}
+
+	/**
+	 * Get the number of frequent items (the items are renamed as 1, 2 ... n)
+	 * @return the number of frequent items
+	 */
+	int getItemCount(){
+		return originalItems.length - 1;
+	}
+
+	/**
+	 * Get the name of an item in the original database
+	 * @param item an item, as renamed by this class
+	 * @return the original name of the item
+	 */
+	int getOriginalItem(int item){
+		return originalItems[item];
+	}
+
+	/**
+	 * Get the projected databases of a level of the search tree
+	 * @param depth the level (0 for the whole database)
+	 * @return the projected databases
+	 */
+	ProjectedDatabase getLevel(int depth){
+		if(depth >= levels.length){
+			levels = Arrays.copyOf(levels, Math.max(depth + 1, levels.length * 2));
+		}
+		if(levels[depth] == null){
+			levels[depth] = new ProjectedDatabase();
+		}
+		return levels[depth];
+	}
+
+	/**
+	 * Create the projected database of each frequent item that appears in a projected database,
+	 * considering that each itemset contains a single item (all items are s-extensions).
+	 * The projected database of an item contains, for each pseudo-sequence, the part after
+	 * the first occurrence of the item.
+	 * @param depth the level of the projected database
+	 * @param start the position of its first pseudo-sequence at that level
+	 * @param end the position after its last pseudo-sequence
+	 * @return the projected databases of the items, stored at the next level
+	 */
+	ProjectedDatabase projectSingleItems(int depth, int start, int end){
+		ProjectedDatabase database = levels[depth];
+		ProjectedDatabase result = getLevel(depth + 1);
+
+		// FIRST, count the number of pseudo-sequences containing each item
+		for(int p = start; p < end; p++){
+			int[] sequence = sequences[database.sequenceIDs[p]];
+			counter.nextSequence();
+			for(int i = database.offsets[p]; sequence[i] != -2; i++){
+				int token = sequence[i];
+				if(token > 0 && counter.isCountedInSequence(token) == false){
+					counter.increment(token);
+				}
+			}
+		}
+
+		// SECOND, keep the frequent items and reserve a part of the arrays for each of them
+		result.reset(getFrequentSupportSum(counter), counter.getCountedItemCount());
+		addFrequentItems(result, counter, cursors);
+
+		// THIRD, copy each pseudo-sequence in the projected database of each frequent item that it contains
+		if(result.size > 0){
+			for(int p = start; p < end; p++){
+				int sequenceID = database.sequenceIDs[p];
+				int[] sequence = sequences[sequenceID];
+				counter.nextSequence();
+				for(int i = database.offsets[p]; sequence[i] != -2; i++){
+					int token = sequence[i];
+					if(token > 0){
+						addOccurrence(result, counter, cursors, token, sequenceID, i + 1, true);
+					}
+				}
+			}
+		}
+		counter.clear();
+		return result;
+	}
+
+	/**
+	 * Create the projected database of each frequent item that can extend a pattern by i-extension
+	 * or by s-extension, for databases where itemsets may contain multiple items. The items that are i-extensions
+	 * are stored first in the result.
+	 * @param depth the level of the projected database of the pattern
+	 * @param start the position of its first pseudo-sequence at that level
+	 * @param end the position after its last pseudo-sequence
+	 * @param patternBuffer the buffer containing the pattern
+	 * @param lastBufferPosition the last position used in the buffer for storing the pattern
+	 * @return the projected databases of the items, stored at the next level
+	 */
+	ProjectedDatabase projectMultipleItems(int depth, int start, int end, int[] patternBuffer, int lastBufferPosition){
+		ProjectedDatabase result = getLevel(depth + 1);
+
+		// FIRST, count the number of pseudo-sequences containing each item
+		scanMultipleItems(levels[depth], start, end, patternBuffer, lastBufferPosition, result, false);
+
+		// SECOND, keep the frequent items and reserve a part of the arrays for each of them
+		result.reset(getFrequentSupportSum(counterPostfix) + getFrequentSupportSum(counter),
+				counterPostfix.getCountedItemCount() + counter.getCountedItemCount());
+		addFrequentItems(result, counterPostfix, cursorsPostfix);
+		result.iExtensionCount = result.itemCount;
+		addFrequentItems(result, counter, cursors);
+
+		// THIRD, copy each pseudo-sequence in the projected database of each frequent item that it contains
+		if(result.size > 0){
+			scanMultipleItems(levels[depth], start, end, patternBuffer, lastBufferPosition, result, true);
+		}
+		counterPostfix.clear();
+		counter.clear();
+		return result;
+	}
+
+	/**
+	 * Read a projected database to count the support of each item as an i-extension or s-extension
+	 * of the pattern, or to copy the pseudo-sequences in the projected database of each item
+	 * @param database the projected databases of the current level
+	 * @param start the position of the first pseudo-sequence to be read
+	 * @param end the position after the last pseudo-sequence to be read
+	 * @param patternBuffer the buffer containing the pattern
+	 * @param lastBufferPosition the last position used in the buffer for storing the pattern
+	 * @param result the projected databases of the next level
+	 * @param copy false for counting the support of items, true for copying the pseudo-sequences
+	 */
+	private void scanMultipleItems(ProjectedDatabase database, int start, int end, int[] patternBuffer,
+			int lastBufferPosition, ProjectedDatabase result, boolean copy){
+		// find the position of the first item of the last itemset of the current sequential pattern that is grown
+		int firstPositionOfLastItemsetInBuffer = lastBufferPosition;
+		while(lastBufferPosition >0){
+			firstPositionOfLastItemsetInBuffer--;
+			if(firstPositionOfLastItemsetInBuffer < 0 || patternBuffer[firstPositionOfLastItemsetInBuffer] == -1){
+				firstPositionOfLastItemsetInBuffer++;
+				break;
+			}
+		};
+
+		// use a variable to try to match the last itemset of the pattern in the buffer
+		int positionToBeMatched = firstPositionOfLastItemsetInBuffer;
+
+		// for each sequence
+		for(int p = start; p < end; p++){
+			int sequenceID = database.sequenceIDs[p];
+			int[] sequence = sequences[sequenceID];
+			int indexFirstItem = database.offsets[p];
+			counter.nextSequence();
+			counterPostfix.nextSequence();
+
+			// check if the first itemset of that sequence is a postfix
+			// It is a postfix (the itemset is cut) if the previous item is a -1 indicating
+			// the end of an itemset
+			boolean currentItemsetIsPostfix = indexFirstItem > 0 && sequence[indexFirstItem - 1] != -1;
+			boolean isFirstItemset = true;
+
+			// for each token in this sequence (item, separator between itemsets (-1) or end of sequence (-2)
+			for(int i = indexFirstItem; sequence[i] != -2; i++){
+				int token = sequence[i];
+
+				// if it is an item
+				if(token > 0){
+					if(currentItemsetIsPostfix){
+						addOccurrence(result, counterPostfix, cursorsPostfix, token, sequenceID, i + 1, copy);
+						// if the current itemset is a postfix and it is not the first itemset
+						// we must also consider that it may not be a postfix for extending the current prefix
+						if(isFirstItemset == false){
+							addOccurrence(result, counter, cursors, token, sequenceID, i + 1, copy);
+						}
+					}else{
+						addOccurrence(result, counter, cursors, token, sequenceID, i + 1, copy);
+					}
+
+					//  try to match this item with the last itemset in the prefix
+					if(currentItemsetIsPostfix == false && patternBuffer[positionToBeMatched] == token){
+						positionToBeMatched++;
+						if(positionToBeMatched > lastBufferPosition){
+							currentItemsetIsPostfix = true;
+						}
+					}
+				}else if(token == -1){
+					isFirstItemset = false;
+					currentItemsetIsPostfix = false;
+					positionToBeMatched = firstPositionOfLastItemsetInBuffer;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Process the first occurrence of an item in a pseudo-sequence: either increase the support of the item
+	 * or copy the pseudo-sequence starting after this occurrence in the projected database of the item.
+	 * Other occurrences of the item in the same pseudo-sequence are ignored.
+	 * @param result the projected databases of the next level
+	 * @param counter the counter of the type of extension (i-extension or s-extension)
+	 * @param cursors the positions where to copy the pseudo-sequences of this type of extension
+	 * @param item the item
+	 * @param sequenceID the original sequence
+	 * @param offset the position after the occurrence of the item
+	 * @param copy false for counting the support of the item, true for copying the pseudo-sequence
+	 */
+	private static void addOccurrence(ProjectedDatabase result, ItemCounter counter, int[] cursors,
+			int item, int sequenceID, int offset, boolean copy){
+		if(counter.isCountedInSequence(item)){
+			return;
+		}
+		if(copy == false){
+			counter.increment(item);
+			return;
+		}
+		counter.setCountedInSequence(item);
+		int position = cursors[item];
+		// if the item is frequent
+		if(position >= 0){
+			result.sequenceIDs[position] = sequenceID;
+			result.offsets[position] = offset;
+			cursors[item] = position + 1;
+		}
+	}
+
+	/**
+	 * Calculate the sum of the support of the frequent items of a counter
+	 * @param counter the counter
+	 * @return the sum
+	 */
+	private int getFrequentSupportSum(ItemCounter counter){
+		int sum = 0;
+		for(int i = 0; i < counter.getCountedItemCount(); i++){
+			int support = counter.getSupport(counter.getCountedItem(i));
+			if(support >= minsup){
+				sum += support;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Add the frequent items of a counter to the projected databases of the next level, by ascending order,
+	 * and reserve a part of the arrays for the pseudo-sequences of each item
+	 * @param result the projected databases of the next level
+	 * @param counter the counter
+	 * @param cursors the array where the first position of the pseudo-sequences of each item will be stored
+	 */
+	private void addFrequentItems(ProjectedDatabase result, ItemCounter counter, int[] cursors){
+		int firstItem = result.itemCount;
+		for(int i = 0; i < counter.getCountedItemCount(); i++){
+			int item = counter.getCountedItem(i);
+			if(counter.getSupport(item) >= minsup){
+				result.items[result.itemCount++] = item;
+			}else{
+				cursors[item] = -1;
+			}
+		}
+		Arrays.sort(result.items, firstItem, result.itemCount);
+
+		for(int i = firstItem; i < result.itemCount; i++){
+			int item = result.items[i];
+			result.starts[i] = result.size;
+			cursors[item] = result.size;
+			result.size += counter.getSupport(item);
+		}
+		result.starts[result.itemCount] = result.size;
+	}
+}
@@ -16,14 +16,12 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 
+import ca.pfv.spmf.input.SPMFFileTokenizer;
+
 
 
 /**
@@ -53,38 +51,22 @@ public class SequenceDatabase {
 		// initalize the list of arrays for storing sequences
 		sequences = new ArrayList<int[]>();
 		
-		String thisLine; // variable to read each line.
-		BufferedReader myInput = null;
+		SPMFFileTokenizer tokenizer = null;
 		try {
-			FileInputStream fin = new FileInputStream(new File(path));
-			myInput = new BufferedReader(new InputStreamReader(fin));
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is not a comment, is not empty or is not other
-				// kind of metadata
-				if (thisLine.isEmpty() == false &&
-						thisLine.charAt(0) != '#' && thisLine.charAt(0) != '%'
-						&& thisLine.charAt(0) != '@') {
-					
-					// split this line according to spaces and process the line
-					String[] tokens = thisLine.split(" ");
-					
-					// we will store the sequence as a list of integers in memory
-					int[] sequence = new int[tokens.length];
-					// we convert each token from the line to an integer and add it
-					// to the array representing the current sequence.
-					for(int j=0; j < tokens.length; j++){
-						sequence[j] = Integer.parseInt(tokens[j]);
-					}
-					
-					// add the sequence to the list of sequences
-					sequences.add(sequence);
-				}
+			tokenizer = new SPMFFileTokenizer(path);
+			// for each line that is not a comment, is not empty or is not other
+			// kind of metadata
+			while (tokenizer.nextTransaction()) {
+				// we store the sequence as an array of integers in memory
+				// (the tokens of the line are converted to integers by the tokenizer)
+				// and add it to the list of sequences
+				sequences.add(tokenizer.copyItems());
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
-			if (myInput != null) {
-				myInput.close();
+			if (tokenizer != null) {
+				tokenizer.close();
 			}
 		}
 	}
@@ -25,6 +25,8 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoFile;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.SaverIntoMemory;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningCancelledException;
+import ca.pfv.spmf.tools.MiningContext;
 
 /**
  * This is an implementation of the CM-SPADE algorithm. SPADE was proposed by
@@ -92,6 +94,16 @@ public class AlgoCMSPADE {
      * Number of frequent patterns found by the algorithm
      */
     private int numberOfFrequentPatterns;
+    /**
+     * The mining context set by the user (if null, the context of the current
+     * thread is used)
+     */
+    private MiningContext miningContext = null;
+    /**
+     * The mining context of the current execution, which is polled to stop the
+     * algorithm and updated with its progress
+     */
+    private MiningContext context = null;
 
     
     /**
@@ -147,9 +159,16 @@ public class AlgoCMSPADE {
         MemoryLogger.getInstance().reset();
         //keeping the starting time
         start = System.currentTimeMillis();
+        //We get the context that is polled to stop the algorithm
+        context = MiningContext.resolve(miningContext);
         //We run SPADE algorithm
-
-        runSPADE(database, candidateGenerator, (long) minSupAbsolute, dfs, keepPatterns, verbose);
+        try {
+            runSPADE(database, candidateGenerator, (long) minSupAbsolute, dfs, keepPatterns, verbose);
+        } catch (MiningCancelledException e) {
+            //If the algorithm is stopped, the patterns found until now are kept
+            saver.finish();
+            throw e;
+        }
 
         //keeping the ending time
         end = System.currentTimeMillis();
@@ -195,9 +214,17 @@ public class AlgoCMSPADE {
 
         System.out.println("=====" + minSupAbsolute);
         start = System.currentTimeMillis();
+        //We get the context that is polled to stop the algorithm
+        context = MiningContext.resolve(miningContext);
 
         //We run SPADE algorithm
-        runSPADEFromSize2PatternsParallelized2(database, candidateGenerator, (long) minSupAbsolute, dfs, keepPatterns, verbose);
+        try {
+            runSPADEFromSize2PatternsParallelized2(database, candidateGenerator, (long) minSupAbsolute, dfs, keepPatterns, verbose);
+        } catch (MiningCancelledException e) {
+            //If the algorithm is stopped, the patterns found until now are kept
+            saver.finish();
+            throw e;
+        }
 
         //keeping the ending time
         end = System.currentTimeMillis();
@@ -224,6 +251,7 @@ public class AlgoCMSPADE {
         frequentItems = database.frequentItems();
         //We extract their patterns
         Collection<Pattern> size1sequences = getPatterns(frequentItems);
+        context.patternsFound(size1sequences.size());
         //If we want to keep the output
         if (keepPatterns) {
             for (Pattern atom : size1sequences) {
@@ -330,6 +358,7 @@ public class AlgoCMSPADE {
 
         //Inizialitation of the class that is in charge of find the frequent patterns
         FrequentPatternEnumeration frequentPatternEnumeration = new FrequentPatternEnumeration(candidateGenerator, minSupAbsolute, saver);
+        frequentPatternEnumeration.setMiningContext(context);
         //We set the number of frequent items to the number of frequent items
         frequentPatternEnumeration.setFrequentPatterns(frequentItems.size());
 
@@ -409,6 +438,17 @@ public class AlgoCMSPADE {
         return minSupAbsolute;
     }
 
+    /**
+     * Set the mining context that is used to stop the algorithm while it is
+     * running and to follow its progress.
+     *
+     * @param miningContext the context, or null to use the context of the
+     * current thread if any (default)
+     */
+    public void setMiningContext(MiningContext miningContext) {
+        this.miningContext = miningContext;
+    }
+
     /**
      * It clears all the attributes of AlgoPrefixSpan class
      */
@@ -450,7 +490,9 @@ public class AlgoCMSPADE {
         size2EquivalenceClass = null;
         database = null;
 
+        context.patternsFound(size1Patterns.size() + size2Sequences.size());
         FrequentPatternEnumeration frequentPatternEnumeration = new FrequentPatternEnumeration(candidateGenerator, minSupAbsolute, saver);
+        frequentPatternEnumeration.setMiningContext(context);
         frequentPatternEnumeration.setFrequentPatterns(size1Patterns.size() + size2Sequences.size());
 
         size1Patterns = null;
@@ -499,6 +541,8 @@ public class AlgoCMSPADE {
             System.err.println("Problems with the concurrency!!");
             e.printStackTrace();
         }
+        //The tasks end without error if the algorithm is stopped, so we check it here
+        context.checkCancelled();
     }
 
     /**
@@ -527,6 +571,7 @@ public class AlgoCMSPADE {
         saver.savePatterns(size2Sequences);
 
         numberOfFrequentPatterns = size1Sequences.size() + size2Sequences.size();
+        context.patternsFound(numberOfFrequentPatterns);
         size2EquivalenceClasses = null;
         database = null;
 
@@ -543,6 +588,7 @@ public class AlgoCMSPADE {
                 System.out.println("Exploring " + frequentAtom);
             }
             FrequentPatternEnumeration frequentPatternEnumeration = new FrequentPatternEnumeration(candidateGenerator, minSupAbsolute, saver);
+            frequentPatternEnumeration.setMiningContext(context);
 
             enumerates.add(frequentPatternEnumeration);
 
@@ -561,6 +607,8 @@ public class AlgoCMSPADE {
         } catch (Exception e) {
             System.err.println("Problems with the concurrency!!");
         }
+        //The tasks end without error if the algorithm is stopped, so we check it here
+        context.checkCancelled();
         FrequentPatternEnumeration fpe = new FrequentPatternEnumeration(candidateGenerator, minSupAbsolute, saver);
         numberOfFrequentPatterns += fpe.getFrequentPatterns();
 
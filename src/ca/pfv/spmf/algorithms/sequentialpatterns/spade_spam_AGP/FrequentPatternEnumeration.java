@@ -7,6 +7,7 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.candidatePattern
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.dataStructures.patterns.Pattern;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.idLists.IDList;
 import ca.pfv.spmf.algorithms.sequentialpatterns.spade_spam_AGP.savers.Saver;
+import ca.pfv.spmf.tools.MiningContext;
 
 /**
  * This is an implementation of the main methods of SPADE algorithm. We keep
@@ -60,6 +61,11 @@ public class FrequentPatternEnumeration {
      * the case
      */
     private Saver saver = null;
+    /**
+     * The mining context that is polled to stop the search and updated with
+     * its progress. By default, the search is never stopped.
+     */
+    private MiningContext context = new MiningContext();
 
     /**
      * Standard constructor of the class.
@@ -96,6 +102,13 @@ public class FrequentPatternEnumeration {
         //flag indicating if a new pattern has been created
         boolean anyPatternCreated = false;
         List<EquivalenceClass> eqMembers = eq.getClassMembers();
+        /* If eq is the root class, the progress is measured by the number of
+         * its members that are explored
+         */
+        boolean rootClass = eq.getClassIdentifier() == null;
+        if (rootClass) {
+            context.setTotalWork(eqMembers.size());
+        }
 
         //For all the members of the equivalence class
         for (int i = eqMembers.size() - 1; i >= 0; i--) {
@@ -153,6 +166,8 @@ public class FrequentPatternEnumeration {
                 List<Pattern> extensions = candidateGenerator.generateCandidates(child_X.getClassIdentifier(), child_Y.getClassIdentifier(), (int) minSupportAbsolute, doNotExploreXY, doNotExploreYX, doNotExploreX_Y, doNotExploreY_X);
                 //For each candidate generated
                 for (Pattern extension : extensions) {
+                    //we stop if the algorithm was asked to stop
+                    context.nodeExplored();
                     IDList newIdList = candidateGenerator.join(extension, child_X, child_Y, (int) minSupportAbsolute);
                     INTERSECTION_COUNTER++;
                     //If the the pattern is frequent
@@ -177,6 +192,7 @@ public class FrequentPatternEnumeration {
 
                         //We increment the number of frequent patterns
                         increaseFrequentPatterns();
+                        context.patternFound();
 
                         /*Finally, we keep the new class as a member of the 
                          * parent class that is its prefix
@@ -199,6 +215,9 @@ public class FrequentPatternEnumeration {
                 if (anyPatternCreated) {
                     execute(child_X, dfs, keepPatterns, verbose, coocMapAfter, coocMapEquals);
                 }
+                if (rootClass) {
+                    context.workDone();
+                }
             }
         }
         //If dfs is not activated, therefore we are interested in a breadth-first search
@@ -211,6 +230,9 @@ public class FrequentPatternEnumeration {
                     /* Once we finished of exploring, we remove from the members
                      * the member indicated by i index */
                     eqMembers.remove(i);
+                    if (rootClass) {
+                        context.workDone();
+                    }
                 }
             }
             eqMembers = null;
@@ -250,6 +272,16 @@ public class FrequentPatternEnumeration {
         FrequentPatternEnumeration.frequentPatterns = patronesFrecuentes;
     }
 
+    /**
+     * Set the mining context that is polled to stop the search and updated
+     * with its progress.
+     *
+     * @param context the context
+     */
+    public void setMiningContext(MiningContext context) {
+        this.context = context;
+    }
+
     /**
      * Increase the number of frequent patterns
      */
@@ -77,6 +77,9 @@ public class AlgoCMSPAM {
     /** the last bit position that is used in bitmaps */
     int lastBitIndex = 0;  
     
+    /** the position of the sequences in the bitmaps */
+    BitmapLayout layout = null;
+    
 	/** maximum pattern length in terms of item count */
 	private int minimumPatternLength = 0;
     /** maximum pattern length in terms of item count */
@@ -212,6 +215,8 @@ public class AlgoCMSPAM {
         } catch (Exception e) {
             e.printStackTrace();
         }
+        // create the layout of the sequences, which is shared by all the bitmaps
+        layout = new BitmapLayout(sequencesSize, lastBitIndex);
         // Calculate the absolute minimum support 
         // by multipling the percentage with the number of
         // sequences in this database
@@ -251,11 +256,11 @@ public class AlgoCMSPAM {
                         Integer item = Integer.parseInt(token);
                         Bitmap bitmapItem = verticalDB.get(item);
                         if (bitmapItem == null) {
-                            bitmapItem = new Bitmap(lastBitIndex);
+                            bitmapItem = new Bitmap(layout);
                             verticalDB.put(item, bitmapItem);
                         }
                         // Register the bit in the bitmap for this item
-                        bitmapItem.registerBit(sid, tid, sequencesSize);
+                        bitmapItem.registerBit(sid, tid);
                     }
                 }
             }
@@ -460,7 +465,7 @@ public class AlgoCMSPAM {
 //            }
             
             
-            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize, lastBitIndex, maxGap);
+            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), maxGap);
             // if the support is higher than minsup
             if (newBitmap.getSupportWithoutGapTotal() >= minsup) {
                 // record that item and pattern in temporary variables
@@ -523,7 +528,7 @@ public class AlgoCMSPAM {
                 // Perform an i-step with this item and the current prefix.
                 // This creates a new bitmap
                 Bitmap.INTERSECTION_COUNT++;
-                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize, lastBitIndex);
+                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i));
                 // If the support is no less than minsup
                 if (newBitmap.getSupport() >= minsup) {
                     // record that item and pattern in temporary variables
@@ -585,7 +590,7 @@ public class AlgoCMSPAM {
         // if the user wants the sequence IDs, we will show them
         if(outputSequenceIdentifiers) {
         	r.append(" #SID: ");
-        	r.append(bitmap.getSIDs(sequencesSize));
+        	r.append(bitmap.getSIDs());
         }
         writer.write(r.toString());
         writer.newLine();
@@ -640,7 +645,7 @@ loop:		for(Itemset itemset : prefix.getItemsets()){
         // if the user wants the sequence IDs, we will show them
         if(outputSequenceIdentifiers) {
         	r.append(" #SID: ");
-        	r.append(bitmap.getSIDs(sequencesSize));
+        	r.append(bitmap.getSIDs());
         }
         writer.write(r.toString());
 //		System.out.println(r.toString());
@@ -32,6 +32,8 @@ import java.util.Map.Entry;
 
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningCancelledException;
+import ca.pfv.spmf.tools.MiningContext;
 
 /*** 
  * This is an implementation of the SPAM algorithm. 
@@ -79,6 +81,9 @@ public class AlgoSPAM{
     /** the last bit position that is used in bitmaps */
     int lastBitIndex = 0;  
     
+    /** the position of the sequences in the bitmaps */
+    BitmapLayout layout = null;
+    
 	/** maximum pattern length in terms of item count */
 	private int minimumPatternLength = 0;
     /** maximum pattern length in terms of item count */
@@ -89,6 +94,13 @@ public class AlgoSPAM{
 	
 	/** Optional parameter to decide whether sequence identifiers should be shown in the output for each pattern found */
 	private boolean outputSequenceIdentifiers; 
+	
+	/** the mining context set by the user (if null, the context of the current thread is used) */
+	private MiningContext miningContext = null;
+	
+	/** the mining context of the current execution, which is polled to stop the algorithm
+	 * and updated with its progress */
+	private MiningContext context = null;
 		
 	/**
 	 * Default constructor
@@ -111,10 +123,19 @@ public class AlgoSPAM{
 		// to log the memory used
 		MemoryLogger.getInstance().reset(); 
 		
+		// get the context that is polled to stop the algorithm
+		context = MiningContext.resolve(miningContext);
+		
 		// record start time
 		startTime = System.currentTimeMillis(); 
 		// RUN THE ALGORITHM
-		spam(input, minsupRel); 
+		try{
+			spam(input, minsupRel); 
+		}catch(MiningCancelledException e){
+			// if the algorithm is stopped, close the file, which contains the patterns found until now
+			writer.close();
+			throw e;
+		}
 		// record end time
 		endTime = System.currentTimeMillis(); 
 		// close the file
@@ -169,6 +190,8 @@ public class AlgoSPAM{
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
+		// create the layout of the sequences, which is shared by all the bitmaps
+		layout = new BitmapLayout(sequencesSize, lastBitIndex);
 		
 		// Calculate the absolute minimum support 
 		// by multipling the percentage with the number of
@@ -209,11 +232,11 @@ public class AlgoSPAM{
 						Integer item = Integer.parseInt(token);
 						Bitmap bitmapItem = verticalDB.get(item);
 						if(bitmapItem == null){
-							bitmapItem = new Bitmap(lastBitIndex);
+							bitmapItem = new Bitmap(layout);
 							verticalDB.put(item, bitmapItem);
 						}
 						// Register the bit in the bitmap for this item
-						bitmapItem.registerBit(sid, tid, sequencesSize);
+						bitmapItem.registerBit(sid, tid);
 					}
 				}
 			}
@@ -251,6 +274,8 @@ public class AlgoSPAM{
 		if(maximumPatternLength == 1){
 			return;
 		}
+		// (the progress is measured by the number of frequent items that are explored)
+		context.setTotalWork(verticalDB.size());
 		// for each frequent item
 		for(Entry<Integer, Bitmap> entry: verticalDB.entrySet()){
 			// We create a prefix with that item
@@ -261,6 +286,7 @@ public class AlgoSPAM{
 			// larger sequential patterns by appending some of these
 			// items.
 			dfsPruning(prefix, entry.getValue(), frequentItems, frequentItems, entry.getKey(), 2);
+			context.workDone();
 		}
 	}
 	
@@ -276,6 +302,8 @@ public class AlgoSPAM{
 	 */
 	private void dfsPruning(Prefix prefix, Bitmap prefixBitmap, List<Integer> sn, List<Integer> in, int hasToBeGreaterThanForIStep, int m) throws IOException {
 //		System.out.println(prefix.toString());
+		// stop if the algorithm was asked to stop
+		context.nodeExplored();
 		
 		//  ======  S-STEPS ======
 		// Temporary variables (as described in the paper)
@@ -285,7 +313,7 @@ public class AlgoSPAM{
 		// for each item in sn
 		for(Integer i : sn){
 			// perform the S-STEP with that item to get a new bitmap
-			Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize,  lastBitIndex, maxGap);
+			Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), maxGap);
 			// if the support is higher than minsup
 			if(newBitmap.getSupportWithoutGapTotal() >= minsup){
 				// record that item and pattern in temporary variables
@@ -328,7 +356,7 @@ public class AlgoSPAM{
 				
 				// Perform an i-step with this item and the current prefix.
 				// This creates a new bitmap
-				Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize,  lastBitIndex);
+				Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i));
 				// If the support is no less than minsup
 				if(newBitmap.getSupport() >= minsup){
 					// record that item and pattern in temporary variables
@@ -367,6 +395,7 @@ public class AlgoSPAM{
 	 */
 	private void savePattern(Integer item, Bitmap bitmap) throws IOException {
 		patternCount++; // increase the pattern count
+		context.patternFound();
 		StringBuilder r = new StringBuilder("");
 		r.append(item);
 		r.append(" -1 ");
@@ -375,7 +404,7 @@ public class AlgoSPAM{
         // if the user wants the sequence IDs, we will show them
         if(outputSequenceIdentifiers) {
         	r.append(" #SID: ");
-        	r.append(bitmap.getSIDs(sequencesSize));
+        	r.append(bitmap.getSIDs());
         }
 		writer.write(r.toString());
 		writer.newLine();
@@ -389,6 +418,7 @@ public class AlgoSPAM{
 	 */
 	private void savePattern(Prefix prefix, Bitmap bitmap) throws IOException {
 		patternCount++;
+		context.patternFound();
 		
 		StringBuilder r = new StringBuilder("");
 		for(Itemset itemset : prefix.getItemsets()){
@@ -406,7 +436,7 @@ public class AlgoSPAM{
         // if the user wants the sequence IDs, we will show them
         if(outputSequenceIdentifiers) {
         	r.append(" #SID: ");
-        	r.append(bitmap.getSIDs(sequencesSize));
+        	r.append(bitmap.getSIDs());
         }
 		
 		writer.write(r.toString());
@@ -476,4 +506,13 @@ public class AlgoSPAM{
 	public void showSequenceIdentifiersInOutput(boolean showSequenceIdentifiers) {
 		this.outputSequenceIdentifiers = showSequenceIdentifiers;
 	}
+
+	/**
+	 * Set the mining context that is used to stop the algorithm while it is running
+	 * and to follow its progress.
+	 * @param miningContext the context, or null to use the context of the current thread if any (default)
+	 */
+	public void setMiningContext(MiningContext miningContext) {
+		this.miningContext = miningContext;
+	}
 }
@@ -85,6 +85,9 @@ public class AlgoTKS{
 	/**  the last bit position that is used in bitmaps */
 	int lastBitIndex = 0;  
 	
+	/** the position of the sequences in the bitmaps */
+	BitmapLayout layout = null;
+	
 	/**  the top k patterns found until now  */
 	PriorityQueue<PatternTKS> kPatterns;  
 	
@@ -251,6 +254,8 @@ public class AlgoTKS{
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
+		// create the layout of the sequences, which is shared by all the bitmaps
+		layout = new BitmapLayout(sequencesSize, lastBitIndex);
 
 		// record start time
 		startTime = System.currentTimeMillis();   // FOR COMPARISON WITH PPWSR WE HAVE TO PUT HERE
@@ -273,11 +278,11 @@ public class AlgoTKS{
 					// Get the bitmap for this item. If none, create a new one.
 					Bitmap bitmapItem = verticalDB.get(item);
 					if(bitmapItem == null){
-						bitmapItem = new Bitmap(lastBitIndex);
+						bitmapItem = new Bitmap(layout);
 						verticalDB.put(item, bitmapItem);
 					}
 					// Register the bit in the bitmap for this item
-					bitmapItem.registerBit(sid, tid, sequencesSize);
+					bitmapItem.registerBit(sid, tid);
 				}
 			}
 		}
@@ -609,7 +614,7 @@ loopi:	for(Integer i : sn){
 			}
 			
 			// perform the S-STEP with that item to get a new bitmap
-			Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize,  lastBitIndex, maxGap);
+			Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), maxGap);
 			// if the support is higher than minsup
 			if(newBitmap.getSupportWithoutGapTotal() >= minsup){
 				// record that item and pattern in temporary variables
@@ -690,7 +695,7 @@ loop2:	for(Integer i : in){
 			
 			// Perform an i-step with this item and the current prefix.
 			// This creates a new bitmap
-			Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize,  lastBitIndex);
+			Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i));
 			// If the support is no less than minsup
 			if(newBitmap.getSupport() >= minsup){
 				// record that item and pattern in temporary variables
@@ -771,7 +776,7 @@ loop2:	for(Integer i : in){
 	        // if the user wants the sequence IDs, we will show them
 	        if(outputSequenceIdentifiers) {
 	        	buffer.append(" #SID: ");
-	        	buffer.append(pattern.bitmap.getSIDs(sequencesSize));
+	        	buffer.append(pattern.bitmap.getSIDs());
 	        }
 			writer.write(buffer.toString());
 			writer.newLine();
@@ -8,7 +8,6 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -75,6 +74,9 @@ public class AlgoVGEN {
     /** the last bit position that is used in bitmaps */
     int lastBitIndex = 0;  
     
+    /** the position of the sequences in the bitmaps */
+    BitmapLayout layout = null;
+    
     /** maximum pattern length in terms of item count */
     private int maximumPatternLength = 1000;
     
@@ -260,6 +262,8 @@ public class AlgoVGEN {
         } catch (Exception e) {
             e.printStackTrace();
         }
+        // create the layout of the sequences, which is shared by all the bitmaps
+        layout = new BitmapLayout(sequencesSize, lastBitIndex);
         // Calculate the absolute minimum support 
         // by multipling the percentage with the number of
         // sequences in this database
@@ -302,11 +306,11 @@ public class AlgoVGEN {
                         Integer item = Integer.parseInt(token);
                         Bitmap bitmapItem = verticalDB.get(item);
                         if (bitmapItem == null) {
-                            bitmapItem = new Bitmap(lastBitIndex);
+                            bitmapItem = new Bitmap(layout);
                             verticalDB.put(item, bitmapItem);
                         }
                         // Register the bit in the bitmap for this item
-                        bitmapItem.registerBit(sid, tid, sequencesSize);
+                        bitmapItem.registerBit(sid, tid);
                     }
                 }
                 transactionCount++;
@@ -482,7 +486,7 @@ public class AlgoVGEN {
          }
         
         // THE EMPTY SET IS ALWAYS GENERATOR, SO ADD IT TO THE RESULT SET
-    	Bitmap bitmap = new Bitmap(0);
+    	Bitmap bitmap = new Bitmap(layout);
     	bitmap.setSupport(transactionCount);
     	PatternVGEN pat = new PatternVGEN(new PrefixVGEN(), bitmap);
     	List<PatternVGEN> listLevel0 = new ArrayList<PatternVGEN>();
@@ -542,7 +546,7 @@ public class AlgoVGEN {
 
             // perform the S-STEP with that item to get a new bitmap
             Bitmap.INTERSECTION_COUNT++;
-            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize, lastBitIndex, maxGap);
+            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), maxGap);
             // if the support is higher than minsup
             if (newBitmap.getSupportWithoutGapTotal() >= minsup) {
                 // record that item and pattern in temporary variables
@@ -623,7 +627,7 @@ public class AlgoVGEN {
                 // Perform an i-step with this item and the current prefix.
                 // This creates a new bitmap
                 Bitmap.INTERSECTION_COUNT++;
-                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize, lastBitIndex);
+                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i));
                 // If the support is no less than minsup
                 if (newBitmap.getSupport() >= minsup) {
                     // record that item and pattern in temporary variables
@@ -780,19 +784,16 @@ public class AlgoVGEN {
 //    	System.out.println("is there backward?");
 //    	System.out.println(bitmap1.bitmap.toString());
 //    	System.out.println(bitmap2.bitmap.toString());
-    	BitSet bitset1 = bitmap1.bitmap;
-    	BitSet bitset2 = bitmap2.bitmap;
-    	
-    	int currentBit1 = bitset1.nextSetBit(0);
-    	int currentBit2 = bitset2.nextSetBit(0);
+    	int currentBit1 = bitmap1.nextSetBit(0);
+    	int currentBit2 = bitmap2.nextSetBit(0);
     	
     	do {
     		if(currentBit1 > currentBit2) {
     			return false;
     		}
     		
-    		currentBit1 = bitset1.nextSetBit(currentBit1+1);
-        	currentBit2 = bitset2.nextSetBit(currentBit2+1);
+    		currentBit1 = bitmap1.nextSetBit(currentBit1+1);
+        	currentBit2 = bitmap2.nextSetBit(currentBit2+1);
     	}while(currentBit1 >0);
     	
     	return true;
@@ -917,7 +918,7 @@ public class AlgoVGEN {
 					r.append(pattern.getAbsoluteSupport());
 			        if(outputSequenceIdentifiers) {
 			        	r.append(" #SID: ");
-			        	r.append(pattern.bitmap.getSIDs(sequencesSize));
+			        	r.append(pattern.bitmap.getSIDs());
 			        }
 					
 					writer.write(r.toString());
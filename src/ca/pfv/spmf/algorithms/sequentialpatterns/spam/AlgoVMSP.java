@@ -76,6 +76,9 @@ public class AlgoVMSP {
     /** the last bit position that is used in bitmaps */
     int lastBitIndex = 0;  
     
+    /** the position of the sequences in the bitmaps */
+    BitmapLayout layout = null;
+    
     /** maximum pattern length in terms of item count */
     private int maximumPatternLength = 1000;
     
@@ -227,6 +230,8 @@ public class AlgoVMSP {
         } catch (Exception e) {
             e.printStackTrace();
         }
+        // create the layout of the sequences, which is shared by all the bitmaps
+        layout = new BitmapLayout(sequencesSize, lastBitIndex);
         // Calculate the absolute minimum support 
         // by multipling the percentage with the number of
         // sequences in this database
@@ -267,11 +272,11 @@ public class AlgoVMSP {
                         Integer item = Integer.parseInt(token);
                         Bitmap bitmapItem = verticalDB.get(item);
                         if (bitmapItem == null) {
-                            bitmapItem = new Bitmap(lastBitIndex);
+                            bitmapItem = new Bitmap(layout);
                             verticalDB.put(item, bitmapItem);
                         }
                         // Register the bit in the bitmap for this item
-                        bitmapItem.registerBit(sid, tid, sequencesSize);
+                        bitmapItem.registerBit(sid, tid);
                     }
                 }
             }
@@ -305,7 +310,7 @@ public class AlgoVMSP {
         	System.out.println(" == VERTICAL DATABASE ==");
         	for(Entry<Integer, Bitmap> itemBitmap : verticalDB.entrySet()){
         		System.out.print(" item " + itemBitmap.getKey());
-        		System.out.println(" bitmap " + itemBitmap.getValue().bitmap);
+        		System.out.println(" bitmap " + itemBitmap.getValue());
         	}
         	System.out.println(" =======================");
         }
@@ -511,7 +516,7 @@ public class AlgoVMSP {
 
             // perform the S-STEP with that item to get a new bitmap
             Bitmap.INTERSECTION_COUNT++;
-            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), sequencesSize, lastBitIndex, maxGap);
+            Bitmap newBitmap = prefixBitmap.createNewBitmapSStep(verticalDB.get(i), maxGap);
             // if the support is higher than minsup
             if (newBitmap.getSupportWithoutGapTotal() >= minsup) {
                 // record that item and pattern in temporary variables
@@ -590,7 +595,7 @@ public class AlgoVMSP {
                 // Perform an i-step with this item and the current prefix.
                 // This creates a new bitmap
                 Bitmap.INTERSECTION_COUNT++;
-                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i), sequencesSize, lastBitIndex);
+                Bitmap newBitmap = prefixBitmap.createNewBitmapIStep(verticalDB.get(i));
                 // If the support is no less than minsup
                 if (newBitmap.getSupport() >= minsup) {
                     // record that item and pattern in temporary variables
@@ -985,7 +990,7 @@ public class AlgoVMSP {
 		        // if the user wants the sequence IDs, we will show them
 		        if(outputSequenceIdentifiers) {
 		        	r.append(" #SID: ");
-		        	r.append(pattern.bitmap.getSIDs(sequencesSize));
+		        	r.append(pattern.bitmap.getSIDs());
 		        }
 				
 				writer.write(r.toString());
@@ -1,12 +1,13 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
 
-import java.util.BitSet;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * Implementation of a bitmap for SPAM.
  * <br/><br/>
+ *
+ * The bits are stored in an array of 64-bit words. The bits of each sequence are located
+ * using a {@link BitmapLayout} that is shared by all the bitmaps of a database, so that
+ * the S-step and the I-step are done one word at a time rather than one bit at a time.
+ * <br/><br/>
  * 
  * Copyright (c) 2008-2012 Philippe Fournier-Viger
  *  <br/><br/>
@@ -34,14 +35,28 @@ import java.util.List;
  * @see AlgoSPAM
  * @see AlgoTKS
  * @see AlgoVMSP
+ * @see AlgoVGEN
+ * @see BitmapLayout
  */
 public class Bitmap {
 
 
 	public static long INTERSECTION_COUNT = 0;
 	
-	// A bitmap is implemented using the BitSet class of Java.
-	BitSet bitmap = new BitSet();  
+	// For each position i in a word, a mask of the bits before or at position i
+	private static final long[] BITS_UP_TO = new long[64];
+	
+	static {
+		for(int i = 0; i < 64; i++) {
+			BITS_UP_TO[i] = -1L >>> (63 - i);
+		}
+	}
+	
+	// A bitmap is implemented using an array of 64-bit words.
+	long[] words;
+	
+	// The position of the sequences in the bitmaps (shared by all bitmaps)
+	private final BitmapLayout layout;
 	
 	// For calculating the support more efficiently
 	// we keep some information:
@@ -57,31 +72,23 @@ public class Bitmap {
 	
 	/**
 	 * Constructor
-	 * @param lastBitIndex the desired size of the bitset minus 1
-	 */
-	Bitmap(int lastBitIndex){
-		this.bitmap = new BitSet(lastBitIndex+1); 
-	}
-	
-	/**
-	 * Constructor
-	 * @param bitmap  a bitset to initialize this Bitmap.
+	 * @param layout the position of the sequences in the bitmaps
 	 */
-	private Bitmap(BitSet bitmap){
-		this.bitmap = bitmap; 
+	Bitmap(BitmapLayout layout){
+		this.layout = layout;
+		this.words = new long[layout.getWordCount()]; 
 	}
 
 	/**
 	 * Set a bit to 1 in this bitmap
 	 * @param sid the sid corresponding to that bit
 	 * @param tid the tid corresponding to that bit
-	 * @param sequencesSize the list of sequence length to know how many bits are allocated to each sequence
 	 */
-	public void registerBit(int sid, int tid, List<Integer> sequencesSize) {
+	public void registerBit(int sid, int tid) {
 		// calculate the position of the bit that we need to set to 1
-		int pos = sequencesSize.get(sid) + tid;
+		int pos = layout.getFirstBit(sid) + tid;
 		// set the bit to 1
-		bitmap.set(pos, true);
+		words[pos >>> 6] |= 1L << pos;
 		
 		// Update the  count of bit set to 1
 		if(sid != lastSID){
@@ -98,18 +105,41 @@ public class Bitmap {
 	}
 	
 	/**
-	 * Given the position of a bit, return the corresponding sequence ID.
-	 * @param bit  the position of the bit in the bitmap
-	 * @param sequencesSize  the list of lengths of sequence by sequence ID.
-	 * @return the corresponding sequence ID
+	 * Update the support of this bitmap after some bits have been set to 1 for a new sequence.
+	 * @param sid the sequence id
+	 * @param firstBit the first bit set to 1 for this sequence
 	 */
-	private int bitToSID(int bit, List<Integer> sequencesSize) {
-		// Do a binary search
-		int result = Collections.binarySearch(sequencesSize, bit);
-		if(result >= 0){
-			return result;
+	private void registerSequence(int sid, int firstBit) {
+		support++;
+		sidsum += sid;
+		lastSID = sid;
+		
+		// remember the id of the first itemset containing a bit set to 1 
+		int tid = firstBit - layout.getFirstBit(sid);
+		if(firstItemsetID == -1 || tid < firstItemsetID){
+			firstItemsetID = tid;
 		}
-		return 0 - result -2;
+	}
+	
+	/**
+	 * Get the position of the first bit set to 1 that is at a given position or after.
+	 * @param fromBit the position where the search starts
+	 * @return the position of the bit, or -1 if there is none
+	 */
+	int nextSetBit(int fromBit) {
+		int word = fromBit >>> 6;
+		if(word >= words.length) {
+			return -1;
+		}
+		// ignore the bits before the start position in the first word
+		long value = words[word] & (-1L << fromBit);
+		while(value == 0) {
+			if(++word == words.length) {
+				return -1;
+			}
+			value = words[word];
+		}
+		return (word << 6) + Long.numberOfTrailingZeros(value);
 	}
 
 	/**
@@ -119,128 +149,128 @@ public class Bitmap {
 	public int getSupport() {
 		return support;
 	}
+	
+	/**
+	 * Copy the bits set to 1 in a range of positions of the bitmap of an item to this bitmap.
+	 * @param bitmapItem the bitmap of the item
+	 * @param firstBit the first position of the range
+	 * @param lastBit the last position of the range
+	 * @return the position of the first bit that was copied, or -1 if there is none
+	 */
+	private int copyRange(Bitmap bitmapItem, int firstBit, int lastBit) {
+		int firstWord = firstBit >>> 6;
+		int lastWord = lastBit >>> 6;
+		long[] itemWords = bitmapItem.words;
+		
+		int firstCopied = -1;
+		for(int word = firstWord; word <= lastWord; word++) {
+			long value = itemWords[word];
+			// keep only the bits of the range in the first and last words
+			if(word == firstWord) {
+				value &= -1L << firstBit;
+			}
+			if(word == lastWord) {
+				value &= BITS_UP_TO[lastBit & 63];
+			}
+			if(value != 0) {
+				words[word] |= value;
+				if(firstCopied == -1) {
+					firstCopied = (word << 6) + Long.numberOfTrailingZeros(value);
+				}
+			}
+		}
+		return firstCopied;
+	}
+	
+	/**
+	 * Check if the bitmap of an item has a bit set to 1 in a range of positions.
+	 * @param bitmapItem the bitmap of the item
+	 * @param firstBit the first position of the range
+	 * @param lastBit the last position of the range
+	 * @return true if there is such a bit
+	 */
+	private static boolean hasBitInRange(Bitmap bitmapItem, int firstBit, int lastBit) {
+		int firstWord = firstBit >>> 6;
+		int lastWord = lastBit >>> 6;
+		long[] itemWords = bitmapItem.words;
+		
+		for(int word = firstWord; word <= lastWord; word++) {
+			long value = itemWords[word];
+			if(word == firstWord) {
+				value &= -1L << firstBit;
+			}
+			if(word == lastWord) {
+				value &= BITS_UP_TO[lastBit & 63];
+			}
+			if(value != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
 
 	/**
 	 * Create a new bitmap for the s-step by doing a AND between this
 	 * bitmap and the bitmap of an item.
 	 * @param bitmapItem  the bitmap of the item used for the S-Step
-	 * @param sequencesSize the  sequence lengths
-	 * @param lastBitIndex  the last bit index
-	 * @param maxGap 
+	 * @param maxGap the maximum gap between two itemsets of a pattern
 	 * @return return the new bitmap
 	 */
-	Bitmap createNewBitmapSStep(Bitmap bitmapItem, List<Integer> sequencesSize, int lastBitIndex, int maxGap) {
+	Bitmap createNewBitmapSStep(Bitmap bitmapItem, int maxGap) {
 		//INTERSECTION_COUNT++;
 		
-		// create a new bitset that will be use for the new bitmap
-		Bitmap newBitmap = new Bitmap(new BitSet(lastBitIndex));
+		// create a new bitmap
+		Bitmap newBitmap = new Bitmap(layout);
 		
-		// if no maxGap constraint is used
-		if(maxGap == Integer.MAX_VALUE) {
-			// We do an AND with the bitmap of the item and this bitmap
-			for (int bitK = bitmap.nextSetBit(0); bitK >= 0; bitK = bitmap.nextSetBit(bitK+1)) {
-				
-				// find the sequence (sid) which includes this bit
-				int sid = bitToSID(bitK, sequencesSize);
+		int sid = 0;
+		// for each sequence containing a bit set to 1 in this bitmap,
+		// where bitK is the first bit of that sequence
+		for (int bitK = nextSetBit(0); bitK >= 0; ) {
+			
+			// find the sequence (sid) which includes this bit
+			sid = layout.getSID(bitK, sid);
 
-				// get the index of the last bit representing this sequence (sid)
-	 			int lastBitOfSID = lastBitOfSID(sid, sequencesSize, lastBitIndex);
-				
-	 			// check if the item appear whithin that sequence after the current bit position
-				boolean match = false;   
-				for (int bit = bitmapItem.bitmap.nextSetBit(bitK+1); 
-						bit >= 0 && bit <= lastBitOfSID; 
-						bit = bitmapItem.bitmap.nextSetBit(bit+1)) {
-					
-					// set the bit in the new bitmap
-					newBitmap.bitmap.set(bit);
-					match = true;
-					
-					// remember the id of the first itemset containing a bit set to 1 
-					int tid = bit - sequencesSize.get(sid);					
-					if(firstItemsetID == -1 || tid < firstItemsetID){
-						firstItemsetID = tid;
-					}
-				}
-				if(match){
+			// get the index of the last bit representing this sequence (sid)
+ 			int lastBitOfSID = layout.getLastBit(sid);
+ 			
+			// if no maxGap constraint is used
+			if(maxGap == Integer.MAX_VALUE) {
+				// copy the bits of the item that appear within that sequence after the current bit position
+				int firstBit = newBitmap.copyRange(bitmapItem, bitK + 1, lastBitOfSID);
+				if(firstBit != -1){
 					// update the support
-					if(sid != newBitmap.lastSID){
-						newBitmap.support++;
-						newBitmap.supportWithoutGapTotal++;
-						newBitmap.sidsum += sid;
-						newBitmap.lastSID = sid;
-					}
+					newBitmap.registerSequence(sid, firstBit);
+					newBitmap.supportWithoutGapTotal++;
 				}
-				
-				// SPAM OPTIMIZATION:
-     			// to skip the bit from the same sequence
-				bitK = lastBitOfSID;
 			}
-		}
-		// If we need to check the max gap constraint
-		else {
-			
-			// variable to keep track of the previous sid for support count without gap
-			int previousSid = -1;
-			
-			// We do an AND with the bitmap of the item and this bitmap
-			for (int bitK = bitmap.nextSetBit(0); bitK >= 0; bitK = bitmap.nextSetBit(bitK+1)) {
-				
-				// find the sid of this bit
-				int sid = bitToSID(bitK, sequencesSize);
-
-				// get the last bit for this sid
-	 			int lastBitOfSID = lastBitOfSID(sid, sequencesSize, lastBitIndex);
-				
-				boolean match = false;
-				boolean matchWithoutGap = false;
-				for (int bit = bitmapItem.bitmap.nextSetBit(bitK+1); 
-						bit >= 0 && bit <= lastBitOfSID; 
-						bit = bitmapItem.bitmap.nextSetBit(bit+1)) {
-					
-					matchWithoutGap = true;
-					
-					// if the maxgap constraint is not respected, we don't need to continue
-					// checking
-					if (bit - bitK > maxGap) {
-						break;
-					}
-					
-					// set the bit to 1 in the new bitmap
-					newBitmap.bitmap.set(bit);
-					// remember that we found that item 
-					match = true;
-					
-					// get the tid
-					int tid = bit - sequencesSize.get(sid);
-					
-					if(firstItemsetID == -1 || tid < firstItemsetID){
-						firstItemsetID = tid;
-					}
-				}
-				
+			// If we need to check the max gap constraint
+			else {
 				// When we calculate the support without considering the gap constraint,
 				// we should not count it more than once for this sequence. 
-				// Thus we check that "previousSid != sid"
-				if(matchWithoutGap && previousSid != sid) {
-					newBitmap.supportWithoutGapTotal  += 1;
-					previousSid = sid;
-				}
-				
-				if(match){
-					// update the support
-					if(sid != newBitmap.lastSID){
-						newBitmap.support++;
-						newBitmap.sidsum += sid;
+				// The first bit of the sequence has the largest range after it, so we only check that one.
+				if(hasBitInRange(bitmapItem, bitK + 1, lastBitOfSID)) {
+					newBitmap.supportWithoutGapTotal++;
+					
+					// for each bit of this sequence, copy the bits of the item that 
+					// respect the max gap constraint
+					int firstBit = -1;
+					for (int bit = bitK; bit >= 0 && bit < lastBitOfSID; bit = nextSetBit(bit + 1)) {
+						int lastBitInGap = (lastBitOfSID - bit > maxGap) ? bit + maxGap : lastBitOfSID;
+						int copied = newBitmap.copyRange(bitmapItem, bit + 1, lastBitInGap);
+						if(firstBit == -1) {
+							firstBit = copied;
+						}
+					}
+					if(firstBit != -1){
+						// update the support
+						newBitmap.registerSequence(sid, firstBit);
 					}
-					newBitmap.lastSID = sid;
-					// IMPORTANT:  WE DON'T DO THAT WHEN WE ARE USING THE GAP CONSTRAINT because
-					// we need to check all positions
-//					bitK = lastBitOfSID; // to skip the bit from the same sequence
 				}
-				
-				
 			}
+			
+			// SPAM OPTIMIZATION:
+ 			// to skip the bits from the same sequence
+			bitK = nextSetBit(lastBitOfSID + 1);
 		}
 		
 		// We return the resulting bitmap
@@ -252,69 +282,41 @@ public class Bitmap {
 		return supportWithoutGapTotal;
 	}
 
-	/**
-	 * Get the last bit of this sequence 
-	 * @param sid the sequence id
-	 * @param sequencesSize the list of sequences size
-	 * @param lastBitIndex the last bit used in bitmaps
-	 * @return the last bit of this sequence
-	 */
-	private int lastBitOfSID(int sid, List<Integer> sequencesSize, int lastBitIndex) {
-		if(sid+1 >= sequencesSize.size()){
-			return lastBitIndex;
-		}else{
-			return sequencesSize.get(sid+1) -1;
-		}
-	}
-
 
 	/**
 	 * Create a new bitmap by performing the I-STEP with this
 	 * bitmap and the bitmap of an item.
 	 * @param bitmapItem the bitmap of the item
-	 * @param sequencesSize the sequence lengths
-	 * @param lastBitIndex the last bit index
 	 * @return the new bitmap
 	 */
-	Bitmap createNewBitmapIStep(Bitmap bitmapItem, List<Integer> sequencesSize, int lastBitIndex) {
+	Bitmap createNewBitmapIStep(Bitmap bitmapItem) {
 		//INTERSECTION_COUNT++;
 		
 		// We create the new bitmap
-		BitSet newBitset = new BitSet(lastBitIndex); // TODO: USE LAST SET BIT
-		Bitmap newBitmap = new Bitmap(newBitset);
+		Bitmap newBitmap = new Bitmap(layout);
 		
 		// We do an AND with the bitmap of the item
-		for (int bit = bitmap.nextSetBit(0); bit >= 0; bit = bitmap.nextSetBit(bit+1)) {
-			if(bitmapItem.bitmap.get(bit)){ // if both bits are TRUE
-				
-				// set the bit
-				newBitmap.bitmap.set(bit);
-				// update the support
-				int sid = bitToSID(bit, sequencesSize);
-				
-				if(sid != newBitmap.lastSID){
-					newBitmap.sidsum += sid;
-					newBitmap.support++;
-				}
-				newBitmap.lastSID = sid; // remember the last SID
-				
-				// new
-				int tid = bit - sequencesSize.get(sid);
-				if(firstItemsetID == -1 || tid < firstItemsetID){
-					firstItemsetID = tid;
-				}
-				// end new
-			}
+		long[] itemWords = bitmapItem.words;
+		long[] newWords = newBitmap.words;
+		for (int word = 0; word < words.length; word++) {
+			newWords[word] = words[word] & itemWords[word];
+		}
+		
+		// update the support by visiting the first bit set to 1 of each sequence
+		int sid = 0;
+		for (int bit = newBitmap.nextSetBit(0); bit >= 0; ) {
+			sid = layout.getSID(bit, sid);
+			newBitmap.registerSequence(sid, bit);
+			// skip the other bits of this sequence
+			bit = newBitmap.nextSetBit(layout.getLastBit(sid) + 1);
 		}
-//		 Then do the AND
-//		newBitset.and(bitmapItem.bitmap);
 		
 		// We return the resulting bitmap
 		return newBitmap;
 	}
 	
 	/**
-	 * Set the support of this bitmap without using the internal BitSet object.
+	 * Set the support of this bitmap without using the internal bit array.
 	 * This method is used by VGEN
 	 * @param support the support as an integer value.
 	 */
@@ -325,28 +327,39 @@ public class Bitmap {
 
 	/**
 	 * Get the list of sids corresponding to this bitmap as a string
-	 * @param sequencesSize the list of sequence length to know how many bits are allocated to each sequence
 	 * @return a string
 	 */
-	public String getSIDs(List<Integer> sequencesSize) {
+	public String getSIDs() {
 		StringBuilder builder = new StringBuilder();
 		
-		// variable to remember the last sid
-		int lastSidSeen = -1;
-		// We do an AND with the bitmap of the item and this bitmap
-		for (int bitK = bitmap.nextSetBit(0); bitK >= 0; bitK = bitmap.nextSetBit(bitK+1)) {
-			
+		int sid = 0;
+		// for the first bit of each sequence containing a bit set to 1
+		for (int bitK = nextSetBit(0); bitK >= 0; ) {
 			// find the sid of this bit
-			int sid = bitToSID(bitK, sequencesSize);
-			// if we did not see this sid already 
-			if(sid != lastSidSeen) {
-				if(lastSidSeen != -1){
-					builder.append(" ");
-				}
-				builder.append(sid);
-				lastSidSeen = sid;
+			sid = layout.getSID(bitK, sid);
+			if(builder.length() > 0){
+				builder.append(" ");
+			}
+			builder.append(sid);
+			// skip the other bits of this sequence
+			bitK = nextSetBit(layout.getLastBit(sid) + 1);
+		}
+		return builder.toString();
+	}
+	
+	/**
+	 * Get the positions of the bits set to 1 in this bitmap as a string
+	 * @return a string
+	 */
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		for (int bit = nextSetBit(0); bit >= 0; bit = nextSetBit(bit + 1)) {
+			if(builder.length() > 1){
+				builder.append(", ");
 			}
+			builder.append(bit);
 		}
+		builder.append('}');
 		return builder.toString();
 	}
 
@@ -0,0 +1,135 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.spam;
+
+import java.util.List;
+
+/**
+ * This class describes how the sequences of a database are stored in the bitmaps of SPAM.
+ * Each sequence is represented by a group of consecutive bits (one bit per itemset), and
+ * the bits are stored in 64-bit words. This class stores the position of the first bit of each
+ * sequence in an array (a prefix table), and for each word, the sequence containing its first bit.
+ * It is thus possible to find the sequence of a bit without a binary search over all
+ * the sequences, and to know the range of words used by each sequence.
+ * <br/><br/>
+ *
+ * An object of this class is created once for a database and is shared by all the bitmaps.
+ * <br/><br/>
+ *
+ * Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *  <br/><br/>
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ * <br/><br/>
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <br/><br/>
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <br/><br/>
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see Bitmap
+ */
+public class BitmapLayout {
+
+	// the position of the first bit of each sequence. The last value is the position
+	// after the last bit of the last sequence.
+	private final int[] sequenceStarts;
+
+	// for each word, the sequence containing the first bit of that word
+	private final int[] sidOfWord;
+
+	// the number of sequences
+	private final int sequenceCount;
+
+	/**
+	 * Constructor
+	 * @param sequencesSize the position of the first bit of each sequence
+	 * @param lastBitIndex the last bit used in bitmaps
+	 */
+	public BitmapLayout(List<Integer> sequencesSize, int lastBitIndex) {
+		sequenceCount = sequencesSize.size();
+		sequenceStarts = new int[sequenceCount + 1];
+		for(int sid = 0; sid < sequenceCount; sid++) {
+			sequenceStarts[sid] = sequencesSize.get(sid);
+		}
+		sequenceStarts[sequenceCount] = lastBitIndex + 1;
+
+		// for each word, find the last sequence starting before or at its first bit
+		sidOfWord = new int[getWordCount()];
+		int sid = 0;
+		for(int word = 0; word < sidOfWord.length; word++) {
+			int bit = word << 6;
+			while(sid + 1 < sequenceCount && sequenceStarts[sid + 1] <= bit) {
+				sid++;
+			}
+			sidOfWord[word] = sid;
+		}
+	}
+
+	/**
+	 * Get the number of 64-bit words of a bitmap
+	 * @return the number of words
+	 */
+	public int getWordCount() {
+		return (sequenceStarts[sequenceCount] + 63) >> 6;
+	}
+
+	/**
+	 * Get the number of sequences
+	 * @return the number of sequences
+	 */
+	public int getSequenceCount() {
+		return sequenceCount;
+	}
+
+	/**
+	 * Get the first bit of a sequence
+	 * @param sid the sequence id
+	 * @return the position of the first bit
+	 */
+	public int getFirstBit(int sid) {
+		return sequenceStarts[sid];
+	}
+
+	/**
+	 * Get the last bit of a sequence
+	 * @param sid the sequence id
+	 * @return the position of the last bit
+	 */
+	public int getLastBit(int sid) {
+		return sequenceStarts[sid + 1] - 1;
+	}
+
+	/**
+	 * Given the position of a bit, return the corresponding sequence ID.
+	 * @param bit the position of the bit in a bitmap
+	 * @param fromSID a sequence ID that is known to be smaller or equal to the result (or 0)
+	 * @return the corresponding sequence ID
+	 */
+	int getSID(int bit, int fromSID) {
+		int word = bit >>> 6;
+		// the sequence is between the sequence of the first bit of this word
+		// and the sequence of the first bit of the next word
+		int low = Math.max(sidOfWord[word], fromSID);
+		int high = (word + 1 < sidOfWord.length) ? sidOfWord[word + 1] : sequenceCount - 1;
+		// binary search for the last sequence starting before or at this bit
+		while(low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if(sequenceStarts[middle] <= bit) {
+				low = middle;
+			}else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+}
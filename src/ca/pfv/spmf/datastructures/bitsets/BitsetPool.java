@@ -0,0 +1,74 @@
+package ca.pfv.spmf.datastructures.bitsets;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is a pool of bitsets (see {@link Bitsets}) that are reused during a depth-first search.
+ * <br/><br/>
+ *
+ * The bitsets of the equivalence class explored at a given depth of the search tree are only
+ * needed until the next equivalence class of the same depth is created. Thus, the pool keeps a
+ * list of bitsets for each depth, and the i-th bitset of an equivalence class at depth d is always
+ * stored in the same array. Once the largest equivalence classes have been seen, the search
+ * does not allocate any new bitset. A pool must be used by a single thread.
+ *
+ * @see Bitsets
+ * @author Philippe Fournier-Viger
+ */
+public class BitsetPool {
+
+	/** the number of words of each bitset */
+	private final int wordCount;
+
+	/** the bitsets of each depth */
+	private final List<List<long[]>> bitsetsByDepth = new ArrayList<List<long[]>>();
+
+	/**
+	 * Constructor
+	 * @param bitCount the number of bits of each bitset (e.g. the number of transactions)
+	 */
+	public BitsetPool(int bitCount) {
+		this.wordCount = Bitsets.wordCount(bitCount);
+	}
+
+	/**
+	 * Create a new bitset that is not part of the pool
+	 * @return the bitset (all bits are false)
+	 */
+	public long[] newBitset() {
+		return new long[wordCount];
+	}
+
+	/**
+	 * Get a bitset of the pool. Its content is undefined.
+	 * @param depth the depth in the search tree
+	 * @param position the position of the bitset in the equivalence class at that depth
+	 * @return the bitset
+	 */
+	public long[] getBitset(int depth, int position) {
+		while(bitsetsByDepth.size() <= depth) {
+			bitsetsByDepth.add(new ArrayList<long[]>());
+		}
+		List<long[]> bitsets = bitsetsByDepth.get(depth);
+		while(bitsets.size() <= position) {
+			bitsets.add(new long[wordCount]);
+		}
+		return bitsets.get(position);
+	}
+}
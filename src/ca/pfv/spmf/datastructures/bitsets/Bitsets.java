@@ -0,0 +1,183 @@
+package ca.pfv.spmf.datastructures.bitsets;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.BitSet;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.charm.AlgoCharm_Bitset;
+import ca.pfv.spmf.algorithms.frequentpatterns.eclat.AlgoEclat_Bitset;
+
+/**
+ * This class provides the operations on bitsets used by vertical itemset mining algorithms
+ * such as ECLAT, dECLAT, CHARM and dCHARM to store tidsets (or diffsets). A bitset is
+ * a plain array of long, where the bit i of the word i / 64 represents the transaction i.
+ * All the bitsets of a database have the same number of words.
+ * <br/><br/>
+ *
+ * Contrarily to java.util.BitSet, the intersection of two bitsets and the cardinality of the
+ * result are calculated in a single pass, and the intersection is stopped as soon as the
+ * result cannot reach a given minimum cardinality (e.g. the minimum support).
+ *
+ * @see BitsetPool
+ * @see AlgoEclat_Bitset
+ * @see AlgoCharm_Bitset
+ * @author Philippe Fournier-Viger
+ */
+public class Bitsets {
+
+	/**
+	 * Get the number of words of a bitset that can store some bits
+	 * @param bitCount the number of bits (e.g. the number of transactions)
+	 * @return the number of words
+	 */
+	public static int wordCount(int bitCount) {
+		return (bitCount + 63) >>> 6;
+	}
+
+	/**
+	 * Set a bit to true
+	 * @param bitset a bitset
+	 * @param bit the position of the bit
+	 */
+	public static void set(long[] bitset, int bit) {
+		bitset[bit >>> 6] |= 1L << bit;
+	}
+
+	/**
+	 * Set a bit to false
+	 * @param bitset a bitset
+	 * @param bit the position of the bit
+	 */
+	public static void clear(long[] bitset, int bit) {
+		bitset[bit >>> 6] &= ~(1L << bit);
+	}
+
+	/**
+	 * Set the first bits of a bitset to true
+	 * @param bitset a bitset
+	 * @param bitCount the number of bits to be set, starting from the bit 0
+	 */
+	public static void setFirstBits(long[] bitset, int bitCount) {
+		int fullWords = bitCount >>> 6;
+		for(int i = 0; i < fullWords; i++) {
+			bitset[i] = -1L;
+		}
+		if((bitCount & 63) != 0) {
+			bitset[fullWords] = (1L << bitCount) - 1;
+		}
+	}
+
+	/**
+	 * Calculate the intersection of two bitsets and its cardinality. The intersection is
+	 * stopped if the result cannot have at least a given number of bits.
+	 * @param bitsetA the first bitset
+	 * @param cardinalityA the cardinality of the first bitset
+	 * @param bitsetB the second bitset
+	 * @param result a bitset for storing the result (it may be one of the two bitsets)
+	 * @param minCardinality the minimum cardinality of the result
+	 * @return the cardinality of the result, or -1 if it is less than minCardinality
+	 *    (the content of "result" is then undefined)
+	 */
+	public static int and(long[] bitsetA, int cardinalityA, long[] bitsetB, long[] result,
+			int minCardinality) {
+		int cardinality = 0;
+		// the number of bits of A that were not compared yet
+		int remainingA = cardinalityA;
+		for(int i = 0; i < bitsetA.length; i++) {
+			long wordA = bitsetA[i];
+			long word = wordA & bitsetB[i];
+			result[i] = word;
+			cardinality += Long.bitCount(word);
+			remainingA -= Long.bitCount(wordA);
+			// stop if the result cannot reach the minimum cardinality anymore
+			if(cardinality + remainingA < minCardinality) {
+				return -1;
+			}
+		}
+		return cardinality;
+	}
+
+	/**
+	 * Calculate the intersection of two bitsets, when its cardinality is already known.
+	 * @param bitsetA the first bitset
+	 * @param bitsetB the second bitset
+	 * @param result a bitset for storing the result (it may be one of the two bitsets)
+	 */
+	public static void and(long[] bitsetA, long[] bitsetB, long[] result) {
+		for(int i = 0; i < bitsetA.length; i++) {
+			result[i] = bitsetA[i] & bitsetB[i];
+		}
+	}
+
+	/**
+	 * Calculate the difference of two bitsets (the bits of A that are not in B) and its
+	 * cardinality. The calculation is stopped if the result has more than a given number of bits.
+	 * @param bitsetA the first bitset
+	 * @param bitsetB the second bitset
+	 * @param result a bitset for storing the result (it may be one of the two bitsets)
+	 * @param maxCardinality the maximum cardinality of the result
+	 * @return the cardinality of the result, or -1 if it is more than maxCardinality
+	 *    (the content of "result" is then undefined)
+	 */
+	public static int andNot(long[] bitsetA, long[] bitsetB, long[] result, int maxCardinality) {
+		if(maxCardinality < 0) {
+			return -1;
+		}
+		int cardinality = 0;
+		for(int i = 0; i < bitsetA.length; i++) {
+			long word = bitsetA[i] & ~bitsetB[i];
+			result[i] = word;
+			cardinality += Long.bitCount(word);
+			// stop if the result has too many bits
+			if(cardinality > maxCardinality) {
+				return -1;
+			}
+		}
+		return cardinality;
+	}
+
+	/**
+	 * Get the position of the first bit set to true, starting from a given position.
+	 * @param bitset a bitset
+	 * @param fromBit the position where the search starts
+	 * @return the position of the bit or -1 if there is none
+	 */
+	public static int nextSetBit(long[] bitset, int fromBit) {
+		int wordIndex = fromBit >>> 6;
+		if(wordIndex >= bitset.length) {
+			return -1;
+		}
+		long word = bitset[wordIndex] & (-1L << fromBit);
+		while(true) {
+			if(word != 0) {
+				return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if(++wordIndex == bitset.length) {
+				return -1;
+			}
+			word = bitset[wordIndex];
+		}
+	}
+
+	/**
+	 * Make a copy of a bitset as a java.util.BitSet
+	 * @param bitset the bitset
+	 * @return the copy
+	 */
+	public static BitSet toBitSet(long[] bitset) {
+		return BitSet.valueOf(bitset);
+	}
+}
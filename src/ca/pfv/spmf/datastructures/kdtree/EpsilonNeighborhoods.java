@@ -0,0 +1,224 @@
+package ca.pfv.spmf.datastructures.kdtree;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This class stores the epsilon-neighborhood of every point of a {@link KDTree}, that is the
+ * points within a distance epsilon of each point (except the point itself), as used by
+ * density-based clustering algorithms such as DBSCAN and OPTICS.
+ * <br/><br/>
+ * 
+ * The neighborhoods are stored in a compressed form (CSR): the neighbors of all points are
+ * stored one after the other in a single array of int, and another array indicates where
+ * the neighbors of each point start. The distances can optionally be stored in the same way.
+ * The neighborhoods can be computed by several threads, where each thread queries the
+ * tree for a part of the points.
+ *
+ * @see KDTree
+ * @author Philippe Fournier-Viger
+ */
+public class EpsilonNeighborhoods {
+
+	/** a set of points smaller than this number of points per thread is processed by a single thread */
+	private static final int MIN_POINTS_PER_THREAD = 1000;
+
+	/** the position of the first neighbor of each point in "neighbors" (with one more position
+	 * indicating the end of the neighbors of the last point) */
+	private final int[] starts;
+
+	/** the identifiers of the neighbors of all points */
+	private final int[] neighbors;
+
+	/** the distance of each neighbor (null if the distances are not kept) */
+	private final double[] distances;
+
+	/**
+	 * Compute the epsilon-neighborhood of every point of a tree
+	 * @param kdtree the tree
+	 * @param epsilon the epsilon distance
+	 * @param keepDistances if true, the distance of each neighbor is also stored
+	 * @param threadCount the number of threads used to query the tree
+	 */
+	public EpsilonNeighborhoods(final KDTree kdtree, final double epsilon, final boolean keepDistances,
+			int threadCount) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		final int pointCount = kdtree.size();
+		int partCount = Math.min(threadCount, pointCount / MIN_POINTS_PER_THREAD);
+		
+		// query the tree for each part of the points
+		List<Part> parts = new ArrayList<Part>();
+		if(partCount <= 1) {
+			parts.add(computePart(kdtree, epsilon, keepDistances, 0, pointCount));
+		}else {
+			List<Callable<Part>> tasks = new ArrayList<Callable<Part>>(partCount);
+			for(int part = 0; part < partCount; part++) {
+				final int start = (int) ((long) pointCount * part / partCount);
+				final int end = (int) ((long) pointCount * (part + 1) / partCount);
+				tasks.add(new Callable<Part>() {
+					public Part call() {
+						return computePart(kdtree, epsilon, keepDistances, start, end);
+					}
+				});
+			}
+			ForkJoinPool pool = new ForkJoinPool(partCount);
+			try {
+				for(Future<Part> future : pool.invokeAll(tasks)) {
+					parts.add(future.get());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("The neighborhood computation was interrupted", e);
+			} catch (ExecutionException e) {
+				if(e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+		
+		// concatenate the parts
+		int neighborCount = 0;
+		for(Part part : parts) {
+			neighborCount += part.neighborCount;
+		}
+		starts = new int[pointCount + 1];
+		neighbors = new int[neighborCount];
+		distances = keepDistances ? new double[neighborCount] : null;
+		int point = 0;
+		int position = 0;
+		for(Part part : parts) {
+			int offset = position;
+			for(int i = 0; i < part.counts.length; i++) {
+				starts[point++] = position;
+				position += part.counts[i];
+			}
+			System.arraycopy(part.neighbors, 0, neighbors, offset, part.neighborCount);
+			if(keepDistances) {
+				System.arraycopy(part.distances, 0, distances, offset, part.neighborCount);
+			}
+		}
+		starts[pointCount] = position;
+	}
+	
+	/**
+	 * Compute the neighborhoods of the points of a part
+	 * @param kdtree the tree
+	 * @param epsilon the epsilon distance
+	 * @param keepDistances if true, the distance of each neighbor is also stored
+	 * @param start the first point of the part
+	 * @param end the point after the last point of the part
+	 * @return the part
+	 */
+	private static Part computePart(KDTree kdtree, double epsilon, boolean keepDistances, int start, int end) {
+		Part part = new Part(end - start, keepDistances);
+		NeighborList buffer = new NeighborList();
+		for(int point = start; point < end; point++) {
+			buffer.clear();
+			kdtree.pointsWithinRadiusOf(point, epsilon, buffer);
+			part.add(point - start, buffer);
+		}
+		return part;
+	}
+
+	/**
+	 * Get the number of neighbors of a point
+	 * @param pointId the identifier of the point
+	 * @return the number of neighbors
+	 */
+	public int getNeighborCount(int pointId) {
+		return starts[pointId + 1] - starts[pointId];
+	}
+
+	/**
+	 * Get a neighbor of a point
+	 * @param pointId the identifier of the point
+	 * @param i the position of the neighbor (between 0 and getNeighborCount(pointId) - 1)
+	 * @return the identifier of the neighbor
+	 */
+	public int getNeighbor(int pointId, int i) {
+		return neighbors[starts[pointId] + i];
+	}
+
+	/**
+	 * Get the distance between a point and one of its neighbors
+	 * (the distances must have been kept).
+	 * @param pointId the identifier of the point
+	 * @param i the position of the neighbor (between 0 and getNeighborCount(pointId) - 1)
+	 * @return the distance
+	 */
+	public double getDistance(int pointId, int i) {
+		return distances[starts[pointId] + i];
+	}
+
+	/**
+	 * The neighborhoods of a part of the points, computed by a single thread.
+	 */
+	private static class Part {
+		// the number of neighbors of each point of the part
+		final int[] counts;
+		// the neighbors of the points of the part and their distances
+		int[] neighbors = new int[64];
+		double[] distances;
+		// the total number of neighbors
+		int neighborCount = 0;
+
+		/**
+		 * Constructor
+		 * @param pointCount the number of points in this part
+		 * @param keepDistances if true, the distance of each neighbor is also stored
+		 */
+		Part(int pointCount, boolean keepDistances) {
+			counts = new int[pointCount];
+			distances = keepDistances ? new double[64] : null;
+		}
+
+		/**
+		 * Add the neighbors of a point
+		 * @param i the position of the point in the part
+		 * @param buffer the neighbors
+		 */
+		void add(int i, NeighborList buffer) {
+			int size = buffer.size();
+			if(neighborCount + size > neighbors.length) {
+				int newLength = Math.max(neighbors.length * 2, neighborCount + size);
+				neighbors = Arrays.copyOf(neighbors, newLength);
+				if(distances != null) {
+					distances = Arrays.copyOf(distances, newLength);
+				}
+			}
+			for(int j = 0; j < size; j++) {
+				neighbors[neighborCount + j] = buffer.getPointId(j);
+				if(distances != null) {
+					distances[neighborCount + j] = buffer.getDistance(j);
+				}
+			}
+			counts[i] = size;
+			neighborCount += size;
+		}
+	}
+}
@@ -15,13 +15,13 @@ package ca.pfv.spmf.datastructures.kdtree;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceEuclidian;
-import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceFunction;
 import ca.pfv.spmf.datastructures.redblacktree.RedBlackTree;
 import ca.pfv.spmf.patterns.cluster.DoubleArray;
 
@@ -30,37 +30,57 @@ import ca.pfv.spmf.patterns.cluster.DoubleArray;
  * book: "Algorithms in a Nutshell" by Heineman et al. (2008).
  * <br/><br/>
  * 
- * This implementation uses the  Randomized-Select algorithm described in the 
- *  book "Introduction to algorithms" book by Cormen et al. (2001) as suggested
- *  by Heineman.
+ * The tree is stored implicitly in arrays rather than with node objects. The points are
+ * reordered so that the node of a range of positions [left, right] is the point at the middle
+ * position (left + right) / 2, which is the median of the range for the dimension of its depth.
+ * The points before this position are in the "below" branch and the points after are in the "above"
+ * branch. The coordinates of all points are stored in a single array of double in that order, and
+ * the split value of each node is stored in another array. The median of each range is found with
+ * a Quickselect algorithm, so the tree is built in O(n log n) average time without any random number.
  * <br/><br/>
  * 
- * Elements that are inserted into the tree have to be arrays of double.
+ * The tree uses the Euclidean distance. The distances are compared as squared distances, so that
+ * no square root is calculated during a search. The k nearest neighbors are kept in a max-heap of
+ * k points stored in arrays (see {@link NeighborList}).
  *  <br/><br/>
  * 
  * The class provide methods for 
- *  - building the tree by inserting points, 
+ *  - building the tree from a list of points or from an array of coordinates, 
  *  - using the tree to find the nearest neighbor to a given point 
  *  - using the tree to find the k nearest neighbors to a given point 
+ *  - using the tree to find all the points within a radius of a given point 
+ *  - running a batch of queries with several threads
  *  <br/><br/>
  * 
- * To find the k-nearest neighboors, the closest points are stored in a red black tree.
+ * Each point is identified by its position in the list (or array) used to build the tree.
+ * The queries only read the tree, so a tree can be queried by several threads at the same time.
 *
+ * @see NeighborList
+ * @see EpsilonNeighborhoods
  * @author Philippe Fournier-Viger
  */
 public class KDTree {
 
 	private int nodeCount = 0; // number of nodes in the tree
-	private KDNode root = null; // the tree root
 	int dimensionCount = 0; // number of dimensions
-
-	// random number generator used by the Randomized-select algorithm
-	private static Random random = new Random(System.currentTimeMillis());  
 	
-	/* The distance function to be used for comparing vectors */
-	DistanceFunction distanceFunction = new DistanceEuclidian(); 
+	/** the coordinates of the points, in the order of the tree (node i is at position i * dimensionCount) */
+	private double[] coordinates;
+	
+	/** the split value of each node (its coordinate in the dimension of its depth) */
+	private double[] splitValues;
+	
+	/** the identifier of the point of each node */
+	private int[] pointIds;
 	
-//	List<DoubleArray> pointsDEBUG = null;
+	/** the node of each point (the inverse of pointIds) */
+	private int[] nodeOfPoint;
+	
+	/** the points, if the tree was built from a list of DoubleArray (in the order of the tree) */
+	private DoubleArray[] points;
+	
+	/** a batch smaller than this number of queries per thread is processed by a single thread */
+	private static final int MIN_QUERIES_PER_THREAD = 100;
 
 	/**
 	 * Default constructor
@@ -79,380 +99,427 @@ public class KDTree {
 
 	/**
 	 * This method build the KDtree from a set of points.
-	 * This method should be called only once.
+	 * This method should be called only once. The identifier of each point
+	 * is its position in the list, and the list is not modified.
 	 * @param points an array of points, where each point is a DoubleArray
 	 */
 	public void buildtree(List<DoubleArray> points) {
 		if (points.size() == 0) {
 			return;
 		}
-//		pointsDEBUG = points;
-		dimensionCount = points.get(0).size();
-
-		root = generateNode(0, points, 0, points.size() - 1); 
+		// copy the coordinates into a single array
+		int dimensionCount = points.get(0).size();
+		double[] pointCoordinates = new double[points.size() * dimensionCount];
+		for(int i = 0; i < points.size(); i++) {
+			System.arraycopy(points.get(i).data, 0, pointCoordinates, i * dimensionCount, dimensionCount);
+		}
+		buildtree(pointCoordinates, dimensionCount);
+		
+		// keep the points in the order of the tree
+		this.points = new DoubleArray[nodeCount];
+		for(int node = 0; node < nodeCount; node++) {
+			this.points[node] = points.get(pointIds[node]);
+		}
 	}
-
+	
 	/**
-	 * Generate a node for the d-dimension for points (left, right).
-	 * @param currentD the current dimension
-	 * @param points arrays of points
-	 * @param left left
-	 * @param right right
-	 * @return a node
+	 * This method build the KDtree from the coordinates of a set of points.
+	 * This method should be called only once.
+	 * @param pointCoordinates the coordinates of the points, where the point i is stored
+	 *      from position i * dimensionCount to position (i+1) * dimensionCount - 1 (this array is not modified)
+	 * @param dimensionCount the number of dimensions
 	 */
-	private KDNode generateNode(int currentD, List<DoubleArray> points, int left, int right) {
-		// if there is no point 
-		if (right < left) {
-			return null;
+	public void buildtree(double[] pointCoordinates, int dimensionCount) {
+		if (pointCoordinates.length == 0) {
+			return;
 		}
-
-		nodeCount++;
-		// if there is only a single point 
-		if (right == left) {
-			return new KDNode(points.get(left), currentD);
+		this.dimensionCount = dimensionCount;
+		nodeCount = pointCoordinates.length / dimensionCount;
+		points = null;
+		
+		// sort the point identifiers in the order of the tree
+		pointIds = new int[nodeCount];
+		for(int i = 0; i < nodeCount; i++) {
+			pointIds[i] = i;
 		}
-		// else if there is more than one point
-
-		// We calculate the desired rank that correspond to the median.
-		int m = (right - left) / 2;
-
-		// we select the median point
-		DoubleArray medianNode = randomizedSelect(points, m, left, right, currentD);
-
-		// we will use this point to separate the two lower branches of the tree.
-		KDNode node = new KDNode(medianNode, currentD);
-		currentD++;
-		if (currentD == dimensionCount) {
-			currentD = 0;
+		splitValues = new double[nodeCount];
+		generateNodes(pointCoordinates, 0, nodeCount - 1, 0);
+		
+		// copy the coordinates in the order of the tree
+		coordinates = new double[nodeCount * dimensionCount];
+		nodeOfPoint = new int[nodeCount];
+		for(int node = 0; node < nodeCount; node++) {
+			System.arraycopy(pointCoordinates, pointIds[node] * dimensionCount, coordinates, node * dimensionCount, dimensionCount);
+			nodeOfPoint[pointIds[node]] = node;
 		}
-
-		// recursively create subnodes for the two branches of the three
-		node.below = generateNode(currentD, points, left, left + m -1);
-		node.above = generateNode(currentD, points, left + m +1, right);
-		return node;
 	}
 
 	/**
-	 * Method to select the ith smallest integer of an array in average linear
-	 * time. It is  based on the pseudo-code of the Randomized-Select algorithm in
-	 * the book "Introduction to algorithms" by Cormen et al. (2001), with some
-	 * modifications such as using a while loop instead of recursive calls.
-	 * 
-	 * @param a: array of integers
-	 * @param i: the rank i of the desired integer.
-	 * @param currentD: the dimension that is used
-	 * @return the element in the array "a" that is larger than i elements.
+	 * Generate the nodes for the d-dimension for the points at positions [left, right].
+	 * @param pointCoordinates the coordinates of the points
+	 * @param left left
+	 * @param right right
+	 * @param currentD the current dimension
 	 */
-	private DoubleArray randomizedSelect(List<DoubleArray> points, int i, int left,
-			int right, int currentD) {
-		int p = left;
-		int r = right;
-
-		while (true) {
-			if (p == r) {
-				return points.get(p);
-			} 
-			int q = randomizedPartition(points, p, r, currentD);
-			int k = q - p + 1;
-
-			if (i == k - 1) {
-				return points.get(q);
-			} else if (i < k) {
-				r = q - 1;
-			} else {
-				i = i - k;
-				p = q + 1;
+	private void generateNodes(double[] pointCoordinates, int left, int right, int currentD) {
+		// while there is more than one point
+		while (left < right) {
+			// we select the median point, which will separate the two branches of the tree
+			int node = (left + right) >>> 1;
+			select(pointCoordinates, left, right, node, currentD);
+			splitValues[node] = pointCoordinates[pointIds[node] * dimensionCount + currentD];
+			
+			if (++currentD == dimensionCount) {
+				currentD = 0;
 			}
+			// recursively create the nodes of the "below" branch and
+			// continue with the "above" branch
+			generateNodes(pointCoordinates, left, node - 1, currentD);
+			left = node + 1;
+		}
+		// if there is only a single point 
+		if (left == right) {
+			splitValues[left] = pointCoordinates[pointIds[left] * dimensionCount + currentD];
 		}
 	}
 
 	/**
-	 * Private method used by the randomized-select method
-	 * (see the book for details).
+	 * Reorder the point identifiers at positions [left, right] so that the point at position "rank"
+	 * is the one that would be there if the points were sorted by their coordinate in the dimension d,
+	 * and the points before (after) have a smaller or equal (larger or equal) coordinate.
+	 * This is the Quickselect algorithm, using the median of three points as pivot.
+	 * @param pointCoordinates the coordinates of the points
+	 * @param left left
+	 * @param right right
+	 * @param rank the position of the point to be selected
+	 * @param d the dimension
 	 */
-	private int randomizedPartition(List<DoubleArray> points, int p, int r, int currentD) {
-		int i = 0;
-		if (p < r) {
-			i = p + random.nextInt(r - p);
-		} else {
-			i = r + random.nextInt(p - r);
+	private void select(double[] pointCoordinates, int left, int right, int rank, int d) {
+		while (left < right) {
+			// choose the median of the first, middle and last values as pivot
+			double first = pointCoordinates[pointIds[left] * dimensionCount + d];
+			double middle = pointCoordinates[pointIds[(left + right) >>> 1] * dimensionCount + d];
+			double last = pointCoordinates[pointIds[right] * dimensionCount + d];
+			double pivot = Math.max(Math.min(first, middle), Math.min(Math.max(first, middle), last));
+			
+			// partition the points around the pivot
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (pointCoordinates[pointIds[i] * dimensionCount + d] < pivot) {
+					i++;
+				}
+				while (pointCoordinates[pointIds[j] * dimensionCount + d] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int id = pointIds[i];
+					pointIds[i] = pointIds[j];
+					pointIds[j] = id;
+					i++;
+					j--;
+				}
+			}
+			// continue with the part containing the rank
+			if (rank <= j) {
+				right = j;
+			} else if (rank >= i) {
+				left = i;
+			} else {
+				return;
+			}
 		}
-		swap(points, r, i);
-		return partition(points, p, r, currentD); // call the partition method of
-												// quicksort.
 	}
-
+	
 	/**
-	 * Private method used by the randomized-select method
-	 * (see the book for details).
+	 * Get the squared distance between a node and a point
+	 * @param node the node
+	 * @param target the coordinates of the point
+	 * @param targetOffset the position of the first coordinate of the point in "target"
+	 * @param maxSquaredDistance the calculation stops if the distance becomes larger than this value
+	 * @return the squared distance (or a value larger than maxSquaredDistance)
 	 */
-	private int partition(List<DoubleArray> points, int p, int r, int currentD) {
-		DoubleArray x = points.get(r);
-		int i = p - 1;
-		for (int j = p; j <= r - 1; j++) {
-			if (points.get(j).data[currentD] <= x.data[currentD]) {
-				i = i + 1;
-				swap(points, i, j);
+	private double squaredDistance(int node, double[] target, int targetOffset, double maxSquaredDistance) {
+		int offset = node * dimensionCount;
+		double squaredDistance = 0;
+		for (int i = 0; i < dimensionCount; i++) {
+			double difference = coordinates[offset + i] - target[targetOffset + i];
+			squaredDistance += difference * difference;
+			if (squaredDistance > maxSquaredDistance) {
+				break;
 			}
 		}
-		swap(points, i + 1, r);
-		return i + 1;
+		return squaredDistance;
 	}
-
+	
 	/**
-	 * swapping two points in an array.
-	 * @param points the array
-	 * @param i  the first point
-	 * @param j  the second point
+	 * Get the point of a node as a DoubleArray
+	 * @param node the node
+	 * @return the point
 	 */
-	private void swap(List<DoubleArray> points, int i, int j) {
-		DoubleArray valueI = points.get(i);
-		points.set(i,points.get(j));
-		points.set(j, valueI);
+	private DoubleArray getPoint(int node) {
+		if (points != null) {
+			return points[node];
+		}
+		double[] values = new double[dimensionCount];
+		System.arraycopy(coordinates, node * dimensionCount, values, 0, dimensionCount);
+		return new DoubleArray(values);
 	}
 	
 	//=====================================================================================
 	//======================= To find the first nearest neighbor =========================
 	//=====================================================================================
-	DoubleArray nearestNeighboor = null;  // the current nearest neighboor.
-	double minDist = 0;  // the distance of the current nearest neighbor with the target point.
 	
 	/**
 	 * Method to get the nearest neighbor
 	 */
 	public DoubleArray nearest(DoubleArray targetPoint) {
-		if (root == null){
+		if (nodeCount == 0){
 			return null;
 		}
-		
-		// Find the node where the point would be inserted and calculate the distance
-		findParent(targetPoint, root, 0);
-		
-		// After that, start from the root and check all rectangles that overlap the
-		// distance with the parent.  If a point with a distance smaller than the parent is found,
-		// then return it.
-		nearest(root, targetPoint);
-		
-		return nearestNeighboor;
+		return getPoint(nodeOfPoint[nearestPointId(targetPoint.data)]);
 	}
-
+	
 	/**
-	 * This method find the node where this point would be inserted in the kdd-tree.
-	 * @param target :  the point
-	 * @param node : the current node in the tree
-	 * @param d  : the dimension used at this level of the tree.
-	 * @return  :  the node where the point would be inserted.
+	 * Method to get the identifier of the nearest neighbor of a point.
+	 * This method only reads the tree and can be called by several threads at the same time.
+	 * @param targetPoint the coordinates of the target point
+	 * @return the identifier of the nearest point (or -1 if the tree is empty)
 	 */
-	private void findParent(DoubleArray target, KDNode node, int d) {		
-		// IF the node would be inserted in the branch "below" this node.
-		if(target.data[d] < node.values.data[d]){
-			if (++d == dimensionCount) {
-				d = 0;
-			}
-			if(node.below == null){
-				nearestNeighboor = node.values;
-				minDist = distanceFunction.calculateDistance(node.values, target);
-				return;
-			}
-			findParent(target, node.below, d);
-		}
-		
-		//  IF the node would be inserted in the branch "above" this node.
-		if(++d == dimensionCount) {
-			d = 0;
-		}
-		
-		if(node.above == null){
-			nearestNeighboor = node.values;
-			minDist = distanceFunction.calculateDistance(node.values, target);
-			return;
-		}
-		findParent(target, node.above, d);
-	}
-
-	private void nearest(KDNode node, DoubleArray targetPoint) {
-		// If shorter, update minimum
-		double d = distanceFunction.calculateDistance(node.values, targetPoint);
-		if (d < minDist) {
-			minDist = d;
-			nearestNeighboor = node.values;
-		}
-	
-		int dMinus1 = node.d-1;
-		if(dMinus1 <0){
-			dMinus1 = dimensionCount - 1;
-		}
-		
-		// calculate perpendiculary distance with preceding dimensions.
-		double perpendicularyDistance = Math.abs(node.values.data[node.d] - targetPoint.data[node.d]);
-		if (perpendicularyDistance < minDist) { 
-			// explore both side of the tree
-			if (node.above != null) {
-				nearest(node.above, targetPoint);
-			}
-			if (node.below != null) {
-				nearest(node.below, targetPoint);
-			}
-		} else {
-			// only explore one side of the three
-			if (targetPoint.data[dMinus1] < node.values.data[dMinus1]) {
-				if (node.below != null) {
-					nearest(node.below, targetPoint);
-				}
-			} else if (node.above != null) {
-				nearest(node.above, targetPoint);
-			}
+	public int nearestPointId(double[] targetPoint) {
+		if (nodeCount == 0){
+			return -1;
 		}
+		NeighborList result = new NeighborList();
+		knearest(targetPoint, 1, result);
+		return result.getPointId(0);
 	}
 
 	//=====================================================================================
 	//======================= Method to find the k nearest neighboor =========================
 	//=====================================================================================
 	
-	RedBlackTree<KNNPoint> resultKNN = null; // field to store the current k nearest neighboor with the target point
-	int k =0; // the parameter k.
-	
 	/**
 	 * Method to get the k nearest neighboors
+	 * @param targetPoint the target point
+	 * @param k the number of neighbors
+	 * @return the k nearest neighbors, or null if the tree is empty
 	 */
 	public RedBlackTree<KNNPoint> knearest(DoubleArray targetPoint, int k) {
-		this.k = k;
-		this.resultKNN = new RedBlackTree<KNNPoint>();
-		
-		if (root == null){
+		if (nodeCount == 0){
 			return null;
 		}
-		// First traverse the tree to find the place where the node would be inserted.
-		findParent_knn(targetPoint, root, 0);
+		NeighborList neighbors = new NeighborList();
+		knearest(targetPoint.data, k, neighbors);
 		
-		// Now start back at the root, and check all rectangles that have a perpendicular distance
-		// smaller than the k best points found until now.
-		nearest_knn(root, targetPoint);
 		// return the k nearest neighbors.
+		RedBlackTree<KNNPoint> resultKNN = new RedBlackTree<KNNPoint>();
+		for (int i = 0; i < neighbors.size(); i++) {
+			resultKNN.add(new KNNPoint(getPoint(nodeOfPoint[neighbors.getPointId(i)]), neighbors.getDistance(i)));
+		}
 		return resultKNN;
 	}
+	
+	/**
+	 * Method to get the k nearest neighbors of a point.
+	 * This method only reads the tree and can be called by several threads at the same time.
+	 * @param targetPoint the coordinates of the target point
+	 * @param k the number of neighbors
+	 * @param result a list where the identifiers and squared distances of the k nearest
+	 *     points are stored, by increasing distance (it is cleared first)
+	 */
+	public void knearest(double[] targetPoint, int k, NeighborList result) {
+		result.clear();
+		if (nodeCount == 0 || k <= 0){
+			return;
+		}
+		// Start at the root, and check all rectangles that have a perpendicular distance
+		// smaller than the k best points found until now.
+		nearest_knn(0, nodeCount - 1, 0, targetPoint, k, result);
+		result.sortHeap();
+	}
 
 	/**
-	 * traverse the tree to find the place where the node would be inserted.
-	 * @param target the vector
-	 * @param node  the current node
-	 * @param d the current dimension
+	 * Check all rectangles of a subtree that have a perpendicular distance
+     *  smaller than the k best points found until now.
+	 * @param left the first position of the subtree
+	 * @param right the last position of the subtree
+	 * @param d the dimension of the root of the subtree
+	 * @param target the target point
+	 * @param k the number of neighbors
+	 * @param heap the k best points found until now, as a max-heap
 	 */
-	private void findParent_knn(DoubleArray target, KDNode node, int d) {		
-		// If the node would be inserted in the branch "below"
-		if(target.data[d]  < node.values.data[d]){
+	private void nearest_knn(int left, int right, int d, double[] target, int k, NeighborList heap) {
+		while (left <= right) {
+			int node = (left + right) >>> 1;
+			// the squared distance of the farthest of the k best points
+			double maxSquaredDistance = heap.size() < k ? Double.POSITIVE_INFINITY : heap.getSquaredDistance(0);
+			double squaredDistance = squaredDistance(node, target, 0, maxSquaredDistance);
+			if (squaredDistance < maxSquaredDistance) {
+				heap.offer(pointIds[node], squaredDistance, k);
+			}
+			
+			double difference = target[d] - splitValues[node];
 			if (++d == dimensionCount) {
 				d = 0;
 			}
-			if(node.below == null){
-				tryToSave(node, target);
+			// first explore the side of the tree containing the target, and then the other side
+			// if it can contain a point closer than the k best points found until now
+			if (difference < 0) {
+				nearest_knn(left, node - 1, d, target, k, heap);
+				left = node + 1;
+			} else {
+				nearest_knn(node + 1, right, d, target, k, heap);
+				right = node - 1;
+			}
+			if (heap.size() == k && difference * difference >= heap.getSquaredDistance(0)) {
 				return;
 			}
-			tryToSave(node.below, target);
-			findParent_knn(target, node.below, d);
-		}
-		
-		// If the node would be inserted in the branch "above".
-		if(++d == dimensionCount) {
-			d = 0;
-		}
-		
-		if(node.above == null){
-			tryToSave(node, target);
-			return;
 		}
-		tryToSave(node.above, target);
-		findParent_knn(target, node.above, d);
 	}
 
+	//=====================================================================================
+	//======================= Methods to run a batch of queries =========================
+	//=====================================================================================
+	
 	/**
-	 * Method to try to save a node in the set of the current closest k neighbors. 
-	 * @param node  the node to be added.
-	 * @param target the target node.
+	 * Method to get the k nearest neighbors of several points. The queries can be
+	 * divided between several threads.
+	 * @param targetPoints the coordinates of the target points
+	 * @param k the number of neighbors
+	 * @param threadCount the number of threads
+	 * @return the k nearest neighbors of each target point, by increasing distance
 	 */
-	private void tryToSave(KDNode node, DoubleArray target) {
-		if(node == null){
-			return;
+	public NeighborList[] knearest(double[][] targetPoints, int k, int threadCount) {
+		return runQueries(targetPoints, k, 0, threadCount);
+	}
+	
+	/**
+	 * Method to get all the points within the radius of several points. The queries can be
+	 * divided between several threads.
+	 * @param targetPoints the coordinates of the target points
+	 * @param radius the radius
+	 * @param threadCount the number of threads
+	 * @return the points within the radius of each target point
+	 */
+	public NeighborList[] pointsWithinRadiusOf(double[][] targetPoints, double radius, int threadCount) {
+		return runQueries(targetPoints, 0, radius, threadCount);
+	}
+	
+	/**
+	 * Run a batch of k-nearest neighbor queries or radius queries.
+	 * @param targetPoints the coordinates of the target points
+	 * @param k the number of neighbors (or 0 for radius queries)
+	 * @param radius the radius
+	 * @param threadCount the number of threads
+	 * @return the result of each query
+	 */
+	private NeighborList[] runQueries(final double[][] targetPoints, final int k, final double radius, int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
 		}
-		double distance = distanceFunction.calculateDistance(target, node.values);
-		if(resultKNN.size() == k  && resultKNN.maximum().distance < distance){ 
-			return;
+		final NeighborList[] results = new NeighborList[targetPoints.length];
+		int partCount = Math.min(threadCount, targetPoints.length / MIN_QUERIES_PER_THREAD);
+		if (partCount <= 1) {
+			runQueries(targetPoints, k, radius, 0, targetPoints.length, results);
+			return results;
 		}
-		KNNPoint point = new KNNPoint(node.values, distance);
 		
-		if(resultKNN.contains(point)){
-			return;
+		// create a task for each part of the queries
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(partCount);
+		for (int part = 0; part < partCount; part++) {
+			final int start = (int) ((long) targetPoints.length * part / partCount);
+			final int end = (int) ((long) targetPoints.length * (part + 1) / partCount);
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					runQueries(targetPoints, k, radius, start, end, results);
+					return null;
+				}
+			});
 		}
-		
-		resultKNN.add(point);
-		
-		if(resultKNN.size() > k){
-			resultKNN.popMaximum();
+		ForkJoinPool pool = new ForkJoinPool(partCount);
+		try {
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The queries were interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
 		}
+		return results;
 	}
-
+	
 	/**
-	 * Start back at the root, and check all rectangles that have a perpendicular distance
-     *  smaller than the k best points found until now.
-	 * @param node  the current node
-	 * @param targetPoint the vector
+	 * Run a part of a batch of k-nearest neighbor queries or radius queries.
+	 * @param targetPoints the coordinates of the target points
+	 * @param k the number of neighbors (or 0 for radius queries)
+	 * @param radius the radius
+	 * @param start the first query of the part
+	 * @param end the query after the last query of the part
+	 * @param results the array where the result of each query is stored
 	 */
-	private void nearest_knn(KDNode node, DoubleArray targetPoint) {
-		tryToSave(node, targetPoint); 
-
-		
-		double perpendicularDistance = Math.abs(node.values.data[node.d] - targetPoint.data[node.d]);
-		if (perpendicularDistance < resultKNN.maximum().distance) { 
-			// explore the "above" and "below" branches.
-			if (node.above != null) {
-				nearest_knn(node.above, targetPoint);
-			}
-			if (node.below != null) {
-				nearest_knn(node.below, targetPoint);
-			}
-		} else {
-//			
-//			int dMinus1 = node.d-1;
-//			if(dMinus1 < 0){
-//				dMinus1 = dimensionCount - 1;
-//			}
-			// explore one side of the tree.
-			if (targetPoint.data[node.d] < node.values.data[node.d]) {
-				if (node.below != null) {
-					nearest_knn(node.below, targetPoint);
-				}
+	private void runQueries(double[][] targetPoints, int k, double radius, int start, int end, NeighborList[] results) {
+		for (int i = start; i < end; i++) {
+			NeighborList result = new NeighborList();
+			if (k > 0) {
+				knearest(targetPoints[i], k, result);
 			} else {
-				if (node.above != null) {
-					nearest_knn(node.above, targetPoint);
-				}
+				pointsWithinRadiusOf(targetPoints[i], radius, result);
 			}
+			results[i] = result;
 		}
 	}
 
-	// =========================== METHOD TO FIND POINTS WITHIN A RADIUS - used by DBSCAN =============================
+	// =========================== METHOD TO FIND POINTS WITHIN A RADIUS - used by DBSCAN and OPTICS ===================
+	
+	/**
+	 * Method to get all the points within the radius of a point of the tree, EXCEPT that point.
+	 * This method only reads the tree and can be called by several threads at the same time.
+	 * @param pointId the identifier of the point
+	 * @param radius the radius
+	 * @param result a list where the identifiers and squared distances of the points are added
+	 */
+	public void pointsWithinRadiusOf(int pointId, double radius, NeighborList result) {
+		if (nodeCount == 0){
+			return;
+		}
+		findPointsWithinRadius(0, nodeCount - 1, 0, coordinates, nodeOfPoint[pointId] * dimensionCount,
+				radius, radius * radius, pointId, result);
+	}
+	
+	/**
+	 * Method to get all the points within the radius of a given target point.
+	 * This method only reads the tree and can be called by several threads at the same time.
+	 * @param targetPoint the coordinates of the target point
+	 * @param radius the radius
+	 * @param result a list where the identifiers and squared distances of the points are added
+	 */
+	public void pointsWithinRadiusOf(double[] targetPoint, double radius, NeighborList result) {
+		if (nodeCount == 0){
+			return;
+		}
+		findPointsWithinRadius(0, nodeCount - 1, 0, targetPoint, 0, radius, radius * radius, -1, result);
+	}
+	
 	/**
 	 * Method to get all the points within the radius of a given target point, EXCEPT the target point!
 	 * @param the target point
-	 * @param bufferNeighboors a list where the points should be added should be provided to this method
 	 * return   the list of points
 	 */
 	public List<DoubleArray> pointsWithinRadiusOf(DoubleArray targetPoint, double radius) {
-		//////////////// DEBUG //////////////////////
-//		List<DoubleArray> result2 = new ArrayList<DoubleArray>();
-//		for(DoubleArray point : pointsDEBUG){
-//			double distance = distanceFunction.calculateDistance(targetPoint, point);
-//			if(distance <= radius){
-//				result2.add(point);
-//			}
-//		}
-		/////////////////////////////
 		List<DoubleArray> result = new ArrayList<DoubleArray>();
 		
-//		// return the points within the radius
+		// return the points within the radius
 		return pointsWithinRadiusOf(targetPoint, radius, result);
 	}
 	
-	
 	/**
 	 * Method to get all the points within the radius of a given target point, EXCEPT the target point!
 	 * @param targetPoint the target point
@@ -460,84 +527,27 @@ public class KDTree {
 	 * @return the list of points
 	 */
 	public List<DoubleArray> pointsWithinRadiusOf(DoubleArray targetPoint, double radius, List<DoubleArray> result) {
-		
-		if (root == null){
+		if (nodeCount == 0){
 			return null;
 		}
-
-		// start at the root, and check all rectangles that have a perpendicular distance
-		// smaller than the radius.
-		findPointsWithinRadius(root, targetPoint, result, radius);
-		
-//		// return the points within the radius
-		return result;
-	}
-	
-	/**
-	 * Start back at the root, and check all rectangles that have a perpendicular distance
-     *  smaller than the radius.
-	 * @param node  the current node
-	 * @param targetPoint the vector
-	 * @param result the set of points within the radius (to be filled by this method)
-	 * @param the radius
-	 */
-	private void findPointsWithinRadius(KDNode node, DoubleArray targetPoint, List<DoubleArray> result, double radius) {
-		// if it is the target point, we skip it because we don't want to return it
-		if(node.values != targetPoint) {
-			tryToSaveRadius(node, targetPoint, result, radius); 
-		}
-
-		double perpendicularDistance = Math.abs(node.values.data[node.d] - targetPoint.data[node.d]);
-		if (perpendicularDistance < radius) { 
-			// explore the "above" and "below" branches.
-			if (node.above != null) {
-				findPointsWithinRadius(node.above, targetPoint, result, radius);
-			}
-			if (node.below != null) {
-				findPointsWithinRadius(node.below, targetPoint, result, radius);
-			}
-		} else {
-
-			
-			// explore one side of the tree.
-			if (targetPoint.data[node.d] < node.values.data[node.d]) {
-				if (node.below != null) {
-					findPointsWithinRadius(node.below, targetPoint, result, radius);
-				}
-			} else {
-				if (node.above != null) {
-					findPointsWithinRadius(node.above, targetPoint, result, radius);
-				}
+		NeighborList neighbors = new NeighborList();
+		pointsWithinRadiusOf(targetPoint.data, radius, neighbors);
+		for (int i = 0; i < neighbors.size(); i++) {
+			DoubleArray point = getPoint(nodeOfPoint[neighbors.getPointId(i)]);
+			// if it is the target point, we skip it because we don't want to return it
+			if (point != targetPoint) {
+				result.add(point);
 			}
 		}
+		return result;
 	}
 	
-	/**
-	 * Method to try to save a node in the set of the current closest k neighbors. 
-	 * @param node  the node to be added.
-	 * @param target the target node.
-	 * @param the radius
-	 */
-	private void tryToSaveRadius(KDNode node, DoubleArray target, List<DoubleArray> result, double radius) {
-		if(node == null){
-			return;
-		}
-		double distance = distanceFunction.calculateDistance(target, node.values);
-		if(distance <= radius){ 
-			result.add(node.values);
-		}
-	}
-
-	/// ---------------------------------------------------------------------------------------------
-		
-	// =========================== METHOD TO FIND POINTS WITHIN A RADIUS AND KEEP THE DISTANCE - used by OPTICS =============================
-	
 	/**
 	 * Method to get all the points within the radius of a given target point, EXCEPT the target point,
 	 * and also get their distance to the target point!
 	 */
 	public List<KNNPoint> pointsWithinRadiusOfWithDistance(DoubleArray targetPoint, double radius) {
-		if (root == null){
+		if (nodeCount == 0){
 			return null;
 		}
 		List<KNNPoint> result = new ArrayList<KNNPoint>();
@@ -552,109 +562,90 @@ public class KDTree {
 	 * @param result an array list that will be used for storing the points that are found
 	 */
 	public List<KNNPoint> pointsWithinRadiusOfWithDistance(DoubleArray targetPoint, double radius, List<KNNPoint> result) {
-		if (root == null){
+		if (nodeCount == 0){
 			return null;
 		}
-		
-		// Now start back at the root, and check all rectangles that have a perpendicular distance
-		// smaller than the radius.
-		findPointsWithinRadiusWithDistance(root, targetPoint, result, radius);
-		
-		// return the points within the radius
+		NeighborList neighbors = new NeighborList();
+		pointsWithinRadiusOf(targetPoint.data, radius, neighbors);
+		for (int i = 0; i < neighbors.size(); i++) {
+			DoubleArray point = getPoint(nodeOfPoint[neighbors.getPointId(i)]);
+			// if it is the target point, we skip it because we don't want to return it
+			if (point != targetPoint) {
+				result.add(new KNNPoint(point, neighbors.getDistance(i)));
+			}
+		}
 		return result;
 	}
-	
 
 	/**
-	 * Start back at the root, and check all rectangles that have a perpendicular distance
+	 * Check all rectangles of a subtree that have a perpendicular distance
      *  smaller than the radius.
-	 * @param node  the current node
-	 * @param targetPoint the vector
-	 * @param result the set of points within the radius (to be filled by this method), and their distance to the target point!
-	 * @param the radius
+	 * @param left the first position of the subtree
+	 * @param right the last position of the subtree
+	 * @param d the dimension of the root of the subtree
+	 * @param target the coordinates of the target point
+	 * @param targetOffset the position of the first coordinate of the target point in "target"
+	 * @param radius the radius
+	 * @param squaredRadius the squared radius
+	 * @param excludedPointId the identifier of a point that should not be returned (or -1)
+	 * @param result the list of points within the radius (to be filled by this method)
 	 */
-	private void findPointsWithinRadiusWithDistance(KDNode node, DoubleArray targetPoint, List<KNNPoint> result, double radius) {
-		// if it is the target point, we skip it because we don't want to return it
-		if(node.values != targetPoint) {
-			tryToSaveRadiusWithDistance(node, targetPoint, result, radius); 
-		}
-
-		double perpendicularDistance = Math.abs(node.values.data[node.d] - targetPoint.data[node.d]);
-		if (perpendicularDistance < radius) { 
-			// explore the "above" and "below" branches.
-			if (node.above != null) {
-				findPointsWithinRadiusWithDistance(node.above, targetPoint, result, radius);
+	private void findPointsWithinRadius(int left, int right, int d, double[] target, int targetOffset,
+			double radius, double squaredRadius, int excludedPointId, NeighborList result) {
+		while (left <= right) {
+			int node = (left + right) >>> 1;
+			double squaredDistance = squaredDistance(node, target, targetOffset, squaredRadius);
+			if (squaredDistance <= squaredRadius && pointIds[node] != excludedPointId) {
+				result.add(pointIds[node], squaredDistance);
 			}
-			if (node.below != null) {
-				findPointsWithinRadiusWithDistance(node.below, targetPoint, result, radius);
+			
+			double difference = target[targetOffset + d] - splitValues[node];
+			if (++d == dimensionCount) {
+				d = 0;
 			}
-		} else {
-			// explore one side of the tree.
-			if (targetPoint.data[node.d] < node.values.data[node.d]) {
-				if (node.below != null) {
-					findPointsWithinRadiusWithDistance(node.below, targetPoint, result, radius);
-				}
+			// the points of the "below" branch are smaller or equal to the split value, and the points
+			// of the "above" branch are larger or equal. A branch is explored only if its perpendicular
+			// distance is not larger than the radius.
+			boolean exploreBelow = difference <= radius;
+			boolean exploreAbove = -difference <= radius;
+			if (exploreBelow && exploreAbove) {
+				findPointsWithinRadius(left, node - 1, d, target, targetOffset, radius, squaredRadius, excludedPointId, result);
+				left = node + 1;
+			} else if (exploreBelow) {
+				right = node - 1;
 			} else {
-				if (node.above != null) {
-					findPointsWithinRadiusWithDistance(node.above, targetPoint, result, radius);
-				}
-			}
-		}
-	}
-	
-	/**
-	 * Method to try to save a node in the set of the current closest k neighbors. 
-	 * @param node  the node to be added.
-	 * @param target the target node.
-	 * @param the radius
-	 */
-	private void tryToSaveRadiusWithDistance(KDNode node, DoubleArray target, List<KNNPoint> result, double radius) {
-		if(node != null){
-			double distance = distanceFunction.calculateDistance(target, node.values);
-			if(distance <= radius){ 
-				result.add(new KNNPoint(node.values, distance));
+				left = node + 1;
 			}
 		}
 	}
 
 	/// ---------------------------------------------------------------------------------------------
 		
-	
-	
-	/**
-	 * Convert a vector of double to a string representation
-	 * @param values  the vector
-	 * @return a string
-	 */
-	private String toString(double [] values){
-		StringBuilder buffer = new StringBuilder();
-		for(Double element : values ){
-			buffer.append(" " + element);
-		}
-		return buffer.toString();
-	}
-	
 	/**
 	 * Convert this tree to a string representation
 	 */
 	public String toString(){
-		return toString(root, " ");
+		return toString(0, nodeCount - 1, 0, " ");
 	}
 	
 	/**
 	 * Convert a substree to a string while using some indentation.
-	 * @param node the node
+	 * @param left the first position of the subtree
+	 * @param right the last position of the subtree
+	 * @param d the dimension of the root of the subtree
 	 * @param indent the current indentation
 	 * @return a string
 	 */
-	private String toString(KDNode node, String indent){
-		if(node == null){
+	private String toString(int left, int right, int d, String indent){
+		if(left > right){
 			return "";
 		}
+		int node = (left + right) >>> 1;
+		int nextD = (d + 1 == dimensionCount) ? 0 : d + 1;
 		String newIndent1 =  indent + "   |";
 		String newIndent2 =  indent + "   |";
-		return node.values + " (" + node.d +") \n" 
-				+ indent + toString(node.above, newIndent1) + "\n" 
-		        + indent + toString(node.below, newIndent2);
+		return getPoint(node) + " (" + d +") \n" 
+				+ indent + toString(node + 1, right, nextD, newIndent1) + "\n" 
+		        + indent + toString(left, node - 1, nextD, newIndent2);
 	}
 }
@@ -57,6 +57,18 @@ class MainTestKDTree_KNearestNeighbors {
 		RedBlackTree<KNNPoint> result = tree.knearest(query, k);
 		
 		System.out.println("THE K NEAREST NEIGHBOORS ARE : " + result.toString());	
+		
+		// Several queries can also be run at the same time by several threads (here 2 threads).
+		// Each neighbor is then identified by its position in the list of points.
+		double[][] queries = new double[][]{{4d,4d}, {8d,2d}};
+		NeighborList[] results = tree.knearest(queries, k, 2);
+		for(int i = 0; i < queries.length; i++) {
+			System.out.print("THE K NEAREST NEIGHBOORS OF" + toString(queries[i]) + " ARE : ");
+			for(int j = 0; j < results[i].size(); j++) {
+				System.out.print(points.get(results[i].getPointId(j)) + " ");
+			}
+			System.out.println();
+		}
 	}
 	
 	public static String toString(double [] values){
@@ -63,6 +63,17 @@ class MainTestKDTree_allPointsWithinEpsilonRadius {
 		for(DoubleArray point : result) {
 			System.out.println(" " + point);
 		}
+		
+		// Several queries can also be run at the same time by several threads (here 2 threads).
+		// Each point is then identified by its position in the list of points.
+		double[][] queries = new double[][]{{1d,0d}, {55d,54d}};
+		NeighborList[] results = tree.pointsWithinRadiusOf(queries, radius, 2);
+		for(int i = 0; i < queries.length; i++) {
+			System.out.println("THE POINTS WITHIN THE RADIUS OF" + toString(queries[i]) + " ARE : ");
+			for(int j = 0; j < results[i].size(); j++) {
+				System.out.println(" " + points.get(results[i].getPointId(j)) + " (distance: " + results[i].getDistance(j) + ")");
+			}
+		}
 	}
 	
 	public static String toString(double [] values){
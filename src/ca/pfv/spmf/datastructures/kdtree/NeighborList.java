@@ -0,0 +1,175 @@
+package ca.pfv.spmf.datastructures.kdtree;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.Arrays;
+
+/**
+ * This class is a list of points found by a query on a {@link KDTree}, where each point is
+ * represented by its identifier (its position in the list of points used to build the tree)
+ * and its squared distance to the query point. The list grows as needed and can be
+ * reused between queries to avoid creating new objects.
+ * <br/><br/>
+ * 
+ * During a k-nearest neighbor query, the list is used as a max-heap containing at most k points, 
+ * where the first point is the farthest one. At the end of the query, the points are sorted by
+ * increasing distance.
+ *
+ * @see KDTree
+ * @see EpsilonNeighborhoods
+ * @author Philippe Fournier-Viger
+ */
+public class NeighborList {
+
+	/** the identifiers of the points */
+	private int[] pointIds = new int[16];
+
+	/** the squared distance of each point to the query point */
+	private double[] squaredDistances = new double[16];
+
+	/** the number of points in the list */
+	private int size = 0;
+
+	/**
+	 * Add a point to this list
+	 * @param pointId the identifier of the point
+	 * @param squaredDistance its squared distance to the query point
+	 */
+	void add(int pointId, double squaredDistance) {
+		if(size == pointIds.length) {
+			pointIds = Arrays.copyOf(pointIds, size * 2);
+			squaredDistances = Arrays.copyOf(squaredDistances, size * 2);
+		}
+		pointIds[size] = pointId;
+		squaredDistances[size] = squaredDistance;
+		size++;
+	}
+
+	/**
+	 * Add a point to this list used as a max-heap of at most k points, where
+	 * the first point is the farthest. If the heap already has k points, the farthest
+	 * point is replaced (the new point must be closer than the farthest point).
+	 * @param pointId the identifier of the point
+	 * @param squaredDistance its squared distance to the query point
+	 * @param k the maximum number of points
+	 */
+	void offer(int pointId, double squaredDistance, int k) {
+		int position;
+		if(size < k) {
+			// add the point at the end and move it up
+			add(pointId, squaredDistance);
+			position = size - 1;
+			while(position > 0) {
+				int parent = (position - 1) >>> 1;
+				if(squaredDistances[parent] >= squaredDistance) {
+					break;
+				}
+				pointIds[position] = pointIds[parent];
+				squaredDistances[position] = squaredDistances[parent];
+				position = parent;
+			}
+			pointIds[position] = pointId;
+			squaredDistances[position] = squaredDistance;
+		}else {
+			// replace the farthest point and move the new point down
+			siftDown(pointId, squaredDistance, size);
+		}
+	}
+
+	/**
+	 * Put a point at the top of the heap and move it down to its place.
+	 * @param pointId the identifier of the point
+	 * @param squaredDistance its squared distance to the query point
+	 * @param heapSize the number of points of the heap
+	 */
+	private void siftDown(int pointId, double squaredDistance, int heapSize) {
+		int position = 0;
+		while(true) {
+			int child = 2 * position + 1;
+			if(child >= heapSize) {
+				break;
+			}
+			// choose the farthest child
+			if(child + 1 < heapSize && squaredDistances[child + 1] > squaredDistances[child]) {
+				child++;
+			}
+			if(squaredDistances[child] <= squaredDistance) {
+				break;
+			}
+			pointIds[position] = pointIds[child];
+			squaredDistances[position] = squaredDistances[child];
+			position = child;
+		}
+		pointIds[position] = pointId;
+		squaredDistances[position] = squaredDistance;
+	}
+
+	/**
+	 * Sort the points of this list used as a max-heap by increasing distance (heapsort).
+	 */
+	void sortHeap() {
+		for(int end = size - 1; end > 0; end--) {
+			// move the farthest point to the end
+			int pointId = pointIds[end];
+			double squaredDistance = squaredDistances[end];
+			pointIds[end] = pointIds[0];
+			squaredDistances[end] = squaredDistances[0];
+			siftDown(pointId, squaredDistance, end);
+		}
+	}
+
+	/**
+	 * Remove all the points from this list
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Get the number of points in this list
+	 * @return the number of points
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the identifier of a point of this list
+	 * @param i the position of the point in this list
+	 * @return the identifier of the point
+	 */
+	public int getPointId(int i) {
+		return pointIds[i];
+	}
+
+	/**
+	 * Get the squared distance of a point of this list to the query point
+	 * @param i the position of the point in this list
+	 * @return the squared distance
+	 */
+	public double getSquaredDistance(int i) {
+		return squaredDistances[i];
+	}
+
+	/**
+	 * Get the distance of a point of this list to the query point
+	 * @param i the position of the point in this list
+	 * @return the distance
+	 */
+	public double getDistance(int i) {
+		return Math.sqrt(squaredDistances[i]);
+	}
+}
@@ -0,0 +1,100 @@
+package ca.pfv.spmf.datastructures.sidlists;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.Arrays;
+
+/**
+ * This class stores the occurrences of each item of a sequence database (see {@link OccurrenceList}),
+ * so that they can be calculated in a single database scan. The lists are stored in an array
+ * where the i-th position contains the list of the item i. Thus, items must be integers that are not negative.
+ * <br/><br/>
+ *
+ * The occurrences must be added by scanning the sequences by increasing order of sequence ID
+ * and the itemsets of each sequence by increasing order of position.
+ *
+ * @see OccurrenceList
+ * @see PositionList
+ * @author Philippe Fournier-Viger
+ */
+public class ItemOccurrenceIndex {
+
+	/** the list of occurrences of each item (null if the item was not seen) */
+	private OccurrenceList[] lists = new OccurrenceList[64];
+
+	/** if true, all the positions of the occurrences are kept (see PositionList) */
+	private final boolean keepAllPositions;
+
+	/** the largest item seen until now */
+	private int maxItem = -1;
+
+	/**
+	 * Constructor
+	 * @param keepAllPositions if true, the positions of all the occurrences are stored
+	 *        (see {@link PositionList}), otherwise only the first and last positions.
+	 */
+	public ItemOccurrenceIndex(boolean keepAllPositions) {
+		this.keepAllPositions = keepAllPositions;
+	}
+
+	/**
+	 * Add an occurrence of an item
+	 * @param item the item
+	 * @param sid the ID of the sequence containing the item
+	 * @param position the position of the itemset containing the item in that sequence
+	 */
+	public void addOccurrence(int item, int sid, short position) {
+		if(item >= lists.length) {
+			lists = Arrays.copyOf(lists, Math.max(item + 1, lists.length * 2));
+		}
+		OccurrenceList list = lists[item];
+		if(list == null) {
+			list = keepAllPositions ? new PositionList() : new OccurrenceList();
+			lists[item] = list;
+			if(item > maxItem) {
+				maxItem = item;
+			}
+		}
+		list.addOccurrence(sid, position);
+	}
+
+	/**
+	 * Get the occurrences of an item
+	 * @param item the item
+	 * @return the list of occurrences or null if the item does not appear in the database
+	 */
+	public OccurrenceList get(int item) {
+		return item < lists.length ? lists[item] : null;
+	}
+
+	/**
+	 * Get the support of an item (the number of sequences containing it)
+	 * @param item the item
+	 * @return the support
+	 */
+	public int getSupport(int item) {
+		OccurrenceList list = get(item);
+		return list == null ? 0 : list.size();
+	}
+
+	/**
+	 * Get the largest item
+	 * @return the largest item or -1 if no occurrence was added
+	 */
+	public int getMaxItem() {
+		return maxItem;
+	}
+}
@@ -0,0 +1,126 @@
+package ca.pfv.spmf.datastructures.sidlists;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.Arrays;
+
+import ca.pfv.spmf.algorithms.sequential_rules.rulegrowth.AlgoERMiner;
+import ca.pfv.spmf.algorithms.sequential_rules.rulegrowth.AlgoRULEGROWTH;
+import ca.pfv.spmf.algorithms.sequential_rules.topseqrules_and_tns.AlgoTopSeqRules;
+
+/**
+ * This class represents the sequences containing an item or an itemset, and for each
+ * sequence, the positions of the first and last itemsets where it appears, as used by
+ * RuleGrowth, ERMiner and TopSeqRules.
+ * <br/><br/>
+ *
+ * It is a list of sequence IDs (see {@link SidList}) where the first and last positions
+ * are stored in two arrays of short that are parallel to the array of sequence IDs. Thus,
+ * the occurrences of an item in a sequence do not require any object, and this list can be
+ * directly used as the tidset of the item.
+ * <br/><br/>
+ *
+ * For an itemset of several items, an algorithm may only use one of the two positions
+ * (e.g. the last position of the consequent of a rule).
+ *
+ * @see SidList
+ * @see ItemOccurrenceIndex
+ * @see AlgoRULEGROWTH
+ * @see AlgoERMiner
+ * @see AlgoTopSeqRules
+ * @author Philippe Fournier-Viger
+ */
+public class OccurrenceList extends SidList {
+
+	/** the position of the first itemset containing the item, for each sequence of the list */
+	protected short[] first;
+
+	/** the position of the last itemset containing the item, for each sequence of the list */
+	protected short[] last;
+
+	/**
+	 * Constructor of an empty list
+	 */
+	public OccurrenceList() {
+		this(8);
+	}
+
+	/**
+	 * Constructor of an empty list
+	 * @param capacity the expected number of sequences
+	 */
+	public OccurrenceList(int capacity) {
+		super(capacity);
+		first = new short[sids.length];
+		last = new short[sids.length];
+	}
+
+	/**
+	 * Add a sequence at the end of this list. Its sequence ID must be larger than the last
+	 * sequence ID of the list.
+	 * @param sid the sequence ID
+	 * @param firstPosition the position of the first itemset of that sequence containing the item
+	 * @param lastPosition the position of the last itemset of that sequence containing the item
+	 */
+	public void add(int sid, short firstPosition, short lastPosition) {
+		if(size == sids.length) {
+			grow(size * 2);
+		}
+		sids[size] = sid;
+		first[size] = firstPosition;
+		last[size] = lastPosition;
+		size++;
+	}
+
+	/**
+	 * Add an occurrence of the item. The occurrences must be added by increasing order of sequence ID,
+	 * and then by increasing order of position (e.g. by scanning a sequence database).
+	 * @param sid the sequence ID
+	 * @param position the position of an itemset of that sequence containing the item
+	 */
+	public void addOccurrence(int sid, short position) {
+		if(size > 0 && sids[size - 1] == sid) {
+			last[size - 1] = position;
+		}else {
+			add(sid, position, position);
+		}
+	}
+
+	@Override
+	protected void grow(int capacity) {
+		super.grow(capacity);
+		first = Arrays.copyOf(first, capacity);
+		last = Arrays.copyOf(last, capacity);
+	}
+
+	/**
+	 * Get the position of the first itemset containing the item in a sequence
+	 * @param index the position of the sequence in this list
+	 * @return the position of the itemset
+	 */
+	public short getFirst(int index) {
+		return first[index];
+	}
+
+	/**
+	 * Get the position of the last itemset containing the item in a sequence
+	 * @param index the position of the sequence in this list
+	 * @return the position of the itemset
+	 */
+	public short getLast(int index) {
+		return last[index];
+	}
+}
@@ -0,0 +1,202 @@
+package ca.pfv.spmf.datastructures.sidlists;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.Arrays;
+
+import ca.pfv.spmf.algorithms.sequential_rules.rulegrowth.AlgoERMiner;
+
+/**
+ * This class counts the number of times that pairs of items appear together (e.g. in the
+ * same sequence), as done by the sparse matrix of the ERMiner algorithm.
+ * <br/><br/>
+ *
+ * The counts are stored in a hash table with open addressing, where the key of a pair of items i and j
+ * is the long value (i &lt;&lt; 32 | j), and the keys and the counts are stored in two parallel
+ * arrays. Thus, counting a pair does not create any object. Items must be integers that
+ * are not negative.
+ * <br/><br/>
+ *
+ * The pairs can be read by iterating over the slots of the table, from 0 to getSlotCount() - 1,
+ * and skipping the slots where isUsed() returns false.
+ *
+ * @see AlgoERMiner
+ * @author Philippe Fournier-Viger
+ */
+public class PairCounter {
+
+	/** the key of an empty slot */
+	private static final long EMPTY = -1L;
+
+	/** the keys of the pairs in the table */
+	private long[] keys;
+
+	/** the count of the pair of each slot */
+	private int[] counts;
+
+	/** the number of pairs */
+	private int size;
+
+	/**
+	 * Constructor
+	 */
+	public PairCounter() {
+		this(1024);
+	}
+
+	/**
+	 * Constructor
+	 * @param expectedPairCount the expected number of pairs
+	 */
+	public PairCounter(int expectedPairCount) {
+		int capacity = 16;
+		// the table is kept at most half full
+		while(capacity < expectedPairCount * 2) {
+			capacity <<= 1;
+		}
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		counts = new int[capacity];
+	}
+
+	/**
+	 * Increase the count of a pair of items by 1
+	 * @param i the first item
+	 * @param j the second item
+	 */
+	public void increment(int i, int j) {
+		long key = key(i, j);
+		int slot = findSlot(keys, key);
+		if(keys[slot] == EMPTY) {
+			keys[slot] = key;
+			size++;
+			if(size * 2 > keys.length) {
+				counts[slot] = 1;
+				resize();
+				return;
+			}
+		}
+		counts[slot]++;
+	}
+
+	/**
+	 * Get the count of a pair of items
+	 * @param i the first item
+	 * @param j the second item
+	 * @return the count (0 if the pair was never counted)
+	 */
+	public int getCount(int i, int j) {
+		int slot = findSlot(keys, key(i, j));
+		return counts[slot];
+	}
+
+	/**
+	 * Get the number of different pairs that were counted
+	 * @return the number of pairs
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the number of slots of the table
+	 * @return the number of slots
+	 */
+	public int getSlotCount() {
+		return keys.length;
+	}
+
+	/**
+	 * Check if a slot of the table contains a pair
+	 * @param slot the slot
+	 * @return true if it contains a pair
+	 */
+	public boolean isUsed(int slot) {
+		return keys[slot] != EMPTY;
+	}
+
+	/**
+	 * Get the first item of the pair of a slot
+	 * @param slot the slot
+	 * @return the item
+	 */
+	public int getFirstItem(int slot) {
+		return (int) (keys[slot] >>> 32);
+	}
+
+	/**
+	 * Get the second item of the pair of a slot
+	 * @param slot the slot
+	 * @return the item
+	 */
+	public int getSecondItem(int slot) {
+		return (int) keys[slot];
+	}
+
+	/**
+	 * Get the count of the pair of a slot
+	 * @param slot the slot
+	 * @return the count
+	 */
+	public int getCount(int slot) {
+		return counts[slot];
+	}
+
+	/**
+	 * Get the key of a pair of items
+	 * @param i the first item
+	 * @param j the second item
+	 * @return the key
+	 */
+	private static long key(int i, int j) {
+		return ((long) i << 32) | (j & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Find the slot of a key, or the empty slot where it should be inserted (linear probing)
+	 * @param table the keys of the table
+	 * @param key the key
+	 * @return the slot
+	 */
+	private static int findSlot(long[] table, long key) {
+		int mask = table.length - 1;
+		// spread the bits of the two items before taking the lowest bits
+		long hash = key * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash >>> 32) & mask;
+		while(table[slot] != EMPTY && table[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Double the size of the table
+	 */
+	private void resize() {
+		long[] oldKeys = keys;
+		int[] oldCounts = counts;
+		keys = new long[oldKeys.length * 2];
+		Arrays.fill(keys, EMPTY);
+		counts = new int[keys.length];
+		for(int slot = 0; slot < oldKeys.length; slot++) {
+			if(oldKeys[slot] != EMPTY) {
+				int newSlot = findSlot(keys, oldKeys[slot]);
+				keys[newSlot] = oldKeys[slot];
+				counts[newSlot] = oldCounts[slot];
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package ca.pfv.spmf.datastructures.sidlists;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.Arrays;
+
+import ca.pfv.spmf.algorithms.sequential_rules.trulegrowth.AlgoTRuleGrowth;
+
+/**
+ * This class represents the sequences containing an item, and for each sequence, the
+ * positions of all the itemsets containing the item, as used by the TRuleGrowth algorithm,
+ * which needs all the occurrences of items to check the window size constraint.
+ * <br/><br/>
+ *
+ * It extends {@link OccurrenceList} with the positions of all the occurrences. The positions
+ * of all sequences are stored one after the other in a single array of short, and
+ * the i-th sequence of the list has the positions from start[i] to start[i+1] - 1.
+ *
+ * @see OccurrenceList
+ * @see ItemOccurrenceIndex
+ * @see AlgoTRuleGrowth
+ * @author Philippe Fournier-Viger
+ */
+public class PositionList extends OccurrenceList {
+
+	/** the positions of the occurrences of all the sequences of this list */
+	private short[] positions = new short[8];
+
+	/** the number of positions */
+	private int positionCount;
+
+	/** for each sequence of this list, the index of its first position in the array "positions" */
+	private int[] start;
+
+	/**
+	 * Constructor of an empty list
+	 */
+	public PositionList() {
+		super();
+		start = new int[sids.length];
+	}
+
+	@Override
+	public void addOccurrence(int sid, short position) {
+		if(size == 0 || sids[size - 1] != sid) {
+			// this is a new sequence
+			add(sid, position, position);
+			start[size - 1] = positionCount;
+		}else {
+			last[size - 1] = position;
+		}
+		if(positionCount == positions.length) {
+			positions = Arrays.copyOf(positions, positionCount * 2);
+		}
+		positions[positionCount++] = position;
+	}
+
+	@Override
+	protected void grow(int capacity) {
+		super.grow(capacity);
+		start = Arrays.copyOf(start, capacity);
+	}
+
+	/**
+	 * Get the number of occurrences of the item in a sequence
+	 * @param index the position of the sequence in this list
+	 * @return the number of occurrences
+	 */
+	public int getOccurrenceCount(int index) {
+		int end = index + 1 < size ? start[index + 1] : positionCount;
+		return end - start[index];
+	}
+
+	/**
+	 * Get the position of an occurrence of the item in a sequence
+	 * @param index the position of the sequence in this list
+	 * @param occurrence the occurrence (0 for the first occurrence, 1 for the second...)
+	 * @return the position of the itemset containing the item
+	 */
+	public short getPosition(int index, int occurrence) {
+		return positions[start[index] + occurrence];
+	}
+}
@@ -0,0 +1,256 @@
+package ca.pfv.spmf.datastructures.sidlists;
+/* This file is copyright (c) 2008-2013 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import ca.pfv.spmf.algorithms.sequential_rules.cmrules.AlgoCMRules;
+import ca.pfv.spmf.algorithms.sequential_rules.rulegrowth.AlgoERMiner;
+import ca.pfv.spmf.algorithms.sequential_rules.rulegrowth.AlgoRULEGROWTH;
+
+/**
+ * This class represents a list of sequence IDs (a tidset), as used by sequential rule mining
+ * algorithms such as RuleGrowth, ERMiner, TRuleGrowth, CMRules and TopSeqRules.
+ * <br/><br/>
+ *
+ * The sequence IDs are stored in a plain array of int, sorted by increasing order. Thus, a
+ * list uses much less memory than a set of Integer objects, and two lists can be intersected
+ * by a single pass over the smallest list, where the sequence IDs of the largest list are found
+ * by a galloping search starting from the position of the previous sequence ID.
+ * <br/><br/>
+ *
+ * A list is built by adding sequence IDs by increasing order. Adding the last sequence ID of the
+ * list again has no effect, so that a list can be filled by scanning the sequences of a database
+ * one after the other.
+ *
+ * @see OccurrenceList
+ * @see AlgoRULEGROWTH
+ * @see AlgoERMiner
+ * @see AlgoCMRules
+ * @author Philippe Fournier-Viger
+ */
+public class SidList {
+
+	/** the sequence IDs, sorted by increasing order (only the first "size" positions are used) */
+	protected int[] sids;
+
+	/** the number of sequence IDs in this list */
+	protected int size;
+
+	/**
+	 * Constructor of an empty list
+	 */
+	public SidList() {
+		this(8);
+	}
+
+	/**
+	 * Constructor of an empty list
+	 * @param capacity the expected number of sequence IDs
+	 */
+	public SidList(int capacity) {
+		sids = new int[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Add a sequence ID at the end of this list. It must be larger or equal to the
+	 * last sequence ID of the list. If it is equal, the list is not modified.
+	 * @param sid the sequence ID
+	 */
+	public void add(int sid) {
+		if(size > 0 && sids[size - 1] == sid) {
+			return;
+		}
+		if(size == sids.length) {
+			grow(size * 2);
+		}
+		sids[size++] = sid;
+	}
+
+	/**
+	 * Increase the capacity of this list
+	 * @param capacity the new capacity
+	 */
+	protected void grow(int capacity) {
+		sids = Arrays.copyOf(sids, capacity);
+	}
+
+	/**
+	 * Reduce the memory used by this list to the memory needed for its sequence IDs
+	 */
+	public void trimToSize() {
+		if(size < sids.length) {
+			grow(Math.max(1, size));
+		}
+	}
+
+	/**
+	 * Get the number of sequence IDs (e.g. the support of an itemset or a rule)
+	 * @return the number of sequence IDs
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get a sequence ID
+	 * @param index the position of the sequence ID in this list
+	 * @return the sequence ID
+	 */
+	public int get(int index) {
+		return sids[index];
+	}
+
+	/**
+	 * Check if this list contains a sequence ID
+	 * @param sid the sequence ID
+	 * @return true if it is in this list
+	 */
+	public boolean contains(int sid) {
+		return search(sid, 0) >= 0;
+	}
+
+	/**
+	 * Search a sequence ID in this list, starting from a given position. Since the
+	 * search first looks at the positions fromIndex, fromIndex + 1, fromIndex + 3, fromIndex + 7...
+	 * (galloping search), it is fast when the sequence ID is close to that position. Thus, the
+	 * sequence IDs of another list can be found one after the other by starting each search
+	 * from the position of the previous sequence ID.
+	 * @param sid the sequence ID
+	 * @param fromIndex the position where the search starts (the sequence ID must not be before it)
+	 * @return the position of the sequence ID if it is in the list. Otherwise, (-(insertion point) - 1),
+	 *     where the insertion point is the position of the first sequence ID that is larger
+	 *     (or the size of the list), as in Arrays.binarySearch()
+	 */
+	public int search(int sid, int fromIndex) {
+		// galloping search for a range of positions that contains the sequence ID
+		int low = fromIndex;
+		int high = fromIndex;
+		int step = 1;
+		while(high < size && sids[high] < sid) {
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		if(high >= size) {
+			high = size - 1;
+		}
+		// binary search in that range
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			int middleSid = sids[middle];
+			if(middleSid < sid) {
+				low = middle + 1;
+			}else if(middleSid > sid) {
+				high = middle - 1;
+			}else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Calculate the intersection of two lists. The calculation is stopped as soon as
+	 * the intersection cannot have at least a given number of sequence IDs.
+	 * @param listA a list
+	 * @param listB another list
+	 * @param minSize the minimum number of sequence IDs of the intersection (e.g. the minimum support)
+	 * @return the intersection, or null if it has less than minSize sequence IDs
+	 */
+	public static SidList intersect(SidList listA, SidList listB, int minSize) {
+		// we iterate over the smallest list and search in the largest list
+		if(listA.size > listB.size) {
+			SidList temp = listA;
+			listA = listB;
+			listB = temp;
+		}
+		if(listA.size < minSize) {
+			return null;
+		}
+		SidList result = new SidList(listA.size);
+		int position = 0;
+		for(int i = 0; i < listA.size && position < listB.size; i++) {
+			int sid = listA.sids[i];
+			int found = listB.search(sid, position);
+			if(found >= 0) {
+				result.sids[result.size++] = sid;
+				position = found + 1;
+			}else {
+				position = -found - 1;
+				// stop if the intersection cannot reach the minimum size anymore
+				if(result.size + listA.size - i - 1 < minSize) {
+					return null;
+				}
+			}
+		}
+		return result.size < minSize ? null : result;
+	}
+
+	/**
+	 * Get a read-only view of this list as a set of Integer, for code that stores
+	 * tidsets as sets (e.g. the itemsets of the package itemset_array_integers_with_tids).
+	 * The view uses the memory of this list and does not copy the sequence IDs.
+	 * @return the view
+	 */
+	public Set<Integer> asSet() {
+		return new AbstractSet<Integer>() {
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				return o instanceof Integer && SidList.this.contains((Integer) o);
+			}
+
+			@Override
+			public Iterator<Integer> iterator() {
+				return new Iterator<Integer>() {
+					int index = 0;
+
+					public boolean hasNext() {
+						return index < size;
+					}
+
+					public Integer next() {
+						if(index >= size) {
+							throw new NoSuchElementException();
+						}
+						return sids[index++];
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Get a string representation of this list
+	 * @return a string
+	 */
+	public String toString() {
+		return Arrays.toString(Arrays.copyOf(sids, size));
+	}
+}
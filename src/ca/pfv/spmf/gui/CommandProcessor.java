@@ -29,6 +29,10 @@ import java.util.Map;
 import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfParameter;
+import ca.pfv.spmf.input.SPMFBinaryDataset;
+import ca.pfv.spmf.tools.MiningCancelledException;
+import ca.pfv.spmf.tools.MiningContext;
+import ca.pfv.spmf.tools.dataset_converter.BinaryDatasetConverter;
 import ca.pfv.spmf.tools.dataset_converter.SequenceDatabaseConverter;
 import ca.pfv.spmf.tools.dataset_converter.TransactionDatabaseConverter;
 import ca.pfv.spmf.tools.resultConverter.ResultConverter;
@@ -57,6 +61,27 @@ public class CommandProcessor {
 	 */
 	public static void runAlgorithm(String algorithmName,
 			String inputFile, String outputFile, String[] parameters) throws Exception {
+		runAlgorithm(algorithmName, inputFile, outputFile, parameters, null);
+	}
+
+	/**
+	 * This method run an algorithm with a mining context, which can be used to stop
+	 * the algorithm and to follow its progress (if the algorithm supports it).
+	 * 
+	 * @param algorithmName
+	 *            the name of the algorithm
+	 * @param inputFile
+	 *            the input file for the algorithm
+	 * @param outputFile
+	 *            the output file for the algorithm
+	 * @param parameters
+	 *            the parameters of the algorithm
+	 * @param context
+	 *            the mining context or null if none
+	 * @throws Exception if sometimes bad occurs (a MiningCancelledException if the algorithm was stopped)
+	 */
+	public static void runAlgorithm(String algorithmName,
+			String inputFile, String outputFile, String[] parameters, MiningContext context) throws Exception {
 
 		// **** CHECK IF ARFF AS INPUT FILE *****
 		// FIRST WE WILL CHECK IF IT IS AN ARFF FILE...
@@ -155,8 +180,21 @@ public class CommandProcessor {
 		}
 		
 		
+		// ***********  PRE-PROCESSING IF THE FILE IS IN BINARY FORMAT  **********
+		boolean isBinaryInput = inputFile != null && SPMFBinaryDataset.isBinaryDataset(inputFile);
+		String temporaryTextFile = null;
+		// If the algorithm cannot read the binary format, the file is converted to a temporary file in SPMF format
+		if(isBinaryInput && algorithm.isBinaryInputSupported() == false) {
+			System.out.println("Converting binary file to SPMF format.");
+			temporaryTextFile = inputFile + ".tmp";
+			BinaryDatasetConverter converter = new BinaryDatasetConverter();
+			converter.convertToText(inputFile, temporaryTextFile);
+			inputFile = temporaryTextFile;
+			System.out.println("Conversion completed.");
+		}
 
-		if(algorithmName.startsWith("Convert") == false && inputFile != null) {
+		// a binary file does not contain metadata and cannot be an ARFF or TEXT file
+		if(algorithmName.startsWith("Convert") == false && inputFile != null && isBinaryInput == false) {
 			
 			// ***********  PRE-PROCESSING IF THE FILE WAS A PREVIOUSLY CONVERTED FILE  **********
 			// Check if the file was already converted.
@@ -241,7 +279,24 @@ public class CommandProcessor {
 		}
 
 		// ******  WE  APPLY THE DESIRED ALGORITHM ******
-		algorithm.runAlgorithm(parameters, inputFile, outputFile);
+		// If the algorithm is stopped, its output file contains the patterns found until then.
+		// This file is post-processed as usual and the exception is thrown afterward.
+		MiningCancelledException cancellation = null;
+		try {
+			if(context != null) {
+				algorithm.runAlgorithm(parameters, inputFile, outputFile, context);
+			}else {
+				algorithm.runAlgorithm(parameters, inputFile, outputFile);
+			}
+		}catch(MiningCancelledException e) {
+			cancellation = e;
+		}finally {
+			// delete the temporary file created from a binary file
+			if(temporaryTextFile != null) {
+				File file = new File(temporaryTextFile);
+				file.delete();
+			}
+		}
 		
 		
 		// ***********  POST-PROCESSING IF THE FILE WAS AN ARFF or TEXT FILE  **********
@@ -253,23 +308,34 @@ public class CommandProcessor {
 			// Get the prefered charset for this user
 			Charset charset = PreferencesManager.getInstance().getPreferedCharset();
 			
-			ResultConverter converter = new ResultConverter();
-			System.out.println("Post-processing to show result in terms of string values.");
-			converter.convert(mapItemToString, outputFile, originalOutputFile, charset);
-			System.out.println("Post-processing completed.");
-			// delete the temporary files
-			// System.out.println("Delete : " + outputFile);
 			File file = new File(outputFile);
-			file.delete();
-			// System.out.println("Delete : " + inputFile);
-			if(inputFile.equals(originalInputFile) == false){
-				File file2 = new File(inputFile);
-				file2.delete();
+			try {
+				// (a stopped algorithm may not have created its output file)
+				if(cancellation == null || file.exists()) {
+					ResultConverter converter = new ResultConverter();
+					System.out.println("Post-processing to show result in terms of string values.");
+					converter.convert(mapItemToString, outputFile, originalOutputFile, charset);
+					System.out.println("Post-processing completed.");
+				}
+			}finally {
+				// delete the temporary files
+				// System.out.println("Delete : " + outputFile);
+				file.delete();
+				// System.out.println("Delete : " + inputFile);
+				if(inputFile.equals(originalInputFile) == false){
+					File file2 = new File(inputFile);
+					file2.delete();
+				}
 			}
 			// set the original outputFile and inputFile
 			outputFile = originalOutputFile;
 			inputFile = originalInputFile;
 		}
+		
+		// If the algorithm was stopped, the caller is informed
+		if(cancellation != null) {
+			throw cancellation;
+		}
 	}
 	
 	/**
@@ -21,6 +21,8 @@ import java.lang.reflect.Method;
 
 import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
 import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.tools.MiningCancelledException;
+import ca.pfv.spmf.tools.MiningContext;
 
 /**
  * This is a simple user interface to run the main algorithms in SPMF.
@@ -68,6 +70,8 @@ public class Main {
     public static void processCommandLineArguments(String[] args) {
         //java -Xmx1024m -jar spmfGUIv090b.jar run PrefixSpan /home/ph/Bureau/contextPrefixSpan.txt /home/ph/Bureau/test3.txt 60%
         //java -Xmx1024m -jar spmfGUIv090b.jar run PrefixSpan contextPrefixSpan.txt test3.txt 60%
+        //java -Xmx1024m -jar spmfGUIv090b.jar run --timeout=60 PrefixSpan contextPrefixSpan.txt test3.txt 60%
+        //   (if the time limit is reached, the output file is partial and the exit status is 2)
 //		System.out.println(" \n\n-- SPMF version " + SPMF_VERSION + " --\n\n");
 
         // "version" --> show the current version
@@ -79,21 +83,41 @@ public class Main {
         } //"run" -->  the user wants to run an algorithm
         else if ("run".equals(args[0])) {
         	
+        	// the mining context used to stop the algorithm if the user gives a time limit
+        	MiningContext context = null;
+        	// true if the algorithm was stopped because the time limit was reached
+        	boolean timeLimitReached = false;
         	
             try {
             	
 	            // We get the parameters :
 	            String algoName = null;
 	            
-	            if(args.length > 1){
-	            	algoName= args[1]; // algorithm name
+	            // the position of the algorithm name
+	            int i = 1;
+	            
+	            // if the user gives a time limit in seconds (e.g. --timeout=60), a mining context
+	            // is used to stop the algorithm when it is reached
+	            if(args.length > i && args[i].startsWith("--timeout=")){
+	            	long timeout = Long.parseLong(args[i].substring("--timeout=".length()));
+	            	context = new MiningContext();
+	            	context.setTimeout(timeout * 1000);
+	            	i++;
+	            }
+	            
+	            if(args.length > i){
+	            	algoName= args[i]; // algorithm name
 	            }
 	            
 	            // Get the description of the algorithm
 	            DescriptionOfAlgorithm description = AlgorithmManager.getInstance().getDescriptionOfAlgorithm(algoName);
+	            
+	            if(context != null && description != null && description.isCancellationSupported() == false){
+	            	System.out.println("Warning: the algorithm " + algoName + " cannot be stopped. The time limit will be ignored.");
+	            }
 	
-	            // the next argument is 2
-	            int i = 2;
+	            // the next argument is after the algorithm name
+	            i++;
 	            
 	            String input = null;
 	            if(description.getInputFileTypes() != null){
@@ -125,13 +149,26 @@ public class Main {
 	            }
 	            
 	            // run the algorithm:
-            	CommandProcessor.runAlgorithm(algoName, input, output, parameters);
+            	CommandProcessor.runAlgorithm(algoName, input, output, parameters, context);
+            }catch (MiningCancelledException e) {
+            	timeLimitReached = true;
+            	System.out.println("The time limit was reached. The algorithm was stopped and the output file contains "
+            			+ "the patterns found until then. \n " + context);
             }catch (NumberFormatException e) {
                 System.out.println("Error. Please check the parameters of the algorithm.  The format for numbers is incorrect. \n"
                         + "\n ERROR MESSAGE = " + e.toString());
             } catch (Throwable e) {
             	System.out.println("An error while trying to run the algorithm. \n ERROR MESSAGE = " + e.toString());
                 e.printStackTrace();
+            } finally {
+            	// the time limit is not needed anymore
+            	if(context != null) {
+            		context.removeDeadline();
+            	}
+            }
+            // a distinct exit status lets the caller know that the output is incomplete
+            if(timeLimitReached) {
+            	System.exit(2);
             }
         } // "test" --> this is to run a test file (for developers only).
         else if ("test".equals(args[0])) {
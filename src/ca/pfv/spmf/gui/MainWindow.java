@@ -48,6 +48,7 @@ import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 
 import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
@@ -59,6 +60,8 @@ import ca.pfv.spmf.algorithms.timeseries.reader_writer.AlgoTimeSeriesReader;
 import ca.pfv.spmf.gui.patternvizualizer.PatternVizualizer;
 import ca.pfv.spmf.gui.timeseriesviewer.TimeSeriesViewer;
 import ca.pfv.spmf.test.MainTestApriori_saveToFile;
+import ca.pfv.spmf.tools.MiningCancelledException;
+import ca.pfv.spmf.tools.MiningContext;
 
 /**
  * This class is the user interface of SPMF (the main Window).
@@ -114,7 +117,13 @@ public class MainWindow extends JFrame implements ThreadCompleteListener, Uncaug
     
     //  VARIABLES USED TO RUN AN ALGORITHM IN A SEPARATED THREAD
     // The current data mining task
-    private static NotifyingThread currentRunningAlgorithmThread = null;
+    private static volatile NotifyingThread currentRunningAlgorithmThread = null;
+    // The mining context used to stop the current data mining task and follow its progress
+    private static MiningContext currentMiningContext = null;
+    // The description of the algorithm of the current data mining task
+    private static DescriptionOfAlgorithm currentAlgorithmDescription = null;
+    // The timer that shows the progress of the current data mining task
+    private Timer progressTimer = null;
 	private JCheckBox checkboxOpenOutputPatternViewer;
 	private JCheckBox checkboxOpenOutputTimeSeriesViewer;
 	private JLabel lblOpenOutputFile;
@@ -766,6 +775,10 @@ public class MainWindow extends JFrame implements ThreadCompleteListener, Uncaug
 	 */
 	@Override
 	public void notifyOfThreadComplete(Thread thread, boolean succeed) {
+		// If the user has stopped this algorithm, we ignore it
+		if(thread != currentRunningAlgorithmThread) {
+			return;
+		}
 		
 		// IF - the algorithm terminates... and there is an output file
 		if (succeed  && lblSetOutputFile.isVisible()){
@@ -891,10 +904,51 @@ public class MainWindow extends JFrame implements ThreadCompleteListener, Uncaug
 		}
 
 		buttonRun.setText("Run algorithm");
-        progressBar.setIndeterminate(false);
+        stopShowingProgress();
         comboBox.setEnabled(true);
 	}
 	
+	/**
+	 * Start showing the progress of the current data mining task in the progress bar
+	 * (the number of patterns found and the fraction of the work done, if the algorithm
+	 * reports it)
+	 */
+	private void startShowingProgress() {
+		final MiningContext context = currentMiningContext;
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+		progressTimer = new Timer(500, new ActionListener() {
+			public void actionPerformed(ActionEvent event) {
+				double fraction = context.getFractionDone();
+				if(fraction >= 0) {
+					progressBar.setIndeterminate(false);
+					progressBar.setValue((int) (fraction * 100));
+				}
+				if(context.getNodeCount() > 0) {
+					progressBar.setString(context.getPatternCount() + " patterns");
+					progressBar.setToolTipText(context.toString() + ", " 
+							+ (long) context.getPatternsPerSecond() + " patterns/s");
+				}
+			}
+		});
+		progressTimer.start();
+	}
+	
+	/**
+	 * Stop showing the progress of the current data mining task
+	 */
+	private void stopShowingProgress() {
+		if(progressTimer != null) {
+			progressTimer.stop();
+			progressTimer = null;
+		}
+        progressBar.setIndeterminate(false);
+        progressBar.setValue(0);
+        progressBar.setStringPainted(false);
+        progressBar.setToolTipText(null);
+	}
+	
 
 
 	/**
@@ -903,11 +957,13 @@ public class MainWindow extends JFrame implements ThreadCompleteListener, Uncaug
 	 */
 	@Override
 	public void uncaughtException(Thread thread, Throwable e) {
-		// If the thread just die because the user click on the "Stop algorithm" button
-		if(e instanceof ThreadDeath) {
+		// If the thread just stops because the user click on the "Stop algorithm" button
+		// (or was already stopped by the user)
+		if(e instanceof MiningCancelledException || thread != currentRunningAlgorithmThread) {
 			// we just let the thread die.
+			return;
 		}
-		else if(e instanceof NumberFormatException) {
+		if(e instanceof NumberFormatException) {
 			// if it is a number format exception, meaning that the user enter a string as a parameter instead
 			// of an integer or double value.
 			JOptionPane.showMessageDialog(null,
@@ -932,12 +988,19 @@ public class MainWindow extends JFrame implements ThreadCompleteListener, Uncaug
 		// If a thread is already running (the user click on the stop Button
 		if(currentRunningAlgorithmThread != null &&
 				currentRunningAlgorithmThread.isAlive()) {
-			// stop that thread
-			currentRunningAlgorithmThread.stop();
+			// ask the algorithm to stop. It will close its output file and its thread will
+			// then terminate. Its result is ignored.
+			currentMiningContext.cancel();
+			currentRunningAlgorithmThread = null;
 			
 			textArea.setText("Algorithm stopped. \n");
+			// if the algorithm does not check if it should stop, it keeps running until it terminates
+			if(currentAlgorithmDescription != null && currentAlgorithmDescription.isCancellationSupported() == false) {
+				textArea.append("This algorithm cannot be interrupted. It will continue running in the background until it terminates"
+						+ " and its result will be ignored. \n");
+			}
 			buttonRun.setText("Run algorithm");
-	        progressBar.setIndeterminate(false);
+	        stopShowingProgress();
 	        comboBox.setEnabled(true);
 			return;
 		}
@@ -955,7 +1018,18 @@ public class MainWindow extends JFrame implements ThreadCompleteListener, Uncaug
 		parameters[6] = textFieldParam7.getText();
 		textArea.setText("Algorithm is running...\n");
 		
-        progressBar.setIndeterminate(true);
+		// create the mining context that will be used to stop the algorithm
+		final MiningContext context = new MiningContext();
+		currentMiningContext = context;
+		// remember the description of the algorithm, to know if it can be stopped
+		try {
+			currentAlgorithmDescription = AlgorithmManager.getInstance().getDescriptionOfAlgorithm(choice);
+		} catch (Exception e) {
+			// if it cannot be found, the error will be reported when the algorithm is run
+			currentAlgorithmDescription = null;
+		}
+		
+        startShowingProgress();
         buttonRun.setText("Stop algorithm");
         comboBox.setEnabled(false);
         
@@ -964,7 +1038,7 @@ public class MainWindow extends JFrame implements ThreadCompleteListener, Uncaug
 		currentRunningAlgorithmThread = new NotifyingThread() {
 			@Override
 			public void doRun() throws Exception {
-				CommandProcessor.runAlgorithm(choice, inputFile, outputFile, parameters);
+				CommandProcessor.runAlgorithm(choice, inputFile, outputFile, parameters, context);
 			}
 		};
 		// The main thread will listen for the completion of the algorithm
@@ -3,6 +3,8 @@ package ca.pfv.spmf.gui;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
+import ca.pfv.spmf.tools.MiningCancelledException;
+
 
 /**
  * This class is a Java thread that will notify another thead when it has terminated
@@ -57,6 +59,9 @@ public abstract class NotifyingThread extends Thread {
 			doRun();
 			// If it terminates properly, we set succeed to true
 			succeed = true;
+		}catch(MiningCancelledException e){
+			// the task was stopped by the user
+			throw e;
 		}catch(Exception e){
 			e.printStackTrace();
 			// if some error happens we catch and throw the exception
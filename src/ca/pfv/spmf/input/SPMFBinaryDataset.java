@@ -0,0 +1,365 @@
+package ca.pfv.spmf.input;
+
+/* This file is copyright (c) 2008-2016 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class reads a dataset in the binary format of SPMF. This format stores a transaction
+ * database (with or without utility values) or a sequence database as arrays of integers,
+ * so that a dataset can be used many times without parsing the text file each time.
+ * The file is memory-mapped: the operating system loads the parts of the file that are
+ * used and keeps them in its cache between executions.
+ * <br/><br/>
+ *
+ * A binary file is created from a file in SPMF format by
+ * {@link ca.pfv.spmf.tools.dataset_converter.BinaryDatasetConverter}. The file contains (all values
+ * are in little-endian order):<br/>
+ * - a header of 128 bytes (the magic number, the version, the flags, the number of transactions,
+ *   the number of distinct items, the number of item occurrences and the position of each section),<br/>
+ * - the item table: for each distinct item (by increasing order), the item, its support
+ *   (the number of transactions containing it) and its TWU (if the dataset has utility values),<br/>
+ * - the offsets: for each transaction, the position of its first item in the items array
+ *   (plus the total number of item occurrences),<br/>
+ * - the items of all transactions, one after the other (for a sequence database, the items and
+ *   the separators -1 and -2, as in the text format),<br/>
+ * - if the dataset has utility values, the transaction utilities and the utility of each item occurrence.
+ * <br/><br/>
+ *
+ * A binary file is read like a text file by {@link SPMFFileTokenizer}, so that the algorithms
+ * using the tokenizer can read both formats.
+ *
+ * @see SPMFFileTokenizer
+ * @author Philippe Fournier-Viger
+ */
+public class SPMFBinaryDataset implements Closeable {
+
+	/** the magic number at the beginning of a binary file */
+	public static final byte[] MAGIC = {'S', 'P', 'M', 'F', 'B', 'I', 'N', 1};
+	/** the version of the format */
+	public static final int VERSION = 1;
+	/** the size of the header in bytes */
+	public static final int HEADER_SIZE = 128;
+	/** flag indicating that the dataset has utility values */
+	public static final int FLAG_UTILITIES = 1;
+	/** the size of an entry of the item table in bytes (item, support, TWU) */
+	public static final int ITEM_ENTRY_SIZE = 16;
+
+	// positions of the fields in the header
+	static final int POSITION_VERSION = 8;
+	static final int POSITION_FLAGS = 12;
+	static final int POSITION_TRANSACTION_COUNT = 16;
+	static final int POSITION_DISTINCT_ITEM_COUNT = 20;
+	static final int POSITION_ITEM_OCCURRENCE_COUNT = 24;
+	static final int POSITION_ITEM_TABLE = 32;
+	static final int POSITION_OFFSETS = 40;
+	static final int POSITION_ITEMS = 48;
+	static final int POSITION_TRANSACTION_UTILITIES = 56;
+	static final int POSITION_UTILITIES = 64;
+
+	/** a mapped buffer can contain at most 2 GB, so large sections are mapped in segments of 2^SEGMENT_SHIFT values */
+	private static final int SEGMENT_SHIFT = 27;
+	private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+	/** the channel of the file */
+	private final FileChannel channel;
+
+	// information from the header
+	private final int flags;
+	private final int transactionCount;
+	private final int distinctItemCount;
+	private final long itemOccurrenceCount;
+
+	// the sections of the file
+	private final ByteBuffer itemTable;
+	private final LongBuffer[] offsets;
+	private final IntBuffer[] items;
+	private final IntBuffer[] transactionUtilities;
+	private final IntBuffer[] utilities;
+
+	/**
+	 * Check if a file is in the binary format of SPMF
+	 * @param path the path of the file
+	 * @return true if the file starts with the magic number of the binary format
+	 */
+	public static boolean isBinaryDataset(String path) {
+		try {
+			FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+			try {
+				ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+				while(magic.hasRemaining() && channel.read(magic) >= 0) {
+					// continue reading until the buffer is full
+				}
+				return !magic.hasRemaining() && java.util.Arrays.equals(magic.array(), MAGIC);
+			}finally {
+				channel.close();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Open a dataset in binary format
+	 * @param path the path of the file
+	 * @throws IOException if the file cannot be read or is not in the binary format
+	 */
+	public SPMFBinaryDataset(String path) throws IOException {
+		channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			byte[] magic = new byte[MAGIC.length];
+			header.get(magic);
+			if(!java.util.Arrays.equals(magic, MAGIC) || header.getInt(POSITION_VERSION) != VERSION) {
+				throw new IOException("The file " + path + " is not a dataset in the binary format of SPMF (version " + VERSION + ")");
+			}
+			flags = header.getInt(POSITION_FLAGS);
+			transactionCount = header.getInt(POSITION_TRANSACTION_COUNT);
+			distinctItemCount = header.getInt(POSITION_DISTINCT_ITEM_COUNT);
+			itemOccurrenceCount = header.getLong(POSITION_ITEM_OCCURRENCE_COUNT);
+
+			itemTable = channel.map(FileChannel.MapMode.READ_ONLY, header.getLong(POSITION_ITEM_TABLE),
+					(long) distinctItemCount * ITEM_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			offsets = mapLongs(header.getLong(POSITION_OFFSETS), transactionCount + 1L);
+			items = mapInts(header.getLong(POSITION_ITEMS), itemOccurrenceCount);
+			if(hasUtilities()) {
+				transactionUtilities = mapInts(header.getLong(POSITION_TRANSACTION_UTILITIES), transactionCount);
+				utilities = mapInts(header.getLong(POSITION_UTILITIES), itemOccurrenceCount);
+			}else {
+				transactionUtilities = null;
+				utilities = null;
+			}
+		}catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Map a section of the file containing integers
+	 * @param position the position of the section in the file
+	 * @param count the number of integers
+	 * @return the segments of the section
+	 * @throws IOException if an error occurs
+	 */
+	private IntBuffer[] mapInts(long position, long count) throws IOException {
+		int segmentCount = (int) ((count + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+		IntBuffer[] segments = new IntBuffer[Math.max(segmentCount, 1)];
+		segments[0] = IntBuffer.allocate(0);
+		for(int i = 0; i < segmentCount; i++) {
+			long first = (long) i << SEGMENT_SHIFT;
+			long size = Math.min(count - first, 1L << SEGMENT_SHIFT);
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + first * 4, size * 4)
+					.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		}
+		return segments;
+	}
+
+	/**
+	 * Map a section of the file containing long integers
+	 * @param position the position of the section in the file
+	 * @param count the number of long integers
+	 * @return the segments of the section
+	 * @throws IOException if an error occurs
+	 */
+	private LongBuffer[] mapLongs(long position, long count) throws IOException {
+		int segmentCount = (int) ((count + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+		LongBuffer[] segments = new LongBuffer[Math.max(segmentCount, 1)];
+		segments[0] = LongBuffer.allocate(0);
+		for(int i = 0; i < segmentCount; i++) {
+			long first = (long) i << SEGMENT_SHIFT;
+			long size = Math.min(count - first, 1L << SEGMENT_SHIFT);
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + first * 8, size * 8)
+					.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		}
+		return segments;
+	}
+
+	/**
+	 * Check if this dataset has utility values
+	 * @return true if it has utility values
+	 */
+	public boolean hasUtilities() {
+		return (flags & FLAG_UTILITIES) != 0;
+	}
+
+	/**
+	 * Get the number of transactions (or sequences)
+	 * @return the number of transactions
+	 */
+	public int getTransactionCount() {
+		return transactionCount;
+	}
+
+	/**
+	 * Get the number of distinct items (for a sequence database, the separators -1 and -2 are not counted)
+	 * @return the number of distinct items
+	 */
+	public int getDistinctItemCount() {
+		return distinctItemCount;
+	}
+
+	/**
+	 * Get the total number of item occurrences in all transactions
+	 * @return the number of item occurrences
+	 */
+	public long getItemOccurrenceCount() {
+		return itemOccurrenceCount;
+	}
+
+	/**
+	 * Get the position of the first item of a transaction in the items array
+	 * @param transaction the transaction number
+	 * @return the position
+	 */
+	private long getOffset(int transaction) {
+		return offsets[transaction >>> SEGMENT_SHIFT].get((int) (transaction & SEGMENT_MASK));
+	}
+
+	/**
+	 * Get the number of items of a transaction
+	 * @param transaction the transaction number (from 0 to getTransactionCount()-1)
+	 * @return the number of items
+	 */
+	public int getTransactionLength(int transaction) {
+		return (int) (getOffset(transaction + 1) - getOffset(transaction));
+	}
+
+	/**
+	 * Copy the items of a transaction in an array
+	 * @param transaction the transaction number (from 0 to getTransactionCount()-1)
+	 * @param buffer an array large enough to store the items (see {@link #getTransactionLength(int)})
+	 * @return the number of items
+	 */
+	public int getItems(int transaction, int[] buffer) {
+		return copy(items, getOffset(transaction), getOffset(transaction + 1), buffer);
+	}
+
+	/**
+	 * Copy the utility values of a transaction in an array
+	 * @param transaction the transaction number (from 0 to getTransactionCount()-1)
+	 * @param buffer an array large enough to store the utility values
+	 * @return the number of items
+	 */
+	public int getUtilities(int transaction, int[] buffer) {
+		return copy(utilities, getOffset(transaction), getOffset(transaction + 1), buffer);
+	}
+
+	/**
+	 * Get the transaction utility of a transaction
+	 * @param transaction the transaction number (from 0 to getTransactionCount()-1)
+	 * @return the transaction utility
+	 */
+	public int getTransactionUtility(int transaction) {
+		return transactionUtilities[transaction >>> SEGMENT_SHIFT].get((int) (transaction & SEGMENT_MASK));
+	}
+
+	/**
+	 * Copy values from a mapped section to an array
+	 * @param segments the segments of the section
+	 * @param start the position of the first value
+	 * @param end the position after the last value
+	 * @param buffer the array
+	 * @return the number of values
+	 */
+	private static int copy(IntBuffer[] segments, long start, long end, int[] buffer) {
+		int length = (int) (end - start);
+		IntBuffer segment = segments[(int) (start >>> SEGMENT_SHIFT)];
+		int position = (int) (start & SEGMENT_MASK);
+		for(int i = 0; i < length; i++) {
+			if(position == segment.limit()) {
+				// the values continue in the next segment
+				segment = segments[(int) ((start + i) >>> SEGMENT_SHIFT)];
+				position = 0;
+			}
+			buffer[i] = segment.get(position++);
+		}
+		return length;
+	}
+
+	/**
+	 * Get the item at a given position of the item table
+	 * @param index a position from 0 to getDistinctItemCount()-1
+	 * @return the item (the items are sorted by increasing order in the table)
+	 */
+	public int getItemInTable(int index) {
+		return itemTable.getInt(index * ITEM_ENTRY_SIZE);
+	}
+
+	/**
+	 * Get the support of the item at a given position of the item table
+	 * @param index a position from 0 to getDistinctItemCount()-1
+	 * @return the number of transactions containing the item
+	 */
+	public int getSupportInTable(int index) {
+		return itemTable.getInt(index * ITEM_ENTRY_SIZE + 4);
+	}
+
+	/**
+	 * Get the TWU of the item at a given position of the item table
+	 * @param index a position from 0 to getDistinctItemCount()-1
+	 * @return the TWU (the sum of the utility of transactions containing the item)
+	 *   or 0 if the dataset does not have utility values
+	 */
+	public long getTWUInTable(int index) {
+		return itemTable.getLong(index * ITEM_ENTRY_SIZE + 8);
+	}
+
+	/**
+	 * Get the support of each item, as calculated when the binary file was created
+	 * @return a map (key: item, value: number of transactions containing the item)
+	 */
+	public Map<Integer, Integer> getItemSupports() {
+		Map<Integer, Integer> mapSupport = new HashMap<Integer, Integer>(distinctItemCount * 2);
+		for(int i = 0; i < distinctItemCount; i++) {
+			mapSupport.put(getItemInTable(i), getSupportInTable(i));
+		}
+		return mapSupport;
+	}
+
+	/**
+	 * Get the TWU of each item, as calculated when the binary file was created
+	 * @return a map (key: item, value: TWU). The TWU is converted to an int as it is done by the
+	 *   algorithms that calculate the TWU with integers.
+	 */
+	public Map<Integer, Integer> getItemTWUs() {
+		Map<Integer, Integer> mapTWU = new HashMap<Integer, Integer>(distinctItemCount * 2);
+		for(int i = 0; i < distinctItemCount; i++) {
+			mapTWU.put(getItemInTable(i), (int) getTWUInTable(i));
+		}
+		return mapTWU;
+	}
+
+	/**
+	 * Close the file
+	 * @throws IOException if an error occurs
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,645 @@
+package ca.pfv.spmf.input;
+
+/* This file is copyright (c) 2008-2016 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads the files in SPMF format (transaction databases, sequence databases,
+ * transaction databases with utility values and files of vectors of double values).
+ * <br/><br/>
+ *
+ * Instead of reading each line as a String and then splitting it into tokens, it reads
+ * the bytes of the file from a FileChannel into a ByteBuffer and directly converts them
+ * to integers (or doubles). No object is created for each line, which greatly reduces
+ * the time for reading large files and the work of the garbage collector.
+ * <br/><br/>
+ *
+ * As in the other readers of SPMF, empty lines and lines starting with '#', '%' or '@'
+ * (comments and metadata) are skipped. Each other line is a transaction (or a sequence or a vector).
+ * <br/><br/>
+ *
+ * The tokenizer can be used in two ways. The methods {@link #nextTransaction()} and
+ * {@link #nextUtilityTransaction()} read the next line and then the getter methods give access to its content.
+ * The static methods {@link #readTransactions(String, TransactionHandler)},
+ * {@link #readUtilityTransactions(String, UtilityTransactionHandler)} and
+ * {@link #readVectors(String, char, VectorHandler)} send each line of a file to a handler.
+ * In both cases, the arrays are reused for the next line. They should be copied
+ * if their content needs to be kept.
+ * <br/><br/>
+ *
+ * The tokenizer also reads transaction databases, sequence databases and transaction databases with
+ * utility values that were converted to the binary format of SPMF (see {@link SPMFBinaryDataset}).
+ * The format of a file is detected when it is opened.
+ *
+ * @see SPMFBinaryDataset
+ * @author Philippe Fournier-Viger
+ */
+public class SPMFFileTokenizer implements Closeable {
+
+	/**
+	 * A handler that receives the transactions of a transaction database (or the sequences of
+	 * a sequence database, where -1 indicates the end of an itemset and -2 the end of a sequence)
+	 */
+	public interface TransactionHandler {
+		/**
+		 * Process a transaction
+		 * @param items an array containing the items (this array is reused for the next transaction)
+		 * @param itemCount the number of items in the array
+		 * @throws IOException if an error occurs
+		 */
+		void handleTransaction(int[] items, int itemCount) throws IOException;
+	}
+
+	/**
+	 * A handler that receives the transactions of a transaction database with utility values
+	 */
+	public interface UtilityTransactionHandler {
+		/**
+		 * Process a transaction
+		 * @param items an array containing the items (this array is reused for the next transaction)
+		 * @param utilities an array containing the utility of each item (this array is also reused)
+		 * @param itemCount the number of items
+		 * @param transactionUtility the transaction utility
+		 * @throws IOException if an error occurs
+		 */
+		void handleTransaction(int[] items, int[] utilities, int itemCount, int transactionUtility) throws IOException;
+	}
+
+	/**
+	 * A handler that receives the vectors of a file of vectors of double values
+	 */
+	public interface VectorHandler {
+		/**
+		 * Process a metadata line (a line starting with '@', such as "@NAME=..." or "@ATTRIBUTEDEF=...")
+		 * @param line the line
+		 */
+		void handleMetadata(String line);
+
+		/**
+		 * Process a vector
+		 * @param values an array containing the values (this array is reused for the next vector)
+		 * @param valueCount the number of values
+		 */
+		void handleVector(double[] values, int valueCount);
+	}
+
+	/** the size of the buffer used to read the file */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** the powers of 10 that are exactly represented by a double */
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	/** the channel used to read the file (null if the file is in binary format) */
+	private final FileChannel channel;
+	/** the dataset if the file is in binary format (otherwise null) */
+	private final SPMFBinaryDataset binaryDataset;
+	/** the next transaction to read from the binary dataset */
+	private int nextBinaryTransaction = 0;
+	/** the buffer containing the bytes read from the file */
+	private final ByteBuffer buffer;
+	/** the array of the buffer */
+	private final byte[] bytes;
+	/** the position of the next byte to read in the buffer */
+	private int position = 0;
+	/** the number of bytes in the buffer */
+	private int limit = 0;
+
+	/** the current line number (for error messages) */
+	private int lineNumber = 0;
+
+	// the content of the last line that was read
+	private int[] items = new int[64];
+	private int[] utilities = new int[64];
+	private int itemCount = 0;
+	private int transactionUtility = 0;
+
+	/** the byte that follows the last integer or double that was read */
+	private int lastByte;
+
+	/** a buffer to store a token that is not parsed directly (a double or a metadata line) */
+	private byte[] tokenBuffer = new byte[64];
+
+	/**
+	 * Constructor
+	 * @param path the path of the file to be read
+	 * @throws IOException if the file cannot be opened
+	 */
+	public SPMFFileTokenizer(String path) throws IOException {
+		if(SPMFBinaryDataset.isBinaryDataset(path)) {
+			binaryDataset = new SPMFBinaryDataset(path);
+			channel = null;
+			buffer = null;
+			bytes = null;
+		}else {
+			binaryDataset = null;
+			channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+			buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			bytes = buffer.array();
+		}
+	}
+
+	/**
+	 * Get the dataset that is read, if the file is in binary format
+	 * @return the dataset or null if the file is a text file
+	 */
+	public SPMFBinaryDataset getBinaryDataset() {
+		return binaryDataset;
+	}
+
+	/**
+	 * Read the next transaction of a binary dataset
+	 * @param withUtilities if true, the utility values are also read
+	 * @return true if a transaction was read, or false if all the transactions were read
+	 */
+	private boolean nextBinaryTransaction(boolean withUtilities) {
+		if(nextBinaryTransaction == binaryDataset.getTransactionCount()) {
+			return false;
+		}
+		int transaction = nextBinaryTransaction++;
+		lineNumber++;
+		int length = binaryDataset.getTransactionLength(transaction);
+		if(length > items.length) {
+			items = new int[Math.max(length, items.length * 2)];
+			utilities = new int[items.length];
+		}
+		itemCount = binaryDataset.getItems(transaction, items);
+		if(withUtilities) {
+			if(!binaryDataset.hasUtilities()) {
+				throw new NumberFormatException("The binary dataset does not have utility values");
+			}
+			binaryDataset.getUtilities(transaction, utilities);
+			transactionUtility = binaryDataset.getTransactionUtility(transaction);
+		}else {
+			transactionUtility = 0;
+		}
+		return true;
+	}
+
+	/**
+	 * Read the next transaction (a line of integers separated by spaces).
+	 * This method can also be used to read a line of a sequence database.
+	 * @return true if a transaction was read, or false if the end of the file was reached
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public boolean nextTransaction() throws IOException {
+		if(binaryDataset != null) {
+			return nextBinaryTransaction(false);
+		}
+		int b = skipToNextLine();
+		if(b == -1) {
+			return false;
+		}
+		itemCount = 0;
+		transactionUtility = 0;
+		while(b != -1 && b != '\n') {
+			if(b == ' ' || b == '\t' || b == '\r') {
+				b = read();
+			}else {
+				addItem(readInteger(b));
+				b = lastByte;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read the next transaction of a transaction database with utility values.
+	 * The format of a line is: items separated by spaces, ':', the transaction utility,
+	 * ':' and the utility of each item separated by spaces (e.g. "1 2 3:10:2 3 5")
+	 * @return true if a transaction was read, or false if the end of the file was reached
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public boolean nextUtilityTransaction() throws IOException {
+		if(binaryDataset != null) {
+			return nextBinaryTransaction(true);
+		}
+		int b = skipToNextLine();
+		if(b == -1) {
+			return false;
+		}
+		itemCount = 0;
+		transactionUtility = 0;
+		// the part of the line that is read (0 = items, 1 = transaction utility, 2 = utilities)
+		int part = 0;
+		int utilityCount = 0;
+		while(b != -1 && b != '\n') {
+			if(b == ' ' || b == '\t' || b == '\r') {
+				b = read();
+			}else if(b == ':') {
+				part++;
+				b = read();
+			}else {
+				int value = readInteger(b);
+				b = lastByte;
+				if(part == 0) {
+					addItem(value);
+				}else if(part == 1) {
+					transactionUtility = value;
+				}else if(part == 2 && utilityCount < itemCount) {
+					utilities[utilityCount++] = value;
+				}
+			}
+		}
+		if(part < 2 || utilityCount != itemCount) {
+			throw new NumberFormatException("Line " + lineNumber + " is not a valid transaction with utility values");
+		}
+		return true;
+	}
+
+	/**
+	 * Get the items of the last transaction that was read
+	 * @return an array containing the items (use {@link #getItemCount()} to get the number of items)
+	 */
+	public int[] getItems() {
+		return items;
+	}
+
+	/**
+	 * Get the utility values of the last transaction that was read by {@link #nextUtilityTransaction()}
+	 * @return an array containing the utility of each item
+	 */
+	public int[] getUtilities() {
+		return utilities;
+	}
+
+	/**
+	 * Get the number of items of the last transaction that was read
+	 * @return the number of items
+	 */
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Get the transaction utility of the last transaction that was read by {@link #nextUtilityTransaction()}
+	 * @return the transaction utility
+	 */
+	public int getTransactionUtility() {
+		return transactionUtility;
+	}
+
+	/**
+	 * Get a copy of the items of the last transaction that was read
+	 * @return an array having exactly one cell per item
+	 */
+	public int[] copyItems() {
+		return Arrays.copyOf(items, itemCount);
+	}
+
+	/**
+	 * Get a copy of the utility values of the last transaction that was read
+	 * @return an array having exactly one cell per item
+	 */
+	public int[] copyUtilities() {
+		return Arrays.copyOf(utilities, itemCount);
+	}
+
+	/**
+	 * Close the file
+	 * @throws IOException if an error occurs
+	 */
+	public void close() throws IOException {
+		if(binaryDataset != null) {
+			binaryDataset.close();
+		}else {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Read all the transactions of a transaction database (or all the sequences of a sequence database)
+	 * @param path the path of the file
+	 * @param handler the handler that will receive each transaction
+	 * @return the number of transactions
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public static int readTransactions(String path, TransactionHandler handler) throws IOException {
+		SPMFFileTokenizer tokenizer = new SPMFFileTokenizer(path);
+		try {
+			int count = 0;
+			while(tokenizer.nextTransaction()) {
+				handler.handleTransaction(tokenizer.items, tokenizer.itemCount);
+				count++;
+			}
+			return count;
+		}finally {
+			tokenizer.close();
+		}
+	}
+
+	/**
+	 * Read all the transactions of a transaction database with utility values
+	 * @param path the path of the file
+	 * @param handler the handler that will receive each transaction
+	 * @return the number of transactions
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public static int readUtilityTransactions(String path, UtilityTransactionHandler handler) throws IOException {
+		SPMFFileTokenizer tokenizer = new SPMFFileTokenizer(path);
+		try {
+			int count = 0;
+			while(tokenizer.nextUtilityTransaction()) {
+				handler.handleTransaction(tokenizer.items, tokenizer.utilities, tokenizer.itemCount, tokenizer.transactionUtility);
+				count++;
+			}
+			return count;
+		}finally {
+			tokenizer.close();
+		}
+	}
+
+	/**
+	 * Read all the vectors of a file where each line is a vector of double values.
+	 * Lines starting with '@' are sent to the handler as metadata. Empty values (for example
+	 * when two separators follow each other) are ignored.
+	 * @param path the path of the file
+	 * @param separator the character used to separate values (e.g. ' ' or ',')
+	 * @param handler the handler that will receive each vector
+	 * @return the number of vectors
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public static int readVectors(String path, char separator, VectorHandler handler) throws IOException {
+		SPMFFileTokenizer tokenizer = new SPMFFileTokenizer(path);
+		if(tokenizer.binaryDataset != null) {
+			tokenizer.close();
+			throw new IOException("The file " + path + " is a binary dataset, not a file of vectors");
+		}
+		try {
+			int count = 0;
+			double[] values = new double[16];
+			int b;
+			while((b = tokenizer.read()) != -1) {
+				tokenizer.lineNumber++;
+				// a line containing only a carriage return is an empty line
+				if(b == '\r') {
+					b = tokenizer.read();
+				}
+				if(b == '\n' || b == -1) {
+					continue;
+				}
+				// comments are skipped
+				if(b == '#' || b == '%') {
+					tokenizer.skipLine();
+					continue;
+				}
+				// metadata are sent to the handler
+				if(b == '@') {
+					handler.handleMetadata(tokenizer.readLineAsString(b));
+					continue;
+				}
+				// read the values
+				int valueCount = 0;
+				while(b != -1 && b != '\n') {
+					if(b == separator || b == '\r' || b == ' ') {
+						b = tokenizer.read();
+						continue;
+					}
+					if(valueCount == values.length) {
+						values = Arrays.copyOf(values, values.length * 2);
+					}
+					values[valueCount++] = tokenizer.readDouble(b, separator);
+					b = tokenizer.lastByte;
+				}
+				handler.handleVector(values, valueCount);
+				count++;
+			}
+			return count;
+		}finally {
+			tokenizer.close();
+		}
+	}
+
+	/**
+	 * Read the next byte of the file
+	 * @return the byte or -1 if the end of the file is reached
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	private int read() throws IOException {
+		if(position == limit) {
+			// fill the buffer
+			buffer.clear();
+			int count;
+			do {
+				count = channel.read(buffer);
+			}while(count == 0);
+			if(count < 0) {
+				position = limit = 0;
+				return -1;
+			}
+			position = 0;
+			limit = count;
+		}
+		return bytes[position++] & 0xFF;
+	}
+
+	/**
+	 * Skip empty lines, comments and metadata, and return the first byte of the next line to be read
+	 * @return the first byte or -1 if the end of the file was reached
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	private int skipToNextLine() throws IOException {
+		while(true) {
+			int b = read();
+			if(b == -1) {
+				return -1;
+			}
+			lineNumber++;
+			if(b == '#' || b == '%' || b == '@') {
+				skipLine();
+			}else if(b == '\r') {
+				// a line containing only a carriage return is an empty line
+				b = read();
+				if(b != '\n' && b != -1) {
+					return b;
+				}
+			}else if(b != '\n') {
+				return b;
+			}
+		}
+	}
+
+	/**
+	 * Skip the bytes until the end of the current line
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	private void skipLine() throws IOException {
+		int b;
+		do {
+			b = read();
+		}while(b != '\n' && b != -1);
+	}
+
+	/**
+	 * Read the rest of the current line as a String
+	 * @param firstByte the first byte of the line
+	 * @return the line (without the end of line characters)
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	private String readLineAsString(int firstByte) throws IOException {
+		int length = 0;
+		int b = firstByte;
+		while(b != '\n' && b != -1) {
+			if(length == tokenBuffer.length) {
+				tokenBuffer = Arrays.copyOf(tokenBuffer, length * 2);
+			}
+			tokenBuffer[length++] = (byte) b;
+			b = read();
+		}
+		if(length > 0 && tokenBuffer[length - 1] == '\r') {
+			length--;
+		}
+		return new String(tokenBuffer, 0, length);
+	}
+
+	/**
+	 * Add an item to the current transaction
+	 * @param item the item
+	 */
+	private void addItem(int item) {
+		if(itemCount == items.length) {
+			items = Arrays.copyOf(items, itemCount * 2);
+			utilities = Arrays.copyOf(utilities, itemCount * 2);
+		}
+		items[itemCount++] = item;
+	}
+
+	/**
+	 * Read an integer. The byte following the integer is stored in the field lastByte.
+	 * @param firstByte the first byte of the integer
+	 * @return the integer
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	private int readInteger(int firstByte) throws IOException {
+		boolean negative = false;
+		int b = firstByte;
+		if(b == '-') {
+			negative = true;
+			b = read();
+		}
+		if(b < '0' || b > '9') {
+			throw new NumberFormatException("Unexpected character '" + (char) b + "' at line " + lineNumber);
+		}
+		// the value is accumulated as a negative number, like Integer.parseInt(),
+		// so that Integer.MIN_VALUE can be read and an overflow can be detected
+		int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+		int value = 0;
+		do {
+			int digit = b - '0';
+			if(value < (limit + digit) / 10) {
+				throw new NumberFormatException("Integer out of range at line " + lineNumber);
+			}
+			value = value * 10 - digit;
+			b = read();
+		}while(b >= '0' && b <= '9');
+		// the integer must be followed by a separator
+		if(b != ' ' && b != '\n' && b != '\r' && b != '\t' && b != ':' && b != -1) {
+			throw new NumberFormatException("Unexpected character '" + (char) b + "' at line " + lineNumber);
+		}
+		lastByte = b;
+		return negative ? value : -value;
+	}
+
+	/**
+	 * Read a double value. The byte following the value is stored in the field lastByte.
+	 * @param firstByte the first byte of the value
+	 * @param separator the character used to separate values
+	 * @return the value
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	private double readDouble(int firstByte, char separator) throws IOException {
+		// copy the token in a buffer
+		int length = 0;
+		int b = firstByte;
+		while(b != separator && b != '\n' && b != '\r' && b != ' ' && b != -1) {
+			if(length == tokenBuffer.length) {
+				tokenBuffer = Arrays.copyOf(tokenBuffer, length * 2);
+			}
+			tokenBuffer[length++] = (byte) b;
+			b = read();
+		}
+		lastByte = b;
+
+		// Try to convert the token directly. If the token has at most 15 significant digits
+		// and a small exponent, the value obtained by a single multiplication or division
+		// by a power of ten is exactly the one returned by Double.parseDouble().
+		int i = 0;
+		boolean negative = false;
+		if(tokenBuffer[0] == '-' || tokenBuffer[0] == '+') {
+			negative = tokenBuffer[0] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digitCount = 0;
+		int exponent = 0;
+		boolean hasDigit = false;
+		boolean afterPoint = false;
+		for(; i < length; i++) {
+			int c = tokenBuffer[i];
+			if(c >= '0' && c <= '9') {
+				hasDigit = true;
+				// leading zeros are not significant
+				if(mantissa != 0 || c != '0') {
+					digitCount++;
+				}
+				mantissa = mantissa * 10 + (c - '0');
+				if(afterPoint) {
+					exponent--;
+				}
+			}else if(c == '.' && !afterPoint) {
+				afterPoint = true;
+			}else {
+				break;
+			}
+		}
+		if(hasDigit && i < length && (tokenBuffer[i] == 'e' || tokenBuffer[i] == 'E')) {
+			// read the exponent
+			int j = i + 1;
+			boolean negativeExponent = false;
+			if(j < length && (tokenBuffer[j] == '-' || tokenBuffer[j] == '+')) {
+				negativeExponent = tokenBuffer[j] == '-';
+				j++;
+			}
+			int value = 0;
+			int exponentDigits = 0;
+			while(j < length && tokenBuffer[j] >= '0' && tokenBuffer[j] <= '9' && exponentDigits < 4) {
+				value = value * 10 + (tokenBuffer[j] - '0');
+				exponentDigits++;
+				j++;
+			}
+			if(exponentDigits > 0) {
+				exponent += negativeExponent ? -value : value;
+				i = j;
+			}
+		}
+		if(hasDigit && i == length && digitCount <= 15 && exponent >= -22 && exponent <= 22) {
+			double value = (double) mantissa;
+			value = exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+			return negative ? -value : value;
+		}
+		// otherwise, use the conversion of the Java library
+		return Double.parseDouble(new String(tokenBuffer, 0, length));
+	}
+}
@@ -16,16 +16,14 @@ package ca.pfv.spmf.input.transaction_database_list_integers;
 * You should have received a copy of the GNU General Public License along with
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import ca.pfv.spmf.input.SPMFFileTokenizer;
+
 /**
  * This class represents a transaction database (a.k.a. binary context), implemented
  * as a list of integers. It can read a transaction database directly from a file. 
@@ -55,43 +53,34 @@ public class TransactionDatabase {
 	 * @throws IOException exception if error reading the file
 	 */
 	public void loadFile(String path) throws IOException {
-		String thisLine; // variable to read each line
-		BufferedReader myInput = null; // object to read the file
+		SPMFFileTokenizer tokenizer = null; // object to read the file
 		try {
-			FileInputStream fin = new FileInputStream(new File(path));
-			myInput = new BufferedReader(new InputStreamReader(fin));
-			// for each line
-			while ((thisLine = myInput.readLine()) != null) {
-				// if the line is not a comment, is not empty or is not other
-				// kind of metadata
-				if (thisLine.isEmpty() == false &&
-						thisLine.charAt(0) != '#' && thisLine.charAt(0) != '%'
-						&& thisLine.charAt(0) != '@') {
-					// split the line according to spaces and then
-					// call "addTransaction" to process this line.
-					addTransaction(thisLine.split(" "));
-				}
+			tokenizer = new SPMFFileTokenizer(path);
+			// for each line that is not a comment, is not empty or is not other
+			// kind of metadata, call "addTransaction" to process this line.
+			while (tokenizer.nextTransaction()) {
+				addTransaction(tokenizer.getItems(), tokenizer.getItemCount());
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
-			if (myInput != null) {
-				myInput.close();
+			if (tokenizer != null) {
+				tokenizer.close();
 			}
 		}
 	}
 
 	/**
 	 * This method process a line from a file that is read.
-	 * @param tokens the items contained in this line
+	 * @param lineItems the items contained in this line
+	 * @param itemCount the number of items in this line
 	 */
-	private void addTransaction(String itemsString[]) {
+	private void addTransaction(int lineItems[], int itemCount) {
 		// create an empty transaction
-		List<Integer> itemset = new ArrayList<Integer>();
+		List<Integer> itemset = new ArrayList<Integer>(itemCount);
 		// for each item in this line
-		for (String attribute : itemsString) {
-			// convert from string to int
-			int item = Integer.parseInt(attribute);
+		for (int i = 0; i < itemCount; i++) {
+			int item = lineItems[i];
 			// add the item to the current transaction
 			itemset.add(item); 
 			// add the item to the set of all items in this database
@@ -0,0 +1,41 @@
+package ca.pfv.spmf.patterns.itemset_array_integers_with_count;
+
+/* This file is copyright (c) 2008-2012 Philippe Fournier-Viger
+* 
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+
+/**
+ * This interface is implemented by objects that receive the itemsets found by an itemset mining
+ * algorithm (e.g. FPGrowth, FPClose, Eclat or LCM) as soon as they are found, instead of
+ * keeping all of them in an Itemsets object or writing them to a file. For example, the
+ * ItemsetSupportIndex used for generating association rules is an ItemsetSink.
+ * 
+ * @see Itemsets
+ * @author Philippe Fournier-Viger
+ */
+public interface ItemsetSink {
+
+	/**
+	 * Receive an itemset found by an algorithm.
+	 * @param itemset an array containing the items of the itemset, sorted by lexical order.
+	 *   The array may be reused by the algorithm after this method returns.
+	 * @param length the number of items (the first "length" positions of the array)
+	 * @param support the support of the itemset
+	 * @throws IOException if an error occurs while saving the itemset
+	 */
+	void itemsetFound(int[] itemset, int length, int support) throws IOException;
+}
@@ -39,6 +39,9 @@ public class MainTestAllAssociationRules_FPGrowth_saveToFile {
 		AlgoAgrawalFaster94 algoAgrawal = new AlgoAgrawalFaster94();
 		algoAgrawal.setMaxConsequentLength(maxConsequentLength);
 		algoAgrawal.setMaxAntecedentLength(maxAntecedentLength);
+		
+		// Uncomment the following line to generate the rules with several threads (e.g. 4)
+//		algoAgrawal.setThreadCount(4);
 		algoAgrawal.runAlgorithm(patterns, output, databaseSize, minconf);
 		algoAgrawal.printStats();
 	}
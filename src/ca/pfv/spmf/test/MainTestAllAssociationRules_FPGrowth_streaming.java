@@ -0,0 +1,65 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.AlgoAgrawalFaster94;
+import ca.pfv.spmf.algorithms.associationrules.agrawal94_association_rules.ItemsetSupportIndex;
+import ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth.AlgoFPGrowth;
+/**
+ * Example of how to mine all association rules with FPGROWTH and save
+ * the result to a file, from the source code, without keeping the frequent
+ * itemsets into memory as Itemset objects. The itemsets are added to an index
+ * as soon as they are found by FPGrowth, and the index is moved to temporary
+ * files if it becomes larger than a memory budget.
+ * 
+ * @author Philippe Fournier-Viger (Copyright 2008)
+ */
+public class MainTestAllAssociationRules_FPGrowth_streaming {
+
+	public static void main(String [] arg) throws IOException{
+		String input = fileToPath("contextIGB.txt");
+		String output = ".//output.txt";
+		
+		// By changing the following lines to some other values
+		// it is possible to restrict the number of items in the antecedent and
+		// consequent of rules
+		int maxConsequentLength = 40;
+		int maxAntecedentLength = 40;
+		
+		// The maximum number of bytes of memory used by the index of frequent itemsets
+		long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+		ItemsetSupportIndex index = new ItemsetSupportIndex(1000, memoryBudget);
+		try {
+			// STEP 1: Applying the FP-GROWTH algorithm to find frequent itemsets.
+			// Each itemset is added to the index as soon as it is found.
+			double minsupp = 0.5;
+			AlgoFPGrowth fpgrowth = new AlgoFPGrowth();
+			fpgrowth.setMaximumPatternLength(maxAntecedentLength + maxConsequentLength);
+			fpgrowth.setItemsetSink(index);
+			fpgrowth.runAlgorithm(input, null, minsupp);
+			fpgrowth.printStats();
+			int databaseSize = fpgrowth.getDatabaseSize();
+			
+			// STEP 2: Generating all rules from the index of frequent itemsets (based on Agrawal & Srikant, 94)
+			double  minconf = 0.60;
+			AlgoAgrawalFaster94 algoAgrawal = new AlgoAgrawalFaster94();
+			algoAgrawal.setMaxConsequentLength(maxConsequentLength);
+			algoAgrawal.setMaxAntecedentLength(maxAntecedentLength);
+			
+			// Uncomment the following line to generate the rules with several threads (e.g. 4)
+//			algoAgrawal.setThreadCount(4);
+			algoAgrawal.runAlgorithm(index, output, databaseSize, minconf);
+			algoAgrawal.printStats();
+		} finally {
+			// delete the temporary files of the index, if any
+			index.close();
+		}
+	}
+	
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestAllAssociationRules_FPGrowth_streaming.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
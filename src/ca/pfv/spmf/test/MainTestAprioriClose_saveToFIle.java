@@ -22,6 +22,9 @@ public class MainTestAprioriClose_saveToFIle {
 		
 		// Applying the Apriori algorithm
 		AlgoAprioriClose apriori = new AlgoAprioriClose();
+		
+		// Uncomment the following line to count the support of candidates with several threads (e.g. 4)
+//		apriori.setThreadCount(4);
 		apriori.runAlgorithm(minsup, input, output);
 		apriori.printStats();
 	}
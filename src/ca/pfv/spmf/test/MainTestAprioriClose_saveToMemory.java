@@ -26,6 +26,9 @@ public class MainTestAprioriClose_saveToMemory {
 		
 		// Applying the Apriori algorithm
 		AlgoAprioriClose apriori = new AlgoAprioriClose();
+		
+		// Uncomment the following line to count the support of candidates with several threads (e.g. 4)
+//		apriori.setThreadCount(4);
 		Itemsets result = apriori.runAlgorithm(minsup, input, output);
 		apriori.printStats();
 		result.printItemsets(apriori.getDatabaseSize());
@@ -30,6 +30,9 @@ public class MainTestAprioriInverse_saveToFile {
 		
 		// Applying the APRIORI-Inverse algorithm to find sporadic itemsets
 		AlgoAprioriInverse apriori2 = new AlgoAprioriInverse();
+		
+		// Uncomment the following line to count the support of candidates with several threads (e.g. 4)
+//		apriori2.setThreadCount(4);
 		// apply the algorithm
 		apriori2.runAlgorithm(minsup, maxsup, inputFilePath, outputFilePath);
 		apriori2.getDatabaseSize();
@@ -29,6 +29,9 @@ public class MainTestAprioriInverse_saveToMemory {
 		
 		// Applying the APRIORI-Inverse algorithm to find sporadic itemsets
 		AlgoAprioriInverse apriori2 = new AlgoAprioriInverse();
+		
+		// Uncomment the following line to count the support of candidates with several threads (e.g. 4)
+//		apriori2.setThreadCount(4);
 		// apply the algorithm
 		Itemsets patterns = apriori2.runAlgorithm(minsup, maxsup, inputFilePath, outputFilePath);
 		int databaseSize = apriori2.getDatabaseSize();
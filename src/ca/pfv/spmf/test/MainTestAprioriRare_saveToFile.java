@@ -24,6 +24,9 @@ public class MainTestAprioriRare_saveToFile {
 		
 		// Applying the APRIORI-Inverse algorithm to find sporadic itemsets
 		AlgoAprioriRare apriori2 = new AlgoAprioriRare();
+		
+		// Uncomment the following line to count the support of candidates with several threads (e.g. 4)
+//		apriori2.setThreadCount(4);
 		// apply the algorithm
 		apriori2.runAlgorithm(minsup, inputFilePath, outputFilePath);
 		apriori2.printStats();
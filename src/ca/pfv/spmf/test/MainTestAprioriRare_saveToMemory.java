@@ -26,6 +26,9 @@ public class MainTestAprioriRare_saveToMemory {
 		
 		// Applying the APRIORI-Inverse algorithm to find sporadic itemsets
 		AlgoAprioriRare apriori2 = new AlgoAprioriRare();
+		
+		// Uncomment the following line to count the support of candidates with several threads (e.g. 4)
+//		apriori2.setThreadCount(4);
 		// apply the algorithm
 		Itemsets patterns = apriori2.runAlgorithm(minsup, inputFilePath, outputFilePath);
 		int databaseSize = apriori2.getDatabaseSize();
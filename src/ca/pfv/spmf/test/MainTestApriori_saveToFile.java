@@ -22,6 +22,9 @@ public class MainTestApriori_saveToFile {
 		// Applying the Apriori algorithm
 		AlgoApriori algo = new AlgoApriori();
 		
+		// Uncomment the following line to count the support of candidates with several threads (e.g. 4)
+//		algo.setThreadCount(4);
+		
 		// Uncomment the following line to set the maximum pattern length (number of items per itemset)
 //		algo.setMaximumPatternLength(3);
 
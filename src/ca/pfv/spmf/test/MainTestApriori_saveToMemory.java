@@ -27,6 +27,9 @@ public class MainTestApriori_saveToMemory {
 		// Applying the Apriori algorithm
 		AlgoApriori algorithm = new AlgoApriori();
 		
+		// Uncomment the following line to count the support of candidates with several threads (e.g. 4)
+//		algorithm.setThreadCount(4);
+		
 		// Uncomment the following line to set the maximum pattern length (number of items per itemset, e.g. 3 )
 //		apriori.setMaximumPatternLength(3);
 		
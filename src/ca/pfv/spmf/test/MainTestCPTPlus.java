@@ -53,6 +53,12 @@ public class MainTestCPTPlus {
 		CPTPlusPredictor predictionModel = new CPTPlusPredictor("CPT+", optionalParameters);
 		predictionModel.Train(trainingSet.getSequences());
 		
+		// The model can then be updated with new sequences, without being trained again.
+		// If the parameter "trainingWindow:1000" is added to the optional parameters, the model
+		// only keeps the last 1000 sequences, and the oldest sequences are removed from the model.
+		// Uncomment the following line to add a sequence to the model
+//		predictionModel.update(trainingSet.getSequences().get(0));
+		
 		// Now we will make a prediction.
 		// We want to predict what would occur after the sequence <1, 2>.
 		// We first create the sequence
@@ -0,0 +1,118 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.database.Item;
+import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.database.Sequence;
+import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.database.SequenceDatabase;
+import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.predictor.CPT.CPTPlus.CPTPlusPredictor;
+import ca.pfv.spmf.algorithms.sequenceprediction.ipredict.predictor.CPT.CPTPlus.CompiledCPTPlusModel;
+
+/**
+ * Example of how to compile a CPT+ sequence prediction model so that many predictions
+ * can be made at the same time by several threads. This example also measures the
+ * throughput and the latency of the predictions.
+ */
+public class MainTestCPTPlus_concurrentPredictions {
+
+	public static void main(String [] arg) throws IOException, InterruptedException, ExecutionException{
+
+		// Load the set of training sequences
+		String inputPath = fileToPath("contextCPT.txt");
+		SequenceDatabase trainingSet = new SequenceDatabase();
+		trainingSet.loadFileSPMFFormat(inputPath, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+
+		// Train the prediction model (see MainTestCPTPlus for a description of the parameters)
+		String optionalParameters = "CCF:true CBS:true CCFmin:1 CCFmax:6 CCFsup:2 splitMethod:0 splitLength:4 minPredictionRatio:1.0 noiseRatio:1.0";
+		CPTPlusPredictor predictionModel = new CPTPlusPredictor("CPT+", optionalParameters);
+		predictionModel.Train(trainingSet.getSequences());
+
+		// Compile the model. The compiled model is read-only and its method predict()
+		// can be called by several threads at the same time.
+		final CompiledCPTPlusModel compiledModel = predictionModel.compile();
+
+		// The sequences to be predicted are the prefixes of the training sequences
+		final List<int[]> queries = new ArrayList<int[]>();
+		for(Sequence sequence : trainingSet.getSequences()) {
+			for(int length = 1; length < sequence.size(); length++) {
+				int[] query = new int[length];
+				for(int i = 0; i < length; i++) {
+					query[i] = sequence.get(i).val;
+				}
+				queries.add(query);
+			}
+		}
+
+		// Check that the compiled model makes the same predictions as the original model
+		int differences = 0;
+		for(int[] query : queries) {
+			Sequence sequence = new Sequence(0);
+			for(int item : query) {
+				sequence.addItem(new Item(item));
+			}
+			Sequence expected = predictionModel.Predict(sequence);
+			int predicted = compiledModel.predict(query, query.length);
+			int expectedItem = expected.size() == 0 ? CompiledCPTPlusModel.NO_PREDICTION : expected.get(0).val;
+			if(predicted != expectedItem) {
+				differences++;
+			}
+		}
+		System.out.println("Number of queries: " + queries.size() + "  different predictions: " + differences);
+
+		// Make many predictions with several threads and measure the latency of each prediction
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		final int predictionsPerThread = 200000;
+		List<Callable<long[]>> tasks = new ArrayList<Callable<long[]>>();
+		for(int thread = 0; thread < threadCount; thread++) {
+			final int firstQuery = thread;
+			tasks.add(new Callable<long[]>() {
+				public long[] call() {
+					long[] latencies = new long[predictionsPerThread];
+					for(int i = 0; i < predictionsPerThread; i++) {
+						int[] query = queries.get((firstQuery + i) % queries.size());
+						long start = System.nanoTime();
+						compiledModel.predict(query, query.length);
+						latencies[i] = System.nanoTime() - start;
+					}
+					return latencies;
+				}
+			});
+		}
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		long startTime = System.currentTimeMillis();
+		long[] latencies = new long[threadCount * predictionsPerThread];
+		try {
+			int position = 0;
+			for(Future<long[]> future : pool.invokeAll(tasks)) {
+				long[] threadLatencies = future.get();
+				System.arraycopy(threadLatencies, 0, latencies, position, threadLatencies.length);
+				position += threadLatencies.length;
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		long totalTime = Math.max(1, System.currentTimeMillis() - startTime);
+
+		// Print the throughput and the latency percentiles
+		Arrays.sort(latencies);
+		System.out.println("Threads: " + threadCount + "  predictions: " + latencies.length + "  time: " + totalTime + " ms");
+		System.out.println("Throughput: " + (latencies.length * 1000L / totalTime) + " predictions/s");
+		System.out.println("Latency p50: " + latencies[latencies.length / 2] / 1000.0 + " us"
+				+ "  p99: " + latencies[(int) (latencies.length * 0.99)] / 1000.0 + " us"
+				+ "  max: " + latencies[latencies.length - 1] / 1000.0 + " us");
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestCPTPlus_concurrentPredictions.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
@@ -42,6 +42,9 @@ public class MainTestClosedAssociationRules_saveToFile {
 		
 		// STEP 2: Generate all rules from the set of frequent itemsets (based on Agrawal & Srikant, 94)
 		AlgoClosedRules algoClosedRules = new AlgoClosedRules();
+		
+		// Uncomment the following line to generate the rules with several threads (e.g. 4)
+//		algoClosedRules.setThreadCount(4);
 		algoClosedRules.runAlgorithm(patterns, output, database.size(), minconf);
 		algoClosedRules.printStats();
 
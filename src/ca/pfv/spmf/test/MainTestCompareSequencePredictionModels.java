@@ -43,6 +43,11 @@ public class MainTestCompareSequencePredictionModels {
 			evaluator.addPredictor(new MarkovAllKPredictor());
 			evaluator.addPredictor(new LZ78Predictor());
 			
+			// To evaluate the folds, predictors and datasets with several threads, a predictor can be added
+			// with a factory, so that each fold is evaluated with its own instance:
+			// evaluator.addPredictor(() -> new CPTPlusPredictor("CPT+", "CCF:true CBS:true"));
+			// evaluator.setThreadCount(4);
+			
 			// Start the experiment
 			// by using 14-fold cross-validation
 			StatsLogger results = evaluator.Start(Evaluator.KFOLD, 14 , true, true, true);
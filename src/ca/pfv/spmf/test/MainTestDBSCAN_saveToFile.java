@@ -25,6 +25,8 @@ public class MainTestDBSCAN_saveToFile {
 		
 		// Apply the algorithm
 		AlgoDBSCAN algo = new AlgoDBSCAN();  
+		// Uncomment the following line to find the neighbors of points with several threads (e.g. 4)
+//		algo.setThreadCount(4);
 		
 		algo.runAlgorithm(input, minPts, epsilon, separator);
 		algo.printStatistics();
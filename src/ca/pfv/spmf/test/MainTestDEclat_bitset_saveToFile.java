@@ -35,6 +35,9 @@ public class MainTestDEclat_bitset_saveToFile {
 		// Applying the DECLAT algorithm
 		AlgoDEclat_Bitset algo = new AlgoDEclat_Bitset();
 		
+		// Uncomment the following line to explore the equivalence classes with several threads (e.g. 4)
+//		algo.setThreadCount(4);
+		
 		// Uncomment the following line to set the maximum pattern length (number of items per itemset)
 //		algo.setMaximumPatternLength(3); 
 	
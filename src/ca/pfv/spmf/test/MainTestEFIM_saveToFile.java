@@ -24,6 +24,10 @@ public class MainTestEFIM_saveToFile {
 
 		// Run the EFIM algorithm
 		AlgoEFIM algo = new AlgoEFIM();
+		
+		// Uncomment the following line to explore the search space with several threads (e.g. 4)
+//		algo.setThreadCount(4);
+		
 		algo.runAlgorithm(minutil,  input, output, true, Integer.MAX_VALUE, true);
 		// Print statistics
 		algo.printStats();
@@ -31,6 +31,9 @@ public class MainTestERMiner {
 ////		// This optional parameter allows to specify the maximum number of items in the 
 ////		// right side (consequent) of rules found:
 //		algo.setMaxConsequentSize(3);  // optional
+
+		// Uncomment the following line to expand the equivalence classes with several threads (e.g. 4)
+//		algo.setThreadCount(4);
 		
 		algo.runAlgorithm(input, output, minsup_relative, minconf);
 		
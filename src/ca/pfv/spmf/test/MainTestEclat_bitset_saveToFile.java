@@ -31,6 +31,9 @@ public class MainTestEclat_bitset_saveToFile {
 		// Applying the ECLAT algorithm
 		AlgoEclat_Bitset algo = new AlgoEclat_Bitset();
 		
+//		// Uncomment the following line to explore the equivalence classes with several threads (e.g. 4)
+//		algo.setThreadCount(4);
+		
 //		// Uncomment the following line to set the maximum pattern length (number of items per itemset)
 //		algo.setMaximumPatternLength(3);
 		
@@ -22,6 +22,10 @@ public class MainTestFHM {
 		
 		// Applying the HUIMiner algorithm
 		AlgoFHM fhm = new AlgoFHM();
+		
+		// Uncomment the following line to explore the search space with several threads (e.g. 4)
+//		fhm.setThreadCount(4);
+		
 		fhm.runAlgorithm(input, output, min_utility);
 		fhm.printStats();
 
@@ -24,6 +24,11 @@ public class MainTestFPClose_saveToMemory {
 
 		// Applying the algorithm
 		AlgoFPClose algo = new AlgoFPClose();
+		
+		// Uncomment the following line to mine the FP-tree with several threads (e.g. 4)
+//		algo.setThreadCount(4);
+		// Uncomment the following line to use a compact FP-tree stored in arrays (serial execution only)
+//		algo.setUseCompactTree(true);
 		// Run the algorithm
 		// Note that here we use "null" as output file path because we want to keep the results into memory instead of saving to a file
 		Itemsets patterns = algo.runAlgorithm(input, null, minsup);  
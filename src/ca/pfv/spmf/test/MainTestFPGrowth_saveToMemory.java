@@ -25,6 +25,11 @@ public class MainTestFPGrowth_saveToMemory {
 		// Applying the FPGROWTH algorithmMainTestFPGrowth.java
 		AlgoFPGrowth algo = new AlgoFPGrowth();
 		
+		// Uncomment the following line to mine the FP-tree with several threads (e.g. 4)
+//		algo.setThreadCount(4);
+		// Uncomment the following line to use a compact FP-tree stored in arrays (serial execution only)
+//		algo.setUseCompactTree(true);
+		
 		// Uncomment the following line to set the maximum pattern length (number of items per itemset, e.g. 3 )
 //		algo.setMaximumPatternLength(3);
 		
@@ -23,6 +23,8 @@ public class MainTestFPGrowth_strings_saveToFile {
 
 		// Applying the FPGROWTH algorithmMainTestFPGrowth.java
 		AlgoFPGrowth_Strings algo = new AlgoFPGrowth_Strings();
+		// Uncomment the following line to use a compact FP-tree stored in arrays
+//		algo.setUseCompactTree(true);
 		algo.runAlgorithm(input, output, minsup);
 		algo.printStats();
 	}
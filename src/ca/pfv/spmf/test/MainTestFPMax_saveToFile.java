@@ -23,6 +23,11 @@ public class MainTestFPMax_saveToFile {
 
 		// Applying the FPMax algorithm
 		AlgoFPMax algo = new AlgoFPMax();
+		
+		// Uncomment the following line to mine the FP-tree with several threads (e.g. 4)
+//		algo.setThreadCount(4);
+		// Uncomment the following line to use a compact FP-tree stored in arrays (serial execution only)
+//		algo.setUseCompactTree(true);
 		algo.runAlgorithm(input, output, minsup);
 		algo.printStats();
 	}
@@ -22,6 +22,10 @@ public class MainTestHUIMiner {
 		
 		// Applying the HUIMiner algorithm
 		AlgoHUIMiner huiminer = new AlgoHUIMiner();
+		
+		// Uncomment the following line to explore the search space with several threads (e.g. 4)
+//		huiminer.setThreadCount(4);
+		
 		huiminer.runAlgorithm(input, output, min_utility);
 		huiminer.printStats();
 
@@ -27,6 +27,8 @@ public class MainTestOPTICS_extractDBScan_saveToFile {
 		
 		// Apply the algorithm to compute a cluster ordering
 		AlgoOPTICS algo = new AlgoOPTICS();  
+		// Uncomment the following line to find the neighbors of points with several threads (e.g. 4)
+//		algo.setThreadCount(4);
 		algo.computerClusterOrdering(input, minPts, epsilon, separator);
 
 		//  generate dbscan clusters from the cluster ordering:
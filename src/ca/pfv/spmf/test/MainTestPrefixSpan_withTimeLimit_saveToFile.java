@@ -0,0 +1,68 @@
+package ca.pfv.spmf.test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan.AlgoPrefixSpan;
+import ca.pfv.spmf.tools.MiningCancelledException;
+import ca.pfv.spmf.tools.MiningContext;
+
+
+/**
+ * Example of how to use the PrefixSpan algorithm in source code with a time limit,
+ * and how to follow its progress while it is running.
+ * @author Philippe Fournier-Viger
+ */
+public class MainTestPrefixSpan_withTimeLimit_saveToFile {
+
+	public static void main(String [] arg) throws IOException, InterruptedException{
+		// input file
+		String inputFile = fileToPath("contextPrefixSpan.txt");
+
+		// output file path
+		String outputPath = ".//output.txt";
+
+		// Create an instance of the algorithm
+		final AlgoPrefixSpan algo = new AlgoPrefixSpan();
+
+		// Create a mining context to stop the algorithm after 10 seconds.
+		// The context could also be stopped at any time by calling context.cancel()
+		final MiningContext context = new MiningContext();
+		context.setTimeout(10000);
+		algo.setMiningContext(context);
+
+		final int minsup = 1; // we use a minimum support of 1 sequence.
+
+		// execute the algorithm in another thread
+		Thread thread = new Thread() {
+			public void run() {
+				try {
+					algo.runAlgorithm(inputFile, outputPath, minsup);
+					algo.printStatistics();
+				} catch (MiningCancelledException e) {
+					// the output file contains the patterns found until the algorithm was stopped
+					System.out.println("The time limit was reached.");
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		thread.start();
+
+		// show the progress of the algorithm every 100 ms until it terminates
+		while(thread.isAlive()) {
+			System.out.println(context + ", " + (long) context.getPatternsPerSecond() + " patterns/s");
+			thread.join(100);
+		}
+		System.out.println(context);
+
+		// the algorithm has terminated, so the time limit is not needed anymore
+		context.removeDeadline();
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestPrefixSpan_withTimeLimit_saveToFile.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}
@@ -0,0 +1,52 @@
+package ca.pfv.spmf.tools;
+/*
+ *  Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * This exception is thrown by an algorithm that stops because its {@link MiningContext}
+ * was cancelled or its deadline was reached.
+ *
+ * @see MiningContext
+ * @author Philippe Fournier-Viger
+ */
+public class MiningCancelledException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	/** true if the algorithm was stopped because the deadline was reached */
+	private final boolean timeoutReached;
+
+	/**
+	 * Constructor
+	 * @param message the message
+	 * @param timeoutReached true if the algorithm was stopped because the deadline was reached
+	 */
+	public MiningCancelledException(String message, boolean timeoutReached) {
+		super(message);
+		this.timeoutReached = timeoutReached;
+	}
+
+	/**
+	 * Check if the algorithm was stopped because the deadline was reached
+	 * @return true if the deadline was reached, false if it was cancelled
+	 */
+	public boolean isTimeoutReached() {
+		return timeoutReached;
+	}
+}
@@ -0,0 +1,318 @@
+package ca.pfv.spmf.tools;
+/*
+ *  Copyright (c) 2008-2012 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class lets another thread stop an algorithm that is running and follow its progress.
+ * <br/><br/>
+ *
+ * An algorithm that supports it calls nodeExplored() for each node of its search tree
+ * (for example, each projected database or each conditional tree) and patternFound() for each pattern.
+ * When the context is cancelled, either by calling cancel() or because its deadline has passed,
+ * the next call to nodeExplored() or checkCancelled() throws a {@link MiningCancelledException}.
+ * The algorithm then closes its output file, which contains the patterns found until then.
+ * Polling is cheap: it reads a volatile flag, the deadline being checked by a timer thread.
+ * The counters can be updated by several threads.
+ * <br/><br/>
+ *
+ * An algorithm has a method setMiningContext(MiningContext). If none is set, it uses the context given to
+ * DescriptionOfAlgorithm.runAlgorithm() for the current thread, if any (see getCurrent()).
+ * <br/><br/>
+ *
+ * Example:<br/>
+ * MiningContext context = new MiningContext();<br/>
+ * context.setTimeout(60000);<br/>
+ * algo.setMiningContext(context);<br/>
+ * algo.runAlgorithm(...);  // another thread may call context.getPatternCount() or context.cancel()<br/>
+ * context.removeDeadline();  // the timer does not keep a reference to the context anymore
+ *
+ * @see MiningCancelledException
+ * @author Philippe Fournier-Viger
+ */
+public class MiningContext {
+
+	/** the context given to DescriptionOfAlgorithm.runAlgorithm() for each thread */
+	private static final ThreadLocal<MiningContext> CURRENT = new ThreadLocal<MiningContext>();
+
+	/** the timer that cancels the contexts when their deadline is reached (created when first used) */
+	private static Timer deadlineTimer = null;
+
+	/** true if the algorithm should stop */
+	private volatile boolean cancelled = false;
+
+	/** true if the algorithm was stopped because the deadline was reached */
+	private volatile boolean timeoutReached = false;
+
+	/** the deadline (as given by System.currentTimeMillis()) or Long.MAX_VALUE if there is none */
+	private volatile long deadline = Long.MAX_VALUE;
+
+	/** the task of the timer that cancels this context when the deadline is reached, or null if there is no deadline */
+	private TimerTask deadlineTask = null;
+
+	/** the time when this context was created */
+	private final long startTime = System.currentTimeMillis();
+
+	/** the number of patterns found */
+	private final LongAdder patternCount = new LongAdder();
+
+	/** the number of nodes of the search tree explored */
+	private final LongAdder nodeCount = new LongAdder();
+
+	/** the number of units of work done, and the total number of units (0 if unknown) */
+	private final LongAdder workDone = new LongAdder();
+	private volatile long totalWork = 0;
+
+	/**
+	 * Get the context given to DescriptionOfAlgorithm.runAlgorithm() for the current thread
+	 * @return the context or null if there is none
+	 */
+	public static MiningContext getCurrent() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Set the context of the current thread
+	 * @param context the context or null to remove it
+	 */
+	public static void setCurrent(MiningContext context) {
+		if(context == null) {
+			CURRENT.remove();
+		}else {
+			CURRENT.set(context);
+		}
+	}
+
+	/**
+	 * Get the context to be used by an algorithm
+	 * @param context the context set by the user of the algorithm or null if none was set
+	 * @return this context if not null, otherwise the context of the current thread if there is one,
+	 *         otherwise a new context that is never cancelled (unless it has a deadline)
+	 */
+	public static MiningContext resolve(MiningContext context) {
+		if(context != null) {
+			return context;
+		}
+		MiningContext current = CURRENT.get();
+		return (current != null) ? current : new MiningContext();
+	}
+
+	/**
+	 * Ask the algorithm to stop as soon as possible
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Check if the algorithm was asked to stop
+	 * @return true if cancel() was called or the deadline was reached
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Check if the algorithm was stopped because its deadline was reached
+	 * @return true if the deadline was reached
+	 */
+	public boolean isTimeoutReached() {
+		return timeoutReached;
+	}
+
+	/**
+	 * Set a maximum execution time, counted from now
+	 * @param timeoutMillis the time in milliseconds
+	 */
+	public void setTimeout(long timeoutMillis) {
+		setDeadline(System.currentTimeMillis() + timeoutMillis);
+	}
+
+	/**
+	 * Set a time when the algorithm should be stopped
+	 * @param deadline the time, as given by System.currentTimeMillis()
+	 */
+	public synchronized void setDeadline(long deadline) {
+		removeDeadline();
+		this.deadline = deadline;
+		deadlineTask = new TimerTask() {
+			public void run() {
+				// the deadline may have been changed while this task was starting
+				if(System.currentTimeMillis() >= MiningContext.this.deadline) {
+					timeoutReached = true;
+					cancelled = true;
+				}
+			}
+		};
+		getDeadlineTimer().schedule(deadlineTask, Math.max(0, deadline - System.currentTimeMillis()));
+	}
+
+	/**
+	 * Remove the deadline, if there is one. This should be called when the algorithm has terminated,
+	 * because the timer keeps a reference to this context until the deadline is reached.
+	 */
+	public synchronized void removeDeadline() {
+		if(deadlineTask != null) {
+			deadlineTask.cancel();
+			deadlineTask = null;
+			// remove the cancelled task from the queue of the timer
+			getDeadlineTimer().purge();
+		}
+		deadline = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Get the time when the algorithm should be stopped
+	 * @return the time, as given by System.currentTimeMillis(), or Long.MAX_VALUE if there is no deadline
+	 */
+	public long getDeadline() {
+		return deadline;
+	}
+
+	/**
+	 * Get the timer that cancels the contexts having a deadline
+	 * @return the timer (it uses a daemon thread)
+	 */
+	private static synchronized Timer getDeadlineTimer() {
+		if(deadlineTimer == null) {
+			deadlineTimer = new Timer("SPMF mining deadlines", true);
+		}
+		return deadlineTimer;
+	}
+
+	/**
+	 * Stop the algorithm if it was asked to stop
+	 * @throws MiningCancelledException if cancel() was called or the deadline was reached
+	 */
+	public void checkCancelled() {
+		if(cancelled) {
+			throw new MiningCancelledException(timeoutReached ?
+					"The time limit was reached" : "The algorithm was cancelled", timeoutReached);
+		}
+	}
+
+	/**
+	 * Record that a node of the search tree is explored, and stop the algorithm if it was asked to stop
+	 * @throws MiningCancelledException if cancel() was called or the deadline was reached
+	 */
+	public void nodeExplored() {
+		nodeCount.increment();
+		checkCancelled();
+	}
+
+	/**
+	 * Record that a pattern was found
+	 */
+	public void patternFound() {
+		patternCount.increment();
+	}
+
+	/**
+	 * Record that several patterns were found
+	 * @param count the number of patterns
+	 */
+	public void patternsFound(long count) {
+		patternCount.add(count);
+	}
+
+	/**
+	 * Set the total amount of work to be done (for example, the number of branches of the
+	 * first level of the search tree), which is used to estimate the fraction of the work done
+	 * @param totalWork the number of units of work
+	 */
+	public void setTotalWork(long totalWork) {
+		workDone.reset();
+		this.totalWork = totalWork;
+	}
+
+	/**
+	 * Record that a unit of work is done (see setTotalWork())
+	 */
+	public void workDone() {
+		workDone.increment();
+	}
+
+	/**
+	 * Get the number of patterns found until now
+	 * @return the number of patterns
+	 */
+	public long getPatternCount() {
+		return patternCount.sum();
+	}
+
+	/**
+	 * Get the number of nodes of the search tree explored until now
+	 * @return the number of nodes
+	 */
+	public long getNodeCount() {
+		return nodeCount.sum();
+	}
+
+	/**
+	 * Get an estimation of the fraction of the work done
+	 * @return a value in [0,1] or -1 if it is unknown
+	 */
+	public double getFractionDone() {
+		long total = totalWork;
+		if(total <= 0) {
+			return -1;
+		}
+		return Math.min(1d, workDone.sum() / (double) total);
+	}
+
+	/**
+	 * Get the time elapsed since this context was created
+	 * @return the time in milliseconds
+	 */
+	public long getElapsedTime() {
+		return System.currentTimeMillis() - startTime;
+	}
+
+	/**
+	 * Get the number of patterns found per second since this context was created
+	 * @return the number of patterns per second
+	 */
+	public double getPatternsPerSecond() {
+		return getPatternCount() * 1000d / Math.max(1, getElapsedTime());
+	}
+
+	/**
+	 * Get a description of the progress of the algorithm
+	 * @return a string such as "1000 patterns, 2500 nodes explored, 40% done"
+	 */
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append(getPatternCount());
+		buffer.append(" patterns, ");
+		buffer.append(getNodeCount());
+		buffer.append(" nodes explored");
+		double fraction = getFractionDone();
+		if(fraction >= 0) {
+			buffer.append(", ");
+			buffer.append((int) (fraction * 100));
+			buffer.append("% done");
+		}
+		return buffer.toString();
+	}
+}
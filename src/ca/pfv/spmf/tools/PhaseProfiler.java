@@ -0,0 +1,168 @@
+package ca.pfv.spmf.tools;
+/*
+ *  Copyright (c) 2008-2016 Philippe Fournier-Viger
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is used to measure the time spent by an algorithm in each phase of its execution
+ * (for example, the time for performing intersections or for calculating upper-bounds).
+ * <br/><br/>
+ *
+ * Profiling is optional. An algorithm that supports it has a method setProfiler(PhaseProfiler).
+ * When no profiler is set (the default), the algorithm does not read the clock, so that
+ * profiling has no cost. When a profiler is set, the algorithm obtains a Phase object for each phase
+ * and adds to it the time measured with System.nanoTime() and the number of elements processed
+ * (for example, the number of transactions read). The counters can be updated by several threads.
+ * <br/><br/>
+ *
+ * Example:<br/>
+ * PhaseProfiler profiler = new PhaseProfiler();<br/>
+ * algo.setProfiler(profiler);<br/>
+ * algo.runAlgorithm(...);<br/>
+ * profiler.printStats();
+ *
+ * @author Philippe Fournier-Viger
+ */
+public class PhaseProfiler {
+
+	/**
+	 * A phase of an algorithm, with its counters
+	 */
+	public static class Phase {
+		/** the name of the phase */
+		private final String name;
+		/** the total time spent in this phase (in nanoseconds) */
+		private final AtomicLong time = new AtomicLong();
+		/** the number of times that the phase was executed */
+		private final AtomicLong calls = new AtomicLong();
+		/** the number of elements processed in this phase */
+		private final AtomicLong count = new AtomicLong();
+
+		/**
+		 * Constructor
+		 * @param name the name of the phase
+		 */
+		Phase(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Record an execution of this phase
+		 * @param startTime the value of System.nanoTime() when the phase started
+		 */
+		public void addTime(long startTime) {
+			time.addAndGet(System.nanoTime() - startTime);
+			calls.incrementAndGet();
+		}
+
+		/**
+		 * Add to the number of elements processed in this phase
+		 * @param elementCount the number of elements
+		 */
+		public void addCount(long elementCount) {
+			count.addAndGet(elementCount);
+		}
+
+		/**
+		 * Get the name of this phase
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Get the total time spent in this phase
+		 * @return the time in milliseconds
+		 */
+		public double getTimeMillis() {
+			return time.get() / 1000000d;
+		}
+
+		/**
+		 * Get the number of times that this phase was executed
+		 * @return the number of executions
+		 */
+		public long getCalls() {
+			return calls.get();
+		}
+
+		/**
+		 * Get the number of elements processed in this phase
+		 * @return the number of elements
+		 */
+		public long getCount() {
+			return count.get();
+		}
+	}
+
+	/** the phases, in the order where they were created */
+	private final List<Phase> phases = new ArrayList<Phase>();
+
+	/**
+	 * Get a phase, which is created if it does not exist
+	 * @param name the name of the phase
+	 * @return the phase
+	 */
+	public synchronized Phase getPhase(String name) {
+		for(Phase phase : phases) {
+			if(phase.name.equals(name)) {
+				return phase;
+			}
+		}
+		Phase phase = new Phase(name);
+		phases.add(phase);
+		return phase;
+	}
+
+	/**
+	 * Get the phases
+	 * @return the list of phases, in the order where they were created
+	 */
+	public synchronized List<Phase> getPhases() {
+		return new ArrayList<Phase>(phases);
+	}
+
+	/**
+	 * Remove all the phases and their counters
+	 */
+	public synchronized void reset() {
+		phases.clear();
+	}
+
+	/**
+	 * Print the time spent in each phase to the console
+	 */
+	public synchronized void printStats() {
+		System.out.println("=============  PHASE PROFILE =============");
+		for(Phase phase : phases) {
+			System.out.print(" " + phase.name + " ~: " + String.format("%.3f", phase.getTimeMillis()) + " ms");
+			System.out.print(" (" + phase.getCalls() + " calls");
+			if(phase.getCount() != 0) {
+				System.out.print(", " + phase.getCount() + " elements");
+			}
+			System.out.println(")");
+		}
+		System.out.println("==========================================");
+	}
+}
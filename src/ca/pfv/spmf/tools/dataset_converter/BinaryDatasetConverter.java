@@ -0,0 +1,310 @@
+package ca.pfv.spmf.tools.dataset_converter;
+
+/* This file is copyright (c) 2008-2016 Philippe Fournier-Viger
+*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.pfv.spmf.input.SPMFBinaryDataset;
+import ca.pfv.spmf.input.SPMFFileTokenizer;
+
+/**
+* This class converts a transaction database, a sequence database or a transaction database
+* with utility values from the SPMF text format to the binary format of SPMF, and back.
+* <br/><br/>
+*
+* The binary format is read faster than the text format since the file is memory-mapped and
+* no parsing is needed. It also stores the support (and TWU) of each item, so that the algorithms
+* that use these values do not need to read the database to calculate them.
+* Comments and metadata lines (such as the names of items) are not kept in the binary file.
+*
+* @see SPMFBinaryDataset
+* @author Philippe Fournier-Viger
+*/
+public class BinaryDatasetConverter {
+
+	/** the size of the buffers used to write a binary file */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * This method converts a file in SPMF format to the binary format.
+	 * The format with utility values is detected automatically (if the first transaction contains ':').
+	 * @param input the path of the input file
+	 * @param output the path of the binary file to be written
+	 * @throws IOException if an error occurs while reading or writing the files
+	 */
+	public void convertToBinary(String input, String output) throws IOException {
+		boolean withUtilities = hasUtilityValues(input);
+
+		// First database scan: count the transactions and item occurrences
+		// and calculate the support and TWU of each item.
+		// For each item, the array contains: the support, the TWU and the last transaction containing the item
+		Map<Integer, long[]> mapItemInformation = new HashMap<Integer, long[]>();
+		int transactionCount = 0;
+		long itemOccurrenceCount = 0;
+		SPMFFileTokenizer tokenizer = new SPMFFileTokenizer(input);
+		try {
+			while(withUtilities ? tokenizer.nextUtilityTransaction() : tokenizer.nextTransaction()) {
+				int[] items = tokenizer.getItems();
+				int itemCount = tokenizer.getItemCount();
+				for(int i = 0; i < itemCount; i++) {
+					// the separators -1 and -2 of a sequence database are not items
+					if(items[i] < 0) {
+						continue;
+					}
+					long[] information = mapItemInformation.get(items[i]);
+					if(information == null) {
+						information = new long[] {0, 0, -1};
+						mapItemInformation.put(items[i], information);
+					}
+					// an item is counted once per transaction (it can appear many times in a sequence)
+					if(information[2] != transactionCount) {
+						information[0]++;
+						information[1] += tokenizer.getTransactionUtility();
+						information[2] = transactionCount;
+					}
+				}
+				itemOccurrenceCount += itemCount;
+				transactionCount++;
+			}
+		}finally {
+			tokenizer.close();
+		}
+
+		// calculate the position of each section of the file
+		int distinctItemCount = mapItemInformation.size();
+		long itemTablePosition = SPMFBinaryDataset.HEADER_SIZE;
+		long offsetsPosition = itemTablePosition + (long) distinctItemCount * SPMFBinaryDataset.ITEM_ENTRY_SIZE;
+		long itemsPosition = offsetsPosition + (transactionCount + 1L) * 8;
+		long transactionUtilitiesPosition = withUtilities ? itemsPosition + itemOccurrenceCount * 4 : 0;
+		long utilitiesPosition = withUtilities ? transactionUtilitiesPosition + transactionCount * 4L : 0;
+
+		FileChannel channel = FileChannel.open(Paths.get(output), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			// write the header
+			SectionWriter header = new SectionWriter(channel, 0);
+			header.putBytes(SPMFBinaryDataset.MAGIC);
+			header.putInt(SPMFBinaryDataset.VERSION);
+			header.putInt(withUtilities ? SPMFBinaryDataset.FLAG_UTILITIES : 0);
+			header.putInt(transactionCount);
+			header.putInt(distinctItemCount);
+			header.putLong(itemOccurrenceCount);
+			header.putLong(itemTablePosition);
+			header.putLong(offsetsPosition);
+			header.putLong(itemsPosition);
+			header.putLong(transactionUtilitiesPosition);
+			header.putLong(utilitiesPosition);
+			header.putBytes(new byte[SPMFBinaryDataset.HEADER_SIZE - 72]);
+			header.flush();
+
+			// write the item table, sorted by item
+			List<Integer> items = new ArrayList<Integer>(mapItemInformation.keySet());
+			Collections.sort(items);
+			SectionWriter itemTable = new SectionWriter(channel, itemTablePosition);
+			for(Integer item : items) {
+				long[] information = mapItemInformation.get(item);
+				itemTable.putInt(item);
+				itemTable.putInt((int) information[0]);
+				itemTable.putLong(information[1]);
+			}
+			itemTable.flush();
+			mapItemInformation = null;
+
+			// Second database scan: write the transactions
+			SectionWriter offsets = new SectionWriter(channel, offsetsPosition);
+			SectionWriter itemWriter = new SectionWriter(channel, itemsPosition);
+			SectionWriter transactionUtilities = withUtilities ? new SectionWriter(channel, transactionUtilitiesPosition) : null;
+			SectionWriter utilities = withUtilities ? new SectionWriter(channel, utilitiesPosition) : null;
+			long offset = 0;
+			tokenizer = new SPMFFileTokenizer(input);
+			try {
+				while(withUtilities ? tokenizer.nextUtilityTransaction() : tokenizer.nextTransaction()) {
+					int itemCount = tokenizer.getItemCount();
+					offsets.putLong(offset);
+					itemWriter.putInts(tokenizer.getItems(), itemCount);
+					if(withUtilities) {
+						transactionUtilities.putInt(tokenizer.getTransactionUtility());
+						utilities.putInts(tokenizer.getUtilities(), itemCount);
+					}
+					offset += itemCount;
+				}
+			}finally {
+				tokenizer.close();
+			}
+			offsets.putLong(offset);
+			offsets.flush();
+			itemWriter.flush();
+			if(withUtilities) {
+				transactionUtilities.flush();
+				utilities.flush();
+			}
+		}finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * This method converts a file in binary format to the SPMF text format.
+	 * @param input the path of the binary file
+	 * @param output the path of the file to be written in SPMF format
+	 * @throws IOException if an error occurs while reading or writing the files
+	 */
+	public void convertToText(String input, String output) throws IOException {
+		SPMFBinaryDataset dataset = new SPMFBinaryDataset(input);
+		BufferedWriter writer = new BufferedWriter(new FileWriter(output), BUFFER_SIZE);
+		try {
+			int[] items = new int[64];
+			int[] utilities = new int[64];
+			StringBuilder buffer = new StringBuilder();
+			for(int t = 0; t < dataset.getTransactionCount(); t++) {
+				int length = dataset.getTransactionLength(t);
+				if(length > items.length) {
+					items = new int[Math.max(length, items.length * 2)];
+					utilities = new int[items.length];
+				}
+				dataset.getItems(t, items);
+				buffer.setLength(0);
+				for(int i = 0; i < length; i++) {
+					if(i > 0) {
+						buffer.append(' ');
+					}
+					buffer.append(items[i]);
+				}
+				// if there are utility values, write the transaction utility and the utility of each item
+				if(dataset.hasUtilities()) {
+					dataset.getUtilities(t, utilities);
+					buffer.append(':');
+					buffer.append(dataset.getTransactionUtility(t));
+					buffer.append(':');
+					for(int i = 0; i < length; i++) {
+						if(i > 0) {
+							buffer.append(' ');
+						}
+						buffer.append(utilities[i]);
+					}
+				}
+				if(t > 0) {
+					writer.newLine();
+				}
+				writer.write(buffer.toString());
+			}
+		}finally {
+			writer.close();
+			dataset.close();
+		}
+	}
+
+	/**
+	 * Check if the first transaction of a file in SPMF format has utility values
+	 * @param input the path of the file
+	 * @return true if the first line that is not a comment or metadata contains ':'
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	private boolean hasUtilityValues(String input) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(input)));
+		try {
+			String line;
+			while((line = reader.readLine()) != null) {
+				// skip empty lines, comments and metadata
+				if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%'
+						|| line.charAt(0) == '@') {
+					continue;
+				}
+				return line.indexOf(':') >= 0;
+			}
+			return false;
+		}finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * This class writes the values of a section of a binary file, starting at a given position.
+	 * The values are stored in a buffer that is written to the file when it is full.
+	 */
+	private static class SectionWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		// the position in the file where the content of the buffer will be written
+		private long position;
+
+		/**
+		 * Constructor
+		 * @param channel the channel of the file
+		 * @param position the position of the section in the file
+		 */
+		SectionWriter(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+			this.buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		void putInt(int value) throws IOException {
+			if(buffer.remaining() < 4) {
+				flush();
+			}
+			buffer.putInt(value);
+		}
+
+		void putLong(long value) throws IOException {
+			if(buffer.remaining() < 8) {
+				flush();
+			}
+			buffer.putLong(value);
+		}
+
+		void putInts(int[] values, int count) throws IOException {
+			for(int i = 0; i < count; i++) {
+				putInt(values[i]);
+			}
+		}
+
+		void putBytes(byte[] values) throws IOException {
+			if(buffer.remaining() < values.length) {
+				flush();
+			}
+			buffer.put(values);
+		}
+
+		/**
+		 * Write the content of the buffer to the file
+		 * @throws IOException if an error occurs
+		 */
+		void flush() throws IOException {
+			buffer.flip();
+			while(buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+	}
+}
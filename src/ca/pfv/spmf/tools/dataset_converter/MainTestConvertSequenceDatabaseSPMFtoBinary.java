@@ -0,0 +1,32 @@
+package ca.pfv.spmf.tools.dataset_converter;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+import ca.pfv.spmf.tools.dataset_converter.BinaryDatasetConverter;
+
+/**
+ * Example of how to convert a sequence database in SPMF format to
+ * the binary format of SPMF, and back to the SPMF format.
+ */
+public class MainTestConvertSequenceDatabaseSPMFtoBinary {
+	
+	public static void main(String [] arg) throws IOException{
+		
+		String inputFile = fileToPath("contextPrefixSpan.txt");
+		String binaryFile = ".//output.bin";
+		String outputFile = ".//output.txt";
+		
+		BinaryDatasetConverter converter = new BinaryDatasetConverter();
+		// convert to the binary format
+		converter.convertToBinary(inputFile, binaryFile);
+		// convert back to the SPMF format
+		converter.convertToText(binaryFile, outputFile);
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException{
+		URL url = MainTestConvertSequenceDatabaseSPMFtoBinary.class.getResource(filename);
+		 return java.net.URLDecoder.decode(url.getPath(),"UTF-8");
+	}
+}